@@ -23,12 +23,22 @@
 */
 package org.dishevelled.affinity;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.dishevelled.cluster.AbstractClusteringAlgorithm;
 import org.dishevelled.cluster.Cluster;
-import org.dishevelled.cluster.ClusteringAlgorithm;
 import org.dishevelled.cluster.ClusteringAlgorithmException;
 import org.dishevelled.cluster.ClusteringAlgorithmListener;
 import org.dishevelled.cluster.ExitStrategy;
@@ -37,17 +47,53 @@ import org.dishevelled.cluster.Similarity;
 /**
  * Clustering by affinity propagation.
  *
+ * <p>Similarities are calculated once into primitive arrays, with each value's
+ * preference on the diagonal, and responsibility and availability messages are
+ * exchanged between values until the exit strategy is satisfied or the set of exemplars
+ * has not changed for a number of iterations.  In dense mode every pair of values
+ * exchanges messages.  In sparse mode each value only keeps its <code>neighbors</code>
+ * most similar values, reducing memory and time per iteration from <code>O(n<sup>2</sup>)</code>
+ * to <code>O(n k)</code>.  Responsibility updates are parallelized over rows and
+ * availability updates over columns, split once into one range per thread holding
+ * roughly the same number of messages.</p>
+ *
+ * <p>See Frey, B.J. and Dueck, D., <i>Clustering by passing messages between data points</i>,
+ * Science 315, 972-976 (2007).</p>
+ *
  * @param <E> value type
  * @author  Michael Heuer
  * @version $Revision$ $Date$
  */
 public final class AffinityPropagation<E>
-// extends AbstractClusteringAlgorithm<E>
-    implements ClusteringAlgorithm<E>
+    extends AbstractClusteringAlgorithm<E>
 {
     /** Preference function. */
     private Preference<? super E> preference;
 
+    /** Damping factor. */
+    private double damping = DEFAULT_DAMPING;
+
+    /** Number of neighbors per value in sparse mode, or <code>0</code> for dense mode. */
+    private int neighbors = 0;
+
+    /** Number of iterations without a change in exemplars before exiting. */
+    private int convergenceIterations = DEFAULT_CONVERGENCE_ITERATIONS;
+
+    /** Number of threads. */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /** Relative magnitude of the noise added to similarities. */
+    private static final double NOISE = 1.0e-12d;
+
+    /** Absolute magnitude of the noise added to similarities. */
+    private static final double TINY = 1.0e-306d;
+
+    /** Default damping factor, <code>0.5d</code>. */
+    public static final double DEFAULT_DAMPING = 0.5d;
+
+    /** Default number of iterations without a change in exemplars before exiting, <code>15</code>. */
+    public static final int DEFAULT_CONVERGENCE_ITERATIONS = 15;
+
 
     /**
      * Create a new affinity propagation clustering algorithm with
@@ -57,54 +103,77 @@ public final class AffinityPropagation<E>
      */
     public AffinityPropagation(final Preference<? super E> preference)
     {
-        if (preference == null)
-        {
-            throw new IllegalArgumentException("preference must not be null");
-        }
-        this.preference = preference;
+        super();
+        setPreference(preference);
     }
 
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If no exemplars have emerged on exit, an exit failed event is fired and each value
+     * is returned as a singleton cluster.</p>
+     */
     public Set<Cluster<E>> cluster(final List<? extends E> values,
                                    final Similarity<E> similarity,
                                    final ExitStrategy<E> exitStrategy)
         throws ClusteringAlgorithmException
     {
-        if (values == null)
-        {
-            throw new IllegalArgumentException("values must not be null");
-        }
-        if (values.isEmpty())
-        {
-            throw new IllegalArgumentException("values must contain at least one value");
-        }
-        if (values.indexOf(null) != -1)
+        checkClusterParameters(values, similarity, exitStrategy);
+
+        int size = values.size();
+        // special case singleton values
+        if (size == 1)
         {
-            throw new IllegalArgumentException("values must not contain null values");
+            fireExitSucceeded();
+            return Collections.<Cluster<E>>singleton(new ExemplarCluster<E>(values, values.get(0)));
         }
-        if (similarity == null)
+
+        ExecutorService executorService = (threads > 1) ? Executors.newFixedThreadPool(threads) : null;
+        try
         {
-            throw new IllegalArgumentException("similarity must not be null");
+            Messages messages = new Messages(values, similarity, executorService);
+            boolean[] exemplars = new boolean[size];
+            Set<Cluster<E>> clusters = Collections.<Cluster<E>>emptySet();
+            int unchanged = 0;
+            boolean exit = false;
+            while (!exit)
+            {
+                messages.updateResponsibilities();
+                messages.updateAvailabilities();
+                // clusters only depend on the exemplars, so rebuild them only when the exemplars change
+                if (messages.updateExemplars(exemplars))
+                {
+                    unchanged = 0;
+                    clusters = messages.clusters(exemplars);
+                }
+                else
+                {
+                    unchanged++;
+                }
+                exit = exitStrategy.evaluate(values, clusters)
+                    || ((convergenceIterations > 0) && (unchanged >= convergenceIterations) && !clusters.isEmpty());
+            }
+            if (clusters.isEmpty())
+            {
+                fireExitFailed();
+                clusters = new HashSet<Cluster<E>>(size);
+                for (E value : values)
+                {
+                    clusters.add(new ExemplarCluster<E>(Collections.singletonList(value), value));
+                }
+                return clusters;
+            }
+            fireExitSucceeded();
+            return clusters;
         }
-        if (exitStrategy == null)
+        finally
         {
-            throw new IllegalArgumentException("exitStrategy must not be null");
+            if (executorService != null)
+            {
+                executorService.shutdownNow();
+            }
         }
-
-        return Collections.<Cluster<E>>emptySet();
-    }
-
-    /** {@inheritDoc} */
-    public void addClusteringAlgorithmListener(final ClusteringAlgorithmListener<E> listener)
-    {
-        // empty
-    }
-
-    /** {@inheritDoc} */
-    public void removeClusteringAlgorithmListener(final ClusteringAlgorithmListener<E> listener)
-    {
-        // empty
     }
 
     /**
@@ -133,4 +202,740 @@ public final class AffinityPropagation<E>
     {
         return preference;
     }
+
+    /**
+     * Set the damping factor for this affinity propagation clustering algorithm
+     * to <code>damping</code>.  Each message is updated to <code>damping</code> times its
+     * previous value plus <code>1 - damping</code> times its new value.
+     *
+     * @param damping damping factor, must be at least <code>0.0d</code> and less than <code>1.0d</code>
+     */
+    public void setDamping(final double damping)
+    {
+        if (damping < 0.0d || damping >= 1.0d)
+        {
+            throw new IllegalArgumentException("damping must be at least 0.0 and less than 1.0, was " + damping);
+        }
+        this.damping = damping;
+    }
+
+    /**
+     * Return the damping factor for this affinity propagation clustering algorithm.
+     * Defaults to <code>DEFAULT_DAMPING</code>.
+     *
+     * @return the damping factor for this affinity propagation clustering algorithm
+     */
+    public double getDamping()
+    {
+        return damping;
+    }
+
+    /**
+     * Set the number of neighbors per value for this affinity propagation clustering
+     * algorithm to <code>neighbors</code>.  If <code>neighbors</code> is greater than zero,
+     * only the <code>neighbors</code> most similar values to each value exchange messages
+     * with it (sparse mode), otherwise all pairs of values exchange messages (dense mode).
+     *
+     * @param neighbors number of neighbors per value, or <code>0</code> for dense mode,
+     *    must be at least <code>0</code>
+     */
+    public void setNeighbors(final int neighbors)
+    {
+        if (neighbors < 0)
+        {
+            throw new IllegalArgumentException("neighbors must be at least zero, was " + neighbors);
+        }
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Return the number of neighbors per value for this affinity propagation clustering
+     * algorithm, or <code>0</code> for dense mode.  Defaults to <code>0</code>.
+     *
+     * @return the number of neighbors per value for this affinity propagation clustering
+     *    algorithm, or <code>0</code> for dense mode
+     */
+    public int getNeighbors()
+    {
+        return neighbors;
+    }
+
+    /**
+     * Set the number of iterations without a change in exemplars before this affinity
+     * propagation clustering algorithm exits, regardless of its exit strategy, to
+     * <code>convergenceIterations</code>.  If <code>0</code>, only the exit strategy is consulted.
+     *
+     * @param convergenceIterations number of iterations without a change in exemplars before exiting,
+     *    must be at least <code>0</code>
+     */
+    public void setConvergenceIterations(final int convergenceIterations)
+    {
+        if (convergenceIterations < 0)
+        {
+            throw new IllegalArgumentException("convergenceIterations must be at least zero, was "
+                                               + convergenceIterations);
+        }
+        this.convergenceIterations = convergenceIterations;
+    }
+
+    /**
+     * Return the number of iterations without a change in exemplars before this affinity
+     * propagation clustering algorithm exits.  Defaults to <code>DEFAULT_CONVERGENCE_ITERATIONS</code>.
+     *
+     * @return the number of iterations without a change in exemplars before exiting
+     */
+    public int getConvergenceIterations()
+    {
+        return convergenceIterations;
+    }
+
+    /**
+     * Set the number of threads used by this affinity propagation clustering algorithm
+     * to <code>threads</code>.
+     *
+     * @param threads number of threads, must be at least <code>1</code>
+     */
+    public void setThreads(final int threads)
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("threads must be at least one, was " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Return the number of threads used by this affinity propagation clustering algorithm.
+     * Defaults to the number of available processors.
+     *
+     * @return the number of threads used by this affinity propagation clustering algorithm
+     */
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    /**
+     * Return true if any clustering algorithm listeners are registered.
+     *
+     * @return true if any clustering algorithm listeners are registered
+     */
+    private boolean hasListeners()
+    {
+        return getEventListenerList().getListenerCount(ClusteringAlgorithmListener.class) > 0;
+    }
+
+    /**
+     * Task over a range of indices.
+     */
+    private interface RangeTask
+    {
+
+        /**
+         * Run this task over the specified range.
+         *
+         * @param start start index, inclusive
+         * @param end end index, exclusive
+         */
+        void run(int start, int end);
+    }
+
+    /**
+     * Similarities, responsibilities, and availabilities in primitive arrays.
+     *
+     * <p>Row <code>i</code> occupies positions <code>[i * width, (i + 1) * width)</code>, with
+     * the first position holding the preference of value <code>i</code> and the remaining
+     * positions holding its similarity to each of its neighbors.  Columns are addressed via
+     * an index of positions sorted by column.</p>
+     */
+    private final class Messages
+    {
+        /** Values to cluster. */
+        private final List<? extends E> values;
+
+        /** Similarity. */
+        private final Similarity<E> similarity;
+
+        /** Executor service, may be null. */
+        private final ExecutorService executorService;
+
+        /** Number of values. */
+        private final int size;
+
+        /** Width of each row. */
+        private final int width;
+
+        /** Column of each position. */
+        private final int[] columns;
+
+        /** Similarities. */
+        private final double[] s;
+
+        /** Responsibilities. */
+        private final double[] r;
+
+        /** Availabilities. */
+        private final double[] a;
+
+        /** Start of each column in <code>columnPositions</code>. */
+        private final int[] columnStarts;
+
+        /** Positions sorted by column. */
+        private final int[] columnPositions;
+
+        /** Bounds of the ranges of rows to update in parallel. */
+        private final int[] rowBounds;
+
+        /** Bounds of the ranges of columns to update in parallel. */
+        private final int[] columnBounds;
+
+
+        /**
+         * Create new messages, calculating similarities for the specified values.
+         *
+         * @param values values to cluster
+         * @param similarity similarity
+         * @param executorService executor service, may be null
+         * @throws ClusteringAlgorithmException if an error occurs
+         */
+        Messages(final List<? extends E> values,
+                 final Similarity<E> similarity,
+                 final ExecutorService executorService)
+            throws ClusteringAlgorithmException
+        {
+            this.values = values;
+            this.similarity = similarity;
+            this.executorService = executorService;
+            size = values.size();
+            final boolean sparse = (neighbors > 0) && (neighbors < size - 1);
+            width = sparse ? neighbors + 1 : size;
+            long length = (long) size * width;
+            if (length > Integer.MAX_VALUE)
+            {
+                throw new ClusteringAlgorithmException("too many values to cluster in dense mode, " + size
+                                                       + " values, use sparse mode by setting neighbors");
+            }
+            columns = new int[(int) length];
+            s = new double[(int) length];
+            r = new double[(int) length];
+            a = new double[(int) length];
+
+            // every row holds width messages, so split rows evenly
+            int ranges = (executorService == null || size < threads * 2) ? 1 : threads;
+            rowBounds = new int[ranges + 1];
+            for (int i = 0; i <= ranges; i++)
+            {
+                rowBounds[i] = (int) (((long) size * i) / ranges);
+            }
+
+            final boolean fire = hasListeners();
+            parallel(rowBounds, new RangeTask()
+                {
+                    /** {@inheritDoc} */
+                    public void run(final int start, final int end)
+                    {
+                        double[] row = sparse ? new double[size] : null;
+                        int[] heap = sparse ? new int[width - 1] : null;
+                        for (int i = start; i < end; i++)
+                        {
+                            if (sparse)
+                            {
+                                calculateSparseRow(i, row, heap, fire);
+                            }
+                            else
+                            {
+                                calculateDenseRow(i, fire);
+                            }
+                        }
+                    }
+                });
+
+            // index positions by column
+            columnStarts = new int[size + 1];
+            for (int p = 0; p < columns.length; p++)
+            {
+                columnStarts[columns[p] + 1]++;
+            }
+            for (int k = 0; k < size; k++)
+            {
+                columnStarts[k + 1] += columnStarts[k];
+            }
+            columnPositions = new int[columns.length];
+            int[] next = new int[size];
+            System.arraycopy(columnStarts, 0, next, 0, size);
+            for (int p = 0; p < columns.length; p++)
+            {
+                columnPositions[next[columns[p]]++] = p;
+            }
+
+            // columns hold different numbers of messages in sparse mode, so split by position
+            columnBounds = new int[ranges + 1];
+            for (int i = 1, k = 0; i < ranges; i++)
+            {
+                long target = ((long) columns.length * i) / ranges;
+                while (columnStarts[k] < target)
+                {
+                    k++;
+                }
+                columnBounds[i] = k;
+            }
+            columnBounds[ranges] = size;
+        }
+
+
+        /**
+         * Run the specified range task over each range between the specified bounds, concurrently
+         * with the executor service if there is more than one range.
+         *
+         * @param bounds bounds of the ranges
+         * @param task range task
+         * @throws ClusteringAlgorithmException if the task fails or is interrupted
+         */
+        private void parallel(final int[] bounds, final RangeTask task)
+            throws ClusteringAlgorithmException
+        {
+            if (bounds.length == 2)
+            {
+                task.run(bounds[0], bounds[1]);
+                return;
+            }
+            List<Callable<Object>> callables = new ArrayList<Callable<Object>>(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; i++)
+            {
+                final int start = bounds[i];
+                final int end = bounds[i + 1];
+                if (start < end)
+                {
+                    callables.add(new Callable<Object>()
+                        {
+                            /** {@inheritDoc} */
+                            public Object call() throws Exception
+                            {
+                                task.run(start, end);
+                                return null;
+                            }
+                        });
+                }
+            }
+            try
+            {
+                for (Future<Object> future : executorService.invokeAll(callables))
+                {
+                    future.get();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new ClusteringAlgorithmException("interrupted", e);
+            }
+            catch (ExecutionException e)
+            {
+                if (e.getCause() instanceof RuntimeException)
+                {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new ClusteringAlgorithmException(e.getCause());
+            }
+        }
+
+
+        /**
+         * Calculate and return the similarity between the specified values, firing
+         * a similarity calculated event if requested.
+         *
+         * @param value1 first value
+         * @param value2 second value
+         * @param fire true to fire a similarity calculated event
+         * @return the similarity between the specified values
+         */
+        private double similarity(final E value1, final E value2, final boolean fire)
+        {
+            double score = similarity.similarity(value1, value2);
+            if (fire)
+            {
+                synchronized (AffinityPropagation.this)
+                {
+                    fireSimilarityCalculated(value1, value2, score);
+                }
+            }
+            return score;
+        }
+
+        /**
+         * Calculate row <code>i</code> in dense mode.
+         *
+         * @param i row
+         * @param fire true to fire similarity calculated events
+         */
+        private void calculateDenseRow(final int i, final boolean fire)
+        {
+            E value = values.get(i);
+            int p = i * width;
+            columns[p] = i;
+            s[p] = preference.preference(value);
+            p++;
+            for (int j = 0; j < size; j++)
+            {
+                if (j != i)
+                {
+                    columns[p] = j;
+                    s[p] = similarity(value, values.get(j), fire);
+                    p++;
+                }
+            }
+            addNoise(i);
+        }
+
+        /**
+         * Add a small amount of deterministic noise to the similarities in row <code>i</code>,
+         * to remove degeneracies that would otherwise cause messages to oscillate.
+         *
+         * @param i row
+         */
+        private void addNoise(final int i)
+        {
+            Random random = new Random(i);
+            for (int p = i * width, to = (i + 1) * width; p < to; p++)
+            {
+                s[p] += (NOISE * Math.abs(s[p]) + TINY) * random.nextGaussian();
+            }
+        }
+
+        /**
+         * Calculate row <code>i</code> in sparse mode, keeping the most similar neighbors.
+         *
+         * @param i row
+         * @param row scratch similarities, of length <code>size</code>
+         * @param heap scratch min-heap of neighbors, of length <code>width - 1</code>
+         * @param fire true to fire similarity calculated events
+         */
+        private void calculateSparseRow(final int i, final double[] row, final int[] heap, final boolean fire)
+        {
+            E value = values.get(i);
+            int k = heap.length;
+            int count = 0;
+            for (int j = 0; j < size; j++)
+            {
+                if (j == i)
+                {
+                    continue;
+                }
+                row[j] = similarity(value, values.get(j), fire);
+                if (count < k)
+                {
+                    heap[count] = j;
+                    siftUp(heap, count, row);
+                    count++;
+                }
+                else if (row[j] > row[heap[0]])
+                {
+                    heap[0] = j;
+                    siftDown(heap, k, row);
+                }
+            }
+            int p = i * width;
+            columns[p] = i;
+            s[p] = preference.preference(value);
+            for (int n = 0; n < k; n++)
+            {
+                columns[p + 1 + n] = heap[n];
+                s[p + 1 + n] = row[heap[n]];
+            }
+            addNoise(i);
+        }
+
+        /**
+         * Update responsibilities, in parallel over rows.
+         *
+         * @throws ClusteringAlgorithmException if an error occurs
+         */
+        void updateResponsibilities() throws ClusteringAlgorithmException
+        {
+            parallel(rowBounds, new RangeTask()
+                {
+                    /** {@inheritDoc} */
+                    public void run(final int start, final int end)
+                    {
+                        for (int i = start; i < end; i++)
+                        {
+                            int from = i * width;
+                            int to = from + width;
+                            double max = Double.NEGATIVE_INFINITY;
+                            double second = Double.NEGATIVE_INFINITY;
+                            int argmax = -1;
+                            for (int p = from; p < to; p++)
+                            {
+                                double as = a[p] + s[p];
+                                if (as > max)
+                                {
+                                    second = max;
+                                    max = as;
+                                    argmax = p;
+                                }
+                                else if (as > second)
+                                {
+                                    second = as;
+                                }
+                            }
+                            for (int p = from; p < to; p++)
+                            {
+                                double update = s[p] - ((p == argmax) ? second : max);
+                                r[p] = damping * r[p] + (1.0d - damping) * update;
+                            }
+                        }
+                    }
+                });
+        }
+
+        /**
+         * Update availabilities, in parallel over columns.
+         *
+         * @throws ClusteringAlgorithmException if an error occurs
+         */
+        void updateAvailabilities() throws ClusteringAlgorithmException
+        {
+            parallel(columnBounds, new RangeTask()
+                {
+                    /** {@inheritDoc} */
+                    public void run(final int start, final int end)
+                    {
+                        for (int k = start; k < end; k++)
+                        {
+                            int self = k * width;
+                            int from = columnStarts[k];
+                            int to = columnStarts[k + 1];
+                            double sum = 0.0d;
+                            for (int c = from; c < to; c++)
+                            {
+                                int p = columnPositions[c];
+                                if (p != self)
+                                {
+                                    sum += Math.max(0.0d, r[p]);
+                                }
+                            }
+                            for (int c = from; c < to; c++)
+                            {
+                                int p = columnPositions[c];
+                                double update = (p == self) ? sum : Math.min(0.0d, r[self] + sum - Math.max(0.0d, r[p]));
+                                a[p] = damping * a[p] + (1.0d - damping) * update;
+                            }
+                        }
+                    }
+                });
+        }
+
+        /**
+         * Update the specified exemplars, returning true if any changed.  Value <code>k</code>
+         * is an exemplar if the sum of its self-responsibility and self-availability is positive.
+         *
+         * @param exemplars exemplars
+         * @return true if any exemplars changed
+         */
+        boolean updateExemplars(final boolean[] exemplars)
+        {
+            boolean changed = false;
+            for (int k = 0; k < size; k++)
+            {
+                int self = k * width;
+                boolean exemplar = (r[self] + a[self]) > 0.0d;
+                if (exemplar != exemplars[k])
+                {
+                    exemplars[k] = exemplar;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Return clusters for the specified exemplars, assigning each value to its most
+         * similar exemplar, or an empty set if there are no exemplars.
+         *
+         * @param exemplars exemplars
+         * @return clusters for the specified exemplars
+         */
+        Set<Cluster<E>> clusters(final boolean[] exemplars)
+        {
+            List<Integer> exemplarIndices = new ArrayList<Integer>();
+            for (int k = 0; k < size; k++)
+            {
+                if (exemplars[k])
+                {
+                    exemplarIndices.add(Integer.valueOf(k));
+                }
+            }
+            if (exemplarIndices.isEmpty())
+            {
+                return Collections.<Cluster<E>>emptySet();
+            }
+            int[] assignments = new int[size];
+            for (int i = 0; i < size; i++)
+            {
+                if (exemplars[i])
+                {
+                    assignments[i] = i;
+                    continue;
+                }
+                int best = -1;
+                double bestSimilarity = Double.NEGATIVE_INFINITY;
+                for (int p = i * width + 1, to = (i + 1) * width; p < to; p++)
+                {
+                    if (exemplars[columns[p]] && (best == -1 || s[p] > bestSimilarity))
+                    {
+                        best = columns[p];
+                        bestSimilarity = s[p];
+                    }
+                }
+                if (best == -1)
+                {
+                    // no exemplar among the neighbors of value i in sparse mode
+                    E value = values.get(i);
+                    for (Integer k : exemplarIndices)
+                    {
+                        double score = similarity.similarity(value, values.get(k.intValue()));
+                        if (best == -1 || score > bestSimilarity)
+                        {
+                            best = k.intValue();
+                            bestSimilarity = score;
+                        }
+                    }
+                }
+                assignments[i] = best;
+            }
+            // group members by exemplar in a single pass
+            int[] slots = new int[size];
+            List<List<E>> members = new ArrayList<List<E>>(exemplarIndices.size());
+            for (int slot = 0; slot < exemplarIndices.size(); slot++)
+            {
+                slots[exemplarIndices.get(slot).intValue()] = slot;
+                members.add(new ArrayList<E>());
+            }
+            for (int i = 0; i < size; i++)
+            {
+                members.get(slots[assignments[i]]).add(values.get(i));
+            }
+            Set<Cluster<E>> clusters = new HashSet<Cluster<E>>(exemplarIndices.size());
+            for (int slot = 0; slot < exemplarIndices.size(); slot++)
+            {
+                clusters.add(new ExemplarCluster<E>(members.get(slot), values.get(exemplarIndices.get(slot).intValue())));
+            }
+            return clusters;
+        }
+    }
+
+    /**
+     * Restore the min-heap property upwards from the specified position.
+     *
+     * @param heap heap of indices
+     * @param position position
+     * @param keys keys by index
+     */
+    private static void siftUp(final int[] heap, final int position, final double[] keys)
+    {
+        int child = position;
+        int index = heap[child];
+        while (child > 0)
+        {
+            int parent = (child - 1) >>> 1;
+            if (keys[heap[parent]] <= keys[index])
+            {
+                break;
+            }
+            heap[child] = heap[parent];
+            child = parent;
+        }
+        heap[child] = index;
+    }
+
+    /**
+     * Restore the min-heap property downwards from the root.
+     *
+     * @param heap heap of indices
+     * @param length heap length
+     * @param keys keys by index
+     */
+    private static void siftDown(final int[] heap, final int length, final double[] keys)
+    {
+        int parent = 0;
+        int index = heap[0];
+        while (true)
+        {
+            int child = 2 * parent + 1;
+            if (child >= length)
+            {
+                break;
+            }
+            if (child + 1 < length && keys[heap[child + 1]] < keys[heap[child]])
+            {
+                child++;
+            }
+            if (keys[index] <= keys[heap[child]])
+            {
+                break;
+            }
+            heap[parent] = heap[child];
+            parent = child;
+        }
+        heap[parent] = index;
+    }
+
+    /**
+     * Cluster with an exemplar.
+     *
+     * @param <E> value type
+     */
+    private static final class ExemplarCluster<E>
+        implements Cluster<E>
+    {
+        /** Members. */
+        private final List<E> members;
+
+        /** Exemplar. */
+        private final E exemplar;
+
+
+        /**
+         * Create a new cluster with the specified members and exemplar.
+         *
+         * @param members members
+         * @param exemplar exemplar
+         */
+        ExemplarCluster(final List<? extends E> members, final E exemplar)
+        {
+            this.members = Collections.unmodifiableList(new ArrayList<E>(members));
+            this.exemplar = exemplar;
+        }
+
+
+        /** {@inheritDoc} */
+        public int size()
+        {
+            return members.size();
+        }
+
+        /** {@inheritDoc} */
+        public boolean isSingleton()
+        {
+            return (size() == 1);
+        }
+
+        /** {@inheritDoc} */
+        public E exemplar()
+        {
+            return exemplar;
+        }
+
+        /** {@inheritDoc} */
+        public List<E> members()
+        {
+            return members;
+        }
+
+        /** {@inheritDoc} */
+        public Iterator<E> iterator()
+        {
+            return members.iterator();
+        }
+    }
 }
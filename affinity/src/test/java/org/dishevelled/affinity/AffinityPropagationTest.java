@@ -23,8 +23,20 @@
 */
 package org.dishevelled.affinity;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.dishevelled.cluster.Cluster;
 import org.dishevelled.cluster.ClusteringAlgorithm;
+import org.dishevelled.cluster.ClusteringAlgorithmAdapter;
+import org.dishevelled.cluster.ClusteringAlgorithmEvent;
+import org.dishevelled.cluster.ClusteringAlgorithmException;
+import org.dishevelled.cluster.ExitStrategy;
 import org.dishevelled.cluster.AbstractClusteringAlgorithmTest;
+import org.dishevelled.cluster.Similarity;
+
+import org.dishevelled.cluster.exit.IterationLimitExitStrategy;
 
 import org.dishevelled.affinity.preference.UniformPreference;
 
@@ -44,8 +56,233 @@ public final class AffinityPropagationTest
         return new AffinityPropagation<T>(new UniformPreference<T>());
     }
 
+    /** Negative squared distance similarity. */
+    private static final Similarity<Double> NEGATIVE_SQUARED_DISTANCE = new Similarity<Double>()
+        {
+            /** {@inheritDoc} */
+            public double similarity(final Double value1, final Double value2)
+            {
+                double d = value1.doubleValue() - value2.doubleValue();
+                return -(d * d);
+            }
+        };
+
+
+    /**
+     * Create and return a list of values in three well separated groups.
+     *
+     * @return a list of values in three well separated groups
+     */
+    private static List<Double> createValues()
+    {
+        List<Double> values = new ArrayList<Double>();
+        for (int i = 0; i < 20; i++)
+        {
+            values.add(Double.valueOf(0.0d + i * 0.01d));
+            values.add(Double.valueOf(100.0d + i * 0.01d));
+            values.add(Double.valueOf(200.0d + i * 0.01d));
+        }
+        return values;
+    }
+
+    /**
+     * Assert the specified clusters partition the specified values into three groups.
+     *
+     * @param values values
+     * @param clusters clusters
+     */
+    private static void assertThreeGroups(final List<Double> values, final Set<Cluster<Double>> clusters)
+    {
+        assertEquals(3, clusters.size());
+        int count = 0;
+        for (Cluster<Double> cluster : clusters)
+        {
+            assertEquals(20, cluster.size());
+            assertNotNull(cluster.exemplar());
+            assertTrue(cluster.members().contains(cluster.exemplar()));
+            long group = Math.round(cluster.exemplar().doubleValue() / 100.0d);
+            for (Double member : cluster)
+            {
+                assertEquals(group, Math.round(member.doubleValue() / 100.0d));
+            }
+            count += cluster.size();
+        }
+        assertEquals(values.size(), count);
+    }
+
     public void testAffinityPropagation()
     {
-        // empty
+        AffinityPropagation<String> affinityPropagation = new AffinityPropagation<String>(new UniformPreference<String>());
+        assertNotNull(affinityPropagation.getPreference());
+        assertEquals(AffinityPropagation.DEFAULT_DAMPING, affinityPropagation.getDamping(), 0.0d);
+        assertEquals(0, affinityPropagation.getNeighbors());
+        assertEquals(AffinityPropagation.DEFAULT_CONVERGENCE_ITERATIONS, affinityPropagation.getConvergenceIterations());
+        assertTrue(affinityPropagation.getThreads() > 0);
+
+        try
+        {
+            new AffinityPropagation<String>(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            affinityPropagation.setDamping(1.0d);
+            fail("setDamping(1.0) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            affinityPropagation.setNeighbors(-1);
+            fail("setNeighbors(-1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            affinityPropagation.setConvergenceIterations(-1);
+            fail("setConvergenceIterations(-1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            affinityPropagation.setThreads(0);
+            fail("setThreads(0) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testSingleValue() throws ClusteringAlgorithmException
+    {
+        List<Double> values = new ArrayList<Double>();
+        values.add(Double.valueOf(1.0d));
+        AffinityPropagation<Double> affinityPropagation = new AffinityPropagation<Double>(new UniformPreference<Double>());
+        Set<Cluster<Double>> clusters = affinityPropagation.cluster(values, NEGATIVE_SQUARED_DISTANCE,
+                                                                    new IterationLimitExitStrategy<Double>(100));
+        assertEquals(1, clusters.size());
+        assertEquals(Double.valueOf(1.0d), clusters.iterator().next().exemplar());
+    }
+
+    public void testDense() throws ClusteringAlgorithmException
+    {
+        List<Double> values = createValues();
+        AffinityPropagation<Double> affinityPropagation = new AffinityPropagation<Double>(new UniformPreference<Double>(-100.0d));
+        affinityPropagation.setDamping(0.9d);
+        affinityPropagation.setThreads(1);
+        assertThreeGroups(values, affinityPropagation.cluster(values, NEGATIVE_SQUARED_DISTANCE,
+                                                              new IterationLimitExitStrategy<Double>(1000)));
+    }
+
+    public void testDenseParallel() throws ClusteringAlgorithmException
+    {
+        List<Double> values = createValues();
+        AffinityPropagation<Double> affinityPropagation = new AffinityPropagation<Double>(new UniformPreference<Double>(-100.0d));
+        affinityPropagation.setDamping(0.9d);
+        affinityPropagation.setThreads(4);
+        assertThreeGroups(values, affinityPropagation.cluster(values, NEGATIVE_SQUARED_DISTANCE,
+                                                              new IterationLimitExitStrategy<Double>(1000)));
+    }
+
+    public void testSparseParallel() throws ClusteringAlgorithmException
+    {
+        List<Double> values = createValues();
+        AffinityPropagation<Double> affinityPropagation = new AffinityPropagation<Double>(new UniformPreference<Double>(-100.0d));
+        affinityPropagation.setNeighbors(25);
+        affinityPropagation.setDamping(0.9d);
+        affinityPropagation.setThreads(4);
+        assertThreeGroups(values, affinityPropagation.cluster(values, NEGATIVE_SQUARED_DISTANCE,
+                                                              new IterationLimitExitStrategy<Double>(1000)));
+    }
+
+    public void testClustersRebuiltOnlyWhenExemplarsChange() throws ClusteringAlgorithmException
+    {
+        List<Double> values = createValues();
+        AffinityPropagation<Double> affinityPropagation = new AffinityPropagation<Double>(new UniformPreference<Double>(-100.0d));
+        affinityPropagation.setDamping(0.9d);
+        final List<Set<Cluster<Double>>> evaluated = new ArrayList<Set<Cluster<Double>>>();
+        affinityPropagation.cluster(values, NEGATIVE_SQUARED_DISTANCE, new ExitStrategy<Double>()
+            {
+                /** {@inheritDoc} */
+                public boolean evaluate(final List<? extends Double> values, final Set<Cluster<Double>> clusters)
+                {
+                    evaluated.add(clusters);
+                    return evaluated.size() >= 1000;
+                }
+            });
+        int convergenceIterations = affinityPropagation.getConvergenceIterations();
+        assertTrue(evaluated.size() < 1000);
+        assertTrue(evaluated.size() > convergenceIterations);
+        Set<Cluster<Double>> last = evaluated.get(evaluated.size() - 1);
+        for (int i = evaluated.size() - 1 - convergenceIterations; i < evaluated.size(); i++)
+        {
+            assertSame(last, evaluated.get(i));
+        }
+    }
+
+    public void testListeners() throws ClusteringAlgorithmException
+    {
+        List<Double> values = createValues();
+        AffinityPropagation<Double> affinityPropagation = new AffinityPropagation<Double>(new UniformPreference<Double>(-100.0d));
+        affinityPropagation.setDamping(0.9d);
+        affinityPropagation.setThreads(4);
+        final int[] counts = new int[3];
+        affinityPropagation.addClusteringAlgorithmListener(new ClusteringAlgorithmAdapter<Double>()
+            {
+                /** {@inheritDoc} */
+                public void exitFailed(final ClusteringAlgorithmEvent<Double> event)
+                {
+                    counts[0]++;
+                }
+
+                /** {@inheritDoc} */
+                public void exitSucceeded(final ClusteringAlgorithmEvent<Double> event)
+                {
+                    counts[1]++;
+                }
+
+                /** {@inheritDoc} */
+                public void similarityCalculated(final ClusteringAlgorithmEvent<Double> event)
+                {
+                    counts[2]++;
+                }
+            });
+        affinityPropagation.cluster(values, NEGATIVE_SQUARED_DISTANCE, new IterationLimitExitStrategy<Double>(1000));
+        assertEquals(0, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(values.size() * (values.size() - 1), counts[2]);
+    }
+
+    public void testExitFailed() throws ClusteringAlgorithmException
+    {
+        List<Double> values = createValues();
+        AffinityPropagation<Double> affinityPropagation = new AffinityPropagation<Double>(new UniformPreference<Double>(-1.0e9d));
+        final int[] counts = new int[1];
+        affinityPropagation.addClusteringAlgorithmListener(new ClusteringAlgorithmAdapter<Double>()
+            {
+                /** {@inheritDoc} */
+                public void exitFailed(final ClusteringAlgorithmEvent<Double> event)
+                {
+                    counts[0]++;
+                }
+            });
+        // exit before any exemplars emerge
+        Set<Cluster<Double>> clusters = affinityPropagation.cluster(values, NEGATIVE_SQUARED_DISTANCE,
+                                                                    new IterationLimitExitStrategy<Double>(0));
+        assertEquals(1, counts[0]);
+        assertEquals(values.size(), clusters.size());
     }
 }
@@ -438,7 +438,7 @@ public final class GraphGenerators
             throw new IllegalArgumentException("edgeValues must not be null");
         }
         // weight nodes by degree
-        WeightedMap<Node<N, E>> weightedNodes = WeightedMaps.createWeightedMap(graph.nodeCount());
+        WeightedMap<Node<N, E>> weightedNodes = WeightedMaps.createFenwickWeightedMap(graph.nodeCount());
         for (Node<N, E> node : graph.nodes())
         {
             weightedNodes.put(node, Double.valueOf(node.degree() + DEFAULT_UNCONNECTED_NODE_WEIGHT));
@@ -526,7 +526,7 @@ public final class GraphGenerators
         }
 
         // weight nodes by degree
-        WeightedMap<Node<N, E>> weightedNodes = WeightedMaps.createWeightedMap(n);
+        WeightedMap<Node<N, E>> weightedNodes = WeightedMaps.createFenwickWeightedMap(n);
         for (Node<N, E> node : graph.nodes())
         {
             weightedNodes.put(node, Double.valueOf(node.degree() + DEFAULT_UNCONNECTED_NODE_WEIGHT));
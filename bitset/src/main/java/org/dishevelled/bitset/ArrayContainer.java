@@ -0,0 +1,306 @@
+/*
+
+    dsh-bitset  High performance bit set implementations.
+    Copyright (c) 2011-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bitset;
+
+import org.dishevelled.functor.UnaryProcedure;
+
+/**
+ * Container that stores up to <code>4096</code> values as a sorted array.
+ */
+final class ArrayContainer extends Container {
+    /** Sorted values, as unsigned 16 bit chars. */
+    private char[] values;
+
+    /** Number of values. */
+    private int cardinality;
+
+
+    /**
+     * Create a new empty array container.
+     */
+    ArrayContainer() {
+        this(new char[4], 0);
+    }
+
+    /**
+     * Create a new array container with the specified sorted values.
+     *
+     * @param values sorted values
+     * @param cardinality number of values used in <code>values</code>
+     */
+    ArrayContainer(final char[] values, final int cardinality) {
+        this.values = values;
+        this.cardinality = cardinality;
+    }
+
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    boolean contains(final int x) {
+        return search(x) >= 0;
+    }
+
+    @Override
+    Container add(final int x) {
+        int i = search(x);
+        if (i >= 0) {
+            return this;
+        }
+        if (cardinality >= MAX_ARRAY_SIZE) {
+            return toBitmap().add(x);
+        }
+        i = -i - 1;
+        if (cardinality == values.length) {
+            char[] grown = new char[Math.min(MAX_ARRAY_SIZE, Math.max(4, cardinality * 2))];
+            System.arraycopy(values, 0, grown, 0, cardinality);
+            values = grown;
+        }
+        System.arraycopy(values, i, values, i + 1, cardinality - i);
+        values[i] = (char) x;
+        cardinality++;
+        return this;
+    }
+
+    @Override
+    Container remove(final int x) {
+        int i = search(x);
+        if (i >= 0) {
+            System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+            cardinality--;
+        }
+        return this;
+    }
+
+    @Override
+    int next(final int x) {
+        int i = search(x);
+        if (i >= 0) {
+            return x;
+        }
+        i = -i - 1;
+        return (i < cardinality) ? values[i] : -1;
+    }
+
+    @Override
+    int prev(final int x) {
+        int i = search(x);
+        if (i >= 0) {
+            return x;
+        }
+        i = -i - 2;
+        return (i >= 0) ? values[i] : -1;
+    }
+
+    @Override
+    int nextAbsent(final int x) {
+        int i = search(x);
+        if (i < 0) {
+            return x;
+        }
+        while (i + 1 < cardinality && values[i + 1] == values[i] + 1) {
+            i++;
+        }
+        int absent = values[i] + 1;
+        return (absent < CHUNK_SIZE) ? absent : -1;
+    }
+
+    @Override
+    int prevAbsent(final int x) {
+        int i = search(x);
+        if (i < 0) {
+            return x;
+        }
+        while (i > 0 && values[i - 1] == values[i] - 1) {
+            i--;
+        }
+        return values[i] - 1;
+    }
+
+    @Override
+    void forEach(final long base, final UnaryProcedure<Long> procedure) {
+        for (int i = 0; i < cardinality; i++) {
+            procedure.run(base + values[i]);
+        }
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+        BitmapContainer bitmap = new BitmapContainer();
+        orInto(bitmap.words);
+        bitmap.cardinality = cardinality;
+        return bitmap;
+    }
+
+    @Override
+    Container copy() {
+        char[] copy = new char[Math.max(4, cardinality)];
+        System.arraycopy(values, 0, copy, 0, cardinality);
+        return new ArrayContainer(copy, cardinality);
+    }
+
+    @Override
+    int sizeInBytes() {
+        return 2 * cardinality;
+    }
+
+    @Override
+    void orInto(final long[] words) {
+        for (int i = 0; i < cardinality; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+    }
+
+    @Override
+    void xorInto(final long[] words) {
+        for (int i = 0; i < cardinality; i++) {
+            words[values[i] >>> 6] ^= 1L << values[i];
+        }
+    }
+
+    @Override
+    void clearFrom(final long[] words) {
+        for (int i = 0; i < cardinality; i++) {
+            words[values[i] >>> 6] &= ~(1L << values[i]);
+        }
+    }
+
+    /**
+     * Return a new array container with the values in this container that are, or are not,
+     * contained in the specified container.
+     *
+     * @param other other container
+     * @param contained true to keep values contained in <code>other</code>, false to keep
+     *    values not contained in <code>other</code>
+     * @return a new array container, possibly empty
+     */
+    ArrayContainer filter(final Container other, final boolean contained) {
+        char[] result = new char[Math.max(4, cardinality)];
+        int n = 0;
+        for (int i = 0; i < cardinality; i++) {
+            if (other.contains(values[i]) == contained) {
+                result[n++] = values[i];
+            }
+        }
+        return new ArrayContainer(result, n);
+    }
+
+    /**
+     * Return a new array container with the union of the values in this and the specified
+     * array container, which must total no more than <code>4096</code>.
+     *
+     * @param other other array container
+     * @return a new array container with the union of the values in this and the specified
+     *    array container
+     */
+    ArrayContainer union(final ArrayContainer other) {
+        char[] result = new char[Math.max(4, cardinality + other.cardinality)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < cardinality && j < other.cardinality) {
+            char x = values[i];
+            char y = other.values[j];
+            if (x < y) {
+                result[n++] = x;
+                i++;
+            }
+            else if (y < x) {
+                result[n++] = y;
+                j++;
+            }
+            else {
+                result[n++] = x;
+                i++;
+                j++;
+            }
+        }
+        while (i < cardinality) {
+            result[n++] = values[i++];
+        }
+        while (j < other.cardinality) {
+            result[n++] = other.values[j++];
+        }
+        return new ArrayContainer(result, n);
+    }
+
+    /**
+     * Return the number of values in this container contained in the specified container.
+     *
+     * @param other other container
+     * @return the number of values in this container contained in the specified container
+     */
+    int countContained(final Container other) {
+        int count = 0;
+        for (int i = 0; i < cardinality; i++) {
+            if (other.contains(values[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return true if any value in this container is contained in the specified container.
+     *
+     * @param other other container
+     * @return true if any value in this container is contained in the specified container
+     */
+    boolean anyContained(final Container other) {
+        for (int i = 0; i < cardinality; i++) {
+            if (other.contains(values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Binary search for the specified value.
+     *
+     * @param x value
+     * @return the index of the specified value, or <code>-(insertion point) - 1</code>
+     */
+    private int search(final int x) {
+        int low = 0;
+        int high = cardinality - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int v = values[mid];
+            if (v < x) {
+                low = mid + 1;
+            }
+            else if (v > x) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,482 @@
+/*
+
+    dsh-bitset  High performance bit set implementations.
+    Copyright (c) 2011-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bitset;
+
+import java.io.Serializable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.dishevelled.functor.UnaryProcedure;
+
+/**
+ * Fixed size, thread safe bit set.
+ *
+ * <p>Single bit operations, including {@link #set(long)}, {@link #clear(long)}, {@link #flip(long)},
+ * {@link #getAndSet(long)} and {@link #flipAndGet(long)}, are atomic and lock-free, implemented with
+ * compare-and-set operations on an {@link AtomicLongArray}.  Range operations are atomic per 64 bit word
+ * but not across words.  Queries and bulk operations across words, such as {@link #cardinality()},
+ * {@link #nextSetBit(long)}, and {@link #immutableCopy()}, are weakly consistent: each word is read atomically,
+ * but concurrent modifications made during the operation may or may not be reflected in the result.</p>
+ *
+ * <p>Unlike mutable bit sets, atomic bit sets do not grow.  Attempts to modify bits at indices greater
+ * than or equal to the number of bits specified at construction throw {@link IndexOutOfBoundsException}.</p>
+ *
+ * @since 3.1
+ */
+public class AtomicBitSet extends AbstractBitSet implements Serializable {
+    /** Words. */
+    private final AtomicLongArray words;
+
+    /** Number of bits. */
+    private final long numBits;
+
+
+    /**
+     * Create a new atomic bit set with the specified number of bits.
+     *
+     * @param numBits number of bits, must be at least zero
+     * @throws IllegalArgumentException if <code>numBits</code> is negative or too large
+     */
+    public AtomicBitSet(final long numBits) {
+        if (numBits < 0L) {
+            throw new IllegalArgumentException("numBits must be at least zero, was " + numBits);
+        }
+        long wlen = ((numBits - 1L) >>> 6) + 1L;
+        if (numBits == 0L) {
+            wlen = 0L;
+        }
+        if (wlen > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("numBits too large, was " + numBits);
+        }
+        this.numBits = numBits;
+        words = new AtomicLongArray((int) wlen);
+    }
+
+    /**
+     * Create a new atomic bit set with the bits set in the specified bit set.
+     *
+     * @param other bit set to copy, must not be null
+     */
+    public AtomicBitSet(final AbstractBitSet other) {
+        long[] bits = other.bits();
+        int wlen = other.wlen();
+        this.numBits = ((long) wlen) << 6;
+        words = new AtomicLongArray(wlen);
+        for (int i = 0; i < wlen; i++) {
+            words.set(i, bits[i]);
+        }
+    }
+
+
+    @Override
+    public long capacity() {
+        return ((long) words.length()) << 6;
+    }
+
+    @Override
+    public long cardinality() {
+        long cardinality = 0L;
+        for (int i = 0, wlen = words.length(); i < wlen; i++) {
+            cardinality += Long.bitCount(words.get(i));
+        }
+        return cardinality;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (int i = 0, wlen = words.length(); i < wlen; i++) {
+            if (words.get(i) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean get(final long index) {
+        if (index < 0L || index >= capacity()) {
+            return false;
+        }
+        return getQuick(index);
+    }
+
+    @Override
+    public boolean getQuick(final long index) {
+        return (words.get((int) (index >> 6)) & (1L << index)) != 0L;
+    }
+
+    @Override
+    public long nextClearBit(final long index) {
+        long last = prevSetBit(capacity());
+        for (long i = Math.max(0L, index); i < last; i++) {
+            if (!get(i)) {
+                return i;
+            }
+        }
+        return -1L;
+    }
+
+    @Override
+    public long prevClearBit(final long index) {
+        if (index < 0L) {
+            return -1L;
+        }
+        for (long i = Math.min(index, prevSetBit(capacity())); i >= 0L; i--) {
+            if (!get(i)) {
+                return i;
+            }
+        }
+        return -1L;
+    }
+
+    @Override
+    public void forEachClearBit(final UnaryProcedure<Long> procedure) {
+        if (procedure == null) {
+            throw new NullPointerException("procedure must not be null");
+        }
+        // iterate over an immutable copy for consistency
+        immutableCopy().forEachClearBit(procedure);
+    }
+
+    @Override
+    public long nextSetBit(final long index) {
+        long from = Math.max(0L, index);
+        if (from >= capacity()) {
+            return -1L;
+        }
+        int i = (int) (from >>> 6);
+        int wlen = words.length();
+        long word = words.get(i) & (-1L << from);
+        while (true) {
+            if (word != 0L) {
+                return (((long) i) << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i >= wlen) {
+                return -1L;
+            }
+            word = words.get(i);
+        }
+    }
+
+    @Override
+    public long prevSetBit(final long index) {
+        if (index < 0L) {
+            return -1L;
+        }
+        int i;
+        long word;
+        if (index >= capacity()) {
+            i = words.length() - 1;
+            if (i < 0) {
+                return -1L;
+            }
+            word = words.get(i);
+        }
+        else {
+            i = (int) (index >>> 6);
+            word = words.get(i) & (-1L >>> (63 - ((int) index & 0x3f)));
+        }
+        while (true) {
+            if (word != 0L) {
+                return (((long) i) << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (--i < 0) {
+                return -1L;
+            }
+            word = words.get(i);
+        }
+    }
+
+    @Override
+    public void forEachSetBit(final UnaryProcedure<Long> procedure) {
+        if (procedure == null) {
+            throw new NullPointerException("procedure must not be null");
+        }
+        // iterate over an immutable copy for consistency
+        immutableCopy().forEachSetBit(procedure);
+    }
+
+    @Override
+    public boolean intersects(final AbstractBitSet other) {
+        long[] otherArr = other.bits();
+        for (int i = 0, wlen = Math.min(words.length(), other.wlen()); i < wlen; i++) {
+            if ((words.get(i) & otherArr[i]) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void set(final long index) {
+        checkIndex(index);
+        setQuick(index);
+    }
+
+    @Override
+    public void set(final long startIndex, final long endIndex) {
+        if (endIndex <= startIndex) {
+            return;
+        }
+        checkIndex(startIndex);
+        checkIndex(endIndex - 1L);
+        int startWord = (int) (startIndex >> 6);
+        int endWord = (int) ((endIndex - 1L) >> 6);
+        long startmask = -1L << startIndex;
+        long endmask = -1L >>> -endIndex;
+        if (startWord == endWord) {
+            or(startWord, startmask & endmask);
+            return;
+        }
+        or(startWord, startmask);
+        for (int i = startWord + 1; i < endWord; i++) {
+            words.set(i, -1L);
+        }
+        or(endWord, endmask);
+    }
+
+    @Override
+    public void setQuick(final long index) {
+        or((int) (index >> 6), 1L << index);
+    }
+
+    @Override
+    public void clear(final long index) {
+        checkIndex(index);
+        clearQuick(index);
+    }
+
+    @Override
+    public void clear(final long startIndex, final long endIndex) {
+        if (endIndex <= startIndex) {
+            return;
+        }
+        checkIndex(startIndex);
+        checkIndex(endIndex - 1L);
+        int startWord = (int) (startIndex >> 6);
+        int endWord = (int) ((endIndex - 1L) >> 6);
+        long startmask = -1L << startIndex;
+        long endmask = -1L >>> -endIndex;
+        if (startWord == endWord) {
+            andNot(startWord, startmask & endmask);
+            return;
+        }
+        andNot(startWord, startmask);
+        for (int i = startWord + 1; i < endWord; i++) {
+            words.set(i, 0L);
+        }
+        andNot(endWord, endmask);
+    }
+
+    @Override
+    public void clearQuick(final long index) {
+        andNot((int) (index >> 6), 1L << index);
+    }
+
+    @Override
+    public boolean getAndSet(final long index) {
+        checkIndex(index);
+        long bitmask = 1L << index;
+        return (or((int) (index >> 6), bitmask) & bitmask) != 0L;
+    }
+
+    @Override
+    public void flip(final long index) {
+        checkIndex(index);
+        flipQuick(index);
+    }
+
+    @Override
+    public void flip(final long startIndex, final long endIndex) {
+        if (endIndex <= startIndex) {
+            return;
+        }
+        checkIndex(startIndex);
+        checkIndex(endIndex - 1L);
+        int startWord = (int) (startIndex >> 6);
+        int endWord = (int) ((endIndex - 1L) >> 6);
+        long startmask = -1L << startIndex;
+        long endmask = -1L >>> -endIndex;
+        if (startWord == endWord) {
+            xor(startWord, startmask & endmask);
+            return;
+        }
+        xor(startWord, startmask);
+        for (int i = startWord + 1; i < endWord; i++) {
+            xor(i, -1L);
+        }
+        xor(endWord, endmask);
+    }
+
+    @Override
+    public void flipQuick(final long index) {
+        xor((int) (index >> 6), 1L << index);
+    }
+
+    @Override
+    public boolean flipAndGet(final long index) {
+        checkIndex(index);
+        long bitmask = 1L << index;
+        return (xor((int) (index >> 6), bitmask) & bitmask) == 0L;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException if <code>numBits</code> is greater than the number
+     *    of bits in this atomic bit set
+     */
+    @Override
+    public void ensureCapacity(final long numBits) {
+        if (numBits > this.numBits) {
+            throw new UnsupportedOperationException("atomic bit sets do not grow, number of bits " + this.numBits);
+        }
+    }
+
+    @Override
+    public void trimTrailingZeros() {
+        // empty, atomic bit sets are fixed size
+    }
+
+    /**
+     * Return a new immutable copy of this atomic bit set.
+     *
+     * @return a new immutable copy of this atomic bit set
+     */
+    public ImmutableBitSet immutableCopy() {
+        long[] bits = bits();
+        return new ImmutableBitSet(bits, numBits, bits.length); // bits is not cloned in ctr
+    }
+
+    /**
+     * Return a new mutable copy of this atomic bit set.
+     *
+     * @return a new mutable copy of this atomic bit set
+     */
+    public MutableBitSet mutableCopy() {
+        long[] bits = bits();
+        return new MutableBitSet(bits, numBits, bits.length); // bits is not cloned in ctr
+    }
+
+    /**
+     * Return a new unsafe copy of this atomic bit set.
+     *
+     * @return a new unsafe copy of this atomic bit set
+     */
+    public UnsafeBitSet unsafeCopy() {
+        long[] bits = bits();
+        return new UnsafeBitSet(bits, bits.length); // bits is not cloned in ctr
+    }
+
+    /**
+     * Return a new copy of the words in this atomic bit set, read one word at a time.
+     *
+     * @return a new copy of the words in this atomic bit set
+     */
+    @Override
+    protected long[] bits() {
+        long[] bits = new long[words.length()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = words.get(i);
+        }
+        return bits;
+    }
+
+    @Override
+    protected long numBits() {
+        return numBits;
+    }
+
+    @Override
+    protected int wlen() {
+        return words.length();
+    }
+
+    /**
+     * Atomically OR the specified mask into the specified word.
+     *
+     * @param i word index
+     * @param mask mask
+     * @return the previous value of the word
+     */
+    private long or(final int i, final long mask) {
+        long word;
+        do {
+            word = words.get(i);
+            if ((word & mask) == mask) {
+                return word;
+            }
+        }
+        while (!words.compareAndSet(i, word, word | mask));
+        return word;
+    }
+
+    /**
+     * Atomically clear the bits in the specified mask from the specified word.
+     *
+     * @param i word index
+     * @param mask mask
+     * @return the previous value of the word
+     */
+    private long andNot(final int i, final long mask) {
+        long word;
+        do {
+            word = words.get(i);
+            if ((word & mask) == 0L) {
+                return word;
+            }
+        }
+        while (!words.compareAndSet(i, word, word & ~mask));
+        return word;
+    }
+
+    /**
+     * Atomically XOR the specified mask into the specified word.
+     *
+     * @param i word index
+     * @param mask mask
+     * @return the previous value of the word
+     */
+    private long xor(final int i, final long mask) {
+        long word;
+        do {
+            word = words.get(i);
+        }
+        while (!words.compareAndSet(i, word, word ^ mask));
+        return word;
+    }
+
+    /**
+     * Check the specified index.
+     *
+     * @param index index to check
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative or greater than
+     *    or equal to the number of bits in this atomic bit set
+     */
+    private void checkIndex(final long index) {
+        if (index < 0L || index >= numBits) {
+            throw new IndexOutOfBoundsException("index must be at least zero and less than " + numBits + ", was " + index);
+        }
+    }
+}
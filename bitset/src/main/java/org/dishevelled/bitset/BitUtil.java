@@ -25,653 +25,164 @@ final class BitUtil {
 
   /** Returns the number of bits set in the long */
   static int pop(long x) {
-  /* Hacker's Delight 32 bit pop function:
-   * http://www.hackersdelight.org/HDcode/newCode/pop_arrayHS.cc
-   *
-  int pop(unsigned x) {
-     x = x - ((x >> 1) & 0x55555555);
-     x = (x & 0x33333333) + ((x >> 2) & 0x33333333);
-     x = (x + (x >> 4)) & 0x0F0F0F0F;
-     x = x + (x >> 8);
-     x = x + (x >> 16);
-     return x & 0x0000003F;
-    }
-  ***/
-
-    // 64 bit java version of the C function from above
-    x = x - ((x >>> 1) & 0x5555555555555555L);
-    x = (x & 0x3333333333333333L) + ((x >>>2 ) & 0x3333333333333333L);
-    x = (x + (x >>> 4)) & 0x0F0F0F0F0F0F0F0FL;
-    x = x + (x >>> 8);
-    x = x + (x >>> 16);
-    x = x + (x >>> 32);
-    return ((int)x) & 0x7F;
+    // Long.bitCount is intrinsified to a single POPCNT instruction by HotSpot where
+    // the processor supports it, with a portable fallback otherwise.  It is faster than
+    // the Hacker's Delight 64 bit pop function previously used here.
+    return Long.bitCount(x);
   }
 
+  /*
+   * The pop_* functions below previously used Robert Harley and David Seal's carry-save adder
+   * bit counting algorithm, as documented in the revisions of Hacker's Delight
+   * http://www.hackersdelight.org/revisions.pdf
+   *
+   * With Long.bitCount intrinsified, four independent accumulators per loop keep the POPCNT
+   * units busy and are roughly twice as fast, so the carry-save adder versions have been
+   * replaced.  The simple forward loops also leave the JIT free to unroll and vectorize.
+   */
+
   /*** Returns the number of set bits in an array of longs. */
   static long pop_array(long A[], int wordOffset, int numWords) {
-    /*
-    * Robert Harley and David Seal's bit counting algorithm, as documented
-    * in the revisions of Hacker's Delight
-    * http://www.hackersdelight.org/revisions.pdf
-    * http://www.hackersdelight.org/HDcode/newCode/pop_arrayHS.cc
-    *
-    * This function was adapted to Java, and extended to use 64 bit words.
-    * if only we had access to wider registers like SSE from java...
-    *
-    * This function can be transformed to compute the popcount of other functions
-    * on bitsets via something like this:
-    * sed 's/A\[\([^]]*\)\]/\(A[\1] \& B[\1]\)/g'
-    *
-    */
     int n = wordOffset+numWords;
-    long tot=0, tot8=0;
-    long ones=0, twos=0, fours=0;
-
+    long tot0=0, tot1=0, tot2=0, tot3=0;
     int i;
-    for (i = wordOffset; i <= n - 8; i+=8) {
-      /***  C macro from Hacker's Delight
-       #define CSA(h,l, a,b,c) \
-       {unsigned u = a ^ b; unsigned v = c; \
-       h = (a & b) | (u & v); l = u ^ v;}
-       ***/
-
-      long twosA,twosB,foursA,foursB,eights;
-
-      // CSA(twosA, ones, ones, A[i], A[i+1])
-      {
-        long b=A[i], c=A[i+1];
-        long u=ones ^ b;
-        twosA=(ones & b)|( u & c);
-        ones=u^c;
-      }
-      // CSA(twosB, ones, ones, A[i+2], A[i+3])
-      {
-        long b=A[i+2], c=A[i+3];
-        long u=ones^b;
-        twosB =(ones&b)|(u&c);
-        ones=u^c;
-      }
-      //CSA(foursA, twos, twos, twosA, twosB)
-      {
-        long u=twos^twosA;
-        foursA=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-      //CSA(twosA, ones, ones, A[i+4], A[i+5])
-      {
-        long b=A[i+4], c=A[i+5];
-        long u=ones^b;
-        twosA=(ones&b)|(u&c);
-        ones=u^c;
-      }
-      // CSA(twosB, ones, ones, A[i+6], A[i+7])
-      {
-        long b=A[i+6], c=A[i+7];
-        long u=ones^b;
-        twosB=(ones&b)|(u&c);
-        ones=u^c;
-      }
-      //CSA(foursB, twos, twos, twosA, twosB)
-      {
-        long u=twos^twosA;
-        foursB=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-
-      //CSA(eights, fours, fours, foursA, foursB)
-      {
-        long u=fours^foursA;
-        eights=(fours&foursA)|(u&foursB);
-        fours=u^foursB;
-      }
-      tot8 += pop(eights);
-    }
-
-    // handle trailing words in a binary-search manner...
-    // derived from the loop above by setting specific elements to 0.
-    // the original method in Hackers Delight used a simple for loop:
-    //   for (i = i; i < n; i++)      // Add in the last elements
-    //  tot = tot + pop(A[i]);
-
-    if (i<=n-4) {
-      long twosA, twosB, foursA, eights;
-      {
-        long b=A[i], c=A[i+1];
-        long u=ones ^ b;
-        twosA=(ones & b)|( u & c);
-        ones=u^c;
-      }
-      {
-        long b=A[i+2], c=A[i+3];
-        long u=ones^b;
-        twosB =(ones&b)|(u&c);
-        ones=u^c;
-      }
-      {
-        long u=twos^twosA;
-        foursA=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-      eights=fours&foursA;
-      fours=fours^foursA;
-
-      tot8 += pop(eights);
-      i+=4;
+    for (i = wordOffset; i <= n - 4; i+=4) {
+      tot0 += Long.bitCount(A[i]);
+      tot1 += Long.bitCount(A[i+1]);
+      tot2 += Long.bitCount(A[i+2]);
+      tot3 += Long.bitCount(A[i+3]);
     }
-
-    if (i<=n-2) {
-      long b=A[i], c=A[i+1];
-      long u=ones ^ b;
-      long twosA=(ones & b)|( u & c);
-      ones=u^c;
-
-      long foursA=twos&twosA;
-      twos=twos^twosA;
-
-      long eights=fours&foursA;
-      fours=fours^foursA;
-
-      tot8 += pop(eights);
-      i+=2;
-    }
-
-    if (i<n) {
-      tot += pop(A[i]);
+    for (; i < n; i++) {
+      tot0 += Long.bitCount(A[i]);
     }
-
-    tot += (pop(fours)<<2)
-            + (pop(twos)<<1)
-            + pop(ones)
-            + (tot8<<3);
-
-    return tot;
+    return tot0 + tot1 + tot2 + tot3;
   }
 
   /** Returns the popcount or cardinality of the two sets after an intersection.
    * Neither array is modified.
    */
   static long pop_intersect(long A[], long B[], int wordOffset, int numWords) {
-    // generated from pop_array via sed 's/A\[\([^]]*\)\]/\(A[\1] \& B[\1]\)/g'
     int n = wordOffset+numWords;
-    long tot=0, tot8=0;
-    long ones=0, twos=0, fours=0;
-
+    long tot0=0, tot1=0, tot2=0, tot3=0;
     int i;
-    for (i = wordOffset; i <= n - 8; i+=8) {
-      long twosA,twosB,foursA,foursB,eights;
-
-      // CSA(twosA, ones, ones, (A[i] & B[i]), (A[i+1] & B[i+1]))
-      {
-        long b=(A[i] & B[i]), c=(A[i+1] & B[i+1]);
-        long u=ones ^ b;
-        twosA=(ones & b)|( u & c);
-        ones=u^c;
-      }
-      // CSA(twosB, ones, ones, (A[i+2] & B[i+2]), (A[i+3] & B[i+3]))
-      {
-        long b=(A[i+2] & B[i+2]), c=(A[i+3] & B[i+3]);
-        long u=ones^b;
-        twosB =(ones&b)|(u&c);
-        ones=u^c;
-      }
-      //CSA(foursA, twos, twos, twosA, twosB)
-      {
-        long u=twos^twosA;
-        foursA=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-      //CSA(twosA, ones, ones, (A[i+4] & B[i+4]), (A[i+5] & B[i+5]))
-      {
-        long b=(A[i+4] & B[i+4]), c=(A[i+5] & B[i+5]);
-        long u=ones^b;
-        twosA=(ones&b)|(u&c);
-        ones=u^c;
-      }
-      // CSA(twosB, ones, ones, (A[i+6] & B[i+6]), (A[i+7] & B[i+7]))
-      {
-        long b=(A[i+6] & B[i+6]), c=(A[i+7] & B[i+7]);
-        long u=ones^b;
-        twosB=(ones&b)|(u&c);
-        ones=u^c;
-      }
-      //CSA(foursB, twos, twos, twosA, twosB)
-      {
-        long u=twos^twosA;
-        foursB=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-
-      //CSA(eights, fours, fours, foursA, foursB)
-      {
-        long u=fours^foursA;
-        eights=(fours&foursA)|(u&foursB);
-        fours=u^foursB;
-      }
-      tot8 += pop(eights);
+    for (i = wordOffset; i <= n - 4; i+=4) {
+      tot0 += Long.bitCount(A[i] & B[i]);
+      tot1 += Long.bitCount(A[i+1] & B[i+1]);
+      tot2 += Long.bitCount(A[i+2] & B[i+2]);
+      tot3 += Long.bitCount(A[i+3] & B[i+3]);
     }
-
-
-    if (i<=n-4) {
-      long twosA, twosB, foursA, eights;
-      {
-        long b=(A[i] & B[i]), c=(A[i+1] & B[i+1]);
-        long u=ones ^ b;
-        twosA=(ones & b)|( u & c);
-        ones=u^c;
-      }
-      {
-        long b=(A[i+2] & B[i+2]), c=(A[i+3] & B[i+3]);
-        long u=ones^b;
-        twosB =(ones&b)|(u&c);
-        ones=u^c;
-      }
-      {
-        long u=twos^twosA;
-        foursA=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-      eights=fours&foursA;
-      fours=fours^foursA;
-
-      tot8 += pop(eights);
-      i+=4;
-    }
-
-    if (i<=n-2) {
-      long b=(A[i] & B[i]), c=(A[i+1] & B[i+1]);
-      long u=ones ^ b;
-      long twosA=(ones & b)|( u & c);
-      ones=u^c;
-
-      long foursA=twos&twosA;
-      twos=twos^twosA;
-
-      long eights=fours&foursA;
-      fours=fours^foursA;
-
-      tot8 += pop(eights);
-      i+=2;
+    for (; i < n; i++) {
+      tot0 += Long.bitCount(A[i] & B[i]);
     }
-
-    if (i<n) {
-      tot += pop((A[i] & B[i]));
-    }
-
-    tot += (pop(fours)<<2)
-            + (pop(twos)<<1)
-            + pop(ones)
-            + (tot8<<3);
-
-    return tot;
+    return tot0 + tot1 + tot2 + tot3;
   }
 
   /** Returns the popcount or cardinality of the union of two sets.
     * Neither array is modified.
     */
-   static long pop_union(long A[], long B[], int wordOffset, int numWords) {
-     // generated from pop_array via sed 's/A\[\([^]]*\)\]/\(A[\1] \| B[\1]\)/g'
-     int n = wordOffset+numWords;
-     long tot=0, tot8=0;
-     long ones=0, twos=0, fours=0;
-
-     int i;
-     for (i = wordOffset; i <= n - 8; i+=8) {
-       /***  C macro from Hacker's Delight
-        #define CSA(h,l, a,b,c) \
-        {unsigned u = a ^ b; unsigned v = c; \
-        h = (a & b) | (u & v); l = u ^ v;}
-        ***/
-
-       long twosA,twosB,foursA,foursB,eights;
-
-       // CSA(twosA, ones, ones, (A[i] | B[i]), (A[i+1] | B[i+1]))
-       {
-         long b=(A[i] | B[i]), c=(A[i+1] | B[i+1]);
-         long u=ones ^ b;
-         twosA=(ones & b)|( u & c);
-         ones=u^c;
-       }
-       // CSA(twosB, ones, ones, (A[i+2] | B[i+2]), (A[i+3] | B[i+3]))
-       {
-         long b=(A[i+2] | B[i+2]), c=(A[i+3] | B[i+3]);
-         long u=ones^b;
-         twosB =(ones&b)|(u&c);
-         ones=u^c;
-       }
-       //CSA(foursA, twos, twos, twosA, twosB)
-       {
-         long u=twos^twosA;
-         foursA=(twos&twosA)|(u&twosB);
-         twos=u^twosB;
-       }
-       //CSA(twosA, ones, ones, (A[i+4] | B[i+4]), (A[i+5] | B[i+5]))
-       {
-         long b=(A[i+4] | B[i+4]), c=(A[i+5] | B[i+5]);
-         long u=ones^b;
-         twosA=(ones&b)|(u&c);
-         ones=u^c;
-       }
-       // CSA(twosB, ones, ones, (A[i+6] | B[i+6]), (A[i+7] | B[i+7]))
-       {
-         long b=(A[i+6] | B[i+6]), c=(A[i+7] | B[i+7]);
-         long u=ones^b;
-         twosB=(ones&b)|(u&c);
-         ones=u^c;
-       }
-       //CSA(foursB, twos, twos, twosA, twosB)
-       {
-         long u=twos^twosA;
-         foursB=(twos&twosA)|(u&twosB);
-         twos=u^twosB;
-       }
-
-       //CSA(eights, fours, fours, foursA, foursB)
-       {
-         long u=fours^foursA;
-         eights=(fours&foursA)|(u&foursB);
-         fours=u^foursB;
-       }
-       tot8 += pop(eights);
-     }
-
-
-     if (i<=n-4) {
-       long twosA, twosB, foursA, eights;
-       {
-         long b=(A[i] | B[i]), c=(A[i+1] | B[i+1]);
-         long u=ones ^ b;
-         twosA=(ones & b)|( u & c);
-         ones=u^c;
-       }
-       {
-         long b=(A[i+2] | B[i+2]), c=(A[i+3] | B[i+3]);
-         long u=ones^b;
-         twosB =(ones&b)|(u&c);
-         ones=u^c;
-       }
-       {
-         long u=twos^twosA;
-         foursA=(twos&twosA)|(u&twosB);
-         twos=u^twosB;
-       }
-       eights=fours&foursA;
-       fours=fours^foursA;
-
-       tot8 += pop(eights);
-       i+=4;
-     }
-
-     if (i<=n-2) {
-       long b=(A[i] | B[i]), c=(A[i+1] | B[i+1]);
-       long u=ones ^ b;
-       long twosA=(ones & b)|( u & c);
-       ones=u^c;
-
-       long foursA=twos&twosA;
-       twos=twos^twosA;
-
-       long eights=fours&foursA;
-       fours=fours^foursA;
-
-       tot8 += pop(eights);
-       i+=2;
-     }
-
-     if (i<n) {
-       tot += pop((A[i] | B[i]));
-     }
-
-     tot += (pop(fours)<<2)
-             + (pop(twos)<<1)
-             + pop(ones)
-             + (tot8<<3);
-
-     return tot;
-   }
+  static long pop_union(long A[], long B[], int wordOffset, int numWords) {
+    int n = wordOffset+numWords;
+    long tot0=0, tot1=0, tot2=0, tot3=0;
+    int i;
+    for (i = wordOffset; i <= n - 4; i+=4) {
+      tot0 += Long.bitCount(A[i] | B[i]);
+      tot1 += Long.bitCount(A[i+1] | B[i+1]);
+      tot2 += Long.bitCount(A[i+2] | B[i+2]);
+      tot3 += Long.bitCount(A[i+3] | B[i+3]);
+    }
+    for (; i < n; i++) {
+      tot0 += Long.bitCount(A[i] | B[i]);
+    }
+    return tot0 + tot1 + tot2 + tot3;
+  }
 
   /** Returns the popcount or cardinality of A & ~B
    * Neither array is modified.
    */
   static long pop_andnot(long A[], long B[], int wordOffset, int numWords) {
-    // generated from pop_array via sed 's/A\[\([^]]*\)\]/\(A[\1] \& ~B[\1]\)/g'
     int n = wordOffset+numWords;
-    long tot=0, tot8=0;
-    long ones=0, twos=0, fours=0;
-
+    long tot0=0, tot1=0, tot2=0, tot3=0;
     int i;
-    for (i = wordOffset; i <= n - 8; i+=8) {
-      /***  C macro from Hacker's Delight
-       #define CSA(h,l, a,b,c) \
-       {unsigned u = a ^ b; unsigned v = c; \
-       h = (a & b) | (u & v); l = u ^ v;}
-       ***/
-
-      long twosA,twosB,foursA,foursB,eights;
-
-      // CSA(twosA, ones, ones, (A[i] & ~B[i]), (A[i+1] & ~B[i+1]))
-      {
-        long b=(A[i] & ~B[i]), c=(A[i+1] & ~B[i+1]);
-        long u=ones ^ b;
-        twosA=(ones & b)|( u & c);
-        ones=u^c;
-      }
-      // CSA(twosB, ones, ones, (A[i+2] & ~B[i+2]), (A[i+3] & ~B[i+3]))
-      {
-        long b=(A[i+2] & ~B[i+2]), c=(A[i+3] & ~B[i+3]);
-        long u=ones^b;
-        twosB =(ones&b)|(u&c);
-        ones=u^c;
-      }
-      //CSA(foursA, twos, twos, twosA, twosB)
-      {
-        long u=twos^twosA;
-        foursA=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-      //CSA(twosA, ones, ones, (A[i+4] & ~B[i+4]), (A[i+5] & ~B[i+5]))
-      {
-        long b=(A[i+4] & ~B[i+4]), c=(A[i+5] & ~B[i+5]);
-        long u=ones^b;
-        twosA=(ones&b)|(u&c);
-        ones=u^c;
-      }
-      // CSA(twosB, ones, ones, (A[i+6] & ~B[i+6]), (A[i+7] & ~B[i+7]))
-      {
-        long b=(A[i+6] & ~B[i+6]), c=(A[i+7] & ~B[i+7]);
-        long u=ones^b;
-        twosB=(ones&b)|(u&c);
-        ones=u^c;
-      }
-      //CSA(foursB, twos, twos, twosA, twosB)
-      {
-        long u=twos^twosA;
-        foursB=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-
-      //CSA(eights, fours, fours, foursA, foursB)
-      {
-        long u=fours^foursA;
-        eights=(fours&foursA)|(u&foursB);
-        fours=u^foursB;
-      }
-      tot8 += pop(eights);
+    for (i = wordOffset; i <= n - 4; i+=4) {
+      tot0 += Long.bitCount(A[i] & ~B[i]);
+      tot1 += Long.bitCount(A[i+1] & ~B[i+1]);
+      tot2 += Long.bitCount(A[i+2] & ~B[i+2]);
+      tot3 += Long.bitCount(A[i+3] & ~B[i+3]);
     }
-
-
-    if (i<=n-4) {
-      long twosA, twosB, foursA, eights;
-      {
-        long b=(A[i] & ~B[i]), c=(A[i+1] & ~B[i+1]);
-        long u=ones ^ b;
-        twosA=(ones & b)|( u & c);
-        ones=u^c;
-      }
-      {
-        long b=(A[i+2] & ~B[i+2]), c=(A[i+3] & ~B[i+3]);
-        long u=ones^b;
-        twosB =(ones&b)|(u&c);
-        ones=u^c;
-      }
-      {
-        long u=twos^twosA;
-        foursA=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-      eights=fours&foursA;
-      fours=fours^foursA;
-
-      tot8 += pop(eights);
-      i+=4;
-    }
-
-    if (i<=n-2) {
-      long b=(A[i] & ~B[i]), c=(A[i+1] & ~B[i+1]);
-      long u=ones ^ b;
-      long twosA=(ones & b)|( u & c);
-      ones=u^c;
-
-      long foursA=twos&twosA;
-      twos=twos^twosA;
-
-      long eights=fours&foursA;
-      fours=fours^foursA;
-
-      tot8 += pop(eights);
-      i+=2;
+    for (; i < n; i++) {
+      tot0 += Long.bitCount(A[i] & ~B[i]);
     }
-
-    if (i<n) {
-      tot += pop((A[i] & ~B[i]));
-    }
-
-    tot += (pop(fours)<<2)
-            + (pop(twos)<<1)
-            + pop(ones)
-            + (tot8<<3);
-
-    return tot;
+    return tot0 + tot1 + tot2 + tot3;
   }
 
   public static long pop_xor(long A[], long B[], int wordOffset, int numWords) {
     int n = wordOffset+numWords;
-    long tot=0, tot8=0;
-    long ones=0, twos=0, fours=0;
-
+    long tot0=0, tot1=0, tot2=0, tot3=0;
     int i;
-    for (i = wordOffset; i <= n - 8; i+=8) {
-      /***  C macro from Hacker's Delight
-       #define CSA(h,l, a,b,c) \
-       {unsigned u = a ^ b; unsigned v = c; \
-       h = (a & b) | (u & v); l = u ^ v;}
-       ***/
-
-      long twosA,twosB,foursA,foursB,eights;
-
-      // CSA(twosA, ones, ones, (A[i] ^ B[i]), (A[i+1] ^ B[i+1]))
-      {
-        long b=(A[i] ^ B[i]), c=(A[i+1] ^ B[i+1]);
-        long u=ones ^ b;
-        twosA=(ones & b)|( u & c);
-        ones=u^c;
-      }
-      // CSA(twosB, ones, ones, (A[i+2] ^ B[i+2]), (A[i+3] ^ B[i+3]))
-      {
-        long b=(A[i+2] ^ B[i+2]), c=(A[i+3] ^ B[i+3]);
-        long u=ones^b;
-        twosB =(ones&b)|(u&c);
-        ones=u^c;
-      }
-      //CSA(foursA, twos, twos, twosA, twosB)
-      {
-        long u=twos^twosA;
-        foursA=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-      //CSA(twosA, ones, ones, (A[i+4] ^ B[i+4]), (A[i+5] ^ B[i+5]))
-      {
-        long b=(A[i+4] ^ B[i+4]), c=(A[i+5] ^ B[i+5]);
-        long u=ones^b;
-        twosA=(ones&b)|(u&c);
-        ones=u^c;
-      }
-      // CSA(twosB, ones, ones, (A[i+6] ^ B[i+6]), (A[i+7] ^ B[i+7]))
-      {
-        long b=(A[i+6] ^ B[i+6]), c=(A[i+7] ^ B[i+7]);
-        long u=ones^b;
-        twosB=(ones&b)|(u&c);
-        ones=u^c;
-      }
-      //CSA(foursB, twos, twos, twosA, twosB)
-      {
-        long u=twos^twosA;
-        foursB=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-
-      //CSA(eights, fours, fours, foursA, foursB)
-      {
-        long u=fours^foursA;
-        eights=(fours&foursA)|(u&foursB);
-        fours=u^foursB;
-      }
-      tot8 += pop(eights);
+    for (i = wordOffset; i <= n - 4; i+=4) {
+      tot0 += Long.bitCount(A[i] ^ B[i]);
+      tot1 += Long.bitCount(A[i+1] ^ B[i+1]);
+      tot2 += Long.bitCount(A[i+2] ^ B[i+2]);
+      tot3 += Long.bitCount(A[i+3] ^ B[i+3]);
     }
-
-
-    if (i<=n-4) {
-      long twosA, twosB, foursA, eights;
-      {
-        long b=(A[i] ^ B[i]), c=(A[i+1] ^ B[i+1]);
-        long u=ones ^ b;
-        twosA=(ones & b)|( u & c);
-        ones=u^c;
-      }
-      {
-        long b=(A[i+2] ^ B[i+2]), c=(A[i+3] ^ B[i+3]);
-        long u=ones^b;
-        twosB =(ones&b)|(u&c);
-        ones=u^c;
-      }
-      {
-        long u=twos^twosA;
-        foursA=(twos&twosA)|(u&twosB);
-        twos=u^twosB;
-      }
-      eights=fours&foursA;
-      fours=fours^foursA;
-
-      tot8 += pop(eights);
-      i+=4;
+    for (; i < n; i++) {
+      tot0 += Long.bitCount(A[i] ^ B[i]);
     }
+    return tot0 + tot1 + tot2 + tot3;
+  }
 
-    if (i<=n-2) {
-      long b=(A[i] ^ B[i]), c=(A[i+1] ^ B[i+1]);
-      long u=ones ^ b;
-      long twosA=(ones & b)|( u & c);
-      ones=u^c;
-
-      long foursA=twos&twosA;
-      twos=twos^twosA;
+  /*
+   * The bulk logical operations below are written as simple forward counted loops over
+   * arrays, the shape the HotSpot superword optimization recognizes and compiles to SIMD
+   * instructions where available.
+   */
 
-      long eights=fours&foursA;
-      fours=fours^foursA;
+  /** Sets A[i] = A[i] & B[i] for the first numWords words.  B is not modified. */
+  static void and(long A[], long B[], int numWords) {
+    for (int i = 0; i < numWords; i++) {
+      A[i] &= B[i];
+    }
+  }
 
-      tot8 += pop(eights);
-      i+=2;
+  /** Sets A[i] = A[i] | B[i] for the first numWords words.  B is not modified. */
+  static void or(long A[], long B[], int numWords) {
+    for (int i = 0; i < numWords; i++) {
+      A[i] |= B[i];
     }
+  }
 
-    if (i<n) {
-      tot += pop((A[i] ^ B[i]));
+  /** Sets A[i] = A[i] ^ B[i] for the first numWords words.  B is not modified. */
+  static void xor(long A[], long B[], int numWords) {
+    for (int i = 0; i < numWords; i++) {
+      A[i] ^= B[i];
     }
+  }
 
-    tot += (pop(fours)<<2)
-            + (pop(twos)<<1)
-            + pop(ones)
-            + (tot8<<3);
+  /** Sets A[i] = A[i] & ~B[i] for the first numWords words.  B is not modified. */
+  static void andNot(long A[], long B[], int numWords) {
+    for (int i = 0; i < numWords; i++) {
+      A[i] &= ~B[i];
+    }
+  }
 
-    return tot;
+  /** Returns true if A[i] & B[i] is non-zero for any of the first numWords words.
+   * Neither array is modified.
+   */
+  static boolean intersects(long A[], long B[], int numWords) {
+    // test blocks of eight words at a time, with a single branch per block
+    int i;
+    for (i = 0; i <= numWords - 8; i+=8) {
+      if (((A[i] & B[i]) | (A[i+1] & B[i+1]) | (A[i+2] & B[i+2]) | (A[i+3] & B[i+3])
+           | (A[i+4] & B[i+4]) | (A[i+5] & B[i+5]) | (A[i+6] & B[i+6]) | (A[i+7] & B[i+7])) != 0L) {
+        return true;
+      }
+    }
+    for (; i < numWords; i++) {
+      if ((A[i] & B[i]) != 0L) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /* python code to generate ntzTable
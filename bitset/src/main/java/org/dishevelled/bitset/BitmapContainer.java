@@ -0,0 +1,226 @@
+/*
+
+    dsh-bitset  High performance bit set implementations.
+    Copyright (c) 2011-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bitset;
+
+import org.dishevelled.functor.UnaryProcedure;
+
+/**
+ * Container that stores values as a <code>65536</code> bit bitmap.
+ */
+final class BitmapContainer extends Container {
+    /** Bitmap words. */
+    final long[] words;
+
+    /** Number of values. */
+    int cardinality;
+
+
+    /**
+     * Create a new empty bitmap container.
+     */
+    BitmapContainer() {
+        words = new long[WORDS];
+        cardinality = 0;
+    }
+
+    /**
+     * Create a new bitmap container with a copy of the specified words.
+     *
+     * @param bits words to copy from
+     * @param offset offset into <code>bits</code>
+     * @param length number of words to copy, at most <code>1024</code>
+     */
+    BitmapContainer(final long[] bits, final int offset, final int length) {
+        words = new long[WORDS];
+        System.arraycopy(bits, offset, words, 0, length);
+        cardinality = (int) BitUtil.pop_array(words, 0, WORDS);
+    }
+
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    boolean contains(final int x) {
+        return (words[x >>> 6] & (1L << x)) != 0L;
+    }
+
+    @Override
+    Container add(final int x) {
+        long before = words[x >>> 6];
+        long after = before | (1L << x);
+        if (before != after) {
+            words[x >>> 6] = after;
+            cardinality++;
+        }
+        return this;
+    }
+
+    @Override
+    Container remove(final int x) {
+        long before = words[x >>> 6];
+        long after = before & ~(1L << x);
+        if (before != after) {
+            words[x >>> 6] = after;
+            cardinality--;
+            if (cardinality <= MAX_ARRAY_SIZE) {
+                return toArray();
+            }
+        }
+        return this;
+    }
+
+    @Override
+    int next(final int x) {
+        int i = x >>> 6;
+        long word = words[i] & (-1L << x);
+        while (true) {
+            if (word != 0L) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == WORDS) {
+                return -1;
+            }
+            word = words[i];
+        }
+    }
+
+    @Override
+    int prev(final int x) {
+        int i = x >>> 6;
+        long word = words[i] & (-1L >>> (63 - (x & 0x3f)));
+        while (true) {
+            if (word != 0L) {
+                return (i << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (--i < 0) {
+                return -1;
+            }
+            word = words[i];
+        }
+    }
+
+    @Override
+    int nextAbsent(final int x) {
+        int i = x >>> 6;
+        long word = ~words[i] & (-1L << x);
+        while (true) {
+            if (word != 0L) {
+                return (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == WORDS) {
+                return -1;
+            }
+            word = ~words[i];
+        }
+    }
+
+    @Override
+    int prevAbsent(final int x) {
+        int i = x >>> 6;
+        long word = ~words[i] & (-1L >>> (63 - (x & 0x3f)));
+        while (true) {
+            if (word != 0L) {
+                return (i << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (--i < 0) {
+                return -1;
+            }
+            word = ~words[i];
+        }
+    }
+
+    @Override
+    void forEach(final long base, final UnaryProcedure<Long> procedure) {
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0L) {
+                procedure.run(base + (i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1L;
+            }
+        }
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+        return new BitmapContainer(words, 0, WORDS);
+    }
+
+    @Override
+    Container copy() {
+        return toBitmap();
+    }
+
+    @Override
+    int sizeInBytes() {
+        return WORDS * 8;
+    }
+
+    @Override
+    void orInto(final long[] other) {
+        BitUtil.or(other, words, WORDS);
+    }
+
+    @Override
+    void xorInto(final long[] other) {
+        BitUtil.xor(other, words, WORDS);
+    }
+
+    @Override
+    void clearFrom(final long[] other) {
+        BitUtil.andNot(other, words, WORDS);
+    }
+
+    /**
+     * Recalculate the cardinality of this bitmap container after its words have been modified
+     * directly, and return the container to use in its place.
+     *
+     * @return this container, or an equivalent array container if its cardinality is
+     *    <code>4096</code> or less
+     */
+    Container repair() {
+        cardinality = (int) BitUtil.pop_array(words, 0, WORDS);
+        return (cardinality <= MAX_ARRAY_SIZE) ? toArray() : this;
+    }
+
+    /**
+     * Return a new array container with the values in this container.
+     *
+     * @return a new array container with the values in this container
+     */
+    ArrayContainer toArray() {
+        char[] values = new char[Math.max(4, cardinality)];
+        int n = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0L) {
+                values[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1L;
+            }
+        }
+        return new ArrayContainer(values, n);
+    }
+}
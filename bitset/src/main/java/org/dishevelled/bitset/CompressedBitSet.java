@@ -0,0 +1,933 @@
+/*
+
+    dsh-bitset  High performance bit set implementations.
+    Copyright (c) 2011-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bitset;
+
+import java.io.Serializable;
+
+import org.dishevelled.functor.UnaryProcedure;
+
+/**
+ * Compressed bit set.
+ *
+ * <p>Indices are partitioned into chunks of <code>65536</code> bits by their high bits, and the low 16 bits
+ * of the indices in each chunk with at least one set bit are stored in a container.  Sparse chunks are stored
+ * as sorted arrays, dense chunks as bitmaps, and, after {@link #runOptimize()}, chunks made up of long runs of
+ * set bits as run-length encoded runs.  Chunks without set bits are not stored at all, so a compressed bit set
+ * with a few set bits at very large indices uses very little memory.</p>
+ *
+ * <p>Logical operations and their cardinalities with other compressed bit sets are performed chunk by chunk
+ * over the chunks present in either bit set.  Other bit sets may be combined with compressed bit sets in
+ * either direction; dense words are materialized on demand for {@link MutableBitSet} and
+ * {@link ImmutableBitSet} operations and cached until the next modification.</p>
+ *
+ * @since 3.1
+ */
+public class CompressedBitSet extends AbstractBitSet implements Serializable {
+    /** Sorted chunk keys, the high bits of the indices in each chunk. */
+    private long[] keys;
+
+    /** Containers, one per chunk key, never empty. */
+    private Container[] containers;
+
+    /** Number of chunks. */
+    private int size;
+
+    /** Cached dense words, if any. */
+    private transient long[] words;
+
+    /** Logical AND operation. */
+    private static final int AND = 0;
+
+    /** Logical OR operation. */
+    private static final int OR = 1;
+
+    /** Logical XOR operation. */
+    private static final int XOR = 2;
+
+    /** Logical NOT followed by AND operation. */
+    private static final int AND_NOT = 3;
+
+
+    /**
+     * Create a new empty compressed bit set.
+     */
+    public CompressedBitSet() {
+        keys = new long[4];
+        containers = new Container[4];
+        size = 0;
+    }
+
+    /**
+     * Create a new compressed bit set with the bits set in the specified bit set.
+     *
+     * @param other bit set to copy, must not be null
+     */
+    public CompressedBitSet(final AbstractBitSet other) {
+        this();
+        if (other instanceof CompressedBitSet) {
+            CompressedBitSet c = (CompressedBitSet) other;
+            keys = c.keys.clone();
+            containers = new Container[keys.length];
+            for (int i = 0; i < c.size; i++) {
+                containers[i] = c.containers[i].copy();
+            }
+            size = c.size;
+        }
+        else {
+            long[] bits = other.bits();
+            int wlen = other.wlen();
+            for (int offset = 0; offset < wlen; offset += Container.WORDS) {
+                int length = Math.min(Container.WORDS, wlen - offset);
+                if (BitUtil.pop_array(bits, offset, length) > 0L) {
+                    append(offset >>> 10, new BitmapContainer(bits, offset, length).repair());
+                }
+            }
+        }
+    }
+
+
+    @Override
+    public long capacity() {
+        return (size == 0) ? 0L : (keys[size - 1] + 1L) << 16;
+    }
+
+    @Override
+    public long cardinality() {
+        long cardinality = 0L;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean get(final long index) {
+        if (index < 0L) {
+            return false;
+        }
+        int i = find(index >>> 16);
+        return i >= 0 && containers[i].contains(low(index));
+    }
+
+    @Override
+    public boolean getQuick(final long index) {
+        return get(index);
+    }
+
+    @Override
+    public long nextClearBit(final long index) {
+        long last = prevSetBit(capacity());
+        long from = Math.max(0L, index);
+        if (from >= last) {
+            return -1L;
+        }
+        long clear = nextAbsent(from);
+        return (clear < last) ? clear : -1L;
+    }
+
+    @Override
+    public long prevClearBit(final long index) {
+        long last = prevSetBit(capacity());
+        if (last < 0L || index < 0L) {
+            return -1L;
+        }
+        return prevAbsent(Math.min(index, last));
+    }
+
+    @Override
+    public void forEachClearBit(final UnaryProcedure<Long> procedure) {
+        if (procedure == null) {
+            throw new NullPointerException("procedure must not be null");
+        }
+        long last = prevSetBit(capacity());
+        for (long i = (last > 0L) ? nextAbsent(0L) : last; i >= 0L && i < last; i = nextAbsent(i + 1L)) {
+            procedure.run(i);
+        }
+    }
+
+    @Override
+    public long nextSetBit(final long index) {
+        long from = Math.max(0L, index);
+        long key = from >>> 16;
+        int i = find(key);
+        if (i >= 0) {
+            int next = containers[i].next(low(from));
+            if (next >= 0) {
+                return (key << 16) + next;
+            }
+            i++;
+        }
+        else {
+            i = -i - 1;
+        }
+        return (i < size) ? (keys[i] << 16) + containers[i].next(0) : -1L;
+    }
+
+    @Override
+    public long prevSetBit(final long index) {
+        if (index < 0L) {
+            return -1L;
+        }
+        long key = index >>> 16;
+        int i = find(key);
+        if (i >= 0) {
+            int prev = containers[i].prev(low(index));
+            if (prev >= 0) {
+                return (key << 16) + prev;
+            }
+            i--;
+        }
+        else {
+            i = -i - 2;
+        }
+        return (i >= 0) ? (keys[i] << 16) + containers[i].prev(Container.CHUNK_SIZE - 1) : -1L;
+    }
+
+    @Override
+    public void forEachSetBit(final UnaryProcedure<Long> procedure) {
+        if (procedure == null) {
+            throw new NullPointerException("procedure must not be null");
+        }
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, procedure);
+        }
+    }
+
+    @Override
+    public boolean intersects(final AbstractBitSet other) {
+        CompressedBitSet c = valueOf(other);
+        int i = 0;
+        int j = 0;
+        while (i < size && j < c.size) {
+            if (keys[i] < c.keys[j]) {
+                i++;
+            }
+            else if (keys[i] > c.keys[j]) {
+                j++;
+            }
+            else {
+                if (Container.intersects(containers[i], c.containers[j])) {
+                    return true;
+                }
+                i++;
+                j++;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void set(final long index) {
+        checkIndex(index);
+        long key = index >>> 16;
+        int i = find(key);
+        if (i >= 0) {
+            containers[i] = containers[i].add(low(index));
+        }
+        else {
+            insert(-i - 1, key, new ArrayContainer().add(low(index)));
+        }
+        words = null;
+    }
+
+    @Override
+    public void set(final long startIndex, final long endIndex) {
+        if (endIndex <= startIndex) {
+            return;
+        }
+        checkIndex(startIndex);
+        long startKey = startIndex >>> 16;
+        long endKey = (endIndex - 1L) >>> 16;
+        for (long key = startKey; key <= endKey; key++) {
+            int start = (key == startKey) ? low(startIndex) : 0;
+            int end = (key == endKey) ? low(endIndex - 1L) + 1 : Container.CHUNK_SIZE;
+            int i = find(key);
+            if (i >= 0) {
+                containers[i] = containers[i].addRange(start, end);
+            }
+            else {
+                insert(-i - 1, key, new ArrayContainer().addRange(start, end));
+            }
+        }
+        words = null;
+    }
+
+    @Override
+    public void setQuick(final long index) {
+        set(index);
+    }
+
+    @Override
+    public void clear(final long index) {
+        checkIndex(index);
+        int i = find(index >>> 16);
+        if (i >= 0) {
+            replace(i, containers[i].remove(low(index)));
+            words = null;
+        }
+    }
+
+    @Override
+    public void clear(final long startIndex, final long endIndex) {
+        if (endIndex <= startIndex) {
+            return;
+        }
+        checkIndex(startIndex);
+        long startKey = startIndex >>> 16;
+        long endKey = (endIndex - 1L) >>> 16;
+        int i = find(startKey);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        while (i < size && keys[i] <= endKey) {
+            long key = keys[i];
+            int start = (key == startKey) ? low(startIndex) : 0;
+            int end = (key == endKey) ? low(endIndex - 1L) + 1 : Container.CHUNK_SIZE;
+            if (start == 0 && end == Container.CHUNK_SIZE) {
+                remove(i);
+            }
+            else if (replace(i, containers[i].removeRange(start, end))) {
+                i++;
+            }
+        }
+        words = null;
+    }
+
+    @Override
+    public void clearQuick(final long index) {
+        clear(index);
+    }
+
+    @Override
+    public boolean getAndSet(final long index) {
+        boolean value = get(index);
+        set(index);
+        return value;
+    }
+
+    @Override
+    public void flip(final long index) {
+        if (get(index)) {
+            clear(index);
+        }
+        else {
+            set(index);
+        }
+    }
+
+    @Override
+    public void flip(final long startIndex, final long endIndex) {
+        if (endIndex <= startIndex) {
+            return;
+        }
+        checkIndex(startIndex);
+        long startKey = startIndex >>> 16;
+        long endKey = (endIndex - 1L) >>> 16;
+        for (long key = startKey; key <= endKey; key++) {
+            int start = (key == startKey) ? low(startIndex) : 0;
+            int end = (key == endKey) ? low(endIndex - 1L) + 1 : Container.CHUNK_SIZE;
+            int i = find(key);
+            if (i >= 0) {
+                replace(i, containers[i].flipRange(start, end));
+            }
+            else {
+                insert(-i - 1, key, new ArrayContainer().addRange(start, end));
+            }
+        }
+        words = null;
+    }
+
+    @Override
+    public void flipQuick(final long index) {
+        flip(index);
+    }
+
+    @Override
+    public boolean flipAndGet(final long index) {
+        flip(index);
+        return get(index);
+    }
+
+    @Override
+    public void ensureCapacity(final long numBits) {
+        // empty, compressed bit sets grow as needed
+    }
+
+    @Override
+    public void trimTrailingZeros() {
+        // empty, empty chunks are never stored
+    }
+
+    /**
+     * Perform a logical XOR of the specified bit set and this bit set.
+     *
+     * <p>This compressed bit set is modified in place and a reference to this is returned for method chaining.</p>
+     *
+     * @param other bit set to XOR with this bit set, must not be null
+     * @return this compressed bit set, for method chaining
+     */
+    public CompressedBitSet xor(final AbstractBitSet other) {
+        return merge(valueOf(other), XOR);
+    }
+
+    /**
+     * Perform a logical AND of the specified bit set and this bit set.
+     *
+     * <p>This compressed bit set is modified in place and a reference to this is returned for method chaining.</p>
+     *
+     * @param other bit set to AND with this bit set, must not be null
+     * @return this compressed bit set, for method chaining
+     */
+    public CompressedBitSet and(final AbstractBitSet other) {
+        return merge(valueOf(other), AND);
+    }
+
+    /**
+     * Perform a logical OR of the specified bit set and this bit set.
+     *
+     * <p>This compressed bit set is modified in place and a reference to this is returned for method chaining.</p>
+     *
+     * @param other bit set to OR with this bit set, must not be null
+     * @return this compressed bit set, for method chaining
+     */
+    public CompressedBitSet or(final AbstractBitSet other) {
+        return merge(valueOf(other), OR);
+    }
+
+    /**
+     * Perform a logical NOT followed by AND of the specified bit set and this bit set.
+     *
+     * <p>This compressed bit set is modified in place and a reference to this is returned for method chaining.</p>
+     *
+     * @param other bit set to NOT followed by AND with this bit set, must not be null
+     * @return this compressed bit set, for method chaining
+     */
+    public CompressedBitSet andNot(final AbstractBitSet other) {
+        return merge(valueOf(other), AND_NOT);
+    }
+
+    /**
+     * Convert chunks in this compressed bit set made up of long runs of set bits to
+     * run-length encoded runs, where doing so would use less memory.
+     *
+     * <p>This compressed bit set is modified in place and a reference to this is returned for method chaining.</p>
+     *
+     * @return this compressed bit set, for method chaining
+     */
+    public CompressedBitSet runOptimize() {
+        for (int i = 0; i < size; i++) {
+            containers[i] = containers[i].runOptimize();
+        }
+        return this;
+    }
+
+    /**
+     * Return the approximate size in bytes of the chunks in this compressed bit set.
+     *
+     * @return the approximate size in bytes of the chunks in this compressed bit set
+     */
+    public long sizeInBytes() {
+        long sizeInBytes = 12L * size;
+        for (int i = 0; i < size; i++) {
+            sizeInBytes += containers[i].sizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    /**
+     * Return a new immutable copy of this compressed bit set.
+     *
+     * @return a new immutable copy of this compressed bit set
+     * @throws UnsupportedOperationException if this compressed bit set is too large to copy into a <code>long[]</code>
+     */
+    public ImmutableBitSet immutableCopy() {
+        return new ImmutableBitSet(bits(), wlen()); // bits is cloned in ctr
+    }
+
+    /**
+     * Return a new mutable copy of this compressed bit set.
+     *
+     * @return a new mutable copy of this compressed bit set
+     * @throws UnsupportedOperationException if this compressed bit set is too large to copy into a <code>long[]</code>
+     */
+    public MutableBitSet mutableCopy() {
+        return new MutableBitSet(bits(), wlen()); // bits is cloned in ctr
+    }
+
+    /**
+     * Return a new unsafe copy of this compressed bit set.
+     *
+     * @return a new unsafe copy of this compressed bit set
+     * @throws UnsupportedOperationException if this compressed bit set is too large to copy into a <code>long[]</code>
+     */
+    public UnsafeBitSet unsafeCopy() {
+        return new UnsafeBitSet(bits().clone(), wlen());
+    }
+
+    /**
+     * Return a new compressed copy of this compressed bit set.
+     *
+     * @return a new compressed copy of this compressed bit set
+     */
+    public CompressedBitSet compressedCopy() {
+        return new CompressedBitSet(this);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompressedBitSet)) {
+            return false;
+        }
+        CompressedBitSet c = (CompressedBitSet) o;
+        if (size != c.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != c.keys[i] || !containers[i].equals(c.containers[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0x98761234;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + (int) (keys[i] ^ (keys[i] >>> 32));
+            h = 31 * h + containers[i].hashCode();
+        }
+        return h;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException if this compressed bit set is too large to copy into a <code>long[]</code>
+     */
+    @Override
+    protected long[] bits() {
+        if (words == null) {
+            long wlen = capacity() >>> 6;
+            if (wlen > Integer.MAX_VALUE - 8) {
+                throw new UnsupportedOperationException("compressed bit set too large to copy into a long[], capacity " + capacity());
+            }
+            long[] bits = new long[(int) wlen];
+            for (int i = 0; i < size; i++) {
+                Container container = containers[i];
+                long[] chunk = (container instanceof BitmapContainer) ? ((BitmapContainer) container).words : container.toBitmap().words;
+                System.arraycopy(chunk, 0, bits, (int) (keys[i] << 10), Container.WORDS);
+            }
+            words = bits;
+        }
+        return words;
+    }
+
+    @Override
+    protected long numBits() {
+        return capacity();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Computed from the chunk keys without copying into a <code>long[]</code>, saturating
+     * at <code>Integer.MAX_VALUE</code> for compressed bit sets too large to copy.</p>
+     */
+    @Override
+    protected int wlen() {
+        if (size == 0) {
+            return 0;
+        }
+        // each chunk, including the last, spans Container.WORDS words
+        long wlen = (keys[size - 1] + 1L) * Container.WORDS;
+        return (int) Math.min(wlen, (long) Integer.MAX_VALUE);
+    }
+
+    /**
+     * Replace the chunks in this compressed bit set with the result of the specified logical operation
+     * on the chunks in this and the specified compressed bit set.
+     *
+     * @param other other compressed bit set
+     * @param operation logical operation
+     * @return this compressed bit set, for method chaining
+     */
+    private CompressedBitSet merge(final CompressedBitSet other, final int operation) {
+        long[] resultKeys = new long[Math.max(4, size + other.size)];
+        Container[] resultContainers = new Container[resultKeys.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            long key;
+            Container container;
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                key = keys[i];
+                container = (operation == AND) ? null : containers[i];
+                i++;
+            }
+            else if (i == size || other.keys[j] < keys[i]) {
+                key = other.keys[j];
+                container = (operation == OR || operation == XOR) ? other.containers[j].copy() : null;
+                j++;
+            }
+            else {
+                key = keys[i];
+                switch (operation) {
+                case AND:
+                    container = Container.and(containers[i], other.containers[j]);
+                    break;
+                case OR:
+                    container = Container.or(containers[i], other.containers[j]);
+                    break;
+                case XOR:
+                    container = Container.xor(containers[i], other.containers[j]);
+                    break;
+                default:
+                    container = Container.andNot(containers[i], other.containers[j]);
+                    break;
+                }
+                i++;
+                j++;
+            }
+            if (container != null && container.cardinality() > 0) {
+                resultKeys[n] = key;
+                resultContainers[n] = container;
+                n++;
+            }
+        }
+        keys = resultKeys;
+        containers = resultContainers;
+        size = n;
+        words = null;
+        return this;
+    }
+
+    /**
+     * Binary search for the specified chunk key.
+     *
+     * @param key chunk key
+     * @return the index of the specified chunk key, or <code>-(insertion point) - 1</code>
+     */
+    private int find(final long key) {
+        // fast path for sequential access
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long k = keys[mid];
+            if (k < key) {
+                low = mid + 1;
+            }
+            else if (k > key) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Insert the specified chunk at the specified index.
+     *
+     * @param i index
+     * @param key chunk key
+     * @param container container, must not be empty
+     */
+    private void insert(final int i, final long key, final Container container) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            long[] k = new long[capacity];
+            Container[] c = new Container[capacity];
+            System.arraycopy(keys, 0, k, 0, size);
+            System.arraycopy(containers, 0, c, 0, size);
+            keys = k;
+            containers = c;
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = container;
+        size++;
+    }
+
+    /**
+     * Append the specified chunk, which must have a key greater than any chunk in this compressed bit set.
+     *
+     * @param key chunk key
+     * @param container container, must not be empty
+     */
+    private void append(final long key, final Container container) {
+        insert(size, key, container);
+    }
+
+    /**
+     * Remove the chunk at the specified index.
+     *
+     * @param i index
+     */
+    private void remove(final int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * Replace the container at the specified index, removing the chunk if the container is empty.
+     *
+     * @param i index
+     * @param container container
+     * @return true if the container was replaced, false if the chunk was removed
+     */
+    private boolean replace(final int i, final Container container) {
+        if (container.cardinality() == 0) {
+            remove(i);
+            return false;
+        }
+        containers[i] = container;
+        return true;
+    }
+
+    /**
+     * Return the smallest index greater than or equal to the specified index that is not set.
+     *
+     * @param index index, must be <code>&gt;= 0</code>
+     * @return the smallest index greater than or equal to the specified index that is not set
+     */
+    private long nextAbsent(final long index) {
+        long from = index;
+        while (true) {
+            long key = from >>> 16;
+            int i = find(key);
+            if (i < 0) {
+                return from;
+            }
+            int absent = containers[i].nextAbsent(low(from));
+            if (absent >= 0) {
+                return (key << 16) + absent;
+            }
+            from = (key + 1L) << 16;
+        }
+    }
+
+    /**
+     * Return the largest index less than or equal to the specified index that is not set, or
+     * <code>-1</code> if no such index exists.
+     *
+     * @param index index, must be <code>&gt;= 0</code>
+     * @return the largest index less than or equal to the specified index that is not set
+     */
+    private long prevAbsent(final long index) {
+        long from = index;
+        while (from >= 0L) {
+            long key = from >>> 16;
+            int i = find(key);
+            if (i < 0) {
+                return from;
+            }
+            int absent = containers[i].prevAbsent(low(from));
+            if (absent >= 0) {
+                return (key << 16) + absent;
+            }
+            from = (key << 16) - 1L;
+        }
+        return -1L;
+    }
+
+    /**
+     * Check the specified index.
+     *
+     * @param index index to check
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative
+     */
+    private static void checkIndex(final long index) {
+        if (index < 0L) {
+            throw new IndexOutOfBoundsException("index must be at least zero, was " + index);
+        }
+    }
+
+    /**
+     * Return the low 16 bits of the specified index.
+     *
+     * @param index index
+     * @return the low 16 bits of the specified index
+     */
+    private static int low(final long index) {
+        return (int) (index & 0xffffL);
+    }
+
+    /**
+     * Return the specified bit set if it is a compressed bit set, otherwise a new
+     * compressed bit set with the bits set in the specified bit set.
+     *
+     * @param bitset bit set, must not be null
+     * @return the specified bit set if it is a compressed bit set, otherwise a new
+     *    compressed bit set with the bits set in the specified bit set
+     */
+    private static CompressedBitSet valueOf(final AbstractBitSet bitset) {
+        if (bitset instanceof CompressedBitSet) {
+            return (CompressedBitSet) bitset;
+        }
+        return new CompressedBitSet(bitset);
+    }
+
+    /**
+     * Return the number of set bits in the logical AND of the specified compressed bit sets.
+     *
+     * @param a first compressed bit set
+     * @param b second compressed bit set
+     * @return the number of set bits in the logical AND of the specified compressed bit sets
+     */
+    private static long intersectionCount(final CompressedBitSet a, final CompressedBitSet b) {
+        long count = 0L;
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            }
+            else if (a.keys[i] > b.keys[j]) {
+                j++;
+            }
+            else {
+                count += Container.andCardinality(a.containers[i], b.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return a new compressed bit set representing the logical NOT followed by AND of the two specified bit sets.
+     * Neither set is modified.
+     *
+     * @param a first bit set, must not be null
+     * @param b second bit set, must not be null
+     * @return a new compressed bit set representing the logical NOT followed by AND of the two specified bit sets
+     */
+    public static CompressedBitSet andNot(final AbstractBitSet a, final AbstractBitSet b) {
+        return new CompressedBitSet(a).andNot(b);
+    }
+
+    /**
+     * Return the cardinality of the logical NOT followed by AND of the two specified bit sets.  Neither
+     * set is modified.
+     *
+     * @param a first bit set, must not be null
+     * @param b second bit set, must not be null
+     * @return the cardinality of the logical NOT followed by AND of the two specified bit sets
+     */
+    public static long andNotCount(final AbstractBitSet a, final AbstractBitSet b) {
+        CompressedBitSet c = valueOf(a);
+        return c.cardinality() - intersectionCount(c, valueOf(b));
+    }
+
+    /**
+     * Return a new compressed bit set representing the logical AND of the two specified bit sets.
+     * Neither set is modified.
+     *
+     * @param a first bit set, must not be null
+     * @param b second bit set, must not be null
+     * @return a new compressed bit set representing the logical AND of the two specified bit sets
+     */
+    public static CompressedBitSet and(final AbstractBitSet a, final AbstractBitSet b) {
+        return new CompressedBitSet(a).and(b);
+    }
+
+    /**
+     * Return the cardinality of the logical AND of the two specified bit sets.  Neither set is modified.
+     *
+     * @param a first bit set, must not be null
+     * @param b second bit set, must not be null
+     * @return the cardinality of the logical AND of the two specified bit sets
+     */
+    public static long andCount(final AbstractBitSet a, final AbstractBitSet b) {
+        return intersectionCount(valueOf(a), valueOf(b));
+    }
+
+    /**
+     * Return a new compressed bit set representing the logical OR of the two specified bit sets.
+     * Neither set is modified.
+     *
+     * @param a first bit set, must not be null
+     * @param b second bit set, must not be null
+     * @return a new compressed bit set representing the logical OR of the two specified bit sets
+     */
+    public static CompressedBitSet or(final AbstractBitSet a, final AbstractBitSet b) {
+        return new CompressedBitSet(a).or(b);
+    }
+
+    /**
+     * Return the cardinality of the logical OR of the two specified bit sets.  Neither set is modified.
+     *
+     * @param a first bit set, must not be null
+     * @param b second bit set, must not be null
+     * @return the cardinality of the logical OR of the two specified bit sets
+     */
+    public static long orCount(final AbstractBitSet a, final AbstractBitSet b) {
+        CompressedBitSet c = valueOf(a);
+        CompressedBitSet d = valueOf(b);
+        return c.cardinality() + d.cardinality() - intersectionCount(c, d);
+    }
+
+    /**
+     * Return a new compressed bit set representing the logical XOR of the two specified bit sets.
+     * Neither set is modified.
+     *
+     * @param a first bit set, must not be null
+     * @param b second bit set, must not be null
+     * @return a new compressed bit set representing the logical XOR of the two specified bit sets
+     */
+    public static CompressedBitSet xor(final AbstractBitSet a, final AbstractBitSet b) {
+        return new CompressedBitSet(a).xor(b);
+    }
+
+    /**
+     * Return the cardinality of the logical XOR of the two specified bit sets.  Neither set is modified.
+     *
+     * @param a first bit set, must not be null
+     * @param b second bit set, must not be null
+     * @return the cardinality of the logical XOR of the two specified bit sets
+     */
+    public static long xorCount(final AbstractBitSet a, final AbstractBitSet b) {
+        CompressedBitSet c = valueOf(a);
+        CompressedBitSet d = valueOf(b);
+        return c.cardinality() + d.cardinality() - 2L * intersectionCount(c, d);
+    }
+}
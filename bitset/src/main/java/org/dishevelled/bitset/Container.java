@@ -0,0 +1,420 @@
+/*
+
+    dsh-bitset  High performance bit set implementations.
+    Copyright (c) 2011-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bitset;
+
+import java.io.Serializable;
+
+import org.dishevelled.functor.UnaryProcedure;
+
+/**
+ * Container for the low 16 bits of the indices in one 65536-bit chunk of a compressed bit set.
+ *
+ * <p>Containers are never empty when held by a compressed bit set.  Operations that may change the
+ * best representation for a container return the container to use in its place, which may be this.</p>
+ */
+abstract class Container implements Serializable {
+    /** Number of values in a chunk, <code>65536</code>. */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    /** Number of 64 bit words in a bitmap container, <code>1024</code>. */
+    static final int WORDS = CHUNK_SIZE >>> 6;
+
+    /** Maximum cardinality of an array container, <code>4096</code>. */
+    static final int MAX_ARRAY_SIZE = 4096;
+
+
+    /**
+     * Return the number of values in this container.
+     *
+     * @return the number of values in this container
+     */
+    abstract int cardinality();
+
+    /**
+     * Return true if this container contains the specified value.
+     *
+     * @param x value, in <code>[0, 65536)</code>
+     * @return true if this container contains the specified value
+     */
+    abstract boolean contains(int x);
+
+    /**
+     * Add the specified value to this container.
+     *
+     * @param x value, in <code>[0, 65536)</code>
+     * @return the container to use in place of this container
+     */
+    abstract Container add(int x);
+
+    /**
+     * Remove the specified value from this container.
+     *
+     * @param x value, in <code>[0, 65536)</code>
+     * @return the container to use in place of this container, possibly empty
+     */
+    abstract Container remove(int x);
+
+    /**
+     * Return the smallest value in this container greater than or equal to the specified value,
+     * or <code>-1</code> if no such value exists.
+     *
+     * @param x value, in <code>[0, 65536)</code>
+     * @return the smallest value in this container greater than or equal to the specified value
+     */
+    abstract int next(int x);
+
+    /**
+     * Return the largest value in this container less than or equal to the specified value,
+     * or <code>-1</code> if no such value exists.
+     *
+     * @param x value, in <code>[0, 65536)</code>
+     * @return the largest value in this container less than or equal to the specified value
+     */
+    abstract int prev(int x);
+
+    /**
+     * Return the smallest value not in this container greater than or equal to the specified value,
+     * or <code>-1</code> if no such value exists in <code>[x, 65536)</code>.
+     *
+     * @param x value, in <code>[0, 65536)</code>
+     * @return the smallest value not in this container greater than or equal to the specified value
+     */
+    abstract int nextAbsent(int x);
+
+    /**
+     * Return the largest value not in this container less than or equal to the specified value,
+     * or <code>-1</code> if no such value exists in <code>[0, x]</code>.
+     *
+     * @param x value, in <code>[0, 65536)</code>
+     * @return the largest value not in this container less than or equal to the specified value
+     */
+    abstract int prevAbsent(int x);
+
+    /**
+     * Call the specified procedure with <code>base</code> plus each value in this container, in order.
+     *
+     * @param base base index for this container
+     * @param procedure procedure
+     */
+    abstract void forEach(long base, UnaryProcedure<Long> procedure);
+
+    /**
+     * Return a new bitmap container with the values in this container.
+     *
+     * @return a new bitmap container with the values in this container
+     */
+    abstract BitmapContainer toBitmap();
+
+    /**
+     * Return a copy of this container.
+     *
+     * @return a copy of this container
+     */
+    abstract Container copy();
+
+    /**
+     * Return the approximate size in bytes of the values in this container.
+     *
+     * @return the approximate size in bytes of the values in this container
+     */
+    abstract int sizeInBytes();
+
+    /**
+     * Set the bits for the values in this container in the specified bitmap words.
+     *
+     * @param words bitmap words, length <code>1024</code>
+     */
+    abstract void orInto(long[] words);
+
+    /**
+     * Flip the bits for the values in this container in the specified bitmap words.
+     *
+     * @param words bitmap words, length <code>1024</code>
+     */
+    abstract void xorInto(long[] words);
+
+    /**
+     * Clear the bits for the values in this container in the specified bitmap words.
+     *
+     * @param words bitmap words, length <code>1024</code>
+     */
+    abstract void clearFrom(long[] words);
+
+    /**
+     * Add the values in the specified range to this container.
+     *
+     * @param start start value, inclusive
+     * @param end end value, exclusive, at most <code>65536</code>
+     * @return the container to use in place of this container
+     */
+    Container addRange(final int start, final int end) {
+        if (start == 0 && end == CHUNK_SIZE) {
+            return RunContainer.full();
+        }
+        BitmapContainer bitmap = toBitmap();
+        setRange(bitmap.words, start, end);
+        return bitmap.repair();
+    }
+
+    /**
+     * Remove the values in the specified range from this container.
+     *
+     * @param start start value, inclusive
+     * @param end end value, exclusive, at most <code>65536</code>
+     * @return the container to use in place of this container, possibly empty
+     */
+    Container removeRange(final int start, final int end) {
+        BitmapContainer bitmap = toBitmap();
+        clearRange(bitmap.words, start, end);
+        return bitmap.repair();
+    }
+
+    /**
+     * Flip the values in the specified range in this container.
+     *
+     * @param start start value, inclusive
+     * @param end end value, exclusive, at most <code>65536</code>
+     * @return the container to use in place of this container, possibly empty
+     */
+    Container flipRange(final int start, final int end) {
+        BitmapContainer bitmap = toBitmap();
+        flipRange(bitmap.words, start, end);
+        return bitmap.repair();
+    }
+
+    /**
+     * Return this container, or an equivalent run container if that would be smaller.
+     *
+     * @return this container, or an equivalent run container if that would be smaller
+     */
+    Container runOptimize() {
+        RunContainer runs = RunContainer.valueOf(this);
+        return (runs.sizeInBytes() < sizeInBytes()) ? runs : this;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Container)) {
+            return false;
+        }
+        Container c = (Container) o;
+        return cardinality() == c.cardinality() && andCardinality(this, c) == cardinality();
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int x = next(0); x >= 0; x = (x == CHUNK_SIZE - 1) ? -1 : next(x + 1)) {
+            h = 31 * h + x;
+        }
+        return h;
+    }
+
+
+    /**
+     * Return the logical AND of the specified containers, possibly empty.  Neither container is modified.
+     *
+     * @param a first container
+     * @param b second container
+     * @return the logical AND of the specified containers, possibly empty
+     */
+    static Container and(final Container a, final Container b) {
+        if (a instanceof ArrayContainer) {
+            return ((ArrayContainer) a).filter(b, true);
+        }
+        if (b instanceof ArrayContainer) {
+            return ((ArrayContainer) b).filter(a, true);
+        }
+        BitmapContainer result = a.toBitmap();
+        long[] other = (b instanceof BitmapContainer) ? ((BitmapContainer) b).words : b.toBitmap().words;
+        BitUtil.and(result.words, other, WORDS);
+        return result.repair();
+    }
+
+    /**
+     * Return the logical OR of the specified containers.  Neither container is modified.
+     *
+     * @param a first container
+     * @param b second container
+     * @return the logical OR of the specified containers
+     */
+    static Container or(final Container a, final Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer
+            && a.cardinality() + b.cardinality() <= MAX_ARRAY_SIZE) {
+            return ((ArrayContainer) a).union((ArrayContainer) b);
+        }
+        BitmapContainer result = a.toBitmap();
+        b.orInto(result.words);
+        return result.repair();
+    }
+
+    /**
+     * Return the logical XOR of the specified containers, possibly empty.  Neither container is modified.
+     *
+     * @param a first container
+     * @param b second container
+     * @return the logical XOR of the specified containers, possibly empty
+     */
+    static Container xor(final Container a, final Container b) {
+        BitmapContainer result = a.toBitmap();
+        b.xorInto(result.words);
+        return result.repair();
+    }
+
+    /**
+     * Return the logical NOT followed by AND of the specified containers, possibly empty.  Neither
+     * container is modified.
+     *
+     * @param a first container
+     * @param b second container
+     * @return the logical NOT followed by AND of the specified containers, possibly empty
+     */
+    static Container andNot(final Container a, final Container b) {
+        if (a instanceof ArrayContainer) {
+            return ((ArrayContainer) a).filter(b, false);
+        }
+        BitmapContainer result = a.toBitmap();
+        b.clearFrom(result.words);
+        return result.repair();
+    }
+
+    /**
+     * Return the cardinality of the logical AND of the specified containers.
+     *
+     * @param a first container
+     * @param b second container
+     * @return the cardinality of the logical AND of the specified containers
+     */
+    static int andCardinality(final Container a, final Container b) {
+        if (a instanceof ArrayContainer) {
+            return ((ArrayContainer) a).countContained(b);
+        }
+        if (b instanceof ArrayContainer) {
+            return ((ArrayContainer) b).countContained(a);
+        }
+        long[] x = (a instanceof BitmapContainer) ? ((BitmapContainer) a).words : a.toBitmap().words;
+        long[] y = (b instanceof BitmapContainer) ? ((BitmapContainer) b).words : b.toBitmap().words;
+        return (int) BitUtil.pop_intersect(x, y, 0, WORDS);
+    }
+
+    /**
+     * Return true if the specified containers have any values in common.
+     *
+     * @param a first container
+     * @param b second container
+     * @return true if the specified containers have any values in common
+     */
+    static boolean intersects(final Container a, final Container b) {
+        if (a instanceof ArrayContainer) {
+            return ((ArrayContainer) a).anyContained(b);
+        }
+        if (b instanceof ArrayContainer) {
+            return ((ArrayContainer) b).anyContained(a);
+        }
+        long[] x = (a instanceof BitmapContainer) ? ((BitmapContainer) a).words : a.toBitmap().words;
+        long[] y = (b instanceof BitmapContainer) ? ((BitmapContainer) b).words : b.toBitmap().words;
+        return BitUtil.intersects(x, y, WORDS);
+    }
+
+    /**
+     * Set the bits in the specified range in the specified bitmap words.
+     *
+     * @param words bitmap words
+     * @param start start value, inclusive
+     * @param end end value, exclusive
+     */
+    static void setRange(final long[] words, final int start, final int end) {
+        if (end <= start) {
+            return;
+        }
+        int startWord = start >>> 6;
+        int endWord = (end - 1) >>> 6;
+        long startmask = -1L << start;
+        long endmask = -1L >>> -end;
+        if (startWord == endWord) {
+            words[startWord] |= (startmask & endmask);
+            return;
+        }
+        words[startWord] |= startmask;
+        for (int i = startWord + 1; i < endWord; i++) {
+            words[i] = -1L;
+        }
+        words[endWord] |= endmask;
+    }
+
+    /**
+     * Clear the bits in the specified range in the specified bitmap words.
+     *
+     * @param words bitmap words
+     * @param start start value, inclusive
+     * @param end end value, exclusive
+     */
+    static void clearRange(final long[] words, final int start, final int end) {
+        if (end <= start) {
+            return;
+        }
+        int startWord = start >>> 6;
+        int endWord = (end - 1) >>> 6;
+        long startmask = -1L << start;
+        long endmask = -1L >>> -end;
+        if (startWord == endWord) {
+            words[startWord] &= ~(startmask & endmask);
+            return;
+        }
+        words[startWord] &= ~startmask;
+        for (int i = startWord + 1; i < endWord; i++) {
+            words[i] = 0L;
+        }
+        words[endWord] &= ~endmask;
+    }
+
+    /**
+     * Flip the bits in the specified range in the specified bitmap words.
+     *
+     * @param words bitmap words
+     * @param start start value, inclusive
+     * @param end end value, exclusive
+     */
+    static void flipRange(final long[] words, final int start, final int end) {
+        if (end <= start) {
+            return;
+        }
+        int startWord = start >>> 6;
+        int endWord = (end - 1) >>> 6;
+        long startmask = -1L << start;
+        long endmask = -1L >>> -end;
+        if (startWord == endWord) {
+            words[startWord] ^= (startmask & endmask);
+            return;
+        }
+        words[startWord] ^= startmask;
+        for (int i = startWord + 1; i < endWord; i++) {
+            words[i] = ~words[i];
+        }
+        words[endWord] ^= endmask;
+    }
+}
@@ -49,6 +49,9 @@ import org.dishevelled.functor.UnaryProcedure;
  * Immutable bit set.
  */
 public final class ImmutableBitSet extends AbstractBitSet implements Serializable {
+    /** Serial version UID, computed from the 3.0 release for serialization compatibility. */
+    private static final long serialVersionUID = 7252989858226405799L;
+
     private final long[] bits;
     private final long numBits;
     private final int wlen;
@@ -71,7 +74,7 @@ public final class ImmutableBitSet extends AbstractBitSet implements Serializabl
      * @param numBits number of bits
      * @param wlen number of words/elements used in <code>bits</code>
      */
-    private ImmutableBitSet(final long[] bits, final long numBits, final int wlen) {
+    ImmutableBitSet(final long[] bits, final long numBits, final int wlen) {
         this.bits = bits;
         this.wlen = wlen;
         this.numBits = numBits;
@@ -217,15 +220,7 @@ public final class ImmutableBitSet extends AbstractBitSet implements Serializabl
 
     @Override
     public boolean intersects(final AbstractBitSet other) {
-        int pos = Math.min(this.wlen, other.wlen());
-        long[] thisArr = this.bits;
-        long[] otherArr = other.bits();
-        while (--pos >= 0) {
-            if ((thisArr[pos] & otherArr[pos]) != 0) {
-                return true;
-            }
-        }
-        return false;
+        return BitUtil.intersects(this.bits, other.bits(), Math.min(this.wlen, other.wlen()));
     }
 
     @Override
@@ -305,10 +300,7 @@ public final class ImmutableBitSet extends AbstractBitSet implements Serializabl
         int newLen = Math.max(wlen, other.wlen());
         long[] thisArr = this.bits.clone();
         long[] otherArr = other.bits();
-        int pos = Math.min(wlen, other.wlen());
-        while (--pos >= 0) {
-            thisArr[pos] ^= otherArr[pos];
-        }
+        BitUtil.xor(thisArr, otherArr, Math.min(wlen, other.wlen()));
         if (this.wlen < newLen) {
             thisArr = grow(thisArr, newLen);
             System.arraycopy(otherArr, this.wlen, thisArr, this.wlen, newLen - this.wlen);
@@ -327,12 +319,7 @@ public final class ImmutableBitSet extends AbstractBitSet implements Serializabl
     public ImmutableBitSet and(final AbstractBitSet other) {
         int newLen = Math.min(this.wlen, other.wlen());
         long[] thisArr = this.bits.clone();
-        long[] otherArr = other.bits();
-        // testing against zero can be more efficient
-        int pos = newLen;
-        while (--pos >= 0) {
-            thisArr[pos] &= otherArr[pos];
-        }
+        BitUtil.and(thisArr, other.bits(), newLen);
         // if (this.wlen > newLen) {
         // fill zeros from the new shorter length to the old length
         // Arrays.fill(bits,newLen,this.wlen,0);
@@ -353,10 +340,7 @@ public final class ImmutableBitSet extends AbstractBitSet implements Serializabl
         int newLen = Math.max(wlen, other.wlen());
         long[] thisArr = this.bits.clone();
         long[] otherArr = other.bits();
-        int pos = Math.min(wlen, other.wlen());
-        while (--pos >= 0) {
-            thisArr[pos] |= otherArr[pos];
-        }
+        BitUtil.or(thisArr, otherArr, Math.min(wlen, other.wlen()));
         if (this.wlen < newLen) {
             thisArr = grow(thisArr, newLen);
             System.arraycopy(otherArr, this.wlen, thisArr, this.wlen, newLen - this.wlen);
@@ -373,12 +357,8 @@ public final class ImmutableBitSet extends AbstractBitSet implements Serializabl
      * @return a copy of this immutable bit set, for method chaining
      */
     public ImmutableBitSet andNot(final AbstractBitSet other) {
-        int idx = Math.min(wlen, other.wlen());
         long[] thisArr = this.bits.clone();
-        long[] otherArr = other.bits();
-        while (--idx >= 0) {
-            thisArr[idx] &= ~otherArr[idx];
-        }
+        BitUtil.andNot(thisArr, other.bits(), Math.min(wlen, other.wlen()));
         return new ImmutableBitSet(thisArr, wlen * 64, wlen);
     }
 
@@ -240,15 +240,7 @@ public class MutableBitSet extends AbstractBitSet implements Serializable /*, Cl
 
     @Override
     public boolean intersects(final AbstractBitSet other) {
-        int pos = Math.min(this.wlen, other.wlen());
-        long[] thisArr = this.bits;
-        long[] otherArr = other.bits();
-        while (--pos >= 0) {
-            if ((thisArr[pos] & otherArr[pos]) != 0) {
-                return true;
-            }
-        }
-        return false;
+        return BitUtil.intersects(this.bits, other.bits(), Math.min(this.wlen, other.wlen()));
     }
 
     @Override
@@ -455,10 +447,7 @@ public class MutableBitSet extends AbstractBitSet implements Serializable /*, Cl
 
         long[] thisArr = this.bits;
         long[] otherArr = other.bits();
-        int pos = Math.min(wlen, other.wlen());
-        while (--pos >= 0) {
-            thisArr[pos] ^= otherArr[pos];
-        }
+        BitUtil.xor(thisArr, otherArr, Math.min(wlen, other.wlen()));
         if (this.wlen < newLen) {
             System.arraycopy(otherArr, this.wlen, thisArr, this.wlen, newLen - this.wlen);
         }
@@ -476,13 +465,7 @@ public class MutableBitSet extends AbstractBitSet implements Serializable /*, Cl
      */
     public MutableBitSet and(final AbstractBitSet other) {
         int newLen = Math.min(this.wlen, other.wlen());
-        long[] thisArr = this.bits;
-        long[] otherArr = other.bits();
-        // testing against zero can be more efficient
-        int pos = newLen;
-        while (--pos >= 0) {
-            thisArr[pos] &= otherArr[pos];
-        }
+        BitUtil.and(this.bits, other.bits(), newLen);
         if (this.wlen > newLen) {
             // fill zeros from the new shorter length to the old length
             Arrays.fill(bits, newLen, this.wlen, 0);
@@ -506,10 +489,7 @@ public class MutableBitSet extends AbstractBitSet implements Serializable /*, Cl
 
         long[] thisArr = this.bits;
         long[] otherArr = other.bits();
-        int pos = Math.min(wlen, other.wlen());
-        while (--pos >= 0) {
-            thisArr[pos] |= otherArr[pos];
-        }
+        BitUtil.or(thisArr, otherArr, Math.min(wlen, other.wlen()));
         if (this.wlen < newLen) {
             System.arraycopy(otherArr, this.wlen, thisArr, this.wlen, newLen - this.wlen);
         }
@@ -526,12 +506,7 @@ public class MutableBitSet extends AbstractBitSet implements Serializable /*, Cl
      * @return this mutable bit set, for method chaining
      */
     public MutableBitSet andNot(final AbstractBitSet other) {
-        int idx = Math.min(wlen, other.wlen());
-        long[] thisArr = this.bits;
-        long[] otherArr = other.bits();
-        while (--idx >= 0) {
-            thisArr[idx] &= ~otherArr[idx];
-        }
+        BitUtil.andNot(this.bits, other.bits(), Math.min(wlen, other.wlen()));
         return this;
     }
 
@@ -0,0 +1,252 @@
+/*
+
+    dsh-bitset  High performance bit set implementations.
+    Copyright (c) 2011-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bitset;
+
+import org.dishevelled.functor.UnaryProcedure;
+
+/**
+ * Container that stores values as sorted runs of consecutive values.  Run containers are
+ * not modified in place; mutations return an equivalent array or bitmap container.
+ */
+final class RunContainer extends Container {
+    /** Run start values, as unsigned 16 bit chars. */
+    private final char[] starts;
+
+    /** Run lengths minus one, as unsigned 16 bit chars. */
+    private final char[] lengths;
+
+    /** Number of runs. */
+    private final int runs;
+
+
+    /**
+     * Create a new run container with the specified runs.
+     *
+     * @param starts run start values
+     * @param lengths run lengths minus one
+     * @param runs number of runs
+     */
+    private RunContainer(final char[] starts, final char[] lengths, final int runs) {
+        this.starts = starts;
+        this.lengths = lengths;
+        this.runs = runs;
+    }
+
+
+    @Override
+    int cardinality() {
+        int cardinality = runs;
+        for (int i = 0; i < runs; i++) {
+            cardinality += lengths[i];
+        }
+        return cardinality;
+    }
+
+    @Override
+    boolean contains(final int x) {
+        int i = run(x);
+        return i >= 0 && x <= end(i);
+    }
+
+    @Override
+    Container add(final int x) {
+        return contains(x) ? this : toBitmap().repair().add(x);
+    }
+
+    @Override
+    Container remove(final int x) {
+        return contains(x) ? toBitmap().repair().remove(x) : this;
+    }
+
+    @Override
+    int next(final int x) {
+        int i = run(x);
+        if (i >= 0 && x <= end(i)) {
+            return x;
+        }
+        return (i + 1 < runs) ? starts[i + 1] : -1;
+    }
+
+    @Override
+    int prev(final int x) {
+        int i = run(x);
+        if (i < 0) {
+            return -1;
+        }
+        return Math.min(x, end(i));
+    }
+
+    @Override
+    int nextAbsent(final int x) {
+        int i = run(x);
+        if (i < 0 || x > end(i)) {
+            return x;
+        }
+        int absent = end(i) + 1;
+        return (absent < CHUNK_SIZE) ? absent : -1;
+    }
+
+    @Override
+    int prevAbsent(final int x) {
+        int i = run(x);
+        if (i < 0 || x > end(i)) {
+            return x;
+        }
+        return starts[i] - 1;
+    }
+
+    @Override
+    void forEach(final long base, final UnaryProcedure<Long> procedure) {
+        for (int i = 0; i < runs; i++) {
+            for (int x = starts[i], end = end(i); x <= end; x++) {
+                procedure.run(base + x);
+            }
+        }
+    }
+
+    @Override
+    BitmapContainer toBitmap() {
+        BitmapContainer bitmap = new BitmapContainer();
+        orInto(bitmap.words);
+        bitmap.cardinality = cardinality();
+        return bitmap;
+    }
+
+    @Override
+    Container copy() {
+        return this;
+    }
+
+    @Override
+    int sizeInBytes() {
+        return 4 * runs;
+    }
+
+    @Override
+    void orInto(final long[] words) {
+        for (int i = 0; i < runs; i++) {
+            setRange(words, starts[i], end(i) + 1);
+        }
+    }
+
+    @Override
+    void xorInto(final long[] words) {
+        for (int i = 0; i < runs; i++) {
+            flipRange(words, starts[i], end(i) + 1);
+        }
+    }
+
+    @Override
+    void clearFrom(final long[] words) {
+        for (int i = 0; i < runs; i++) {
+            clearRange(words, starts[i], end(i) + 1);
+        }
+    }
+
+    @Override
+    Container runOptimize() {
+        return this;
+    }
+
+    /**
+     * Return the last value in the specified run.
+     *
+     * @param i run index
+     * @return the last value in the specified run
+     */
+    private int end(final int i) {
+        return starts[i] + lengths[i];
+    }
+
+    /**
+     * Return the index of the last run starting at or before the specified value,
+     * or <code>-1</code> if no such run exists.
+     *
+     * @param x value
+     * @return the index of the last run starting at or before the specified value
+     */
+    private int run(final int x) {
+        int low = 0;
+        int high = runs - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int start = starts[mid];
+            if (start < x) {
+                low = mid + 1;
+            }
+            else if (start > x) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return low - 1;
+    }
+
+
+    /**
+     * Return a run container with every value in a chunk.
+     *
+     * @return a run container with every value in a chunk
+     */
+    static RunContainer full() {
+        return new RunContainer(new char[] { 0 }, new char[] { (char) (CHUNK_SIZE - 1) }, 1);
+    }
+
+    /**
+     * Return a new run container with the values in the specified container.
+     *
+     * @param container container
+     * @return a new run container with the values in the specified container
+     */
+    static RunContainer valueOf(final Container container) {
+        if (container instanceof RunContainer) {
+            return (RunContainer) container;
+        }
+        int capacity = 4;
+        char[] starts = new char[capacity];
+        char[] lengths = new char[capacity];
+        int runs = 0;
+        int start = container.next(0);
+        while (start >= 0) {
+            int absent = container.nextAbsent(start);
+            int end = (absent < 0) ? CHUNK_SIZE : absent;
+            if (runs == capacity) {
+                capacity *= 2;
+                char[] s = new char[capacity];
+                char[] l = new char[capacity];
+                System.arraycopy(starts, 0, s, 0, runs);
+                System.arraycopy(lengths, 0, l, 0, runs);
+                starts = s;
+                lengths = l;
+            }
+            starts[runs] = (char) start;
+            lengths[runs] = (char) (end - start - 1);
+            runs++;
+            start = (end < CHUNK_SIZE) ? container.next(end) : -1;
+        }
+        return new RunContainer(starts, lengths, runs);
+    }
+}
@@ -0,0 +1,344 @@
+/*
+
+    dsh-bitset  High performance bit set implementations.
+    Copyright (c) 2011-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bitset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for AtomicBitSet.
+ */
+public class AtomicBitSetTest extends AbstractBitSetTest {
+    private static final long N = 800L;
+    private AtomicBitSet empty;
+    private AtomicBitSet full;
+    private AtomicBitSet partial;
+    private AtomicBitSet half;
+
+    @Override
+    protected AbstractBitSet createBitSet() {
+        return new AtomicBitSet(N);
+    }
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        empty = new AtomicBitSet(N);
+        partial = new AtomicBitSet(N);
+        partial.set((N / 2L), N);
+        full = new AtomicBitSet(N);
+        full.set(0L, N);
+        half = new AtomicBitSet((N / 2L));
+        half.set((N / 4L), (N / 2L));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNegativeNumBits() {
+        new AtomicBitSet(-1L);
+    }
+
+    @Test
+    public void testConstructorAbstractBitSet() {
+        MutableBitSet m = new MutableBitSet(N);
+        m.set(3L);
+        m.set(N - 1L);
+        AtomicBitSet a = new AtomicBitSet(m);
+        assertEquals(2L, a.cardinality());
+        assertTrue(a.get(3L));
+        assertTrue(a.get(N - 1L));
+    }
+
+    @Test
+    public void testCapacity() {
+        assertTrue(empty.capacity() >= N);
+        assertTrue(half.capacity() >= (N / 2L));
+        assertEquals(0L, new AtomicBitSet(0L).capacity());
+    }
+
+    @Test
+    public void testCardinality() {
+        assertEquals(0L, empty.cardinality());
+        assertEquals(N / 2L, partial.cardinality());
+        assertEquals(N, full.cardinality());
+        assertEquals(N / 4L, half.cardinality());
+    }
+
+    @Test
+    public void testIsEmpty() {
+        assertTrue(empty.isEmpty());
+        assertFalse(partial.isEmpty());
+        assertFalse(full.isEmpty());
+        assertFalse(half.isEmpty());
+    }
+
+    @Test
+    public void testGet() {
+        for (long i = 0; i < N; i++) {
+            assertFalse(empty.get(i));
+            assertEquals(i >= (N / 2L), partial.get(i));
+            assertTrue(full.get(i));
+        }
+        assertFalse(full.get(-1L));
+        assertFalse(full.get(full.capacity()));
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testSetOutOfBounds() {
+        assertTrue(N % 64L != 0L);
+        empty.set(N);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testSetRangeOutOfBounds() {
+        empty.set(N - 1L, N + 1L);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testSetNegativeIndex() {
+        empty.set(-1L);
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testEnsureCapacity() {
+        empty.ensureCapacity(N);
+        empty.ensureCapacity(N + 1L);
+    }
+
+    @Test
+    public void testNextClearBit() {
+        assertEquals(-1L, empty.nextClearBit(0L));
+        assertEquals(0L, partial.nextClearBit(0L));
+        assertEquals(-1L, full.nextClearBit(0L));
+        assertEquals(-1L, partial.nextClearBit(N - 1L));
+    }
+
+    @Test
+    public void testPrevClearBit() {
+        assertEquals(-1L, empty.prevClearBit(0L));
+        assertEquals(-1L, full.prevClearBit(N - 1L));
+        assertEquals((N / 2L) - 1L, partial.prevClearBit(N - 1L));
+    }
+
+    @Test
+    public void testNextSetBit() {
+        assertEquals(-1L, empty.nextSetBit(0L));
+        assertEquals((N / 2L), partial.nextSetBit(0L));
+        assertEquals(0L, full.nextSetBit(0L));
+        assertEquals(N - 1L, partial.nextSetBit(N - 1L));
+        assertEquals(-1L, partial.nextSetBit(N));
+    }
+
+    @Test
+    public void testPrevSetBit() {
+        assertEquals(-1L, empty.prevSetBit(0L));
+        assertEquals(-1L, partial.prevSetBit(0L));
+        assertEquals(0L, full.prevSetBit(0L));
+        assertEquals(N - 1L, partial.prevSetBit(N - 1L));
+        assertEquals(N - 1L, full.prevSetBit(2L * N));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testForEachSetBitNull() {
+        empty.forEachSetBit(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testForEachClearBitNull() {
+        empty.forEachClearBit(null);
+    }
+
+    @Test
+    public void testForEachSetBit() {
+        Count count = new Count();
+        partial.forEachSetBit(count);
+        assertEquals((N / 2L), count.count());
+    }
+
+    @Test
+    public void testForEachClearBit() {
+        Count count = new Count();
+        partial.forEachClearBit(count);
+        assertEquals((N / 2L), count.count());
+    }
+
+    @Test
+    public void testIntersects() {
+        assertFalse(empty.intersects(full));
+        assertTrue(partial.intersects(full));
+        assertFalse(partial.intersects(half));
+        assertTrue(full.intersects(half));
+        assertTrue(full.intersects(full.mutableCopy()));
+        assertTrue(full.mutableCopy().intersects(full));
+    }
+
+    @Test
+    public void testGetAndSet() {
+        assertFalse(empty.getAndSet(42L));
+        assertTrue(empty.getAndSet(42L));
+        assertEquals(1L, empty.cardinality());
+    }
+
+    @Test
+    public void testClearAndFlip() {
+        full.clear(1L, N - 1L);
+        assertEquals(2L, full.cardinality());
+        full.clear(0L);
+        assertFalse(full.get(0L));
+
+        assertTrue(empty.flipAndGet(7L));
+        assertFalse(empty.flipAndGet(7L));
+        empty.flip(0L, N);
+        assertEquals(N, empty.cardinality());
+        empty.flip(7L);
+        assertFalse(empty.get(7L));
+    }
+
+    @Test
+    public void testCopies() {
+        ImmutableBitSet immutablePartial = partial.immutableCopy();
+        assertNotNull(immutablePartial);
+        assertEquals((N / 2L), immutablePartial.cardinality());
+
+        MutableBitSet mutablePartial = partial.mutableCopy();
+        assertEquals((N / 2L), mutablePartial.cardinality());
+        mutablePartial.clear(N - 1L);
+        assertTrue(partial.get(N - 1L));
+
+        UnsafeBitSet unsafePartial = partial.unsafeCopy();
+        assertEquals((N / 2L), unsafePartial.cardinality());
+
+        partial.clear(N - 1L);
+        assertTrue(immutablePartial.get(N - 1L));
+    }
+
+    @Test
+    public void testConcurrentGetAndSet() throws Exception {
+        final int threads = 4;
+        final long n = 100000L;
+        final AtomicBitSet bitset = new AtomicBitSet(n);
+        final AtomicLong claimed = new AtomicLong();
+        List<Callable<Object>> callables = new ArrayList<Callable<Object>>(threads);
+        for (int t = 0; t < threads; t++) {
+            callables.add(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        for (long i = 0L; i < n; i++) {
+                            if (!bitset.getAndSet(i)) {
+                                claimed.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }
+                });
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Object> future : executorService.invokeAll(callables)) {
+                future.get();
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+        // each bit is claimed by exactly one thread
+        assertEquals(n, bitset.cardinality());
+        assertEquals(n, claimed.get());
+    }
+
+    @Test
+    public void testConcurrentSetClear() throws Exception {
+        final int threads = 4;
+        final long n = 64L * 1000L;
+        final AtomicBitSet bitset = new AtomicBitSet(n);
+        List<Callable<Object>> callables = new ArrayList<Callable<Object>>(threads);
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            callables.add(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        // threads share words but never bits
+                        for (long i = offset; i < n; i += threads) {
+                            bitset.set(i);
+                        }
+                        for (long i = offset; i < n; i += 2L * threads) {
+                            bitset.clear(i);
+                        }
+                        return null;
+                    }
+                });
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Object> future : executorService.invokeAll(callables)) {
+                future.get();
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(n / 2L, bitset.cardinality());
+    }
+
+    @Test
+    public void testSerializable() {
+        assertTrue(bitset instanceof Serializable);
+    }
+
+    @Test
+    public void testSerializePartial() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(partial);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        Object dest = in.readObject();
+        in.close();
+
+        AtomicBitSet a = (AtomicBitSet) dest;
+        assertEquals(partial.cardinality(), a.cardinality());
+        assertEquals(partial.immutableCopy(), a.immutableCopy());
+    }
+}
@@ -0,0 +1,392 @@
+/*
+
+    dsh-bitset  High performance bit set implementations.
+    Copyright (c) 2011-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bitset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for CompressedBitSet.
+ */
+public class CompressedBitSetTest extends AbstractBitSetTest {
+    private static final long N = 800L;
+    private static final long LARGE = 1L << 40;
+    private CompressedBitSet empty;
+    private CompressedBitSet full;
+    private CompressedBitSet partial;
+    private CompressedBitSet half;
+    private CompressedBitSet sparse;
+
+    @Override
+    protected AbstractBitSet createBitSet() {
+        return new CompressedBitSet();
+    }
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        empty = new CompressedBitSet();
+        partial = new CompressedBitSet();
+        partial.set((N / 2L), N);
+        full = new CompressedBitSet();
+        full.set(0L, N);
+        half = new CompressedBitSet();
+        half.set((N / 4L), (N / 2L));
+        sparse = new CompressedBitSet();
+        sparse.set(0L);
+        sparse.set(LARGE);
+        sparse.set(LARGE + 65536L);
+    }
+
+    @Test
+    public void testCardinality() {
+        assertEquals(0L, empty.cardinality());
+        assertEquals(N / 2L, partial.cardinality());
+        assertEquals(N, full.cardinality());
+        assertEquals(N / 4L, half.cardinality());
+        assertEquals(3L, sparse.cardinality());
+    }
+
+    @Test
+    public void testIsEmpty() {
+        assertTrue(empty.isEmpty());
+        assertFalse(partial.isEmpty());
+        assertFalse(full.isEmpty());
+        assertFalse(half.isEmpty());
+        assertFalse(sparse.isEmpty());
+    }
+
+    @Test
+    public void testGet() {
+        for (long i = 0; i < N; i++) {
+            assertFalse(empty.get(i));
+            assertEquals(i >= (N / 2L), partial.get(i));
+            assertTrue(full.get(i));
+        }
+        assertFalse(empty.get(-1L));
+        assertTrue(sparse.get(LARGE));
+        assertFalse(sparse.get(LARGE + 1L));
+        assertTrue(sparse.get(LARGE + 65536L));
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testSetNegativeIndex() {
+        empty.set(-1L);
+    }
+
+    @Test
+    public void testNextClearBit() {
+        assertEquals(-1L, empty.nextClearBit(0L));
+        assertEquals(0L, partial.nextClearBit(0L));
+        assertEquals(-1L, full.nextClearBit(0L));
+
+        assertEquals(-1L, empty.nextClearBit(N - 1L));
+        assertEquals(-1L, partial.nextClearBit(N - 1L));
+        assertEquals(-1L, full.nextClearBit(N - 1L));
+
+        assertEquals(1L, sparse.nextClearBit(0L));
+        assertEquals(LARGE + 1L, sparse.nextClearBit(LARGE));
+    }
+
+    @Test
+    public void testPrevClearBit() {
+        assertEquals(-1L, empty.prevClearBit(0L));
+        assertEquals(-1L, full.prevClearBit(0L));
+
+        assertEquals(-1L, empty.prevClearBit(N - 1L));
+        assertEquals((N / 2L) - 1L, partial.prevClearBit(N - 1L));
+        assertEquals(-1L, full.prevClearBit(N - 1L));
+
+        assertEquals(LARGE - 1L, sparse.prevClearBit(LARGE));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testForEachClearBitNull() {
+        empty.forEachClearBit(null);
+    }
+
+    @Test
+    public void testForEachClearBit() {
+        Count count = new Count();
+        empty.forEachClearBit(count);
+        assertEquals(0L, count.count());
+
+        count = new Count();
+        partial.forEachClearBit(count);
+        assertEquals((N / 2L), count.count());
+
+        count = new Count();
+        full.forEachClearBit(count);
+        assertEquals(0L, count.count());
+    }
+
+    @Test
+    public void testNextSetBit() {
+        assertEquals(-1L, empty.nextSetBit(0L));
+        assertEquals((N / 2L), partial.nextSetBit(0L));
+        assertEquals(0L, full.nextSetBit(0L));
+        assertEquals(N - 1L, partial.nextSetBit(N - 1L));
+        assertEquals(-1L, partial.nextSetBit(N));
+
+        assertEquals(LARGE, sparse.nextSetBit(1L));
+        assertEquals(LARGE + 65536L, sparse.nextSetBit(LARGE + 1L));
+        assertEquals(-1L, sparse.nextSetBit(LARGE + 65537L));
+    }
+
+    @Test
+    public void testPrevSetBit() {
+        assertEquals(-1L, empty.prevSetBit(0L));
+        assertEquals(-1L, partial.prevSetBit(0L));
+        assertEquals(0L, full.prevSetBit(0L));
+        assertEquals(N - 1L, partial.prevSetBit(N - 1L));
+        assertEquals(N - 1L, full.prevSetBit(2L * N));
+
+        assertEquals(0L, sparse.prevSetBit(LARGE - 1L));
+        assertEquals(LARGE, sparse.prevSetBit(LARGE + 65535L));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testForEachSetBitNull() {
+        empty.forEachSetBit(null);
+    }
+
+    @Test
+    public void testForEachSetBit() {
+        Count count = new Count();
+        partial.forEachSetBit(count);
+        assertEquals((N / 2L), count.count());
+
+        count = new Count();
+        sparse.forEachSetBit(count);
+        assertEquals(3L, count.count());
+    }
+
+    @Test
+    public void testCapacity() {
+        assertEquals(0L, empty.capacity());
+        assertTrue(full.capacity() >= N);
+        assertTrue(sparse.capacity() > LARGE + 65536L);
+    }
+
+    @Test
+    public void testWlen() {
+        assertEquals(0, empty.wlen());
+        assertEquals(full.bits().length, full.wlen());
+        half.set(200000L);
+        assertEquals(half.bits().length, half.wlen());
+        assertEquals(Integer.MAX_VALUE, sparse.wlen());
+    }
+
+    @Test
+    public void testSizeInBytes() {
+        assertTrue(sparse.sizeInBytes() < 64L);
+    }
+
+    @Test
+    public void testClear() {
+        sparse.clear(LARGE);
+        assertFalse(sparse.get(LARGE));
+        assertEquals(2L, sparse.cardinality());
+
+        full.clear(1L, N - 1L);
+        assertEquals(2L, full.cardinality());
+        assertTrue(full.get(0L));
+        assertTrue(full.get(N - 1L));
+    }
+
+    @Test
+    public void testFlip() {
+        assertTrue(empty.flipAndGet(LARGE));
+        assertFalse(empty.flipAndGet(LARGE));
+        assertTrue(empty.isEmpty());
+
+        partial.flip(0L, N);
+        assertEquals(N / 2L, partial.cardinality());
+        assertTrue(partial.get(0L));
+        assertFalse(partial.get(N - 1L));
+    }
+
+    @Test
+    public void testRangesAcrossChunks() {
+        CompressedBitSet c = new CompressedBitSet();
+        MutableBitSet m = new MutableBitSet();
+        c.set(60000L, 300000L);
+        m.set(60000L, 300000L);
+        c.clear(65000L, 140000L);
+        m.clear(65000L, 140000L);
+        c.flip(100L, 200000L);
+        m.flip(100L, 200000L);
+        assertEquals(m.cardinality(), c.cardinality());
+        assertEquals(m, c.mutableCopy());
+        assertEquals(c, new CompressedBitSet(m));
+    }
+
+    @Test
+    public void testIntersects() {
+        assertFalse(empty.intersects(empty));
+        assertFalse(empty.intersects(full));
+        assertTrue(partial.intersects(full));
+        assertFalse(partial.intersects(half));
+        assertTrue(full.intersects(half));
+        assertFalse(sparse.intersects(partial));
+        assertTrue(sparse.intersects(full));
+        assertTrue(full.intersects(full.mutableCopy()));
+        assertTrue(full.mutableCopy().intersects(full));
+    }
+
+    @Test
+    public void testLogicalOperations() {
+        assertSame(partial, partial.or(half));
+        assertEquals(3L * N / 4L, partial.cardinality());
+        assertSame(partial, partial.andNot(half));
+        assertEquals(N / 2L, partial.cardinality());
+        assertSame(full, full.xor(partial));
+        assertEquals(N / 2L, full.cardinality());
+        assertSame(full, full.and(partial));
+        assertTrue(full.isEmpty());
+        assertSame(half, half.xor(half));
+        assertTrue(half.isEmpty());
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(42L);
+        for (int trial = 0; trial < 20; trial++) {
+            long bound = 1L + random.nextInt(400000);
+            MutableBitSet m1 = new MutableBitSet();
+            MutableBitSet m2 = new MutableBitSet();
+            int n1 = random.nextInt(20000);
+            int n2 = random.nextInt(20000);
+            for (int i = 0; i < n1; i++) {
+                m1.set((long) (random.nextDouble() * bound));
+            }
+            for (int i = 0; i < n2; i++) {
+                m2.set((long) (random.nextDouble() * bound));
+            }
+            long start = (long) (random.nextDouble() * bound);
+            m1.set(start, start + random.nextInt(200000));
+            CompressedBitSet c1 = new CompressedBitSet(m1);
+            CompressedBitSet c2 = new CompressedBitSet(m2);
+            if (random.nextBoolean()) {
+                c1.runOptimize();
+            }
+
+            assertEquals(m1.cardinality(), c1.cardinality());
+            assertEquals(MutableBitSet.andCount(m1, m2), CompressedBitSet.andCount(c1, c2));
+            assertEquals(MutableBitSet.orCount(m1, m2), CompressedBitSet.orCount(c1, c2));
+            assertEquals(MutableBitSet.xorCount(m1, m2), CompressedBitSet.xorCount(c1, c2));
+            assertEquals(MutableBitSet.andNotCount(m1, m2), CompressedBitSet.andNotCount(c1, c2));
+            assertEquals(MutableBitSet.andCount(m1, m2), CompressedBitSet.andCount(c1, m2));
+
+            assertEquals(MutableBitSet.and(m1, m2), CompressedBitSet.and(c1, c2).mutableCopy());
+            assertEquals(MutableBitSet.or(m1, m2), CompressedBitSet.or(c1, c2).mutableCopy());
+            assertEquals(MutableBitSet.xor(m1, m2), CompressedBitSet.xor(c1, c2).mutableCopy());
+            assertEquals(MutableBitSet.andNot(m1, m2), CompressedBitSet.andNot(c1, c2).mutableCopy());
+            assertEquals(MutableBitSet.or(m1, m2), m1.mutableCopy().or(c2));
+            assertEquals(new CompressedBitSet(MutableBitSet.or(m1, m2)), c1.compressedCopy().or(m2));
+            assertEquals(MutableBitSet.and(m1, m2).cardinality(), c1.compressedCopy().and(m2).cardinality());
+            assertEquals(MutableBitSet.and(m1, m2).intersects(m1), c1.intersects(c2));
+
+            for (long i = m1.nextSetBit(0L), j = c1.nextSetBit(0L); i >= 0L || j >= 0L; i = m1.nextSetBit(i + 1L), j = c1.nextSetBit(j + 1L)) {
+                assertEquals(i, j);
+            }
+            long last = m1.prevSetBit(m1.capacity());
+            assertEquals(last, c1.prevSetBit(LARGE));
+            for (long i = 0L; i < last; i += 997L) {
+                assertEquals(m1.nextClearBit(i), c1.nextClearBit(i));
+                assertEquals(m1.prevSetBit(i), c1.prevSetBit(i));
+            }
+        }
+    }
+
+    @Test
+    public void testRunOptimize() {
+        CompressedBitSet c = new CompressedBitSet();
+        c.set(0L, 200000L);
+        c.set(300000L, 300100L);
+        long before = c.sizeInBytes();
+        assertSame(c, c.runOptimize());
+        assertTrue(c.sizeInBytes() < before);
+        assertEquals(200100L, c.cardinality());
+        assertTrue(c.get(199999L));
+        assertFalse(c.get(200000L));
+        assertEquals(200000L, c.nextClearBit(0L));
+
+        c.clear(1000L);
+        c.set(250000L);
+        assertEquals(200100L, c.cardinality());
+        assertEquals(1000L, c.nextClearBit(0L));
+    }
+
+    @Test
+    public void testCopies() {
+        assertEquals(partial, partial.compressedCopy());
+        assertEquals(N / 2L, partial.immutableCopy().cardinality());
+        assertEquals(N / 2L, partial.mutableCopy().cardinality());
+        assertEquals(N / 2L, partial.unsafeCopy().cardinality());
+        assertEquals(partial, new CompressedBitSet(partial.mutableCopy()));
+        assertEquals(partial, new CompressedBitSet(partial.immutableCopy()));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testMutableCopyTooLarge() {
+        sparse.mutableCopy();
+    }
+
+    @Test
+    public void testSerializable() {
+        assertTrue(bitset instanceof Serializable);
+    }
+
+    @Test
+    public void testSerialize() throws Exception {
+        sparse.set(0L, 100000L);
+        sparse.runOptimize();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(sparse);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        Object dest = in.readObject();
+        in.close();
+
+        assertNotNull(dest);
+        assertEquals(sparse, (CompressedBitSet) dest);
+    }
+}
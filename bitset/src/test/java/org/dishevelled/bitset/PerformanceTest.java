@@ -23,6 +23,8 @@
 */
 package org.dishevelled.bitset;
 
+import java.util.Random;
+
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.dishevelled.functor.UnaryProcedure;
@@ -50,6 +52,32 @@ public final class PerformanceTest {
         System.out.println(name + "\t" + result + "\t" + elapsed + "\t" + (elapsed/N));
     }
 
+    /** Large bit set sizes, 1M, 64M, and 1B bits. */
+    private static final long[] LARGE = new long[] { 1L << 20, 1L << 26, 1L << 30 };
+
+    private static <T> void runLarge(final String name, final Op<? super AbstractBitSet, T> operation) {
+        Random random = new Random(42L);
+        for (long numBits : LARGE) {
+            // keep the total number of words roughly constant, at least two bit sets
+            int n = (int) Math.max(2L, (1L << 31) / numBits);
+            AbstractBitSet[] bitsets = new AbstractBitSet[n];
+            for (int i = 0; i < n; i++) {
+                long[] bits = new long[(int) (numBits >>> 6)];
+                for (int j = 0; j < bits.length; j++) {
+                    bits[j] = random.nextLong() & random.nextLong();
+                }
+                bitsets[i] = new UnsafeBitSet(bits, bits.length);
+            }
+            // warm up
+            operation.execute(bitsets);
+            long now = System.nanoTime();
+            T result = operation.execute(bitsets);
+            long end = System.nanoTime();
+            long elapsed = end - now;
+            System.out.println(name + " " + numBits + "\t" + result + "\t" + elapsed + "\t" + (elapsed/n));
+        }
+    }
+
     interface Factory<E> {
         E create();
     }
@@ -244,6 +272,96 @@ public final class PerformanceTest {
         }
     };
 
+    private static final class PairwiseAndCount implements Op<AbstractBitSet, Long> {
+        public Long execute(final AbstractBitSet[] bitsets) {
+            long result = 0L;
+            for (int i = 1; i < bitsets.length; i++) {
+                result += MutableBitSet.andCount((MutableBitSet) bitsets[i - 1], (MutableBitSet) bitsets[i]);
+            }
+            return result;
+        }
+    };
+
+    private static final class PairwiseOrCount implements Op<AbstractBitSet, Long> {
+        public Long execute(final AbstractBitSet[] bitsets) {
+            long result = 0L;
+            for (int i = 1; i < bitsets.length; i++) {
+                result += MutableBitSet.orCount((MutableBitSet) bitsets[i - 1], (MutableBitSet) bitsets[i]);
+            }
+            return result;
+        }
+    };
+
+    private static final class PairwiseXorCount implements Op<AbstractBitSet, Long> {
+        public Long execute(final AbstractBitSet[] bitsets) {
+            long result = 0L;
+            for (int i = 1; i < bitsets.length; i++) {
+                result += MutableBitSet.xorCount((MutableBitSet) bitsets[i - 1], (MutableBitSet) bitsets[i]);
+            }
+            return result;
+        }
+    };
+
+    private static final class PairwiseAndNotCount implements Op<AbstractBitSet, Long> {
+        public Long execute(final AbstractBitSet[] bitsets) {
+            long result = 0L;
+            for (int i = 1; i < bitsets.length; i++) {
+                result += MutableBitSet.andNotCount((MutableBitSet) bitsets[i - 1], (MutableBitSet) bitsets[i]);
+            }
+            return result;
+        }
+    };
+
+    private static final class PairwiseIntersects implements Op<AbstractBitSet, Long> {
+        public Long execute(final AbstractBitSet[] bitsets) {
+            long result = 0L;
+            for (int i = 1; i < bitsets.length; i++) {
+                result += bitsets[i - 1].intersects(bitsets[i]) ? 1L : 0L;
+            }
+            return result;
+        }
+    };
+
+    private static final class PairwiseAnd implements Op<AbstractBitSet, Long> {
+        public Long execute(final AbstractBitSet[] bitsets) {
+            long result = 0L;
+            for (int i = 1; i < bitsets.length; i++) {
+                result += ((MutableBitSet) bitsets[i - 1]).and(bitsets[i]).wlen();
+            }
+            return result;
+        }
+    };
+
+    private static final class PairwiseOr implements Op<AbstractBitSet, Long> {
+        public Long execute(final AbstractBitSet[] bitsets) {
+            long result = 0L;
+            for (int i = 1; i < bitsets.length; i++) {
+                result += ((MutableBitSet) bitsets[i - 1]).or(bitsets[i]).wlen();
+            }
+            return result;
+        }
+    };
+
+    private static final class PairwiseXor implements Op<AbstractBitSet, Long> {
+        public Long execute(final AbstractBitSet[] bitsets) {
+            long result = 0L;
+            for (int i = 1; i < bitsets.length; i++) {
+                result += ((MutableBitSet) bitsets[i - 1]).xor(bitsets[i]).wlen();
+            }
+            return result;
+        }
+    };
+
+    private static final class PairwiseAndNot implements Op<AbstractBitSet, Long> {
+        public Long execute(final AbstractBitSet[] bitsets) {
+            long result = 0L;
+            for (int i = 1; i < bitsets.length; i++) {
+                result += ((MutableBitSet) bitsets[i - 1]).andNot(bitsets[i]).wlen();
+            }
+            return result;
+        }
+    };
+
     @Test
     public void testSparseMutableCount() {
         run("sparse mutable count", SPARSE_MUTABLE, new Count());
@@ -486,4 +604,54 @@ public final class PerformanceTest {
     public void testDenseImmutableSumForEachSetBitCount() {
         run("dense immutable sum forEachSetBit count", DENSE_IMMUTABLE, new SumForEachSetBitCount());
     }
+
+    @Test
+    public void testLargeMutableCardinality() {
+        runLarge("large mutable cardinality", new Cardinality());
+    }
+
+    @Test
+    public void testLargeMutableAndCount() {
+        runLarge("large mutable andCount", new PairwiseAndCount());
+    }
+
+    @Test
+    public void testLargeMutableOrCount() {
+        runLarge("large mutable orCount", new PairwiseOrCount());
+    }
+
+    @Test
+    public void testLargeMutableXorCount() {
+        runLarge("large mutable xorCount", new PairwiseXorCount());
+    }
+
+    @Test
+    public void testLargeMutableAndNotCount() {
+        runLarge("large mutable andNotCount", new PairwiseAndNotCount());
+    }
+
+    @Test
+    public void testLargeMutableIntersects() {
+        runLarge("large mutable intersects", new PairwiseIntersects());
+    }
+
+    @Test
+    public void testLargeMutableAnd() {
+        runLarge("large mutable and", new PairwiseAnd());
+    }
+
+    @Test
+    public void testLargeMutableOr() {
+        runLarge("large mutable or", new PairwiseOr());
+    }
+
+    @Test
+    public void testLargeMutableXor() {
+        runLarge("large mutable xor", new PairwiseXor());
+    }
+
+    @Test
+    public void testLargeMutableAndNot() {
+        runLarge("large mutable andNot", new PairwiseAndNot());
+    }
 }
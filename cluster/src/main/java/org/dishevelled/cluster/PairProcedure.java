@@ -0,0 +1,42 @@
+/*
+
+    dsh-cluster  Framework for clustering algorithms.
+    Copyright (c) 2007-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.cluster;
+
+/**
+ * Procedure called for a pair of values by index and their similarity.
+ *
+ * @author  Michael Heuer
+ */
+public interface PairProcedure
+{
+
+    /**
+     * Run this procedure for the specified pair of values by index and their similarity.
+     *
+     * @param index1 index of the first value
+     * @param index2 index of the second value
+     * @param similarity similarity between the first and second values
+     */
+    void run(int index1, int index2, double similarity);
+}
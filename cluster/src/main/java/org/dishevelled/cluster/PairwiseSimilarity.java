@@ -0,0 +1,343 @@
+/*
+
+    dsh-cluster  Framework for clustering algorithms.
+    Copyright (c) 2007-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Blocked, parallel pairwise similarity engine.
+ *
+ * <p>Similarities are evaluated for every pair of values <code>(i, j)</code> with
+ * <code>j &lt; i</code>, in square tiles of <code>tileSize</code> rows and columns, so
+ * that the values in a tile stay in cache while they are compared.  Tiles are claimed
+ * by worker threads from a shared counter, each worker accumulating its results
+ * independently, for example into its own union find, before they are merged.</p>
+ *
+ * @param <E> value type
+ * @author  Michael Heuer
+ */
+public final class PairwiseSimilarity<E>
+{
+    /** Similarity. */
+    private final Similarity<E> similarity;
+
+    /** Number of threads. */
+    private final int threads;
+
+    /** Tile size. */
+    private final int tileSize;
+
+    /** Default tile size, <code>256</code>. */
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+
+    /**
+     * Create a new pairwise similarity engine with the specified similarity, using
+     * as many threads as there are available processors and the default tile size.
+     *
+     * @param similarity similarity, must not be null
+     */
+    public PairwiseSimilarity(final Similarity<E> similarity)
+    {
+        this(similarity, Runtime.getRuntime().availableProcessors(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Create a new pairwise similarity engine with the specified similarity, number
+     * of threads, and tile size.
+     *
+     * @param similarity similarity, must not be null
+     * @param threads number of threads, must be at least <code>1</code>
+     * @param tileSize tile size, must be at least <code>1</code>
+     */
+    public PairwiseSimilarity(final Similarity<E> similarity, final int threads, final int tileSize)
+    {
+        if (similarity == null)
+        {
+            throw new IllegalArgumentException("similarity must not be null");
+        }
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("threads must be at least one, was " + threads);
+        }
+        if (tileSize < 1)
+        {
+            throw new IllegalArgumentException("tileSize must be at least one, was " + tileSize);
+        }
+        this.similarity = similarity;
+        this.threads = threads;
+        this.tileSize = tileSize;
+    }
+
+
+    /**
+     * Evaluate the similarity of every pair of the specified values, calling the specified
+     * procedure for each pair with a similarity greater than or equal to <code>cutoff</code>.
+     * The procedure is called concurrently from worker threads and must be thread safe.
+     *
+     * @param values list of values, must not be null
+     * @param cutoff cutoff similarity score
+     * @param procedure procedure, must not be null
+     * @throws ClusteringAlgorithmException if an error occurs
+     */
+    public void forEachPair(final List<? extends E> values, final double cutoff, final PairProcedure procedure)
+        throws ClusteringAlgorithmException
+    {
+        if (values == null)
+        {
+            throw new IllegalArgumentException("values must not be null");
+        }
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        evaluate(values, new WorkerFactory()
+            {
+                /** {@inheritDoc} */
+                public PairProcedure createWorker()
+                {
+                    return new PairProcedure()
+                        {
+                            /** {@inheritDoc} */
+                            public void run(final int index1, final int index2, final double score)
+                            {
+                                if (score >= cutoff)
+                                {
+                                    procedure.run(index1, index2, score);
+                                }
+                            }
+                        };
+                }
+            });
+    }
+
+    /**
+     * Evaluate the similarity of every pair of the specified values and return a union find
+     * in which every pair with a similarity greater than or equal to <code>cutoff</code> has
+     * been merged.  The sets in the returned union find are the connected components of the
+     * graph of values with edges between such pairs.
+     *
+     * @param values list of values, must not be null
+     * @param cutoff cutoff similarity score
+     * @param observer procedure called for every pair evaluated regardless of cutoff, may be null;
+     *    called concurrently from worker threads and must be thread safe
+     * @return a union find in which every pair with a similarity greater than or equal to
+     *    <code>cutoff</code> has been merged
+     * @throws ClusteringAlgorithmException if an error occurs
+     */
+    public UnionFind union(final List<? extends E> values, final double cutoff, final PairProcedure observer)
+        throws ClusteringAlgorithmException
+    {
+        if (values == null)
+        {
+            throw new IllegalArgumentException("values must not be null");
+        }
+        final int size = values.size();
+        final List<UnionFind> unionFinds = new ArrayList<UnionFind>();
+        evaluate(values, new WorkerFactory()
+            {
+                /** {@inheritDoc} */
+                public PairProcedure createWorker()
+                {
+                    final UnionFind unionFind = new UnionFind(size);
+                    synchronized (unionFinds)
+                    {
+                        unionFinds.add(unionFind);
+                    }
+                    return new PairProcedure()
+                        {
+                            /** {@inheritDoc} */
+                            public void run(final int index1, final int index2, final double score)
+                            {
+                                if (observer != null)
+                                {
+                                    observer.run(index1, index2, score);
+                                }
+                                if (score >= cutoff)
+                                {
+                                    unionFind.union(index1, index2);
+                                }
+                            }
+                        };
+                }
+            });
+
+        if (unionFinds.isEmpty())
+        {
+            return new UnionFind(size);
+        }
+        UnionFind result = unionFinds.get(0);
+        for (int i = 1, workers = unionFinds.size(); i < workers; i++)
+        {
+            result.union(unionFinds.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate the similarity of every pair of the specified values in tiles, passing each
+     * pair and its similarity to a worker created by the specified factory.  Each worker is
+     * only ever called from a single thread.  The calling thread claims tiles alongside
+     * <code>threads - 1</code> pooled threads, and a failure in any of them stops the others
+     * from claiming further tiles.
+     *
+     * @param values list of values
+     * @param workerFactory worker factory
+     * @throws ClusteringAlgorithmException if an error occurs
+     */
+    private void evaluate(final List<? extends E> values, final WorkerFactory workerFactory)
+        throws ClusteringAlgorithmException
+    {
+        final List<E> copy = new ArrayList<E>(values);
+        final int size = copy.size();
+        final int blocks = (size + tileSize - 1) / tileSize;
+        final long tiles = ((long) blocks * (blocks + 1L)) / 2L;
+        final AtomicLong next = new AtomicLong();
+        int workers = (int) Math.min((long) threads, tiles);
+        if (workers <= 1)
+        {
+            evaluateTiles(copy, tiles, next, workerFactory.createWorker());
+            return;
+        }
+        Runnable claimTiles = new Runnable()
+            {
+                /** {@inheritDoc} */
+                public void run()
+                {
+                    try
+                    {
+                        evaluateTiles(copy, tiles, next, workerFactory.createWorker());
+                    }
+                    catch (RuntimeException e)
+                    {
+                        next.set(tiles);
+                        throw e;
+                    }
+                    catch (Error e)
+                    {
+                        next.set(tiles);
+                        throw e;
+                    }
+                }
+            };
+        ExecutorService executorService = Executors.newFixedThreadPool(workers - 1);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<Future<?>>(workers - 1);
+            for (int w = 1; w < workers; w++)
+            {
+                futures.add(executorService.submit(claimTiles));
+            }
+            claimTiles.run();
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            next.set(tiles);
+            Thread.currentThread().interrupt();
+            throw new ClusteringAlgorithmException("interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ClusteringAlgorithmException(e.getCause());
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Claim and evaluate tiles until none remain.
+     *
+     * @param values values
+     * @param tiles number of tiles in the lower triangle
+     * @param next next tile counter
+     * @param worker worker
+     */
+    private void evaluateTiles(final List<E> values,
+                               final long tiles,
+                               final AtomicLong next,
+                               final PairProcedure worker)
+    {
+        int size = values.size();
+        long tile;
+        while ((tile = next.getAndIncrement()) < tiles)
+        {
+            // tiles are numbered row by row over the lower triangle of blocks
+            int rowBlock = (int) ((Math.sqrt(8.0d * tile + 1.0d) - 1.0d) / 2.0d);
+            while (((long) rowBlock * (rowBlock + 1L)) / 2L > tile)
+            {
+                rowBlock--;
+            }
+            while (((long) (rowBlock + 1) * (rowBlock + 2L)) / 2L <= tile)
+            {
+                rowBlock++;
+            }
+            int columnBlock = (int) (tile - ((long) rowBlock * (rowBlock + 1L)) / 2L);
+            int rowStart = rowBlock * tileSize;
+            int rowEnd = Math.min(size, rowStart + tileSize);
+            int columnStart = columnBlock * tileSize;
+            int columnEnd = Math.min(size, columnStart + tileSize);
+            for (int i = rowStart; i < rowEnd; i++)
+            {
+                E value1 = values.get(i);
+                int end = (rowBlock == columnBlock) ? i : columnEnd;
+                for (int j = columnStart; j < end; j++)
+                {
+                    worker.run(i, j, similarity.similarity(value1, values.get(j)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Factory for per-thread workers.
+     */
+    private interface WorkerFactory
+    {
+
+        /**
+         * Create and return a new worker.
+         *
+         * @return a new worker
+         */
+        PairProcedure createWorker();
+    }
+}
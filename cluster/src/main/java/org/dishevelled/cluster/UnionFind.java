@@ -0,0 +1,190 @@
+/*
+
+    dsh-cluster  Framework for clustering algorithms.
+    Copyright (c) 2007-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.cluster;
+
+/**
+ * Disjoint set forest over the integers <code>[0, size)</code>, with union by size
+ * and path halving.
+ *
+ * <p>This class is not thread safe.</p>
+ *
+ * @author  Michael Heuer
+ */
+public final class UnionFind
+{
+    /** Parent of each element. */
+    private final int[] parents;
+
+    /** Size of the set rooted at each element. */
+    private final int[] sizes;
+
+    /** Number of disjoint sets. */
+    private int count;
+
+
+    /**
+     * Create a new union find with the specified number of elements, each in its own set.
+     *
+     * @param size number of elements, must be at least zero
+     */
+    public UnionFind(final int size)
+    {
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("size must be at least zero, was " + size);
+        }
+        parents = new int[size];
+        sizes = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+        count = size;
+    }
+
+
+    /**
+     * Return the number of elements in this union find.
+     *
+     * @return the number of elements in this union find
+     */
+    public int size()
+    {
+        return parents.length;
+    }
+
+    /**
+     * Return the number of disjoint sets in this union find.
+     *
+     * @return the number of disjoint sets in this union find
+     */
+    public int count()
+    {
+        return count;
+    }
+
+    /**
+     * Return the representative element of the set containing the specified element.
+     *
+     * @param element element
+     * @return the representative element of the set containing the specified element
+     * @throws IndexOutOfBoundsException if <code>element</code> is out of bounds
+     */
+    public int find(final int element)
+    {
+        checkElement(element);
+        int i = element;
+        while (parents[i] != i)
+        {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    /**
+     * Merge the sets containing the specified elements.
+     *
+     * @param element1 first element
+     * @param element2 second element
+     * @return true if the sets were merged, false if the elements were already in the same set
+     * @throws IndexOutOfBoundsException if either element is out of bounds
+     */
+    public boolean union(final int element1, final int element2)
+    {
+        int root1 = find(element1);
+        int root2 = find(element2);
+        if (root1 == root2)
+        {
+            return false;
+        }
+        if (sizes[root1] < sizes[root2])
+        {
+            int tmp = root1;
+            root1 = root2;
+            root2 = tmp;
+        }
+        parents[root2] = root1;
+        sizes[root1] += sizes[root2];
+        count--;
+        return true;
+    }
+
+    /**
+     * Return true if the specified elements are in the same set.
+     *
+     * @param element1 first element
+     * @param element2 second element
+     * @return true if the specified elements are in the same set
+     * @throws IndexOutOfBoundsException if either element is out of bounds
+     */
+    public boolean connected(final int element1, final int element2)
+    {
+        return find(element1) == find(element2);
+    }
+
+    /**
+     * Merge all the sets in the specified union find into this union find.
+     *
+     * @param unionFind union find to merge, must not be null and must be the same size as this union find
+     */
+    public void union(final UnionFind unionFind)
+    {
+        if (unionFind == null)
+        {
+            throw new IllegalArgumentException("unionFind must not be null");
+        }
+        if (unionFind.size() != size())
+        {
+            throw new IllegalArgumentException("unionFind must be the same size as this union find");
+        }
+        for (int i = 0, size = size(); i < size; i++)
+        {
+            int parent = unionFind.parents[i];
+            if (parent != i)
+            {
+                union(i, parent);
+            }
+        }
+    }
+
+    /**
+     * Check the specified element.
+     *
+     * @param element element to check
+     * @throws IndexOutOfBoundsException if <code>element</code> is out of bounds
+     */
+    private void checkElement(final int element)
+    {
+        if (element < 0)
+        {
+            throw new IndexOutOfBoundsException(element + " < 0");
+        }
+        if (element >= parents.length)
+        {
+            throw new IndexOutOfBoundsException(element + " >= " + parents.length);
+        }
+    }
+}
@@ -31,19 +31,21 @@ import java.util.Set;
 
 import org.dishevelled.cluster.AbstractClusteringAlgorithm;
 import org.dishevelled.cluster.Cluster;
+import org.dishevelled.cluster.ClusteringAlgorithmException;
+import org.dishevelled.cluster.ClusteringAlgorithmListener;
 import org.dishevelled.cluster.ExitStrategy;
+import org.dishevelled.cluster.PairProcedure;
+import org.dishevelled.cluster.PairwiseSimilarity;
 import org.dishevelled.cluster.Similarity;
-
-import org.dishevelled.functor.UnaryProcedure;
-
-import org.dishevelled.graph.Graph;
-import org.dishevelled.graph.Node;
-
-import org.dishevelled.graph.impl.GraphUtils;
+import org.dishevelled.cluster.UnionFind;
 
 /**
  * Connected components clustering algorithm.
  *
+ * <p>Pairwise similarities are evaluated in parallel by {@link PairwiseSimilarity}
+ * and pairs with a similarity score greater than or equal to the cutoff are merged
+ * into a {@link UnionFind}, without building a graph.</p>
+ *
  * @param <E> value type
  * @author  Michael Heuer
  * @version $Revision$ $Date$
@@ -54,6 +56,9 @@ public final class ConnectedComponents<E>
     /** Cutoff similarity score. */
     private final double cutoff;
 
+    /** Number of threads. */
+    private final int threads;
+
     /** Default cutoff similarity score, <code>0.5d</code>. */
     public static final double DEFAULT_CUTOFF = 0.5d;
 
@@ -78,7 +83,26 @@ public final class ConnectedComponents<E>
      */
     public ConnectedComponents(final double cutoff)
     {
+        this(cutoff, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new connected components clustering algorithm with the
+     * specified cutoff similarity score and number of threads.  Values with a similarity
+     * score greater than or equal to this cutoff will be clustered together.
+     *
+     * @param cutoff cutoff similarity score
+     * @param threads number of threads used to evaluate pairwise similarities,
+     *    must be at least <code>1</code>
+     */
+    public ConnectedComponents(final double cutoff, final int threads)
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("threads must be at least one, was " + threads);
+        }
         this.cutoff = cutoff;
+        this.threads = threads;
     }
 
 
@@ -86,6 +110,7 @@ public final class ConnectedComponents<E>
     public Set<Cluster<E>> cluster(final List<? extends E> values,
                                    final Similarity<E> similarity,
                                    final ExitStrategy<E> exitStrategy)
+        throws ClusteringAlgorithmException
     {
         checkClusterParameters(values, similarity, exitStrategy);
 
@@ -97,86 +122,49 @@ public final class ConnectedComponents<E>
             return Collections.singleton(cluster);
         }
 
-        // initialize graph and node list
-        Graph<E, Double> graph = GraphUtils.createGraph(size, size * size);
-        List<Node<E, Double>> nodes = new ArrayList<Node<E, Double>>(size);
-        for (E value : values)
+        // fire similarity calculated events only if anyone is listening
+        PairProcedure observer = null;
+        if (getEventListenerList().getListenerCount(ClusteringAlgorithmListener.class) > 0)
         {
-            nodes.add(graph.createNode(value));
+            observer = new PairProcedure()
+                {
+                    /** {@inheritDoc} */
+                    public void run(final int index1, final int index2, final double score)
+                    {
+                        synchronized (ConnectedComponents.this)
+                        {
+                            fireSimilarityCalculated(values.get(index1), values.get(index2), score);
+                        }
+                    }
+                };
         }
+        PairwiseSimilarity<E> pairwiseSimilarity = new PairwiseSimilarity<E>(similarity, threads,
+                                                                             PairwiseSimilarity.DEFAULT_TILE_SIZE);
+        UnionFind unionFind = pairwiseSimilarity.union(values, cutoff, observer);
 
-        // add an edge where the similarity score is greater than or equal to the cutoff
+        // group values by component in a single pass
+        int[] slots = new int[size];
+        List<List<E>> components = new ArrayList<List<E>>(unionFind.count());
         for (int i = 0; i < size; i++)
         {
-            for (int j = 0; j < i; j++)
+            int root = unionFind.find(i);
+            if (root == i)
             {
-                Node<E, Double> source = nodes.get(i);
-                Node<E, Double> target = nodes.get(j);
-                double score = similarity.similarity(source.getValue(), target.getValue());
-                fireSimilarityCalculated(source.getValue(), target.getValue(), score);
-                if (score >= cutoff)
-                {
-                    graph.createEdge(source, target, score);
-                }
+                slots[i] = components.size();
+                components.add(new ArrayList<E>());
             }
         }
-
-        // find all connected components
-        List<Node<E, Double>> remain = new ArrayList<Node<E, Double>>(nodes);
-        Set<Cluster<E>> clusters = new HashSet<Cluster<E>>();
-        while (!remain.isEmpty())
-        {
-            Collect<E, Double> collect = new Collect<E, Double>(remain);
-            GraphUtils.undirectedBreadthFirstSearch(graph, remain.get(0), collect);
-            clusters.add(collect.getCluster());
-        }
-
-        fireExitSucceeded();
-        return clusters;
-    }
-
-    /**
-     * Collect procedure.
-     *
-     * @param <N> node value type
-     * @param <E> edge value type
-     */
-    private static class Collect<N, E> implements UnaryProcedure<Node<N, E>>
-    {
-        /** List of remaining nodes. */
-        private final List<Node<N, E>> remain;
-
-        /** List of cluster members. */
-        private final List<N> members;
-
-
-        /**
-         * Create a new collect procedure.
-         *
-         * @param remain list of remaining nodes
-         */
-        Collect(final List<Node<N, E>> remain)
+        for (int i = 0; i < size; i++)
         {
-            this.remain = remain;
-            members = new ArrayList<N>(remain.size());
+            components.get(slots[unionFind.find(i)]).add(values.get(i));
         }
-
-
-        /** {@inheritDoc} */
-        public void run(final Node<N, E> node)
+        Set<Cluster<E>> clusters = new HashSet<Cluster<E>>(components.size());
+        for (List<E> members : components)
         {
-            remain.remove(node);
-            members.add(node.getValue());
+            clusters.add(new ClusterImpl<E>(members));
         }
 
-        /**
-         * Return the cluster of values this procedure collected.
-         *
-         * @return the cluster of values this procedure collected
-         */
-        Cluster<N> getCluster()
-        {
-            return new ClusterImpl<N>(members);
-        }
+        fireExitSucceeded();
+        return clusters;
     }
-}
\ No newline at end of file
+}
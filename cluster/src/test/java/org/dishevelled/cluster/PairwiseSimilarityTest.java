@@ -0,0 +1,207 @@
+/*
+
+    dsh-cluster  Framework for clustering algorithms.
+    Copyright (c) 2007-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for PairwiseSimilarity.
+ *
+ * @author  Michael Heuer
+ */
+public final class PairwiseSimilarityTest
+    extends TestCase
+{
+    /** Similarity of one if integers are equal modulo seven, zero otherwise. */
+    private static final Similarity<Integer> MODULO_SEVEN = new Similarity<Integer>()
+        {
+            /** {@inheritDoc} */
+            public double similarity(final Integer value1, final Integer value2)
+            {
+                return (value1.intValue() % 7 == value2.intValue() % 7) ? 1.0d : 0.0d;
+            }
+        };
+
+
+    /**
+     * Create and return a list of integers <code>[0, size)</code>.
+     *
+     * @param size size
+     * @return a list of integers <code>[0, size)</code>
+     */
+    private static List<Integer> createValues(final int size)
+    {
+        List<Integer> values = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++)
+        {
+            values.add(Integer.valueOf(i));
+        }
+        return values;
+    }
+
+    public void testConstructor()
+    {
+        assertNotNull(new PairwiseSimilarity<Integer>(MODULO_SEVEN));
+        assertNotNull(new PairwiseSimilarity<Integer>(MODULO_SEVEN, 4, 16));
+
+        try
+        {
+            new PairwiseSimilarity<Integer>(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new PairwiseSimilarity<Integer>(MODULO_SEVEN, 0, 16);
+            fail("ctr(, 0, ) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new PairwiseSimilarity<Integer>(MODULO_SEVEN, 4, 0);
+            fail("ctr(, , 0) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testForEachPair() throws ClusteringAlgorithmException
+    {
+        for (int threads : new int[] { 1, 4 })
+        {
+            for (int tileSize : new int[] { 1, 3, 16, 1000 })
+            {
+                final int size = 100;
+                final AtomicInteger pairs = new AtomicInteger();
+                final boolean[] seen = new boolean[size * size];
+                new PairwiseSimilarity<Integer>(MODULO_SEVEN, threads, tileSize).forEachPair(createValues(size),
+                    Double.NEGATIVE_INFINITY, new PairProcedure()
+                    {
+                        /** {@inheritDoc} */
+                        public void run(final int index1, final int index2, final double similarity)
+                        {
+                            assertTrue(index2 < index1);
+                            synchronized (seen)
+                            {
+                                assertFalse(seen[index1 * size + index2]);
+                                seen[index1 * size + index2] = true;
+                            }
+                            pairs.incrementAndGet();
+                        }
+                    });
+                assertEquals((size * (size - 1)) / 2, pairs.get());
+            }
+        }
+    }
+
+    public void testForEachPairCutoff() throws ClusteringAlgorithmException
+    {
+        final AtomicInteger pairs = new AtomicInteger();
+        new PairwiseSimilarity<Integer>(MODULO_SEVEN, 4, 8).forEachPair(createValues(70), 0.5d, new PairProcedure()
+            {
+                /** {@inheritDoc} */
+                public void run(final int index1, final int index2, final double similarity)
+                {
+                    assertEquals(index1 % 7, index2 % 7);
+                    pairs.incrementAndGet();
+                }
+            });
+        // seven classes of ten values each
+        assertEquals(7 * 45, pairs.get());
+    }
+
+    public void testForEachPairFailure() throws ClusteringAlgorithmException
+    {
+        final AtomicInteger calls = new AtomicInteger();
+        Similarity<Integer> failing = new Similarity<Integer>()
+            {
+                /** {@inheritDoc} */
+                public double similarity(final Integer value1, final Integer value2)
+                {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("expected");
+                }
+            };
+        try
+        {
+            new PairwiseSimilarity<Integer>(failing, 4, 1).forEachPair(createValues(100), 0.5d, new PairProcedure()
+                {
+                    /** {@inheritDoc} */
+                    public void run(final int index1, final int index2, final double similarity)
+                    {
+                        // empty
+                    }
+                });
+            fail("forEachPair expected IllegalStateException");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+        // each worker stops at its first failure
+        assertTrue(calls.get() <= 4);
+    }
+
+    public void testUnion() throws ClusteringAlgorithmException
+    {
+        for (int threads : new int[] { 1, 4 })
+        {
+            UnionFind unionFind = new PairwiseSimilarity<Integer>(MODULO_SEVEN, threads, 5).union(createValues(100),
+                                                                                                 0.5d, null);
+            assertEquals(7, unionFind.count());
+            for (int i = 7; i < 100; i++)
+            {
+                assertTrue(unionFind.connected(i, i % 7));
+            }
+        }
+        assertEquals(0, new PairwiseSimilarity<Integer>(MODULO_SEVEN).union(createValues(0), 0.5d, null).count());
+    }
+
+    public void testUnionObserver() throws ClusteringAlgorithmException
+    {
+        final AtomicInteger pairs = new AtomicInteger();
+        new PairwiseSimilarity<Integer>(MODULO_SEVEN, 4, 5).union(createValues(50), 0.5d, new PairProcedure()
+            {
+                /** {@inheritDoc} */
+                public void run(final int index1, final int index2, final double similarity)
+                {
+                    pairs.incrementAndGet();
+                }
+            });
+        assertEquals((50 * 49) / 2, pairs.get());
+    }
+}
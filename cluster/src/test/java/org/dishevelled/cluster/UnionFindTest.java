@@ -0,0 +1,130 @@
+/*
+
+    dsh-cluster  Framework for clustering algorithms.
+    Copyright (c) 2007-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.cluster;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for UnionFind.
+ *
+ * @author  Michael Heuer
+ */
+public final class UnionFindTest
+    extends TestCase
+{
+
+    public void testConstructor()
+    {
+        UnionFind unionFind = new UnionFind(0);
+        assertEquals(0, unionFind.size());
+        assertEquals(0, unionFind.count());
+
+        unionFind = new UnionFind(10);
+        assertEquals(10, unionFind.size());
+        assertEquals(10, unionFind.count());
+        for (int i = 0; i < 10; i++)
+        {
+            assertEquals(i, unionFind.find(i));
+        }
+
+        try
+        {
+            new UnionFind(-1);
+            fail("ctr(-1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testUnion()
+    {
+        UnionFind unionFind = new UnionFind(10);
+        assertTrue(unionFind.union(0, 1));
+        assertTrue(unionFind.union(2, 3));
+        assertTrue(unionFind.union(1, 3));
+        assertFalse(unionFind.union(0, 2));
+        assertEquals(7, unionFind.count());
+        assertTrue(unionFind.connected(0, 3));
+        assertFalse(unionFind.connected(0, 4));
+        assertEquals(unionFind.find(0), unionFind.find(2));
+    }
+
+    public void testUnionFind()
+    {
+        UnionFind unionFind = new UnionFind(6);
+        unionFind.union(0, 1);
+        UnionFind other = new UnionFind(6);
+        other.union(1, 2);
+        other.union(4, 5);
+        unionFind.union(other);
+        assertEquals(3, unionFind.count());
+        assertTrue(unionFind.connected(0, 2));
+        assertTrue(unionFind.connected(4, 5));
+        assertFalse(unionFind.connected(3, 4));
+
+        try
+        {
+            unionFind.union(null);
+            fail("union(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            unionFind.union(new UnionFind(5));
+            fail("union(different size) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testIndexOutOfBounds()
+    {
+        UnionFind unionFind = new UnionFind(2);
+        try
+        {
+            unionFind.find(-1);
+            fail("find(-1) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        try
+        {
+            unionFind.union(0, 2);
+            fail("union(0, 2) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+}
@@ -23,12 +23,17 @@
 */
 package org.dishevelled.cluster.impl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.dishevelled.cluster.AbstractClusteringAlgorithmTest;
 import org.dishevelled.cluster.ClusteringAlgorithm;
+import org.dishevelled.cluster.ClusteringAlgorithmAdapter;
+import org.dishevelled.cluster.ClusteringAlgorithmEvent;
 import org.dishevelled.cluster.ClusteringAlgorithmException;
 import org.dishevelled.cluster.Cluster;
 import org.dishevelled.cluster.ExitStrategy;
@@ -191,4 +196,44 @@ public final class ConnectedComponentsTest
         assertEquals(3, clusters.size());
     }
 
+    public void testManyValuesParallel()
+        throws ClusteringAlgorithmException
+    {
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 2000; i++)
+        {
+            values.add(Integer.valueOf(i));
+        }
+        Similarity<Integer> similarity = new Similarity<Integer>()
+            {
+                /** {@inheritDoc} */
+                public double similarity(final Integer value1, final Integer value2)
+                {
+                    return (value1.intValue() % 13 == value2.intValue() % 13) ? 1.0d : 0.0d;
+                }
+            };
+        ExitStrategy<Integer> exitStrategy = new IterationLimitExitStrategy<Integer>(99);
+        final AtomicInteger events = new AtomicInteger();
+        ClusteringAlgorithm<Integer> algo = new ConnectedComponents<Integer>(0.5d, 4);
+        algo.addClusteringAlgorithmListener(new ClusteringAlgorithmAdapter<Integer>()
+            {
+                /** {@inheritDoc} */
+                public void similarityCalculated(final ClusteringAlgorithmEvent<Integer> event)
+                {
+                    events.incrementAndGet();
+                }
+            });
+
+        Set<Cluster<Integer>> clusters = algo.cluster(values, similarity, exitStrategy);
+        assertEquals(13, clusters.size());
+        for (Cluster<Integer> cluster : clusters)
+        {
+            int remainder = cluster.members().get(0).intValue() % 13;
+            for (Integer member : cluster)
+            {
+                assertEquals(remainder, member.intValue() % 13);
+            }
+        }
+        assertEquals((2000 * 1999) / 2, events.get());
+    }
 }
\ No newline at end of file
@@ -52,6 +52,12 @@ public final class CachingColorFactory
         final int a = Math.min(255, Math.round(alpha * 255));
         final int key = (a & 0xFF) << 24 | (red & 0xFF) << 16 | (green & 0xFF) << 8  | (blue & 0xFF) << 0;
 
+        // avoid allocating a loader on cache hits
+        Color color = colors.getIfPresent(key);
+        if (color != null)
+        {
+            return color;
+        }
         try
         {
             return colors.get(key, new Callable<Color>()
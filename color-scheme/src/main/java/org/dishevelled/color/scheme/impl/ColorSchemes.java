@@ -262,6 +262,33 @@ public final class ColorSchemes
         return colorScheme;
     }
 
+    /**
+     * Create and return a lookup table color scheme wrapping the specified color scheme, with
+     * the default lookup table size.
+     *
+     * @since 3.2
+     * @param colorScheme color scheme to wrap, must not be null
+     * @return a lookup table color scheme wrapping the specified color scheme
+     */
+    public static LookupTableColorScheme getLookupTableColorScheme(final ColorScheme colorScheme)
+    {
+        return new LookupTableColorScheme(colorScheme);
+    }
+
+    /**
+     * Create and return a lookup table color scheme wrapping the specified color scheme, with
+     * the specified lookup table size.
+     *
+     * @since 3.2
+     * @param colorScheme color scheme to wrap, must not be null
+     * @param size lookup table size, must be at least <code>2</code>
+     * @return a lookup table color scheme wrapping the specified color scheme
+     */
+    public static LookupTableColorScheme getLookupTableColorScheme(final ColorScheme colorScheme, final int size)
+    {
+        return new LookupTableColorScheme(colorScheme, size);
+    }
+
     /**
      * Color scheme handler.
      */
@@ -0,0 +1,286 @@
+/*
+
+    dsh-color-scheme  Color schemes.
+    Copyright (c) 2009-2019 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.color.scheme.impl;
+
+import java.awt.Color;
+
+import org.dishevelled.color.scheme.ColorFactory;
+import org.dishevelled.color.scheme.ColorScheme;
+
+/**
+ * Lookup table color scheme.
+ *
+ * <p>Colors for a fixed number of evenly spaced values in the range of a wrapped color scheme,
+ * from its minimum value to its maximum value inclusive, are computed once on construction.
+ * Values are quantized to the nearest of these, and values out of range to the minimum
+ * or maximum value, so that looking up a color allocates nothing.  Colors are also available
+ * as packed integer ARGB values, individually or in bulk for rasterizing.</p>
+ *
+ * @since 3.2
+ * @author  Michael Heuer
+ */
+public final class LookupTableColorScheme
+    implements ColorScheme
+{
+    /** Wrapped color scheme. */
+    private final ColorScheme colorScheme;
+
+    /** Minimum value. */
+    private final double minimumValue;
+
+    /** Maximum value. */
+    private final double maximumValue;
+
+    /** Scale from values to lookup table indices. */
+    private final double scale;
+
+    /** Lookup table of colors. */
+    private final Color[] colors;
+
+    /** Lookup table of packed integer ARGB values. */
+    private final int[] argb;
+
+    /** Color for <code>NaN</code> values. */
+    private final Color nanColor;
+
+    /** Packed integer ARGB value for <code>NaN</code> values. */
+    private final int nanArgb;
+
+    /** Default lookup table size, <code>1024</code>. */
+    public static final int DEFAULT_SIZE = 1024;
+
+
+    /**
+     * Create a new lookup table color scheme wrapping the specified color scheme with
+     * the default lookup table size.
+     *
+     * @param colorScheme color scheme to wrap, must not be null
+     */
+    public LookupTableColorScheme(final ColorScheme colorScheme)
+    {
+        this(colorScheme, DEFAULT_SIZE);
+    }
+
+    /**
+     * Create a new lookup table color scheme wrapping the specified color scheme with
+     * the specified lookup table size.
+     *
+     * @param colorScheme color scheme to wrap, must not be null
+     * @param size lookup table size, must be at least <code>2</code>
+     */
+    public LookupTableColorScheme(final ColorScheme colorScheme, final int size)
+    {
+        if (colorScheme == null)
+        {
+            throw new IllegalArgumentException("colorScheme must not be null");
+        }
+        if (size < 2)
+        {
+            throw new IllegalArgumentException("size must be at least 2, was " + size);
+        }
+        this.colorScheme = colorScheme;
+        minimumValue = colorScheme.getMinimumValue();
+        maximumValue = colorScheme.getMaximumValue();
+        double range = maximumValue - minimumValue;
+        scale = (range == 0.0d) ? 0.0d : (size - 1) / range;
+
+        colors = new Color[size];
+        argb = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            double value = (i == size - 1) ? maximumValue : minimumValue + i * (range / (size - 1));
+            colors[i] = colorScheme.getColor(value);
+            argb[i] = colors[i].getRGB();
+        }
+        nanColor = colorScheme.getColor(Double.NaN);
+        nanArgb = nanColor.getRGB();
+    }
+
+
+    /**
+     * Return the color scheme wrapped by this lookup table color scheme.
+     *
+     * @return the color scheme wrapped by this lookup table color scheme
+     */
+    public ColorScheme getColorScheme()
+    {
+        return colorScheme;
+    }
+
+    /**
+     * Return the lookup table size for this lookup table color scheme.
+     *
+     * @return the lookup table size for this lookup table color scheme
+     */
+    public int size()
+    {
+        return colors.length;
+    }
+
+    @Override
+    public double getMinimumValue()
+    {
+        return minimumValue;
+    }
+
+    @Override
+    public void setMinimumValue(final double minimumValue)
+    {
+        throw new UnsupportedOperationException("setMinimumValue operation not supported by this color scheme");
+    }
+
+    @Override
+    public double getMaximumValue()
+    {
+        return maximumValue;
+    }
+
+    @Override
+    public void setMaximumValue(final double maximumValue)
+    {
+        throw new UnsupportedOperationException("setMaximumValue operation not supported by this color scheme");
+    }
+
+    @Override
+    public double getZeroValue()
+    {
+        return colorScheme.getZeroValue();
+    }
+
+    @Override
+    public void setZeroValue(final double zeroValue)
+    {
+        throw new UnsupportedOperationException("setZeroValue operation not supported by this color scheme");
+    }
+
+    @Override
+    public ColorFactory getColorFactory()
+    {
+        return colorScheme.getColorFactory();
+    }
+
+    @Override
+    public void setColorFactory(final ColorFactory colorFactory)
+    {
+        throw new UnsupportedOperationException("setColorFactory operation not supported by this color scheme");
+    }
+
+    /**
+     * Return the lookup table index for the specified value, which must not be <code>NaN</code>.
+     *
+     * @param value value
+     * @return the lookup table index for the specified value
+     */
+    private int index(final double value)
+    {
+        double scaled = (value - minimumValue) * scale + 0.5d;
+        if (scaled <= 0.0d)
+        {
+            return 0;
+        }
+        int last = colors.length - 1;
+        return (scaled >= last) ? last : (int) scaled;
+    }
+
+    @Override
+    public Color getColor(final double value)
+    {
+        return Double.isNaN(value) ? nanColor : colors[index(value)];
+    }
+
+    /**
+     * Return a color appropriate for the specified value as a packed integer ARGB value,
+     * in the default sRGB color space as returned by <code>Color.getRGB()</code>.
+     *
+     * @param value value
+     * @return a color appropriate for the specified value as a packed integer ARGB value
+     */
+    public int getArgb(final double value)
+    {
+        return Double.isNaN(value) ? nanArgb : argb[index(value)];
+    }
+
+    /**
+     * Fill the specified array with colors appropriate for the specified values as packed
+     * integer ARGB values, in the default sRGB color space as returned by <code>Color.getRGB()</code>.
+     *
+     * @param values values, must not be null
+     * @param argbOut array to fill with packed integer ARGB values, must not be null
+     * @throws IndexOutOfBoundsException if <code>argbOut</code> is shorter than <code>values</code>
+     */
+    public void getColors(final double[] values, final int[] argbOut)
+    {
+        if (values == null)
+        {
+            throw new IllegalArgumentException("values must not be null");
+        }
+        getColors(values, 0, argbOut, 0, values.length);
+    }
+
+    /**
+     * Fill the specified range of the specified array with colors appropriate for the specified
+     * range of values as packed integer ARGB values, in the default sRGB color space as returned
+     * by <code>Color.getRGB()</code>.
+     *
+     * @param values values, must not be null
+     * @param valuesOffset offset into <code>values</code>
+     * @param argbOut array to fill with packed integer ARGB values, must not be null
+     * @param argbOffset offset into <code>argbOut</code>
+     * @param length number of values
+     * @throws IndexOutOfBoundsException if either range is out of bounds
+     */
+    public void getColors(final double[] values, final int valuesOffset, final int[] argbOut, final int argbOffset, final int length)
+    {
+        if (values == null)
+        {
+            throw new IllegalArgumentException("values must not be null");
+        }
+        if (argbOut == null)
+        {
+            throw new IllegalArgumentException("argbOut must not be null");
+        }
+        if (length < 0 || valuesOffset < 0 || argbOffset < 0
+            || valuesOffset > values.length - length || argbOffset > argbOut.length - length)
+        {
+            throw new IndexOutOfBoundsException("values offset " + valuesOffset + ", argbOut offset " + argbOffset
+                                                + ", or length " + length + " out of bounds");
+        }
+        int last = argb.length - 1;
+        for (int i = 0; i < length; i++)
+        {
+            double value = values[valuesOffset + i];
+            int color;
+            if (value != value)
+            {
+                color = nanArgb;
+            }
+            else
+            {
+                double scaled = (value - minimumValue) * scale + 0.5d;
+                color = argb[(scaled <= 0.0d) ? 0 : ((scaled >= last) ? last : (int) scaled)];
+            }
+            argbOut[argbOffset + i] = color;
+        }
+    }
+}
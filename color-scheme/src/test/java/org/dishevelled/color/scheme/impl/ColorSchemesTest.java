@@ -129,4 +129,17 @@ public class ColorSchemesTest extends TestCase
         ColorScheme continuousWhBl2 = ColorSchemes.getContinuousColorScheme("wh-bl", 2, 0.5f);
         assertNotNull(continuousWhBl2);
     }
+
+    public void testGetLookupTableColorScheme()
+    {
+        ColorScheme continuousWhBl2 = ColorSchemes.getContinuousColorScheme("wh-bl", 2);
+        LookupTableColorScheme lookupTable = ColorSchemes.getLookupTableColorScheme(continuousWhBl2);
+        assertNotNull(lookupTable);
+        assertEquals(LookupTableColorScheme.DEFAULT_SIZE, lookupTable.size());
+        assertEquals(continuousWhBl2.getColor(0.5d), lookupTable.getColor(0.5d));
+
+        LookupTableColorScheme lookupTable256 = ColorSchemes.getLookupTableColorScheme(continuousWhBl2, 256);
+        assertNotNull(lookupTable256);
+        assertEquals(256, lookupTable256.size());
+    }
 }
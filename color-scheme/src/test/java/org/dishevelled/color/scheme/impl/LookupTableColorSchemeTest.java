@@ -0,0 +1,218 @@
+/*
+
+    dsh-color-scheme  Color schemes.
+    Copyright (c) 2009-2019 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.color.scheme.impl;
+
+import java.awt.Color;
+
+import junit.framework.TestCase;
+
+import com.google.common.collect.ImmutableList;
+
+import org.dishevelled.color.scheme.ColorScheme;
+import org.dishevelled.color.scheme.factory.DefaultColorFactory;
+
+/**
+ * Unit test for LookupTableColorScheme.
+ *
+ * @author  Michael Heuer
+ */
+public final class LookupTableColorSchemeTest
+    extends TestCase
+{
+    private ColorScheme continuous;
+    private LookupTableColorScheme lookupTable;
+
+    @Override
+    protected void setUp()
+    {
+        continuous = new ContinuousColorScheme("name", ImmutableList.of(Color.BLACK, Color.RED, Color.WHITE), 0.0d, 1.0d, new DefaultColorFactory());
+        lookupTable = new LookupTableColorScheme(continuous, 257);
+    }
+
+    public void testConstructor()
+    {
+        assertNotNull(new LookupTableColorScheme(continuous));
+        assertNotNull(new LookupTableColorScheme(continuous, 2));
+
+        try
+        {
+            new LookupTableColorScheme(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new LookupTableColorScheme(continuous, 1);
+            fail("ctr(,1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testProperties()
+    {
+        assertSame(continuous, lookupTable.getColorScheme());
+        assertEquals(257, lookupTable.size());
+        assertEquals(0.0d, lookupTable.getMinimumValue(), 0.0d);
+        assertEquals(1.0d, lookupTable.getMaximumValue(), 0.0d);
+        assertSame(continuous.getColorFactory(), lookupTable.getColorFactory());
+    }
+
+    public void testUnsupportedOperations()
+    {
+        try
+        {
+            lookupTable.setMinimumValue(0.5d);
+            fail("setMinimumValue expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            lookupTable.setMaximumValue(0.5d);
+            fail("setMaximumValue expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            lookupTable.setZeroValue(0.5d);
+            fail("setZeroValue expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            lookupTable.setColorFactory(new DefaultColorFactory());
+            fail("setColorFactory expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    public void testGetColor()
+    {
+        // out of bounds
+        assertEquals(Color.BLACK, lookupTable.getColor(-1.0d));
+        assertEquals(Color.WHITE, lookupTable.getColor(2.0d));
+        // at lookup table values
+        for (int i = 0; i < 257; i++)
+        {
+            double value = i / 256.0d;
+            assertEquals(continuous.getColor(value), lookupTable.getColor(value));
+        }
+        // quantized to nearest lookup table value
+        assertEquals(continuous.getColor(128.0d / 256.0d), lookupTable.getColor(128.4d / 256.0d));
+        assertEquals(continuous.getColor(129.0d / 256.0d), lookupTable.getColor(128.6d / 256.0d));
+        assertEquals(continuous.getColor(Double.NaN), lookupTable.getColor(Double.NaN));
+    }
+
+    public void testGetArgb()
+    {
+        assertEquals(Color.BLACK.getRGB(), lookupTable.getArgb(-1.0d));
+        assertEquals(Color.RED.getRGB(), lookupTable.getArgb(0.5d));
+        assertEquals(Color.WHITE.getRGB(), lookupTable.getArgb(2.0d));
+        assertEquals(continuous.getColor(Double.NaN).getRGB(), lookupTable.getArgb(Double.NaN));
+    }
+
+    public void testGetColors()
+    {
+        double[] values = new double[] { -1.0d, 0.0d, 0.25d, 0.5d, 0.75d, 1.0d, 2.0d, Double.NaN };
+        int[] argb = new int[values.length];
+        lookupTable.getColors(values, argb);
+        for (int i = 0; i < values.length; i++)
+        {
+            assertEquals(lookupTable.getArgb(values[i]), argb[i]);
+            assertEquals(lookupTable.getColor(values[i]).getRGB(), argb[i]);
+        }
+
+        int[] offset = new int[4];
+        lookupTable.getColors(values, 2, offset, 1, 3);
+        assertEquals(0, offset[0]);
+        assertEquals(argb[2], offset[1]);
+        assertEquals(argb[3], offset[2]);
+        assertEquals(argb[4], offset[3]);
+    }
+
+    public void testGetColorsInvalidArguments()
+    {
+        try
+        {
+            lookupTable.getColors(null, new int[0]);
+            fail("getColors(null,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            lookupTable.getColors(new double[0], null);
+            fail("getColors(,null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            lookupTable.getColors(new double[2], new int[1]);
+            fail("getColors(double[2],int[1]) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        try
+        {
+            lookupTable.getColors(new double[2], 1, new int[2], 0, 2);
+            fail("getColors(double[2],1,int[2],0,2) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+    public void testEmptyRange()
+    {
+        ColorScheme empty = new ContinuousColorScheme("name", ImmutableList.of(Color.BLACK, Color.WHITE), 0.5d, 0.5d, new DefaultColorFactory());
+        LookupTableColorScheme emptyLookupTable = new LookupTableColorScheme(empty, 16);
+        assertEquals(empty.getColor(0.5d), emptyLookupTable.getColor(0.5d));
+        assertEquals(empty.getColor(0.5d), emptyLookupTable.getColor(2.0d));
+    }
+}
@@ -25,7 +25,15 @@ package org.dishevelled.evolve.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.swing.event.EventListenerList;
 
@@ -39,11 +47,18 @@ import org.dishevelled.evolve.Recombination;
 import org.dishevelled.evolve.Selection;
 
 import org.dishevelled.weighted.WeightedMap;
-import org.dishevelled.weighted.HashWeightedMap;
+import org.dishevelled.weighted.WeightedMaps;
 
 /**
  * Implementation of an evolutionary algorithm function.
  *
+ * <p>If created with an executor service, fitness scores for each generation are
+ * calculated concurrently, one task per individual.  Scores are recorded and
+ * fitness calculated events are fired on the calling thread in iteration order of the
+ * mutated individuals, so given a deterministic fitness function the results are the
+ * same as those calculated serially.  The executor service is not shut down by this
+ * class.</p>
+ *
  * @param <I> individual type
  * @author  Michael Heuer
  * @version $Revision: 320 $ $Date: 2007-10-23 14:06:38 -0500 (Tue, 23 Oct 2007) $
@@ -51,19 +66,35 @@ import org.dishevelled.weighted.HashWeightedMap;
 public final class EvolutionaryAlgorithmImpl<I>
     implements EvolutionaryAlgorithm<I>
 {
-    /** Default hash map load factor. */
-    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
-
     /** Listener list. */
     private EventListenerList listenerList = new EventListenerList();
 
+    /** Executor service for fitness calculation, if any. */
+    private final ExecutorService executorService;
+
 
     /**
-     * Create a new evolutionary algorithm function implementation.
+     * Create a new evolutionary algorithm function implementation that calculates
+     * fitness scores serially.
      */
     public EvolutionaryAlgorithmImpl()
     {
-        // empty
+        executorService = null;
+    }
+
+    /**
+     * Create a new evolutionary algorithm function implementation that calculates
+     * fitness scores concurrently with the specified executor service.
+     *
+     * @param executorService executor service for fitness calculation, must not be null
+     */
+    public EvolutionaryAlgorithmImpl(final ExecutorService executorService)
+    {
+        if (executorService == null)
+        {
+            throw new IllegalArgumentException("executorService must not be null");
+        }
+        this.executorService = executorService;
     }
 
 
@@ -80,7 +111,7 @@ public final class EvolutionaryAlgorithmImpl<I>
         // initialize population with individuals
         Collection<I> population = new ArrayList<I>(individuals);
         // initialize fitness scores to 0.0d
-        WeightedMap<I> scores = new HashWeightedMap<I>(population.size(), DEFAULT_LOAD_FACTOR);
+        WeightedMap<I> scores = WeightedMaps.createFenwickWeightedMap(population.size());
         for (I i : individuals)
         {
             scores.put(i, Double.valueOf(0.0d));
@@ -100,11 +131,24 @@ public final class EvolutionaryAlgorithmImpl<I>
             fireMutated(recombined, mutated);
 
             // evalute fitness
-            for (I i : mutated)
+            if (executorService == null)
             {
-                Double score = fitness.score(i);
-                scores.put(i, score);
-                fireFitnessCalculated(i, score);
+                for (I i : mutated)
+                {
+                    Double score = fitness.score(i);
+                    scores.put(i, score);
+                    fireFitnessCalculated(i, score);
+                }
+            }
+            else
+            {
+                List<I> individualList = new ArrayList<I>(mutated);
+                List<Double> calculated = score(individualList, fitness);
+                for (int i = 0, size = individualList.size(); i < size; i++)
+                {
+                    scores.put(individualList.get(i), calculated.get(i));
+                    fireFitnessCalculated(individualList.get(i), calculated.get(i));
+                }
             }
 
             // select individuals for next generation
@@ -112,10 +156,11 @@ public final class EvolutionaryAlgorithmImpl<I>
             fireSelected(mutated, population, scores);
 
             // remove last generation from scores
+            Set<I> survivors = (population instanceof Set) ? (Set<I>) population : new HashSet<I>(population);
             for (Iterator<I> keys = scores.keySet().iterator(); keys.hasNext(); )
             {
                 I i = keys.next();
-                if (!population.contains(i))
+                if (!survivors.contains(i))
                 {
                     keys.remove();
                 }
@@ -130,6 +175,54 @@ public final class EvolutionaryAlgorithmImpl<I>
     }
 
 
+    /**
+     * Calculate fitness scores for the specified individuals concurrently, one task per
+     * individual, so that individuals that are expensive to score do not hold up a share
+     * of the population behind them.
+     *
+     * @param individuals list of individuals to score
+     * @param fitness fitness function
+     * @return fitness scores for the specified individuals, in the same order
+     */
+    private List<Double> score(final List<I> individuals, final Fitness<I> fitness)
+    {
+        List<Callable<Double>> tasks = new ArrayList<Callable<Double>>(individuals.size());
+        for (final I individual : individuals)
+        {
+            tasks.add(new Callable<Double>()
+                {
+                    /** {@inheritDoc} */
+                    public Double call()
+                    {
+                        return fitness.score(individual);
+                    }
+                });
+        }
+        List<Double> calculated = new ArrayList<Double>(individuals.size());
+        try
+        {
+            for (Future<Double> future : executorService.invokeAll(tasks))
+            {
+                calculated.add(future.get());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while calculating fitness scores", e);
+        }
+        catch (ExecutionException e)
+        {
+            // fitness functions may only throw unchecked exceptions
+            if (e.getCause() instanceof Error)
+            {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+        return calculated;
+    }
+
     /**
      * Check that the specified parameters are valid.
      *
@@ -113,10 +113,7 @@ public final class ElitistSelection<I>
         }
 
         // fitness proportional selection on intermediate map
-        for (int i = 0; i < size; i++)
-        {
-            selected.add(intermediate.sample());
-        }
+        selected.addAll(intermediate.sample(size));
 
         sortedKeys = null;
         eliteKeys = null;
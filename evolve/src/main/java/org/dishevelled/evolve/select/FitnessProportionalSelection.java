@@ -50,10 +50,7 @@ public final class FitnessProportionalSelection<I>
         }
         int size = population.size();
         Collection<I> selected = new ArrayList<I>(size);
-        for (int i = 0; i < size; i++)
-        {
-            selected.add(scores.sample());
-        }
+        selected.addAll(scores.sample(size));
         return selected;
     }
 }
@@ -102,10 +102,7 @@ public final class RankBasedSelection<I>
         }
 
         // fitness proportional selection on intermediate map
-        for (int i = 0; i < size; i++)
-        {
-            selected.add(intermediate.sample());
-        }
+        selected.addAll(intermediate.sample(size));
         intermediate = null;
         return selected;
     }
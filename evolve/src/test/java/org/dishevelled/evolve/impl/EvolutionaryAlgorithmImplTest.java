@@ -23,12 +23,18 @@
 */
 package org.dishevelled.evolve.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.dishevelled.evolve.AbstractEvolutionaryAlgorithmTest;
 import org.dishevelled.evolve.EvolutionaryAlgorithm;
 import org.dishevelled.evolve.EvolutionaryAlgorithmAdapter;
+import org.dishevelled.evolve.EvolutionaryAlgorithmEvent;
 import org.dishevelled.evolve.EvolutionaryAlgorithmListener;
 import org.dishevelled.evolve.ExitStrategy;
 import org.dishevelled.evolve.Fitness;
@@ -163,4 +169,117 @@ public final class EvolutionaryAlgorithmImplTest
         assertEquals(1, evolved.size());
         assertTrue(evolved.contains("foo"));
     }
+
+    public void testConstructorNullExecutorService()
+    {
+        try
+        {
+            new EvolutionaryAlgorithmImpl<String>(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testParallelMatchesSerial()
+    {
+        List<Integer> individuals = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++)
+        {
+            individuals.add(Integer.valueOf(i));
+        }
+        ExitStrategy<Integer> exitStrategy = new TimeLimitExitStrategy<Integer>(3);
+        Recombination<Integer> recombination = new NullRecombination<Integer>();
+        Mutation<Integer> mutation = new NullMutation<Integer>();
+        Fitness<Integer> fitness = new Fitness<Integer>()
+            {
+                /** {@inheritDoc} */
+                public Double score(final Integer individual)
+                {
+                    return Double.valueOf((individual.intValue() * 7919) % 1009);
+                }
+            };
+        Selection<Integer> selection = new NullSelection<Integer>();
+
+        List<Integer> serialOrder = new ArrayList<Integer>();
+        EvolutionaryAlgorithm<Integer> serial = new EvolutionaryAlgorithmImpl<Integer>();
+        serial.addEvolutionaryAlgorithmListener(new RecordingListener(serialOrder));
+        Collection<Integer> expected = serial.evolve(individuals, exitStrategy, recombination, mutation, fitness, selection);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Integer> parallelOrder = new ArrayList<Integer>();
+            EvolutionaryAlgorithm<Integer> parallel = new EvolutionaryAlgorithmImpl<Integer>(executorService);
+            parallel.addEvolutionaryAlgorithmListener(new RecordingListener(parallelOrder));
+            Collection<Integer> observed = parallel.evolve(individuals, exitStrategy, recombination, mutation, fitness, selection);
+
+            assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(observed));
+            assertEquals(3000, parallelOrder.size());
+            assertEquals(serialOrder, parallelOrder);
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    public void testParallelFitnessException()
+    {
+        Collection<String> individuals = new ArrayList<String>(Collections.nCopies(10, "foo"));
+        Fitness<String> fitness = new Fitness<String>()
+            {
+                /** {@inheritDoc} */
+                public Double score(final String individual)
+                {
+                    throw new UnsupportedOperationException("expected");
+                }
+            };
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try
+        {
+            EvolutionaryAlgorithm<String> ea = new EvolutionaryAlgorithmImpl<String>(executorService);
+            ea.evolve(individuals, new TimeLimitExitStrategy<String>(1), new NullRecombination<String>(),
+                      new NullMutation<String>(), fitness, new NullSelection<String>());
+            fail("evolve with failing fitness expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Listener that records individuals in the order fitness is calculated.
+     */
+    private static final class RecordingListener
+        extends EvolutionaryAlgorithmAdapter<Integer>
+    {
+        /** Individuals in order. */
+        private final List<Integer> order;
+
+
+        /**
+         * Create a new recording listener.
+         *
+         * @param order individuals in order
+         */
+        RecordingListener(final List<Integer> order)
+        {
+            this.order = order;
+        }
+
+
+        /** {@inheritDoc} */
+        public void fitnessCalculated(final EvolutionaryAlgorithmEvent<Integer> event)
+        {
+            order.add(event.getIndividual());
+        }
+    }
 }
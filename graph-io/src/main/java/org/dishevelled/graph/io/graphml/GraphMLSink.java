@@ -0,0 +1,60 @@
+/*
+
+    dsh-graph-io  Directed graph readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.graph.io.graphml;
+
+import java.io.IOException;
+
+/**
+ * Sink for the nodes and edges read from a GraphML document by
+ * {@link GraphMLStreamReader}, in document order.
+ *
+ * @param <N> node value type
+ * @param <E> edge value type
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public interface GraphMLSink<N, E>
+{
+
+    /**
+     * Notify this sink of a <code>&lt;node&gt;</code> element.
+     *
+     * @param id node id
+     * @param value node value, may be null
+     * @throws IOException if an I/O error occurs
+     */
+    void node(String id, N value) throws IOException;
+
+    /**
+     * Notify this sink of an <code>&lt;edge&gt;</code> element.  The source and target
+     * node ids are not resolved, and may refer to nodes that appear later in the document.
+     *
+     * @param id edge id, may be null
+     * @param sourceId source node id
+     * @param targetId target node id
+     * @param value edge value, may be null
+     * @throws IOException if an I/O error occurs
+     */
+    void edge(String id, String sourceId, String targetId, E value) throws IOException;
+}
@@ -0,0 +1,690 @@
+/*
+
+    dsh-graph-io  Directed graph readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.graph.io.graphml;
+
+import java.net.URL;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.dishevelled.graph.Graph;
+import org.dishevelled.graph.Node;
+
+import org.dishevelled.graph.impl.GraphUtils;
+
+import org.dishevelled.graph.io.GraphReader;
+
+/**
+ * Streaming GraphML reader built directly on <code>javax.xml.stream.XMLStreamReader</code>.
+ *
+ * <p>This reader can either build a graph, or stream nodes and edges in document order to a
+ * {@link GraphMLSink} without building a graph at all, in which case memory use does not
+ * depend on the size of the document.</p>
+ *
+ * <p>When building a graph, edges are never buffered.  An edge whose source or target node
+ * has not yet been seen creates that node with a <code>null</code> value, and the value is
+ * set when the <code>&lt;node&gt;</code> element is read.  Node ids are interned as dense
+ * indices where possible, and a first pass over a file may count nodes and edges so that
+ * the graph is created at its final size, see {@link #setCountFirst(boolean)}.</p>
+ *
+ * @param <N> node value type
+ * @param <E> edge value type
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public final class GraphMLStreamReader<N, E>
+    implements GraphReader<N, E>
+{
+    /** XML input factory. */
+    private final XMLInputFactory inputFactory;
+
+    /** Optional node value handler. */
+    private GraphMLValueHandler<? extends N> nodeValueHandler;
+
+    /** Optional edge value handler. */
+    private GraphMLValueHandler<? extends E> edgeValueHandler;
+
+    /** True if graphs should be optimized for space. */
+    private boolean optimizeForSpace;
+
+    /** True if files should be counted in a first pass. */
+    private boolean countFirst;
+
+
+    /**
+     * Create a new streaming GraphML reader with a default XML input factory.
+     */
+    public GraphMLStreamReader()
+    {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    /**
+     * Create a new streaming GraphML reader with the specified XML input factory.
+     *
+     * @param inputFactory XML input factory, must not be null
+     */
+    public GraphMLStreamReader(final XMLInputFactory inputFactory)
+    {
+        if (inputFactory == null)
+        {
+            throw new IllegalArgumentException("inputFactory must not be null");
+        }
+        this.inputFactory = inputFactory;
+    }
+
+
+    /**
+     * Set the node value handler for this streaming GraphML reader to <code>nodeValueHandler</code>.
+     * <p>
+     * The specified node value handler will be called for each child element of the
+     * <code>&lt;node&gt;</code> element, typically <code>&lt;data&gt;</code> elements, and
+     * the value returned for the last child element will be the node value.
+     * </p>
+     *
+     * @param nodeValueHandler node value handler
+     */
+    public void setNodeValueHandler(final GraphMLValueHandler<? extends N> nodeValueHandler)
+    {
+        this.nodeValueHandler = nodeValueHandler;
+    }
+
+    /**
+     * Set the edge value handler for this streaming GraphML reader to <code>edgeValueHandler</code>.
+     * <p>
+     * The specified edge value handler will be called for each child element of the
+     * <code>&lt;edge&gt;</code> element, typically <code>&lt;data&gt;</code> elements, and
+     * the value returned for the last child element will be the edge value.
+     * </p>
+     *
+     * @param edgeValueHandler edge value handler
+     */
+    public void setEdgeValueHandler(final GraphMLValueHandler<? extends E> edgeValueHandler)
+    {
+        this.edgeValueHandler = edgeValueHandler;
+    }
+
+    /**
+     * Set to true if graphs read by this streaming GraphML reader should be optimized for space.
+     * Defaults to <code>false</code>.
+     *
+     * @see GraphUtils#createGraph(int, int, boolean)
+     * @param optimizeForSpace true if graphs should be optimized for space
+     */
+    public void setOptimizeForSpace(final boolean optimizeForSpace)
+    {
+        this.optimizeForSpace = optimizeForSpace;
+    }
+
+    /**
+     * Set to true if <code>read(File)</code> should make a first pass over the file counting nodes
+     * and edges, so that the graph and node id index are created at their final size.
+     * Defaults to <code>false</code>.
+     *
+     * @param countFirst true if files should be counted in a first pass
+     */
+    public void setCountFirst(final boolean countFirst)
+    {
+        this.countFirst = countFirst;
+    }
+
+    /** {@inheritDoc} */
+    public Graph<N, E> read(final File file)
+        throws IOException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        GraphBuilder graphBuilder = countFirst ? count(file) : new GraphBuilder(0, 0);
+        read(file, graphBuilder);
+        return graphBuilder.getGraph();
+    }
+
+    /** {@inheritDoc} */
+    public Graph<N, E> read(final InputStream inputStream)
+        throws IOException
+    {
+        if (inputStream == null)
+        {
+            throw new IllegalArgumentException("inputStream must not be null");
+        }
+        GraphBuilder graphBuilder = new GraphBuilder(0, 0);
+        read(inputStream, graphBuilder);
+        return graphBuilder.getGraph();
+    }
+
+    /** {@inheritDoc} */
+    public Graph<N, E> read(final URL url)
+        throws IOException
+    {
+        if (url == null)
+        {
+            throw new IllegalArgumentException("url must not be null");
+        }
+        GraphBuilder graphBuilder = new GraphBuilder(0, 0);
+        read(url, graphBuilder);
+        return graphBuilder.getGraph();
+    }
+
+    /**
+     * Read the nodes and edges from the specified file, streaming them to the specified sink.
+     *
+     * @param file file to read from, must not be null
+     * @param sink sink, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void read(final File file, final GraphMLSink<? super N, ? super E> sink)
+        throws IOException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = new BufferedInputStream(new FileInputStream(file));
+            read(inputStream, sink);
+        }
+        finally
+        {
+            closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Read the nodes and edges from the specified input stream, streaming them to the specified sink.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @param sink sink, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void read(final InputStream inputStream, final GraphMLSink<? super N, ? super E> sink)
+        throws IOException
+    {
+        if (inputStream == null)
+        {
+            throw new IllegalArgumentException("inputStream must not be null");
+        }
+        if (sink == null)
+        {
+            throw new IllegalArgumentException("sink must not be null");
+        }
+        XMLStreamReader reader = null;
+        try
+        {
+            reader = inputFactory.createXMLStreamReader(inputStream);
+            boolean graphml = false;
+            while (reader.hasNext())
+            {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT)
+                {
+                    String localName = reader.getLocalName();
+                    if ("graphml".equals(localName))
+                    {
+                        graphml = true;
+                    }
+                    else if ("node".equals(localName))
+                    {
+                        String id = requireAttribute(reader, "id");
+                        sink.node(id, readValue(reader, nodeValueHandler));
+                    }
+                    else if ("edge".equals(localName))
+                    {
+                        String id = reader.getAttributeValue(null, "id");
+                        String sourceId = requireAttribute(reader, "source");
+                        String targetId = requireAttribute(reader, "target");
+                        sink.edge(id, sourceId, targetId, readValue(reader, edgeValueHandler));
+                    }
+                }
+            }
+            if (!graphml)
+            {
+                throw new IOException("no graphml element found");
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            IOException ioe = new IOException(e.getMessage());
+            ioe.initCause(e);
+            throw ioe;
+        }
+        finally
+        {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Read the nodes and edges from the specified URL, streaming them to the specified sink.
+     *
+     * @param url URL to read from, must not be null
+     * @param sink sink, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void read(final URL url, final GraphMLSink<? super N, ? super E> sink)
+        throws IOException
+    {
+        if (url == null)
+        {
+            throw new IllegalArgumentException("url must not be null");
+        }
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = url.openStream();
+            read(inputStream, sink);
+        }
+        finally
+        {
+            closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Count the nodes and edges in the specified file and return a new graph builder
+     * sized accordingly.
+     *
+     * @param file file to count
+     * @return a new graph builder sized to the number of nodes and edges in the specified file
+     * @throws IOException if an I/O error occurs
+     */
+    private GraphBuilder count(final File file)
+        throws IOException
+    {
+        InputStream inputStream = null;
+        XMLStreamReader reader = null;
+        try
+        {
+            inputStream = new BufferedInputStream(new FileInputStream(file));
+            reader = inputFactory.createXMLStreamReader(inputStream);
+            int nodes = 0;
+            int edges = 0;
+            while (reader.hasNext())
+            {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT)
+                {
+                    String localName = reader.getLocalName();
+                    if ("node".equals(localName))
+                    {
+                        nodes++;
+                    }
+                    else if ("edge".equals(localName))
+                    {
+                        edges++;
+                    }
+                }
+            }
+            return new GraphBuilder(nodes, edges);
+        }
+        catch (XMLStreamException e)
+        {
+            IOException ioe = new IOException(e.getMessage());
+            ioe.initCause(e);
+            throw ioe;
+        }
+        finally
+        {
+            closeQuietly(reader);
+            closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Return the value of the specified attribute of the current element.
+     *
+     * @param reader XML stream reader positioned at a start element
+     * @param name attribute name
+     * @return the value of the specified attribute of the current element
+     * @throws IOException if the current element does not have the specified attribute
+     */
+    private static String requireAttribute(final XMLStreamReader reader, final String name)
+        throws IOException
+    {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null)
+        {
+            throw new IOException(reader.getLocalName() + " element missing " + name + " attribute, line "
+                                  + reader.getLocation().getLineNumber());
+        }
+        return value;
+    }
+
+    /**
+     * Read the children of the current element with the specified value handler, returning
+     * the value read from the last child element.  Children are skipped if the value handler
+     * is null.  On return the reader is positioned at the end of the current element.
+     *
+     * @param <T> value type
+     * @param reader XML stream reader positioned at a start element
+     * @param valueHandler value handler, may be null
+     * @return the value read from the last child element, or <code>null</code> if none
+     * @throws XMLStreamException if an error occurs
+     */
+    private static <T> T readValue(final XMLStreamReader reader, final GraphMLValueHandler<? extends T> valueHandler)
+        throws XMLStreamException
+    {
+        T value = null;
+        while (true)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                if (valueHandler == null)
+                {
+                    skip(reader);
+                }
+                else
+                {
+                    value = valueHandler.read(reader);
+                }
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Skip the current element and its children.
+     *
+     * @param reader XML stream reader positioned at a start element
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void skip(final XMLStreamReader reader)
+        throws XMLStreamException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Close the specified XML stream reader quietly.
+     *
+     * @param reader XML stream reader to close
+     */
+    private static void closeQuietly(final XMLStreamReader reader)
+    {
+        try
+        {
+            if (reader != null)
+            {
+                reader.close();
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            // ignore
+        }
+    }
+
+    /**
+     * Close the specified input stream quietly.
+     *
+     * @param inputStream input stream to close
+     */
+    private static void closeQuietly(final InputStream inputStream)
+    {
+        try
+        {
+            if (inputStream != null)
+            {
+                inputStream.close();
+            }
+        }
+        catch (IOException e)
+        {
+            // ignore
+        }
+    }
+
+    /**
+     * Graph building sink.
+     */
+    private final class GraphBuilder
+        implements GraphMLSink<N, E>
+    {
+        /** Graph. */
+        private final Graph<N, E> graph;
+
+        /** Nodes keyed by id. */
+        private final NodeIds<Node<N, E>> nodes;
+
+        /** Ids of nodes created for edges but not yet seen. */
+        private final Set<String> unresolved = new HashSet<String>();
+
+
+        /**
+         * Create a new graph building sink with the specified node and edge capacities.
+         *
+         * @param nodeCapacity node capacity
+         * @param edgeCapacity edge capacity
+         */
+        private GraphBuilder(final int nodeCapacity, final int edgeCapacity)
+        {
+            graph = GraphUtils.createGraph(nodeCapacity, edgeCapacity, optimizeForSpace);
+            nodes = new NodeIds<Node<N, E>>(nodeCapacity);
+        }
+
+
+        /** {@inheritDoc} */
+        public void node(final String id, final N value)
+            throws IOException
+        {
+            Node<N, E> node = nodes.get(id);
+            if (node == null)
+            {
+                nodes.put(id, graph.createNode(value));
+            }
+            else if (unresolved.remove(id))
+            {
+                node.setValue(value);
+            }
+            else
+            {
+                throw new IOException("duplicate node id=" + id);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void edge(final String id, final String sourceId, final String targetId, final E value)
+        {
+            graph.createEdge(resolve(sourceId), resolve(targetId), value);
+        }
+
+        /**
+         * Return the node with the specified id, creating it if it has not yet been seen.
+         *
+         * @param id node id
+         * @return the node with the specified id
+         */
+        private Node<N, E> resolve(final String id)
+        {
+            Node<N, E> node = nodes.get(id);
+            if (node == null)
+            {
+                node = graph.createNode(null);
+                nodes.put(id, node);
+                unresolved.add(id);
+            }
+            return node;
+        }
+
+        /**
+         * Return the graph built by this sink.
+         *
+         * @return the graph built by this sink
+         * @throws IOException if any edges refer to node ids that were never seen
+         */
+        Graph<N, E> getGraph()
+            throws IOException
+        {
+            if (!unresolved.isEmpty())
+            {
+                throw new IOException("could not resolve " + unresolved.size() + " node id(s), e.g. id="
+                                      + unresolved.iterator().next());
+            }
+            return graph;
+        }
+    }
+
+    /**
+     * Values keyed by node id.  Node ids made up of a common prefix and a decimal index,
+     * such as <code>n0</code>, <code>n1</code>, <code>n2</code>, are interned as dense indices
+     * into an array; any other node ids are kept in a hash map.
+     *
+     * @param <T> value type
+     */
+    private static final class NodeIds<T>
+    {
+        /** Common prefix, or null if not yet seen. */
+        private String prefix;
+
+        /** Values by dense index. */
+        private Object[] values;
+
+        /** Values keyed by node id, created as needed. */
+        private Map<String, T> map;
+
+        /** Maximum number of decimal digits in a dense index. */
+        private static final int MAX_DIGITS = 9;
+
+
+        /**
+         * Create a new node id index with the specified initial capacity.
+         *
+         * @param capacity initial capacity
+         */
+        private NodeIds(final int capacity)
+        {
+            values = new Object[Math.max(16, capacity)];
+        }
+
+
+        /**
+         * Return the dense index for the specified node id, or <code>-1</code> if it has none.
+         *
+         * @param id node id
+         * @return the dense index for the specified node id, or <code>-1</code> if it has none
+         */
+        private int index(final String id)
+        {
+            int length = id.length();
+            int start = length;
+            while (start > 0 && id.charAt(start - 1) >= '0' && id.charAt(start - 1) <= '9')
+            {
+                start--;
+            }
+            int digits = length - start;
+            if (digits == 0 || digits > MAX_DIGITS || (digits > 1 && id.charAt(start) == '0'))
+            {
+                return -1;
+            }
+            if (prefix == null)
+            {
+                prefix = id.substring(0, start);
+            }
+            if (prefix.length() != start || !id.startsWith(prefix))
+            {
+                return -1;
+            }
+            return Integer.parseInt(id.substring(start));
+        }
+
+        /**
+         * Return the value for the specified node id, or <code>null</code> if none.
+         *
+         * @param id node id
+         * @return the value for the specified node id, or <code>null</code> if none
+         */
+        @SuppressWarnings("unchecked")
+        private T get(final String id)
+        {
+            int index = index(id);
+            if (index >= 0 && index < values.length && values[index] != null)
+            {
+                return (T) values[index];
+            }
+            return (map == null) ? null : map.get(id);
+        }
+
+        /**
+         * Associate the specified value with the specified node id.  The node id
+         * must not already have a value.
+         *
+         * @param id node id
+         * @param value value, must not be null
+         */
+        private void put(final String id, final T value)
+        {
+            int index = index(id);
+            // only grow the array for indices near the number of values seen so far
+            if (index >= 0 && index < 2L * values.length)
+            {
+                if (index >= values.length)
+                {
+                    Object[] copy = new Object[2 * values.length];
+                    System.arraycopy(values, 0, copy, 0, values.length);
+                    values = copy;
+                }
+                values[index] = value;
+            }
+            else
+            {
+                if (map == null)
+                {
+                    map = new HashMap<String, T>();
+                }
+                map.put(id, value);
+            }
+        }
+    }
+}
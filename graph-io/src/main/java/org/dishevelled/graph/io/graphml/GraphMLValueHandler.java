@@ -0,0 +1,50 @@
+/*
+
+    dsh-graph-io  Directed graph readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.graph.io.graphml;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Handler that reads node or edge values for {@link GraphMLStreamReader}.
+ *
+ * @param <T> value type
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public interface GraphMLValueHandler<T>
+{
+
+    /**
+     * Read and return a value from the specified XML stream reader.  The reader is positioned
+     * at the start of a child element of a <code>&lt;node&gt;</code> or <code>&lt;edge&gt;</code>
+     * element, typically a <code>&lt;data&gt;</code> element.  Implementations must consume
+     * events up to and including the matching end element.
+     *
+     * @param reader XML stream reader positioned at a start element
+     * @return a value read from the specified XML stream reader, may be null
+     * @throws XMLStreamException if an error occurs
+     */
+    T read(XMLStreamReader reader) throws XMLStreamException;
+}
@@ -0,0 +1,454 @@
+/*
+
+    dsh-graph-io  Directed graph readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.graph.io.graphml;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.dishevelled.graph.Graph;
+import org.dishevelled.graph.Node;
+
+import org.dishevelled.graph.impl.CompactGraph;
+
+import org.dishevelled.graph.io.AbstractGraphReaderTest;
+import org.dishevelled.graph.io.GraphReader;
+
+/**
+ * Unit test for GraphMLStreamReader.
+ *
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public final class GraphMLStreamReaderTest
+    extends AbstractGraphReaderTest
+{
+
+    /** {@inheritDoc} */
+    protected <N, E> GraphReader<N, E> createGraphReader()
+    {
+        return new GraphMLStreamReader<N, E>();
+    }
+
+    /**
+     * Close the specified input stream quietly.
+     *
+     * @param inputStream input stream to close
+     */
+    private void closeQuietly(final InputStream inputStream)
+    {
+        try
+        {
+            if (inputStream != null)
+            {
+                inputStream.close();
+            }
+        }
+        catch (IOException e)
+        {
+            // ignore
+        }
+    }
+
+    /**
+     * Read a graph from the specified resource.
+     *
+     * @param graphReader graph reader
+     * @param name resource name
+     * @return a graph read from the specified resource
+     * @throws IOException if an I/O error occurs
+     */
+    private Graph<String, Double> read(final GraphMLStreamReader<String, Double> graphReader, final String name)
+        throws IOException
+    {
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = getClass().getResourceAsStream(name);
+            return graphReader.read(inputStream);
+        }
+        finally
+        {
+            closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Copy the specified resource to a temporary file.
+     *
+     * @param name resource name
+     * @return a temporary file containing the specified resource
+     * @throws IOException if an I/O error occurs
+     */
+    private File copyToFile(final String name)
+        throws IOException
+    {
+        File file = File.createTempFile("graphMLStreamReaderTest", ".xml");
+        file.deleteOnExit();
+        InputStream inputStream = null;
+        OutputStream outputStream = null;
+        try
+        {
+            inputStream = getClass().getResourceAsStream(name);
+            outputStream = new FileOutputStream(file);
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = inputStream.read(buffer)) != -1)
+            {
+                outputStream.write(buffer, 0, n);
+            }
+        }
+        finally
+        {
+            closeQuietly(inputStream);
+            if (outputStream != null)
+            {
+                outputStream.close();
+            }
+        }
+        return file;
+    }
+
+    /** String value handler. */
+    private static final GraphMLValueHandler<String> STRING_VALUE_HANDLER = new GraphMLValueHandler<String>()
+        {
+            /** {@inheritDoc} */
+            public String read(final XMLStreamReader reader)
+                throws XMLStreamException
+            {
+                return reader.getElementText();
+            }
+        };
+
+    /** Double value handler. */
+    private static final GraphMLValueHandler<Double> DOUBLE_VALUE_HANDLER = new GraphMLValueHandler<Double>()
+        {
+            /** {@inheritDoc} */
+            public Double read(final XMLStreamReader reader)
+                throws XMLStreamException
+            {
+                return Double.valueOf(reader.getElementText());
+            }
+        };
+
+    public void testConstructor()
+    {
+        GraphMLStreamReader<String, Double> graphReader0 = new GraphMLStreamReader<String, Double>();
+        assertNotNull(graphReader0);
+
+        GraphMLStreamReader<String, Double> graphReader1 =
+            new GraphMLStreamReader<String, Double>(XMLInputFactory.newInstance());
+        assertNotNull(graphReader1);
+
+        try
+        {
+            GraphMLStreamReader<String, Double> graphReader = new GraphMLStreamReader<String, Double>(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testEmpty()
+    {
+        try
+        {
+            read(new GraphMLStreamReader<String, Double>(), "empty.xml");
+            fail("read(empty.xml) expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    public void testEmptyGraphml() throws IOException
+    {
+        Graph<String, Double> graph = read(new GraphMLStreamReader<String, Double>(), "emptyGraphml.xml");
+        assertNotNull(graph);
+        assertTrue(graph.isEmpty());
+    }
+
+    public void testEmptyGraph() throws IOException
+    {
+        Graph<String, Double> graph = read(new GraphMLStreamReader<String, Double>(), "emptyGraph.xml");
+        assertNotNull(graph);
+        assertTrue(graph.isEmpty());
+    }
+
+    public void testGraph0() throws IOException
+    {
+        Graph<String, Double> graph = read(new GraphMLStreamReader<String, Double>(), "graph0.xml");
+        assertNotNull(graph);
+        assertEquals(5, graph.nodeCount());
+        assertEquals(20, graph.edgeCount());
+    }
+
+    public void testGraph1() throws IOException
+    {
+        Graph<String, Double> graph = read(new GraphMLStreamReader<String, Double>(), "graph1.xml");
+        assertNotNull(graph);
+        assertEquals(5, graph.nodeCount());
+        assertEquals(20, graph.edgeCount());
+        for (Node<String, Double> node : graph.nodes())
+        {
+            assertEquals(4, node.inEdges().size());
+            assertEquals(4, node.outEdges().size());
+        }
+    }
+
+    public void testUnresolvedNodeId()
+    {
+        try
+        {
+            read(new GraphMLStreamReader<String, Double>(), "unresolvedNodeId.xml");
+            fail("read(unresolvedNodeId.xml) expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    public void testIgnorableValues() throws IOException
+    {
+        Graph<String, Double> graph = read(new GraphMLStreamReader<String, Double>(), "ignorableValues.xml");
+        assertNotNull(graph);
+        assertEquals(5, graph.nodeCount());
+        assertEquals(20, graph.edgeCount());
+    }
+
+    public void testDataElementValues() throws IOException
+    {
+        GraphMLStreamReader<String, Double> graphReader = new GraphMLStreamReader<String, Double>();
+        graphReader.setNodeValueHandler(STRING_VALUE_HANDLER);
+        graphReader.setEdgeValueHandler(DOUBLE_VALUE_HANDLER);
+
+        Graph<String, Double> graph = read(graphReader, "dataElementValues.xml");
+        assertNotNull(graph);
+        assertEquals(5, graph.nodeCount());
+        assertEquals(20, graph.edgeCount());
+
+        for (String nodeValue : graph.nodeValues())
+        {
+            assertTrue(nodeValue.startsWith("Node"));
+        }
+        for (Double edgeValue : graph.edgeValues())
+        {
+            assertTrue(edgeValue >= 1.0d);
+        }
+    }
+
+    public void testDataElementValuesNullValueHandlers() throws IOException
+    {
+        GraphMLStreamReader<String, Double> graphReader = new GraphMLStreamReader<String, Double>();
+        graphReader.setNodeValueHandler(null);
+        graphReader.setEdgeValueHandler(null);
+
+        Graph<String, Double> graph = read(graphReader, "dataElementValues.xml");
+        assertNotNull(graph);
+        assertEquals(5, graph.nodeCount());
+        assertEquals(20, graph.edgeCount());
+
+        for (String nodeValue : graph.nodeValues())
+        {
+            assertEquals(null, nodeValue);
+        }
+        for (Double edgeValue : graph.edgeValues())
+        {
+            assertEquals(null, edgeValue);
+        }
+    }
+
+    public void testOptimizeForSpace() throws IOException
+    {
+        GraphMLStreamReader<String, Double> graphReader = new GraphMLStreamReader<String, Double>();
+        graphReader.setOptimizeForSpace(true);
+        graphReader.setNodeValueHandler(STRING_VALUE_HANDLER);
+
+        Graph<String, Double> graph = read(graphReader, "dataElementValues.xml");
+        assertTrue(graph instanceof CompactGraph);
+        assertEquals(5, graph.nodeCount());
+        assertEquals(20, graph.edgeCount());
+        for (String nodeValue : graph.nodeValues())
+        {
+            assertTrue(nodeValue.startsWith("Node"));
+        }
+    }
+
+    public void testCountFirst() throws IOException
+    {
+        GraphMLStreamReader<String, Double> graphReader = new GraphMLStreamReader<String, Double>();
+        graphReader.setCountFirst(true);
+        graphReader.setEdgeValueHandler(DOUBLE_VALUE_HANDLER);
+
+        Graph<String, Double> graph = graphReader.read(copyToFile("dataElementValues.xml"));
+        assertEquals(5, graph.nodeCount());
+        assertEquals(20, graph.edgeCount());
+
+        graph = graphReader.read(copyToFile("graph1.xml"));
+        assertEquals(5, graph.nodeCount());
+        assertEquals(20, graph.edgeCount());
+    }
+
+    public void testSink() throws IOException
+    {
+        final List<String> nodes = new ArrayList<String>();
+        final List<String> edges = new ArrayList<String>();
+        GraphMLSink<String, Double> sink = new GraphMLSink<String, Double>()
+            {
+                /** {@inheritDoc} */
+                public void node(final String id, final String value)
+                {
+                    nodes.add(id + "=" + value);
+                }
+
+                /** {@inheritDoc} */
+                public void edge(final String id, final String sourceId, final String targetId, final Double value)
+                {
+                    edges.add(sourceId + "->" + targetId + "=" + value);
+                }
+            };
+
+        GraphMLStreamReader<String, Double> graphReader = new GraphMLStreamReader<String, Double>();
+        graphReader.setNodeValueHandler(STRING_VALUE_HANDLER);
+        graphReader.setEdgeValueHandler(DOUBLE_VALUE_HANDLER);
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = getClass().getResourceAsStream("dataElementValues.xml");
+            graphReader.read(inputStream, sink);
+        }
+        finally
+        {
+            closeQuietly(inputStream);
+        }
+        assertEquals(5, nodes.size());
+        assertEquals("n0=Node n0", nodes.get(0));
+        assertEquals(20, edges.size());
+        assertEquals("n0->n1=1.0", edges.get(0));
+
+        // unresolved node ids are passed through to the sink
+        nodes.clear();
+        edges.clear();
+        try
+        {
+            inputStream = getClass().getResourceAsStream("unresolvedNodeId.xml");
+            graphReader.read(inputStream, sink);
+        }
+        finally
+        {
+            closeQuietly(inputStream);
+        }
+        assertEquals(4, nodes.size());
+        assertEquals(20, edges.size());
+
+        try
+        {
+            graphReader.read((InputStream) null, sink);
+            fail("read(null, sink) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            inputStream = getClass().getResourceAsStream("graph0.xml");
+            graphReader.read(inputStream, null);
+            fail("read(, null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        finally
+        {
+            closeQuietly(inputStream);
+        }
+    }
+
+    public void testMixedNodeIds() throws IOException
+    {
+        String xml = "<graphml><graph id=\"G\" edgedefault=\"directed\">"
+            + "<edge source=\"n1\" target=\"n100000\"/>"
+            + "<node id=\"n1\"/><node id=\"n01\"/><node id=\"m1\"/><node id=\"x\"/><node id=\"100000\"/>"
+            + "<node id=\"n100000\"/><edge source=\"x\" target=\"m1\"/><edge source=\"n01\" target=\"n1\"/>"
+            + "</graph></graphml>";
+        GraphMLStreamReader<String, Double> graphReader = new GraphMLStreamReader<String, Double>();
+        Graph<String, Double> graph = graphReader.read(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+        assertEquals(6, graph.nodeCount());
+        assertEquals(3, graph.edgeCount());
+
+        try
+        {
+            String duplicate = "<graphml><graph><node id=\"n0\"/><node id=\"n0\"/></graph></graphml>";
+            graphReader.read(new ByteArrayInputStream(duplicate.getBytes("UTF-8")));
+            fail("read(duplicate) expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        try
+        {
+            String missingId = "<graphml><graph><node/></graph></graphml>";
+            graphReader.read(new ByteArrayInputStream(missingId.getBytes("UTF-8")));
+            fail("read(missingId) expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    public void testYGraphML() throws IOException
+    {
+        GraphMLStreamReader<String, Double> graphReader = new GraphMLStreamReader<String, Double>();
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = getClass().getResourceAsStream("/org/dishevelled/graph/io/ygraphml/graph0.xml");
+            Graph<String, Double> graph = graphReader.read(inputStream);
+            assertEquals(5, graph.nodeCount());
+            assertEquals(20, graph.edgeCount());
+        }
+        finally
+        {
+            closeQuietly(inputStream);
+        }
+    }
+}
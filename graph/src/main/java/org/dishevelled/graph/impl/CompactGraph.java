@@ -0,0 +1,1370 @@
+/*
+
+    dsh-graph  Directed graph interface and implementation.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.graph.impl;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.dishevelled.functor.UnaryPredicate;
+import org.dishevelled.functor.UnaryProcedure;
+
+import org.dishevelled.graph.Edge;
+import org.dishevelled.graph.Graph;
+import org.dishevelled.graph.Node;
+
+/**
+ * Compact directed graph implementation based on dense integer ids and primitive arrays.
+ *
+ * <p>Nodes and edges are numbered densely from zero in the order they are created, and
+ * node and edge values are stored in arrays indexed by id.  While the graph is mutable,
+ * the in and out edges of each node are kept as singly linked lists threaded through
+ * primitive <code>int</code> arrays indexed by edge id, so that each edge costs a few
+ * array slots rather than several hash entries and object headers.  Calling
+ * {@link #freeze()} replaces the linked lists with compressed sparse row (CSR) offset and
+ * edge id arrays; a frozen graph does not support structural modification.</p>
+ *
+ * <p>The nodes and edges returned by this graph are lightweight flyweight views that hold
+ * only an id and the generation of the graph it was created in, created as needed.  Two
+ * views are equal if they refer to the same id in the same generation of the same graph.
+ * Ids are not reused after a node or edge is removed until the graph is cleared, which
+ * starts a new generation, and a view of a removed or cleared node or edge returns
+ * <code>null</code> from <code>getValue()</code>.</p>
+ *
+ * @param <N> node value type
+ * @param <E> edge value type
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public final class CompactGraph<N, E>
+    implements Graph<N, E>
+{
+    /** Number of nodes. */
+    private int nodeCount;
+
+    /** Number of edges. */
+    private int edgeCount;
+
+    /** Next node id. */
+    private int nextNode;
+
+    /** Next edge id. */
+    private int nextEdge;
+
+    /** Generation, incremented when this graph is cleared. */
+    private int generation;
+
+    /** Initial node capacity, restored when this graph is cleared. */
+    private final int initialNodeCapacity;
+
+    /** Initial edge capacity, restored when this graph is cleared. */
+    private final int initialEdgeCapacity;
+
+    /** Node values, indexed by node id. */
+    private Object[] nodeValues;
+
+    /** Edge values, indexed by edge id. */
+    private Object[] edgeValues;
+
+    /** Source node ids, indexed by edge id. */
+    private int[] edgeSources;
+
+    /** Target node ids, indexed by edge id. */
+    private int[] edgeTargets;
+
+    /** Removed node ids. */
+    private final BitSet removedNodes = new BitSet();
+
+    /** Removed edge ids. */
+    private final BitSet removedEdges = new BitSet();
+
+    /** First out edge id, indexed by node id, while mutable. */
+    private int[] firstOut;
+
+    /** First in edge id, indexed by node id, while mutable. */
+    private int[] firstIn;
+
+    /** Next out edge id, indexed by edge id, while mutable. */
+    private int[] nextOut;
+
+    /** Next in edge id, indexed by edge id, while mutable. */
+    private int[] nextIn;
+
+    /** Out degree, indexed by node id, while mutable. */
+    private int[] outDegree;
+
+    /** In degree, indexed by node id, while mutable. */
+    private int[] inDegree;
+
+    /** Out edge offsets, indexed by node id, once frozen. */
+    private int[] outOffsets;
+
+    /** Out edge ids, ordered by source node id, once frozen. */
+    private int[] outEdges;
+
+    /** In edge offsets, indexed by node id, once frozen. */
+    private int[] inOffsets;
+
+    /** In edge ids, ordered by target node id, once frozen. */
+    private int[] inEdges;
+
+    /** Marker for the end of a linked list of edges. */
+    private static final int NONE = -1;
+
+    /** Default initial node and edge capacity, <code>16</code>. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+
+    /**
+     * Create a new compact directed graph.
+     */
+    public CompactGraph()
+    {
+        this(DEFAULT_CAPACITY, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new compact directed graph with the specified initial node
+     * and edge capacities.
+     *
+     * @param nodeCapacity initial node capacity, must be <code>&gt;= 0</code>
+     * @param edgeCapacity initial edge capacity, must be <code>&gt;= 0</code>
+     */
+    public CompactGraph(final int nodeCapacity, final int edgeCapacity)
+    {
+        if (nodeCapacity < 0)
+        {
+            throw new IllegalArgumentException("nodeCapacity must be at least zero, was " + nodeCapacity);
+        }
+        if (edgeCapacity < 0)
+        {
+            throw new IllegalArgumentException("edgeCapacity must be at least zero, was " + edgeCapacity);
+        }
+        initialNodeCapacity = nodeCapacity;
+        initialEdgeCapacity = edgeCapacity;
+        allocate(nodeCapacity, edgeCapacity);
+    }
+
+    /**
+     * Create a new compact directed graph with the same structure and same node
+     * and edge values as the specified graph (copy constructor).
+     *
+     * @param graph graph to copy, must not be null
+     */
+    public CompactGraph(final Graph<N, E> graph)
+    {
+        if (graph == null)
+        {
+            throw new IllegalArgumentException("graph must not be null");
+        }
+        initialNodeCapacity = graph.nodeCount();
+        initialEdgeCapacity = graph.edgeCount();
+        allocate(initialNodeCapacity, initialEdgeCapacity);
+        Map<Node<N, E>, Node<N, E>> nodeMap = graph.nodeMap(null);
+        for (Map.Entry<Node<N, E>, Node<N, E>> entry : nodeMap.entrySet())
+        {
+            entry.setValue(createNode(entry.getKey().getValue()));
+        }
+        for (Edge<N, E> edge : graph.edges())
+        {
+            createEdge(nodeMap.get(edge.source()), nodeMap.get(edge.target()), edge.getValue());
+        }
+    }
+
+
+    /**
+     * Allocate mutable storage with the specified node and edge capacities.
+     *
+     * @param nodeCapacity node capacity
+     * @param edgeCapacity edge capacity
+     */
+    private void allocate(final int nodeCapacity, final int edgeCapacity)
+    {
+        nodeValues = new Object[nodeCapacity];
+        firstOut = new int[nodeCapacity];
+        firstIn = new int[nodeCapacity];
+        outDegree = new int[nodeCapacity];
+        inDegree = new int[nodeCapacity];
+
+        edgeValues = new Object[edgeCapacity];
+        edgeSources = new int[edgeCapacity];
+        edgeTargets = new int[edgeCapacity];
+        nextOut = new int[edgeCapacity];
+        nextIn = new int[edgeCapacity];
+    }
+
+    /**
+     * Return a new capacity at least as large as the specified minimum capacity.
+     *
+     * @param capacity current capacity
+     * @param minimum minimum capacity
+     * @return a new capacity at least as large as the specified minimum capacity
+     */
+    private static int grow(final int capacity, final int minimum)
+    {
+        long grown = Math.max((long) minimum, (long) capacity + (capacity >> 1) + 1L);
+        return (int) Math.min(grown, (long) Integer.MAX_VALUE - 8L);
+    }
+
+    /**
+     * Ensure there is room for one more node.
+     */
+    private void ensureNodeCapacity()
+    {
+        if (nextNode == nodeValues.length)
+        {
+            int capacity = grow(nodeValues.length, nextNode + 1);
+            if (capacity == nodeValues.length)
+            {
+                throw new IllegalStateException("node capacity exceeded, " + capacity);
+            }
+            nodeValues = Arrays.copyOf(nodeValues, capacity);
+            firstOut = Arrays.copyOf(firstOut, capacity);
+            firstIn = Arrays.copyOf(firstIn, capacity);
+            outDegree = Arrays.copyOf(outDegree, capacity);
+            inDegree = Arrays.copyOf(inDegree, capacity);
+        }
+    }
+
+    /**
+     * Ensure there is room for one more edge.
+     */
+    private void ensureEdgeCapacity()
+    {
+        if (nextEdge == edgeValues.length)
+        {
+            int capacity = grow(edgeValues.length, nextEdge + 1);
+            if (capacity == edgeValues.length)
+            {
+                throw new IllegalStateException("edge capacity exceeded, " + capacity);
+            }
+            edgeValues = Arrays.copyOf(edgeValues, capacity);
+            edgeSources = Arrays.copyOf(edgeSources, capacity);
+            edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+            nextOut = Arrays.copyOf(nextOut, capacity);
+            nextIn = Arrays.copyOf(nextIn, capacity);
+        }
+    }
+
+    /**
+     * Throw an UnsupportedOperationException if this graph is frozen.
+     *
+     * @param operation name of the operation
+     */
+    private void checkNotFrozen(final String operation)
+    {
+        if (isFrozen())
+        {
+            throw new UnsupportedOperationException(operation + " operation not supported by this graph once frozen");
+        }
+    }
+
+    /**
+     * Return true if the specified node id refers to a node in this graph.
+     *
+     * @param id node id
+     * @return true if the specified node id refers to a node in this graph
+     */
+    boolean containsNode(final int id)
+    {
+        return id >= 0 && id < nextNode && !removedNodes.get(id);
+    }
+
+    /**
+     * Return true if the specified edge id refers to an edge in this graph.
+     *
+     * @param id edge id
+     * @return true if the specified edge id refers to an edge in this graph
+     */
+    boolean containsEdge(final int id)
+    {
+        return id >= 0 && id < nextEdge && !removedEdges.get(id);
+    }
+
+    /**
+     * Return the id of the specified node if it is contained in this graph, or <code>-1</code> otherwise.
+     *
+     * @param node node
+     * @return the id of the specified node if it is contained in this graph, or <code>-1</code> otherwise
+     */
+    int nodeId(final Object node)
+    {
+        if (node instanceof CompactGraph.NodeView)
+        {
+            CompactGraph<?, ?>.NodeView view = (CompactGraph<?, ?>.NodeView) node;
+            if (view.graph() == this && view.generation == generation && containsNode(view.id))
+            {
+                return view.id;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Return the id of the specified edge if it is contained in this graph, or <code>-1</code> otherwise.
+     *
+     * @param edge edge
+     * @return the id of the specified edge if it is contained in this graph, or <code>-1</code> otherwise
+     */
+    private int edgeId(final Object edge)
+    {
+        if (edge instanceof CompactGraph.EdgeView)
+        {
+            CompactGraph<?, ?>.EdgeView view = (CompactGraph<?, ?>.EdgeView) edge;
+            if (view.graph() == this && view.generation == generation && containsEdge(view.id))
+            {
+                return view.id;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Return one more than the largest node id in this graph.
+     *
+     * @return one more than the largest node id in this graph
+     */
+    int nodeIdLimit()
+    {
+        return nextNode;
+    }
+
+    /**
+     * Return one more than the largest edge id in this graph.
+     *
+     * @return one more than the largest edge id in this graph
+     */
+    int edgeIdLimit()
+    {
+        return nextEdge;
+    }
+
+    /**
+     * Return the source node id of the edge with the specified id.
+     *
+     * @param edge edge id
+     * @return the source node id of the edge with the specified id
+     */
+    int edgeSource(final int edge)
+    {
+        return edgeSources[edge];
+    }
+
+    /**
+     * Return the target node id of the edge with the specified id.
+     *
+     * @param edge edge id
+     * @return the target node id of the edge with the specified id
+     */
+    int edgeTarget(final int edge)
+    {
+        return edgeTargets[edge];
+    }
+
+    /**
+     * Return a view of the node with the specified id.
+     *
+     * @param id node id
+     * @return a view of the node with the specified id
+     */
+    Node<N, E> node(final int id)
+    {
+        return new NodeView(id);
+    }
+
+    /**
+     * Return the value of the node with the specified id.
+     *
+     * @param id node id
+     * @return the value of the node with the specified id
+     */
+    @SuppressWarnings("unchecked")
+    private N nodeValue(final int id)
+    {
+        return (N) nodeValues[id];
+    }
+
+    /**
+     * Return the value of the edge with the specified id.
+     *
+     * @param id edge id
+     * @return the value of the edge with the specified id
+     */
+    @SuppressWarnings("unchecked")
+    private E edgeValue(final int id)
+    {
+        return (E) edgeValues[id];
+    }
+
+    /**
+     * Freeze this graph, replacing its linked adjacency lists with compressed sparse
+     * row arrays and trimming its storage to size.  Node and edge values may still be
+     * set once frozen, but <code>clear</code>, <code>createNode</code>, <code>createEdge</code>
+     * and <code>remove</code> will throw UnsupportedOperationException.  Calling this
+     * method on a graph that is already frozen has no effect.
+     */
+    public void freeze()
+    {
+        if (isFrozen())
+        {
+            return;
+        }
+        nodeValues = Arrays.copyOf(nodeValues, nextNode);
+        edgeValues = Arrays.copyOf(edgeValues, nextEdge);
+        edgeSources = Arrays.copyOf(edgeSources, nextEdge);
+        edgeTargets = Arrays.copyOf(edgeTargets, nextEdge);
+
+        outOffsets = new int[nextNode + 1];
+        inOffsets = new int[nextNode + 1];
+        for (int node = 0; node < nextNode; node++)
+        {
+            outOffsets[node + 1] = outOffsets[node] + outDegree[node];
+            inOffsets[node + 1] = inOffsets[node] + inDegree[node];
+        }
+        outEdges = new int[edgeCount];
+        inEdges = new int[edgeCount];
+        int[] out = Arrays.copyOf(outOffsets, nextNode);
+        int[] in = Arrays.copyOf(inOffsets, nextNode);
+        for (int edge = removedEdges.nextClearBit(0); edge < nextEdge; edge = removedEdges.nextClearBit(edge + 1))
+        {
+            outEdges[out[edgeSources[edge]]++] = edge;
+            inEdges[in[edgeTargets[edge]]++] = edge;
+        }
+
+        firstOut = null;
+        firstIn = null;
+        nextOut = null;
+        nextIn = null;
+        outDegree = null;
+        inDegree = null;
+    }
+
+    /**
+     * Return true if this graph has been frozen.
+     *
+     * @see #freeze()
+     * @return true if this graph has been frozen
+     */
+    public boolean isFrozen()
+    {
+        return (outOffsets != null);
+    }
+
+    /** {@inheritDoc} */
+    public boolean isEmpty()
+    {
+        return (nodeCount == 0 && edgeCount == 0);
+    }
+
+    /** {@inheritDoc} */
+    public int nodeCount()
+    {
+        return nodeCount;
+    }
+
+    /** {@inheritDoc} */
+    public Set<Node<N, E>> nodes()
+    {
+        return Collections.unmodifiableSet(new NodeSet());
+    }
+
+    /** {@inheritDoc} */
+    public Collection<N> nodeValues()
+    {
+        return Collections.unmodifiableCollection(new AbstractCollection<N>()
+            {
+                /** {@inheritDoc} */
+                public int size()
+                {
+                    return nodeCount;
+                }
+
+                /** {@inheritDoc} */
+                public Iterator<N> iterator()
+                {
+                    final Iterator<Node<N, E>> nodes = new NodeSet().iterator();
+                    return new Iterator<N>()
+                        {
+                            /** {@inheritDoc} */
+                            public boolean hasNext()
+                            {
+                                return nodes.hasNext();
+                            }
+
+                            /** {@inheritDoc} */
+                            public N next()
+                            {
+                                return nodes.next().getValue();
+                            }
+
+                            /** {@inheritDoc} */
+                            public void remove()
+                            {
+                                throw new UnsupportedOperationException("remove operation not supported by this iterator");
+                            }
+                        };
+                }
+            });
+    }
+
+    /** {@inheritDoc} */
+    public <T> Map<Node<N, E>, T> nodeMap(final T defaultValue)
+    {
+        Map<Node<N, E>, T> map = new HashMap<Node<N, E>, T>(nodeCount);
+        for (int node = removedNodes.nextClearBit(0); node < nextNode; node = removedNodes.nextClearBit(node + 1))
+        {
+            map.put(new NodeView(node), defaultValue);
+        }
+        return new MapDecorator<Node<N, E>, T>(map);
+    }
+
+    /** {@inheritDoc} */
+    public void forEachNode(final UnaryProcedure<Node<N, E>> procedure)
+    {
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        for (int node = removedNodes.nextClearBit(0); node < nextNode; node = removedNodes.nextClearBit(node + 1))
+        {
+            procedure.run(new NodeView(node));
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void forEachNode(final UnaryPredicate<Node<N, E>> predicate,
+                            final UnaryProcedure<Node<N, E>> procedure)
+    {
+        if (predicate == null)
+        {
+            throw new IllegalArgumentException("predicate must not be null");
+        }
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        for (int node = removedNodes.nextClearBit(0); node < nextNode; node = removedNodes.nextClearBit(node + 1))
+        {
+            Node<N, E> view = new NodeView(node);
+            if (predicate.test(view))
+            {
+                procedure.run(view);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void forEachNodeValue(final UnaryProcedure<? super N> procedure)
+    {
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        for (int node = removedNodes.nextClearBit(0); node < nextNode; node = removedNodes.nextClearBit(node + 1))
+        {
+            procedure.run(nodeValue(node));
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void forEachNodeValue(final UnaryPredicate<N> predicate, final UnaryProcedure<N> procedure)
+    {
+        if (predicate == null)
+        {
+            throw new IllegalArgumentException("predicate must not be null");
+        }
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        for (int node = removedNodes.nextClearBit(0); node < nextNode; node = removedNodes.nextClearBit(node + 1))
+        {
+            N value = nodeValue(node);
+            if (predicate.test(value))
+            {
+                procedure.run(value);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    public int edgeCount()
+    {
+        return edgeCount;
+    }
+
+    /** {@inheritDoc} */
+    public Set<Edge<N, E>> edges()
+    {
+        return Collections.unmodifiableSet(new EdgeSet());
+    }
+
+    /** {@inheritDoc} */
+    public Collection<E> edgeValues()
+    {
+        return Collections.unmodifiableCollection(new AbstractCollection<E>()
+            {
+                /** {@inheritDoc} */
+                public int size()
+                {
+                    return edgeCount;
+                }
+
+                /** {@inheritDoc} */
+                public Iterator<E> iterator()
+                {
+                    final Iterator<Edge<N, E>> edges = new EdgeSet().iterator();
+                    return new Iterator<E>()
+                        {
+                            /** {@inheritDoc} */
+                            public boolean hasNext()
+                            {
+                                return edges.hasNext();
+                            }
+
+                            /** {@inheritDoc} */
+                            public E next()
+                            {
+                                return edges.next().getValue();
+                            }
+
+                            /** {@inheritDoc} */
+                            public void remove()
+                            {
+                                throw new UnsupportedOperationException("remove operation not supported by this iterator");
+                            }
+                        };
+                }
+            });
+    }
+
+    /** {@inheritDoc} */
+    public <T> Map<Edge<N, E>, T> edgeMap(final T defaultValue)
+    {
+        Map<Edge<N, E>, T> map = new HashMap<Edge<N, E>, T>(edgeCount);
+        for (int edge = removedEdges.nextClearBit(0); edge < nextEdge; edge = removedEdges.nextClearBit(edge + 1))
+        {
+            map.put(new EdgeView(edge), defaultValue);
+        }
+        return new MapDecorator<Edge<N, E>, T>(map);
+    }
+
+    /** {@inheritDoc} */
+    public void forEachEdge(final UnaryProcedure<Edge<N, E>> procedure)
+    {
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        for (int edge = removedEdges.nextClearBit(0); edge < nextEdge; edge = removedEdges.nextClearBit(edge + 1))
+        {
+            procedure.run(new EdgeView(edge));
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void forEachEdge(final UnaryPredicate<Edge<N, E>> predicate,
+                            final UnaryProcedure<Edge<N, E>> procedure)
+    {
+        if (predicate == null)
+        {
+            throw new IllegalArgumentException("predicate must not be null");
+        }
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        for (int edge = removedEdges.nextClearBit(0); edge < nextEdge; edge = removedEdges.nextClearBit(edge + 1))
+        {
+            Edge<N, E> view = new EdgeView(edge);
+            if (predicate.test(view))
+            {
+                procedure.run(view);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void forEachEdgeValue(final UnaryProcedure<? super E> procedure)
+    {
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        for (int edge = removedEdges.nextClearBit(0); edge < nextEdge; edge = removedEdges.nextClearBit(edge + 1))
+        {
+            procedure.run(edgeValue(edge));
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void forEachEdgeValue(final UnaryPredicate<E> predicate, final UnaryProcedure<E> procedure)
+    {
+        if (predicate == null)
+        {
+            throw new IllegalArgumentException("predicate must not be null");
+        }
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        for (int edge = removedEdges.nextClearBit(0); edge < nextEdge; edge = removedEdges.nextClearBit(edge + 1))
+        {
+            E value = edgeValue(edge);
+            if (predicate.test(value))
+            {
+                procedure.run(value);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void clear()
+    {
+        checkNotFrozen("clear");
+        allocate(initialNodeCapacity, initialEdgeCapacity);
+        removedNodes.clear();
+        removedEdges.clear();
+        nodeCount = 0;
+        edgeCount = 0;
+        nextNode = 0;
+        nextEdge = 0;
+        // views created before clearing belong to the previous generation, and so cannot alias new ones
+        generation++;
+    }
+
+    /** {@inheritDoc} */
+    public Node<N, E> createNode(final N value)
+    {
+        checkNotFrozen("createNode");
+        ensureNodeCapacity();
+        int node = nextNode++;
+        nodeValues[node] = value;
+        firstOut[node] = NONE;
+        firstIn[node] = NONE;
+        outDegree[node] = 0;
+        inDegree[node] = 0;
+        nodeCount++;
+        return new NodeView(node);
+    }
+
+    /** {@inheritDoc} */
+    public void remove(final Node<N, E> node)
+    {
+        checkNotFrozen("remove(Node)");
+        if (node == null)
+        {
+            throw new IllegalArgumentException("node must not be null");
+        }
+        int id = nodeId(node);
+        if (id == NONE)
+        {
+            throw new IllegalArgumentException("node must be contained in this graph");
+        }
+        while (firstOut[id] != NONE)
+        {
+            removeEdge(firstOut[id]);
+        }
+        while (firstIn[id] != NONE)
+        {
+            removeEdge(firstIn[id]);
+        }
+        nodeValues[id] = null;
+        removedNodes.set(id);
+        nodeCount--;
+    }
+
+    /** {@inheritDoc} */
+    public Edge<N, E> createEdge(final Node<N, E> source, final Node<N, E> target, final E value)
+    {
+        checkNotFrozen("createEdge");
+        if (source == null)
+        {
+            throw new IllegalArgumentException("source must not be null");
+        }
+        if (target == null)
+        {
+            throw new IllegalArgumentException("target must not be null");
+        }
+        int sourceId = nodeId(source);
+        if (sourceId == NONE)
+        {
+            throw new IllegalArgumentException("source must be contained in this graph");
+        }
+        int targetId = nodeId(target);
+        if (targetId == NONE)
+        {
+            throw new IllegalArgumentException("target must be contained in this graph");
+        }
+        ensureEdgeCapacity();
+        int edge = nextEdge++;
+        edgeValues[edge] = value;
+        edgeSources[edge] = sourceId;
+        edgeTargets[edge] = targetId;
+        nextOut[edge] = firstOut[sourceId];
+        firstOut[sourceId] = edge;
+        outDegree[sourceId]++;
+        nextIn[edge] = firstIn[targetId];
+        firstIn[targetId] = edge;
+        inDegree[targetId]++;
+        edgeCount++;
+        return new EdgeView(edge);
+    }
+
+    /** {@inheritDoc} */
+    public void remove(final Edge<N, E> edge)
+    {
+        checkNotFrozen("remove(Edge)");
+        if (edge == null)
+        {
+            throw new IllegalArgumentException("edge must not be null");
+        }
+        int id = edgeId(edge);
+        if (id == NONE)
+        {
+            throw new IllegalArgumentException("edge must be contained in this graph");
+        }
+        removeEdge(id);
+    }
+
+    /**
+     * Unlink and remove the edge with the specified id.
+     *
+     * @param edge edge id
+     */
+    private void removeEdge(final int edge)
+    {
+        int source = edgeSources[edge];
+        if (firstOut[source] == edge)
+        {
+            firstOut[source] = nextOut[edge];
+        }
+        else
+        {
+            int previous = firstOut[source];
+            while (nextOut[previous] != edge)
+            {
+                previous = nextOut[previous];
+            }
+            nextOut[previous] = nextOut[edge];
+        }
+        outDegree[source]--;
+
+        int target = edgeTargets[edge];
+        if (firstIn[target] == edge)
+        {
+            firstIn[target] = nextIn[edge];
+        }
+        else
+        {
+            int previous = firstIn[target];
+            while (nextIn[previous] != edge)
+            {
+                previous = nextIn[previous];
+            }
+            nextIn[previous] = nextIn[edge];
+        }
+        inDegree[target]--;
+
+        edgeValues[edge] = null;
+        removedEdges.set(edge);
+        edgeCount--;
+    }
+
+
+    /**
+     * Read-only set view of the nodes in this graph.
+     */
+    private final class NodeSet
+        extends AbstractSet<Node<N, E>>
+    {
+
+        /** {@inheritDoc} */
+        public int size()
+        {
+            return nodeCount;
+        }
+
+        /** {@inheritDoc} */
+        public boolean contains(final Object o)
+        {
+            return nodeId(o) != NONE;
+        }
+
+        /** {@inheritDoc} */
+        public Iterator<Node<N, E>> iterator()
+        {
+            return new Iterator<Node<N, E>>()
+                {
+                    /** Next node id. */
+                    private int next = removedNodes.nextClearBit(0);
+
+
+                    /** {@inheritDoc} */
+                    public boolean hasNext()
+                    {
+                        return next < nextNode;
+                    }
+
+                    /** {@inheritDoc} */
+                    public Node<N, E> next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        Node<N, E> node = new NodeView(next);
+                        next = removedNodes.nextClearBit(next + 1);
+                        return node;
+                    }
+
+                    /** {@inheritDoc} */
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException("remove operation not supported by this iterator");
+                    }
+                };
+        }
+    }
+
+    /**
+     * Read-only set view of the edges in this graph.
+     */
+    private final class EdgeSet
+        extends AbstractSet<Edge<N, E>>
+    {
+
+        /** {@inheritDoc} */
+        public int size()
+        {
+            return edgeCount;
+        }
+
+        /** {@inheritDoc} */
+        public boolean contains(final Object o)
+        {
+            return edgeId(o) != NONE;
+        }
+
+        /** {@inheritDoc} */
+        public Iterator<Edge<N, E>> iterator()
+        {
+            return new Iterator<Edge<N, E>>()
+                {
+                    /** Next edge id. */
+                    private int next = removedEdges.nextClearBit(0);
+
+
+                    /** {@inheritDoc} */
+                    public boolean hasNext()
+                    {
+                        return next < nextEdge;
+                    }
+
+                    /** {@inheritDoc} */
+                    public Edge<N, E> next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        Edge<N, E> edge = new EdgeView(next);
+                        next = removedEdges.nextClearBit(next + 1);
+                        return edge;
+                    }
+
+                    /** {@inheritDoc} */
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException("remove operation not supported by this iterator");
+                    }
+                };
+        }
+    }
+
+    /**
+     * Read-only set view of the in or out edges of a node in this graph.
+     */
+    private final class AdjacentEdgeSet
+        extends AbstractSet<Edge<N, E>>
+    {
+        /** Node id. */
+        private final int node;
+
+        /** True for out edges, false for in edges. */
+        private final boolean out;
+
+
+        /**
+         * Create a new set view of the in or out edges of the specified node.
+         *
+         * @param node node id
+         * @param out true for out edges, false for in edges
+         */
+        private AdjacentEdgeSet(final int node, final boolean out)
+        {
+            this.node = node;
+            this.out = out;
+        }
+
+
+        /** {@inheritDoc} */
+        public int size()
+        {
+            if (!containsNode(node))
+            {
+                return 0;
+            }
+            if (isFrozen())
+            {
+                return out ? outOffsets[node + 1] - outOffsets[node] : inOffsets[node + 1] - inOffsets[node];
+            }
+            return out ? outDegree[node] : inDegree[node];
+        }
+
+        /** {@inheritDoc} */
+        public boolean contains(final Object o)
+        {
+            int edge = edgeId(o);
+            if (edge == NONE)
+            {
+                return false;
+            }
+            return node == (out ? edgeSources[edge] : edgeTargets[edge]);
+        }
+
+        /** {@inheritDoc} */
+        public Iterator<Edge<N, E>> iterator()
+        {
+            if (!containsNode(node))
+            {
+                return Collections.<Edge<N, E>>emptySet().iterator();
+            }
+            if (isFrozen())
+            {
+                final int[] edges = out ? outEdges : inEdges;
+                final int end = out ? outOffsets[node + 1] : inOffsets[node + 1];
+                final int start = out ? outOffsets[node] : inOffsets[node];
+                return new Iterator<Edge<N, E>>()
+                    {
+                        /** Next offset. */
+                        private int next = start;
+
+
+                        /** {@inheritDoc} */
+                        public boolean hasNext()
+                        {
+                            return next < end;
+                        }
+
+                        /** {@inheritDoc} */
+                        public Edge<N, E> next()
+                        {
+                            if (!hasNext())
+                            {
+                                throw new NoSuchElementException();
+                            }
+                            return new EdgeView(edges[next++]);
+                        }
+
+                        /** {@inheritDoc} */
+                        public void remove()
+                        {
+                            throw new UnsupportedOperationException("remove operation not supported by this iterator");
+                        }
+                    };
+            }
+            return new Iterator<Edge<N, E>>()
+                {
+                    /** Next edge id. */
+                    private int next = out ? firstOut[node] : firstIn[node];
+
+
+                    /** {@inheritDoc} */
+                    public boolean hasNext()
+                    {
+                        return next != NONE;
+                    }
+
+                    /** {@inheritDoc} */
+                    public Edge<N, E> next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        Edge<N, E> edge = new EdgeView(next);
+                        next = out ? nextOut[next] : nextIn[next];
+                        return edge;
+                    }
+
+                    /** {@inheritDoc} */
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException("remove operation not supported by this iterator");
+                    }
+                };
+        }
+    }
+
+    /**
+     * Flyweight node view.
+     */
+    private final class NodeView
+        implements Node<N, E>
+    {
+        /** Node id. */
+        private final int id;
+
+        /** Generation of the graph this node view was created in. */
+        private final int generation;
+
+
+        /**
+         * Create a new flyweight view of the node with the specified id.
+         *
+         * @param id node id
+         */
+        private NodeView(final int id)
+        {
+            this.id = id;
+            this.generation = CompactGraph.this.generation;
+        }
+
+
+        /**
+         * Return the graph this node view belongs to.
+         *
+         * @return the graph this node view belongs to
+         */
+        private CompactGraph<N, E> graph()
+        {
+            return CompactGraph.this;
+        }
+
+        /**
+         * Return the id of this node view if it is contained in the graph, or <code>-1</code> otherwise.
+         *
+         * @return the id of this node view if it is contained in the graph, or <code>-1</code> otherwise
+         */
+        private int current()
+        {
+            return nodeId(this);
+        }
+
+        /** {@inheritDoc} */
+        public N getValue()
+        {
+            int current = current();
+            return (current == NONE) ? null : nodeValue(current);
+        }
+
+        /** {@inheritDoc} */
+        public void setValue(final N value)
+        {
+            int current = current();
+            if (current != NONE)
+            {
+                nodeValues[current] = value;
+            }
+        }
+
+        /** {@inheritDoc} */
+        public int degree()
+        {
+            int current = current();
+            return new AdjacentEdgeSet(current, false).size() + new AdjacentEdgeSet(current, true).size();
+        }
+
+        /** {@inheritDoc} */
+        public Set<Edge<N, E>> inEdges()
+        {
+            return Collections.unmodifiableSet(new AdjacentEdgeSet(current(), false));
+        }
+
+        /** {@inheritDoc} */
+        public Set<Edge<N, E>> outEdges()
+        {
+            return Collections.unmodifiableSet(new AdjacentEdgeSet(current(), true));
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(final Object o)
+        {
+            if (o == this)
+            {
+                return true;
+            }
+            if (!(o instanceof CompactGraph.NodeView))
+            {
+                return false;
+            }
+            CompactGraph<?, ?>.NodeView view = (CompactGraph<?, ?>.NodeView) o;
+            return (view.graph() == CompactGraph.this) && (view.id == id) && (view.generation == generation);
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode()
+        {
+            return id;
+        }
+    }
+
+    /**
+     * Flyweight edge view.
+     */
+    private final class EdgeView
+        implements Edge<N, E>
+    {
+        /** Edge id. */
+        private final int id;
+
+        /** Generation of the graph this edge view was created in. */
+        private final int generation;
+
+
+        /**
+         * Create a new flyweight view of the edge with the specified id.
+         *
+         * @param id edge id
+         */
+        private EdgeView(final int id)
+        {
+            this.id = id;
+            this.generation = CompactGraph.this.generation;
+        }
+
+
+        /**
+         * Return the graph this edge view belongs to.
+         *
+         * @return the graph this edge view belongs to
+         */
+        private CompactGraph<N, E> graph()
+        {
+            return CompactGraph.this;
+        }
+
+        /**
+         * Return true if this edge view was created in the current generation of the graph.
+         *
+         * @return true if this edge view was created in the current generation of the graph
+         */
+        private boolean isCurrent()
+        {
+            return generation == CompactGraph.this.generation;
+        }
+
+        /** {@inheritDoc} */
+        public E getValue()
+        {
+            int current = edgeId(this);
+            return (current == NONE) ? null : edgeValue(current);
+        }
+
+        /** {@inheritDoc} */
+        public void setValue(final E value)
+        {
+            int current = edgeId(this);
+            if (current != NONE)
+            {
+                edgeValues[current] = value;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>Returns <code>null</code> if this edge has been cleared from the graph.</p>
+         */
+        public Node<N, E> source()
+        {
+            return isCurrent() ? new NodeView(edgeSources[id]) : null;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>Returns <code>null</code> if this edge has been cleared from the graph.</p>
+         */
+        public Node<N, E> target()
+        {
+            return isCurrent() ? new NodeView(edgeTargets[id]) : null;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(final Object o)
+        {
+            if (o == this)
+            {
+                return true;
+            }
+            if (!(o instanceof CompactGraph.EdgeView))
+            {
+                return false;
+            }
+            CompactGraph<?, ?>.EdgeView view = (CompactGraph<?, ?>.EdgeView) o;
+            return (view.graph() == CompactGraph.this) && (view.id == id) && (view.generation == generation);
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode()
+        {
+            return id;
+        }
+    }
+
+    /**
+     * Map decorator.
+     */
+    private static class MapDecorator<K, V>
+        extends AbstractMapDecorator<K, V>
+    {
+
+        /**
+         * Create a new map that decorates the specified map.
+         *
+         * @param map map to decorate, must not be null
+         */
+        MapDecorator(final Map<K, V> map)
+        {
+            super(map);
+        }
+
+
+        /** {@inheritDoc} */
+        public Set<K> keySet()
+        {
+            return Collections.unmodifiableSet(super.keySet());
+        }
+    }
+}
@@ -23,13 +23,26 @@
 */
 package org.dishevelled.graph.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.dishevelled.functor.UnaryProcedure;
 
@@ -46,6 +59,10 @@ import org.dishevelled.graph.Node;
 public final class GraphUtils
 {
 
+    /** Number of node indices per block of work in parallel traversals. */
+    private static final int BLOCK_SIZE = 4096;
+
+
     /**
      * Private no-arg constructor.
      */
@@ -97,6 +114,58 @@ public final class GraphUtils
         return new GraphImpl<N, E>(graph);
     }
 
+    /**
+     * Create and return a new directed graph.  If <code>optimizeForSpace</code> is true,
+     * the graph will be a {@link CompactGraph}, which stores nodes and edges as dense
+     * integer ids in primitive arrays.  The graph will not be null.
+     *
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param optimizeForSpace true if the implementation should optimize for space
+     * @return a new directed graph
+     */
+    public static <N, E> Graph<N, E> createGraph(final boolean optimizeForSpace)
+    {
+        return optimizeForSpace ? new CompactGraph<N, E>() : new GraphImpl<N, E>();
+    }
+
+    /**
+     * Create and return a new directed graph with the specified initial node
+     * and edge capacities.  If <code>optimizeForSpace</code> is true, the graph
+     * will be a {@link CompactGraph}.  The graph will not be null.
+     *
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param nodeCapacity initial node capacity, must be <code>&gt;= 0</code>
+     * @param edgeCapacity initial edge capacity, must be <code>&gt;= 0</code>
+     * @param optimizeForSpace true if the implementation should optimize for space
+     * @return a new directed graph with the specified initial node and edge capacities
+     */
+    public static <N, E> Graph<N, E> createGraph(final int nodeCapacity,
+                                                 final int edgeCapacity,
+                                                 final boolean optimizeForSpace)
+    {
+        return optimizeForSpace ? new CompactGraph<N, E>(nodeCapacity, edgeCapacity)
+            : new GraphImpl<N, E>(nodeCapacity, edgeCapacity);
+    }
+
+    /**
+     * Create and return a new directed graph with the same structure and same node
+     * and edge values as the specified graph.  If <code>optimizeForSpace</code> is true,
+     * the graph will be a {@link CompactGraph}.  The graph will not be null.
+     *
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param graph graph to copy, must not be null
+     * @param optimizeForSpace true if the implementation should optimize for space
+     * @return a new directed graph with the same structure and same node
+     *    and edge values as the specified graph
+     */
+    public static <N, E> Graph<N, E> createGraph(final Graph<N, E> graph, final boolean optimizeForSpace)
+    {
+        return optimizeForSpace ? new CompactGraph<N, E>(graph) : new GraphImpl<N, E>(graph);
+    }
+
     /**
      * Find the connected components of the specified graph.
      *
@@ -305,6 +374,446 @@ public final class GraphUtils
         }
     }
 
+    /**
+     * Parallel breadth-first search, using as many threads as there are available processors.
+     *
+     * @see #parallelBreadthFirstSearch(Graph, Node, UnaryProcedure, int)
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param graph graph to search, must not be null
+     * @param node node to start from, must not be null and must be contained in
+     *    the specified graph
+     * @param procedure procedure to run when visiting each node, must not be null
+     *    and must be thread safe
+     */
+    public static <N, E> void parallelBreadthFirstSearch(final Graph<N, E> graph,
+                                                         final Node<N, E> node,
+                                                         final UnaryProcedure<Node<N, E>> procedure)
+    {
+        parallelBreadthFirstSearch(graph, node, procedure, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parallel breadth-first search.  Visits the same nodes as
+     * {@link #breadthFirstSearch(Graph, Node, UnaryProcedure)}, one level at a time,
+     * expanding each level's frontier concurrently over dense node indices.  Every node
+     * in a level is visited before any node in the next level, but the order within a
+     * level is unspecified.  The procedure is called concurrently from worker threads.
+     *
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param graph graph to search, must not be null
+     * @param node node to start from, must not be null and must be contained in
+     *    the specified graph
+     * @param procedure procedure to run when visiting each node, must not be null
+     *    and must be thread safe
+     * @param threads number of threads, must be at least <code>1</code>
+     */
+    public static <N, E> void parallelBreadthFirstSearch(final Graph<N, E> graph,
+                                                         final Node<N, E> node,
+                                                         final UnaryProcedure<Node<N, E>> procedure,
+                                                         final int threads)
+    {
+        checkSearchArguments(graph, node, procedure, threads);
+        levelSynchronousSearch(DenseGraph.index(graph, node, false), procedure, threads);
+    }
+
+    /**
+     * Parallel undirected breadth-first search, using as many threads as there are available processors.
+     *
+     * @see #parallelUndirectedBreadthFirstSearch(Graph, Node, UnaryProcedure, int)
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param graph graph to search, must not be null
+     * @param node node to start from, must not be null and must be contained in
+     *    the specified graph
+     * @param procedure procedure to run when visiting each node, must not be null
+     *    and must be thread safe
+     */
+    public static <N, E> void parallelUndirectedBreadthFirstSearch(final Graph<N, E> graph,
+                                                                   final Node<N, E> node,
+                                                                   final UnaryProcedure<Node<N, E>> procedure)
+    {
+        parallelUndirectedBreadthFirstSearch(graph, node, procedure, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parallel undirected breadth-first search.  Visits the same nodes as
+     * {@link #undirectedBreadthFirstSearch(Graph, Node, UnaryProcedure)}, one level at a time,
+     * expanding each level's frontier concurrently over dense node indices.  Every node
+     * in a level is visited before any node in the next level, but the order within a
+     * level is unspecified.  The procedure is called concurrently from worker threads.
+     *
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param graph graph to search, must not be null
+     * @param node node to start from, must not be null and must be contained in
+     *    the specified graph
+     * @param procedure procedure to run when visiting each node, must not be null
+     *    and must be thread safe
+     * @param threads number of threads, must be at least <code>1</code>
+     */
+    public static <N, E> void parallelUndirectedBreadthFirstSearch(final Graph<N, E> graph,
+                                                                   final Node<N, E> node,
+                                                                   final UnaryProcedure<Node<N, E>> procedure,
+                                                                   final int threads)
+    {
+        checkSearchArguments(graph, node, procedure, threads);
+        levelSynchronousSearch(DenseGraph.index(graph, node, true), procedure, threads);
+    }
+
+    /**
+     * Find the connected components of the specified graph in parallel, using as many
+     * threads as there are available processors.
+     *
+     * @see #parallelConnectedComponents(Graph, int)
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param graph graph, must not be null
+     * @return a set of the connected components of the specified graph
+     */
+    public static <N, E> Set<Set<Node<N, E>>> parallelConnectedComponents(final Graph<N, E> graph)
+    {
+        return parallelConnectedComponents(graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Find the connected components of the specified graph in parallel.  Returns the same
+     * components as {@link #connectedComponents(Graph)}, computed by merging the endpoints
+     * of every edge in a concurrent union find over dense node indices.
+     *
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param graph graph, must not be null
+     * @param threads number of threads, must be at least <code>1</code>
+     * @return a set of the connected components of the specified graph
+     */
+    public static <N, E> Set<Set<Node<N, E>>> parallelConnectedComponents(final Graph<N, E> graph, final int threads)
+    {
+        if (graph == null)
+        {
+            throw new IllegalArgumentException("graph must not be null");
+        }
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("threads must be at least one, was " + threads);
+        }
+        final DenseGraph<N, E> dense = DenseGraph.index(graph, null, false);
+        final int size = dense.size();
+        final AtomicIntegerArray parents = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++)
+        {
+            parents.set(i, i);
+        }
+        final int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final AtomicInteger next = new AtomicInteger();
+        int workers = Math.max(1, Math.min(threads, blocks));
+        List<Callable<Object>> callables = new ArrayList<Callable<Object>>(workers);
+        for (int t = 0; t < workers; t++)
+        {
+            callables.add(new Callable<Object>()
+                {
+                    /** {@inheritDoc} */
+                    public Object call()
+                    {
+                        int block;
+                        while ((block = next.getAndIncrement()) < blocks)
+                        {
+                            for (int u = block * BLOCK_SIZE, end = Math.min(size, u + BLOCK_SIZE); u < end; u++)
+                            {
+                                for (int k = dense.offsets[u], last = dense.offsets[u + 1]; k < last; k++)
+                                {
+                                    union(parents, u, dense.adjacent[k]);
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                });
+        }
+        ExecutorService executorService = (workers > 1) ? Executors.newFixedThreadPool(workers - 1) : null;
+        try
+        {
+            callAll(executorService, callables);
+        }
+        finally
+        {
+            if (executorService != null)
+            {
+                executorService.shutdownNow();
+            }
+        }
+
+        int[] components = new int[size];
+        Arrays.fill(components, -1);
+        List<Set<Node<N, E>>> connectedComponents = new ArrayList<Set<Node<N, E>>>();
+        for (int i = 0; i < size; i++)
+        {
+            Node<N, E> node = dense.nodes[i];
+            if (node != null)
+            {
+                int root = find(parents, i);
+                if (components[root] == -1)
+                {
+                    components[root] = connectedComponents.size();
+                    connectedComponents.add(new HashSet<Node<N, E>>());
+                }
+                connectedComponents.get(components[root]).add(node);
+            }
+        }
+        return new HashSet<Set<Node<N, E>>>(connectedComponents);
+    }
+
+    /**
+     * Check the arguments to a parallel search.
+     *
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param graph graph to search
+     * @param node node to start from
+     * @param procedure procedure to run when visiting each node
+     * @param threads number of threads
+     */
+    private static <N, E> void checkSearchArguments(final Graph<N, E> graph,
+                                                    final Node<N, E> node,
+                                                    final UnaryProcedure<Node<N, E>> procedure,
+                                                    final int threads)
+    {
+        if (graph == null)
+        {
+            throw new IllegalArgumentException("graph must not be null");
+        }
+        if (node == null)
+        {
+            throw new IllegalArgumentException("node must not be null");
+        }
+        if (!graph.nodes().contains(node))
+        {
+            throw new IllegalArgumentException("node must be contained in the specified graph");
+        }
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("threads must be at least one, was " + threads);
+        }
+    }
+
+    /**
+     * Level-synchronous breadth-first search over the specified dense graph.
+     *
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param dense dense graph
+     * @param procedure procedure to run when visiting each node
+     * @param threads number of threads
+     */
+    private static <N, E> void levelSynchronousSearch(final DenseGraph<N, E> dense,
+                                                      final UnaryProcedure<Node<N, E>> procedure,
+                                                      final int threads)
+    {
+        final AtomicLongArray visited = new AtomicLongArray((dense.size() + 63) >>> 6);
+        visit(visited, dense.start);
+        int[] frontier = new int[] { dense.start };
+        int frontierSize = 1;
+        // created on the first level large enough to split, and reused for every level after
+        ExecutorService executorService = null;
+        try
+        {
+            while (frontierSize > 0)
+            {
+                final int[] current = frontier;
+                int chunks = Math.min(threads, (frontierSize + BLOCK_SIZE - 1) / BLOCK_SIZE);
+                int chunkSize = (frontierSize + chunks - 1) / chunks;
+                List<Callable<IntBuffer>> callables = new ArrayList<Callable<IntBuffer>>(chunks);
+                for (int from = 0; from < frontierSize; from += chunkSize)
+                {
+                    final int start = from;
+                    final int end = Math.min(frontierSize, from + chunkSize);
+                    callables.add(new Callable<IntBuffer>()
+                        {
+                            /** {@inheritDoc} */
+                            public IntBuffer call()
+                            {
+                                IntBuffer next = new IntBuffer(end - start);
+                                for (int i = start; i < end; i++)
+                                {
+                                    int u = current[i];
+                                    procedure.run(dense.nodes[u]);
+                                    for (int k = dense.offsets[u], last = dense.offsets[u + 1]; k < last; k++)
+                                    {
+                                        int v = dense.adjacent[k];
+                                        if (visit(visited, v))
+                                        {
+                                            next.add(v);
+                                        }
+                                    }
+                                }
+                                return next;
+                            }
+                        });
+                }
+                if (executorService == null && callables.size() > 1)
+                {
+                    executorService = Executors.newFixedThreadPool(threads - 1);
+                }
+                List<IntBuffer> nexts = callAll(executorService, callables);
+                frontierSize = 0;
+                for (IntBuffer next : nexts)
+                {
+                    frontierSize += next.size;
+                }
+                frontier = new int[frontierSize];
+                int offset = 0;
+                for (IntBuffer next : nexts)
+                {
+                    System.arraycopy(next.values, 0, frontier, offset, next.size);
+                    offset += next.size;
+                }
+            }
+        }
+        finally
+        {
+            if (executorService != null)
+            {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Atomically mark the specified node index visited.
+     *
+     * @param visited visited bits
+     * @param index node index
+     * @return true if the node index was not previously visited
+     */
+    private static boolean visit(final AtomicLongArray visited, final int index)
+    {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        while (true)
+        {
+            long bits = visited.get(word);
+            if ((bits & bit) != 0L)
+            {
+                return false;
+            }
+            if (visited.compareAndSet(word, bits, bits | bit))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Find the root of the specified index in a concurrent union find, halving the path along the way.
+     *
+     * @param parents parent indices
+     * @param index index
+     * @return the root of the specified index
+     */
+    private static int find(final AtomicIntegerArray parents, final int index)
+    {
+        int i = index;
+        int parent = parents.get(i);
+        while (parent != i)
+        {
+            int grandparent = parents.get(parent);
+            if (grandparent != parent)
+            {
+                parents.compareAndSet(i, parent, grandparent);
+            }
+            i = grandparent;
+            parent = parents.get(i);
+        }
+        return i;
+    }
+
+    /**
+     * Merge the sets containing the specified indices in a concurrent union find.  Roots are
+     * always linked from the larger index to the smaller, so concurrent merges cannot form cycles.
+     *
+     * @param parents parent indices
+     * @param index1 first index
+     * @param index2 second index
+     */
+    private static void union(final AtomicIntegerArray parents, final int index1, final int index2)
+    {
+        int root1 = index1;
+        int root2 = index2;
+        while (true)
+        {
+            root1 = find(parents, root1);
+            root2 = find(parents, root2);
+            if (root1 == root2)
+            {
+                return;
+            }
+            int larger = Math.max(root1, root2);
+            int smaller = Math.min(root1, root2);
+            if (parents.compareAndSet(larger, larger, smaller))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Call the first of the specified callables on the calling thread and the rest concurrently
+     * with the specified executor service, and return their results in order.  Frontiers early
+     * and late in a search are often a single block, and are then expanded without leaving the
+     * calling thread.
+     *
+     * @param <T> result type
+     * @param executorService executor service, may be null if there is only one callable
+     * @param callables list of callables
+     * @return the results of the specified callables in order
+     */
+    private static <T> List<T> callAll(final ExecutorService executorService, final List<Callable<T>> callables)
+    {
+        int size = callables.size();
+        List<Future<T>> futures = new ArrayList<Future<T>>(size - 1);
+        for (int i = 1; i < size; i++)
+        {
+            futures.add(executorService.submit(callables.get(i)));
+        }
+        List<T> results = new ArrayList<T>(size);
+        try
+        {
+            results.add(callables.get(0).call());
+            for (Future<T> future : futures)
+            {
+                results.add(future.get());
+            }
+            return results;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            // callables here only throw what the procedure throws, which is unchecked
+            if (e.getCause() instanceof Error)
+            {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+        catch (RuntimeException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Create and return an unmodifiable graph decorator that decorates the specified graph.
      *
@@ -366,4 +875,185 @@ public final class GraphUtils
             throw new UnsupportedOperationException("remove(Edge) operation not supported by this graph");
         }
     }
+
+    /**
+     * Growable buffer of <code>int</code>s.
+     */
+    private static final class IntBuffer
+    {
+        /** Values. */
+        private int[] values;
+
+        /** Size. */
+        private int size;
+
+
+        /**
+         * Create a new int buffer with the specified initial capacity.
+         *
+         * @param capacity initial capacity
+         */
+        private IntBuffer(final int capacity)
+        {
+            values = new int[Math.max(16, capacity)];
+        }
+
+
+        /**
+         * Add the specified value to this int buffer.
+         *
+         * @param value value to add
+         */
+        private void add(final int value)
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Dense, read-only snapshot of the structure of a graph, with nodes numbered
+     * by index and adjacency in compressed sparse row (CSR) arrays.
+     */
+    private static final class DenseGraph<N, E>
+    {
+        /** Nodes by index, <code>null</code> where no node has that index. */
+        private final Node<N, E>[] nodes;
+
+        /** Adjacency offsets by index. */
+        private final int[] offsets;
+
+        /** Adjacent indices, ordered by index. */
+        private final int[] adjacent;
+
+        /** Start index. */
+        private final int start;
+
+
+        /**
+         * Create a new dense graph.
+         *
+         * @param nodes nodes by index
+         * @param sources source index of each edge
+         * @param targets target index of each edge
+         * @param edges number of edges
+         * @param undirected true to include both out and in edges in the adjacency
+         * @param start start index
+         */
+        private DenseGraph(final Node<N, E>[] nodes,
+                           final int[] sources,
+                           final int[] targets,
+                           final int edges,
+                           final boolean undirected,
+                           final int start)
+        {
+            this.nodes = nodes;
+            this.start = start;
+            offsets = new int[nodes.length + 1];
+            for (int e = 0; e < edges; e++)
+            {
+                offsets[sources[e] + 1]++;
+                if (undirected)
+                {
+                    offsets[targets[e] + 1]++;
+                }
+            }
+            for (int i = 0; i < nodes.length; i++)
+            {
+                offsets[i + 1] += offsets[i];
+            }
+            adjacent = new int[offsets[nodes.length]];
+            int[] positions = Arrays.copyOf(offsets, nodes.length);
+            for (int e = 0; e < edges; e++)
+            {
+                adjacent[positions[sources[e]]++] = targets[e];
+                if (undirected)
+                {
+                    adjacent[positions[targets[e]]++] = sources[e];
+                }
+            }
+        }
+
+
+        /**
+         * Return the number of indices in this dense graph.
+         *
+         * @return the number of indices in this dense graph
+         */
+        private int size()
+        {
+            return nodes.length;
+        }
+
+        /**
+         * Create and return a new dense graph for the specified graph.  Nodes in a
+         * compact graph are indexed by id, otherwise by their iteration order.
+         *
+         * @param <N> node value type
+         * @param <E> edge value type
+         * @param graph graph
+         * @param startNode start node, may be null
+         * @param undirected true to include both out and in edges in the adjacency
+         * @return a new dense graph for the specified graph
+         */
+        @SuppressWarnings("unchecked")
+        private static <N, E> DenseGraph<N, E> index(final Graph<N, E> graph,
+                                                     final Node<N, E> startNode,
+                                                     final boolean undirected)
+        {
+            if (graph instanceof CompactGraph)
+            {
+                CompactGraph<N, E> compactGraph = (CompactGraph<N, E>) graph;
+                int size = compactGraph.nodeIdLimit();
+                Node<N, E>[] nodes = (Node<N, E>[]) new Node[size];
+                for (int i = 0; i < size; i++)
+                {
+                    if (compactGraph.containsNode(i))
+                    {
+                        nodes[i] = compactGraph.node(i);
+                    }
+                }
+                int edgeCount = compactGraph.edgeCount();
+                int[] sources = new int[edgeCount];
+                int[] targets = new int[edgeCount];
+                int edges = 0;
+                for (int e = 0, limit = compactGraph.edgeIdLimit(); e < limit; e++)
+                {
+                    if (compactGraph.containsEdge(e))
+                    {
+                        sources[edges] = compactGraph.edgeSource(e);
+                        targets[edges] = compactGraph.edgeTarget(e);
+                        edges++;
+                    }
+                }
+                int start = (startNode == null) ? -1 : compactGraph.nodeId(startNode);
+                return new DenseGraph<N, E>(nodes, sources, targets, edges, undirected, start);
+            }
+
+            int size = graph.nodeCount();
+            Node<N, E>[] nodes = (Node<N, E>[]) new Node[size];
+            Map<Node<N, E>, Integer> indices = new HashMap<Node<N, E>, Integer>((int) (size / 0.75f) + 1);
+            int index = 0;
+            for (Node<N, E> node : graph.nodes())
+            {
+                nodes[index] = node;
+                indices.put(node, Integer.valueOf(index));
+                index++;
+            }
+            int[] sources = new int[graph.edgeCount()];
+            int[] targets = new int[graph.edgeCount()];
+            int edges = 0;
+            for (Edge<N, E> edge : graph.edges())
+            {
+                sources[edges] = indices.get(edge.source()).intValue();
+                targets[edges] = indices.get(edge.target()).intValue();
+                edges++;
+            }
+            int start = (startNode == null) ? -1 : indices.get(startNode).intValue();
+            return new DenseGraph<N, E>(nodes, sources, targets, edges, undirected, start);
+        }
+    }
 }
\ No newline at end of file
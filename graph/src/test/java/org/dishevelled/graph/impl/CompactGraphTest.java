@@ -0,0 +1,357 @@
+/*
+
+    dsh-graph  Directed graph interface and implementation.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.graph.impl;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.dishevelled.graph.AbstractGraphTest;
+import org.dishevelled.graph.Edge;
+import org.dishevelled.graph.Graph;
+import org.dishevelled.graph.Node;
+
+/**
+ * Unit test for CompactGraph.
+ *
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public final class CompactGraphTest
+    extends AbstractGraphTest
+{
+
+    /** {@inheritDoc} */
+    protected <N, E> Graph<N, E> createEmptyGraph()
+    {
+        return new CompactGraph<N, E>();
+    }
+
+    /** {@inheritDoc} */
+    protected <N, E> Graph<N, E> createFullGraph(final N nodeValue, final E edgeValue)
+    {
+        Graph<N, E> graph = new CompactGraph<N, E>();
+        Node<N, E> node0 = graph.createNode(nodeValue);
+        Node<N, E> node1 = graph.createNode(nodeValue);
+        graph.createEdge(node0, node1, edgeValue);
+        return graph;
+    }
+
+    public void testConstructor()
+    {
+        Graph<String, Integer> graph0 = new CompactGraph<String, Integer>();
+        assertNotNull(graph0);
+
+        Graph<String, Integer> graph1 = new CompactGraph<String, Integer>(16, 16);
+        assertNotNull(graph1);
+
+        Graph<String, Integer> graph2 = new CompactGraph<String, Integer>(0, 0);
+        assertNotNull(graph2);
+
+        try
+        {
+            Graph<String, Integer> graph = new CompactGraph<String, Integer>(-1, 16);
+            fail("ctr(-1,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            Graph<String, Integer> graph = new CompactGraph<String, Integer>(16, -1);
+            fail("ctr(,-1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testCopyConstructor()
+    {
+        Graph<String, Integer> emptyGraph = createEmptyGraph();
+        Graph<String, Integer> emptyCopy = new CompactGraph<String, Integer>(emptyGraph);
+        assertNotNull(emptyCopy);
+        assertTrue(emptyCopy.isEmpty());
+
+        Graph<String, Integer> fullGraph = new GraphImpl<String, Integer>();
+        Node<String, Integer> node0 = fullGraph.createNode("foo");
+        Node<String, Integer> node1 = fullGraph.createNode("bar");
+        fullGraph.createEdge(node0, node1, Integer.valueOf(1));
+        Graph<String, Integer> fullCopy = new CompactGraph<String, Integer>(fullGraph);
+        assertNotNull(fullCopy);
+        assertFalse(fullCopy.isEmpty());
+        assertEquals(fullGraph.nodeCount(), fullCopy.nodeCount());
+        assertEquals(fullGraph.edgeCount(), fullCopy.edgeCount());
+        Edge<String, Integer> edge = fullCopy.edges().iterator().next();
+        assertEquals("foo", edge.source().getValue());
+        assertEquals("bar", edge.target().getValue());
+        assertEquals(Integer.valueOf(1), edge.getValue());
+
+        try
+        {
+            Graph<String, Integer> graph = new CompactGraph<String, Integer>(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testFlyweightEquality()
+    {
+        Graph<String, Integer> graph = new CompactGraph<String, Integer>();
+        Node<String, Integer> node0 = graph.createNode("foo");
+        Node<String, Integer> node1 = graph.createNode("bar");
+        Edge<String, Integer> edge = graph.createEdge(node0, node1, Integer.valueOf(1));
+
+        assertEquals(node0, edge.source());
+        assertEquals(node0.hashCode(), edge.source().hashCode());
+        assertEquals(node1, edge.target());
+        assertEquals(edge, node0.outEdges().iterator().next());
+        assertEquals(edge, node1.inEdges().iterator().next());
+        assertFalse(node0.equals(node1));
+
+        Graph<String, Integer> otherGraph = new CompactGraph<String, Integer>();
+        Node<String, Integer> otherNode = otherGraph.createNode("foo");
+        assertFalse(node0.equals(otherNode));
+        assertFalse(graph.nodes().contains(otherNode));
+    }
+
+    public void testGrowth()
+    {
+        Graph<Integer, Integer> graph = new CompactGraph<Integer, Integer>(0, 0);
+        Node<Integer, Integer> hub = graph.createNode(Integer.valueOf(-1));
+        for (int i = 0; i < 1000; i++)
+        {
+            Node<Integer, Integer> node = graph.createNode(Integer.valueOf(i));
+            graph.createEdge(hub, node, Integer.valueOf(i));
+            graph.createEdge(node, hub, Integer.valueOf(i));
+        }
+        assertEquals(1001, graph.nodeCount());
+        assertEquals(2000, graph.edgeCount());
+        assertEquals(2000, hub.degree());
+        assertEquals(1000, hub.outEdges().size());
+        assertEquals(1000, hub.inEdges().size());
+
+        Set<Integer> values = new HashSet<Integer>();
+        for (Edge<Integer, Integer> edge : hub.outEdges())
+        {
+            assertEquals(hub, edge.source());
+            values.add(edge.target().getValue());
+        }
+        assertEquals(1000, values.size());
+    }
+
+    public void testRemoveNodeRemovesEdges()
+    {
+        Graph<String, Integer> graph = new CompactGraph<String, Integer>();
+        Node<String, Integer> node0 = graph.createNode("foo");
+        Node<String, Integer> node1 = graph.createNode("bar");
+        Node<String, Integer> node2 = graph.createNode("baz");
+        Edge<String, Integer> edge01 = graph.createEdge(node0, node1, Integer.valueOf(1));
+        Edge<String, Integer> edge12 = graph.createEdge(node1, node2, Integer.valueOf(2));
+        Edge<String, Integer> edge20 = graph.createEdge(node2, node0, Integer.valueOf(3));
+
+        graph.remove(node1);
+        assertEquals(2, graph.nodeCount());
+        assertEquals(1, graph.edgeCount());
+        assertFalse(graph.edges().contains(edge01));
+        assertFalse(graph.edges().contains(edge12));
+        assertTrue(graph.edges().contains(edge20));
+        assertEquals(0, node0.outEdges().size());
+        assertEquals(1, node0.inEdges().size());
+        assertEquals(0, node2.inEdges().size());
+        assertFalse(node0.outEdges().contains(edge01));
+
+        Node<String, Integer> node3 = graph.createNode("qux");
+        assertFalse(node3.equals(node1));
+        assertEquals(3, graph.nodeCount());
+
+        graph.clear();
+        assertTrue(graph.isEmpty());
+        assertFalse(graph.nodes().contains(node0));
+    }
+
+    public void testNodeAfterClear()
+    {
+        Graph<String, Integer> graph = new CompactGraph<String, Integer>();
+        Node<String, Integer> old = graph.createNode("old");
+        Node<String, Integer> oldTarget = graph.createNode("oldTarget");
+        Edge<String, Integer> oldEdge = graph.createEdge(old, oldTarget, Integer.valueOf(1));
+        graph.clear();
+
+        Node<String, Integer> fresh = graph.createNode("fresh");
+        Node<String, Integer> freshTarget = graph.createNode("freshTarget");
+        Edge<String, Integer> freshEdge = graph.createEdge(fresh, freshTarget, Integer.valueOf(2));
+        assertFalse(graph.nodes().contains(old));
+        assertFalse(graph.edges().contains(oldEdge));
+        assertFalse(old.equals(fresh));
+        assertFalse(oldEdge.equals(freshEdge));
+        assertNull(old.getValue());
+        assertNull(oldEdge.getValue());
+        assertNull(oldEdge.source());
+        assertEquals(0, old.degree());
+        assertTrue(old.outEdges().isEmpty());
+
+        try
+        {
+            graph.remove(old);
+            fail("remove(old) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            graph.remove(oldEdge);
+            fail("remove(oldEdge) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        assertEquals(2, graph.nodeCount());
+        assertEquals(1, graph.edgeCount());
+        assertTrue(graph.nodes().contains(fresh));
+        assertEquals("fresh", fresh.getValue());
+        assertEquals(fresh, freshEdge.source());
+    }
+
+    public void testCreateClearLoop()
+    {
+        CompactGraph<Integer, Integer> graph = new CompactGraph<Integer, Integer>();
+        Node<Integer, Integer> first = null;
+        for (int i = 0; i < 100; i++)
+        {
+            Node<Integer, Integer> previous = graph.createNode(Integer.valueOf(0));
+            if (first == null)
+            {
+                first = previous;
+            }
+            for (int j = 1; j < 10; j++)
+            {
+                Node<Integer, Integer> node = graph.createNode(Integer.valueOf(j));
+                graph.createEdge(previous, node, Integer.valueOf(j));
+                previous = node;
+            }
+            assertEquals(10, graph.nodeIdLimit());
+            assertEquals(9, graph.edgeIdLimit());
+            graph.clear();
+            assertEquals(0, graph.nodeIdLimit());
+            assertEquals(0, graph.edgeIdLimit());
+            assertTrue(graph.isEmpty());
+        }
+        Node<Integer, Integer> node = graph.createNode(Integer.valueOf(42));
+        assertFalse(first.equals(node));
+        assertFalse(graph.nodes().contains(first));
+        assertNull(first.getValue());
+    }
+
+    public void testFreeze()
+    {
+        CompactGraph<String, Integer> graph = new CompactGraph<String, Integer>();
+        assertFalse(graph.isFrozen());
+        Node<String, Integer> node0 = graph.createNode("foo");
+        Node<String, Integer> node1 = graph.createNode("bar");
+        Node<String, Integer> node2 = graph.createNode("baz");
+        Edge<String, Integer> edge01 = graph.createEdge(node0, node1, Integer.valueOf(1));
+        Edge<String, Integer> edge02 = graph.createEdge(node0, node2, Integer.valueOf(2));
+        Edge<String, Integer> edge21 = graph.createEdge(node2, node1, Integer.valueOf(3));
+        Edge<String, Integer> edge10 = graph.createEdge(node1, node0, Integer.valueOf(4));
+        graph.remove(edge10);
+
+        graph.freeze();
+        assertTrue(graph.isFrozen());
+        graph.freeze();
+        assertTrue(graph.isFrozen());
+
+        assertEquals(3, graph.nodeCount());
+        assertEquals(3, graph.edgeCount());
+        assertEquals(2, node0.outEdges().size());
+        assertTrue(node0.outEdges().contains(edge01));
+        assertTrue(node0.outEdges().contains(edge02));
+        assertEquals(0, node0.inEdges().size());
+        assertEquals(2, node1.inEdges().size());
+        assertTrue(node1.inEdges().contains(edge01));
+        assertTrue(node1.inEdges().contains(edge21));
+        assertEquals(1, node2.outEdges().size());
+        assertEquals(1, node2.inEdges().size());
+        assertEquals(2, node2.degree());
+        assertFalse(graph.edges().contains(edge10));
+
+        node0.setValue("new value");
+        assertEquals("new value", node0.getValue());
+        edge01.setValue(Integer.valueOf(5));
+        assertEquals(Integer.valueOf(5), edge01.getValue());
+
+        try
+        {
+            graph.createNode("qux");
+            fail("createNode once frozen expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            graph.createEdge(node0, node1, Integer.valueOf(6));
+            fail("createEdge once frozen expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            graph.remove(node0);
+            fail("remove(Node) once frozen expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            graph.remove(edge01);
+            fail("remove(Edge) once frozen expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            graph.clear();
+            fail("clear once frozen expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+}
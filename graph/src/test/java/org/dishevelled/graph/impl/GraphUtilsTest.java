@@ -23,12 +23,18 @@
 */
 package org.dishevelled.graph.impl;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import junit.framework.TestCase;
 
 import org.dishevelled.functor.UnaryProcedure;
 
+import org.dishevelled.graph.Edge;
 import org.dishevelled.graph.Graph;
 import org.dishevelled.graph.Node;
 
@@ -117,6 +123,49 @@ public final class GraphUtilsTest
         }
     }
 
+    public void testCreateGraphOptimizeForSpace()
+    {
+        assertTrue(GraphUtils.<String, Integer>createGraph(true) instanceof CompactGraph);
+        assertTrue(GraphUtils.<String, Integer>createGraph(false) instanceof GraphImpl);
+        assertTrue(GraphUtils.<String, Integer>createGraph(16, 16, true) instanceof CompactGraph);
+        assertTrue(GraphUtils.<String, Integer>createGraph(16, 16, false) instanceof GraphImpl);
+
+        Graph<String, Integer> fullGraph = GraphUtils.createGraph();
+        Node<String, Integer> node0 = fullGraph.createNode("foo");
+        Node<String, Integer> node1 = fullGraph.createNode("bar");
+        fullGraph.createEdge(node0, node1, Integer.valueOf(0));
+        fullGraph.createEdge(node1, node0, Integer.valueOf(1));
+
+        Graph<String, Integer> compactCopy = GraphUtils.createGraph(fullGraph, true);
+        assertTrue(compactCopy instanceof CompactGraph);
+        assertEquals(fullGraph.nodeCount(), compactCopy.nodeCount());
+        assertEquals(fullGraph.edgeCount(), compactCopy.edgeCount());
+
+        Graph<String, Integer> copy = GraphUtils.createGraph(compactCopy, false);
+        assertTrue(copy instanceof GraphImpl);
+        assertEquals(fullGraph.nodeCount(), copy.nodeCount());
+        assertEquals(fullGraph.edgeCount(), copy.edgeCount());
+
+        try
+        {
+            GraphUtils.createGraph(-1, 16, true);
+            fail("createGraph(-1,,true) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            GraphUtils.createGraph(null, true);
+            fail("createGraph(null, true) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
     public void testConnectedComponentsNullGraph()
     {
         try
@@ -410,6 +459,253 @@ public final class GraphUtilsTest
         }
     }
 
+    /**
+     * Create and return a new random graph with the specified number of nodes and edges.
+     *
+     * @param graph empty graph to fill
+     * @param nodes number of nodes
+     * @param edges number of edges
+     * @param random source of randomness
+     * @return the specified graph filled with random nodes and edges
+     */
+    private static Graph<String, Integer> createRandomGraph(final Graph<String, Integer> graph,
+                                                            final int nodes,
+                                                            final int edges,
+                                                            final Random random)
+    {
+        @SuppressWarnings("unchecked")
+        Node<String, Integer>[] created = new Node[nodes];
+        for (int i = 0; i < nodes; i++)
+        {
+            created[i] = graph.createNode("node" + i);
+        }
+        for (int i = 0; i < edges; i++)
+        {
+            graph.createEdge(created[random.nextInt(nodes)], created[random.nextInt(nodes)], i);
+        }
+        return graph;
+    }
+
+    /**
+     * Create and return a new procedure that collects visited nodes into the specified set.
+     *
+     * @param visited set of visited nodes
+     * @return a new procedure that collects visited nodes into the specified set
+     */
+    private static UnaryProcedure<Node<String, Integer>> collect(final Set<Node<String, Integer>> visited)
+    {
+        return new UnaryProcedure<Node<String, Integer>>()
+            {
+                /** {@inheritDoc} */
+                public void run(final Node<String, Integer> node)
+                {
+                    assertTrue(visited.add(node));
+                }
+            };
+    }
+
+    /**
+     * Return the set of nodes reachable from the specified node along out edges.
+     *
+     * @param node node to start from
+     * @return the set of nodes reachable from the specified node along out edges
+     */
+    private static Set<Node<String, Integer>> reachable(final Node<String, Integer> node)
+    {
+        Set<Node<String, Integer>> reachable = new HashSet<Node<String, Integer>>();
+        List<Node<String, Integer>> stack = new ArrayList<Node<String, Integer>>();
+        reachable.add(node);
+        stack.add(node);
+        while (!stack.isEmpty())
+        {
+            for (Edge<String, Integer> edge : stack.remove(stack.size() - 1).outEdges())
+            {
+                if (reachable.add(edge.target()))
+                {
+                    stack.add(edge.target());
+                }
+            }
+        }
+        return reachable;
+    }
+
+    public void testParallelBreadthFirstSearch()
+    {
+        Random random = new Random(42L);
+        List<Graph<String, Integer>> graphs = new ArrayList<Graph<String, Integer>>();
+        graphs.add(createRandomGraph(new GraphImpl<String, Integer>(), 20000, 24000, random));
+        graphs.add(createRandomGraph(new CompactGraph<String, Integer>(), 20000, 24000, random));
+        for (Graph<String, Integer> graph : graphs)
+        {
+            Node<String, Integer> node = graph.nodes().iterator().next();
+            Set<Node<String, Integer>> expected = reachable(node);
+
+            for (int threads = 1; threads < 5; threads++)
+            {
+                Set<Node<String, Integer>> visited = Collections.synchronizedSet(new HashSet<Node<String, Integer>>());
+                GraphUtils.parallelBreadthFirstSearch(graph, node, collect(visited), threads);
+                assertEquals(expected, visited);
+            }
+        }
+    }
+
+    public void testParallelBreadthFirstSearchArguments()
+    {
+        Graph<String, Integer> graph = new GraphImpl<String, Integer>();
+        Node<String, Integer> node0 = graph.createNode("node0");
+        Node<String, Integer> node1 = graph.createNode("node1");
+        graph.createEdge(node0, node1, 0);
+        Set<Node<String, Integer>> visited = Collections.synchronizedSet(new HashSet<Node<String, Integer>>());
+        UnaryProcedure<Node<String, Integer>> procedure = collect(visited);
+
+        GraphUtils.parallelBreadthFirstSearch(graph, node1, procedure);
+        assertEquals(Collections.singleton(node1), visited);
+
+        try
+        {
+            GraphUtils.parallelBreadthFirstSearch(null, node0, procedure);
+            fail("parallelBreadthFirstSearch(null,,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            GraphUtils.parallelBreadthFirstSearch(graph, null, procedure);
+            fail("parallelBreadthFirstSearch(,null,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            GraphUtils.parallelBreadthFirstSearch(graph, node0, null);
+            fail("parallelBreadthFirstSearch(,,null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            GraphUtils.parallelBreadthFirstSearch(graph, node0, procedure, 0);
+            fail("parallelBreadthFirstSearch(,,,0) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        Graph<String, Integer> graph1 = new GraphImpl<String, Integer>();
+        Node<String, Integer> node2 = graph1.createNode("node2");
+        try
+        {
+            GraphUtils.parallelBreadthFirstSearch(graph, node2, procedure);
+            fail("parallelBreadthFirstSearch(,node2,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testParallelUndirectedBreadthFirstSearch()
+    {
+        Random random = new Random(42L);
+        List<Graph<String, Integer>> graphs = new ArrayList<Graph<String, Integer>>();
+        graphs.add(createRandomGraph(new GraphImpl<String, Integer>(), 20000, 12000, random));
+        graphs.add(createRandomGraph(new CompactGraph<String, Integer>(), 20000, 12000, random));
+        for (Graph<String, Integer> graph : graphs)
+        {
+            Node<String, Integer> node = graph.edges().iterator().next().source();
+            Set<Node<String, Integer>> expected = new HashSet<Node<String, Integer>>();
+            GraphUtils.undirectedBreadthFirstSearch(graph, node, collect(expected));
+
+            for (int threads = 1; threads < 5; threads++)
+            {
+                Set<Node<String, Integer>> visited = Collections.synchronizedSet(new HashSet<Node<String, Integer>>());
+                GraphUtils.parallelUndirectedBreadthFirstSearch(graph, node, collect(visited), threads);
+                assertEquals(expected, visited);
+            }
+        }
+    }
+
+    public void testParallelConnectedComponents()
+    {
+        assertTrue(GraphUtils.parallelConnectedComponents(GraphUtils.<String, Integer>createGraph()).isEmpty());
+
+        Random random = new Random(42L);
+        List<Graph<String, Integer>> graphs = new ArrayList<Graph<String, Integer>>();
+        graphs.add(createRandomGraph(new GraphImpl<String, Integer>(), 20000, 12000, random));
+        graphs.add(createRandomGraph(new CompactGraph<String, Integer>(), 20000, 12000, random));
+        for (Graph<String, Integer> graph : graphs)
+        {
+            Set<Set<Node<String, Integer>>> expected = GraphUtils.connectedComponents(graph);
+            for (int threads = 1; threads < 5; threads++)
+            {
+                assertEquals(expected, GraphUtils.parallelConnectedComponents(graph, threads));
+            }
+        }
+
+        CompactGraph<String, Integer> compactGraph = new CompactGraph<String, Integer>();
+        Node<String, Integer> node0 = compactGraph.createNode("node0");
+        Node<String, Integer> node1 = compactGraph.createNode("node1");
+        Node<String, Integer> node2 = compactGraph.createNode("node2");
+        compactGraph.createEdge(node0, node2, 0);
+        compactGraph.remove(node1);
+        compactGraph.freeze();
+        Set<Set<Node<String, Integer>>> connectedComponents = GraphUtils.parallelConnectedComponents(compactGraph);
+        assertEquals(1, connectedComponents.size());
+        assertEquals(2, connectedComponents.iterator().next().size());
+
+        try
+        {
+            GraphUtils.parallelConnectedComponents(null);
+            fail("parallelConnectedComponents(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            GraphUtils.parallelConnectedComponents(compactGraph, 0);
+            fail("parallelConnectedComponents(,0) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testParallelTraversalsLargeGraph()
+    {
+        Random random = new Random(42L);
+        Graph<String, Integer> graph = createRandomGraph(new CompactGraph<String, Integer>(), 100000, 90000, random);
+        Node<String, Integer> node = graph.edges().iterator().next().source();
+
+        Set<Node<String, Integer>> visited = Collections.synchronizedSet(new HashSet<Node<String, Integer>>());
+        GraphUtils.parallelBreadthFirstSearch(graph, node, collect(visited), 4);
+        assertEquals(reachable(node), visited);
+
+        Set<Set<Node<String, Integer>>> expected = GraphUtils.parallelConnectedComponents(graph, 1);
+        assertEquals(expected, GraphUtils.parallelConnectedComponents(graph, 4));
+
+        Set<Node<String, Integer>> component = null;
+        for (Set<Node<String, Integer>> connectedComponent : expected)
+        {
+            if (connectedComponent.contains(node))
+            {
+                component = connectedComponent;
+            }
+        }
+        Set<Node<String, Integer>> undirected = Collections.synchronizedSet(new HashSet<Node<String, Integer>>());
+        GraphUtils.parallelUndirectedBreadthFirstSearch(graph, node, collect(undirected), 4);
+        assertEquals(component, undirected);
+    }
+
     public void testUnmodifiableGraph()
     {
         // see GraphUtilsUnmodifiableGraphTest for add'l tests
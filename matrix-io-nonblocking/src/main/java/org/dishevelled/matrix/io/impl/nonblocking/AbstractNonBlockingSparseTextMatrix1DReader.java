@@ -45,4 +45,14 @@ public abstract class AbstractNonBlockingSparseTextMatrix1DReader<E>
     {
         return new NonBlockingSparseMatrix1D<E>(size, cardinality);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Non-blocking sparse matrices support concurrent calls to <code>set</code>.
+     */
+    protected final boolean isConcurrent()
+    {
+        return true;
+    }
 }
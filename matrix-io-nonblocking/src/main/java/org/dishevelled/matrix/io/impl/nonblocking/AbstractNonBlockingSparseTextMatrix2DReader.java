@@ -45,4 +45,14 @@ public abstract class AbstractNonBlockingSparseTextMatrix2DReader<E>
     {
         return new NonBlockingSparseMatrix2D<E>(rows, columns, cardinality);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Non-blocking sparse matrices support concurrent calls to <code>set</code>.
+     */
+    protected final boolean isConcurrent()
+    {
+        return true;
+    }
 }
@@ -45,4 +45,14 @@ public abstract class AbstractNonBlockingSparseTextMatrix3DReader<E>
     {
         return new NonBlockingSparseMatrix3D<E>(slices, rows, columns, cardinality);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Non-blocking sparse matrices support concurrent calls to <code>set</code>.
+     */
+    protected final boolean isConcurrent()
+    {
+        return true;
+    }
 }
@@ -46,4 +46,14 @@ public final class NonBlockingSparseMatrixMarketReader
     {
         return new NonBlockingSparseMatrix2D<Double>(rows, columns, cardinality);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Non-blocking sparse matrices support concurrent calls to <code>set</code>.
+     */
+    protected final boolean isConcurrent()
+    {
+        return true;
+    }
 }
\ No newline at end of file
@@ -24,11 +24,16 @@
 package org.dishevelled.matrix.io.impl.nonblocking;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import java.net.URL;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import junit.framework.TestCase;
 
 import org.dishevelled.matrix.Matrix2D;
@@ -470,6 +475,61 @@ public final class NonBlockingSparseMatrixMarketReaderTest
         }
     }
 
+    public void testReadFileExecutorService() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("%%MatrixMarket matrix coordinate real general\n");
+        sb.append("200 300 60000\n");
+        for (int row = 1; row <= 200; row++)
+        {
+            for (int column = 1; column <= 300; column++)
+            {
+                sb.append(row + " " + column + " " + (row * 1000 + column) + "\n");
+            }
+        }
+        File file = createFile(sb.toString());
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try
+        {
+            NonBlockingSparseMatrixMarketReader reader = new NonBlockingSparseMatrixMarketReader();
+            Matrix2D<Double> matrix = reader.readConcurrently(file, executorService, 16);
+            assertEquals(200, matrix.rows());
+            assertEquals(300, matrix.columns());
+            assertEquals(60000, matrix.cardinality());
+            for (long row = 0; row < 200; row++)
+            {
+                for (long column = 0; column < 300; column++)
+                {
+                    assertEquals(Double.valueOf((row + 1) * 1000 + column + 1), matrix.get(row, column));
+                }
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    public void testReadFileExecutorServiceOutOfBounds() throws IOException
+    {
+        File file = createFile("%%MatrixMarket matrix coordinate real general\n2 2 2\n1 1 1.0\n3 1 1.0\n");
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try
+        {
+            NonBlockingSparseMatrixMarketReader reader = new NonBlockingSparseMatrixMarketReader();
+            reader.readConcurrently(file, executorService, 2);
+            fail("readConcurrently(file, executorService, 2) expected IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("IndexOutOfBoundsException"));
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
     /**
      * Close the specified input stream quietly.
      *
@@ -489,4 +549,31 @@ public final class NonBlockingSparseMatrixMarketReaderTest
             // ignore
         }
     }
+
+    /**
+     * Create a new temporary file with the specified text.
+     *
+     * @param text text
+     * @return a new temporary file with the specified text
+     * @throws IOException if an I/O error occurs
+     */
+    private static File createFile(final String text) throws IOException
+    {
+        File file = File.createTempFile("nonBlockingReaderTest", ".txt");
+        file.deleteOnExit();
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream(file);
+            outputStream.write(text.getBytes("US-ASCII"));
+        }
+        finally
+        {
+            if (outputStream != null)
+            {
+                outputStream.close();
+            }
+        }
+        return file;
+    }
 }
\ No newline at end of file
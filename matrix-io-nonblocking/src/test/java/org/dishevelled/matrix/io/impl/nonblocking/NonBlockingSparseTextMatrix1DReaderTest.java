@@ -25,6 +25,11 @@ package org.dishevelled.matrix.io.impl.nonblocking;
 
 import java.io.IOException;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.dishevelled.functor.UnaryFunction;
 
@@ -146,4 +151,79 @@ public final class NonBlockingSparseTextMatrix1DReaderTest
         assertEquals("foo", matrix.get(0));
         assertEquals(null, matrix.get(1));
     }
+
+    public void testReadFileExecutorService() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("5000\t5000\n");
+        for (int index = 0; index < 5000; index++)
+        {
+            sb.append(index + "\t");
+            sb.append("value " + index);
+            sb.append("\n");
+        }
+        File file = createFile(sb.toString());
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try
+        {
+            NonBlockingSparseTextMatrix1DReader<String> reader = new NonBlockingSparseTextMatrix1DReader<String>(PARSER);
+            Matrix1D<String> matrix = reader.readConcurrently(file, executorService, 8);
+            assertEquals(5000, matrix.size());
+            assertEquals(5000, matrix.cardinality());
+            for (int index = 0; index < 5000; index++)
+            {
+                assertEquals("value " + index, matrix.get(index));
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    public void testReadEmptyFileExecutorService() throws IOException
+    {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try
+        {
+            NonBlockingSparseTextMatrix1DReader<String> reader = new NonBlockingSparseTextMatrix1DReader<String>(PARSER);
+            reader.readConcurrently(createFile(""), executorService);
+            fail("empty file expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Create a new temporary file with the specified text.
+     *
+     * @param text text
+     * @return a new temporary file with the specified text
+     * @throws IOException if an I/O error occurs
+     */
+    private static File createFile(final String text) throws IOException
+    {
+        File file = File.createTempFile("nonBlockingReaderTest", ".txt");
+        file.deleteOnExit();
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream(file);
+            outputStream.write(text.getBytes("US-ASCII"));
+        }
+        finally
+        {
+            if (outputStream != null)
+            {
+                outputStream.close();
+            }
+        }
+        return file;
+    }
 }
\ No newline at end of file
@@ -24,7 +24,12 @@
 package org.dishevelled.matrix.io.impl.nonblocking;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.dishevelled.functor.UnaryFunction;
 
@@ -151,4 +156,86 @@ public final class NonBlockingSparseTextMatrix2DReaderTest
         assertEquals(null, matrix.get(0, 1));
         assertEquals(null, matrix.get(1, 1));
     }
+
+    public void testReadFileExecutorService() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("50\t100\t5000\n");
+        for (int row = 0; row < 50; row++)
+        {
+            for (int column = 0; column < 100; column++)
+            {
+                sb.append(row + "\t" + column + "\t");
+                sb.append("value " + row + "," + column);
+                sb.append("\n");
+            }
+        }
+        File file = createFile(sb.toString());
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try
+        {
+            NonBlockingSparseTextMatrix2DReader<String> reader = new NonBlockingSparseTextMatrix2DReader<String>(PARSER);
+            Matrix2D<String> matrix = reader.readConcurrently(file, executorService, 8);
+            assertEquals(50, matrix.rows());
+            assertEquals(100, matrix.columns());
+            assertEquals(5000, matrix.cardinality());
+            for (int row = 0; row < 50; row++)
+            {
+                for (int column = 0; column < 100; column++)
+                {
+                    assertEquals("value " + row + "," + column, matrix.get(row, column));
+                }
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    public void testReadEmptyFileExecutorService() throws IOException
+    {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try
+        {
+            NonBlockingSparseTextMatrix2DReader<String> reader = new NonBlockingSparseTextMatrix2DReader<String>(PARSER);
+            reader.readConcurrently(createFile(""), executorService);
+            fail("empty file expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Create a new temporary file with the specified text.
+     *
+     * @param text text
+     * @return a new temporary file with the specified text
+     * @throws IOException if an I/O error occurs
+     */
+    private static File createFile(final String text) throws IOException
+    {
+        File file = File.createTempFile("nonBlockingReaderTest", ".txt");
+        file.deleteOnExit();
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream(file);
+            outputStream.write(text.getBytes("US-ASCII"));
+        }
+        finally
+        {
+            if (outputStream != null)
+            {
+                outputStream.close();
+            }
+        }
+        return file;
+    }
 }
@@ -24,7 +24,12 @@
 package org.dishevelled.matrix.io.impl.nonblocking;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.dishevelled.functor.UnaryFunction;
 
@@ -183,4 +188,93 @@ public final class NonBlockingSparseTextMatrix3DReaderTest
         assertEquals(null, matrix.get(0, 1, 0));
         assertEquals(null, matrix.get(1, 1, 0));
     }
+
+    public void testReadFileExecutorService() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("10\t20\t30\t6000\n");
+        for (int slice = 0; slice < 10; slice++)
+        {
+            for (int row = 0; row < 20; row++)
+            {
+                for (int column = 0; column < 30; column++)
+                {
+                    sb.append(slice + "\t" + row + "\t" + column + "\t");
+                    sb.append("value " + slice + "," + row + "," + column);
+                    sb.append("\n");
+                }
+            }
+        }
+        File file = createFile(sb.toString());
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try
+        {
+            NonBlockingSparseTextMatrix3DReader<String> reader = new NonBlockingSparseTextMatrix3DReader<String>(PARSER);
+            Matrix3D<String> matrix = reader.readConcurrently(file, executorService, 8);
+            assertEquals(10, matrix.slices());
+            assertEquals(20, matrix.rows());
+            assertEquals(30, matrix.columns());
+            assertEquals(6000, matrix.cardinality());
+            for (int slice = 0; slice < 10; slice++)
+            {
+                for (int row = 0; row < 20; row++)
+                {
+                    for (int column = 0; column < 30; column++)
+                    {
+                        assertEquals("value " + slice + "," + row + "," + column, matrix.get(slice, row, column));
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    public void testReadEmptyFileExecutorService() throws IOException
+    {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try
+        {
+            NonBlockingSparseTextMatrix3DReader<String> reader = new NonBlockingSparseTextMatrix3DReader<String>(PARSER);
+            reader.readConcurrently(createFile(""), executorService);
+            fail("empty file expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Create a new temporary file with the specified text.
+     *
+     * @param text text
+     * @return a new temporary file with the specified text
+     * @throws IOException if an I/O error occurs
+     */
+    private static File createFile(final String text) throws IOException
+    {
+        File file = File.createTempFile("nonBlockingReaderTest", ".txt");
+        file.deleteOnExit();
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream(file);
+            outputStream.write(text.getBytes("US-ASCII"));
+        }
+        finally
+        {
+            if (outputStream != null)
+            {
+                outputStream.close();
+            }
+        }
+        return file;
+    }
 }
\ No newline at end of file
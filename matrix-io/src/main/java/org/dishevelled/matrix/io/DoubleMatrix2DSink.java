@@ -0,0 +1,53 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io;
+
+/**
+ * Sink for primitive double values read into a matrix in two dimensions.
+ *
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public interface DoubleMatrix2DSink
+{
+
+    /**
+     * Notify this sink of the dimensions of the matrix being read.  This
+     * method is called once, before any calls to <code>set</code>.
+     *
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param cardinality approximate number of values to be set
+     */
+    void dimensions(long rows, long columns, long cardinality);
+
+    /**
+     * Notify this sink that the specified value was read at the specified coordinates.
+     *
+     * @param row row index, within <code>[0, rows)</code>
+     * @param column column index, within <code>[0, columns)</code>
+     * @param value value
+     */
+    void set(long row, long column, double value);
+}
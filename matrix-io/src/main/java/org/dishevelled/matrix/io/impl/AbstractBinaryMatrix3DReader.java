@@ -0,0 +1,78 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.dishevelled.matrix.Matrix3D;
+
+/**
+ * Abstract binary columnar format reader for matrices of doubles in three dimensions.
+ *
+ * @author  Michael Heuer
+ */
+public abstract class AbstractBinaryMatrix3DReader
+    extends AbstractMatrix3DReader<Double>
+{
+
+    /**
+     * {@inheritDoc}
+     *
+     * Not used, values are stored as doubles in the binary format.
+     */
+    protected final Double parse(final String value) throws IOException
+    {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public final Matrix3D<Double> read(final InputStream inputStream) throws IOException
+    {
+        if (inputStream == null)
+        {
+            throw new IllegalArgumentException("inputStream must not be null");
+        }
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream, 65536));
+        BinaryMatrixFormat.Header header = BinaryMatrixFormat.Header.read(input, 3);
+        Matrix3D<Double> matrix = createMatrix3D(header.slices, header.rows, header.columns,
+                                                 header.approximateCardinality());
+        long sliceSize = header.rows * header.columns;
+        long size = header.slices * sliceSize;
+        BinaryMatrixFormat.Block block = null;
+        while ((block = BinaryMatrixFormat.readBlock(input, header, size)) != null)
+        {
+            for (int i = 0; i < block.entries; i++)
+            {
+                long index = block.indices[i];
+                long remainder = index % sliceSize;
+                matrix.setQuick(index / sliceSize, remainder / header.columns, remainder % header.columns,
+                                Double.valueOf(block.values[i]));
+            }
+        }
+        return matrix;
+    }
+}
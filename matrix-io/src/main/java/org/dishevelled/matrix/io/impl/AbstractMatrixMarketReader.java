@@ -23,22 +23,35 @@
 */
 package org.dishevelled.matrix.io.impl;
 
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import java.util.concurrent.ExecutorService;
+
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.dishevelled.matrix.Matrix2D;
 
+import org.dishevelled.matrix.io.DoubleMatrix2DSink;
+
 /**
  * Abstract Matrix Market format reader for matrices of doubles in two dimensions.
  *
+ * <p>
+ * Files are parsed directly from bytes by {@link ByteTokenizer}, without creating
+ * strings for each line or token.  In addition to reading into a new <code>Matrix2D&lt;Double&gt;</code>,
+ * values may be read into a {@link DoubleMatrix2DSink} as primitive doubles, either from an
+ * input stream, such as a decompressing input stream, or from a file, which is read through
+ * read-only memory mapped windows.  Uncompressed and BGZF-compressed files may also be read
+ * in parallel chunks on an executor service.
+ * </p>
+ *
  * @author  Michael Heuer
  * @version $Revision$ $Date$
  */
@@ -78,96 +91,411 @@ public abstract class AbstractMatrixMarketReader
         {
             throw new IllegalArgumentException ("inputStream must not be null");
         }
-        int lineNumber = 0;
-        BufferedReader reader = null;
+        Matrix2DSink sink = new Matrix2DSink();
+        try
+        {
+            read(new ByteTokenizer(inputStream), sink);
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(inputStream);
+        }
+        return sink.getMatrix();
+    }
+
+    /**
+     * Read values from the specified input stream into the specified sink.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @param sink sink to read into, must not be null
+     * @throws IOException if an IO error occurs
+     */
+    public final void read(final InputStream inputStream, final DoubleMatrix2DSink sink) throws IOException
+    {
+        if (inputStream == null)
+        {
+            throw new IllegalArgumentException ("inputStream must not be null");
+        }
+        if (sink == null)
+        {
+            throw new IllegalArgumentException("sink must not be null");
+        }
+        try
+        {
+            read(new ByteTokenizer(inputStream), sink);
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Read values from the specified file into the specified sink.  The file is
+     * read through read-only memory mapped windows.
+     *
+     * @param file file to read from, must not be null
+     * @param sink sink to read into, must not be null
+     * @throws IOException if an IO error occurs
+     */
+    public final void read(final File file, final DoubleMatrix2DSink sink) throws IOException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        if (sink == null)
+        {
+            throw new IllegalArgumentException("sink must not be null");
+        }
+        FileInputStream inputStream = null;
+        try
+        {
+            inputStream = new FileInputStream(file);
+            read(new ByteTokenizer(inputStream.getChannel()), sink);
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Read values from the specified file into the specified sink in parallel, using
+     * the default number of chunks.  The file may be uncompressed or BGZF-compressed.
+     *
+     * @param file file to read from, must not be null
+     * @param sink sink to read into, must not be null and must be thread safe
+     * @param executorService executor service to read chunks of the file on, must not be null
+     * @throws IOException if an IO error occurs
+     */
+    public final void readConcurrently(final File file,
+                                       final DoubleMatrix2DSink sink,
+                                       final ExecutorService executorService)
+        throws IOException
+    {
+        readConcurrently(file, sink, executorService, 0);
+    }
+
+    /**
+     * Read values from the specified file into the specified sink in parallel, using
+     * the specified number of chunks.  The file may be uncompressed or BGZF-compressed.
+     * Calls to <code>set</code> on the specified sink will be made concurrently from the
+     * threads of the specified executor service.
+     *
+     * @param file file to read from, must not be null
+     * @param sink sink to read into, must not be null and must be thread safe
+     * @param executorService executor service to read chunks of the file on, must not be null
+     * @param chunks number of chunks, or <code>0</code> to use the default number of chunks
+     * @throws IOException if an IO error occurs
+     */
+    public final void readConcurrently(final File file,
+                                       final DoubleMatrix2DSink sink,
+                                       final ExecutorService executorService,
+                                       final int chunks)
+        throws IOException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        if (sink == null)
+        {
+            throw new IllegalArgumentException("sink must not be null");
+        }
+        if (executorService == null)
+        {
+            throw new IllegalArgumentException("executorService must not be null");
+        }
+        if (chunks < 0)
+        {
+            throw new IllegalArgumentException("chunks must be at least zero");
+        }
+        ChunkedLineReader chunkedLineReader = null;
+        InputStream inputStream = null;
+        try
+        {
+            chunkedLineReader = new ChunkedLineReader(file);
+            inputStream = chunkedLineReader.open();
+            ByteTokenizer tokenizer = new ByteTokenizer(inputStream);
+            EntryHandler entryHandler = readHeader(tokenizer, sink);
+            long start = tokenizer.position();
+            MatrixIOUtils.closeQuietly(inputStream);
+            inputStream = null;
+            chunkedLineReader.read(start, chunks == 0 ? chunkedLineReader.defaultChunks() : chunks,
+                                   executorService, entryHandler);
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(inputStream);
+            if (chunkedLineReader != null)
+            {
+                chunkedLineReader.close();
+            }
+        }
+    }
+
+    /**
+     * Read a new 2D matrix from the specified file in parallel, using the default number
+     * of chunks.  The file may be uncompressed or BGZF-compressed.
+     *
+     * @param file file to read from, must not be null
+     * @param executorService executor service to read chunks of the file on, must not be null
+     * @return a new 2D matrix read from the specified file
+     * @throws IOException if an IO error occurs
+     */
+    public final Matrix2D<Double> readConcurrently(final File file, final ExecutorService executorService)
+        throws IOException
+    {
+        return readConcurrently(file, executorService, 0);
+    }
+
+    /**
+     * Read a new 2D matrix from the specified file in parallel, using the specified number
+     * of chunks.  The file may be uncompressed or BGZF-compressed.  If this reader does not
+     * create {@link #isConcurrent() concurrent} matrices, values are parsed in parallel but
+     * set one at a time.
+     *
+     * @param file file to read from, must not be null
+     * @param executorService executor service to read chunks of the file on, must not be null
+     * @param chunks number of chunks, or <code>0</code> to use the default number of chunks
+     * @return a new 2D matrix read from the specified file
+     * @throws IOException if an IO error occurs
+     */
+    public final Matrix2D<Double> readConcurrently(final File file,
+                                                   final ExecutorService executorService,
+                                                   final int chunks)
+        throws IOException
+    {
+        Matrix2DSink sink = isConcurrent() ? new Matrix2DSink() : new SynchronizedMatrix2DSink();
+        readConcurrently(file, sink, executorService, chunks);
+        return sink.getMatrix();
+    }
+
+    /**
+     * Return true if matrices created by this reader support concurrent calls to <code>set</code>.
+     * Defaults to <code>false</code>.
+     *
+     * @return true if matrices created by this reader support concurrent calls to <code>set</code>
+     */
+    protected boolean isConcurrent()
+    {
+        return false;
+    }
+
+    /**
+     * Read values from the specified tokenizer into the specified sink.
+     *
+     * @param tokenizer tokenizer to read from
+     * @param sink sink to read into
+     * @throws IOException if an IO error occurs
+     */
+    private void read(final ByteTokenizer tokenizer, final DoubleMatrix2DSink sink) throws IOException
+    {
+        EntryHandler entryHandler = readHeader(tokenizer, sink);
+        try
+        {
+            for (int c = tokenizer.skipWhitespace(); c != -1; c = tokenizer.skipWhitespace())
+            {
+                entryHandler.handle(tokenizer);
+                tokenizer.skipLine();
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("caught NumberFormatException at line number " + tokenizer.lineNumber()
+                                  + "\n" + e.getMessage());
+            // jdk 1.6+
+            //throw new IOException("caught NumberFormatException at line number " + lineNumber, e);
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            throw new IOException("caught IndexOutOfBoundsException at line number " + tokenizer.lineNumber()
+                                  + "\n" + e.getMessage());
+            // jdk 1.6+
+            //throw new IOException("caught IndexOutOfBoundsException at line number " + lineNumber, e);
+        }
+    }
+
+    /**
+     * Read the header line, comments, and matrix size definition from the specified tokenizer,
+     * notify the specified sink of the dimensions, and return an entry handler for the remaining lines.
+     *
+     * @param tokenizer tokenizer to read from
+     * @param sink sink to read into
+     * @return an entry handler for the remaining lines
+     * @throws IOException if an IO error occurs
+     */
+    private static EntryHandler readHeader(final ByteTokenizer tokenizer, final DoubleMatrix2DSink sink)
+        throws IOException
+    {
         ReaderStrategy readerStrategy = null;
-        Matrix2D<Double> matrix = null;
         try
         {
-            reader = new BufferedReader(new InputStreamReader(inputStream));
-            while (reader.ready())
+            for (int c = tokenizer.skipWhitespace(); c != -1; c = tokenizer.skipWhitespace())
             {
-                String line = reader.readLine();
-                if (line.startsWith("%"))
+                if (c == '%')
                 {
-                    Matcher m = HEADER.matcher(line);
-                    if (m.matches())
+                    if (readerStrategy == null)
                     {
-                        String format = m.group(1); // coordinate, array
-                        if (!("coordinate".equals(format)))
+                        Matcher m = HEADER.matcher(tokenizer.nextLine());
+                        if (m.matches())
                         {
-                            throw new IOException("header line format must be coordinate, was " + format);
-                        }
-                        String type = m.group(2); // real, complex, integer, pattern
-                        if (!("real".equals(type) || "integer".equals(type)))
-                        {
-                            throw new IOException("header line type must be real or integer, was " + type);
-                        }
-                        String symmetryStructure = m.group(3); // general, symmetric, skew-symmetric, hermitian
-                        readerStrategy = STRATEGIES.get(symmetryStructure);
-                        if (readerStrategy == null)
-                        {
-                            throw new IOException("header line symmetry structure must be one of:  general, symmetric,"
-                                                  + "skew-symmetric, or hermitian; was " + symmetryStructure);
+                            String format = m.group(1); // coordinate, array
+                            if (!("coordinate".equals(format)))
+                            {
+                                throw new IOException("header line format must be coordinate, was " + format);
+                            }
+                            String type = m.group(2); // real, complex, integer, pattern
+                            if (!("real".equals(type) || "integer".equals(type)))
+                            {
+                                throw new IOException("header line type must be real or integer, was " + type);
+                            }
+                            String symmetryStructure = m.group(3); // general, symmetric, skew-symmetric, hermitian
+                            readerStrategy = STRATEGIES.get(symmetryStructure);
+                            if (readerStrategy == null)
+                            {
+                                throw new IOException("header line symmetry structure must be one of:  general, symmetric,"
+                                                      + "skew-symmetric, or hermitian; was " + symmetryStructure);
+                            }
                         }
                     }
+                    else
+                    {
+                        tokenizer.skipLine();
+                    }
                 }
                 else
                 {
-                    String[] tokens = line.split("\\s+");
-                    if (matrix == null)
+                    long rows = tokenizer.nextLong();
+                    long columns = tokenizer.nextLong();
+                    long entries = tokenizer.nextLong();
+                    if (readerStrategy == null)
                     {
-                        long rows = Long.parseLong(tokens[0]);
-                        long columns = Long.parseLong(tokens[1]);
-                        int entries = Integer.parseInt(tokens[2]);
-                        if (readerStrategy == null)
-                        {
-                            throw new IOException("read matrix size definition at line number " + lineNumber
-                                                  + " before reading header line");
-                        }
-                        int cardinality = readerStrategy.cardinality(entries);
-                        matrix = createMatrix2D(rows, columns, cardinality);
-                    }
-                    else
-                    {
-                        long row = Long.parseLong(tokens[0]);
-                        long column = Long.parseLong(tokens[1]);
-                        double value = Double.parseDouble(tokens[2]);
-                        if (readerStrategy == null)
-                        {
-                            throw new IOException("read values at line number " + lineNumber
-                                                  + " before reading header line");
-                        }
-                        // note:  indices in the file are 1-based
-                        readerStrategy.read(matrix, row - 1, column - 1, value);
+                        throw new IOException("read matrix size definition at line number " + tokenizer.lineNumber()
+                                              + " before reading header line");
                     }
+                    sink.dimensions(rows, columns, readerStrategy.cardinality(entries));
+                    tokenizer.skipLine();
+                    return new EntryHandler(readerStrategy, rows, columns, sink);
                 }
-                lineNumber++;
             }
         }
         catch (NumberFormatException e)
         {
-            throw new IOException("caught NumberFormatException at line number " + lineNumber
+            throw new IOException("caught NumberFormatException at line number " + tokenizer.lineNumber()
                                   + "\n" + e.getMessage());
-            // jdk 1.6+
-            //throw new IOException("caught NumberFormatException at line number " + lineNumber, e);
         }
-        catch (IndexOutOfBoundsException e)
+        throw new IOException("could not create create matrix, check header and first non-comment line");
+    }
+
+    /**
+     * Line handler for entries, after the matrix size definition.
+     */
+    private static final class EntryHandler
+        implements LineHandler
+    {
+        /** Reader strategy. */
+        private final ReaderStrategy readerStrategy;
+
+        /** Number of rows. */
+        private final long rows;
+
+        /** Number of columns. */
+        private final long columns;
+
+        /** Sink. */
+        private final DoubleMatrix2DSink sink;
+
+
+        /**
+         * Create a new entry handler.
+         *
+         * @param readerStrategy reader strategy
+         * @param rows number of rows
+         * @param columns number of columns
+         * @param sink sink
+         */
+        EntryHandler(final ReaderStrategy readerStrategy, final long rows, final long columns,
+                     final DoubleMatrix2DSink sink)
         {
-            throw new IOException("caught IndexOutOfBoundsException at line number " + lineNumber
-                                  + "\n" + e.getMessage());
-            // jdk 1.6+
-            //throw new IOException("caught IndexOutOfBoundsException at line number " + lineNumber, e);
+            this.readerStrategy = readerStrategy;
+            this.rows = rows;
+            this.columns = columns;
+            this.sink = sink;
         }
-        finally
+
+
+        /** {@inheritDoc} */
+        public void handle(final ByteTokenizer tokenizer) throws IOException
         {
-            MatrixIOUtils.closeQuietly(reader);
+            if (tokenizer.peek() == '%')
+            {
+                return;
+            }
+            // note:  indices in the file are 1-based
+            long row = tokenizer.nextLong() - 1L;
+            long column = tokenizer.nextLong() - 1L;
+            double value = tokenizer.nextDouble();
+            if (row < 0L || row >= rows)
+            {
+                throw new IndexOutOfBoundsException("row index " + (row + 1L) + " out of bounds [1, " + rows + "]");
+            }
+            if (column < 0L || column >= columns)
+            {
+                throw new IndexOutOfBoundsException("column index " + (column + 1L)
+                                                    + " out of bounds [1, " + columns + "]");
+            }
+            readerStrategy.read(sink, row, column, value);
         }
-        if (matrix == null)
+    }
+
+    /**
+     * Sink that creates and sets values into a new <code>Matrix2D&lt;Double&gt;</code>.
+     */
+    private class Matrix2DSink
+        implements DoubleMatrix2DSink
+    {
+        /** Matrix. */
+        private Matrix2D<Double> matrix;
+
+
+        /** {@inheritDoc} */
+        public void dimensions(final long rows, final long columns, final long cardinality)
+        {
+            matrix = createMatrix2D(rows, columns, (int) Math.min(Integer.MAX_VALUE, cardinality));
+        }
+
+        /** {@inheritDoc} */
+        public void set(final long row, final long column, final double value)
+        {
+            matrix.set(row, column, Double.valueOf(value));
+        }
+
+        /**
+         * Return the matrix created by this sink.
+         *
+         * @return the matrix created by this sink
+         */
+        Matrix2D<Double> getMatrix()
+        {
+            return matrix;
+        }
+    }
+
+    /**
+     * Sink that creates and sets values into a new <code>Matrix2D&lt;Double&gt;</code>
+     * while holding a lock on this sink.
+     */
+    private final class SynchronizedMatrix2DSink
+        extends Matrix2DSink
+    {
+
+        /** {@inheritDoc} */
+        public synchronized void set(final long row, final long column, final double value)
         {
-            throw new IOException("could not create create matrix, check header and first non-comment line");
+            super.set(row, column, value);
         }
-        return matrix;
     }
 
     /**
@@ -184,18 +512,18 @@ public abstract class AbstractMatrixMarketReader
          * @return the approximate cardinality of the matrix to create for the specified number
          *    of entries in the file
          */
-        int cardinality(int entries);
+        long cardinality(long entries);
 
         /**
-         * Notify this reader strategy that the specified value was read for the specified
-         * matrix at the specified coordinates.
+         * Notify this reader strategy that the specified value was read at the specified
+         * coordinates.
          *
-         * @param matrix matrix
+         * @param sink sink
          * @param row row
          * @param column column
          * @param value value
          */
-        void read(Matrix2D<Double> matrix, long row, long column, double value);
+        void read(DoubleMatrix2DSink sink, long row, long column, double value);
     }
 
     /**
@@ -204,15 +532,15 @@ public abstract class AbstractMatrixMarketReader
     private static class GeneralReaderStrategy implements ReaderStrategy
     {
         /** {@inheritDoc} */
-        public int cardinality(final int entries)
+        public long cardinality(final long entries)
         {
             return entries;
         }
 
         /** {@inheritDoc} */
-        public void read(final Matrix2D<Double> matrix, final long row, final long column, final double value)
+        public void read(final DoubleMatrix2DSink sink, final long row, final long column, final double value)
         {
-            matrix.set(row, column, value);
+            sink.set(row, column, value);
         }
     }
 
@@ -222,20 +550,20 @@ public abstract class AbstractMatrixMarketReader
     private static class SymmetricReaderStrategy implements ReaderStrategy
     {
         /** {@inheritDoc} */
-        public int cardinality(final int entries)
+        public long cardinality(final long entries)
         {
-            return (2 * entries);
+            return (2L * entries);
         }
 
         /** {@inheritDoc} */
-        public void read(final Matrix2D<Double> matrix, final long row, final long column, final double value)
+        public void read(final DoubleMatrix2DSink sink, final long row, final long column, final double value)
         {
             // TODO:  what if an upper-right value is specified?
-            matrix.set(row, column, value);
+            sink.set(row, column, value);
             // only set values on the diagonal once
             if (row != column)
             {
-                matrix.set(column, row, value);
+                sink.set(column, row, value);
             }
         }
     }
@@ -246,22 +574,22 @@ public abstract class AbstractMatrixMarketReader
     private static class SkewSymmetricReaderStrategy implements ReaderStrategy
     {
         /** {@inheritDoc} */
-        public int cardinality(final int entries)
+        public long cardinality(final long entries)
         {
-            return (2 * entries);
+            return (2L * entries);
         }
 
         /** {@inheritDoc} */
-        public void read(final Matrix2D<Double> matrix, final long row, final long column, final double value)
+        public void read(final DoubleMatrix2DSink sink, final long row, final long column, final double value)
         {
             // TODO:  what if an upper-right value is specified?
             // diagonal entries are always zero
             if (row != column)
             {
                 // lower-left values should be specified
-                matrix.set(row, column, value);
+                sink.set(row, column, value);
                 // upper-right values are inverse
-                matrix.set(column, row, -1.0d * value);
+                sink.set(column, row, -1.0d * value);
             }
         }
     }
@@ -272,16 +600,16 @@ public abstract class AbstractMatrixMarketReader
     private static class HermitianReaderStrategy implements ReaderStrategy
     {
         /** {@inheritDoc} */
-        public int cardinality(final int entries)
+        public long cardinality(final long entries)
         {
             return entries;
         }
 
         /** {@inheritDoc} */
-        public void read(final Matrix2D<Double> matrix, final long row, final long column, final double value)
+        public void read(final DoubleMatrix2DSink sink, final long row, final long column, final double value)
         {
-            matrix.set(row, column, value);
-            matrix.set(column, row, value);
+            sink.set(row, column, value);
+            sink.set(column, row, value);
         }
     }
 }
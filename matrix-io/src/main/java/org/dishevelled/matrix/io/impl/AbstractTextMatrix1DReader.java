@@ -24,10 +24,13 @@
 package org.dishevelled.matrix.io.impl;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 
+import java.util.concurrent.ExecutorService;
+
 import org.dishevelled.matrix.Matrix1D;
 
 /**
@@ -98,4 +101,124 @@ public abstract class AbstractTextMatrix1DReader<E>
         }
         return matrix;
     }
+
+    /**
+     * Read a new 1D matrix from the specified file in parallel, using the default number
+     * of chunks.  The file may be uncompressed or BGZF-compressed.
+     *
+     * @param file file to read from, must not be null
+     * @param executorService executor service to read chunks of the file on, must not be null
+     * @return a new 1D matrix read from the specified file
+     * @throws IOException if an IO error occurs
+     */
+    public final Matrix1D<E> readConcurrently(final File file, final ExecutorService executorService)
+        throws IOException
+    {
+        return readConcurrently(file, executorService, 0);
+    }
+
+    /**
+     * Read a new 1D matrix from the specified file in parallel, using the specified number
+     * of chunks.  The file may be uncompressed or BGZF-compressed.  Values are parsed concurrently
+     * from the threads of the specified executor service, so <code>parse</code> must be thread safe.
+     * If this reader does not create {@link #isConcurrent() concurrent} matrices, values are set
+     * one at a time.
+     *
+     * @param file file to read from, must not be null
+     * @param executorService executor service to read chunks of the file on, must not be null
+     * @param chunks number of chunks, or <code>0</code> to use the default number of chunks
+     * @return a new 1D matrix read from the specified file
+     * @throws IOException if an IO error occurs
+     */
+    public final Matrix1D<E> readConcurrently(final File file,
+                                              final ExecutorService executorService,
+                                              final int chunks)
+        throws IOException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        if (executorService == null)
+        {
+            throw new IllegalArgumentException("executorService must not be null");
+        }
+        if (chunks < 0)
+        {
+            throw new IllegalArgumentException("chunks must be at least zero");
+        }
+        ChunkedLineReader chunkedLineReader = null;
+        InputStream inputStream = null;
+        try
+        {
+            chunkedLineReader = new ChunkedLineReader(file);
+            inputStream = chunkedLineReader.open();
+            ByteTokenizer tokenizer = new ByteTokenizer(inputStream);
+            if (tokenizer.skipWhitespace() == -1)
+            {
+                throw new IOException("could not create create matrix, first line should contain"
+                        + " size\\tcardinality");
+            }
+            long size;
+            long cardinality;
+            try
+            {
+                size = tokenizer.nextLong();
+                cardinality = tokenizer.nextLong();
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException("caught NumberFormatException at line number " + tokenizer.lineNumber()
+                                      + "\n" + e.getMessage());
+            }
+            tokenizer.skipLine();
+            final Matrix1D<E> matrix = createMatrix1D(size, (int) Math.min(Integer.MAX_VALUE, cardinality));
+            long start = tokenizer.position();
+            MatrixIOUtils.closeQuietly(inputStream);
+            inputStream = null;
+
+            final boolean concurrent = isConcurrent();
+            chunkedLineReader.read(start, chunks == 0 ? chunkedLineReader.defaultChunks() : chunks,
+                                   executorService, new LineHandler()
+                {
+                    /** {@inheritDoc} */
+                    public void handle(final ByteTokenizer lineTokenizer) throws IOException
+                    {
+                        long index = lineTokenizer.nextLong();
+                        E e = parse(lineTokenizer.nextField());
+                        if (concurrent)
+                        {
+                            matrix.set(index, e);
+                        }
+                        else
+                        {
+                            synchronized (matrix)
+                            {
+                                matrix.set(index, e);
+                            }
+                        }
+                    }
+                });
+            return matrix;
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(inputStream);
+            if (chunkedLineReader != null)
+            {
+                chunkedLineReader.close();
+            }
+        }
+    }
+
+    /**
+     * Return true if matrices created by this reader support concurrent calls to <code>set</code>.
+     * Defaults to <code>false</code>.
+     *
+     * @return true if matrices created by this reader support concurrent calls to <code>set</code>
+     */
+    protected boolean isConcurrent()
+    {
+        return false;
+    }
 }
@@ -0,0 +1,158 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.dishevelled.functor.BinaryPredicate;
+import org.dishevelled.functor.BinaryProcedure;
+
+import org.dishevelled.matrix.Matrix1D;
+
+import org.dishevelled.matrix.io.Matrix1DWriter;
+
+/**
+ * Binary columnar format writer for matrices of numbers in one dimension.
+ * Non-null values are written as blocks of sorted indices and double values,
+ * optionally deflate compressed.
+ *
+ * @author  Michael Heuer
+ */
+public final class BinaryMatrix1DWriter
+    implements Matrix1DWriter<Number>
+{
+    /** True if blocks should be deflate compressed. */
+    private final boolean compress;
+
+    /** Block size, in entries. */
+    private final int blockSize;
+
+
+    /**
+     * Create a new binary matrix 1D writer with uncompressed blocks and the default block size.
+     */
+    public BinaryMatrix1DWriter()
+    {
+        this(false);
+    }
+
+    /**
+     * Create a new binary matrix 1D writer with the default block size.
+     *
+     * @param compress true if blocks should be deflate compressed
+     */
+    public BinaryMatrix1DWriter(final boolean compress)
+    {
+        this(compress, BinaryMatrixFormat.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a new binary matrix 1D writer.
+     *
+     * @param compress true if blocks should be deflate compressed
+     * @param blockSize block size, in entries, must be at least <code>1</code>
+     *    and at most <code>16777216</code>
+     */
+    public BinaryMatrix1DWriter(final boolean compress, final int blockSize)
+    {
+        BinaryMatrixFormat.checkBlockSize(blockSize);
+        this.compress = compress;
+        this.blockSize = blockSize;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException binary matrices can not be appended to an appendable
+     */
+    public <T extends Appendable> T append(final Matrix1D<? extends Number> matrix, final T appendable)
+        throws IOException
+    {
+        throw new UnsupportedOperationException("binary matrices can not be appended to an appendable");
+    }
+
+    /** {@inheritDoc} */
+    public void write(final Matrix1D<? extends Number> matrix, final File file) throws IOException
+    {
+        if (matrix == null)
+        {
+            throw new IllegalArgumentException("matrix must not be null");
+        }
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream(file);
+            write(matrix, outputStream);
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(outputStream);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void write(final Matrix1D<? extends Number> matrix, final OutputStream outputStream) throws IOException
+    {
+        if (matrix == null)
+        {
+            throw new IllegalArgumentException("matrix must not be null");
+        }
+        if (outputStream == null)
+        {
+            throw new IllegalArgumentException("outputStream must not be null");
+        }
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream, 65536));
+        final BinaryMatrixFormat.BlockWriter writer = new BinaryMatrixFormat.BlockWriter(output,
+            new BinaryMatrixFormat.Header(1, compress ? BinaryMatrixFormat.DEFLATE : BinaryMatrixFormat.NONE,
+                                          1L, 1L, matrix.size(), matrix.cardinality(), blockSize));
+
+        // visit non-null values in index order
+        matrix.forEach(new BinaryPredicate<Long, Number>()
+            {
+                /** {@inheritDoc} */
+                public boolean test(final Long index, final Number value)
+                {
+                    return (value != null);
+                }
+            }, new BinaryProcedure<Long, Number>()
+            {
+                /** {@inheritDoc} */
+                public void run(final Long index, final Number value)
+                {
+                    writer.addQuietly(index, value.doubleValue());
+                }
+            });
+        writer.finish();
+    }
+}
@@ -0,0 +1,806 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary columnar format for sparse matrices of doubles.
+ *
+ * <p>A file in this format is a 64 byte header, followed by blocks of non-null values,
+ * a block directory, and a 24 byte trailer.  All values are big-endian and all sections
+ * start at offsets that are multiples of eight bytes.</p>
+ *
+ * <pre>
+ * header     magic, version, dimensions, compression, slices, rows, columns,
+ *            cardinality, block size, reserved
+ * block      entries, index length, value length, reserved,
+ *            index bytes (padded to 8), value bytes (padded to 8)
+ * ...
+ * terminator block with zero entries
+ * directory  per block: first index, block offset, entries, reserved
+ * trailer    directory offset, block count, magic, reserved
+ * </pre>
+ *
+ * <p>Indices are linear, row-major indices, e.g. <code>row * columns + column</code>
+ * in two dimensions, in strictly ascending order across all blocks.  Uncompressed
+ * blocks store indices as longs and values as doubles, so that they can be memory
+ * mapped and read in place.  Deflate compressed blocks store indices as variable
+ * length deltas and values as doubles, each section deflated separately.</p>
+ *
+ * @author  Michael Heuer
+ */
+final class BinaryMatrixFormat
+{
+    /** Magic number, <code>"DSHB"</code>. */
+    static final int MAGIC = 0x44534842;
+
+    /** Format version. */
+    static final int VERSION = 1;
+
+    /** No compression. */
+    static final int NONE = 0;
+
+    /** Deflate compression. */
+    static final int DEFLATE = 1;
+
+    /** Header length in bytes. */
+    static final int HEADER_LENGTH = 64;
+
+    /** Block header length in bytes. */
+    static final int BLOCK_HEADER_LENGTH = 16;
+
+    /** Directory entry length in bytes. */
+    static final int DIRECTORY_ENTRY_LENGTH = 24;
+
+    /** Trailer length in bytes. */
+    static final int TRAILER_LENGTH = 24;
+
+    /** Default block size, in entries. */
+    static final int DEFAULT_BLOCK_SIZE = 65536;
+
+    /** Maximum block size, in entries. */
+    static final int MAX_BLOCK_SIZE = 1 << 24;
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private BinaryMatrixFormat()
+    {
+        // empty
+    }
+
+
+    /**
+     * Return the specified length padded to a multiple of eight bytes.
+     *
+     * @param length length
+     * @return the specified length padded to a multiple of eight bytes
+     */
+    static long pad(final long length)
+    {
+        return (length + 7L) & ~7L;
+    }
+
+    /**
+     * Check the specified block size.
+     *
+     * @param blockSize block size, in entries
+     * @throws IllegalArgumentException if the specified block size is less than one
+     *    or greater than <code>MAX_BLOCK_SIZE</code>
+     */
+    static void checkBlockSize(final int blockSize)
+    {
+        if (blockSize < 1)
+        {
+            throw new IllegalArgumentException("blockSize must be at least 1");
+        }
+        if (blockSize > MAX_BLOCK_SIZE)
+        {
+            throw new IllegalArgumentException("blockSize must be at most " + MAX_BLOCK_SIZE);
+        }
+    }
+
+    /**
+     * Binary format header.
+     */
+    static final class Header
+    {
+        /** Number of dimensions. */
+        final int dimensions;
+
+        /** Compression. */
+        final int compression;
+
+        /** Number of slices. */
+        final long slices;
+
+        /** Number of rows. */
+        final long rows;
+
+        /** Number of columns. */
+        final long columns;
+
+        /** Cardinality. */
+        final long cardinality;
+
+        /** Block size, in entries. */
+        final int blockSize;
+
+
+        /**
+         * Create a new header.
+         *
+         * @param dimensions number of dimensions
+         * @param compression compression
+         * @param slices number of slices
+         * @param rows number of rows
+         * @param columns number of columns
+         * @param cardinality cardinality
+         * @param blockSize block size, in entries
+         */
+        Header(final int dimensions,
+               final int compression,
+               final long slices,
+               final long rows,
+               final long columns,
+               final long cardinality,
+               final int blockSize)
+        {
+            this.dimensions = dimensions;
+            this.compression = compression;
+            this.slices = slices;
+            this.rows = rows;
+            this.columns = columns;
+            this.cardinality = cardinality;
+            this.blockSize = blockSize;
+        }
+
+
+        /**
+         * Return the cardinality as an int, for use as the approximate cardinality
+         * in <code>createMatrix</code> methods.
+         *
+         * @return the cardinality as an int
+         */
+        int approximateCardinality()
+        {
+            return (int) Math.min(cardinality, (long) Integer.MAX_VALUE);
+        }
+
+        /**
+         * Write this header to the specified output.
+         *
+         * @param output output to write to
+         * @throws IOException if an I/O error occurs
+         */
+        void write(final DataOutputStream output) throws IOException
+        {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(dimensions);
+            output.writeInt(compression);
+            output.writeLong(slices);
+            output.writeLong(rows);
+            output.writeLong(columns);
+            output.writeLong(cardinality);
+            output.writeInt(blockSize);
+            output.writeInt(0);
+            output.writeLong(0L);
+        }
+
+        /**
+         * Read and return a header from the specified input, validating it against the
+         * specified number of dimensions.
+         *
+         * @param input input to read from
+         * @param dimensions expected number of dimensions
+         * @return a header read from the specified input
+         * @throws IOException if an I/O error occurs or if the header is not valid
+         */
+        static Header read(final DataInputStream input, final int dimensions) throws IOException
+        {
+            byte[] bytes = new byte[HEADER_LENGTH];
+            try
+            {
+                input.readFully(bytes);
+            }
+            catch (EOFException e)
+            {
+                throw new IOException("not a binary matrix, header truncated");
+            }
+            return read(ByteBuffer.wrap(bytes), dimensions);
+        }
+
+        /**
+         * Read and return a header from the specified buffer, validating it against the
+         * specified number of dimensions.
+         *
+         * @param buffer buffer to read from
+         * @param dimensions expected number of dimensions
+         * @return a header read from the specified buffer
+         * @throws IOException if the header is not valid
+         */
+        static Header read(final ByteBuffer buffer, final int dimensions) throws IOException
+        {
+            if (buffer.getInt() != MAGIC)
+            {
+                throw new IOException("not a binary matrix, magic number not found");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION)
+            {
+                throw new IOException("unsupported binary matrix version " + version);
+            }
+            int actualDimensions = buffer.getInt();
+            if (actualDimensions != dimensions)
+            {
+                throw new IOException("expected a " + dimensions + "D binary matrix, found " + actualDimensions + "D");
+            }
+            int compression = buffer.getInt();
+            if (compression != NONE && compression != DEFLATE)
+            {
+                throw new IOException("unsupported binary matrix compression " + compression);
+            }
+            long slices = buffer.getLong();
+            long rows = buffer.getLong();
+            long columns = buffer.getLong();
+            long cardinality = buffer.getLong();
+            int blockSize = buffer.getInt();
+            if (slices < 0L || rows < 0L || columns < 0L || cardinality < 0L)
+            {
+                throw new IOException("invalid binary matrix dimensions or cardinality");
+            }
+            if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE)
+            {
+                throw new IOException("invalid binary matrix block size " + blockSize);
+            }
+            return new Header(dimensions, compression, slices, rows, columns, cardinality, blockSize);
+        }
+    }
+
+    /**
+     * Block of decoded indices and values.
+     */
+    static final class Block
+    {
+        /** Number of entries. */
+        final int entries;
+
+        /** Indices. */
+        final long[] indices;
+
+        /** Values. */
+        final double[] values;
+
+
+        /**
+         * Create a new block.
+         *
+         * @param entries number of entries
+         * @param indices indices
+         * @param values values
+         */
+        Block(final int entries, final long[] indices, final double[] values)
+        {
+            this.entries = entries;
+            this.indices = indices;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Read and decode the next block from the specified input, or return <code>null</code>
+     * if the terminator block is found.
+     *
+     * @param input input to read from
+     * @param header header
+     * @param size size of the matrix, in number of elements
+     * @return the next block read from the specified input, or <code>null</code>
+     * @throws IOException if an I/O error occurs or if the block is not valid
+     */
+    static Block readBlock(final DataInputStream input, final Header header, final long size) throws IOException
+    {
+        try
+        {
+            int entries = input.readInt();
+            int indexLength = input.readInt();
+            int valueLength = input.readInt();
+            input.readInt();
+            if (entries == 0)
+            {
+                return null;
+            }
+            checkBlockHeader(entries, indexLength, valueLength, header);
+            byte[] indexBytes = new byte[(int) pad(indexLength)];
+            input.readFully(indexBytes);
+            byte[] valueBytes = new byte[(int) pad(valueLength)];
+            input.readFully(valueBytes);
+            return decodeBlock(entries,
+                               ByteBuffer.wrap(indexBytes, 0, indexLength),
+                               ByteBuffer.wrap(valueBytes, 0, valueLength),
+                               header, size);
+        }
+        catch (EOFException e)
+        {
+            throw new IOException("unexpected end of binary matrix, terminator block not found");
+        }
+    }
+
+    /**
+     * Check the specified block header values.
+     *
+     * @param entries number of entries
+     * @param indexLength index length in bytes
+     * @param valueLength value length in bytes
+     * @param header header
+     * @throws IOException if the block header values are not valid
+     */
+    static void checkBlockHeader(final int entries, final int indexLength, final int valueLength, final Header header)
+        throws IOException
+    {
+        if (entries < 1 || entries > header.blockSize)
+        {
+            throw new IOException("invalid binary matrix block, " + entries + " entries");
+        }
+        if (indexLength < 0 || valueLength < 0)
+        {
+            throw new IOException("invalid binary matrix block, negative length");
+        }
+        if (header.compression == NONE && (indexLength != entries * 8 || valueLength != entries * 8))
+        {
+            throw new IOException("invalid binary matrix block, lengths do not match " + entries + " entries");
+        }
+    }
+
+    /**
+     * Check that the specified indices are in strictly ascending order and within the specified size.
+     *
+     * @param indices indices
+     * @param entries number of entries
+     * @param size size of the matrix, in number of elements
+     * @throws IOException if the indices are not valid
+     */
+    private static void checkIndices(final long[] indices, final int entries, final long size) throws IOException
+    {
+        long previous = -1L;
+        for (int i = 0; i < entries; i++)
+        {
+            if (indices[i] <= previous || indices[i] >= size)
+            {
+                throw new IOException("invalid binary matrix block, index " + indices[i] + " out of order or out of bounds");
+            }
+            previous = indices[i];
+        }
+    }
+
+    /**
+     * Decode the specified index and value bytes into a new block.
+     *
+     * @param entries number of entries
+     * @param index index bytes
+     * @param value value bytes
+     * @param header header
+     * @param size size of the matrix, in number of elements
+     * @return the decoded block
+     * @throws IOException if the bytes can not be decoded
+     */
+    static Block decodeBlock(final int entries,
+                             final ByteBuffer index,
+                             final ByteBuffer value,
+                             final Header header,
+                             final long size)
+        throws IOException
+    {
+        long[] indices = new long[entries];
+        double[] values = new double[entries];
+        if (header.compression == NONE)
+        {
+            index.slice().asLongBuffer().get(indices);
+            value.slice().asDoubleBuffer().get(values);
+        }
+        else
+        {
+            ByteBuffer inflatedIndex = ByteBuffer.wrap(inflate(index, entries * 10));
+            long previous = -1L;
+            for (int i = 0; i < entries; i++)
+            {
+                previous += readVarLong(inflatedIndex);
+                indices[i] = previous;
+            }
+            byte[] inflatedValue = inflate(value, entries * 8);
+            if (inflatedValue.length != entries * 8)
+            {
+                throw new IOException("invalid binary matrix block, value length does not match " + entries + " entries");
+            }
+            ByteBuffer.wrap(inflatedValue).asDoubleBuffer().get(values);
+        }
+        checkIndices(indices, entries, size);
+        return new Block(entries, indices, values);
+    }
+
+    /**
+     * Deflate the specified bytes.
+     *
+     * @param bytes bytes to deflate
+     * @param length number of bytes to deflate
+     * @return the deflated bytes
+     */
+    static byte[] deflate(final byte[] bytes, final int length)
+    {
+        Deflater deflater = new Deflater();
+        try
+        {
+            deflater.setInput(bytes, 0, length);
+            deflater.finish();
+            byte[] output = new byte[Math.max(64, length + (length >> 3) + 64)];
+            int deflatedLength = 0;
+            while (!deflater.finished())
+            {
+                if (deflatedLength == output.length)
+                {
+                    byte[] expanded = new byte[output.length * 2];
+                    System.arraycopy(output, 0, expanded, 0, deflatedLength);
+                    output = expanded;
+                }
+                deflatedLength += deflater.deflate(output, deflatedLength, output.length - deflatedLength);
+            }
+            byte[] result = new byte[deflatedLength];
+            System.arraycopy(output, 0, result, 0, deflatedLength);
+            return result;
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflate the specified bytes.
+     *
+     * @param bytes bytes to inflate
+     * @param maximumLength maximum inflated length
+     * @return the inflated bytes
+     * @throws IOException if the bytes can not be inflated
+     */
+    private static byte[] inflate(final ByteBuffer bytes, final int maximumLength) throws IOException
+    {
+        byte[] input = new byte[bytes.remaining()];
+        bytes.duplicate().get(input);
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(input);
+            byte[] output = new byte[maximumLength];
+            int length = 0;
+            while (!inflater.finished() && length < maximumLength)
+            {
+                int n = inflater.inflate(output, length, maximumLength - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    throw new IOException("invalid binary matrix block, truncated deflate stream");
+                }
+                length += n;
+            }
+            if (!inflater.finished())
+            {
+                throw new IOException("invalid binary matrix block, inflated length exceeds " + maximumLength);
+            }
+            if (length == maximumLength)
+            {
+                return output;
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(output, 0, result, 0, length);
+            return result;
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException("invalid binary matrix block, " + e.getMessage());
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Read a variable length, unsigned long from the specified buffer.
+     *
+     * @param buffer buffer to read from
+     * @return a variable length, unsigned long read from the specified buffer
+     * @throws IOException if the buffer does not contain a valid variable length long
+     */
+    private static long readVarLong(final ByteBuffer buffer) throws IOException
+    {
+        long result = 0L;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            if (!buffer.hasRemaining())
+            {
+                throw new IOException("invalid binary matrix block, truncated index");
+            }
+            byte b = buffer.get();
+            result |= ((long) (b & 0x7f)) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return result;
+            }
+        }
+        throw new IOException("invalid binary matrix block, malformed index");
+    }
+
+    /**
+     * Block writer, accepts non-null values in strictly ascending index order.
+     */
+    static final class BlockWriter
+    {
+        /** Output. */
+        private final DataOutputStream output;
+
+        /** Header. */
+        private final Header header;
+
+        /** Block indices. */
+        private final long[] indices;
+
+        /** Block values. */
+        private final double[] values;
+
+        /** Block bytes. */
+        private final byte[] bytes;
+
+        /** Number of entries in the current block. */
+        private int entries;
+
+        /** Last index added. */
+        private long last = -1L;
+
+        /** Number of values added. */
+        private long count;
+
+        /** Current offset. */
+        private long offset;
+
+        /** Directory first indices, block offsets, and entries, three longs per block. */
+        private long[] directory = new long[48];
+
+        /** Number of blocks. */
+        private int blocks;
+
+        /** First I/O exception thrown by <code>addQuietly</code>, if any. */
+        private IOException exception;
+
+
+        /**
+         * Create a new block writer and write the specified header.
+         *
+         * @param output output to write to
+         * @param header header
+         * @throws IOException if an I/O error occurs
+         */
+        BlockWriter(final DataOutputStream output, final Header header) throws IOException
+        {
+            this.output = output;
+            this.header = header;
+            int capacity = (int) Math.max(1L, Math.min((long) header.blockSize, header.cardinality));
+            this.indices = new long[capacity];
+            this.values = new double[capacity];
+            this.bytes = new byte[(header.compression == NONE) ? capacity * 8 : capacity * 10];
+            header.write(output);
+            offset = HEADER_LENGTH;
+        }
+
+
+        /**
+         * Add the specified value at the specified index.
+         *
+         * @param index linear index, must be greater than the previous index
+         * @param value value
+         * @throws IOException if an I/O error occurs
+         */
+        void add(final long index, final double value) throws IOException
+        {
+            if (index <= last)
+            {
+                throw new IllegalStateException("indices must be added in strictly ascending order");
+            }
+            last = index;
+            indices[entries] = index;
+            values[entries] = value;
+            entries++;
+            count++;
+            if (entries == indices.length)
+            {
+                flush();
+            }
+        }
+
+        /**
+         * Add the specified value at the specified index, deferring any I/O exception
+         * until <code>finish()</code> is called.  For use from within procedures.
+         *
+         * @param index linear index, must be greater than the previous index
+         * @param value value
+         */
+        void addQuietly(final long index, final double value)
+        {
+            if (exception == null)
+            {
+                try
+                {
+                    add(index, value);
+                }
+                catch (IOException e)
+                {
+                    exception = e;
+                }
+            }
+        }
+
+        /**
+         * Write any remaining values, the terminator block, the directory, and the trailer.
+         *
+         * @throws IOException if an I/O error occurs, including any deferred by <code>addQuietly</code>
+         */
+        void finish() throws IOException
+        {
+            if (exception != null)
+            {
+                throw exception;
+            }
+            flush();
+            if (count != header.cardinality)
+            {
+                throw new IOException("expected " + header.cardinality + " values, found " + count);
+            }
+            writeBlockHeader(0, 0, 0);
+            long directoryOffset = offset;
+            for (int i = 0; i < blocks; i++)
+            {
+                output.writeLong(directory[i * 3]);
+                output.writeLong(directory[i * 3 + 1]);
+                output.writeInt((int) directory[i * 3 + 2]);
+                output.writeInt(0);
+            }
+            output.writeLong(directoryOffset);
+            output.writeLong(blocks);
+            output.writeInt(MAGIC);
+            output.writeInt(0);
+            output.flush();
+        }
+
+        /**
+         * Write the current block, if any.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void flush() throws IOException
+        {
+            if (entries == 0)
+            {
+                return;
+            }
+            if (directory.length < (blocks + 1) * 3)
+            {
+                long[] expanded = new long[directory.length * 2];
+                System.arraycopy(directory, 0, expanded, 0, directory.length);
+                directory = expanded;
+            }
+            directory[blocks * 3] = indices[0];
+            directory[blocks * 3 + 1] = offset;
+            directory[blocks * 3 + 2] = entries;
+            blocks++;
+
+            int length = entries * 8;
+            if (header.compression == NONE)
+            {
+                writeBlockHeader(entries, length, length);
+                ByteBuffer.wrap(bytes, 0, length).asLongBuffer().put(indices, 0, entries);
+                writePadded(bytes, length);
+                ByteBuffer.wrap(bytes, 0, length).asDoubleBuffer().put(values, 0, entries);
+                writePadded(bytes, length);
+            }
+            else
+            {
+                byte[] deflatedIndices = deflate(bytes, encodeIndices());
+                ByteBuffer.wrap(bytes, 0, length).asDoubleBuffer().put(values, 0, entries);
+                byte[] deflatedValues = deflate(bytes, length);
+                writeBlockHeader(entries, deflatedIndices.length, deflatedValues.length);
+                writePadded(deflatedIndices, deflatedIndices.length);
+                writePadded(deflatedValues, deflatedValues.length);
+            }
+            entries = 0;
+        }
+
+        /**
+         * Encode the indices in the current block as variable length deltas into the block bytes.
+         *
+         * @return the number of encoded bytes
+         */
+        private int encodeIndices()
+        {
+            int length = 0;
+            long previous = -1L;
+            for (int i = 0; i < entries; i++)
+            {
+                long delta = indices[i] - previous;
+                previous = indices[i];
+                while ((delta & ~0x7fL) != 0L)
+                {
+                    bytes[length++] = (byte) ((delta & 0x7fL) | 0x80L);
+                    delta >>>= 7;
+                }
+                bytes[length++] = (byte) delta;
+            }
+            return length;
+        }
+
+        /**
+         * Write a block header.
+         *
+         * @param blockEntries number of entries
+         * @param indexLength index length in bytes
+         * @param valueLength value length in bytes
+         * @throws IOException if an I/O error occurs
+         */
+        private void writeBlockHeader(final int blockEntries, final int indexLength, final int valueLength)
+            throws IOException
+        {
+            output.writeInt(blockEntries);
+            output.writeInt(indexLength);
+            output.writeInt(valueLength);
+            output.writeInt(0);
+            offset += BLOCK_HEADER_LENGTH;
+        }
+
+        /**
+         * Write the specified bytes, padded to a multiple of eight bytes.
+         *
+         * @param b bytes to write
+         * @param length number of bytes to write
+         * @throws IOException if an I/O error occurs
+         */
+        private void writePadded(final byte[] b, final int length) throws IOException
+        {
+            output.write(b, 0, length);
+            long padded = pad(length);
+            for (long i = length; i < padded; i++)
+            {
+                output.write(0);
+            }
+            offset += padded;
+        }
+    }
+}
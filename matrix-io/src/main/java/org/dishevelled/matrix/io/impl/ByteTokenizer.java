@@ -0,0 +1,714 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * Line-oriented tokenizer that parses ASCII text directly from bytes, without
+ * creating intermediate strings for each line or token.
+ *
+ * <p>
+ * Bytes may be read from an input stream, such as a decompressing input stream, from
+ * a file channel, which is read through a sequence of read-only memory mapped windows,
+ * or from a byte buffer.  Tokens are separated by spaces or tabs and lines by
+ * <code>\n</code>; a <code>\r</code> preceding <code>\n</code> is treated as
+ * whitespace.
+ * </p>
+ *
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ *
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public final class ByteTokenizer
+{
+    /** Source of bytes. */
+    private final Source source;
+
+    /** Current buffer. */
+    private ByteBuffer buffer;
+
+    /** Reusable token buffer. */
+    private char[] token;
+
+    /** Length of the last token read. */
+    private int length;
+
+    /** Number of lines read. */
+    private long lineNumber;
+
+    /** Number of bytes consumed from previous buffers. */
+    private long offset;
+
+    /** Initial position of the current buffer. */
+    private int start;
+
+    /** Default buffer size for input streams, <code>65536</code>. */
+    public static final int DEFAULT_BUFFER_SIZE = 65536;
+
+    /** Default memory mapped window size for file channels, <code>67108864</code>. */
+    public static final int DEFAULT_WINDOW_SIZE = 67108864;
+
+    /** Powers of ten exactly representable as doubles. */
+    private static final double[] POWERS_OF_TEN = {
+        1.0e0, 1.0e1, 1.0e2, 1.0e3, 1.0e4, 1.0e5, 1.0e6, 1.0e7, 1.0e8, 1.0e9, 1.0e10, 1.0e11,
+        1.0e12, 1.0e13, 1.0e14, 1.0e15, 1.0e16, 1.0e17, 1.0e18, 1.0e19, 1.0e20, 1.0e21, 1.0e22
+    };
+
+    /** Largest mantissa exactly representable as a double, <code>2^53</code>. */
+    private static final long MAXIMUM_EXACT_MANTISSA = 1L << 53;
+
+    /** Maximum number of significant digits accumulated into a long mantissa. */
+    private static final int MAXIMUM_DIGITS = 18;
+
+
+    /**
+     * Create a new byte tokenizer reading from the specified input stream
+     * with the default buffer size.
+     *
+     * @param inputStream input stream to read from, must not be null
+     */
+    public ByteTokenizer(final InputStream inputStream)
+    {
+        this(inputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a new byte tokenizer reading from the specified input stream
+     * with the specified buffer size.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @param bufferSize buffer size, must be at least <code>1</code>
+     */
+    public ByteTokenizer(final InputStream inputStream, final int bufferSize)
+    {
+        if (inputStream == null)
+        {
+            throw new IllegalArgumentException("inputStream must not be null");
+        }
+        if (bufferSize < 1)
+        {
+            throw new IllegalArgumentException("bufferSize must be at least 1");
+        }
+        source = new InputStreamSource(inputStream, bufferSize);
+        buffer = ByteBuffer.allocate(0);
+        token = new char[64];
+    }
+
+    /**
+     * Create a new byte tokenizer reading the remaining bytes of the specified
+     * file channel, from its current position to its size, through read-only
+     * memory mapped windows of the default window size.
+     *
+     * @param channel file channel to read from, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public ByteTokenizer(final FileChannel channel) throws IOException
+    {
+        this(channel, channel == null ? 0L : channel.position(), channel == null ? 0L : channel.size(),
+             DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Create a new byte tokenizer reading bytes <code>[start, end)</code> of the
+     * specified file channel through read-only memory mapped windows of the specified
+     * window size.  The position of the file channel is not modified.
+     *
+     * @param channel file channel to read from, must not be null
+     * @param start start position, inclusive, must be at least zero
+     * @param end end position, exclusive, must be at least <code>start</code>
+     * @param windowSize memory mapped window size, must be at least <code>1</code>
+     */
+    public ByteTokenizer(final FileChannel channel, final long start, final long end, final int windowSize)
+    {
+        if (channel == null)
+        {
+            throw new IllegalArgumentException("channel must not be null");
+        }
+        if (start < 0L)
+        {
+            throw new IllegalArgumentException("start must be at least zero");
+        }
+        if (end < start)
+        {
+            throw new IllegalArgumentException("end must be at least start");
+        }
+        if (windowSize < 1)
+        {
+            throw new IllegalArgumentException("windowSize must be at least 1");
+        }
+        source = new FileChannelSource(channel, start, end, windowSize);
+        buffer = ByteBuffer.allocate(0);
+        token = new char[64];
+    }
+
+    /**
+     * Create a new byte tokenizer reading the remaining bytes of the specified
+     * byte buffer.  The position of the byte buffer will be modified.
+     *
+     * @param buffer byte buffer to read from, must not be null
+     */
+    public ByteTokenizer(final ByteBuffer buffer)
+    {
+        if (buffer == null)
+        {
+            throw new IllegalArgumentException("buffer must not be null");
+        }
+        source = new Source()
+            {
+                /** {@inheritDoc} */
+                public ByteBuffer next()
+                {
+                    return null;
+                }
+            };
+        this.buffer = buffer;
+        start = buffer.position();
+        token = new char[64];
+    }
+
+
+    /**
+     * Return the number of lines read by this tokenizer, that is the zero-based
+     * number of the current line.
+     *
+     * @return the number of lines read by this tokenizer
+     */
+    public long lineNumber()
+    {
+        return lineNumber;
+    }
+
+    /**
+     * Return the number of bytes consumed by this tokenizer.
+     *
+     * @return the number of bytes consumed by this tokenizer
+     */
+    public long position()
+    {
+        return offset + buffer.position() - start;
+    }
+
+    /**
+     * Return the next byte without consuming it, or <code>-1</code> if there
+     * are no more bytes.
+     *
+     * @return the next byte without consuming it, or <code>-1</code> if there
+     *    are no more bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public int peek() throws IOException
+    {
+        if (!buffer.hasRemaining() && !fill())
+        {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xff;
+    }
+
+    /**
+     * Skip whitespace, including blank lines, and return the next byte without
+     * consuming it, or <code>-1</code> if there are no more bytes.
+     *
+     * @return the next non-whitespace byte without consuming it, or <code>-1</code>
+     *    if there are no more bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public int skipWhitespace() throws IOException
+    {
+        int c = peek();
+        while (c != -1 && (c == '\n' || isSpace(c)))
+        {
+            if (c == '\n')
+            {
+                lineNumber++;
+            }
+            buffer.get();
+            c = peek();
+        }
+        return c;
+    }
+
+    /**
+     * Skip spaces and tabs on the current line and return the next byte without
+     * consuming it, or <code>-1</code> if there are no more bytes.
+     *
+     * @return the next byte on the current line that is not a space or tab without
+     *    consuming it, or <code>-1</code> if there are no more bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public int skipSpaces() throws IOException
+    {
+        int c = peek();
+        while (c != -1 && isSpace(c))
+        {
+            buffer.get();
+            c = peek();
+        }
+        return c;
+    }
+
+    /**
+     * Skip the remainder of the current line, including the line separator.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void skipLine() throws IOException
+    {
+        while (buffer.hasRemaining() || fill())
+        {
+            if (buffer.get() == '\n')
+            {
+                lineNumber++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read and return the remainder of the current line as a string, consuming but
+     * not including the line separator.  This method creates a new string and should
+     * not be used for bulk data.
+     *
+     * @return the remainder of the current line as a string, or <code>null</code>
+     *    if there are no more bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public String nextLine() throws IOException
+    {
+        if (peek() == -1)
+        {
+            return null;
+        }
+        length = 0;
+        while (buffer.hasRemaining() || fill())
+        {
+            int c = buffer.get() & 0xff;
+            if (c == '\n')
+            {
+                lineNumber++;
+                break;
+            }
+            append(c);
+        }
+        if (length > 0 && token[length - 1] == '\r')
+        {
+            length--;
+        }
+        return new String(token, 0, length);
+    }
+
+    /**
+     * Read and return the next tab-delimited field on the current line as a string,
+     * skipping a single leading tab if present.  Unlike other tokens, a field may
+     * contain spaces.  This method creates a new string.
+     *
+     * @return the next tab-delimited field on the current line as a string
+     * @throws IOException if an I/O error occurs
+     */
+    public String nextField() throws IOException
+    {
+        length = 0;
+        int c = peek();
+        if (c == '\t')
+        {
+            buffer.get();
+            c = peek();
+        }
+        while (c != -1 && c != '\t' && c != '\n')
+        {
+            append(c);
+            buffer.get();
+            c = peek();
+        }
+        if (length > 0 && token[length - 1] == '\r')
+        {
+            length--;
+        }
+        return new String(token, 0, length);
+    }
+
+    /**
+     * Read the next token on the current line and parse it as a long.
+     *
+     * @return the next token on the current line parsed as a long
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if the next token is missing or cannot be parsed as a long
+     */
+    public long nextLong() throws IOException
+    {
+        readToken();
+        if (length == 0)
+        {
+            throw new NumberFormatException("missing token, expected long");
+        }
+        int i = 0;
+        boolean negative = false;
+        long limit = -Long.MAX_VALUE;
+        if (token[0] == '-' || token[0] == '+')
+        {
+            if (length == 1)
+            {
+                throw invalid();
+            }
+            if (token[0] == '-')
+            {
+                negative = true;
+                limit = Long.MIN_VALUE;
+            }
+            i++;
+        }
+        long multiplicationLimit = limit / 10L;
+        long result = 0L;
+        // accumulate negatively, as in Long.parseLong, to reach Long.MIN_VALUE
+        for (; i < length; i++)
+        {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit)
+            {
+                throw invalid();
+            }
+            result *= 10L;
+            if (result < limit + digit)
+            {
+                throw invalid();
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Read the next token on the current line and parse it as a double.
+     *
+     * <p>
+     * Decimal tokens with at most 18 significant digits and a decimal exponent
+     * within <code>[-22, 22]</code> are parsed exactly without allocation; all other
+     * tokens fall back to <code>Double.parseDouble</code>.
+     * </p>
+     *
+     * @return the next token on the current line parsed as a double
+     * @throws IOException if an I/O error occurs
+     * @throws NumberFormatException if the next token is missing or cannot be parsed as a double
+     */
+    public double nextDouble() throws IOException
+    {
+        readToken();
+        if (length == 0)
+        {
+            throw new NumberFormatException("missing token, expected double");
+        }
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+')
+        {
+            negative = (token[0] == '-');
+            i++;
+        }
+        long mantissa = 0L;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean digits = false;
+        boolean exact = true;
+        for (; i < length && isDigit(token[i]); i++)
+        {
+            digits = true;
+            if (significantDigits < MAXIMUM_DIGITS)
+            {
+                mantissa = 10L * mantissa + (token[i] - '0');
+                if (mantissa != 0L)
+                {
+                    significantDigits++;
+                }
+            }
+            else
+            {
+                exponent++;
+                exact &= (token[i] == '0');
+            }
+        }
+        if (i < length && token[i] == '.')
+        {
+            i++;
+            for (; i < length && isDigit(token[i]); i++)
+            {
+                digits = true;
+                if (significantDigits < MAXIMUM_DIGITS)
+                {
+                    mantissa = 10L * mantissa + (token[i] - '0');
+                    if (mantissa != 0L)
+                    {
+                        significantDigits++;
+                    }
+                    exponent--;
+                }
+                else
+                {
+                    exact &= (token[i] == '0');
+                }
+            }
+        }
+        if (digits && i < length && (token[i] == 'e' || token[i] == 'E'))
+        {
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (token[i] == '-' || token[i] == '+'))
+            {
+                negativeExponent = (token[i] == '-');
+                i++;
+            }
+            int explicitExponent = 0;
+            boolean exponentDigits = false;
+            for (; i < length && isDigit(token[i]); i++)
+            {
+                exponentDigits = true;
+                if (explicitExponent < 10000)
+                {
+                    explicitExponent = 10 * explicitExponent + (token[i] - '0');
+                }
+            }
+            exact &= exponentDigits;
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (exact && digits && i == length)
+        {
+            if (mantissa == 0L)
+            {
+                return negative ? -0.0d : 0.0d;
+            }
+            if (mantissa <= MAXIMUM_EXACT_MANTISSA && exponent >= -22 && exponent <= 22)
+            {
+                double value = (exponent < 0) ? mantissa / POWERS_OF_TEN[-exponent]
+                    : mantissa * POWERS_OF_TEN[exponent];
+                return negative ? -value : value;
+            }
+        }
+        return Double.parseDouble(new String(token, 0, length));
+    }
+
+    /**
+     * Read the next token on the current line into the token buffer, skipping
+     * leading spaces and tabs.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void readToken() throws IOException
+    {
+        length = 0;
+        int c = skipSpaces();
+        while (c != -1 && c != '\n' && !isSpace(c))
+        {
+            append(c);
+            buffer.get();
+            c = peek();
+        }
+    }
+
+    /**
+     * Append the specified byte to the token buffer.
+     *
+     * @param c byte to append
+     */
+    private void append(final int c)
+    {
+        if (length == token.length)
+        {
+            char[] tmp = new char[2 * token.length];
+            System.arraycopy(token, 0, tmp, 0, length);
+            token = tmp;
+        }
+        token[length++] = (char) c;
+    }
+
+    /**
+     * Return a new number format exception for the current token.
+     *
+     * @return a new number format exception for the current token
+     */
+    private NumberFormatException invalid()
+    {
+        return new NumberFormatException("For input string: \"" + new String(token, 0, length) + "\"");
+    }
+
+    /**
+     * Fill the current buffer from the source.
+     *
+     * @return true if the current buffer has remaining bytes
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean fill() throws IOException
+    {
+        offset += buffer.position() - start;
+        start = buffer.position();
+        ByteBuffer next = source.next();
+        if (next == null)
+        {
+            return false;
+        }
+        buffer = next;
+        start = buffer.position();
+        return true;
+    }
+
+    /**
+     * Return true if the specified byte is a space, tab, or other non-line separator whitespace.
+     *
+     * @param c byte
+     * @return true if the specified byte is a space, tab, or other non-line separator whitespace
+     */
+    private static boolean isSpace(final int c)
+    {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\f' || c == 0x0b;
+    }
+
+    /**
+     * Return true if the specified character is an ASCII digit.
+     *
+     * @param c character
+     * @return true if the specified character is an ASCII digit
+     */
+    private static boolean isDigit(final char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+
+    /**
+     * Source of byte buffers.
+     */
+    private interface Source
+    {
+
+        /**
+         * Return the next byte buffer, or <code>null</code> if there are no more bytes.
+         * Byte buffers returned by this method must have remaining bytes.
+         *
+         * @return the next byte buffer, or <code>null</code> if there are no more bytes
+         * @throws IOException if an I/O error occurs
+         */
+        ByteBuffer next() throws IOException;
+    }
+
+    /**
+     * Input stream source, reuses a single heap byte buffer.
+     */
+    private static final class InputStreamSource
+        implements Source
+    {
+        /** Input stream. */
+        private final InputStream inputStream;
+
+        /** Heap byte buffer. */
+        private final ByteBuffer buffer;
+
+
+        /**
+         * Create a new input stream source.
+         *
+         * @param inputStream input stream
+         * @param bufferSize buffer size
+         */
+        InputStreamSource(final InputStream inputStream, final int bufferSize)
+        {
+            this.inputStream = inputStream;
+            this.buffer = ByteBuffer.allocate(bufferSize);
+        }
+
+
+        /** {@inheritDoc} */
+        public ByteBuffer next() throws IOException
+        {
+            int read = 0;
+            while (read == 0)
+            {
+                read = inputStream.read(buffer.array(), 0, buffer.capacity());
+            }
+            if (read < 0)
+            {
+                return null;
+            }
+            buffer.clear();
+            buffer.limit(read);
+            return buffer;
+        }
+    }
+
+    /**
+     * File channel source, maps successive read-only windows.
+     */
+    private static final class FileChannelSource
+        implements Source
+    {
+        /** File channel. */
+        private final FileChannel channel;
+
+        /** Next position to map. */
+        private long position;
+
+        /** End position, exclusive. */
+        private final long end;
+
+        /** Window size. */
+        private final int windowSize;
+
+
+        /**
+         * Create a new file channel source.
+         *
+         * @param channel file channel
+         * @param start start position, inclusive
+         * @param end end position, exclusive
+         * @param windowSize window size
+         */
+        FileChannelSource(final FileChannel channel, final long start, final long end, final int windowSize)
+        {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+            this.windowSize = windowSize;
+        }
+
+
+        /** {@inheritDoc} */
+        public ByteBuffer next() throws IOException
+        {
+            if (position >= end)
+            {
+                return null;
+            }
+            long size = Math.min((long) windowSize, end - position);
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            position += size;
+            return window;
+        }
+    }
+}
@@ -0,0 +1,572 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import java.nio.channels.FileChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reader that splits the lines of an uncompressed or BGZF-compressed text file
+ * into chunks and reads the chunks in parallel.
+ *
+ * <p>
+ * Chunk boundaries are chosen by uncompressed byte offset and aligned to lines
+ * when read:  the chunk <code>[start, end)</code> handles every line beginning at an
+ * offset in <code>(start, end]</code>, so that each line is handled by exactly one
+ * chunk regardless of where the boundaries fall.  Uncompressed files are read through
+ * read-only memory mapped windows.  BGZF-compressed files are indexed by block and each
+ * chunk decompresses from the block containing its start.  Other gzip-compressed files
+ * cannot be split and are read in a single chunk.
+ * </p>
+ *
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public final class ChunkedLineReader
+{
+    /** File input stream. */
+    private final FileInputStream inputStream;
+
+    /** File channel. */
+    private final FileChannel channel;
+
+    /** Compressed size of the file. */
+    private final long size;
+
+    /** Format of the file. */
+    private final int format;
+
+    /** Compressed offsets of BGZF blocks, if any. */
+    private long[] compressedOffsets;
+
+    /** Uncompressed offsets of BGZF blocks, if any. */
+    private long[] uncompressedOffsets;
+
+    /** Number of BGZF blocks. */
+    private int blocks;
+
+    /** Uncompressed length, or <code>-1L</code> if unknown. */
+    private final long length;
+
+    /** Uncompressed format. */
+    private static final int UNCOMPRESSED = 0;
+
+    /** BGZF-compressed format. */
+    private static final int BGZF = 1;
+
+    /** Gzip-compressed format. */
+    private static final int GZIP = 2;
+
+    /** Length of the fixed portion of a BGZF block header. */
+    private static final int BGZF_HEADER_LENGTH = 18;
+
+    /** Minimum number of uncompressed bytes per chunk, <code>1048576</code>. */
+    private static final long MINIMUM_CHUNK_LENGTH = 1048576L;
+
+
+    /**
+     * Create a new chunked line reader for the specified file.  The file remains open
+     * until this reader is closed.
+     *
+     * @param file file to read, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public ChunkedLineReader(final File file) throws IOException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        inputStream = new FileInputStream(file);
+        channel = inputStream.getChannel();
+        size = channel.size();
+
+        ByteBuffer header = readFully(0L, BGZF_HEADER_LENGTH);
+        if (isBgzf(header))
+        {
+            format = BGZF;
+            length = index();
+        }
+        else if (header.limit() >= 2 && (header.get(0) & 0xff) == 0x1f && (header.get(1) & 0xff) == 0x8b)
+        {
+            format = GZIP;
+            length = -1L;
+        }
+        else
+        {
+            format = UNCOMPRESSED;
+            length = size;
+        }
+    }
+
+
+    /**
+     * Return the uncompressed length of the file, or <code>-1L</code> if the file is
+     * gzip-compressed but not BGZF-compressed.
+     *
+     * @return the uncompressed length of the file, or <code>-1L</code> if unknown
+     */
+    public long length()
+    {
+        return length;
+    }
+
+    /**
+     * Return a default number of chunks for the file, at least one chunk per available
+     * processor and at most one chunk per megabyte of uncompressed bytes.
+     *
+     * @return a default number of chunks for the file
+     */
+    public int defaultChunks()
+    {
+        if (length < 0L)
+        {
+            return 1;
+        }
+        long chunks = Math.min(4L * Runtime.getRuntime().availableProcessors(), length / MINIMUM_CHUNK_LENGTH);
+        return (int) Math.max(1L, chunks);
+    }
+
+    /**
+     * Open and return a new input stream over the uncompressed bytes of the file,
+     * for example to read a header before reading the remainder in chunks.
+     *
+     * @return a new input stream over the uncompressed bytes of the file
+     * @throws IOException if an I/O error occurs
+     */
+    public InputStream open() throws IOException
+    {
+        InputStream channelInputStream = new ChannelInputStream(channel, 0L, size);
+        return (format == UNCOMPRESSED) ? channelInputStream : new GZIPInputStream(channelInputStream, 65536);
+    }
+
+    /**
+     * Read the lines beginning at or after the specified uncompressed offset in the specified
+     * number of chunks on the specified executor service, passing each non-blank line to the
+     * specified line handler.  The line handler will be called concurrently from multiple threads
+     * and must be thread safe.  This method blocks until all chunks have been read.
+     *
+     * @param start uncompressed offset of the first line to read, must be at least zero
+     * @param chunks number of chunks, must be at least one
+     * @param executorService executor service, must not be null
+     * @param handler line handler, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void read(final long start,
+                     final int chunks,
+                     final ExecutorService executorService,
+                     final LineHandler handler)
+        throws IOException
+    {
+        if (start < 0L)
+        {
+            throw new IllegalArgumentException("start must be at least zero");
+        }
+        if (chunks < 1)
+        {
+            throw new IllegalArgumentException("chunks must be at least one");
+        }
+        if (executorService == null)
+        {
+            throw new IllegalArgumentException("executorService must not be null");
+        }
+        if (handler == null)
+        {
+            throw new IllegalArgumentException("handler must not be null");
+        }
+        int n = (length < 0L) ? 1 : (int) Math.max(1L, Math.min((long) chunks, length - start));
+        long span = (length < 0L) ? 0L : (length - start);
+        List<Future<Object>> futures = new ArrayList<Future<Object>>(n);
+        try
+        {
+            for (int i = 0; i < n; i++)
+            {
+                final long chunkStart = start + (span * i) / n;
+                final long chunkEnd = (i == (n - 1)) ? Long.MAX_VALUE : start + (span * (i + 1)) / n;
+                final boolean first = (i == 0);
+                futures.add(executorService.submit(new Callable<Object>()
+                    {
+                        /** {@inheritDoc} */
+                        public Object call() throws IOException
+                        {
+                            readChunk(chunkStart, chunkEnd, first, handler);
+                            return null;
+                        }
+                    }));
+            }
+            for (Future<Object> future : futures)
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while reading chunks");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException("caught " + cause + " while reading chunks");
+        }
+        finally
+        {
+            for (Future<Object> future : futures)
+            {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Close this chunked line reader and its underlying file.
+     */
+    public void close()
+    {
+        MatrixIOUtils.closeQuietly(inputStream);
+    }
+
+    /**
+     * Read the lines beginning in the specified chunk.
+     *
+     * @param chunkStart uncompressed start offset of the chunk, inclusive
+     * @param chunkEnd uncompressed end offset of the chunk
+     * @param first true if this is the first chunk, which also handles a line beginning at <code>chunkStart</code>
+     * @param handler line handler
+     * @throws IOException if an I/O error occurs
+     */
+    private void readChunk(final long chunkStart, final long chunkEnd, final boolean first, final LineHandler handler)
+        throws IOException
+    {
+        InputStream compressed = null;
+        try
+        {
+            ByteTokenizer tokenizer;
+            if (format == UNCOMPRESSED)
+            {
+                tokenizer = new ByteTokenizer(channel, chunkStart, size, ByteTokenizer.DEFAULT_WINDOW_SIZE);
+            }
+            else
+            {
+                int block = (format == BGZF) ? block(chunkStart) : 0;
+                long compressedOffset = (format == BGZF) ? compressedOffsets[block] : 0L;
+                long uncompressedOffset = (format == BGZF) ? uncompressedOffsets[block] : 0L;
+                compressed = new GZIPInputStream(new ChannelInputStream(channel, compressedOffset, size), 65536);
+                skipFully(compressed, chunkStart - uncompressedOffset);
+                tokenizer = new ByteTokenizer(compressed);
+            }
+            if (!first)
+            {
+                tokenizer.skipLine();
+            }
+            while (true)
+            {
+                long lineStart = chunkStart + tokenizer.position();
+                if (lineStart > chunkEnd)
+                {
+                    break;
+                }
+                int c = tokenizer.skipSpaces();
+                if (c == -1)
+                {
+                    break;
+                }
+                if (c != '\n')
+                {
+                    try
+                    {
+                        handler.handle(tokenizer);
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        throw new IOException("caught NumberFormatException at byte offset " + lineStart
+                                              + "\n" + e.getMessage());
+                    }
+                    catch (IndexOutOfBoundsException e)
+                    {
+                        throw new IOException("caught IndexOutOfBoundsException at byte offset " + lineStart
+                                              + "\n" + e.getMessage());
+                    }
+                }
+                tokenizer.skipLine();
+            }
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(compressed);
+        }
+    }
+
+    /**
+     * Return the index of the BGZF block containing the specified uncompressed offset.
+     *
+     * @param uncompressedOffset uncompressed offset
+     * @return the index of the BGZF block containing the specified uncompressed offset
+     */
+    private int block(final long uncompressedOffset)
+    {
+        int low = 0;
+        int high = blocks - 1;
+        while (low < high)
+        {
+            int mid = (low + high + 1) >>> 1;
+            if (uncompressedOffsets[mid] <= uncompressedOffset)
+            {
+                low = mid;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index the BGZF blocks of the file.
+     *
+     * @return the uncompressed length of the file
+     * @throws IOException if an I/O error occurs
+     */
+    private long index() throws IOException
+    {
+        compressedOffsets = new long[1024];
+        uncompressedOffsets = new long[1024];
+        long compressedOffset = 0L;
+        long uncompressedOffset = 0L;
+        while (compressedOffset < size)
+        {
+            ByteBuffer header = readFully(compressedOffset, BGZF_HEADER_LENGTH);
+            if (!isBgzf(header))
+            {
+                throw new IOException("invalid BGZF block header at byte offset " + compressedOffset);
+            }
+            int blockSize = (header.getShort(16) & 0xffff) + 1;
+            ByteBuffer trailer = readFully(compressedOffset + blockSize - 4L, 4);
+            if (trailer.limit() < 4)
+            {
+                throw new IOException("truncated BGZF block at byte offset " + compressedOffset);
+            }
+            long uncompressedSize = trailer.getInt(0) & 0xffffffffL;
+            if (uncompressedSize > 0L)
+            {
+                if (blocks == compressedOffsets.length)
+                {
+                    long[] tmp = new long[2 * blocks];
+                    System.arraycopy(compressedOffsets, 0, tmp, 0, blocks);
+                    compressedOffsets = tmp;
+                    tmp = new long[2 * blocks];
+                    System.arraycopy(uncompressedOffsets, 0, tmp, 0, blocks);
+                    uncompressedOffsets = tmp;
+                }
+                compressedOffsets[blocks] = compressedOffset;
+                uncompressedOffsets[blocks] = uncompressedOffset;
+                blocks++;
+            }
+            compressedOffset += blockSize;
+            uncompressedOffset += uncompressedSize;
+        }
+        if (blocks == 0)
+        {
+            compressedOffsets[0] = 0L;
+            uncompressedOffsets[0] = 0L;
+            blocks = 1;
+        }
+        return uncompressedOffset;
+    }
+
+    /**
+     * Read up to the specified number of bytes at the specified position into a new little
+     * endian byte buffer.
+     *
+     * @param position position
+     * @param count number of bytes
+     * @return a new little endian byte buffer, limited to the bytes read
+     * @throws IOException if an I/O error occurs
+     */
+    private ByteBuffer readFully(final long position, final int count) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining())
+        {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+            {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Return true if the specified header is a BGZF block header.
+     *
+     * @param header header
+     * @return true if the specified header is a BGZF block header
+     */
+    private static boolean isBgzf(final ByteBuffer header)
+    {
+        return header.limit() == BGZF_HEADER_LENGTH
+            && (header.get(0) & 0xff) == 0x1f
+            && (header.get(1) & 0xff) == 0x8b
+            && header.get(2) == 8
+            && (header.get(3) & 4) != 0
+            && header.getShort(10) == 6
+            && header.get(12) == 'B'
+            && header.get(13) == 'C'
+            && header.getShort(14) == 2;
+    }
+
+    /**
+     * Skip exactly the specified number of bytes of the specified input stream.
+     *
+     * @param inputStream input stream
+     * @param count number of bytes to skip
+     * @throws IOException if an I/O error occurs
+     */
+    private static void skipFully(final InputStream inputStream, final long count) throws IOException
+    {
+        long remaining = count;
+        while (remaining > 0L)
+        {
+            long skipped = inputStream.skip(remaining);
+            if (skipped <= 0L)
+            {
+                if (inputStream.read() < 0)
+                {
+                    throw new IOException("unexpected end of stream");
+                }
+                skipped = 1L;
+            }
+            remaining -= skipped;
+        }
+    }
+
+
+    /**
+     * Input stream reading a file channel by position, safe for use by
+     * concurrent streams over the same channel.
+     */
+    private static final class ChannelInputStream
+        extends InputStream
+    {
+        /** File channel. */
+        private final FileChannel channel;
+
+        /** Position. */
+        private long position;
+
+        /** End position, exclusive. */
+        private final long end;
+
+
+        /**
+         * Create a new channel input stream.
+         *
+         * @param channel file channel
+         * @param position start position
+         * @param end end position, exclusive
+         */
+        ChannelInputStream(final FileChannel channel, final long position, final long end)
+        {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+
+        /** {@inheritDoc} */
+        public int read() throws IOException
+        {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) < 0) ? -1 : (b[0] & 0xff);
+        }
+
+        /** {@inheritDoc} */
+        public int read(final byte[] b, final int off, final int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (position >= end)
+            {
+                return -1;
+            }
+            int count = (int) Math.min((long) len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, count), position);
+            if (read > 0)
+            {
+                position += read;
+            }
+            return read;
+        }
+
+        /** {@inheritDoc} */
+        public long skip(final long n)
+        {
+            long skipped = Math.max(0L, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        /** {@inheritDoc} */
+        public int available()
+        {
+            return (int) Math.min((long) Integer.MAX_VALUE, Math.max(0L, end - position));
+        }
+    }
+}
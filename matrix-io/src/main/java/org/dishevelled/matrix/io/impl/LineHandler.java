@@ -0,0 +1,46 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.IOException;
+
+/**
+ * Handler for lines read by a {@link ChunkedLineReader}.
+ *
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public interface LineHandler
+{
+
+    /**
+     * Handle the current line of the specified tokenizer.  The tokenizer is positioned
+     * at the first byte of a non-blank line that is not a space or tab.  The remainder
+     * of the line will be skipped after this method returns.
+     *
+     * @param tokenizer tokenizer
+     * @throws IOException if an I/O error occurs
+     */
+    void handle(ByteTokenizer tokenizer) throws IOException;
+}
@@ -0,0 +1,306 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.URL;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+
+import java.nio.channels.FileChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dishevelled.matrix.Matrix2D;
+
+import org.dishevelled.matrix.impl.BufferSparseMatrix2D;
+
+import org.dishevelled.matrix.io.Matrix2DReader;
+
+/**
+ * Binary columnar format reader for matrices of doubles in two dimensions, returning
+ * read-only matrices backed by NIO buffers.
+ *
+ * <p>When reading from a file, uncompressed blocks are memory mapped and read in place,
+ * so the values are never copied onto the heap and only the pages touched are loaded.
+ * Deflate compressed blocks, and all blocks read from a URL or input stream, are decoded
+ * into heap buffers.  The indices of memory mapped blocks are not validated beyond the
+ * first index of each block.</p>
+ *
+ * @author  Michael Heuer
+ */
+public final class MappedBinaryMatrix2DReader
+    implements Matrix2DReader<Double>
+{
+    /** Maximum size of a single memory mapped window, in bytes. */
+    private static final long WINDOW_SIZE = 1L << 30;
+
+
+    /** {@inheritDoc} */
+    public BufferSparseMatrix2D read(final File file) throws IOException
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        FileInputStream inputStream = null;
+        try
+        {
+            inputStream = new FileInputStream(file);
+            return read(inputStream.getChannel());
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public BufferSparseMatrix2D read(final URL url) throws IOException
+    {
+        if (url == null)
+        {
+            throw new IllegalArgumentException("url must not be null");
+        }
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = url.openStream();
+            return read(inputStream);
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public BufferSparseMatrix2D read(final InputStream inputStream) throws IOException
+    {
+        if (inputStream == null)
+        {
+            throw new IllegalArgumentException("inputStream must not be null");
+        }
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream, 65536));
+        BinaryMatrixFormat.Header header = BinaryMatrixFormat.Header.read(input, 2);
+        long size = header.rows * header.columns;
+        List<LongBuffer> indices = new ArrayList<LongBuffer>();
+        List<DoubleBuffer> values = new ArrayList<DoubleBuffer>();
+        BinaryMatrixFormat.Block block = null;
+        while ((block = BinaryMatrixFormat.readBlock(input, header, size)) != null)
+        {
+            indices.add(LongBuffer.wrap(block.indices));
+            values.add(DoubleBuffer.wrap(block.values));
+        }
+        return createMatrix(header, indices, values);
+    }
+
+    /**
+     * Read a 2D matrix from the specified file channel, memory mapping uncompressed blocks.
+     *
+     * @param channel file channel to read from
+     * @return a 2D matrix read from the specified file channel
+     * @throws IOException if an I/O error occurs
+     */
+    private BufferSparseMatrix2D read(final FileChannel channel) throws IOException
+    {
+        long length = channel.size();
+        if (length < BinaryMatrixFormat.HEADER_LENGTH + BinaryMatrixFormat.BLOCK_HEADER_LENGTH
+            + BinaryMatrixFormat.TRAILER_LENGTH)
+        {
+            throw new IOException("not a binary matrix, file too short");
+        }
+        BinaryMatrixFormat.Header header = BinaryMatrixFormat.Header.read(read(channel, 0L,
+                                                                               BinaryMatrixFormat.HEADER_LENGTH), 2);
+        long size = header.rows * header.columns;
+
+        ByteBuffer trailer = read(channel, length - BinaryMatrixFormat.TRAILER_LENGTH, BinaryMatrixFormat.TRAILER_LENGTH);
+        long directoryOffset = trailer.getLong();
+        long blockCount = trailer.getLong();
+        if (trailer.getInt() != BinaryMatrixFormat.MAGIC)
+        {
+            throw new IOException("invalid binary matrix, trailer magic number not found");
+        }
+        if (blockCount < 0L || directoryOffset < BinaryMatrixFormat.HEADER_LENGTH
+            || directoryOffset + blockCount * BinaryMatrixFormat.DIRECTORY_ENTRY_LENGTH
+               != length - BinaryMatrixFormat.TRAILER_LENGTH)
+        {
+            throw new IOException("invalid binary matrix, directory offset or block count out of range");
+        }
+        if (blockCount > Integer.MAX_VALUE / BinaryMatrixFormat.DIRECTORY_ENTRY_LENGTH)
+        {
+            throw new IOException("invalid binary matrix, too many blocks");
+        }
+        ByteBuffer directory = read(channel, directoryOffset,
+                                    (int) blockCount * BinaryMatrixFormat.DIRECTORY_ENTRY_LENGTH);
+
+        List<LongBuffer> indices = new ArrayList<LongBuffer>((int) blockCount);
+        List<DoubleBuffer> values = new ArrayList<DoubleBuffer>((int) blockCount);
+        MappedByteBuffer window = null;
+        long windowStart = 0L;
+        long previousFirstIndex = -1L;
+        for (int i = 0; i < blockCount; i++)
+        {
+            long firstIndex = directory.getLong();
+            long blockOffset = directory.getLong();
+            int entries = directory.getInt();
+            directory.getInt();
+            if (firstIndex <= previousFirstIndex || firstIndex >= size)
+            {
+                throw new IOException("invalid binary matrix, block " + i + " first index out of order or out of bounds");
+            }
+            previousFirstIndex = firstIndex;
+            if (blockOffset < BinaryMatrixFormat.HEADER_LENGTH
+                || blockOffset + BinaryMatrixFormat.BLOCK_HEADER_LENGTH > directoryOffset)
+            {
+                throw new IOException("invalid binary matrix, block " + i + " offset out of range");
+            }
+            ByteBuffer blockHeader = read(channel, blockOffset, BinaryMatrixFormat.BLOCK_HEADER_LENGTH);
+            int blockEntries = blockHeader.getInt();
+            int indexLength = blockHeader.getInt();
+            int valueLength = blockHeader.getInt();
+            if (blockEntries != entries)
+            {
+                throw new IOException("invalid binary matrix, block " + i + " entries do not match directory");
+            }
+            BinaryMatrixFormat.checkBlockHeader(entries, indexLength, valueLength, header);
+            long dataOffset = blockOffset + BinaryMatrixFormat.BLOCK_HEADER_LENGTH;
+            long paddedIndexLength = BinaryMatrixFormat.pad(indexLength);
+            long dataLength = paddedIndexLength + BinaryMatrixFormat.pad(valueLength);
+            if (dataOffset + dataLength > directoryOffset)
+            {
+                throw new IOException("invalid binary matrix, block " + i + " extends past directory");
+            }
+
+            if (window == null || dataOffset < windowStart || dataOffset + dataLength > windowStart + window.capacity())
+            {
+                windowStart = dataOffset;
+                long windowLength = Math.min(Math.max(WINDOW_SIZE, dataLength), directoryOffset - dataOffset);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            }
+            int position = (int) (dataOffset - windowStart);
+            ByteBuffer index = slice(window, position, indexLength);
+            ByteBuffer value = slice(window, position + (int) paddedIndexLength, valueLength);
+
+            if (header.compression == BinaryMatrixFormat.NONE)
+            {
+                LongBuffer blockIndices = index.asLongBuffer();
+                if (blockIndices.get(0) != firstIndex)
+                {
+                    throw new IOException("invalid binary matrix, block " + i + " first index does not match directory");
+                }
+                indices.add(blockIndices);
+                values.add(value.asDoubleBuffer());
+            }
+            else
+            {
+                BinaryMatrixFormat.Block block = BinaryMatrixFormat.decodeBlock(entries, index, value, header, size);
+                if (block.indices[0] != firstIndex)
+                {
+                    throw new IOException("invalid binary matrix, block " + i + " first index does not match directory");
+                }
+                indices.add(LongBuffer.wrap(block.indices));
+                values.add(DoubleBuffer.wrap(block.values));
+            }
+        }
+        return createMatrix(header, indices, values);
+    }
+
+    /**
+     * Read the specified number of bytes from the specified file channel at the specified position.
+     *
+     * @param channel file channel to read from
+     * @param position position
+     * @param length number of bytes to read
+     * @return a buffer containing the bytes read
+     * @throws IOException if an I/O error occurs
+     */
+    private static ByteBuffer read(final FileChannel channel, final long position, final int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new IOException("unexpected end of binary matrix at byte offset " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Return a slice of the specified buffer.
+     *
+     * @param buffer buffer to slice
+     * @param position position of the slice
+     * @param length length of the slice
+     * @return a slice of the specified buffer
+     */
+    private static ByteBuffer slice(final ByteBuffer buffer, final int position, final int length)
+    {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+
+    /**
+     * Create and return a new buffer sparse 2D matrix.
+     *
+     * @param header header
+     * @param indices blocks of indices
+     * @param values blocks of values
+     * @return a new buffer sparse 2D matrix
+     * @throws IOException if the number of values does not match the cardinality in the header
+     */
+    private static BufferSparseMatrix2D createMatrix(final BinaryMatrixFormat.Header header,
+                                                     final List<LongBuffer> indices,
+                                                     final List<DoubleBuffer> values)
+        throws IOException
+    {
+        long count = 0L;
+        for (LongBuffer blockIndices : indices)
+        {
+            count += blockIndices.remaining();
+        }
+        if (count != header.cardinality)
+        {
+            throw new IOException("expected " + header.cardinality + " values, found " + count);
+        }
+        return new BufferSparseMatrix2D(header.rows, header.columns,
+                                        indices.toArray(new LongBuffer[indices.size()]),
+                                        values.toArray(new DoubleBuffer[values.size()]));
+    }
+}
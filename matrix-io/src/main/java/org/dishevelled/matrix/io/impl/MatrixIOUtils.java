@@ -25,6 +25,7 @@ package org.dishevelled.matrix.io.impl;
 
 import java.io.InputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 
@@ -77,6 +78,26 @@ final class MatrixIOUtils
         }
     }
 
+    /**
+     * Close the specified output stream quietly.
+     *
+     * @param outputStream output stream to close
+     */
+    static void closeQuietly(final OutputStream outputStream)
+    {
+        if (outputStream != null)
+        {
+            try
+            {
+                outputStream.close();
+            }
+            catch (IOException e)
+            {
+                // ignore
+            }
+        }
+    }
+
     /**
      * Close the specified reader quietly.
      *
@@ -0,0 +1,46 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl.sparse;
+
+import org.dishevelled.matrix.Matrix1D;
+
+import org.dishevelled.matrix.impl.SparseMatrix1D;
+
+import org.dishevelled.matrix.io.impl.AbstractBinaryMatrix1DReader;
+
+/**
+ * Binary columnar format reader for sparse matrices of doubles in one dimension.
+ *
+ * @author  Michael Heuer
+ */
+public final class SparseBinaryMatrix1DReader
+    extends AbstractBinaryMatrix1DReader
+{
+
+    /** {@inheritDoc} */
+    protected Matrix1D<Double> createMatrix1D(final long size, final int cardinality)
+    {
+        return new SparseMatrix1D<Double>(size, cardinality, 0.75f);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.matrix.Matrix1D;
+
+import org.dishevelled.matrix.impl.SparseMatrix1D;
+
+import org.dishevelled.matrix.io.impl.sparse.SparseBinaryMatrix1DReader;
+
+/**
+ * Unit test for BinaryMatrix1DWriter.
+ *
+ * @author  Michael Heuer
+ */
+public final class BinaryMatrix1DWriterTest
+    extends TestCase
+{
+
+    public void testAppend() throws IOException
+    {
+        try
+        {
+            new BinaryMatrix1DWriter().append(new SparseMatrix1D<Double>(16L), new StringBuffer());
+            fail("append expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    public void testRoundTrip() throws IOException
+    {
+        Matrix1D<Double> matrix = new SparseMatrix1D<Double>(1000L);
+        for (long index = 0; index < 1000L; index += 7L)
+        {
+            matrix.setQuick(index, Double.valueOf(index * 0.5d));
+        }
+        SparseBinaryMatrix1DReader reader = new SparseBinaryMatrix1DReader();
+        for (int blockSize : new int[] { 1, 10, 65536 })
+        {
+            for (boolean compress : new boolean[] { false, true })
+            {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                new BinaryMatrix1DWriter(compress, blockSize).write(matrix, outputStream);
+                Matrix1D<Double> observed = reader.read(new ByteArrayInputStream(outputStream.toByteArray()));
+                assertEquals(matrix.size(), observed.size());
+                assertEquals(matrix.cardinality(), observed.cardinality());
+                for (long index = 0; index < 1000L; index++)
+                {
+                    assertEquals(matrix.get(index), observed.get(index));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.matrix.Matrix2D;
+
+import org.dishevelled.matrix.impl.SparseMatrix2D;
+
+import org.dishevelled.matrix.io.impl.sparse.SparseBinaryMatrix1DReader;
+import org.dishevelled.matrix.io.impl.sparse.SparseBinaryMatrix2DReader;
+
+/**
+ * Unit test for BinaryMatrix2DWriter.
+ *
+ * @author  Michael Heuer
+ */
+public final class BinaryMatrix2DWriterTest
+    extends TestCase
+{
+
+    /**
+     * Create and return a new sparse 2D matrix with values at every third row and column.
+     *
+     * @return a new sparse 2D matrix with values at every third row and column
+     */
+    private static Matrix2D<Double> createMatrix()
+    {
+        Matrix2D<Double> matrix = new SparseMatrix2D<Double>(17L, 23L);
+        for (long row = 0; row < 17L; row++)
+        {
+            for (long column = 0; column < 23L; column++)
+            {
+                if ((row + column) % 3L == 0L)
+                {
+                    matrix.setQuick(row, column, Double.valueOf(row * 100.0d + column));
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Assert the specified matrices contain the same values.
+     *
+     * @param expected expected matrix
+     * @param observed observed matrix
+     */
+    private static void assertMatrixEquals(final Matrix2D<Double> expected, final Matrix2D<Double> observed)
+    {
+        assertEquals(expected.rows(), observed.rows());
+        assertEquals(expected.columns(), observed.columns());
+        assertEquals(expected.cardinality(), observed.cardinality());
+        for (long row = 0; row < expected.rows(); row++)
+        {
+            for (long column = 0; column < expected.columns(); column++)
+            {
+                assertEquals(expected.get(row, column), observed.get(row, column));
+            }
+        }
+    }
+
+    /**
+     * Write the specified matrix with the specified writer and return the bytes written.
+     *
+     * @param matrix matrix to write
+     * @param writer writer
+     * @return the bytes written
+     * @throws IOException if an I/O error occurs
+     */
+    private static byte[] write(final Matrix2D<Double> matrix, final BinaryMatrix2DWriter writer) throws IOException
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writer.write(matrix, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    public void testConstructor()
+    {
+        assertNotNull(new BinaryMatrix2DWriter());
+        assertNotNull(new BinaryMatrix2DWriter(true));
+        assertNotNull(new BinaryMatrix2DWriter(true, 16));
+
+        try
+        {
+            new BinaryMatrix2DWriter(false, 0);
+            fail("ctr(, 0) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new BinaryMatrix2DWriter(false, Integer.MAX_VALUE);
+            fail("ctr(, Integer.MAX_VALUE) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testAppend() throws IOException
+    {
+        try
+        {
+            new BinaryMatrix2DWriter().append(createMatrix(), new StringBuffer());
+            fail("append expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    public void testWrite() throws IOException
+    {
+        Matrix2D<Double> matrix = createMatrix();
+        BinaryMatrix2DWriter writer = new BinaryMatrix2DWriter();
+        File file = File.createTempFile("binaryMatrix2DWriterTest", null);
+        file.deleteOnExit();
+        writer.write(matrix, file);
+        assertTrue(file.length() > 0L);
+
+        try
+        {
+            writer.write(null, file);
+            fail("write(null, ) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            writer.write(matrix, (File) null);
+            fail("write(, (File) null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            writer.write(matrix, (OutputStream) null);
+            fail("write(, (OutputStream) null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testRoundTrip() throws IOException
+    {
+        Matrix2D<Double> matrix = createMatrix();
+        SparseBinaryMatrix2DReader reader = new SparseBinaryMatrix2DReader();
+        for (int blockSize : new int[] { 1, 7, 65536 })
+        {
+            byte[] uncompressed = write(matrix, new BinaryMatrix2DWriter(false, blockSize));
+            assertMatrixEquals(matrix, reader.read(new ByteArrayInputStream(uncompressed)));
+            byte[] compressed = write(matrix, new BinaryMatrix2DWriter(true, blockSize));
+            assertMatrixEquals(matrix, reader.read(new ByteArrayInputStream(compressed)));
+        }
+    }
+
+    public void testRoundTripEmpty() throws IOException
+    {
+        Matrix2D<Double> matrix = new SparseMatrix2D<Double>(0L, 0L);
+        byte[] bytes = write(matrix, new BinaryMatrix2DWriter());
+        Matrix2D<Double> observed = new SparseBinaryMatrix2DReader().read(new ByteArrayInputStream(bytes));
+        assertEquals(0L, observed.size());
+        assertEquals(0L, observed.cardinality());
+    }
+
+    public void testCompressedIsSmaller() throws IOException
+    {
+        Matrix2D<Double> matrix = createMatrix();
+        byte[] compressed = write(matrix, new BinaryMatrix2DWriter(true));
+        byte[] uncompressed = write(matrix, new BinaryMatrix2DWriter(false));
+        assertTrue(compressed.length < uncompressed.length);
+    }
+
+    public void testReadInvalid() throws IOException
+    {
+        try
+        {
+            new SparseBinaryMatrix2DReader().read(new ByteArrayInputStream("not a binary matrix".getBytes()));
+            fail("read invalid expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        byte[] bytes = write(createMatrix(), new BinaryMatrix2DWriter());
+        byte[] truncated = new byte[bytes.length / 2];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        try
+        {
+            new SparseBinaryMatrix2DReader().read(new ByteArrayInputStream(truncated));
+            fail("read truncated expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        try
+        {
+            new SparseBinaryMatrix1DReader().read(new ByteArrayInputStream(bytes));
+            fail("read 2D as 1D expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+}
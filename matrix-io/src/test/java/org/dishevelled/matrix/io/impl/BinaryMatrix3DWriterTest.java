@@ -0,0 +1,101 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.matrix.Matrix3D;
+
+import org.dishevelled.matrix.impl.SparseMatrix3D;
+
+import org.dishevelled.matrix.io.impl.sparse.SparseBinaryMatrix3DReader;
+
+/**
+ * Unit test for BinaryMatrix3DWriter.
+ *
+ * @author  Michael Heuer
+ */
+public final class BinaryMatrix3DWriterTest
+    extends TestCase
+{
+
+    public void testAppend() throws IOException
+    {
+        try
+        {
+            new BinaryMatrix3DWriter().append(new SparseMatrix3D<Double>(2L, 2L, 2L), new StringBuffer());
+            fail("append expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    public void testRoundTrip() throws IOException
+    {
+        Matrix3D<Double> matrix = new SparseMatrix3D<Double>(5L, 7L, 11L);
+        for (long slice = 0; slice < 5L; slice++)
+        {
+            for (long row = 0; row < 7L; row++)
+            {
+                for (long column = 0; column < 11L; column++)
+                {
+                    if ((slice + row + column) % 4L == 0L)
+                    {
+                        matrix.setQuick(slice, row, column, Double.valueOf(slice * 10000.0d + row * 100.0d + column));
+                    }
+                }
+            }
+        }
+        SparseBinaryMatrix3DReader reader = new SparseBinaryMatrix3DReader();
+        for (int blockSize : new int[] { 1, 10, 65536 })
+        {
+            for (boolean compress : new boolean[] { false, true })
+            {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                new BinaryMatrix3DWriter(compress, blockSize).write(matrix, outputStream);
+                Matrix3D<Double> observed = reader.read(new ByteArrayInputStream(outputStream.toByteArray()));
+                assertEquals(matrix.slices(), observed.slices());
+                assertEquals(matrix.rows(), observed.rows());
+                assertEquals(matrix.columns(), observed.columns());
+                assertEquals(matrix.cardinality(), observed.cardinality());
+                for (long slice = 0; slice < 5L; slice++)
+                {
+                    for (long row = 0; row < 7L; row++)
+                    {
+                        for (long column = 0; column < 11L; column++)
+                        {
+                            assertEquals(matrix.get(slice, row, column), observed.get(slice, row, column));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
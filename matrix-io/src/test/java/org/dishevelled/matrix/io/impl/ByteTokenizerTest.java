@@ -0,0 +1,241 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for ByteTokenizer.
+ *
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public final class ByteTokenizerTest
+    extends TestCase
+{
+
+    public void testConstructor() throws IOException
+    {
+        assertNotNull(new ByteTokenizer(inputStream("")));
+        assertNotNull(new ByteTokenizer(inputStream(""), 1));
+        assertNotNull(new ByteTokenizer(ByteBuffer.allocate(0)));
+
+        try
+        {
+            new ByteTokenizer((InputStream) null);
+            fail("ctr((InputStream) null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new ByteTokenizer(inputStream(""), 0);
+            fail("ctr(inputStream, 0) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new ByteTokenizer((ByteBuffer) null);
+            fail("ctr((ByteBuffer) null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testEmpty() throws IOException
+    {
+        ByteTokenizer tokenizer = new ByteTokenizer(inputStream(""));
+        assertEquals(-1, tokenizer.peek());
+        assertEquals(-1, tokenizer.skipWhitespace());
+        assertNull(tokenizer.nextLine());
+        assertEquals(0L, tokenizer.lineNumber());
+    }
+
+    public void testLines() throws IOException
+    {
+        // buffer size of 1 forces a refill for every byte
+        ByteTokenizer tokenizer = new ByteTokenizer(inputStream("first line\r\n\n  \nsecond\tline"), 1);
+        assertEquals("first line", tokenizer.nextLine());
+        assertEquals(1L, tokenizer.lineNumber());
+        assertEquals('s', tokenizer.skipWhitespace());
+        assertEquals(3L, tokenizer.lineNumber());
+        assertEquals("second\tline", tokenizer.nextLine());
+        assertNull(tokenizer.nextLine());
+    }
+
+    public void testSkipLine() throws IOException
+    {
+        ByteTokenizer tokenizer = new ByteTokenizer(inputStream("% comment\n1 2 3\n"));
+        tokenizer.skipLine();
+        assertEquals(1L, tokenizer.lineNumber());
+        assertEquals(1L, tokenizer.nextLong());
+        tokenizer.skipLine();
+        assertEquals(2L, tokenizer.lineNumber());
+        assertEquals(-1, tokenizer.skipWhitespace());
+    }
+
+    public void testNextLong() throws IOException
+    {
+        ByteTokenizer tokenizer = new ByteTokenizer(inputStream("0 -1 +42\t9223372036854775807 -9223372036854775808"), 3);
+        assertEquals(0L, tokenizer.nextLong());
+        assertEquals(-1L, tokenizer.nextLong());
+        assertEquals(42L, tokenizer.nextLong());
+        assertEquals(Long.MAX_VALUE, tokenizer.nextLong());
+        assertEquals(Long.MIN_VALUE, tokenizer.nextLong());
+    }
+
+    public void testNextLongInvalid() throws IOException
+    {
+        String[] invalid = new String[] { "", "-", "not-a-number", "1.0", "12a", "9223372036854775808",
+                                          "-9223372036854775809", "\n1" };
+        for (int i = 0; i < invalid.length; i++)
+        {
+            try
+            {
+                new ByteTokenizer(inputStream(invalid[i])).nextLong();
+                fail("nextLong(" + invalid[i] + ") expected NumberFormatException");
+            }
+            catch (NumberFormatException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    public void testNextDouble() throws IOException
+    {
+        String[] values = new String[] { "0", "-0.0", "1", "0.1", "-1.5", "+2.25", ".5", "5.", "1e3", "1.0E-3",
+                                         "-2.5e+2", "0.000001", "123456789012345678", "1234567890.0987654321",
+                                         "3.141592653589793", "2.2250738585072014E-308", "1.7976931348623157e308",
+                                         "4.9e-324", "1e400", "Infinity", "-Infinity", "NaN", "1.0d",
+                                         "0.30000000000000004", "9007199254740993", "123456789012345678901234567890" };
+        for (int i = 0; i < values.length; i++)
+        {
+            ByteTokenizer tokenizer = new ByteTokenizer(inputStream(values[i]));
+            double expected = Double.parseDouble(values[i]);
+            double actual = tokenizer.nextDouble();
+            assertEquals(values[i], Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+        }
+    }
+
+    public void testNextDoubleInvalid() throws IOException
+    {
+        String[] invalid = new String[] { "", "-", ".", "e5", "1e", "not-a-number", "1.2.3", "\n1.0" };
+        for (int i = 0; i < invalid.length; i++)
+        {
+            try
+            {
+                new ByteTokenizer(inputStream(invalid[i])).nextDouble();
+                fail("nextDouble(" + invalid[i] + ") expected NumberFormatException");
+            }
+            catch (NumberFormatException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    public void testByteBuffer() throws IOException
+    {
+        ByteTokenizer tokenizer = new ByteTokenizer(ByteBuffer.wrap("3 4 0.5\n".getBytes("US-ASCII")));
+        assertEquals(3L, tokenizer.nextLong());
+        assertEquals(4L, tokenizer.nextLong());
+        assertEquals(0.5d, tokenizer.nextDouble(), 0.0d);
+        tokenizer.skipLine();
+        assertEquals(-1, tokenizer.skipWhitespace());
+    }
+
+    public void testFileChannel() throws IOException
+    {
+        File file = File.createTempFile("byteTokenizerTest", ".txt");
+        file.deleteOnExit();
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream(file);
+            outputStream.write("header\n10 20 30.5\n40 50 60.25\n".getBytes("US-ASCII"));
+        }
+        finally
+        {
+            if (outputStream != null)
+            {
+                outputStream.close();
+            }
+        }
+
+        FileInputStream inputStream = null;
+        try
+        {
+            inputStream = new FileInputStream(file);
+            // window size of 5 bytes splits tokens across mapped windows
+            ByteTokenizer tokenizer = new ByteTokenizer(inputStream.getChannel(), 7L, file.length(), 5);
+            assertEquals(10L, tokenizer.nextLong());
+            assertEquals(20L, tokenizer.nextLong());
+            assertEquals(30.5d, tokenizer.nextDouble(), 0.0d);
+            tokenizer.skipLine();
+            assertEquals(40L, tokenizer.nextLong());
+            assertEquals(50L, tokenizer.nextLong());
+            assertEquals(60.25d, tokenizer.nextDouble(), 0.0d);
+            tokenizer.skipLine();
+            assertEquals(-1, tokenizer.skipWhitespace());
+            assertEquals(2L, tokenizer.lineNumber());
+        }
+        finally
+        {
+            if (inputStream != null)
+            {
+                inputStream.close();
+            }
+        }
+    }
+
+    /**
+     * Return an input stream over the specified ASCII text.
+     *
+     * @param text text
+     * @return an input stream over the specified ASCII text
+     * @throws IOException if an I/O error occurs
+     */
+    private static InputStream inputStream(final String text) throws IOException
+    {
+        return new ByteArrayInputStream(text.getBytes("US-ASCII"));
+    }
+}
@@ -0,0 +1,384 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for ChunkedLineReader.
+ *
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public final class ChunkedLineReaderTest
+    extends TestCase
+{
+    /** Number of lines. */
+    private static final int LINES = 5000;
+
+    /** Executor service. */
+    private ExecutorService executorService;
+
+
+    /** {@inheritDoc} */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        executorService = Executors.newFixedThreadPool(4);
+    }
+
+    /** {@inheritDoc} */
+    protected void tearDown() throws Exception
+    {
+        executorService.shutdownNow();
+        super.tearDown();
+    }
+
+
+    public void testConstructor() throws IOException
+    {
+        try
+        {
+            new ChunkedLineReader(null);
+            fail("ctr(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testReadIllegalArguments() throws IOException
+    {
+        File file = createFile(text().getBytes("US-ASCII"));
+        ChunkedLineReader reader = new ChunkedLineReader(file);
+        try
+        {
+            try
+            {
+                reader.read(-1L, 1, executorService, new CountingLineHandler());
+                fail("read(-1L, ...) expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            try
+            {
+                reader.read(0L, 0, executorService, new CountingLineHandler());
+                fail("read(..., 0, ...) expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            try
+            {
+                reader.read(0L, 1, null, new CountingLineHandler());
+                fail("read(..., null, ...) expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            try
+            {
+                reader.read(0L, 1, executorService, null);
+                fail("read(..., null) expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    public void testUncompressed() throws IOException
+    {
+        byte[] bytes = text().getBytes("US-ASCII");
+        File file = createFile(bytes);
+        ChunkedLineReader reader = new ChunkedLineReader(file);
+        try
+        {
+            assertEquals(bytes.length, reader.length());
+            assertTrue(reader.defaultChunks() >= 1);
+            assertEachLineReadOnce(reader);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    public void testBgzf() throws IOException
+    {
+        byte[] bytes = text().getBytes("US-ASCII");
+        File file = createFile(bgzf(bytes, 4096));
+        ChunkedLineReader reader = new ChunkedLineReader(file);
+        try
+        {
+            assertEquals(bytes.length, reader.length());
+            assertEachLineReadOnce(reader);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    public void testGzip() throws IOException
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        GZIPOutputStream outputStream = new GZIPOutputStream(buffer);
+        outputStream.write(text().getBytes("US-ASCII"));
+        outputStream.close();
+        File file = createFile(buffer.toByteArray());
+        ChunkedLineReader reader = new ChunkedLineReader(file);
+        try
+        {
+            assertEquals(-1L, reader.length());
+            assertEquals(1, reader.defaultChunks());
+            assertEachLineReadOnce(reader);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    public void testOpen() throws IOException
+    {
+        byte[] bytes = text().getBytes("US-ASCII");
+        File file = createFile(bgzf(bytes, 4096));
+        ChunkedLineReader reader = new ChunkedLineReader(file);
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = reader.open();
+            ByteTokenizer tokenizer = new ByteTokenizer(inputStream);
+            assertEquals("header", tokenizer.nextLine());
+            assertEquals(0L, tokenizer.nextLong());
+            assertEquals(8L, tokenizer.position());
+        }
+        finally
+        {
+            MatrixIOUtils.closeQuietly(inputStream);
+            reader.close();
+        }
+    }
+
+    public void testException() throws IOException
+    {
+        File file = createFile("1\n2\nnot-a-number\n4\n".getBytes("US-ASCII"));
+        ChunkedLineReader reader = new ChunkedLineReader(file);
+        try
+        {
+            reader.read(0L, 2, executorService, new CountingLineHandler());
+            fail("read expected IOException");
+        }
+        catch (IOException e)
+        {
+            assertTrue(e.getMessage().contains("NumberFormatException"));
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * Assert each line of the specified reader is read exactly once, for a range of chunk counts.
+     *
+     * @param reader reader
+     * @throws IOException if an I/O error occurs
+     */
+    private void assertEachLineReadOnce(final ChunkedLineReader reader) throws IOException
+    {
+        // skip header line
+        long start = "header\n".length();
+        for (int chunks = 1; chunks < 100; chunks += 7)
+        {
+            CountingLineHandler handler = new CountingLineHandler();
+            reader.read(start, chunks, executorService, handler);
+            for (int i = 0; i < LINES; i++)
+            {
+                assertEquals("line " + i + " chunks " + chunks, 1, handler.counts.get(i));
+            }
+        }
+    }
+
+    /**
+     * Return text with a header line and <code>LINES</code> lines of varying length,
+     * including blank lines.
+     *
+     * @return text
+     */
+    private static String text()
+    {
+        StringBuilder sb = new StringBuilder("header\n");
+        for (int i = 0; i < LINES; i++)
+        {
+            sb.append(i);
+            for (int j = 0; j < (i % 13); j++)
+            {
+                sb.append("\tvalue");
+            }
+            sb.append("\n");
+            if (i % 17 == 0)
+            {
+                sb.append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Create a new temporary file with the specified bytes.
+     *
+     * @param bytes bytes
+     * @return a new temporary file with the specified bytes
+     * @throws IOException if an I/O error occurs
+     */
+    private static File createFile(final byte[] bytes) throws IOException
+    {
+        File file = File.createTempFile("chunkedLineReaderTest", ".txt");
+        file.deleteOnExit();
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream(file);
+            outputStream.write(bytes);
+        }
+        finally
+        {
+            if (outputStream != null)
+            {
+                outputStream.close();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Compress the specified bytes in BGZF blocks of at most the specified number of uncompressed
+     * bytes, followed by an empty end-of-file block.
+     *
+     * @param bytes bytes to compress
+     * @param blockLength maximum number of uncompressed bytes per block
+     * @return the specified bytes compressed in BGZF blocks
+     */
+    private static byte[] bgzf(final byte[] bytes, final int blockLength)
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (int offset = 0; offset < bytes.length; offset += blockLength)
+        {
+            block(bytes, offset, Math.min(blockLength, bytes.length - offset), outputStream);
+        }
+        block(bytes, 0, 0, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Write a BGZF block for the specified bytes to the specified output stream.
+     *
+     * @param bytes bytes
+     * @param offset offset
+     * @param length length
+     * @param outputStream output stream
+     */
+    private static void block(final byte[] bytes, final int offset, final int length,
+                              final ByteArrayOutputStream outputStream)
+    {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(bytes, offset, length);
+        deflater.finish();
+        byte[] compressed = new byte[length + 1024];
+        int compressedLength = deflater.deflate(compressed);
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+
+        int blockSize = 18 + compressedLength + 8;
+        int[] header = new int[] { 0x1f, 0x8b, 8, 4, 0, 0, 0, 0, 0, 0xff, 6, 0, 'B', 'C', 2, 0,
+                                   (blockSize - 1) & 0xff, ((blockSize - 1) >> 8) & 0xff };
+        for (int i = 0; i < header.length; i++)
+        {
+            outputStream.write(header[i]);
+        }
+        outputStream.write(compressed, 0, compressedLength);
+        writeInt((int) crc.getValue(), outputStream);
+        writeInt(length, outputStream);
+    }
+
+    /**
+     * Write the specified value as four little endian bytes.
+     *
+     * @param value value
+     * @param outputStream output stream
+     */
+    private static void writeInt(final int value, final ByteArrayOutputStream outputStream)
+    {
+        outputStream.write(value & 0xff);
+        outputStream.write((value >> 8) & 0xff);
+        outputStream.write((value >> 16) & 0xff);
+        outputStream.write((value >> 24) & 0xff);
+    }
+
+    /**
+     * Line handler that counts lines by the index in their first token.
+     */
+    private static final class CountingLineHandler
+        implements LineHandler
+    {
+        /** Counts. */
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(LINES);
+
+
+        /** {@inheritDoc} */
+        public void handle(final ByteTokenizer tokenizer) throws IOException
+        {
+            counts.incrementAndGet((int) tokenizer.nextLong());
+        }
+    }
+}
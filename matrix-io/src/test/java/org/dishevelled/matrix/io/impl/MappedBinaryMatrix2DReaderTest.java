@@ -0,0 +1,212 @@
+/*
+
+    dsh-matrix-io  Matrix readers and writers.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.io.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.matrix.Matrix2D;
+
+import org.dishevelled.matrix.impl.BufferSparseMatrix2D;
+import org.dishevelled.matrix.impl.SparseMatrix2D;
+
+/**
+ * Unit test for MappedBinaryMatrix2DReader.
+ *
+ * @author  Michael Heuer
+ */
+public final class MappedBinaryMatrix2DReaderTest
+    extends TestCase
+{
+    /** Matrix to write. */
+    private Matrix2D<Double> matrix;
+
+    /** File to write to. */
+    private File file;
+
+
+    /** {@inheritDoc} */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        matrix = new SparseMatrix2D<Double>(31L, 29L);
+        for (long row = 0; row < 31L; row++)
+        {
+            for (long column = 0; column < 29L; column++)
+            {
+                if ((row * column) % 5L == 1L)
+                {
+                    matrix.setQuick(row, column, Double.valueOf(row - column / 10.0d));
+                }
+            }
+        }
+        file = File.createTempFile("mappedBinaryMatrix2DReaderTest", null);
+        file.deleteOnExit();
+    }
+
+    /** {@inheritDoc} */
+    protected void tearDown() throws Exception
+    {
+        file.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Assert the specified matrices contain the same values.
+     *
+     * @param expected expected matrix
+     * @param observed observed matrix
+     */
+    private static void assertMatrixEquals(final Matrix2D<Double> expected, final Matrix2D<Double> observed)
+    {
+        assertEquals(expected.rows(), observed.rows());
+        assertEquals(expected.columns(), observed.columns());
+        assertEquals(expected.cardinality(), observed.cardinality());
+        for (long row = 0; row < expected.rows(); row++)
+        {
+            for (long column = 0; column < expected.columns(); column++)
+            {
+                assertEquals(expected.get(row, column), observed.get(row, column));
+            }
+        }
+    }
+
+    public void testReadFile() throws IOException
+    {
+        MappedBinaryMatrix2DReader reader = new MappedBinaryMatrix2DReader();
+        for (int blockSize : new int[] { 1, 13, 65536 })
+        {
+            new BinaryMatrix2DWriter(false, blockSize).write(matrix, file);
+            assertMatrixEquals(matrix, reader.read(file));
+            new BinaryMatrix2DWriter(true, blockSize).write(matrix, file);
+            assertMatrixEquals(matrix, reader.read(file));
+        }
+    }
+
+    public void testReadInputStream() throws IOException
+    {
+        new BinaryMatrix2DWriter(false, 13).write(matrix, file);
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = new FileInputStream(file);
+            assertMatrixEquals(matrix, new MappedBinaryMatrix2DReader().read(inputStream));
+        }
+        finally
+        {
+            inputStream.close();
+        }
+    }
+
+    public void testReadURL() throws IOException
+    {
+        new BinaryMatrix2DWriter(true, 13).write(matrix, file);
+        assertMatrixEquals(matrix, new MappedBinaryMatrix2DReader().read(file.toURI().toURL()));
+    }
+
+    public void testReadEmpty() throws IOException
+    {
+        new BinaryMatrix2DWriter().write(new SparseMatrix2D<Double>(3L, 4L), file);
+        BufferSparseMatrix2D observed = new MappedBinaryMatrix2DReader().read(file);
+        assertEquals(12L, observed.size());
+        assertEquals(0L, observed.cardinality());
+        assertNull(observed.get(2L, 3L));
+    }
+
+    public void testWriteMapped() throws IOException
+    {
+        new BinaryMatrix2DWriter(false, 13).write(matrix, file);
+        BufferSparseMatrix2D mapped = new MappedBinaryMatrix2DReader().read(file);
+        File copy = File.createTempFile("mappedBinaryMatrix2DReaderTest", null);
+        copy.deleteOnExit();
+        try
+        {
+            new BinaryMatrix2DWriter(true).write(mapped, copy);
+            assertMatrixEquals(matrix, new MappedBinaryMatrix2DReader().read(copy));
+        }
+        finally
+        {
+            copy.delete();
+        }
+    }
+
+    public void testReadNullArguments() throws IOException
+    {
+        MappedBinaryMatrix2DReader reader = new MappedBinaryMatrix2DReader();
+        try
+        {
+            reader.read((File) null);
+            fail("read((File) null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            reader.read((InputStream) null);
+            fail("read((InputStream) null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testReadCorrupt() throws IOException
+    {
+        FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write("not a binary matrix, not a binary matrix, not a binary matrix, not a binary matrix".getBytes());
+        outputStream.close();
+        try
+        {
+            new MappedBinaryMatrix2DReader().read(file);
+            fail("read corrupt expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+
+        new BinaryMatrix2DWriter(false, 13).write(matrix, file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(file.length() - 4L);
+        randomAccessFile.close();
+        try
+        {
+            new MappedBinaryMatrix2DReader().read(file);
+            fail("read truncated expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+}
@@ -24,15 +24,25 @@
 package org.dishevelled.matrix.io.impl.sparse;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import java.net.URL;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import junit.framework.TestCase;
 
+import org.dishevelled.matrix.DoubleMatrix2D;
 import org.dishevelled.matrix.Matrix2D;
 
+import org.dishevelled.matrix.impl.DoubleSparseMatrix2D;
+
+import org.dishevelled.matrix.io.DoubleMatrix2DSink;
+
 /**
  * Unit test for SparseMatrixMarketReader.
  *
@@ -470,6 +480,246 @@ public final class SparseMatrixMarketReaderTest
         }
     }
 
+    public void testReadInputStreamSink() throws IOException
+    {
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = getClass().getResourceAsStream("symmetric.mm");
+            SparseMatrixMarketReader reader = new SparseMatrixMarketReader();
+            DoubleMatrix2DSinkImpl sink = new DoubleMatrix2DSinkImpl();
+            reader.read(inputStream, sink);
+            DoubleMatrix2D matrix = sink.getMatrix();
+            assertNotNull(matrix);
+            assertEquals(3, matrix.rows());
+            assertEquals(3, matrix.columns());
+            assertEquals(10L, sink.getCardinality());
+            assertEquals(7, matrix.cardinality());
+            assertEquals(1.0d, matrix.get(0L, 0L), 0.01d);
+            assertEquals(0.0d, matrix.get(0L, 1L), 0.01d);
+            assertEquals(3.0d, matrix.get(0L, 2L), 0.01d);
+            assertEquals(3.0d, matrix.get(2L, 0L), 0.01d);
+            assertEquals(-5.0d, matrix.get(2L, 1L), 0.01d);
+            assertEquals(-5.0d, matrix.get(1L, 2L), 0.01d);
+        }
+        finally
+        {
+            closeQuietly(inputStream);
+        }
+    }
+
+    public void testReadFileSink() throws IOException
+    {
+        File file = File.createTempFile("sparseMatrixMarketReaderTest", ".mm");
+        file.deleteOnExit();
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream(file);
+            outputStream.write(("%%MatrixMarket matrix coordinate real general\r\n"
+                                + "% comment\r\n"
+                                + "\r\n"
+                                + "4 5 3\r\n"
+                                + "1 1 1.5\r\n"
+                                + "2\t5\t-2.25e2\r\n"
+                                + "  4 3 0.000001").getBytes("US-ASCII"));
+        }
+        finally
+        {
+            if (outputStream != null)
+            {
+                outputStream.close();
+            }
+        }
+        SparseMatrixMarketReader reader = new SparseMatrixMarketReader();
+        DoubleMatrix2DSinkImpl sink = new DoubleMatrix2DSinkImpl();
+        reader.read(file, sink);
+        DoubleMatrix2D matrix = sink.getMatrix();
+        assertEquals(4, matrix.rows());
+        assertEquals(5, matrix.columns());
+        assertEquals(3, matrix.cardinality());
+        assertEquals(1.5d, matrix.get(0L, 0L), 0.0d);
+        assertEquals(-225.0d, matrix.get(1L, 4L), 0.0d);
+        assertEquals(0.000001d, matrix.get(3L, 2L), 0.0d);
+    }
+
+    public void testReadFileExecutorService() throws IOException
+    {
+        File file = File.createTempFile("sparseMatrixMarketReaderTest", ".mm");
+        file.deleteOnExit();
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream(file);
+            StringBuilder sb = new StringBuilder();
+            sb.append("%%MatrixMarket matrix coordinate real symmetric\n");
+            sb.append("% lower triangle of a 100 x 100 matrix\n");
+            sb.append("100 100 5050\n");
+            for (int row = 1; row <= 100; row++)
+            {
+                for (int column = 1; column <= row; column++)
+                {
+                    sb.append(row);
+                    sb.append(" ");
+                    sb.append(column);
+                    sb.append(" ");
+                    sb.append(row * 1000 + column);
+                    sb.append(".5\n");
+                }
+            }
+            outputStream.write(sb.toString().getBytes("US-ASCII"));
+        }
+        finally
+        {
+            if (outputStream != null)
+            {
+                outputStream.close();
+            }
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try
+        {
+            SparseMatrixMarketReader reader = new SparseMatrixMarketReader();
+            for (int chunks = 1; chunks < 32; chunks += 5)
+            {
+                Matrix2D<Double> matrix = reader.readConcurrently(file, executorService, chunks);
+                assertEquals(100, matrix.rows());
+                assertEquals(100, matrix.columns());
+                assertEquals(10000, matrix.cardinality());
+                assertEquals(Double.valueOf(1001.5d), matrix.get(0L, 0L));
+                assertEquals(Double.valueOf(100001.5d), matrix.get(99L, 0L));
+                assertEquals(Double.valueOf(100001.5d), matrix.get(0L, 99L));
+                assertEquals(Double.valueOf(100100.5d), matrix.get(99L, 99L));
+            }
+
+            SynchronizedDoubleMatrix2DSinkImpl sink = new SynchronizedDoubleMatrix2DSinkImpl();
+            reader.readConcurrently(file, sink, executorService, 8);
+            assertEquals(10000, sink.getMatrix().cardinality());
+            assertEquals(50049.5d, sink.getMatrix().get(49L, 48L), 0.0d);
+            assertEquals(50049.5d, sink.getMatrix().get(48L, 49L), 0.0d);
+
+            try
+            {
+                reader.readConcurrently(file, null);
+                fail("readConcurrently(file, null) expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            try
+            {
+                reader.readConcurrently(file, executorService, -1);
+                fail("readConcurrently(file, executorService, -1) expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    public void testReadSinkNullArguments() throws IOException
+    {
+        SparseMatrixMarketReader reader = new SparseMatrixMarketReader();
+        try
+        {
+            reader.read((InputStream) null, new DoubleMatrix2DSinkImpl());
+            fail("read((InputStream) null, sink) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            reader.read((File) null, new DoubleMatrix2DSinkImpl());
+            fail("read((File) null, sink) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            reader.read(new File("sparse.mm"), null);
+            fail("read(file, null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Sink that reads into a double sparse matrix.
+     */
+    private static final class DoubleMatrix2DSinkImpl
+        implements DoubleMatrix2DSink
+    {
+        /** Matrix. */
+        private DoubleMatrix2D matrix;
+
+        /** Cardinality. */
+        private long cardinality;
+
+
+        /** {@inheritDoc} */
+        public void dimensions(final long rows, final long columns, final long cardinality)
+        {
+            this.cardinality = cardinality;
+            matrix = new DoubleSparseMatrix2D(rows, columns);
+        }
+
+        /** {@inheritDoc} */
+        public void set(final long row, final long column, final double value)
+        {
+            matrix.setQuick(row, column, value);
+        }
+
+        DoubleMatrix2D getMatrix()
+        {
+            return matrix;
+        }
+
+        long getCardinality()
+        {
+            return cardinality;
+        }
+    }
+
+    /**
+     * Thread safe double matrix 2D sink.
+     */
+    private static final class SynchronizedDoubleMatrix2DSinkImpl
+        implements DoubleMatrix2DSink
+    {
+        /** Wrapped sink. */
+        private final DoubleMatrix2DSinkImpl sink = new DoubleMatrix2DSinkImpl();
+
+
+        /** {@inheritDoc} */
+        public synchronized void dimensions(final long rows, final long columns, final long cardinality)
+        {
+            sink.dimensions(rows, columns, cardinality);
+        }
+
+        /** {@inheritDoc} */
+        public synchronized void set(final long row, final long column, final double value)
+        {
+            sink.set(row, column, value);
+        }
+
+        synchronized DoubleMatrix2D getMatrix()
+        {
+            return sink.getMatrix();
+        }
+    }
+
     /**
      * Close the specified input stream quietly.
      *
@@ -23,6 +23,8 @@
 */
 package org.dishevelled.matrix;
 
+import org.dishevelled.bitset.AbstractBitSet;
+import org.dishevelled.bitset.CompressedBitSet;
 import org.dishevelled.bitset.MutableBitSet;
 
 import org.dishevelled.functor.BinaryProcedure;
@@ -30,12 +32,15 @@ import org.dishevelled.functor.BinaryProcedure;
 /**
  * Fixed size bit matrix in two dimensions, indexed by <code>long</code>s.
  *
+ * <p>Bit matrices are backed by a {@link MutableBitSet} by default.  Large, sparse bit matrices
+ * may be backed by a {@link CompressedBitSet} instead, see {@link #BitMatrix2D(long, long, AbstractBitSet)}.</p>
+ *
  * @author  Michael Heuer
  */
 public final class BitMatrix2D
 {
     /** Bit set. */
-    private final MutableBitSet bitset;
+    private final AbstractBitSet bitset;
 
     /** Number of rows. */
     private final long rows;
@@ -71,6 +76,47 @@ public final class BitMatrix2D
         this.bitset = new MutableBitSet(this.size);
     }
 
+    /**
+     * Create a new 2D bit matrix with the specified number of rows and columns, backed
+     * by the specified bit set.  Bits already set in the specified bit set are the initial
+     * values of this 2D bit matrix, in row major order.
+     *
+     * @param rows number of rows, must be <code>&gt;= 0</code>
+     * @param columns number of columns, must be <code>&gt;= 0</code>
+     * @param bitset bit set, must not be null, must be an instance of <code>MutableBitSet</code>
+     *    or <code>CompressedBitSet</code>, and must not have any bits set at indices greater than
+     *    or equal to <code>rows * columns</code>
+     * @throws IllegalArgumentException if either <code>rows</code> or
+     *    <code>columns</code> is negative, or if <code>bitset</code> is not valid
+     */
+    public BitMatrix2D(final long rows, final long columns, final AbstractBitSet bitset)
+    {
+        if (rows < 0)
+        {
+            throw new IllegalArgumentException("rows must be >= 0");
+        }
+        if (columns < 0)
+        {
+            throw new IllegalArgumentException("columns must be >= 0");
+        }
+        if (bitset == null)
+        {
+            throw new IllegalArgumentException("bitset must not be null");
+        }
+        if (!(bitset instanceof MutableBitSet) && !(bitset instanceof CompressedBitSet))
+        {
+            throw new IllegalArgumentException("bitset must be an instance of MutableBitSet or CompressedBitSet");
+        }
+        if (bitset.nextSetBit(rows * columns) >= 0)
+        {
+            throw new IllegalArgumentException("bitset must not have any bits set at indices >= rows * columns");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.size = (rows * columns);
+        this.bitset = bitset;
+    }
+
 
     /**
      * Return the size of this 2D bit matrix.
@@ -456,7 +502,14 @@ public final class BitMatrix2D
         {
             throw new IllegalArgumentException("this and other must have the same dimensions");
         }
-        bitset.and(other.bitset);
+        if (bitset instanceof CompressedBitSet)
+        {
+            ((CompressedBitSet) bitset).and(other.bitset);
+        }
+        else
+        {
+            ((MutableBitSet) bitset).and(other.bitset);
+        }
         return this;
     }
 
@@ -478,7 +531,14 @@ public final class BitMatrix2D
         {
             throw new IllegalArgumentException("this and other must have the same dimensions");
         }
-        bitset.andNot(other.bitset);
+        if (bitset instanceof CompressedBitSet)
+        {
+            ((CompressedBitSet) bitset).andNot(other.bitset);
+        }
+        else
+        {
+            ((MutableBitSet) bitset).andNot(other.bitset);
+        }
         return this;
     }
 
@@ -500,7 +560,14 @@ public final class BitMatrix2D
         {
             throw new IllegalArgumentException("this and other must have the same dimensions");
         }
-        bitset.or(other.bitset);
+        if (bitset instanceof CompressedBitSet)
+        {
+            ((CompressedBitSet) bitset).or(other.bitset);
+        }
+        else
+        {
+            ((MutableBitSet) bitset).or(other.bitset);
+        }
         return this;
     }
 
@@ -522,7 +589,14 @@ public final class BitMatrix2D
         {
             throw new IllegalArgumentException("this and other must have the same dimensions");
         }
-        bitset.xor(other.bitset);
+        if (bitset instanceof CompressedBitSet)
+        {
+            ((CompressedBitSet) bitset).xor(other.bitset);
+        }
+        else
+        {
+            ((MutableBitSet) bitset).xor(other.bitset);
+        }
         return this;
     }
 
@@ -540,6 +614,15 @@ public final class BitMatrix2D
             throw new IllegalArgumentException("procedure must not be null");
         }
 
+        if (value)
+        {
+            // visit set bits only, in row major order
+            for (long i = bitset.nextSetBit(0); (i >= 0) && (i < size); i = bitset.nextSetBit(i + 1))
+            {
+                procedure.run(Long.valueOf(i / columns), Long.valueOf(i % columns));
+            }
+            return;
+        }
         for (long row = 0; row < rows; row++)
         {
             for (long column = 0; column < columns; column++)
@@ -0,0 +1,115 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix;
+
+/**
+ * Fixed size matrix of primitive <code>double</code> values in one dimension,
+ * indexed by <code>long</code>s.  Values not explicitly set are <code>0.0d</code>.
+ *
+ * @author  Michael Heuer
+ */
+public interface DoubleMatrix1D
+{
+
+    /**
+     * Return the size of this 1D matrix.
+     *
+     * @return the size of this 1D matrix
+     */
+    long size();
+
+    /**
+     * Return the cardinality of this 1D matrix, the number
+     * of non-zero values.
+     *
+     * @return the cardinality of this 1D matrix
+     */
+    long cardinality();
+
+    /**
+     * Return true if the cardinality of this 1D matrix is zero.
+     *
+     * @return true if the cardinality of this 1D matrix is zero
+     */
+    boolean isEmpty();
+
+    /**
+     * Set all the values in this 1D matrix to zero (optional operation).
+     *
+     * @throws UnsupportedOperationException if the <code>clear</code> operation
+     *    is not supported by this 1D matrix
+     */
+    void clear();
+
+    /**
+     * Return the value at the specified index.
+     *
+     * @param index index, must be <code>&gt;= 0</code> and <code>&lt; size()</code>
+     * @return the value at the specified index
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative
+     *    or if <code>index</code> is greater than or equal to <code>size()</code>
+     */
+    double get(long index);
+
+    /**
+     * Return the value at the specified index without checking bounds.
+     *
+     * @param index index, should be <code>&gt;= 0</code> and <code>&lt; size()</code>
+     *    (unchecked)
+     * @return the value at the specified index without checking bounds
+     */
+    double getQuick(long index);
+
+    /**
+     * Set the value at the specified index to <code>value</code> (optional operation).
+     *
+     * @param index index, must be <code>&gt;= 0</code> and <code>&lt; size()</code>
+     * @param value value
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative
+     *    or if <code>index</code> is greater than or equal to <code>size()</code>
+     * @throws UnsupportedOperationException if the <code>set</code> operation
+     *    is not supported by this 1D matrix
+     */
+    void set(long index, double value);
+
+    /**
+     * Set the value at the specified index to <code>value</code> without
+     * checking bounds (optional operation).
+     *
+     * @param index index, should be <code>&gt;= 0</code> and <code>&lt; size()</code>
+     *    (unchecked)
+     * @param value value
+     * @throws UnsupportedOperationException if the <code>setQuick</code> operation
+     *    is not supported by this 1D matrix
+     */
+    void setQuick(long index, double value);
+
+    /**
+     * Apply the specified procedure to each index and non-zero value
+     * in this 1D matrix.  Implementations need not visit values in index order.
+     *
+     * @param procedure procedure, must not be null
+     */
+    void forEachNonZero(LongDoubleProcedure procedure);
+}
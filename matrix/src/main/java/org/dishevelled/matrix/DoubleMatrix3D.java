@@ -0,0 +1,156 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix;
+
+/**
+ * Fixed size matrix of primitive <code>double</code> values in three dimensions,
+ * indexed by <code>long</code>s.  Values not explicitly set are <code>0.0d</code>.
+ *
+ * @author  Michael Heuer
+ */
+public interface DoubleMatrix3D
+{
+
+    /**
+     * Return the size of this 3D matrix.
+     *
+     * @return the size of this 3D matrix
+     */
+    long size();
+
+    /**
+     * Return the number of slices in this 3D matrix.
+     *
+     * @return the number of slices in this 3D matrix
+     */
+    long slices();
+
+    /**
+     * Return the number of rows in this 3D matrix.
+     *
+     * @return the number of rows in this 3D matrix
+     */
+    long rows();
+
+    /**
+     * Return the number of columns in this 3D matrix.
+     *
+     * @return the number of columns in this 3D matrix
+     */
+    long columns();
+
+    /**
+     * Return the cardinality of this 3D matrix, the number
+     * of non-zero values.
+     *
+     * @return the cardinality of this 3D matrix
+     */
+    long cardinality();
+
+    /**
+     * Return true if the cardinality of this 3D matrix is zero.
+     *
+     * @return true if the cardinality of this 3D matrix is zero
+     */
+    boolean isEmpty();
+
+    /**
+     * Set all the values in this 3D matrix to zero (optional operation).
+     *
+     * @throws UnsupportedOperationException if the <code>clear</code> operation
+     *    is not supported by this 3D matrix
+     */
+    void clear();
+
+    /**
+     * Return the value at the specified slice, row, and column.
+     *
+     * @param slice slice index, must be <code>&gt;= 0</code> and <code>&lt; slices()</code>
+     * @param row row index, must be <code>&gt;= 0</code> and <code>&lt; rows()</code>
+     * @param column column index, must be <code>&gt;= 0</code> and <code>&lt; columns()</code>
+     * @return the value at the specified slice, row, and column
+     * @throws IndexOutOfBoundsException if <code>slice</code>, <code>row</code>,
+     *    or <code>column</code> is negative or if <code>slice</code>, <code>row</code>,
+     *    or <code>column</code> is greater than or equal to <code>slices()</code>,
+     *    <code>rows()</code>, or <code>columns()</code>, respectively
+     */
+    double get(long slice, long row, long column);
+
+    /**
+     * Return the value at the specified slice, row, and column without
+     * checking bounds.
+     *
+     * @param slice slice index, should be <code>&gt;= 0</code> and <code>&lt; slices()</code>
+     *    (unchecked)
+     * @param row row index, should be <code>&gt;= 0</code> and <code>&lt; rows()</code>
+     *    (unchecked)
+     * @param column column index, should be <code>&gt;= 0</code> and <code>&lt; columns()</code>
+     *    (unchecked)
+     * @return the value at the specified slice, row, and column without
+     *    checking bounds
+     */
+    double getQuick(long slice, long row, long column);
+
+    /**
+     * Set the value at the specified slice, row, and column to <code>value</code>
+     * (optional operation).
+     *
+     * @param slice slice index, must be <code>&gt;= 0</code> and <code>&lt; slices()</code>
+     * @param row row index, must be <code>&gt;= 0</code> and <code>&lt; rows()</code>
+     * @param column column index, must be <code>&gt;= 0</code> and <code>&lt; columns()</code>
+     * @param value value
+     * @throws IndexOutOfBoundsException if <code>slice</code>, <code>row</code>,
+     *    or <code>column</code> is negative or if <code>slice</code>, <code>row</code>,
+     *    or <code>column</code> is greater than or equal to <code>slices()</code>,
+     *    <code>rows()</code>, or <code>columns()</code>, respectively
+     * @throws UnsupportedOperationException if the <code>set</code> operation
+     *    is not supported by this 3D matrix
+     */
+    void set(long slice, long row, long column, double value);
+
+    /**
+     * Set the value at the specified slice, row, and column to <code>value</code>
+     * without checking bounds (optional operation).
+     *
+     * @param slice slice index, should be <code>&gt;= 0</code> and <code>&lt; slices()</code>
+     *    (unchecked)
+     * @param row row index, should be <code>&gt;= 0</code> and <code>&lt; rows()</code>
+     *    (unchecked)
+     * @param column column index, should be <code>&gt;= 0</code> and <code>&lt; columns()</code>
+     *    (unchecked)
+     * @param value value
+     * @throws UnsupportedOperationException if the <code>setQuick</code> operation
+     *    is not supported by this 3D matrix
+     */
+    void setQuick(long slice, long row, long column, double value);
+
+    /**
+     * Apply the specified procedure to each slice, row, and column and non-zero
+     * value in this 3D matrix.  Implementations need not visit values in
+     * slice-major order.
+     *
+     * @param procedure procedure, must not be null
+     */
+    void forEachNonZero(LongLongLongDoubleProcedure procedure);
+}
@@ -0,0 +1,530 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+
+import org.dishevelled.functor.TernaryPredicate;
+import org.dishevelled.functor.TernaryProcedure;
+import org.dishevelled.functor.UnaryProcedure;
+
+import org.dishevelled.matrix.LongLongDoubleProcedure;
+import org.dishevelled.matrix.Matrix1D;
+
+/**
+ * Read-only sparse implementation of Matrix2D for doubles backed by blocks
+ * of sorted indices and values in NIO buffers.
+ *
+ * <p>Non-null values are stored in blocks, each block a buffer of row-major
+ * indices (<code>row * columns + column</code>) in strictly ascending order and a
+ * buffer of values of the same length, with the indices of each block greater than
+ * those of the block before it.  The buffers may be direct or memory mapped, in which
+ * case the values of this matrix are never materialized on the heap.  Random access
+ * is a binary search over the first index of each block followed by a binary search
+ * within a single block.</p>
+ *
+ * <p>All mutating operations throw <code>UnsupportedOperationException</code>.</p>
+ *
+ * @author  Michael Heuer
+ */
+public class BufferSparseMatrix2D
+    extends AbstractMatrix2D<Double>
+{
+    /** Number of columns in the backing storage, used to decode view indices. */
+    private final long backingColumns;
+
+    /** First index of each block. */
+    private final long[] firstIndices;
+
+    /** Blocks of indices. */
+    private final LongBuffer[] indices;
+
+    /** Blocks of values. */
+    private final DoubleBuffer[] values;
+
+    /** Number of values. */
+    private final long cardinality;
+
+
+    /**
+     * Create a new buffer sparse 2D matrix with the specified number of rows and columns
+     * and blocks of indices and values.  The remaining elements of each buffer are used.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param indices blocks of row-major indices, each in strictly ascending order and
+     *    greater than the indices of the block before it, must not be null
+     * @param values blocks of values, must not be null and must be the same length as
+     *    <code>indices</code>, with each block the same length as the corresponding block of indices
+     * @throws IllegalArgumentException if the blocks of indices and values are not the same length
+     */
+    public BufferSparseMatrix2D(final long rows,
+                                final long columns,
+                                final LongBuffer[] indices,
+                                final DoubleBuffer[] values)
+    {
+        super(rows, columns);
+        if (indices == null)
+        {
+            throw new IllegalArgumentException("indices must not be null");
+        }
+        if (values == null)
+        {
+            throw new IllegalArgumentException("values must not be null");
+        }
+        if (indices.length != values.length)
+        {
+            throw new IllegalArgumentException("indices and values must contain the same number of blocks");
+        }
+        int blocks = 0;
+        for (int i = 0; i < indices.length; i++)
+        {
+            if (indices[i].remaining() != values[i].remaining())
+            {
+                throw new IllegalArgumentException("block " + i + " of indices and values must be the same length");
+            }
+            if (indices[i].hasRemaining())
+            {
+                blocks++;
+            }
+        }
+        this.backingColumns = columns;
+        this.firstIndices = new long[blocks];
+        this.indices = new LongBuffer[blocks];
+        this.values = new DoubleBuffer[blocks];
+        long count = 0L;
+        for (int i = 0, block = 0; i < indices.length; i++)
+        {
+            if (indices[i].hasRemaining())
+            {
+                this.indices[block] = indices[i].slice();
+                this.values[block] = values[i].slice();
+                this.firstIndices[block] = this.indices[block].get(0);
+                count += this.indices[block].limit();
+                block++;
+            }
+        }
+        this.cardinality = count;
+    }
+
+    /**
+     * Create a new instance of BufferSparseMatrix2D with the specified
+     * parameters and blocks.  Used exclusively by the <code>clone()</code> method.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param rowZero row of the first element
+     * @param columnZero column of the first element
+     * @param rowStride number of rows between two elements
+     * @param columnStride number of columns between two elements
+     * @param isView true if this instance is a view
+     * @param backingColumns number of columns in the backing storage
+     * @param firstIndices first index of each block
+     * @param indices blocks of indices
+     * @param values blocks of values
+     * @param cardinality number of values
+     */
+    protected BufferSparseMatrix2D(final long rows,
+                                   final long columns,
+                                   final long rowZero,
+                                   final long columnZero,
+                                   final long rowStride,
+                                   final long columnStride,
+                                   final boolean isView,
+                                   final long backingColumns,
+                                   final long[] firstIndices,
+                                   final LongBuffer[] indices,
+                                   final DoubleBuffer[] values,
+                                   final long cardinality)
+    {
+        super(rows, columns,
+              rowZero, columnZero,
+              rowStride, columnStride, isView);
+        this.backingColumns = backingColumns;
+        this.firstIndices = firstIndices;
+        this.indices = indices;
+        this.values = values;
+        this.cardinality = cardinality;
+    }
+
+
+    /** {@inheritDoc} */
+    public Object clone()
+    {
+        return new BufferSparseMatrix2D(rows, columns,
+                                        rowZero, columnZero,
+                                        rowStride, columnStride,
+                                        isView, backingColumns,
+                                        firstIndices, indices, values, cardinality);
+    }
+
+    /** {@inheritDoc} */
+    public Double getQuick(final long row, final long column)
+    {
+        return lookup(rowZero + (row * rowStride) + columnZero + (column * columnStride));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException buffer sparse matrices are read-only
+     */
+    public void setQuick(final long row, final long column, final Double value)
+    {
+        throw new UnsupportedOperationException("buffer sparse matrices are read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException buffer sparse matrices are read-only
+     */
+    public void clear()
+    {
+        throw new UnsupportedOperationException("buffer sparse matrices are read-only");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public long cardinality()
+    {
+        return isView ? super.cardinality() : cardinality;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void forEachNonNull(final UnaryProcedure<? super Double> procedure)
+    {
+        if (isView)
+        {
+            super.forEachNonNull(procedure);
+        }
+        else
+        {
+            if (procedure == null)
+            {
+                throw new IllegalArgumentException("procedure must not be null");
+            }
+            for (int block = 0; block < values.length; block++)
+            {
+                DoubleBuffer blockValues = values[block];
+                for (int k = 0, size = blockValues.limit(); k < size; k++)
+                {
+                    procedure.run(Double.valueOf(blockValues.get(k)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the specified procedure to each row and column and non-null value
+     * in this buffer sparse 2D matrix, in row-major order, without boxing.
+     *
+     * @param procedure procedure, must not be null
+     */
+    public void forEachNonNull(final LongLongDoubleProcedure procedure)
+    {
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        if (isView)
+        {
+            super.forEach(new TernaryPredicate<Long, Long, Double>()
+                {
+                    /** {@inheritDoc} */
+                    public boolean test(final Long row, final Long column, final Double value)
+                    {
+                        return (value != null);
+                    }
+                }, new TernaryProcedure<Long, Long, Double>()
+                {
+                    /** {@inheritDoc} */
+                    public void run(final Long row, final Long column, final Double value)
+                    {
+                        procedure.run(row, column, value);
+                    }
+                });
+        }
+        else
+        {
+            for (int block = 0; block < values.length; block++)
+            {
+                LongBuffer blockIndices = indices[block];
+                DoubleBuffer blockValues = values[block];
+                for (int k = 0, size = blockIndices.limit(); k < size; k++)
+                {
+                    long index = blockIndices.get(k);
+                    procedure.run(index / backingColumns, index % backingColumns, blockValues.get(k));
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void forEach(final TernaryProcedure<Long, Long, ? super Double> procedure)
+    {
+        if (isView)
+        {
+            super.forEach(procedure);
+        }
+        else
+        {
+            if (procedure == null)
+            {
+                throw new IllegalArgumentException("procedure must not be null");
+            }
+            Cursor cursor = new Cursor();
+            for (long row = 0; row < rows; row++)
+            {
+                for (long column = 0; column < columns; column++)
+                {
+                    procedure.run(row, column, cursor.next(row * backingColumns + column));
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void forEach(final TernaryPredicate<Long, Long, ? super Double> predicate,
+                        final TernaryProcedure<Long, Long, ? super Double> procedure)
+    {
+        if (isView)
+        {
+            super.forEach(predicate, procedure);
+        }
+        else
+        {
+            if (predicate == null)
+            {
+                throw new IllegalArgumentException("predicate must not be null");
+            }
+            if (procedure == null)
+            {
+                throw new IllegalArgumentException("procedure must not be null");
+            }
+            Cursor cursor = new Cursor();
+            for (long row = 0; row < rows; row++)
+            {
+                for (long column = 0; column < columns; column++)
+                {
+                    Double value = cursor.next(row * backingColumns + column);
+                    if (predicate.test(row, column, value))
+                    {
+                        procedure.run(row, column, value);
+                    }
+                }
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Matrix1D<Double> viewRow(final long row)
+    {
+        if (row < 0)
+        {
+            throw new IndexOutOfBoundsException(row + " < 0");
+        }
+        if (row >= rows)
+        {
+            throw new IndexOutOfBoundsException(row + " >= " + rows);
+        }
+        return new LineView(columns, rowZero + (row * rowStride) + columnZero, columnStride, true);
+    }
+
+    /** {@inheritDoc} */
+    public Matrix1D<Double> viewColumn(final long column)
+    {
+        if (column < 0)
+        {
+            throw new IndexOutOfBoundsException(column + " < 0");
+        }
+        if (column >= columns)
+        {
+            throw new IndexOutOfBoundsException(column + " >= " + columns);
+        }
+        return new LineView(rows, rowZero + columnZero + (column * columnStride), rowStride, true);
+    }
+
+    /**
+     * Return the value at the specified index in the backing storage, or <code>null</code>
+     * if no value is stored at that index.
+     *
+     * @param index index in the backing storage
+     * @return the value at the specified index in the backing storage, or <code>null</code>
+     */
+    private Double lookup(final long index)
+    {
+        int low = 0;
+        int high = firstIndices.length - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (firstIndices[mid] <= index)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        int block = high;
+        if (block < 0)
+        {
+            return null;
+        }
+        LongBuffer blockIndices = indices[block];
+        low = 0;
+        high = blockIndices.limit() - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            long midIndex = blockIndices.get(mid);
+            if (midIndex < index)
+            {
+                low = mid + 1;
+            }
+            else if (midIndex > index)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return Double.valueOf(values[block].get(mid));
+            }
+        }
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer(super.toString());
+        sb.append("\n   rows=");
+        sb.append(rows);
+        sb.append("   columns=");
+        sb.append(columns);
+        sb.append("   blocks=");
+        sb.append(values.length);
+        sb.append("   cardinality=");
+        sb.append(cardinality);
+        sb.append("\n");
+        return sb.toString();
+    }
+
+    /**
+     * Sequential cursor over the blocks, for lookups in ascending index order.
+     */
+    private final class Cursor
+    {
+        /** Current block. */
+        private int block;
+
+        /** Offset within the current block. */
+        private int k;
+
+
+        /**
+         * Return the value at the specified index in the backing storage, or <code>null</code>
+         * if no value is stored at that index.  Indices must be passed in ascending order.
+         *
+         * @param index index in the backing storage
+         * @return the value at the specified index in the backing storage, or <code>null</code>
+         */
+        Double next(final long index)
+        {
+            while (block < indices.length)
+            {
+                LongBuffer blockIndices = indices[block];
+                if (k >= blockIndices.limit())
+                {
+                    block++;
+                    k = 0;
+                    continue;
+                }
+                long current = blockIndices.get(k);
+                if (current > index)
+                {
+                    return null;
+                }
+                k++;
+                if (current == index)
+                {
+                    return Double.valueOf(values[block].get(k - 1));
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Row or column view over the backing storage.
+     */
+    private class LineView
+        extends AbstractMatrix1D<Double>
+    {
+
+        /**
+         * Create a new line view with the specified parameters.
+         *
+         * @param size size
+         * @param zero index of the first element in the backing storage
+         * @param stride number of indices between any two elements in the backing storage
+         * @param isView true if this instance is a view
+         */
+        LineView(final long size, final long zero, final long stride, final boolean isView)
+        {
+            super(size, zero, stride, isView);
+        }
+
+
+        /** {@inheritDoc} */
+        public Object clone()
+        {
+            return new LineView(size, zero, stride, isView);
+        }
+
+        /** {@inheritDoc} */
+        public Double getQuick(final long index)
+        {
+            return lookup(zero + index * stride);
+        }
+    }
+}
@@ -0,0 +1,844 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.util.Arrays;
+
+import org.dishevelled.functor.BinaryFunction;
+import org.dishevelled.functor.BinaryProcedure;
+import org.dishevelled.functor.TernaryPredicate;
+import org.dishevelled.functor.TernaryProcedure;
+import org.dishevelled.functor.UnaryFunction;
+import org.dishevelled.functor.UnaryProcedure;
+
+import org.dishevelled.matrix.Matrix1D;
+import org.dishevelled.matrix.Matrix2D;
+
+/**
+ * Immutable compressed sparse row (CSR) or compressed sparse column (CSC)
+ * implementation of Matrix2D.
+ *
+ * <p>Non-null values are stored contiguously in major order (row order for
+ * CSR, column order for CSC), sorted by minor index within each major index,
+ * with an <code>int[]</code> of offsets into the value and minor index arrays
+ * for each major index.  Iteration in major order runs over memory
+ * sequentially, and random access is a binary search within a single row
+ * (or column).</p>
+ *
+ * <p>The number of rows (for CSR) or columns (for CSC) and the cardinality
+ * of this compressed sparse matrix are limited to something less than
+ * <code>Integer.MAX_VALUE</code>.  Instances are built with
+ * {@link CompressedSparseMatrix2DBuilder} or with the <code>compressRows</code>
+ * and <code>compressColumns</code> methods in {@link SparseMatrixUtils}.
+ * All mutating operations throw <code>UnsupportedOperationException</code>.</p>
+ *
+ * @param <E> type of this compressed sparse 2D matrix
+ * @author  Michael Heuer
+ */
+public class CompressedSparseMatrix2D<E>
+    extends AbstractMatrix2D<E>
+{
+    /** True if this matrix compresses rows (CSR), false if it compresses columns (CSC). */
+    private final boolean rowCompressed;
+
+    /** Number of columns in the backing storage, used to decode view indices. */
+    private final long backingColumns;
+
+    /** Offsets into <code>indices</code> and <code>values</code> for each major index. */
+    private final int[] pointers;
+
+    /** Minor indices, sorted within each major index. */
+    private final long[] indices;
+
+    /** Values. */
+    private final Object[] values;
+
+
+    /**
+     * Create a new compressed sparse 2D matrix with the specified number of
+     * rows and columns and compressed storage.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param rowCompressed true if the storage compresses rows, false if it compresses columns
+     * @param pointers offsets into <code>indices</code> and <code>values</code> for each major index
+     * @param indices minor indices, sorted within each major index
+     * @param values non-null values
+     */
+    CompressedSparseMatrix2D(final long rows,
+                             final long columns,
+                             final boolean rowCompressed,
+                             final int[] pointers,
+                             final long[] indices,
+                             final Object[] values)
+    {
+        super(rows, columns);
+        this.rowCompressed = rowCompressed;
+        this.backingColumns = columns;
+        this.pointers = pointers;
+        this.indices = indices;
+        this.values = values;
+    }
+
+    /**
+     * Create a new instance of CompressedSparseMatrix2D with the specified
+     * parameters and compressed storage.  Used exclusively by the
+     * <code>clone()</code> method.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param rowZero row of the first element
+     * @param columnZero column of the first element
+     * @param rowStride number of rows between two elements
+     * @param columnStride number of columns between two elements
+     * @param isView true if this instance is a view
+     * @param backingColumns number of columns in the backing storage
+     * @param rowCompressed true if the storage compresses rows, false if it compresses columns
+     * @param pointers offsets into <code>indices</code> and <code>values</code> for each major index
+     * @param indices minor indices, sorted within each major index
+     * @param values non-null values
+     */
+    protected CompressedSparseMatrix2D(final long rows,
+                                       final long columns,
+                                       final long rowZero,
+                                       final long columnZero,
+                                       final long rowStride,
+                                       final long columnStride,
+                                       final boolean isView,
+                                       final long backingColumns,
+                                       final boolean rowCompressed,
+                                       final int[] pointers,
+                                       final long[] indices,
+                                       final Object[] values)
+    {
+        super(rows, columns,
+              rowZero, columnZero,
+              rowStride, columnStride, isView);
+        this.rowCompressed = rowCompressed;
+        this.backingColumns = backingColumns;
+        this.pointers = pointers;
+        this.indices = indices;
+        this.values = values;
+    }
+
+
+    /** {@inheritDoc} */
+    public Object clone()
+    {
+        return new CompressedSparseMatrix2D<E>(rows, columns,
+                                               rowZero, columnZero,
+                                               rowStride, columnStride,
+                                               isView, backingColumns,
+                                               rowCompressed, pointers, indices, values);
+    }
+
+    /**
+     * Return true if this matrix compresses rows (CSR), false if it
+     * compresses columns (CSC).
+     *
+     * @return true if this matrix compresses rows (CSR), false if it
+     *    compresses columns (CSC)
+     */
+    public boolean isRowCompressed()
+    {
+        return rowCompressed;
+    }
+
+    /** {@inheritDoc} */
+    public E getQuick(final long row, final long column)
+    {
+        if (isView)
+        {
+            long index = rowZero + (row * rowStride) + columnZero + (column * columnStride);
+            return lookup(index / backingColumns, index % backingColumns);
+        }
+        return lookup(row, column);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException compressed sparse matrices are immutable
+     */
+    public void clear()
+    {
+        throw new UnsupportedOperationException("compressed sparse matrices are immutable");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public long cardinality()
+    {
+        return isView ? super.cardinality() : values.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void forEachNonNull(final UnaryProcedure<? super E> procedure)
+    {
+        if (isView)
+        {
+            super.forEachNonNull(procedure);
+        }
+        else
+        {
+            if (procedure == null)
+            {
+                throw new IllegalArgumentException("procedure must not be null");
+            }
+            for (int k = 0, size = values.length; k < size; k++)
+            {
+                procedure.run((E) values[k]);
+            }
+        }
+    }
+
+    /**
+     * Apply the specified procedure to each row and column and non-null value
+     * in this compressed sparse 2D matrix, in storage order (row-major for CSR,
+     * column-major for CSC).
+     *
+     * @param procedure procedure, must not be null
+     */
+    public void forEachNonNull(final TernaryProcedure<Long, Long, ? super E> procedure)
+    {
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        if (isView)
+        {
+            super.forEach(new TernaryPredicate<Long, Long, E>()
+                {
+                    public boolean test(final Long row, final Long column, final E e)
+                    {
+                        return (e != null);
+                    }
+                }, procedure);
+        }
+        else
+        {
+            for (int major = 0, size = pointers.length - 1; major < size; major++)
+            {
+                for (int k = pointers[major], end = pointers[major + 1]; k < end; k++)
+                {
+                    if (rowCompressed)
+                    {
+                        procedure.run(Long.valueOf(major), indices[k], (E) values[k]);
+                    }
+                    else
+                    {
+                        procedure.run(indices[k], Long.valueOf(major), (E) values[k]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the specified procedure to each column and non-null value in the
+     * specified row, in column order.  This is a sequential scan for CSR storage.
+     *
+     * @param row row index, must be <code>&gt;= 0</code> and <code>&lt; rows()</code>
+     * @param procedure procedure, must not be null
+     * @throws IndexOutOfBoundsException if <code>row</code> is negative or if
+     *    <code>row</code> is greater than or equal to <code>rows()</code>
+     */
+    public void forEachNonNullInRow(final long row, final BinaryProcedure<Long, ? super E> procedure)
+    {
+        if (row < 0)
+        {
+            throw new IndexOutOfBoundsException(row + " < 0");
+        }
+        if (row >= rows)
+        {
+            throw new IndexOutOfBoundsException(row + " >= " + rows);
+        }
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        if (!isView && rowCompressed)
+        {
+            for (int k = pointers[(int) row], end = pointers[(int) row + 1]; k < end; k++)
+            {
+                procedure.run(indices[k], (E) values[k]);
+            }
+        }
+        else
+        {
+            for (long column = 0; column < columns; column++)
+            {
+                E e = getQuick(row, column);
+                if (e != null)
+                {
+                    procedure.run(column, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the specified procedure to each row and non-null value in the
+     * specified column, in row order.  This is a sequential scan for CSC storage.
+     *
+     * @param column column index, must be <code>&gt;= 0</code> and <code>&lt; columns()</code>
+     * @param procedure procedure, must not be null
+     * @throws IndexOutOfBoundsException if <code>column</code> is negative or if
+     *    <code>column</code> is greater than or equal to <code>columns()</code>
+     */
+    public void forEachNonNullInColumn(final long column, final BinaryProcedure<Long, ? super E> procedure)
+    {
+        if (column < 0)
+        {
+            throw new IndexOutOfBoundsException(column + " < 0");
+        }
+        if (column >= columns)
+        {
+            throw new IndexOutOfBoundsException(column + " >= " + columns);
+        }
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        if (!isView && !rowCompressed)
+        {
+            for (int k = pointers[(int) column], end = pointers[(int) column + 1]; k < end; k++)
+            {
+                procedure.run(indices[k], (E) values[k]);
+            }
+        }
+        else
+        {
+            for (long row = 0; row < rows; row++)
+            {
+                E e = getQuick(row, column);
+                if (e != null)
+                {
+                    procedure.run(row, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void forEach(final TernaryProcedure<Long, Long, ? super E> procedure)
+    {
+        if (isView || !rowCompressed)
+        {
+            super.forEach(procedure);
+        }
+        else
+        {
+            if (procedure == null)
+            {
+                throw new IllegalArgumentException("procedure must not be null");
+            }
+            for (long row = 0; row < rows; row++)
+            {
+                int k = pointers[(int) row];
+                int end = pointers[(int) row + 1];
+                for (long column = 0; column < columns; column++)
+                {
+                    E e = null;
+                    if ((k < end) && (indices[k] == column))
+                    {
+                        e = (E) values[k];
+                        k++;
+                    }
+                    procedure.run(row, column, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void forEach(final TernaryPredicate<Long, Long, ? super E> predicate,
+                        final TernaryProcedure<Long, Long, ? super E> procedure)
+    {
+        if (isView || !rowCompressed)
+        {
+            super.forEach(predicate, procedure);
+        }
+        else
+        {
+            if (predicate == null)
+            {
+                throw new IllegalArgumentException("predicate must not be null");
+            }
+            if (procedure == null)
+            {
+                throw new IllegalArgumentException("procedure must not be null");
+            }
+            for (long row = 0; row < rows; row++)
+            {
+                int k = pointers[(int) row];
+                int end = pointers[(int) row + 1];
+                for (long column = 0; column < columns; column++)
+                {
+                    E e = null;
+                    if ((k < end) && (indices[k] == column))
+                    {
+                        e = (E) values[k];
+                        k++;
+                    }
+                    if (predicate.test(row, column, e))
+                    {
+                        procedure.run(row, column, e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public E aggregate(final BinaryFunction<E, E, E> aggr, final UnaryFunction<E, E> function)
+    {
+        if (isView || !rowCompressed)
+        {
+            return super.aggregate(aggr, function);
+        }
+        if (aggr == null)
+        {
+            throw new IllegalArgumentException("aggr must not be null");
+        }
+        if (function == null)
+        {
+            throw new IllegalArgumentException("function must not be null");
+        }
+        if (size() == 0)
+        {
+            return null;
+        }
+        E a = null;
+        boolean first = true;
+        for (long row = rows; --row >= 0;)
+        {
+            int start = pointers[(int) row];
+            int k = pointers[(int) row + 1] - 1;
+            for (long column = columns; --column >= 0;)
+            {
+                E e = null;
+                if ((k >= start) && (indices[k] == column))
+                {
+                    e = (E) values[k];
+                    k--;
+                }
+                if (first)
+                {
+                    a = function.evaluate(e);
+                    first = false;
+                }
+                else
+                {
+                    a = aggr.evaluate(a, function.evaluate(e));
+                }
+            }
+        }
+        return a;
+    }
+
+    /** {@inheritDoc} */
+    public Matrix1D<E> viewRow(final long row)
+    {
+        if (row < 0)
+        {
+            throw new IndexOutOfBoundsException(row + " < 0");
+        }
+        if (row >= rows)
+        {
+            throw new IndexOutOfBoundsException(row + " >= " + rows);
+        }
+        return new LineView(columns, rowZero + (row * rowStride) + columnZero, columnStride, true);
+    }
+
+    /** {@inheritDoc} */
+    public Matrix1D<E> viewColumn(final long column)
+    {
+        if (column < 0)
+        {
+            throw new IndexOutOfBoundsException(column + " < 0");
+        }
+        if (column >= columns)
+        {
+            throw new IndexOutOfBoundsException(column + " >= " + columns);
+        }
+        return new LineView(rows, rowZero + (column * columnStride) + columnZero, rowStride, true);
+    }
+
+    /**
+     * Return this compressed sparse 2D matrix in compressed sparse row (CSR)
+     * storage, converting if necessary.
+     *
+     * @return this compressed sparse 2D matrix in compressed sparse row (CSR) storage
+     */
+    public CompressedSparseMatrix2D<E> toRowCompressed()
+    {
+        if (isView)
+        {
+            return SparseMatrixUtils.compressRows(this);
+        }
+        return rowCompressed ? this : transposeStorage();
+    }
+
+    /**
+     * Return this compressed sparse 2D matrix in compressed sparse column (CSC)
+     * storage, converting if necessary.
+     *
+     * @return this compressed sparse 2D matrix in compressed sparse column (CSC) storage
+     */
+    public CompressedSparseMatrix2D<E> toColumnCompressed()
+    {
+        if (isView)
+        {
+            return SparseMatrixUtils.compressColumns(this);
+        }
+        return rowCompressed ? transposeStorage() : this;
+    }
+
+    /**
+     * Multiply this compressed sparse 2D matrix by the specified 1D matrix
+     * (vector) over the semiring defined by the specified functions.  Null
+     * values on either side are treated as the additive identity and skipped.
+     *
+     * @param vector 1D matrix to multiply by, must not be null and must
+     *    have a size equal to <code>columns()</code>
+     * @param times multiplication function, must not be null
+     * @param plus addition function, must not be null
+     * @return a new sparse 1D matrix of size <code>rows()</code> containing the product
+     */
+    public Matrix1D<E> multiply(final Matrix1D<? extends E> vector,
+                                final BinaryFunction<E, E, E> times,
+                                final BinaryFunction<E, E, E> plus)
+    {
+        if (vector == null)
+        {
+            throw new IllegalArgumentException("vector must not be null");
+        }
+        if (vector.size() != columns)
+        {
+            throw new IllegalArgumentException("vector size must be equal to columns");
+        }
+        if (times == null)
+        {
+            throw new IllegalArgumentException("times must not be null");
+        }
+        if (plus == null)
+        {
+            throw new IllegalArgumentException("plus must not be null");
+        }
+        if (isView)
+        {
+            return toRowCompressed().multiply(vector, times, plus);
+        }
+        Matrix1D<E> result = new SparseMatrix1D<E>(rows);
+        if (rowCompressed)
+        {
+            for (int row = 0; row < rows; row++)
+            {
+                E sum = null;
+                for (int k = pointers[row], end = pointers[row + 1]; k < end; k++)
+                {
+                    E x = vector.getQuick(indices[k]);
+                    if (x != null)
+                    {
+                        E product = times.evaluate((E) values[k], x);
+                        sum = (sum == null) ? product : plus.evaluate(sum, product);
+                    }
+                }
+                if (sum != null)
+                {
+                    result.setQuick(row, sum);
+                }
+            }
+        }
+        else
+        {
+            for (int column = 0; column < columns; column++)
+            {
+                E x = vector.getQuick(column);
+                if (x != null)
+                {
+                    for (int k = pointers[column], end = pointers[column + 1]; k < end; k++)
+                    {
+                        E product = times.evaluate((E) values[k], x);
+                        E sum = result.getQuick(indices[k]);
+                        result.setQuick(indices[k], (sum == null) ? product : plus.evaluate(sum, product));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Multiply this compressed sparse 2D matrix by the specified compressed sparse
+     * 2D matrix over the semiring defined by the specified functions, using a
+     * row-by-row sparse accumulator.  Null values on either side are treated as
+     * the additive identity and skipped.
+     *
+     * @param other compressed sparse 2D matrix to multiply by, must not be null,
+     *    must have a number of rows equal to <code>columns()</code>, and must have
+     *    fewer than <code>Integer.MAX_VALUE</code> columns
+     * @param times multiplication function, must not be null
+     * @param plus addition function, must not be null
+     * @return a new compressed sparse row (CSR) 2D matrix of <code>rows()</code> rows
+     *    and <code>other.columns()</code> columns containing the product
+     */
+    public CompressedSparseMatrix2D<E> multiply(final CompressedSparseMatrix2D<? extends E> other,
+                                                final BinaryFunction<E, E, E> times,
+                                                final BinaryFunction<E, E, E> plus)
+    {
+        if (other == null)
+        {
+            throw new IllegalArgumentException("other must not be null");
+        }
+        if (other.rows() != columns)
+        {
+            throw new IllegalArgumentException("other rows must be equal to columns");
+        }
+        if (other.columns() >= Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("other columns must be < Integer.MAX_VALUE");
+        }
+        if (times == null)
+        {
+            throw new IllegalArgumentException("times must not be null");
+        }
+        if (plus == null)
+        {
+            throw new IllegalArgumentException("plus must not be null");
+        }
+        CompressedSparseMatrix2D<E> a = toRowCompressed();
+        CompressedSparseMatrix2D<? extends E> b = other.toRowCompressed();
+        int width = (int) b.columns();
+
+        Object[] accumulator = new Object[width];
+        int[] touched = new int[width];
+        int[] pointers = new int[(int) rows + 1];
+        long[] indices = new long[Math.max(16, a.values.length)];
+        Object[] values = new Object[indices.length];
+        int size = 0;
+
+        for (int row = 0; row < rows; row++)
+        {
+            int touchedCount = 0;
+            for (int i = a.pointers[row], iend = a.pointers[row + 1]; i < iend; i++)
+            {
+                E left = (E) a.values[i];
+                int middle = (int) a.indices[i];
+                for (int j = b.pointers[middle], jend = b.pointers[middle + 1]; j < jend; j++)
+                {
+                    int column = (int) b.indices[j];
+                    E product = times.evaluate(left, (E) b.values[j]);
+                    if (accumulator[column] == null)
+                    {
+                        touched[touchedCount++] = column;
+                        accumulator[column] = product;
+                    }
+                    else
+                    {
+                        accumulator[column] = plus.evaluate((E) accumulator[column], product);
+                    }
+                }
+            }
+            Arrays.sort(touched, 0, touchedCount);
+            pointers[row] = size;
+            if (size + touchedCount > indices.length)
+            {
+                int capacity = (int) Math.min(Integer.MAX_VALUE - 8L,
+                                              Math.max(size + (long) touchedCount, indices.length * 2L));
+                long[] newIndices = new long[capacity];
+                Object[] newValues = new Object[capacity];
+                System.arraycopy(indices, 0, newIndices, 0, size);
+                System.arraycopy(values, 0, newValues, 0, size);
+                indices = newIndices;
+                values = newValues;
+            }
+            for (int t = 0; t < touchedCount; t++)
+            {
+                int column = touched[t];
+                if (accumulator[column] != null)
+                {
+                    indices[size] = column;
+                    values[size] = accumulator[column];
+                    size++;
+                }
+                accumulator[column] = null;
+            }
+        }
+        pointers[(int) rows] = size;
+
+        long[] compressedIndices = new long[size];
+        Object[] compressedValues = new Object[size];
+        System.arraycopy(indices, 0, compressedIndices, 0, size);
+        System.arraycopy(values, 0, compressedValues, 0, size);
+        return new CompressedSparseMatrix2D<E>(rows, width, true, pointers, compressedIndices, compressedValues);
+    }
+
+    /**
+     * Return the value at the specified row and column in the backing storage.
+     *
+     * @param row row index in the backing storage
+     * @param column column index in the backing storage
+     * @return the value at the specified row and column in the backing storage
+     */
+    private E lookup(final long row, final long column)
+    {
+        int major = (int) (rowCompressed ? row : column);
+        long minor = rowCompressed ? column : row;
+        int low = pointers[major];
+        int high = pointers[major + 1] - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            long index = indices[middle];
+            if (index < minor)
+            {
+                low = middle + 1;
+            }
+            else if (index > minor)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return (E) values[middle];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return a new compressed sparse 2D matrix with the same values as this
+     * but with the other storage orientation, using a counting sort over
+     * minor indices.
+     *
+     * @return a new compressed sparse 2D matrix with the same values as this
+     *    but with the other storage orientation
+     */
+    private CompressedSparseMatrix2D<E> transposeStorage()
+    {
+        long minorSize = rowCompressed ? columns : rows;
+        if (minorSize >= Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException((rowCompressed ? "columns" : "rows")
+                                               + " must be < Integer.MAX_VALUE");
+        }
+        int n = (int) minorSize;
+        int[] transposedPointers = new int[n + 1];
+        for (int k = 0, size = indices.length; k < size; k++)
+        {
+            transposedPointers[(int) indices[k] + 1]++;
+        }
+        for (int m = 0; m < n; m++)
+        {
+            transposedPointers[m + 1] += transposedPointers[m];
+        }
+        int[] next = new int[n];
+        System.arraycopy(transposedPointers, 0, next, 0, n);
+        long[] transposedIndices = new long[indices.length];
+        Object[] transposedValues = new Object[values.length];
+        for (int major = 0, size = pointers.length - 1; major < size; major++)
+        {
+            for (int k = pointers[major], end = pointers[major + 1]; k < end; k++)
+            {
+                int i = next[(int) indices[k]]++;
+                transposedIndices[i] = major;
+                transposedValues[i] = values[k];
+            }
+        }
+        return new CompressedSparseMatrix2D<E>(rows, columns, !rowCompressed,
+                                               transposedPointers, transposedIndices, transposedValues);
+    }
+
+    /** {@inheritDoc} */
+    public String toString()
+    {
+        StringBuffer sb = new StringBuffer(super.toString());
+        sb.append("\n   rows=");
+        sb.append(rows);
+        sb.append("   columns=");
+        sb.append(columns);
+        sb.append("   rowCompressed=");
+        sb.append(rowCompressed);
+        sb.append("   cardinality=");
+        sb.append(values.length);
+        sb.append("\n");
+        return sb.toString();
+    }
+
+    /**
+     * Row or column view over the backing storage.
+     */
+    private class LineView
+        extends AbstractMatrix1D<E>
+    {
+
+        /**
+         * Create a new line view with the specified parameters.
+         *
+         * @param size size
+         * @param zero index of the first element in the backing storage
+         * @param stride number of indices between any two elements in the backing storage
+         * @param isView true if this instance is a view
+         */
+        LineView(final long size, final long zero, final long stride, final boolean isView)
+        {
+            super(size, zero, stride, isView);
+        }
+
+
+        /** {@inheritDoc} */
+        public Object clone()
+        {
+            return new LineView(size, zero, stride, isView);
+        }
+
+        /** {@inheritDoc} */
+        public E getQuick(final long index)
+        {
+            long i = zero + index * stride;
+            return lookup(i / backingColumns, i % backingColumns);
+        }
+    }
+}
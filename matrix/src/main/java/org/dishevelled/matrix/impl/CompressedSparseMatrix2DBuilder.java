@@ -0,0 +1,365 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+/**
+ * Streaming builder for immutable compressed sparse 2D matrices.  Values
+ * may be added in any order; if a value is added more than once for the same
+ * row and column, the last value added wins.
+ *
+ * @param <E> type of the compressed sparse 2D matrix
+ * @author  Michael Heuer
+ */
+public final class CompressedSparseMatrix2DBuilder<E>
+{
+    /** Number of rows. */
+    private final long rows;
+
+    /** Number of columns. */
+    private final long columns;
+
+    /** Row indices. */
+    private long[] rowIndices;
+
+    /** Column indices. */
+    private long[] columnIndices;
+
+    /** Values. */
+    private Object[] values;
+
+    /** Number of values added. */
+    private int size;
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+
+    /**
+     * Create a new compressed sparse 2D matrix builder with the specified
+     * number of rows and columns.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @throws IllegalArgumentException if either <code>rows</code>
+     *    or <code>columns</code> is negative
+     */
+    public CompressedSparseMatrix2DBuilder(final long rows, final long columns)
+    {
+        this(rows, columns, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Create a new compressed sparse 2D matrix builder with the specified
+     * number of rows and columns and initial capacity.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param initialCapacity initial capacity, the expected cardinality, must be <code>&gt;= 0</code>
+     * @throws IllegalArgumentException if any of <code>rows</code>,
+     *    <code>columns</code>, or <code>initialCapacity</code> is negative
+     */
+    public CompressedSparseMatrix2DBuilder(final long rows, final long columns, final int initialCapacity)
+    {
+        if (rows < 0)
+        {
+            throw new IllegalArgumentException("rows must be >= 0");
+        }
+        if (columns < 0)
+        {
+            throw new IllegalArgumentException("columns must be >= 0");
+        }
+        if (initialCapacity < 0)
+        {
+            throw new IllegalArgumentException("initialCapacity must be >= 0");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        rowIndices = new long[initialCapacity];
+        columnIndices = new long[initialCapacity];
+        values = new Object[initialCapacity];
+        size = 0;
+    }
+
+
+    /**
+     * Return the number of values added to this compressed sparse 2D matrix builder,
+     * including any values added more than once for the same row and column.
+     *
+     * @return the number of values added to this compressed sparse 2D matrix builder
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Clear the values added to this compressed sparse 2D matrix builder.
+     *
+     * @return this compressed sparse 2D matrix builder
+     */
+    public CompressedSparseMatrix2DBuilder<E> clear()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = null;
+        }
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Add the specified value at the specified row and column to this compressed
+     * sparse 2D matrix builder.  A <code>null</code> value is ignored unless it
+     * replaces a value previously added for the same row and column.
+     *
+     * @param row row index, must be <code>&gt;= 0</code> and <code>&lt; rows</code>
+     * @param column column index, must be <code>&gt;= 0</code> and <code>&lt; columns</code>
+     * @param e value
+     * @return this compressed sparse 2D matrix builder
+     * @throws IndexOutOfBoundsException if <code>row</code> or <code>column</code>
+     *    is negative or if <code>row</code> or <code>column</code> is greater than
+     *    or equal to <code>rows</code> or <code>columns</code>, respectively
+     */
+    public CompressedSparseMatrix2DBuilder<E> set(final long row, final long column, final E e)
+    {
+        if (row < 0)
+        {
+            throw new IndexOutOfBoundsException(row + " < 0");
+        }
+        if (column < 0)
+        {
+            throw new IndexOutOfBoundsException(column + " < 0");
+        }
+        if (row >= rows)
+        {
+            throw new IndexOutOfBoundsException(row + " >= " + rows);
+        }
+        if (column >= columns)
+        {
+            throw new IndexOutOfBoundsException(column + " >= " + columns);
+        }
+        if (size == values.length)
+        {
+            grow();
+        }
+        rowIndices[size] = row;
+        columnIndices[size] = column;
+        values[size] = e;
+        size++;
+        return this;
+    }
+
+    /**
+     * Build and return a new immutable compressed sparse row (CSR) 2D matrix
+     * from the values added to this builder.
+     *
+     * @return a new immutable compressed sparse row (CSR) 2D matrix
+     * @throws IllegalArgumentException if the number of rows is greater
+     *    than or equal to <code>Integer.MAX_VALUE</code>
+     */
+    public CompressedSparseMatrix2D<E> buildRowCompressed()
+    {
+        return build(true);
+    }
+
+    /**
+     * Build and return a new immutable compressed sparse column (CSC) 2D matrix
+     * from the values added to this builder.
+     *
+     * @return a new immutable compressed sparse column (CSC) 2D matrix
+     * @throws IllegalArgumentException if the number of columns is greater
+     *    than or equal to <code>Integer.MAX_VALUE</code>
+     */
+    public CompressedSparseMatrix2D<E> buildColumnCompressed()
+    {
+        return build(false);
+    }
+
+    /**
+     * Build and return a new immutable compressed sparse 2D matrix.
+     *
+     * @param rowCompressed true to compress rows, false to compress columns
+     * @return a new immutable compressed sparse 2D matrix
+     */
+    private CompressedSparseMatrix2D<E> build(final boolean rowCompressed)
+    {
+        long majorSize = rowCompressed ? rows : columns;
+        if (majorSize >= Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException((rowCompressed ? "rows" : "columns")
+                                               + " must be < Integer.MAX_VALUE");
+        }
+        long[] majors = rowCompressed ? rowIndices : columnIndices;
+        long[] minors = rowCompressed ? columnIndices : rowIndices;
+        int n = (int) majorSize;
+
+        // counting sort by major index, stable with respect to insertion order
+        int[] pointers = new int[n + 1];
+        for (int i = 0; i < size; i++)
+        {
+            pointers[(int) majors[i] + 1]++;
+        }
+        for (int m = 0; m < n; m++)
+        {
+            pointers[m + 1] += pointers[m];
+        }
+        int[] next = new int[n];
+        System.arraycopy(pointers, 0, next, 0, n);
+        long[] sortedIndices = new long[size];
+        Object[] sortedValues = new Object[size];
+        for (int i = 0; i < size; i++)
+        {
+            int k = next[(int) majors[i]]++;
+            sortedIndices[k] = minors[i];
+            sortedValues[k] = values[i];
+        }
+
+        // stable sort each segment by minor index, then keep the last value of each run
+        long[] indexBuffer = new long[size];
+        Object[] valueBuffer = new Object[size];
+        int write = 0;
+        int start = 0;
+        for (int m = 0; m < n; m++)
+        {
+            int end = pointers[m + 1];
+            mergeSort(sortedIndices, sortedValues, indexBuffer, valueBuffer, start, end);
+            pointers[m] = write;
+            for (int k = start; k < end; k++)
+            {
+                if ((k + 1 < end) && (sortedIndices[k + 1] == sortedIndices[k]))
+                {
+                    continue;
+                }
+                if (sortedValues[k] != null)
+                {
+                    sortedIndices[write] = sortedIndices[k];
+                    sortedValues[write] = sortedValues[k];
+                    write++;
+                }
+            }
+            start = end;
+        }
+        pointers[n] = write;
+
+        long[] indices = sortedIndices;
+        Object[] compressedValues = sortedValues;
+        if (write < size)
+        {
+            indices = new long[write];
+            compressedValues = new Object[write];
+            System.arraycopy(sortedIndices, 0, indices, 0, write);
+            System.arraycopy(sortedValues, 0, compressedValues, 0, write);
+        }
+        return new CompressedSparseMatrix2D<E>(rows, columns, rowCompressed, pointers, indices, compressedValues);
+    }
+
+    /**
+     * Grow the arrays backing this builder.
+     */
+    private void grow()
+    {
+        int capacity = Math.max(DEFAULT_INITIAL_CAPACITY, (int) Math.min(Integer.MAX_VALUE - 8L, values.length * 2L));
+        if (capacity <= values.length)
+        {
+            throw new IllegalStateException("maximum capacity exceeded");
+        }
+        long[] newRowIndices = new long[capacity];
+        long[] newColumnIndices = new long[capacity];
+        Object[] newValues = new Object[capacity];
+        System.arraycopy(rowIndices, 0, newRowIndices, 0, size);
+        System.arraycopy(columnIndices, 0, newColumnIndices, 0, size);
+        System.arraycopy(values, 0, newValues, 0, size);
+        rowIndices = newRowIndices;
+        columnIndices = newColumnIndices;
+        values = newValues;
+    }
+
+    /**
+     * Stable sort the specified range of indices and values by index.
+     *
+     * @param indices indices
+     * @param values values
+     * @param indexBuffer index buffer, at least as large as <code>indices</code>
+     * @param valueBuffer value buffer, at least as large as <code>values</code>
+     * @param from from index, inclusive
+     * @param to to index, exclusive
+     */
+    private static void mergeSort(final long[] indices,
+                                  final Object[] values,
+                                  final long[] indexBuffer,
+                                  final Object[] valueBuffer,
+                                  final int from,
+                                  final int to)
+    {
+        int length = to - from;
+        if (length < 2)
+        {
+            return;
+        }
+        if (length < 16)
+        {
+            for (int i = from + 1; i < to; i++)
+            {
+                long index = indices[i];
+                Object value = values[i];
+                int j = i - 1;
+                while ((j >= from) && (indices[j] > index))
+                {
+                    indices[j + 1] = indices[j];
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                indices[j + 1] = index;
+                values[j + 1] = value;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(indices, values, indexBuffer, valueBuffer, from, middle);
+        mergeSort(indices, values, indexBuffer, valueBuffer, middle, to);
+        if (indices[middle - 1] <= indices[middle])
+        {
+            return;
+        }
+        System.arraycopy(indices, from, indexBuffer, from, length);
+        System.arraycopy(values, from, valueBuffer, from, length);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++)
+        {
+            if ((j >= to) || ((i < middle) && (indexBuffer[i] <= indexBuffer[j])))
+            {
+                indices[k] = indexBuffer[i];
+                values[k] = valueBuffer[i];
+                i++;
+            }
+            else
+            {
+                indices[k] = indexBuffer[j];
+                values[k] = valueBuffer[j];
+                j++;
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.io.Serializable;
+
+import org.dishevelled.matrix.DoubleMatrix1D;
+import org.dishevelled.matrix.LongDoubleProcedure;
+import org.dishevelled.matrix.Matrix1D;
+
+/**
+ * Sparse implementation of DoubleMatrix1D based on an open addressing
+ * hash map of primitive <code>long</code> keys to primitive <code>double</code>
+ * values.
+ *
+ * <p>The cardinality of this sparse double matrix is limited by the
+ * open addressing hash map underlying this implementation to something
+ * less than <code>2<sup>30</sup></code>.  The addressable size, on the other
+ * hand, is limited to <code>Long.MAX_VALUE</code>.</p>
+ *
+ * @author  Michael Heuer
+ */
+public class DoubleSparseMatrix1D
+    implements DoubleMatrix1D, Serializable
+{
+    /** Size. */
+    private final long size;
+
+    /** Open addressing hash map of elements keyed by <code>long</code> index. */
+    private final OpenLongDoubleHashMap elements;
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** Default load factor. */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+
+    /**
+     * Create a new sparse double 1D matrix with the specified size.
+     *
+     * @param size size, must be <code>&gt;= 0</code>
+     * @throws IllegalArgumentException if <code>size</code> is negative
+     */
+    public DoubleSparseMatrix1D(final long size)
+    {
+        this(size, (int) Math.min(DEFAULT_INITIAL_CAPACITY, size), DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create a new sparse double 1D matrix with the specified size,
+     * initial capacity, and load factor.
+     *
+     * @param size size, must be <code>&gt;= 0</code>
+     * @param initialCapacity initial capacity, the expected cardinality, must be <code>&gt;= 0</code>
+     * @param loadFactor load factor, must be <code>&gt; 0</code> and <code>&lt; 1</code>
+     * @throws IllegalArgumentException if <code>size</code> is negative
+     */
+    public DoubleSparseMatrix1D(final long size, final int initialCapacity, final float loadFactor)
+    {
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("size must be >= 0");
+        }
+        this.size = size;
+        this.elements = new OpenLongDoubleHashMap(initialCapacity, loadFactor);
+    }
+
+
+    /** {@inheritDoc} */
+    public long size()
+    {
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    public long cardinality()
+    {
+        return elements.size();
+    }
+
+    /** {@inheritDoc} */
+    public boolean isEmpty()
+    {
+        return (0 == elements.size());
+    }
+
+    /** {@inheritDoc} */
+    public void clear()
+    {
+        elements.clear();
+    }
+
+    /** {@inheritDoc} */
+    public double get(final long index)
+    {
+        checkIndex(index);
+        return elements.get(index);
+    }
+
+    /** {@inheritDoc} */
+    public double getQuick(final long index)
+    {
+        return elements.get(index);
+    }
+
+    /** {@inheritDoc} */
+    public void set(final long index, final double value)
+    {
+        checkIndex(index);
+        elements.put(index, value);
+    }
+
+    /** {@inheritDoc} */
+    public void setQuick(final long index, final double value)
+    {
+        elements.put(index, value);
+    }
+
+    /** {@inheritDoc} */
+    public void forEachNonZero(final LongDoubleProcedure procedure)
+    {
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        elements.forEach(procedure);
+    }
+
+    /**
+     * Return a 1D matrix of <code>Double</code>s view of this sparse double
+     * 1D matrix.  Zero values read as <code>null</code>, and setting <code>null</code>
+     * sets the value to zero.  The view is backed by this matrix, so changes made
+     * to the returned view are reflected in this matrix, and vice-versa.
+     *
+     * @return a 1D matrix of <code>Double</code>s view of this sparse double 1D matrix
+     */
+    public Matrix1D<Double> asMatrix1D()
+    {
+        return new DoubleSparseMatrix1DAdapter(size, 0L, 1L, false, elements);
+    }
+
+    /**
+     * Check the specified index.
+     *
+     * @param index index to check
+     * @throws IndexOutOfBoundsException if <code>index</code> is negative
+     *    or if <code>index</code> is greater than or equal to <code>size()</code>
+     */
+    private void checkIndex(final long index)
+    {
+        if (index < 0)
+        {
+            throw new IndexOutOfBoundsException(index + " < 0");
+        }
+        if (index >= size)
+        {
+            throw new IndexOutOfBoundsException(index + " >= " + size);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import org.dishevelled.functor.UnaryProcedure;
+
+import org.dishevelled.matrix.LongDoubleProcedure;
+
+/**
+ * Adapter presenting the open addressing hash map backing a primitive
+ * <code>double</code> sparse matrix as a 1D matrix of <code>Double</code>s.
+ * Zero values read as <code>null</code>, and setting <code>null</code>
+ * sets the value to zero.
+ *
+ * @author  Michael Heuer
+ */
+class DoubleSparseMatrix1DAdapter
+    extends AbstractMatrix1D<Double>
+{
+    /** Open addressing hash map of elements keyed by <code>long</code> index. */
+    private final OpenLongDoubleHashMap elements;
+
+
+    /**
+     * Create a new 1D matrix adapter with the specified parameters and
+     * map of elements.
+     *
+     * @param size size, must be <code>&gt;= 0</code>
+     * @param zero index of the first element
+     * @param stride number of indices between any two elements
+     * @param isView true if this instance is a view
+     * @param elements open addressing hash map of elements
+     */
+    DoubleSparseMatrix1DAdapter(final long size,
+                                final long zero,
+                                final long stride,
+                                final boolean isView,
+                                final OpenLongDoubleHashMap elements)
+    {
+        super(size, zero, stride, isView);
+        this.elements = elements;
+    }
+
+
+    /** {@inheritDoc} */
+    public Object clone()
+    {
+        return new DoubleSparseMatrix1DAdapter(size, zero, stride, isView, elements);
+    }
+
+    /** {@inheritDoc} */
+    public Double getQuick(final long index)
+    {
+        double value = elements.get(zero + index * stride);
+        return (value == 0.0d) ? null : Double.valueOf(value);
+    }
+
+    /** {@inheritDoc} */
+    public void setQuick(final long index, final Double e)
+    {
+        elements.put(zero + index * stride, (e == null) ? 0.0d : e.doubleValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public long cardinality()
+    {
+        return isView ? super.cardinality() : elements.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void clear()
+    {
+        if (isView)
+        {
+            super.clear();
+        }
+        else
+        {
+            elements.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void forEachNonNull(final UnaryProcedure<? super Double> procedure)
+    {
+        if (isView)
+        {
+            super.forEachNonNull(procedure);
+        }
+        else
+        {
+            if (procedure == null)
+            {
+                throw new IllegalArgumentException("procedure must not be null");
+            }
+            elements.forEach(new LongDoubleProcedure()
+                {
+                    public void run(final long index, final double value)
+                    {
+                        procedure.run(Double.valueOf(value));
+                    }
+                });
+        }
+    }
+}
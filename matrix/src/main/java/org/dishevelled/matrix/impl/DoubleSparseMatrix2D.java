@@ -0,0 +1,227 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.io.Serializable;
+
+import org.dishevelled.matrix.DoubleMatrix2D;
+import org.dishevelled.matrix.LongDoubleProcedure;
+import org.dishevelled.matrix.LongLongDoubleProcedure;
+import org.dishevelled.matrix.Matrix2D;
+
+/**
+ * Sparse implementation of DoubleMatrix2D based on an open addressing
+ * hash map of primitive <code>long</code> keys to primitive <code>double</code>
+ * values.
+ *
+ * <p>The cardinality of this sparse double matrix is limited by the
+ * open addressing hash map underlying this implementation to something
+ * less than <code>2<sup>30</sup></code>.  The addressable size, on the other
+ * hand, is limited to <code>(rows * columns) &lt; Long.MAX_VALUE</code>.</p>
+ *
+ * @author  Michael Heuer
+ */
+public class DoubleSparseMatrix2D
+    implements DoubleMatrix2D, Serializable
+{
+    /** Number of rows. */
+    private final long rows;
+
+    /** Number of columns. */
+    private final long columns;
+
+    /** Open addressing hash map of elements keyed by <code>long</code> index. */
+    private final OpenLongDoubleHashMap elements;
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** Default load factor. */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+
+    /**
+     * Create a new sparse double 2D matrix with the specified number
+     * of rows and columns.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @throws IllegalArgumentException if either <code>rows</code>
+     *    or <code>columns</code> is negative
+     */
+    public DoubleSparseMatrix2D(final long rows, final long columns)
+    {
+        this(rows,
+             columns,
+             (int) Math.min(DEFAULT_INITIAL_CAPACITY, Math.max(0L, rows * columns)),
+             DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create a new sparse double 2D matrix with the specified number
+     * of rows and columns, initial capacity, and load factor.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param initialCapacity initial capacity, the expected cardinality, must be <code>&gt;= 0</code>
+     * @param loadFactor load factor, must be <code>&gt; 0</code> and <code>&lt; 1</code>
+     * @throws IllegalArgumentException if either <code>rows</code>
+     *    or <code>columns</code> is negative
+     */
+    public DoubleSparseMatrix2D(final long rows, final long columns, final int initialCapacity, final float loadFactor)
+    {
+        if (rows < 0)
+        {
+            throw new IllegalArgumentException("rows must be >= 0");
+        }
+        if (columns < 0)
+        {
+            throw new IllegalArgumentException("columns must be >= 0");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.elements = new OpenLongDoubleHashMap(initialCapacity, loadFactor);
+    }
+
+
+    /** {@inheritDoc} */
+    public long size()
+    {
+        return (rows * columns);
+    }
+
+    /** {@inheritDoc} */
+    public long rows()
+    {
+        return rows;
+    }
+
+    /** {@inheritDoc} */
+    public long columns()
+    {
+        return columns;
+    }
+
+    /** {@inheritDoc} */
+    public long cardinality()
+    {
+        return elements.size();
+    }
+
+    /** {@inheritDoc} */
+    public boolean isEmpty()
+    {
+        return (0 == elements.size());
+    }
+
+    /** {@inheritDoc} */
+    public void clear()
+    {
+        elements.clear();
+    }
+
+    /** {@inheritDoc} */
+    public double get(final long row, final long column)
+    {
+        checkIndices(row, column);
+        return elements.get(row * columns + column);
+    }
+
+    /** {@inheritDoc} */
+    public double getQuick(final long row, final long column)
+    {
+        return elements.get(row * columns + column);
+    }
+
+    /** {@inheritDoc} */
+    public void set(final long row, final long column, final double value)
+    {
+        checkIndices(row, column);
+        elements.put(row * columns + column, value);
+    }
+
+    /** {@inheritDoc} */
+    public void setQuick(final long row, final long column, final double value)
+    {
+        elements.put(row * columns + column, value);
+    }
+
+    /** {@inheritDoc} */
+    public void forEachNonZero(final LongLongDoubleProcedure procedure)
+    {
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        elements.forEach(new LongDoubleProcedure()
+            {
+                public void run(final long index, final double value)
+                {
+                    procedure.run(index / columns, index % columns, value);
+                }
+            });
+    }
+
+    /**
+     * Return a 2D matrix of <code>Double</code>s view of this sparse double
+     * 2D matrix.  Zero values read as <code>null</code>, and setting <code>null</code>
+     * sets the value to zero.  The view is backed by this matrix, so changes made
+     * to the returned view are reflected in this matrix, and vice-versa.
+     *
+     * @return a 2D matrix of <code>Double</code>s view of this sparse double 2D matrix
+     */
+    public Matrix2D<Double> asMatrix2D()
+    {
+        return new DoubleSparseMatrix2DAdapter(rows, columns, 0L, 0L, columns, 1L, false, elements);
+    }
+
+    /**
+     * Check the specified row and column indices.
+     *
+     * @param row row index to check
+     * @param column column index to check
+     * @throws IndexOutOfBoundsException if <code>row</code> or <code>column</code>
+     *    is negative or if <code>row</code> or <code>column</code> is greater than
+     *    or equal to <code>rows()</code> or <code>columns()</code>, respectively
+     */
+    private void checkIndices(final long row, final long column)
+    {
+        if (row < 0)
+        {
+            throw new IndexOutOfBoundsException(row + " < 0");
+        }
+        if (column < 0)
+        {
+            throw new IndexOutOfBoundsException(column + " < 0");
+        }
+        if (row >= rows)
+        {
+            throw new IndexOutOfBoundsException(row + " >= " + rows);
+        }
+        if (column >= columns)
+        {
+            throw new IndexOutOfBoundsException(column + " >= " + columns);
+        }
+    }
+}
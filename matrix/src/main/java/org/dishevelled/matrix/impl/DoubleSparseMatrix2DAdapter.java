@@ -0,0 +1,187 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import org.dishevelled.functor.UnaryProcedure;
+
+import org.dishevelled.matrix.LongDoubleProcedure;
+import org.dishevelled.matrix.Matrix1D;
+
+/**
+ * Adapter presenting the open addressing hash map backing a primitive
+ * <code>double</code> sparse matrix as a 2D matrix of <code>Double</code>s.
+ * Zero values read as <code>null</code>, and setting <code>null</code>
+ * sets the value to zero.
+ *
+ * @author  Michael Heuer
+ */
+class DoubleSparseMatrix2DAdapter
+    extends AbstractMatrix2D<Double>
+{
+    /** Open addressing hash map of elements keyed by <code>long</code> index. */
+    private final OpenLongDoubleHashMap elements;
+
+
+    /**
+     * Create a new 2D matrix adapter with the specified parameters and
+     * map of elements.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param rowZero row of the first element
+     * @param columnZero column of the first element
+     * @param rowStride number of rows between two elements
+     * @param columnStride number of columns between two elements
+     * @param isView true if this instance is a view
+     * @param elements open addressing hash map of elements
+     */
+    DoubleSparseMatrix2DAdapter(final long rows,
+                                final long columns,
+                                final long rowZero,
+                                final long columnZero,
+                                final long rowStride,
+                                final long columnStride,
+                                final boolean isView,
+                                final OpenLongDoubleHashMap elements)
+    {
+        super(rows, columns,
+              rowZero, columnZero,
+              rowStride, columnStride, isView);
+        this.elements = elements;
+    }
+
+
+    /** {@inheritDoc} */
+    public Object clone()
+    {
+        return new DoubleSparseMatrix2DAdapter(rows, columns,
+                                               rowZero, columnZero,
+                                               rowStride, columnStride,
+                                               isView, elements);
+    }
+
+    /** {@inheritDoc} */
+    public Double getQuick(final long row, final long column)
+    {
+        double value = elements.get(rowZero + (row * rowStride) + columnZero + (column * columnStride));
+        return (value == 0.0d) ? null : Double.valueOf(value);
+    }
+
+    /** {@inheritDoc} */
+    public void setQuick(final long row, final long column, final Double e)
+    {
+        elements.put(rowZero + (row * rowStride) + columnZero + (column * columnStride),
+                     (e == null) ? 0.0d : e.doubleValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public long cardinality()
+    {
+        return isView ? super.cardinality() : elements.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void clear()
+    {
+        if (isView)
+        {
+            super.clear();
+        }
+        else
+        {
+            elements.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Overridden for performance.
+     */
+    public void forEachNonNull(final UnaryProcedure<? super Double> procedure)
+    {
+        if (isView)
+        {
+            super.forEachNonNull(procedure);
+        }
+        else
+        {
+            if (procedure == null)
+            {
+                throw new IllegalArgumentException("procedure must not be null");
+            }
+            elements.forEach(new LongDoubleProcedure()
+                {
+                    public void run(final long index, final double value)
+                    {
+                        procedure.run(Double.valueOf(value));
+                    }
+                });
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Matrix1D<Double> viewRow(final long row)
+    {
+        if (row < 0)
+        {
+            throw new IndexOutOfBoundsException(row + " < 0");
+        }
+        if (row >= rows)
+        {
+            throw new IndexOutOfBoundsException(row + " >= " + rows);
+        }
+        return new DoubleSparseMatrix1DAdapter(columns,
+                                               rowZero + (row * rowStride) + columnZero,
+                                               columnStride,
+                                               true,
+                                               elements);
+    }
+
+    /** {@inheritDoc} */
+    public Matrix1D<Double> viewColumn(final long column)
+    {
+        if (column < 0)
+        {
+            throw new IndexOutOfBoundsException(column + " < 0");
+        }
+        if (column >= columns)
+        {
+            throw new IndexOutOfBoundsException(column + " >= " + columns);
+        }
+        return new DoubleSparseMatrix1DAdapter(rows,
+                                               rowZero + (column * columnStride) + columnZero,
+                                               rowStride,
+                                               true,
+                                               elements);
+    }
+}
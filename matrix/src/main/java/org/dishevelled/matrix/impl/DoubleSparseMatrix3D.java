@@ -0,0 +1,261 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.io.Serializable;
+
+import org.dishevelled.matrix.DoubleMatrix3D;
+import org.dishevelled.matrix.LongDoubleProcedure;
+import org.dishevelled.matrix.LongLongLongDoubleProcedure;
+import org.dishevelled.matrix.Matrix3D;
+
+/**
+ * Sparse implementation of DoubleMatrix3D based on an open addressing
+ * hash map of primitive <code>long</code> keys to primitive <code>double</code>
+ * values.
+ *
+ * <p>The cardinality of this sparse double matrix is limited by the
+ * open addressing hash map underlying this implementation to something
+ * less than <code>2<sup>30</sup></code>.  The addressable size, on the other
+ * hand, is limited to <code>(slices * rows * columns) &lt; Long.MAX_VALUE</code>.</p>
+ *
+ * @author  Michael Heuer
+ */
+public class DoubleSparseMatrix3D
+    implements DoubleMatrix3D, Serializable
+{
+    /** Number of slices. */
+    private final long slices;
+
+    /** Number of rows. */
+    private final long rows;
+
+    /** Number of columns. */
+    private final long columns;
+
+    /** Open addressing hash map of elements keyed by <code>long</code> index. */
+    private final OpenLongDoubleHashMap elements;
+
+    /** Default initial capacity. */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** Default load factor. */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+
+    /**
+     * Create a new sparse double 3D matrix with the specified number
+     * of slices, rows, and columns.
+     *
+     * @param slices slices, must be <code>&gt;= 0</code>
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @throws IllegalArgumentException if any of <code>slices</code>,
+     *    <code>rows</code>, or <code>columns</code> is negative
+     */
+    public DoubleSparseMatrix3D(final long slices, final long rows, final long columns)
+    {
+        this(slices, rows, columns,
+             (int) Math.min(DEFAULT_INITIAL_CAPACITY, Math.max(0L, slices * rows * columns)),
+             DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create a new sparse double 3D matrix with the specified number
+     * of slices, rows, and columns, initial capacity, and load factor.
+     *
+     * @param slices slices, must be <code>&gt;= 0</code>
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param initialCapacity initial capacity, the expected cardinality, must be <code>&gt;= 0</code>
+     * @param loadFactor load factor, must be <code>&gt; 0</code> and <code>&lt; 1</code>
+     * @throws IllegalArgumentException if any of <code>slices</code>,
+     *    <code>rows</code>, or <code>columns</code> is negative
+     */
+    public DoubleSparseMatrix3D(final long slices,
+                                final long rows,
+                                final long columns,
+                                final int initialCapacity,
+                                final float loadFactor)
+    {
+        if (slices < 0)
+        {
+            throw new IllegalArgumentException("slices must be >= 0");
+        }
+        if (rows < 0)
+        {
+            throw new IllegalArgumentException("rows must be >= 0");
+        }
+        if (columns < 0)
+        {
+            throw new IllegalArgumentException("columns must be >= 0");
+        }
+        this.slices = slices;
+        this.rows = rows;
+        this.columns = columns;
+        this.elements = new OpenLongDoubleHashMap(initialCapacity, loadFactor);
+    }
+
+
+    /** {@inheritDoc} */
+    public long size()
+    {
+        return (slices * rows * columns);
+    }
+
+    /** {@inheritDoc} */
+    public long slices()
+    {
+        return slices;
+    }
+
+    /** {@inheritDoc} */
+    public long rows()
+    {
+        return rows;
+    }
+
+    /** {@inheritDoc} */
+    public long columns()
+    {
+        return columns;
+    }
+
+    /** {@inheritDoc} */
+    public long cardinality()
+    {
+        return elements.size();
+    }
+
+    /** {@inheritDoc} */
+    public boolean isEmpty()
+    {
+        return (0 == elements.size());
+    }
+
+    /** {@inheritDoc} */
+    public void clear()
+    {
+        elements.clear();
+    }
+
+    /** {@inheritDoc} */
+    public double get(final long slice, final long row, final long column)
+    {
+        checkIndices(slice, row, column);
+        return getQuick(slice, row, column);
+    }
+
+    /** {@inheritDoc} */
+    public double getQuick(final long slice, final long row, final long column)
+    {
+        return elements.get((slice * rows * columns) + (row * columns) + column);
+    }
+
+    /** {@inheritDoc} */
+    public void set(final long slice, final long row, final long column, final double value)
+    {
+        checkIndices(slice, row, column);
+        setQuick(slice, row, column, value);
+    }
+
+    /** {@inheritDoc} */
+    public void setQuick(final long slice, final long row, final long column, final double value)
+    {
+        elements.put((slice * rows * columns) + (row * columns) + column, value);
+    }
+
+    /** {@inheritDoc} */
+    public void forEachNonZero(final LongLongLongDoubleProcedure procedure)
+    {
+        if (procedure == null)
+        {
+            throw new IllegalArgumentException("procedure must not be null");
+        }
+        final long sliceStride = rows * columns;
+        elements.forEach(new LongDoubleProcedure()
+            {
+                public void run(final long index, final double value)
+                {
+                    long remainder = index % sliceStride;
+                    procedure.run(index / sliceStride, remainder / columns, remainder % columns, value);
+                }
+            });
+    }
+
+    /**
+     * Return a 3D matrix of <code>Double</code>s view of this sparse double
+     * 3D matrix.  Zero values read as <code>null</code>, and setting <code>null</code>
+     * sets the value to zero.  The view is backed by this matrix, so changes made
+     * to the returned view are reflected in this matrix, and vice-versa.
+     *
+     * @return a 3D matrix of <code>Double</code>s view of this sparse double 3D matrix
+     */
+    public Matrix3D<Double> asMatrix3D()
+    {
+        return new DoubleSparseMatrix3DAdapter(slices, rows, columns,
+                                               0L, 0L, 0L,
+                                               rows * columns, columns, 1L,
+                                               false, elements);
+    }
+
+    /**
+     * Check the specified slice, row, and column indices.
+     *
+     * @param slice slice index to check
+     * @param row row index to check
+     * @param column column index to check
+     * @throws IndexOutOfBoundsException if <code>slice</code>, <code>row</code>,
+     *    or <code>column</code> is negative or if <code>slice</code>, <code>row</code>,
+     *    or <code>column</code> is greater than or equal to <code>slices()</code>,
+     *    <code>rows()</code>, or <code>columns()</code>, respectively
+     */
+    private void checkIndices(final long slice, final long row, final long column)
+    {
+        if (slice < 0)
+        {
+            throw new IndexOutOfBoundsException(slice + " < 0");
+        }
+        if (row < 0)
+        {
+            throw new IndexOutOfBoundsException(row + " < 0");
+        }
+        if (column < 0)
+        {
+            throw new IndexOutOfBoundsException(column + " < 0");
+        }
+        if (slice >= slices)
+        {
+            throw new IndexOutOfBoundsException(slice + " >= " + slices);
+        }
+        if (row >= rows)
+        {
+            throw new IndexOutOfBoundsException(row + " >= " + rows);
+        }
+        if (column >= columns)
+        {
+            throw new IndexOutOfBoundsException(column + " >= " + columns);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import java.util.Arrays;
+
+import org.dishevelled.matrix.LongDoubleProcedure;
+
+/**
+ * Open addressing hash map of non-negative primitive <code>long</code> keys
+ * to primitive <code>double</code> values, with linear probing and backward
+ * shift deletion.
+ *
+ * <p>Keys and values are stored in parallel <code>long[]</code> and
+ * <code>double[]</code> tables, so no boxing occurs on any operation
+ * and each entry costs roughly <code>16 / loadFactor</code> bytes.
+ * Zero values are never stored; putting a zero value removes its key.</p>
+ *
+ * @author  Michael Heuer
+ */
+final class OpenLongDoubleHashMap
+    implements Serializable
+{
+    /** Marker for an empty slot, keys must be non-negative. */
+    private static final long EMPTY = -1L;
+
+    /** Maximum capacity. */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** Keys. */
+    private transient long[] keys;
+
+    /** Values. */
+    private transient double[] values;
+
+    /** Number of entries. */
+    private transient int size;
+
+    /** Capacity minus one, used as a bit mask. */
+    private transient int mask;
+
+    /** Number of entries at which this map grows. */
+    private transient int threshold;
+
+    /** Load factor. */
+    private final float loadFactor;
+
+
+    /**
+     * Create a new open addressing hash map with the specified
+     * expected number of entries and load factor.
+     *
+     * @param expectedSize expected number of entries, must be <code>&gt;= 0</code>
+     * @param loadFactor load factor, must be <code>&gt; 0</code> and <code>&lt; 1</code>
+     */
+    OpenLongDoubleHashMap(final int expectedSize, final float loadFactor)
+    {
+        if (expectedSize < 0)
+        {
+            throw new IllegalArgumentException("expectedSize must be >= 0");
+        }
+        if (!(loadFactor > 0.0f) || !(loadFactor < 1.0f))
+        {
+            throw new IllegalArgumentException("loadFactor must be > 0 and < 1");
+        }
+        this.loadFactor = loadFactor;
+        allocate(capacityFor(expectedSize, loadFactor));
+    }
+
+
+    /**
+     * Return the number of entries in this map.
+     *
+     * @return the number of entries in this map
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Return the value for the specified key, or <code>0.0d</code> if no such
+     * key exists in this map.
+     *
+     * @param key key
+     * @return the value for the specified key, or <code>0.0d</code> if no such
+     *    key exists in this map
+     */
+    double get(final long key)
+    {
+        int i = slot(key);
+        while (keys[i] != EMPTY)
+        {
+            if (keys[i] == key)
+            {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return 0.0d;
+    }
+
+    /**
+     * Return true if this map contains the specified key.
+     *
+     * @param key key
+     * @return true if this map contains the specified key
+     */
+    boolean containsKey(final long key)
+    {
+        int i = slot(key);
+        while (keys[i] != EMPTY)
+        {
+            if (keys[i] == key)
+            {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Associate the specified value with the specified key.  A zero value
+     * removes the key.
+     *
+     * @param key key, must be <code>&gt;= 0</code>
+     * @param value value
+     */
+    void put(final long key, final double value)
+    {
+        if (value == 0.0d)
+        {
+            remove(key);
+            return;
+        }
+        int i = slot(key);
+        while (keys[i] != EMPTY)
+        {
+            if (keys[i] == key)
+            {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size >= threshold)
+        {
+            rehash(keys.length << 1);
+            i = slot(key);
+            while (keys[i] != EMPTY)
+            {
+                i = (i + 1) & mask;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Add the specified value to the value associated with the specified key.
+     *
+     * @param key key, must be <code>&gt;= 0</code>
+     * @param value value to add
+     */
+    void add(final long key, final double value)
+    {
+        put(key, get(key) + value);
+    }
+
+    /**
+     * Remove the specified key from this map.
+     *
+     * @param key key
+     */
+    void remove(final long key)
+    {
+        int i = slot(key);
+        while (keys[i] != EMPTY)
+        {
+            if (keys[i] == key)
+            {
+                shiftBackward(i);
+                size--;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Remove all the entries from this map.
+     */
+    void clear()
+    {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Apply the specified procedure to each key and value in this map,
+     * in table order.
+     *
+     * @param procedure procedure
+     */
+    void forEach(final LongDoubleProcedure procedure)
+    {
+        for (int i = 0, n = keys.length; i < n; i++)
+        {
+            if (keys[i] != EMPTY)
+            {
+                procedure.run(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Fill the tail of the probe sequence into the slot at the specified index.
+     *
+     * @param index index of the slot to vacate
+     */
+    private void shiftBackward(final int index)
+    {
+        int gap = index;
+        int i = (gap + 1) & mask;
+        while (keys[i] != EMPTY)
+        {
+            int home = slot(keys[i]);
+            // move the entry at i into the gap unless its home lies cyclically in (gap, i]
+            if (((i - home) & mask) >= ((i - gap) & mask))
+            {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0.0d;
+    }
+
+    /**
+     * Return the home slot for the specified key.
+     *
+     * @param key key
+     * @return the home slot for the specified key
+     */
+    private int slot(final long key)
+    {
+        long h = key;
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= (h >>> 33);
+        return ((int) h) & mask;
+    }
+
+    /**
+     * Allocate tables of the specified capacity.
+     *
+     * @param capacity capacity, a power of two
+     */
+    private void allocate(final int capacity)
+    {
+        keys = new long[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        threshold = (capacity == MAXIMUM_CAPACITY) ? (capacity - 1) : (int) (capacity * loadFactor);
+    }
+
+    /**
+     * Rehash all entries into tables of the specified capacity.
+     *
+     * @param capacity capacity, a power of two
+     */
+    private void rehash(final int capacity)
+    {
+        if (keys.length == MAXIMUM_CAPACITY)
+        {
+            throw new IllegalStateException("maximum capacity exceeded");
+        }
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0, n = oldKeys.length; j < n; j++)
+        {
+            if (oldKeys[j] != EMPTY)
+            {
+                int i = slot(oldKeys[j]);
+                while (keys[i] != EMPTY)
+                {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Return the power of two table capacity for the specified expected
+     * number of entries and load factor.
+     *
+     * @param expectedSize expected number of entries
+     * @param loadFactor load factor
+     * @return the power of two table capacity for the specified expected
+     *    number of entries and load factor
+     */
+    private static int capacityFor(final int expectedSize, final float loadFactor)
+    {
+        long required = Math.max(2L, (long) Math.ceil(expectedSize / (double) loadFactor) + 1L);
+        if (required >= MAXIMUM_CAPACITY)
+        {
+            return MAXIMUM_CAPACITY;
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    /**
+     * Write this map to the specified object output stream.
+     *
+     * @see java.io.ObjectOutputStream
+     * @param out object output stream
+     * @throws IOException if an IO error occurs
+     */
+    private void writeObject(final ObjectOutputStream out)
+        throws IOException
+    {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0, n = keys.length; i < n; i++)
+        {
+            if (keys[i] != EMPTY)
+            {
+                out.writeLong(keys[i]);
+                out.writeDouble(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Read this map in from the specified object input stream.
+     *
+     * @see java.io.ObjectInputStream
+     * @param in object input stream
+     * @throws IOException if an IO error occurs
+     * @throws ClassNotFoundException if a classloading error occurs
+     */
+    private void readObject(final ObjectInputStream in)
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        int n = in.readInt();
+        allocate(capacityFor(n, loadFactor));
+        for (int i = 0; i < n; i++)
+        {
+            put(in.readLong(), in.readDouble());
+        }
+    }
+}
@@ -23,6 +23,14 @@
 */
 package org.dishevelled.matrix.impl;
 
+import java.util.Map;
+
+import org.dishevelled.functor.TernaryPredicate;
+import org.dishevelled.functor.TernaryProcedure;
+
+import org.dishevelled.matrix.DoubleMatrix1D;
+import org.dishevelled.matrix.DoubleMatrix2D;
+import org.dishevelled.matrix.DoubleMatrix3D;
 import org.dishevelled.matrix.Matrix1D;
 import org.dishevelled.matrix.Matrix2D;
 import org.dishevelled.matrix.Matrix3D;
@@ -152,4 +160,194 @@ public final class SparseMatrixUtils
     {
         return new SparseMatrix3D<T>(slices, rows, columns, initialCapacity, loadFactor);
     }
+
+    /**
+     * Create and return a new sparse double 1D matrix with the specified size.
+     *
+     * @param size size, must be <code>&gt;= 0</code>
+     * @throws IllegalArgumentException if <code>size</code> is negative
+     * @return a new sparse double 1D matrix with the specified size
+     */
+    public static DoubleMatrix1D createDoubleSparseMatrix1D(final long size)
+    {
+        return new DoubleSparseMatrix1D(size);
+    }
+
+    /**
+     * Create and return a new sparse double 1D matrix with the specified size,
+     * initial capacity, and load factor.
+     *
+     * @param size size, must be <code>&gt;= 0</code>
+     * @param initialCapacity initial capacity, must be <code>&gt;= 0</code>
+     * @param loadFactor load factor, must be <code>&gt; 0</code> and <code>&lt; 1</code>
+     * @return a new sparse double 1D matrix with the specified size,
+     *    initial capacity, and load factor
+     */
+    public static DoubleMatrix1D createDoubleSparseMatrix1D(final long size,
+                                                            final int initialCapacity,
+                                                            final float loadFactor)
+    {
+        return new DoubleSparseMatrix1D(size, initialCapacity, loadFactor);
+    }
+
+    /**
+     * Create and return a new sparse double 2D matrix with the specified number
+     * of rows and columns.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @throws IllegalArgumentException if either <code>rows</code>
+     *    or <code>columns</code> is negative
+     * @return a new sparse double 2D matrix with the specified number
+     *    of rows and columns
+     */
+    public static DoubleMatrix2D createDoubleSparseMatrix2D(final long rows, final long columns)
+    {
+        return new DoubleSparseMatrix2D(rows, columns);
+    }
+
+    /**
+     * Create and return a new sparse double 2D matrix with the specified number
+     * of rows and columns, initial capacity, and load factor.
+     *
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param initialCapacity initial capacity, must be <code>&gt;= 0</code>
+     * @param loadFactor load factor, must be <code>&gt; 0</code> and <code>&lt; 1</code>
+     * @return a new sparse double 2D matrix with the specified number
+     *    of rows and columns, initial capacity, and load factor
+     */
+    public static DoubleMatrix2D createDoubleSparseMatrix2D(final long rows,
+                                                            final long columns,
+                                                            final int initialCapacity,
+                                                            final float loadFactor)
+    {
+        return new DoubleSparseMatrix2D(rows, columns, initialCapacity, loadFactor);
+    }
+
+    /**
+     * Create and return a new sparse double 3D matrix with the specified number
+     * of slices, rows, and columns.
+     *
+     * @param slices slices, must be <code>&gt;= 0</code>
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @throws IllegalArgumentException if any of <code>slices</code>,
+     *    <code>rows</code>, or <code>columns</code> is negative
+     * @return a new sparse double 3D matrix with the specified number
+     *    of slices, rows, and columns
+     */
+    public static DoubleMatrix3D createDoubleSparseMatrix3D(final long slices, final long rows, final long columns)
+    {
+        return new DoubleSparseMatrix3D(slices, rows, columns);
+    }
+
+    /**
+     * Create and return a new sparse double 3D matrix with the specified number
+     * of slices, rows, and columns, initial capacity, and load factor.
+     *
+     * @param slices slices, must be <code>&gt;= 0</code>
+     * @param rows rows, must be <code>&gt;= 0</code>
+     * @param columns columns, must be <code>&gt;= 0</code>
+     * @param initialCapacity initial capacity, must be <code>&gt;= 0</code>
+     * @param loadFactor load factor, must be <code>&gt; 0</code> and <code>&lt; 1</code>
+     * @return a new sparse double 3D matrix with the specified number
+     *    of slices, rows, and columns, initial capacity, and load factor
+     */
+    public static DoubleMatrix3D createDoubleSparseMatrix3D(final long slices,
+                                                            final long rows,
+                                                            final long columns,
+                                                            final int initialCapacity,
+                                                            final float loadFactor)
+    {
+        return new DoubleSparseMatrix3D(slices, rows, columns, initialCapacity, loadFactor);
+    }
+
+    /**
+     * Create and return a new immutable compressed sparse row (CSR) 2D matrix
+     * with the same dimensions and non-null values as the specified matrix.
+     *
+     * @param <T> 2D matrix type
+     * @param matrix matrix to compress, must not be null and must have
+     *    fewer than <code>Integer.MAX_VALUE</code> rows
+     * @return a new immutable compressed sparse row (CSR) 2D matrix
+     *    with the same dimensions and non-null values as the specified matrix
+     */
+    public static <T> CompressedSparseMatrix2D<T> compressRows(final Matrix2D<? extends T> matrix)
+    {
+        if (matrix == null)
+        {
+            throw new IllegalArgumentException("matrix must not be null");
+        }
+        if (matrix instanceof CompressedSparseMatrix2D && !((CompressedSparseMatrix2D<? extends T>) matrix).isView())
+        {
+            return (CompressedSparseMatrix2D<T>) ((CompressedSparseMatrix2D<? extends T>) matrix).toRowCompressed();
+        }
+        return SparseMatrixUtils.<T>builder(matrix).buildRowCompressed();
+    }
+
+    /**
+     * Create and return a new immutable compressed sparse column (CSC) 2D matrix
+     * with the same dimensions and non-null values as the specified matrix.
+     *
+     * @param <T> 2D matrix type
+     * @param matrix matrix to compress, must not be null and must have
+     *    fewer than <code>Integer.MAX_VALUE</code> columns
+     * @return a new immutable compressed sparse column (CSC) 2D matrix
+     *    with the same dimensions and non-null values as the specified matrix
+     */
+    public static <T> CompressedSparseMatrix2D<T> compressColumns(final Matrix2D<? extends T> matrix)
+    {
+        if (matrix == null)
+        {
+            throw new IllegalArgumentException("matrix must not be null");
+        }
+        if (matrix instanceof CompressedSparseMatrix2D && !((CompressedSparseMatrix2D<? extends T>) matrix).isView())
+        {
+            return (CompressedSparseMatrix2D<T>) ((CompressedSparseMatrix2D<? extends T>) matrix).toColumnCompressed();
+        }
+        return SparseMatrixUtils.<T>builder(matrix).buildColumnCompressed();
+    }
+
+    /**
+     * Create and return a new compressed sparse 2D matrix builder containing
+     * the non-null values in the specified matrix.
+     *
+     * @param <T> 2D matrix type
+     * @param matrix matrix
+     * @return a new compressed sparse 2D matrix builder containing
+     *    the non-null values in the specified matrix
+     */
+    private static <T> CompressedSparseMatrix2DBuilder<T> builder(final Matrix2D<? extends T> matrix)
+    {
+        final long columns = matrix.columns();
+        if (matrix instanceof SparseMatrix2D && !((SparseMatrix2D<? extends T>) matrix).isView())
+        {
+            // iterate over the backing map directly rather than probing every row and column
+            Map<Long, ? extends T> elements = ((SparseMatrix2D<? extends T>) matrix).elements();
+            CompressedSparseMatrix2DBuilder<T> builder = new CompressedSparseMatrix2DBuilder<T>(matrix.rows(), columns,
+                                                                                              elements.size());
+            for (Map.Entry<Long, ? extends T> entry : elements.entrySet())
+            {
+                long index = entry.getKey();
+                builder.set(index / columns, index % columns, entry.getValue());
+            }
+            return builder;
+        }
+        final CompressedSparseMatrix2DBuilder<T> builder = new CompressedSparseMatrix2DBuilder<T>(matrix.rows(), columns);
+        matrix.forEach(new TernaryPredicate<Long, Long, T>()
+            {
+                public boolean test(final Long row, final Long column, final T e)
+                {
+                    return (e != null);
+                }
+            }, new TernaryProcedure<Long, Long, T>()
+            {
+                public void run(final Long row, final Long column, final T e)
+                {
+                    builder.set(row, column, e);
+                }
+            });
+        return builder;
+    }
 }
@@ -23,8 +23,17 @@
 */
 package org.dishevelled.matrix;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import junit.framework.TestCase;
 
+import org.dishevelled.bitset.CompressedBitSet;
+import org.dishevelled.bitset.ImmutableBitSet;
+import org.dishevelled.bitset.MutableBitSet;
+
+import org.dishevelled.functor.BinaryProcedure;
+
 /**
  * Unit test for BitMatrix2D.
  *
@@ -1159,4 +1168,126 @@ public class BitMatrix2DTest
             // expected
         }
     }
+
+    public void testBitSetConstructor()
+    {
+        BitMatrix2D bm0 = new BitMatrix2D(0, 0, new MutableBitSet());
+        BitMatrix2D bm1 = new BitMatrix2D(1000, 1000, new CompressedBitSet());
+        BitMatrix2D bm2 = new BitMatrix2D(1L << 24, 1L << 24, new CompressedBitSet());
+
+        MutableBitSet initial = new MutableBitSet();
+        initial.set(11L);
+        BitMatrix2D bm3 = new BitMatrix2D(10, 10, initial);
+        assertTrue(bm3.get(1, 1));
+        assertEquals(1, bm3.cardinality());
+
+        try
+        {
+            BitMatrix2D bm = new BitMatrix2D(-1, 0, new CompressedBitSet());
+            fail("ctr(-1,,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            BitMatrix2D bm = new BitMatrix2D(0, -1, new CompressedBitSet());
+            fail("ctr(,-1,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            BitMatrix2D bm = new BitMatrix2D(0, 0, null);
+            fail("ctr(,,null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            BitMatrix2D bm = new BitMatrix2D(0, 0, new ImmutableBitSet(new long[0], 0));
+            fail("ctr(,,immutable) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            BitMatrix2D bm = new BitMatrix2D(2, 2, initial);
+            fail("ctr(2,2,initial) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testCompressed()
+    {
+        long n = 1L << 24;
+        BitMatrix2D bm0 = new BitMatrix2D(n, n, new CompressedBitSet());
+        BitMatrix2D bm1 = new BitMatrix2D(n, n, new CompressedBitSet());
+        assertTrue(bm0.isEmpty());
+
+        bm0.set(0, 0, true);
+        bm0.set(n - 1, n - 1, true);
+        bm1.set(n - 1, n - 1, true);
+        bm1.set(n / 2, 42, true);
+        assertEquals(2, bm0.cardinality());
+        assertTrue(bm0.get(n - 1, n - 1));
+        assertFalse(bm0.get(n - 1, n - 2));
+        assertTrue(bm0.intersects(bm1));
+
+        bm0.or(bm1);
+        assertEquals(3, bm0.cardinality());
+        bm0.andNot(bm1);
+        assertEquals(1, bm0.cardinality());
+        bm0.xor(bm1);
+        assertEquals(3, bm0.cardinality());
+        bm0.and(bm1);
+        assertEquals(2, bm0.cardinality());
+        assertEquals(bm1, bm0);
+        assertEquals(bm1.hashCode(), bm0.hashCode());
+
+        final List<Long> rows = new ArrayList<Long>();
+        final List<Long> columns = new ArrayList<Long>();
+        bm0.forEach(true, new BinaryProcedure<Long, Long>()
+            {
+                /** {@inheritDoc} */
+                public void run(final Long row, final Long column)
+                {
+                    rows.add(row);
+                    columns.add(column);
+                }
+            });
+        assertEquals(2, rows.size());
+        assertEquals(Long.valueOf(n / 2), rows.get(0));
+        assertEquals(Long.valueOf(42L), columns.get(0));
+        assertEquals(Long.valueOf(n - 1), rows.get(1));
+        assertEquals(Long.valueOf(n - 1), columns.get(1));
+
+        bm0.clear();
+        assertTrue(bm0.isEmpty());
+    }
+
+    public void testCompressedAndMutable()
+    {
+        BitMatrix2D bm0 = new BitMatrix2D(100, 100);
+        BitMatrix2D bm1 = new BitMatrix2D(100, 100, new CompressedBitSet());
+        bm0.set(10, 10, 20, 20, true);
+        bm1.set(15, 15, 20, 20, true);
+
+        assertTrue(bm0.intersects(bm1));
+        assertTrue(bm1.intersects(bm0));
+        bm1.or(bm0);
+        assertEquals(bm0.cardinality(), bm1.cardinality());
+        bm0.xor(bm1);
+        assertTrue(bm0.isEmpty());
+    }
 }
@@ -0,0 +1,260 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.functor.TernaryProcedure;
+
+import org.dishevelled.matrix.LongLongDoubleProcedure;
+import org.dishevelled.matrix.Matrix1D;
+import org.dishevelled.matrix.Matrix2D;
+
+/**
+ * Unit test for BufferSparseMatrix2D.
+ *
+ * @author  Michael Heuer
+ */
+public final class BufferSparseMatrix2DTest
+    extends TestCase
+{
+
+    /**
+     * Create and return a new buffer sparse 2D matrix with values at every third row and column,
+     * split into blocks of the specified size.
+     *
+     * @param rows rows
+     * @param columns columns
+     * @param blockSize block size
+     * @return a new buffer sparse 2D matrix with values at every third row and column
+     */
+    private static BufferSparseMatrix2D createBufferSparseMatrix2D(final long rows, final long columns, final int blockSize)
+    {
+        List<LongBuffer> indices = new ArrayList<LongBuffer>();
+        List<DoubleBuffer> values = new ArrayList<DoubleBuffer>();
+        LongBuffer blockIndices = LongBuffer.allocate(blockSize);
+        DoubleBuffer blockValues = DoubleBuffer.allocate(blockSize);
+        for (long row = 0; row < rows; row++)
+        {
+            for (long column = 0; column < columns; column++)
+            {
+                if ((row + column) % 3L == 0L)
+                {
+                    blockIndices.put(row * columns + column);
+                    blockValues.put(row * 100.0d + column);
+                    if (!blockIndices.hasRemaining())
+                    {
+                        blockIndices.flip();
+                        blockValues.flip();
+                        indices.add(blockIndices);
+                        values.add(blockValues);
+                        blockIndices = LongBuffer.allocate(blockSize);
+                        blockValues = DoubleBuffer.allocate(blockSize);
+                    }
+                }
+            }
+        }
+        blockIndices.flip();
+        blockValues.flip();
+        indices.add(blockIndices);
+        values.add(blockValues);
+        return new BufferSparseMatrix2D(rows, columns,
+                                        indices.toArray(new LongBuffer[0]),
+                                        values.toArray(new DoubleBuffer[0]));
+    }
+
+    public void testConstructor()
+    {
+        BufferSparseMatrix2D m = new BufferSparseMatrix2D(10L, 10L, new LongBuffer[0], new DoubleBuffer[0]);
+        assertEquals(100L, m.size());
+        assertEquals(0L, m.cardinality());
+        assertNull(m.get(0L, 0L));
+
+        try
+        {
+            new BufferSparseMatrix2D(10L, 10L, null, new DoubleBuffer[0]);
+            fail("ctr(,,null,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new BufferSparseMatrix2D(10L, 10L, new LongBuffer[0], null);
+            fail("ctr(,,,null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new BufferSparseMatrix2D(10L, 10L, new LongBuffer[] { LongBuffer.allocate(2) },
+                                     new DoubleBuffer[] { DoubleBuffer.allocate(1) });
+            fail("ctr mismatched block expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testGet()
+    {
+        for (int blockSize : new int[] { 1, 2, 5, 100 })
+        {
+            BufferSparseMatrix2D m = createBufferSparseMatrix2D(7L, 11L, blockSize);
+            long cardinality = 0L;
+            for (long row = 0; row < 7L; row++)
+            {
+                for (long column = 0; column < 11L; column++)
+                {
+                    if ((row + column) % 3L == 0L)
+                    {
+                        assertEquals(row * 100.0d + column, m.get(row, column).doubleValue(), 0.0d);
+                        cardinality++;
+                    }
+                    else
+                    {
+                        assertNull(m.get(row, column));
+                    }
+                }
+            }
+            assertEquals(cardinality, m.cardinality());
+        }
+    }
+
+    public void testImmutable()
+    {
+        BufferSparseMatrix2D m = createBufferSparseMatrix2D(7L, 11L, 4);
+        try
+        {
+            m.set(0L, 0L, 1.0d);
+            fail("set expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            m.clear();
+            fail("clear expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    public void testForEach()
+    {
+        BufferSparseMatrix2D m = createBufferSparseMatrix2D(7L, 11L, 4);
+        Matrix2D<Double> sparse = new SparseMatrix2D<Double>(7L, 11L);
+        for (long row = 0; row < 7L; row++)
+        {
+            for (long column = 0; column < 11L; column++)
+            {
+                sparse.set(row, column, m.get(row, column));
+            }
+        }
+
+        final List<Double> expected = new ArrayList<Double>();
+        sparse.forEach(new TernaryProcedure<Long, Long, Double>()
+            {
+                public void run(final Long row, final Long column, final Double value)
+                {
+                    expected.add(value);
+                }
+            });
+        final List<Double> observed = new ArrayList<Double>();
+        m.forEach(new TernaryProcedure<Long, Long, Double>()
+            {
+                public void run(final Long row, final Long column, final Double value)
+                {
+                    observed.add(value);
+                }
+            });
+        assertEquals(expected, observed);
+
+        final List<Double> nonNull = new ArrayList<Double>();
+        m.forEachNonNull(new LongLongDoubleProcedure()
+            {
+                public void run(final long row, final long column, final double value)
+                {
+                    assertEquals(row * 100.0d + column, value, 0.0d);
+                    nonNull.add(value);
+                }
+            });
+        assertEquals(m.cardinality(), nonNull.size());
+    }
+
+    public void testViews()
+    {
+        BufferSparseMatrix2D m = createBufferSparseMatrix2D(7L, 11L, 4);
+        Matrix1D<Double> row = m.viewRow(2L);
+        assertEquals(11L, row.size());
+        assertEquals(4L, row.cardinality());
+        assertEquals(201.0d, row.get(1L).doubleValue(), 0.0d);
+        assertNull(row.get(2L));
+
+        Matrix1D<Double> column = m.viewColumn(5L);
+        assertEquals(7L, column.size());
+        assertEquals(105.0d, column.get(1L).doubleValue(), 0.0d);
+        assertNull(column.get(0L));
+
+        Matrix2D<Double> flip = m.viewDice();
+        assertEquals(11L, flip.rows());
+        assertEquals(7L, flip.columns());
+        assertEquals(m.cardinality(), flip.cardinality());
+        assertEquals(m.get(2L, 1L), flip.get(1L, 2L));
+
+        final List<Double> nonNull = new ArrayList<Double>();
+        ((BufferSparseMatrix2D) m.viewPart(1L, 1L, 3L, 3L)).forEachNonNull(new LongLongDoubleProcedure()
+            {
+                public void run(final long r, final long c, final double value)
+                {
+                    nonNull.add(value);
+                }
+            });
+        assertEquals(3, nonNull.size());
+
+        try
+        {
+            m.viewRow(7L);
+            fail("viewRow(7) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+}
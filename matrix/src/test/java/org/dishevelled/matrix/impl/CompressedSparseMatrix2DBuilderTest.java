@@ -0,0 +1,159 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for CompressedSparseMatrix2DBuilder.
+ *
+ * @author  Michael Heuer
+ */
+public final class CompressedSparseMatrix2DBuilderTest
+    extends TestCase
+{
+
+    public void testConstructor()
+    {
+        assertNotNull(new CompressedSparseMatrix2DBuilder<String>(0L, 0L));
+        assertNotNull(new CompressedSparseMatrix2DBuilder<String>(10L, 10L, 100));
+
+        try
+        {
+            new CompressedSparseMatrix2DBuilder<String>(-1L, 10L);
+            fail("ctr(-1L,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new CompressedSparseMatrix2DBuilder<String>(10L, -1L);
+            fail("ctr(,-1L) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new CompressedSparseMatrix2DBuilder<String>(10L, 10L, -1);
+            fail("ctr(,,-1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testSetOutOfBounds()
+    {
+        CompressedSparseMatrix2DBuilder<String> builder = new CompressedSparseMatrix2DBuilder<String>(10L, 10L);
+        try
+        {
+            builder.set(10L, 0L, "foo");
+            fail("set(10L,,) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        try
+        {
+            builder.set(0L, -1L, "foo");
+            fail("set(,-1L,) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+    public void testBuildEmpty()
+    {
+        CompressedSparseMatrix2DBuilder<String> builder = new CompressedSparseMatrix2DBuilder<String>(10L, 20L);
+        CompressedSparseMatrix2D<String> csr = builder.buildRowCompressed();
+        assertTrue(csr.isRowCompressed());
+        assertEquals(10L, csr.rows());
+        assertEquals(20L, csr.columns());
+        assertEquals(0L, csr.cardinality());
+
+        CompressedSparseMatrix2D<String> csc = builder.buildColumnCompressed();
+        assertFalse(csc.isRowCompressed());
+        assertEquals(0L, csc.cardinality());
+    }
+
+    public void testBuildUnordered()
+    {
+        CompressedSparseMatrix2DBuilder<String> builder = new CompressedSparseMatrix2DBuilder<String>(10L, 20L, 0);
+        for (long row = 9; row >= 0; row--)
+        {
+            for (long column = 19; column >= 0; column -= 3)
+            {
+                builder.set(row, column, row + "x" + column);
+            }
+        }
+        assertEquals(70, builder.size());
+
+        CompressedSparseMatrix2D<String> csr = builder.buildRowCompressed();
+        CompressedSparseMatrix2D<String> csc = builder.buildColumnCompressed();
+        assertEquals(70L, csr.cardinality());
+        assertEquals(70L, csc.cardinality());
+        for (long row = 0; row < 10L; row++)
+        {
+            for (long column = 0; column < 20L; column++)
+            {
+                String expected = ((19L - column) % 3L == 0L) ? (row + "x" + column) : null;
+                assertEquals(expected, csr.get(row, column));
+                assertEquals(expected, csc.get(row, column));
+            }
+        }
+    }
+
+    public void testLastValueWins()
+    {
+        CompressedSparseMatrix2DBuilder<String> builder = new CompressedSparseMatrix2DBuilder<String>(10L, 10L);
+        builder.set(1L, 1L, "foo");
+        builder.set(2L, 2L, "bar");
+        builder.set(1L, 1L, "baz");
+        builder.set(2L, 2L, null);
+        builder.set(3L, 3L, null);
+
+        CompressedSparseMatrix2D<String> m = builder.buildRowCompressed();
+        assertEquals(1L, m.cardinality());
+        assertEquals("baz", m.get(1L, 1L));
+        assertNull(m.get(2L, 2L));
+        assertNull(m.get(3L, 3L));
+    }
+
+    public void testClear()
+    {
+        CompressedSparseMatrix2DBuilder<String> builder = new CompressedSparseMatrix2DBuilder<String>(10L, 10L);
+        builder.set(1L, 1L, "foo");
+        assertSame(builder, builder.clear());
+        assertEquals(0, builder.size());
+        assertTrue(builder.buildRowCompressed().isEmpty());
+    }
+}
@@ -0,0 +1,353 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.functor.BinaryFunction;
+import org.dishevelled.functor.BinaryProcedure;
+import org.dishevelled.functor.TernaryProcedure;
+import org.dishevelled.functor.UnaryFunction;
+
+import org.dishevelled.matrix.Matrix1D;
+import org.dishevelled.matrix.Matrix2D;
+
+/**
+ * Unit test for CompressedSparseMatrix2D.
+ *
+ * @author  Michael Heuer
+ */
+public final class CompressedSparseMatrix2DTest
+    extends TestCase
+{
+    /** Multiplication function. */
+    private static final BinaryFunction<Double, Double, Double> TIMES = new BinaryFunction<Double, Double, Double>()
+        {
+            public Double evaluate(final Double a, final Double b)
+            {
+                return a * b;
+            }
+        };
+
+    /** Addition function. */
+    private static final BinaryFunction<Double, Double, Double> PLUS = new BinaryFunction<Double, Double, Double>()
+        {
+            public Double evaluate(final Double a, final Double b)
+            {
+                return a + b;
+            }
+        };
+
+
+    /**
+     * Create and return a new sparse 2D matrix with values at every third row and column.
+     *
+     * @param rows rows
+     * @param columns columns
+     * @return a new sparse 2D matrix with values at every third row and column
+     */
+    private static Matrix2D<Double> createSparseMatrix2D(final long rows, final long columns)
+    {
+        Matrix2D<Double> m = new SparseMatrix2D<Double>(rows, columns);
+        for (long row = 0; row < rows; row++)
+        {
+            for (long column = 0; column < columns; column++)
+            {
+                if ((row + column) % 3L == 0L)
+                {
+                    m.set(row, column, Double.valueOf(row * 100.0d + column));
+                }
+            }
+        }
+        return m;
+    }
+
+    public void testCompressRowsAndColumns()
+    {
+        Matrix2D<Double> m = createSparseMatrix2D(7L, 11L);
+        CompressedSparseMatrix2D<Double> csr = SparseMatrixUtils.compressRows(m);
+        CompressedSparseMatrix2D<Double> csc = SparseMatrixUtils.compressColumns(m);
+        assertTrue(csr.isRowCompressed());
+        assertFalse(csc.isRowCompressed());
+        assertEquals(m.cardinality(), csr.cardinality());
+        assertEquals(m.cardinality(), csc.cardinality());
+
+        for (long row = 0; row < 7L; row++)
+        {
+            for (long column = 0; column < 11L; column++)
+            {
+                assertEquals(m.get(row, column), csr.get(row, column));
+                assertEquals(m.get(row, column), csc.get(row, column));
+            }
+        }
+
+        assertTrue(csr.toColumnCompressed().toRowCompressed().toString().equals(csr.toString()));
+        assertSame(csr, csr.toRowCompressed());
+        assertSame(csc, csc.toColumnCompressed());
+    }
+
+    public void testImmutable()
+    {
+        CompressedSparseMatrix2D<Double> csr = SparseMatrixUtils.compressRows(createSparseMatrix2D(7L, 11L));
+        try
+        {
+            csr.set(0L, 0L, 1.0d);
+            fail("set expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            csr.clear();
+            fail("clear expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    public void testForEachInMemoryOrder()
+    {
+        Matrix2D<Double> m = createSparseMatrix2D(7L, 11L);
+        CompressedSparseMatrix2D<Double> csr = SparseMatrixUtils.compressRows(m);
+
+        final List<Double> expected = new ArrayList<Double>();
+        m.forEach(new TernaryProcedure<Long, Long, Double>()
+            {
+                public void run(final Long row, final Long column, final Double value)
+                {
+                    expected.add(value);
+                }
+            });
+        final List<Double> observed = new ArrayList<Double>();
+        csr.forEach(new TernaryProcedure<Long, Long, Double>()
+            {
+                public void run(final Long row, final Long column, final Double value)
+                {
+                    observed.add(value);
+                }
+            });
+        assertEquals(expected, observed);
+
+        final List<Double> nonNull = new ArrayList<Double>();
+        csr.forEachNonNull(new TernaryProcedure<Long, Long, Double>()
+            {
+                public void run(final Long row, final Long column, final Double value)
+                {
+                    assertEquals(row * 100.0d + column, value.doubleValue(), 0.0d);
+                    nonNull.add(value);
+                }
+            });
+        assertEquals(csr.cardinality(), nonNull.size());
+    }
+
+    public void testForEachNonNullInRowAndColumn()
+    {
+        Matrix2D<Double> m = createSparseMatrix2D(7L, 11L);
+        CompressedSparseMatrix2D<Double> csr = SparseMatrixUtils.compressRows(m);
+        CompressedSparseMatrix2D<Double> csc = SparseMatrixUtils.compressColumns(m);
+
+        final List<Long> columns = new ArrayList<Long>();
+        BinaryProcedure<Long, Double> collectColumns = new BinaryProcedure<Long, Double>()
+            {
+                public void run(final Long column, final Double value)
+                {
+                    assertEquals(200.0d + column, value.doubleValue(), 0.0d);
+                    columns.add(column);
+                }
+            };
+        csr.forEachNonNullInRow(2L, collectColumns);
+        assertEquals("[1, 4, 7, 10]", columns.toString());
+        columns.clear();
+        csc.forEachNonNullInRow(2L, collectColumns);
+        assertEquals("[1, 4, 7, 10]", columns.toString());
+
+        final List<Long> rows = new ArrayList<Long>();
+        BinaryProcedure<Long, Double> collectRows = new BinaryProcedure<Long, Double>()
+            {
+                public void run(final Long row, final Double value)
+                {
+                    assertEquals(row * 100.0d + 5.0d, value.doubleValue(), 0.0d);
+                    rows.add(row);
+                }
+            };
+        csc.forEachNonNullInColumn(5L, collectRows);
+        assertEquals("[1, 4]", rows.toString());
+        rows.clear();
+        csr.forEachNonNullInColumn(5L, collectRows);
+        assertEquals("[1, 4]", rows.toString());
+    }
+
+    public void testAggregate()
+    {
+        Matrix2D<Double> m = createSparseMatrix2D(7L, 11L);
+        CompressedSparseMatrix2D<Double> csr = SparseMatrixUtils.compressRows(m);
+        BinaryFunction<Double, Double, Double> sum = new BinaryFunction<Double, Double, Double>()
+            {
+                public Double evaluate(final Double a, final Double b)
+                {
+                    return a + b;
+                }
+            };
+        UnaryFunction<Double, Double> nullToZero = new UnaryFunction<Double, Double>()
+            {
+                public Double evaluate(final Double value)
+                {
+                    return (value == null) ? 0.0d : value;
+                }
+            };
+        assertEquals(m.aggregate(sum, nullToZero), csr.aggregate(sum, nullToZero));
+    }
+
+    public void testViews()
+    {
+        Matrix2D<Double> m = createSparseMatrix2D(7L, 11L);
+        CompressedSparseMatrix2D<Double> csr = SparseMatrixUtils.compressRows(m);
+
+        Matrix1D<Double> row = csr.viewRow(2L);
+        Matrix1D<Double> column = csr.viewColumn(5L);
+        for (long i = 0; i < 11L; i++)
+        {
+            assertEquals(m.get(2L, i), row.get(i));
+        }
+        for (long i = 0; i < 7L; i++)
+        {
+            assertEquals(m.get(i, 5L), column.get(i));
+        }
+
+        Matrix2D<Double> dice = csr.viewDice();
+        Matrix2D<Double> part = csr.viewPart(1L, 2L, 3L, 4L);
+        for (long r = 0; r < 7L; r++)
+        {
+            for (long c = 0; c < 11L; c++)
+            {
+                assertEquals(m.get(r, c), dice.get(c, r));
+            }
+        }
+        for (long r = 0; r < 3L; r++)
+        {
+            for (long c = 0; c < 4L; c++)
+            {
+                assertEquals(m.get(r + 1L, c + 2L), part.get(r, c));
+            }
+        }
+        assertEquals(m.viewPart(1L, 2L, 3L, 4L).cardinality(), part.cardinality());
+
+        CompressedSparseMatrix2D<Double> transposed = SparseMatrixUtils.compressRows(dice);
+        assertEquals(11L, transposed.rows());
+        assertEquals(csr.cardinality(), transposed.cardinality());
+    }
+
+    public void testMultiplyVector()
+    {
+        Matrix2D<Double> m = createSparseMatrix2D(7L, 11L);
+        Matrix1D<Double> x = new SparseMatrix1D<Double>(11L);
+        for (long i = 0; i < 11L; i += 2L)
+        {
+            x.set(i, Double.valueOf(i + 1.0d));
+        }
+
+        Matrix1D<Double> expected = new SparseMatrix1D<Double>(7L);
+        for (long r = 0; r < 7L; r++)
+        {
+            double sum = 0.0d;
+            boolean any = false;
+            for (long c = 0; c < 11L; c++)
+            {
+                if ((m.get(r, c) != null) && (x.get(c) != null))
+                {
+                    sum += m.get(r, c) * x.get(c);
+                    any = true;
+                }
+            }
+            if (any)
+            {
+                expected.set(r, sum);
+            }
+        }
+
+        Matrix1D<Double> csrResult = SparseMatrixUtils.compressRows(m).multiply(x, TIMES, PLUS);
+        Matrix1D<Double> cscResult = SparseMatrixUtils.compressColumns(m).multiply(x, TIMES, PLUS);
+        for (long r = 0; r < 7L; r++)
+        {
+            assertEquals(expected.get(r), csrResult.get(r));
+            assertEquals(expected.get(r), cscResult.get(r));
+        }
+
+        try
+        {
+            SparseMatrixUtils.compressRows(m).multiply(new SparseMatrix1D<Double>(7L), TIMES, PLUS);
+            fail("multiply with wrong size vector expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testMultiplyMatrix()
+    {
+        Matrix2D<Double> a = createSparseMatrix2D(7L, 11L);
+        Matrix2D<Double> b = createSparseMatrix2D(11L, 5L);
+
+        CompressedSparseMatrix2D<Double> product = SparseMatrixUtils.compressRows(a)
+            .multiply(SparseMatrixUtils.compressColumns(b), TIMES, PLUS);
+        assertEquals(7L, product.rows());
+        assertEquals(5L, product.columns());
+        assertTrue(product.isRowCompressed());
+
+        for (long r = 0; r < 7L; r++)
+        {
+            for (long c = 0; c < 5L; c++)
+            {
+                Double expected = null;
+                for (long k = 0; k < 11L; k++)
+                {
+                    if ((a.get(r, k) != null) && (b.get(k, c) != null))
+                    {
+                        double p = a.get(r, k) * b.get(k, c);
+                        expected = (expected == null) ? p : expected + p;
+                    }
+                }
+                assertEquals(expected, product.get(r, c));
+            }
+        }
+
+        try
+        {
+            SparseMatrixUtils.compressRows(a).multiply(SparseMatrixUtils.compressRows(a), TIMES, PLUS);
+            fail("multiply with wrong dimensions expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+}
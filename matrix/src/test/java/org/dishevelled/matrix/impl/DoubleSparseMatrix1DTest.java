@@ -0,0 +1,168 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.matrix.LongDoubleProcedure;
+import org.dishevelled.matrix.Matrix1D;
+
+/**
+ * Unit test for DoubleSparseMatrix1D.
+ *
+ * @author  Michael Heuer
+ */
+public final class DoubleSparseMatrix1DTest
+    extends TestCase
+{
+
+    public void testConstructor()
+    {
+        DoubleSparseMatrix1D m = new DoubleSparseMatrix1D(100L);
+        assertEquals(100L, m.size());
+        assertEquals(0L, m.cardinality());
+        assertTrue(m.isEmpty());
+
+        try
+        {
+            new DoubleSparseMatrix1D(-1L);
+            fail("ctr(-1L) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testGetSet()
+    {
+        DoubleSparseMatrix1D m = new DoubleSparseMatrix1D(100L);
+        assertEquals(0.0d, m.get(0L), 0.0d);
+        m.set(0L, 1.0d);
+        m.set(99L, 2.0d);
+        assertEquals(1.0d, m.get(0L), 0.0d);
+        assertEquals(2.0d, m.getQuick(99L), 0.0d);
+        assertEquals(2L, m.cardinality());
+
+        m.setQuick(99L, 0.0d);
+        assertEquals(1L, m.cardinality());
+
+        m.clear();
+        assertTrue(m.isEmpty());
+
+        try
+        {
+            m.get(100L);
+            fail("get(100L) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        try
+        {
+            m.set(-1L, 1.0d);
+            fail("set(-1L,) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+    public void testForEachNonZero()
+    {
+        DoubleSparseMatrix1D m = new DoubleSparseMatrix1D(100L);
+        for (long i = 0; i < 100L; i += 10L)
+        {
+            m.set(i, i + 1.0d);
+        }
+        final double[] sum = new double[1];
+        m.forEachNonZero(new LongDoubleProcedure()
+            {
+                public void run(final long index, final double value)
+                {
+                    assertEquals(index + 1.0d, value, 0.0d);
+                    sum[0] += value;
+                }
+            });
+        assertEquals(460.0d, sum[0], 0.0d);
+
+        try
+        {
+            m.forEachNonZero(null);
+            fail("forEachNonZero(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testAsMatrix1D()
+    {
+        DoubleSparseMatrix1D m = new DoubleSparseMatrix1D(100L);
+        Matrix1D<Double> adapter = m.asMatrix1D();
+        assertEquals(100L, adapter.size());
+        assertNull(adapter.get(0L));
+
+        m.set(4L, 4.0d);
+        assertEquals(Double.valueOf(4.0d), adapter.get(4L));
+        assertEquals(1L, adapter.cardinality());
+
+        adapter.set(8L, 8.0d);
+        assertEquals(8.0d, m.get(8L), 0.0d);
+        adapter.set(8L, null);
+        assertEquals(0.0d, m.get(8L), 0.0d);
+
+        Matrix1D<Double> flip = adapter.viewFlip();
+        assertEquals(Double.valueOf(4.0d), flip.get(95L));
+        assertEquals(1L, flip.cardinality());
+    }
+
+    public void testSerialization()
+        throws Exception
+    {
+        DoubleSparseMatrix1D m0 = new DoubleSparseMatrix1D(100L);
+        m0.set(42L, 42.0d);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(m0);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        DoubleSparseMatrix1D m1 = (DoubleSparseMatrix1D) in.readObject();
+        in.close();
+
+        assertEquals(m0.size(), m1.size());
+        assertEquals(m0.cardinality(), m1.cardinality());
+        assertEquals(42.0d, m1.get(42L), 0.0d);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.matrix.LongLongDoubleProcedure;
+import org.dishevelled.matrix.Matrix1D;
+import org.dishevelled.matrix.Matrix2D;
+
+/**
+ * Unit test for DoubleSparseMatrix2D.
+ *
+ * @author  Michael Heuer
+ */
+public final class DoubleSparseMatrix2DTest
+    extends TestCase
+{
+
+    public void testConstructor()
+    {
+        DoubleSparseMatrix2D m = new DoubleSparseMatrix2D(10L, 20L);
+        assertEquals(200L, m.size());
+        assertEquals(10L, m.rows());
+        assertEquals(20L, m.columns());
+        assertEquals(0L, m.cardinality());
+        assertTrue(m.isEmpty());
+
+        try
+        {
+            new DoubleSparseMatrix2D(-1L, 1L);
+            fail("ctr(-1L,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new DoubleSparseMatrix2D(1L, -1L);
+            fail("ctr(,-1L) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testLargeAddressableSize()
+    {
+        DoubleSparseMatrix2D m = new DoubleSparseMatrix2D(1L << 31, 1L << 31);
+        m.set((1L << 31) - 1L, (1L << 31) - 1L, 1.0d);
+        assertEquals(1.0d, m.get((1L << 31) - 1L, (1L << 31) - 1L), 0.0d);
+        assertEquals(1L, m.cardinality());
+    }
+
+    public void testGetSet()
+    {
+        DoubleSparseMatrix2D m = new DoubleSparseMatrix2D(10L, 20L);
+        m.set(0L, 19L, 1.0d);
+        m.set(9L, 0L, 2.0d);
+        assertEquals(1.0d, m.get(0L, 19L), 0.0d);
+        assertEquals(2.0d, m.getQuick(9L, 0L), 0.0d);
+        assertEquals(0.0d, m.get(1L, 0L), 0.0d);
+        assertEquals(2L, m.cardinality());
+
+        m.set(0L, 19L, 0.0d);
+        assertEquals(1L, m.cardinality());
+
+        m.clear();
+        assertTrue(m.isEmpty());
+
+        try
+        {
+            m.get(10L, 0L);
+            fail("get(10L,) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        try
+        {
+            m.set(0L, 20L, 1.0d);
+            fail("set(,20L,) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+    public void testForEachNonZero()
+    {
+        DoubleSparseMatrix2D m = new DoubleSparseMatrix2D(10L, 20L);
+        for (long row = 0; row < 10L; row++)
+        {
+            m.set(row, row * 2L, row * 100.0d + row * 2L + 1.0d);
+        }
+        final int[] count = new int[1];
+        m.forEachNonZero(new LongLongDoubleProcedure()
+            {
+                public void run(final long row, final long column, final double value)
+                {
+                    assertEquals(row * 2L, column);
+                    assertEquals(row * 100.0d + column + 1.0d, value, 0.0d);
+                    count[0]++;
+                }
+            });
+        assertEquals(10, count[0]);
+    }
+
+    public void testAsMatrix2D()
+    {
+        DoubleSparseMatrix2D m = new DoubleSparseMatrix2D(10L, 20L);
+        Matrix2D<Double> adapter = m.asMatrix2D();
+        assertEquals(10L, adapter.rows());
+        assertEquals(20L, adapter.columns());
+        assertNull(adapter.get(0L, 0L));
+
+        m.set(3L, 4L, 34.0d);
+        assertEquals(Double.valueOf(34.0d), adapter.get(3L, 4L));
+        assertEquals(1L, adapter.cardinality());
+
+        adapter.set(5L, 6L, 56.0d);
+        assertEquals(56.0d, m.get(5L, 6L), 0.0d);
+        adapter.set(5L, 6L, null);
+        assertEquals(0.0d, m.get(5L, 6L), 0.0d);
+
+        Matrix1D<Double> row = adapter.viewRow(3L);
+        assertEquals(20L, row.size());
+        assertEquals(Double.valueOf(34.0d), row.get(4L));
+
+        Matrix1D<Double> column = adapter.viewColumn(4L);
+        assertEquals(10L, column.size());
+        assertEquals(Double.valueOf(34.0d), column.get(3L));
+
+        Matrix2D<Double> dice = adapter.viewDice();
+        assertEquals(Double.valueOf(34.0d), dice.get(4L, 3L));
+
+        Matrix2D<Double> part = adapter.viewPart(2L, 2L, 4L, 4L);
+        assertEquals(Double.valueOf(34.0d), part.get(1L, 2L));
+        assertEquals(1L, part.cardinality());
+
+        adapter.clear();
+        assertTrue(m.isEmpty());
+    }
+
+    public void testSerialization()
+        throws Exception
+    {
+        DoubleSparseMatrix2D m0 = new DoubleSparseMatrix2D(10L, 20L);
+        m0.set(4L, 2L, 42.0d);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(m0);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        DoubleSparseMatrix2D m1 = (DoubleSparseMatrix2D) in.readObject();
+        in.close();
+
+        assertEquals(m0.rows(), m1.rows());
+        assertEquals(m0.columns(), m1.columns());
+        assertEquals(m0.cardinality(), m1.cardinality());
+        assertEquals(42.0d, m1.get(4L, 2L), 0.0d);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.matrix.LongLongLongDoubleProcedure;
+import org.dishevelled.matrix.Matrix2D;
+import org.dishevelled.matrix.Matrix3D;
+
+/**
+ * Unit test for DoubleSparseMatrix3D.
+ *
+ * @author  Michael Heuer
+ */
+public final class DoubleSparseMatrix3DTest
+    extends TestCase
+{
+
+    public void testConstructor()
+    {
+        DoubleSparseMatrix3D m = new DoubleSparseMatrix3D(5L, 10L, 20L);
+        assertEquals(1000L, m.size());
+        assertEquals(5L, m.slices());
+        assertEquals(10L, m.rows());
+        assertEquals(20L, m.columns());
+        assertEquals(0L, m.cardinality());
+        assertTrue(m.isEmpty());
+
+        try
+        {
+            new DoubleSparseMatrix3D(-1L, 1L, 1L);
+            fail("ctr(-1L,,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testGetSet()
+    {
+        DoubleSparseMatrix3D m = new DoubleSparseMatrix3D(5L, 10L, 20L);
+        m.set(4L, 9L, 19L, 1.0d);
+        m.set(1L, 2L, 3L, 2.0d);
+        assertEquals(1.0d, m.get(4L, 9L, 19L), 0.0d);
+        assertEquals(2.0d, m.getQuick(1L, 2L, 3L), 0.0d);
+        assertEquals(0.0d, m.get(1L, 3L, 2L), 0.0d);
+        assertEquals(2L, m.cardinality());
+
+        m.clear();
+        assertTrue(m.isEmpty());
+
+        try
+        {
+            m.get(5L, 0L, 0L);
+            fail("get(5L,,) expected IndexOutOfBoundsException");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+    public void testForEachNonZero()
+    {
+        DoubleSparseMatrix3D m = new DoubleSparseMatrix3D(5L, 10L, 20L);
+        m.set(1L, 2L, 3L, 123.0d);
+        m.set(4L, 9L, 19L, 509.0d);
+        final int[] count = new int[1];
+        m.forEachNonZero(new LongLongLongDoubleProcedure()
+            {
+                public void run(final long slice, final long row, final long column, final double value)
+                {
+                    assertEquals(slice * 100.0d + row * 10.0d + column, value, 0.0d);
+                    count[0]++;
+                }
+            });
+        assertEquals(2, count[0]);
+    }
+
+    public void testAsMatrix3D()
+    {
+        DoubleSparseMatrix3D m = new DoubleSparseMatrix3D(5L, 10L, 20L);
+        Matrix3D<Double> adapter = m.asMatrix3D();
+        assertEquals(5L, adapter.slices());
+        assertNull(adapter.get(1L, 2L, 3L));
+
+        m.set(1L, 2L, 3L, 123.0d);
+        assertEquals(Double.valueOf(123.0d), adapter.get(1L, 2L, 3L));
+        assertEquals(1L, adapter.cardinality());
+
+        adapter.set(4L, 5L, 6L, 456.0d);
+        assertEquals(456.0d, m.get(4L, 5L, 6L), 0.0d);
+
+        Matrix2D<Double> slice = adapter.viewSlice(1L);
+        assertEquals(Double.valueOf(123.0d), slice.get(2L, 3L));
+
+        Matrix2D<Double> row = adapter.viewRow(2L);
+        assertEquals(Double.valueOf(123.0d), row.get(1L, 3L));
+
+        Matrix2D<Double> column = adapter.viewColumn(3L);
+        assertEquals(Double.valueOf(123.0d), column.get(1L, 2L));
+    }
+}
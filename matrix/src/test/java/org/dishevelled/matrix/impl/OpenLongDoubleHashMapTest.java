@@ -0,0 +1,136 @@
+/*
+
+    dsh-matrix  long-addressable bit and typed object matrix implementations.
+    Copyright (c) 2004-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.matrix.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.matrix.LongDoubleProcedure;
+
+/**
+ * Unit test for OpenLongDoubleHashMap.
+ *
+ * @author  Michael Heuer
+ */
+public final class OpenLongDoubleHashMapTest
+    extends TestCase
+{
+
+    public void testConstructor()
+    {
+        assertNotNull(new OpenLongDoubleHashMap(0, 0.75f));
+        assertNotNull(new OpenLongDoubleHashMap(1000, 0.5f));
+
+        try
+        {
+            new OpenLongDoubleHashMap(-1, 0.75f);
+            fail("ctr(-1,) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new OpenLongDoubleHashMap(0, 1.0f);
+            fail("ctr(,1.0f) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testPutGetRemove()
+    {
+        OpenLongDoubleHashMap map = new OpenLongDoubleHashMap(0, 0.75f);
+        assertEquals(0, map.size());
+        assertEquals(0.0d, map.get(42L), 0.0d);
+        assertFalse(map.containsKey(42L));
+
+        map.put(42L, 1.5d);
+        assertEquals(1, map.size());
+        assertEquals(1.5d, map.get(42L), 0.0d);
+        assertTrue(map.containsKey(42L));
+
+        map.add(42L, 1.0d);
+        assertEquals(2.5d, map.get(42L), 0.0d);
+
+        map.put(42L, 0.0d);
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(42L));
+
+        map.put(Long.MAX_VALUE, 3.0d);
+        assertEquals(3.0d, map.get(Long.MAX_VALUE), 0.0d);
+        map.remove(Long.MAX_VALUE);
+        assertEquals(0, map.size());
+
+        map.put(1L, 1.0d);
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0.0d, map.get(1L), 0.0d);
+    }
+
+    public void testRandomAgainstHashMap()
+    {
+        Random random = new Random(42L);
+        OpenLongDoubleHashMap map = new OpenLongDoubleHashMap(4, 0.75f);
+        Map<Long, Double> expected = new HashMap<Long, Double>();
+
+        for (int i = 0; i < 100000; i++)
+        {
+            long key = random.nextInt(5000);
+            if (random.nextInt(3) == 0)
+            {
+                map.remove(key);
+                expected.remove(key);
+            }
+            else
+            {
+                double value = random.nextDouble() + 1.0d;
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 5000L; key++)
+        {
+            Double value = expected.get(key);
+            assertEquals((value == null) ? 0.0d : value.doubleValue(), map.get(key), 0.0d);
+        }
+
+        final Map<Long, Double> observed = new HashMap<Long, Double>();
+        map.forEach(new LongDoubleProcedure()
+            {
+                public void run(final long index, final double value)
+                {
+                    observed.put(index, value);
+                }
+            });
+        assertEquals(expected, observed);
+    }
+}
@@ -24,6 +24,9 @@
 package org.dishevelled.matrix.impl;
 
 import org.dishevelled.matrix.AbstractMatrixUtilsTest;
+import org.dishevelled.matrix.DoubleMatrix1D;
+import org.dishevelled.matrix.DoubleMatrix2D;
+import org.dishevelled.matrix.DoubleMatrix3D;
 import org.dishevelled.matrix.Matrix1D;
 import org.dishevelled.matrix.Matrix2D;
 import org.dishevelled.matrix.Matrix3D;
@@ -90,4 +93,37 @@ public final class SparseMatrixUtilsTest
         assertNotNull(matrix1);
         assertEquals(100L * 100L * 100L, matrix1.size());
     }
+
+    public void testCreateDoubleSparseMatrix1D()
+    {
+        DoubleMatrix1D matrix0 = createDoubleSparseMatrix1D(100L);
+        assertNotNull(matrix0);
+        assertEquals(100L, matrix0.size());
+
+        DoubleMatrix1D matrix1 = createDoubleSparseMatrix1D(100L, 10, 0.75f);
+        assertNotNull(matrix1);
+        assertEquals(100L, matrix1.size());
+    }
+
+    public void testCreateDoubleSparseMatrix2D()
+    {
+        DoubleMatrix2D matrix0 = createDoubleSparseMatrix2D(100L, 100L);
+        assertNotNull(matrix0);
+        assertEquals(100L * 100L, matrix0.size());
+
+        DoubleMatrix2D matrix1 = createDoubleSparseMatrix2D(100L, 100L, 10, 0.75f);
+        assertNotNull(matrix1);
+        assertEquals(100L * 100L, matrix1.size());
+    }
+
+    public void testCreateDoubleSparseMatrix3D()
+    {
+        DoubleMatrix3D matrix0 = createDoubleSparseMatrix3D(100L, 100L, 100L);
+        assertNotNull(matrix0);
+        assertEquals(100L * 100L * 100L, matrix0.size());
+
+        DoubleMatrix3D matrix1 = createDoubleSparseMatrix3D(100L, 100L, 100L, 10, 0.75f);
+        assertNotNull(matrix1);
+        assertEquals(100L * 100L * 100L, matrix1.size());
+    }
 }
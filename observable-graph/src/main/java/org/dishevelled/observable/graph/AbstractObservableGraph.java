@@ -23,6 +23,8 @@
 */
 package org.dishevelled.observable.graph;
 
+import java.util.List;
+
 import org.dishevelled.graph.Edge;
 import org.dishevelled.graph.Graph;
 import org.dishevelled.graph.Node;
@@ -240,6 +242,30 @@ public abstract class AbstractObservableGraph<N, E>
         support.fireEdgeRemoved(edge);
     }
 
+    /**
+     * Fire a graph batch change event for the specified newly created nodes to all
+     * registered <code>BatchGraphChangeListener</code>s, and a node created change event
+     * for each of the specified nodes to all other registered <code>GraphChangeListener</code>s.
+     *
+     * @param nodes list of newly created nodes
+     */
+    protected void fireNodesCreated(final List<Node<N, E>> nodes)
+    {
+        support.fireNodesCreated(nodes);
+    }
+
+    /**
+     * Fire a graph batch change event for the specified newly created edges to all
+     * registered <code>BatchGraphChangeListener</code>s, and an edge created change event
+     * for each of the specified edges to all other registered <code>GraphChangeListener</code>s.
+     *
+     * @param edges list of newly created edges
+     */
+    protected void fireEdgesCreated(final List<Edge<N, E>> edges)
+    {
+        support.fireEdgesCreated(edges);
+    }
+
     /**
      * Notify subclasses the <code>clear</code> method is about to
      * be called on the wrapped graph.
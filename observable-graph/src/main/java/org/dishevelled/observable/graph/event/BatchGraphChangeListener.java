@@ -0,0 +1,57 @@
+/*
+
+    dsh-observable-graph  Observable decorators for graph interfaces.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.observable.graph.event;
+
+/**
+ * A graph change listener that may receive notification of consecutive node or
+ * edge creations in batches.
+ *
+ * <p>Observable graphs that dispatch graph change events asynchronously coalesce
+ * consecutive node and edge creations into batches, calling {@link #nodesCreated}
+ * and {@link #edgesCreated} once per batch on listeners that implement this interface,
+ * instead of {@link #nodeCreated} and {@link #edgeCreated} once per node or edge.</p>
+ *
+ * @param <N> node value type
+ * @param <E> edge value type
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public interface BatchGraphChangeListener<N, E>
+    extends GraphChangeListener<N, E>
+{
+
+    /**
+     * Notify this listener that one or more nodes have been created in the observable graph.
+     *
+     * @param e graph batch change event
+     */
+    void nodesCreated(GraphBatchChangeEvent<N, E> e);
+
+    /**
+     * Notify this listener that one or more edges have been created in the observable graph.
+     *
+     * @param e graph batch change event
+     */
+    void edgesCreated(GraphBatchChangeEvent<N, E> e);
+}
@@ -0,0 +1,103 @@
+/*
+
+    dsh-observable-graph  Observable decorators for graph interfaces.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.observable.graph.event;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.dishevelled.graph.Edge;
+import org.dishevelled.graph.Node;
+
+import org.dishevelled.observable.graph.ObservableGraph;
+
+/**
+ * An event object representing a batch of consecutive node or edge
+ * creations made to an observable graph.
+ *
+ * @param <N> node value type
+ * @param <E> edge value type
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public class GraphBatchChangeEvent<N, E>
+    extends GraphChangeEvent<N, E>
+{
+    /** Newly created nodes. */
+    private final List<Node<N, E>> nodes;
+
+    /** Newly created edges. */
+    private final List<Edge<N, E>> edges;
+
+
+    /**
+     * Create a new graph batch change event with the specified
+     * observable graph as the event source and the specified
+     * newly created nodes and edges.
+     *
+     * @param source source of the event, must not be null
+     * @param nodes list of newly created nodes, must not be null
+     * @param edges list of newly created edges, must not be null
+     */
+    public GraphBatchChangeEvent(final ObservableGraph<N, E> source,
+                                 final List<Node<N, E>> nodes,
+                                 final List<Edge<N, E>> edges)
+    {
+        super(source);
+        if (nodes == null)
+        {
+            throw new IllegalArgumentException("nodes must not be null");
+        }
+        if (edges == null)
+        {
+            throw new IllegalArgumentException("edges must not be null");
+        }
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.edges = Collections.unmodifiableList(edges);
+    }
+
+
+    /**
+     * Return an unmodifiable list of the newly created nodes for this
+     * graph batch change event, in the order they were created.
+     *
+     * @return an unmodifiable list of the newly created nodes for this
+     *    graph batch change event
+     */
+    public final List<Node<N, E>> getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * Return an unmodifiable list of the newly created edges for this
+     * graph batch change event, in the order they were created.
+     *
+     * @return an unmodifiable list of the newly created edges for this
+     *    graph batch change event
+     */
+    public final List<Edge<N, E>> getEdges()
+    {
+        return edges;
+    }
+}
@@ -25,6 +25,9 @@ package org.dishevelled.observable.graph.event;
 
 import java.io.Serializable;
 
+import java.util.Collections;
+import java.util.List;
+
 import javax.swing.event.EventListenerList;
 
 import org.dishevelled.graph.Edge;
@@ -329,6 +332,80 @@ public class ObservableGraphChangeSupport<N, E>
         }
     }
 
+    /**
+     * Fire a graph batch change event for the specified newly created nodes to all
+     * registered <code>BatchGraphChangeListener</code>s, and a node created change event
+     * for each of the specified nodes to all other registered <code>GraphChangeListener</code>s.
+     *
+     * @param nodes list of newly created nodes
+     */
+    public void fireNodesCreated(final List<Node<N, E>> nodes)
+    {
+        Object[] listeners = listenerList.getListenerList();
+        GraphBatchChangeEvent<N, E> e = null;
+
+        for (int i = listeners.length - 2; i >= 0; i -= 2)
+        {
+            if (listeners[i] == GraphChangeListener.class)
+            {
+                if (listeners[i + 1] instanceof BatchGraphChangeListener)
+                {
+                    // lazily create the event
+                    if (e == null)
+                    {
+                        e = new GraphBatchChangeEvent<N, E>(source, nodes, Collections.<Edge<N, E>>emptyList());
+                    }
+                    ((BatchGraphChangeListener<N, E>) listeners[i + 1]).nodesCreated(e);
+                }
+                else
+                {
+                    GraphChangeListener<N, E> listener = (GraphChangeListener<N, E>) listeners[i + 1];
+                    for (Node<N, E> node : nodes)
+                    {
+                        listener.nodeCreated(new GraphChangeEvent<N, E>(source, node));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fire a graph batch change event for the specified newly created edges to all
+     * registered <code>BatchGraphChangeListener</code>s, and an edge created change event
+     * for each of the specified edges to all other registered <code>GraphChangeListener</code>s.
+     *
+     * @param edges list of newly created edges
+     */
+    public void fireEdgesCreated(final List<Edge<N, E>> edges)
+    {
+        Object[] listeners = listenerList.getListenerList();
+        GraphBatchChangeEvent<N, E> e = null;
+
+        for (int i = listeners.length - 2; i >= 0; i -= 2)
+        {
+            if (listeners[i] == GraphChangeListener.class)
+            {
+                if (listeners[i + 1] instanceof BatchGraphChangeListener)
+                {
+                    // lazily create the event
+                    if (e == null)
+                    {
+                        e = new GraphBatchChangeEvent<N, E>(source, Collections.<Node<N, E>>emptyList(), edges);
+                    }
+                    ((BatchGraphChangeListener<N, E>) listeners[i + 1]).edgesCreated(e);
+                }
+                else
+                {
+                    GraphChangeListener<N, E> listener = (GraphChangeListener<N, E>) listeners[i + 1];
+                    for (Edge<N, E> edge : edges)
+                    {
+                        listener.edgeCreated(new GraphChangeEvent<N, E>(source, edge));
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Fire a will create node create event to all registered
      * <code>VetoableGraphChangeListener</code>s.
@@ -23,6 +23,16 @@
 */
 package org.dishevelled.observable.graph.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.dishevelled.graph.Edge;
 import org.dishevelled.graph.Graph;
 import org.dishevelled.graph.Node;
@@ -36,6 +46,16 @@ import org.dishevelled.observable.graph.event.GraphChangeVetoException;
  * in <code>preXxx</code> methods and graph change events in
  * <code>postXxx</code> methods.
  *
+ * <p>By default graph change events are fired synchronously.  If an executor is
+ * specified, graph change events are instead queued to a bounded buffer and fired
+ * on the executor, in the order they were queued, so that the thread changing the
+ * graph is not slowed down by graph change listeners.  Consecutive node and edge
+ * creations are coalesced into batches, delivered to listeners that implement
+ * <code>BatchGraphChangeListener</code> as a single graph batch change event per batch.
+ * If the buffer is full, the thread changing the graph blocks until there is room;
+ * the executor must therefore not run tasks on that thread.  Vetoable graph change
+ * events are always fired synchronously.</p>
+ *
  * @param <N> node value type
  * @param <E> edge value type
  * @author  Michael Heuer
@@ -44,6 +64,30 @@ import org.dishevelled.observable.graph.event.GraphChangeVetoException;
 public final class ObservableGraphImpl<N, E>
     extends AbstractObservableGraph<N, E>
 {
+    /** Asynchronous dispatcher, if any. */
+    private final Dispatcher dispatcher;
+
+    /** Default buffer capacity for asynchronous dispatch, <code>8192</code>. */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /** Cleared event type. */
+    private static final int CLEARED = 0;
+
+    /** Node created event type. */
+    private static final int NODE_CREATED = 1;
+
+    /** Node removed event type. */
+    private static final int NODE_REMOVED = 2;
+
+    /** Edge created event type. */
+    private static final int EDGE_CREATED = 3;
+
+    /** Edge removed event type. */
+    private static final int EDGE_REMOVED = 4;
+
+    /** Maximum number of queued events fired per pass. */
+    private static final int MAX_DRAIN = 4096;
+
 
     /**
      * Create a new observable decorator for the specified graph.
@@ -53,6 +97,59 @@ public final class ObservableGraphImpl<N, E>
     public ObservableGraphImpl(final Graph<N, E> graph)
     {
         super(graph);
+        dispatcher = null;
+    }
+
+    /**
+     * Create a new observable decorator for the specified graph that fires graph
+     * change events asynchronously on the specified executor, with the default
+     * buffer capacity.
+     *
+     * @param graph graph to decorate, must not be null
+     * @param executor executor to fire graph change events on, must not be null
+     */
+    public ObservableGraphImpl(final Graph<N, E> graph, final Executor executor)
+    {
+        this(graph, executor, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new observable decorator for the specified graph that fires graph
+     * change events asynchronously on the specified executor, with the specified
+     * buffer capacity.
+     *
+     * @param graph graph to decorate, must not be null
+     * @param executor executor to fire graph change events on, must not be null
+     * @param capacity buffer capacity, must be at least <code>1</code>
+     */
+    public ObservableGraphImpl(final Graph<N, E> graph, final Executor executor, final int capacity)
+    {
+        super(graph);
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be at least one, was " + capacity);
+        }
+        dispatcher = new Dispatcher(executor, capacity);
+    }
+
+
+    /**
+     * Wait until all of the graph change events queued before this call have been fired.
+     * Returns immediately if graph change events are fired synchronously.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush()
+        throws InterruptedException
+    {
+        if (dispatcher != null)
+        {
+            dispatcher.flush();
+        }
     }
 
 
@@ -73,7 +170,14 @@ public final class ObservableGraphImpl<N, E>
     /** {@inheritDoc} */
     protected void postClear()
     {
-        fireCleared();
+        if (dispatcher == null)
+        {
+            fireCleared();
+        }
+        else
+        {
+            dispatcher.queue(CLEARED, null);
+        }
     }
 
     /** {@inheritDoc} */
@@ -93,7 +197,14 @@ public final class ObservableGraphImpl<N, E>
     /** {@inheritDoc} */
     protected void postCreateNode(final N value, final Node<N, E> node)
     {
-        fireNodeCreated(node);
+        if (dispatcher == null)
+        {
+            fireNodeCreated(node);
+        }
+        else
+        {
+            dispatcher.queue(NODE_CREATED, node);
+        }
     }
 
     /** {@inheritDoc} */
@@ -113,7 +224,14 @@ public final class ObservableGraphImpl<N, E>
     /** {@inheritDoc} */
     protected void postRemove(final Node<N, E> node)
     {
-        fireNodeRemoved(node);
+        if (dispatcher == null)
+        {
+            fireNodeRemoved(node);
+        }
+        else
+        {
+            dispatcher.queue(NODE_REMOVED, node);
+        }
     }
 
     /** {@inheritDoc} */
@@ -138,7 +256,14 @@ public final class ObservableGraphImpl<N, E>
                                   final E value,
                                   final Edge<N, E> edge)
     {
-        fireEdgeCreated(edge);
+        if (dispatcher == null)
+        {
+            fireEdgeCreated(edge);
+        }
+        else
+        {
+            dispatcher.queue(EDGE_CREATED, edge);
+        }
     }
 
     /** {@inheritDoc} */
@@ -158,6 +283,233 @@ public final class ObservableGraphImpl<N, E>
     /** {@inheritDoc} */
     protected void postRemove(final Edge<N, E> edge)
     {
-        fireEdgeRemoved(edge);
+        if (dispatcher == null)
+        {
+            fireEdgeRemoved(edge);
+        }
+        else
+        {
+            dispatcher.queue(EDGE_REMOVED, edge);
+        }
+    }
+
+    /**
+     * Queued graph change event.
+     */
+    private static final class QueuedEvent
+    {
+        /** Event type. */
+        private final int type;
+
+        /** Node or edge, if any. */
+        private final Object value;
+
+
+        /**
+         * Create a new queued graph change event.
+         *
+         * @param type event type
+         * @param value node or edge, if any
+         */
+        QueuedEvent(final int type, final Object value)
+        {
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Asynchronous dispatcher, which queues graph change events to a bounded
+     * buffer and fires them on an executor.
+     */
+    private final class Dispatcher
+        implements Runnable
+    {
+        /** Executor. */
+        private final Executor executor;
+
+        /** Bounded buffer of queued events. */
+        private final BlockingQueue<QueuedEvent> queue;
+
+        /** True if a task to fire queued events has been submitted to the executor. */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /** Number of events queued. */
+        private final AtomicLong queued = new AtomicLong();
+
+        /** Lock for the fired count. */
+        private final Object lock = new Object();
+
+        /** Number of events fired, guarded by lock. */
+        private long fired;
+
+
+        /**
+         * Create a new dispatcher.
+         *
+         * @param executor executor
+         * @param capacity buffer capacity
+         */
+        Dispatcher(final Executor executor, final int capacity)
+        {
+            this.executor = executor;
+            this.queue = new ArrayBlockingQueue<QueuedEvent>(capacity);
+        }
+
+
+        /**
+         * Queue a graph change event, blocking until there is room in the buffer.
+         *
+         * @param type event type
+         * @param value node or edge, if any
+         */
+        void queue(final int type, final Object value)
+        {
+            if (getGraphChangeListenerCount() == 0)
+            {
+                return;
+            }
+            QueuedEvent event = new QueuedEvent(type, value);
+            queued.incrementAndGet();
+            boolean interrupted = false;
+            while (!queue.offer(event))
+            {
+                schedule();
+                try
+                {
+                    queue.put(event);
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+            schedule();
+        }
+
+        /**
+         * Submit a task to fire queued events to the executor, unless one has already been submitted.
+         */
+        private void schedule()
+        {
+            if (scheduled.compareAndSet(false, true))
+            {
+                try
+                {
+                    executor.execute(this);
+                }
+                catch (RuntimeException e)
+                {
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * Wait until all of the events queued before this call have been fired.
+         *
+         * @throws InterruptedException if interrupted while waiting
+         */
+        void flush()
+            throws InterruptedException
+        {
+            long target = queued.get();
+            synchronized (lock)
+            {
+                while (fired < target)
+                {
+                    lock.wait();
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void run()
+        {
+            List<QueuedEvent> events = new ArrayList<QueuedEvent>();
+            try
+            {
+                while (queue.drainTo(events, MAX_DRAIN) > 0)
+                {
+                    try
+                    {
+                        fire(events);
+                    }
+                    finally
+                    {
+                        synchronized (lock)
+                        {
+                            fired += events.size();
+                            lock.notifyAll();
+                        }
+                        events.clear();
+                    }
+                }
+            }
+            finally
+            {
+                scheduled.set(false);
+                if (!queue.isEmpty())
+                {
+                    schedule();
+                }
+            }
+        }
+
+        /**
+         * Fire the specified queued events in order, coalescing consecutive node
+         * and edge creations into batches.
+         *
+         * @param events queued events
+         */
+        @SuppressWarnings("unchecked")
+        private void fire(final List<QueuedEvent> events)
+        {
+            int size = events.size();
+            int i = 0;
+            while (i < size)
+            {
+                QueuedEvent event = events.get(i);
+                switch (event.type)
+                {
+                case NODE_CREATED:
+                    List<Node<N, E>> nodes = new ArrayList<Node<N, E>>();
+                    while (i < size && events.get(i).type == NODE_CREATED)
+                    {
+                        nodes.add((Node<N, E>) events.get(i).value);
+                        i++;
+                    }
+                    fireNodesCreated(nodes);
+                    break;
+                case EDGE_CREATED:
+                    List<Edge<N, E>> edges = new ArrayList<Edge<N, E>>();
+                    while (i < size && events.get(i).type == EDGE_CREATED)
+                    {
+                        edges.add((Edge<N, E>) events.get(i).value);
+                        i++;
+                    }
+                    fireEdgesCreated(edges);
+                    break;
+                case NODE_REMOVED:
+                    fireNodeRemoved((Node<N, E>) event.value);
+                    i++;
+                    break;
+                case EDGE_REMOVED:
+                    fireEdgeRemoved((Edge<N, E>) event.value);
+                    i++;
+                    break;
+                default:
+                    fireCleared();
+                    i++;
+                    break;
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -23,6 +23,8 @@
 */
 package org.dishevelled.observable.graph.impl;
 
+import java.util.concurrent.Executor;
+
 import org.dishevelled.graph.Graph;
 
 import org.dishevelled.observable.graph.ObservableGraph;
@@ -56,4 +58,22 @@ public final class ObservableGraphUtils
     {
         return new ObservableGraphImpl<N, E>(graph);
     }
-}
\ No newline at end of file
+
+    /**
+     * Create and return a new observable decorator for the specified graph that fires
+     * graph change events asynchronously on the specified executor.  Vetoable graph change
+     * events are still fired synchronously.
+     *
+     * @see ObservableGraphImpl#ObservableGraphImpl(Graph, Executor)
+     * @param <N> node value type
+     * @param <E> edge value type
+     * @param graph graph to decorate, must not be null
+     * @param executor executor to fire graph change events on, must not be null
+     * @return a new observable decorator for the specified graph that fires
+     *    graph change events asynchronously on the specified executor
+     */
+    public static <N, E> ObservableGraph<N, E> observableGraph(final Graph<N, E> graph, final Executor executor)
+    {
+        return new ObservableGraphImpl<N, E>(graph, executor);
+    }
+}
@@ -0,0 +1,265 @@
+/*
+
+    dsh-observable-graph  Observable decorators for graph interfaces.
+    Copyright (c) 2008-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.observable.graph.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.dishevelled.graph.Edge;
+import org.dishevelled.graph.Graph;
+import org.dishevelled.graph.Node;
+
+import org.dishevelled.graph.impl.GraphImpl;
+import org.dishevelled.graph.impl.GraphUtils;
+
+import org.dishevelled.observable.graph.AbstractObservableGraphTest;
+import org.dishevelled.observable.graph.ObservableGraph;
+
+import org.dishevelled.observable.graph.event.BatchGraphChangeListener;
+import org.dishevelled.observable.graph.event.GraphBatchChangeEvent;
+import org.dishevelled.observable.graph.event.GraphChangeEvent;
+import org.dishevelled.observable.graph.event.GraphChangeListener;
+
+/**
+ * Unit test for ObservableGraphImpl with asynchronous dispatch.
+ *
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public final class AsyncObservableGraphImplTest
+    extends AbstractObservableGraphTest
+{
+    /** Executor that runs tasks on the calling thread. */
+    private static final Executor DIRECT = new Executor()
+        {
+            /** {@inheritDoc} */
+            public void execute(final Runnable task)
+            {
+                task.run();
+            }
+        };
+
+
+    /** {@inheritDoc} */
+    protected <N, E> ObservableGraph<N, E> createEmptyObservableGraph()
+    {
+        return new ObservableGraphImpl<N, E>(new GraphImpl<N, E>(), DIRECT);
+    }
+
+    /** {@inheritDoc} */
+    protected <N, E> ObservableGraph<N, E> createFullObservableGraph(final N nodeValue, final E edgeValue)
+    {
+        Graph<N, E> fullGraph = GraphUtils.createGraph();
+        Node<N, E> source = fullGraph.createNode(nodeValue);
+        Node<N, E> target = fullGraph.createNode(nodeValue);
+        fullGraph.createEdge(source, target, edgeValue);
+        return new ObservableGraphImpl<N, E>(fullGraph, DIRECT);
+    }
+
+    public void testConstructor()
+    {
+        try
+        {
+            new ObservableGraphImpl<String, String>(new GraphImpl<String, String>(), null);
+            fail("ctr(,null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new ObservableGraphImpl<String, String>(new GraphImpl<String, String>(), DIRECT, 0);
+            fail("ctr(,,0) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testBatches()
+    {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        Executor deferred = new Executor()
+            {
+                /** {@inheritDoc} */
+                public void execute(final Runnable task)
+                {
+                    tasks.add(task);
+                }
+            };
+        ObservableGraph<String, String> graph =
+            new ObservableGraphImpl<String, String>(new GraphImpl<String, String>(), deferred);
+        RecordingListener listener = new RecordingListener();
+        graph.addGraphChangeListener(listener);
+
+        Node<String, String> node0 = graph.createNode("foo");
+        Node<String, String> node1 = graph.createNode("bar");
+        Node<String, String> node2 = graph.createNode("baz");
+        Edge<String, String> edge0 = graph.createEdge(node0, node1, "qux");
+        graph.createEdge(node1, node2, "garply");
+        graph.remove(edge0);
+        graph.createNode("waldo");
+
+        assertTrue(listener.getEvents().isEmpty());
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+
+        assertEquals(4, listener.getEvents().size());
+        assertEquals("nodesCreated 3", listener.getEvents().get(0));
+        assertEquals("edgesCreated 2", listener.getEvents().get(1));
+        assertEquals("edgeRemoved qux", listener.getEvents().get(2));
+        assertEquals("nodesCreated 1", listener.getEvents().get(3));
+        assertTrue(tasks.isEmpty());
+    }
+
+    public void testBackPressure()
+        throws Exception
+    {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try
+        {
+            ObservableGraphImpl<Integer, String> graph =
+                new ObservableGraphImpl<Integer, String>(new GraphImpl<Integer, String>(), executorService, 4);
+            final List<Integer> values = new ArrayList<Integer>();
+            graph.addGraphChangeListener(new GraphChangeListener<Integer, String>()
+                {
+                    /** {@inheritDoc} */
+                    public void cleared(final GraphChangeEvent<Integer, String> e)
+                    {
+                        // empty
+                    }
+
+                    /** {@inheritDoc} */
+                    public void nodeCreated(final GraphChangeEvent<Integer, String> e)
+                    {
+                        values.add(e.getNode().getValue());
+                    }
+
+                    /** {@inheritDoc} */
+                    public void edgeCreated(final GraphChangeEvent<Integer, String> e)
+                    {
+                        // empty
+                    }
+
+                    /** {@inheritDoc} */
+                    public void nodeRemoved(final GraphChangeEvent<Integer, String> e)
+                    {
+                        // empty
+                    }
+
+                    /** {@inheritDoc} */
+                    public void edgeRemoved(final GraphChangeEvent<Integer, String> e)
+                    {
+                        // empty
+                    }
+                });
+
+            for (int i = 0; i < 1000; i++)
+            {
+                graph.createNode(Integer.valueOf(i));
+            }
+            graph.flush();
+
+            assertEquals(1000, values.size());
+            for (int i = 0; i < 1000; i++)
+            {
+                assertEquals(Integer.valueOf(i), values.get(i));
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Batch graph change listener that records the events it hears.
+     */
+    private static final class RecordingListener
+        implements BatchGraphChangeListener<String, String>
+    {
+        /** Events heard. */
+        private final List<String> events = new ArrayList<String>();
+
+
+        /**
+         * Return the events heard.
+         *
+         * @return the events heard
+         */
+        List<String> getEvents()
+        {
+            return events;
+        }
+
+        /** {@inheritDoc} */
+        public void cleared(final GraphChangeEvent<String, String> e)
+        {
+            events.add("cleared");
+        }
+
+        /** {@inheritDoc} */
+        public void nodeCreated(final GraphChangeEvent<String, String> e)
+        {
+            events.add("nodeCreated " + e.getNode().getValue());
+        }
+
+        /** {@inheritDoc} */
+        public void nodesCreated(final GraphBatchChangeEvent<String, String> e)
+        {
+            events.add("nodesCreated " + e.getNodes().size());
+        }
+
+        /** {@inheritDoc} */
+        public void edgeCreated(final GraphChangeEvent<String, String> e)
+        {
+            events.add("edgeCreated " + e.getEdge().getValue());
+        }
+
+        /** {@inheritDoc} */
+        public void edgesCreated(final GraphBatchChangeEvent<String, String> e)
+        {
+            events.add("edgesCreated " + e.getEdges().size());
+        }
+
+        /** {@inheritDoc} */
+        public void nodeRemoved(final GraphChangeEvent<String, String> e)
+        {
+            events.add("nodeRemoved " + e.getNode().getValue());
+        }
+
+        /** {@inheritDoc} */
+        public void edgeRemoved(final GraphChangeEvent<String, String> e)
+        {
+            events.add("edgeRemoved " + e.getEdge().getValue());
+        }
+    }
+}
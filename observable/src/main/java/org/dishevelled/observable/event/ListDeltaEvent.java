@@ -0,0 +1,164 @@
+/*
+
+    dsh-observable  Observable decorators for collection and map interfaces.
+    Copyright (c) 2003-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.observable.event;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.dishevelled.observable.ObservableList;
+
+/**
+ * An event object representing a change made to
+ * an observable list, carrying the sequence of changes made
+ * to the list.
+ *
+ * <p>Each change removes zero or more elements at an index and
+ * then inserts zero or more elements at the same index.  The index of each
+ * change refers to the list as it was after all of the previous changes
+ * in the sequence were applied, so a copy of the list as it was before
+ * the event may be brought up to date by applying the changes in order.</p>
+ *
+ * @param <E> list element type
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public class ListDeltaEvent<E>
+    extends ListChangeEvent<E>
+{
+    /** Changes. */
+    private final List<Change<E>> changes;
+
+
+    /**
+     * Create a new list delta event with the specified
+     * observable list as the event source.
+     *
+     * @param source source of the event
+     * @param changes list of changes, must not be null
+     */
+    public ListDeltaEvent(final ObservableList<E> source, final List<Change<E>> changes)
+    {
+        super(source);
+        if (changes == null)
+        {
+            throw new IllegalArgumentException("changes must not be null");
+        }
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+
+    /**
+     * Return an unmodifiable view of the changes made to the list, in
+     * the order they were made.
+     *
+     * @return an unmodifiable view of the changes made to the list
+     */
+    public final List<Change<E>> getChanges()
+    {
+        return changes;
+    }
+
+
+    /**
+     * A single change made to an observable list.
+     *
+     * @param <E> list element type
+     */
+    public static final class Change<E>
+    {
+        /** Index. */
+        private final int index;
+
+        /** Elements removed at the index. */
+        private final List<E> removed;
+
+        /** Elements inserted at the index. */
+        private final List<E> added;
+
+
+        /**
+         * Create a new change with the specified index, removed elements,
+         * and added elements.
+         *
+         * @param index index, must be <code>&gt;= 0</code>
+         * @param removed elements removed at the index, must not be null
+         * @param added elements inserted at the index, must not be null
+         */
+        public Change(final int index, final List<E> removed, final List<E> added)
+        {
+            if (index < 0)
+            {
+                throw new IllegalArgumentException("index must be at least zero");
+            }
+            if (removed == null)
+            {
+                throw new IllegalArgumentException("removed must not be null");
+            }
+            if (added == null)
+            {
+                throw new IllegalArgumentException("added must not be null");
+            }
+            this.index = index;
+            this.removed = Collections.unmodifiableList(removed);
+            this.added = Collections.unmodifiableList(added);
+        }
+
+
+        /**
+         * Return the index of this change.
+         *
+         * @return the index of this change
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+
+        /**
+         * Return an unmodifiable view of the elements removed at the index.
+         *
+         * @return an unmodifiable view of the elements removed at the index
+         */
+        public List<E> getRemoved()
+        {
+            return removed;
+        }
+
+        /**
+         * Return an unmodifiable view of the elements inserted at the index.
+         *
+         * @return an unmodifiable view of the elements inserted at the index
+         */
+        public List<E> getAdded()
+        {
+            return added;
+        }
+
+        /** {@inheritDoc} */
+        public String toString()
+        {
+            return "Change(" + index + ", removed=" + removed + ", added=" + added + ")";
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+
+    dsh-observable  Observable decorators for collection and map interfaces.
+    Copyright (c) 2003-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.observable.event;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.dishevelled.observable.ObservableSortedMap;
+
+/**
+ * An event object representing a change made to
+ * an observable sorted map, carrying the old and new values of each
+ * key whose mapping was changed.
+ *
+ * <p>A key present in the old values but not in the new values was
+ * removed, a key present in the new values but not in the old values was
+ * added, and a key present in both had its value replaced.  Keys whose
+ * mapping was changed and then restored within a single batch of changes
+ * do not appear in either map.</p>
+ *
+ * @param <K> sorted map key type
+ * @param <V> sorted map value type
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public class SortedMapDeltaEvent<K, V>
+    extends SortedMapChangeEvent<K, V>
+{
+    /** Old values of changed keys. */
+    private final Map<K, V> oldValues;
+
+    /** New values of changed keys. */
+    private final Map<K, V> newValues;
+
+
+    /**
+     * Create a new sorted map delta event with the specified
+     * observable sorted map as the event source.
+     *
+     * @param source source of the event
+     * @param oldValues old values of keys removed or replaced by this change, must not be null
+     * @param newValues new values of keys added or replaced by this change, must not be null
+     */
+    public SortedMapDeltaEvent(final ObservableSortedMap<K, V> source,
+                               final Map<K, V> oldValues,
+                               final Map<K, V> newValues)
+    {
+        super(source);
+        if (oldValues == null)
+        {
+            throw new IllegalArgumentException("oldValues must not be null");
+        }
+        if (newValues == null)
+        {
+            throw new IllegalArgumentException("newValues must not be null");
+        }
+        this.oldValues = Collections.unmodifiableMap(oldValues);
+        this.newValues = Collections.unmodifiableMap(newValues);
+    }
+
+
+    /**
+     * Return an unmodifiable view of the old values of keys removed or replaced by this change.
+     *
+     * @return an unmodifiable view of the old values of keys removed or replaced by this change
+     */
+    public final Map<K, V> getOldValues()
+    {
+        return oldValues;
+    }
+
+    /**
+     * Return an unmodifiable view of the new values of keys added or replaced by this change.
+     *
+     * @return an unmodifiable view of the new values of keys added or replaced by this change
+     */
+    public final Map<K, V> getNewValues()
+    {
+        return newValues;
+    }
+}
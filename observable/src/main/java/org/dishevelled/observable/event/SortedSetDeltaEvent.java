@@ -0,0 +1,99 @@
+/*
+
+    dsh-observable  Observable decorators for collection and map interfaces.
+    Copyright (c) 2003-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.observable.event;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.dishevelled.observable.ObservableSortedSet;
+
+/**
+ * An event object representing a change made to
+ * an observable sorted set, carrying the elements added to and removed
+ * from the sorted set by the change.
+ *
+ * <p>Elements that were added and then removed again (or removed and then
+ * added again) within a single batch of changes do not appear in either
+ * collection.</p>
+ *
+ * @param <E> sorted set element type
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public class SortedSetDeltaEvent<E>
+    extends SortedSetChangeEvent<E>
+{
+    /** Elements added by this change. */
+    private final Set<E> added;
+
+    /** Elements removed by this change. */
+    private final Set<E> removed;
+
+
+    /**
+     * Create a new sorted set delta event with the specified
+     * observable sorted set as the event source.
+     *
+     * @param source source of the event
+     * @param added elements added by this change, must not be null
+     * @param removed elements removed by this change, must not be null
+     */
+    public SortedSetDeltaEvent(final ObservableSortedSet<E> source,
+                               final Set<E> added,
+                               final Set<E> removed)
+    {
+        super(source);
+        if (added == null)
+        {
+            throw new IllegalArgumentException("added must not be null");
+        }
+        if (removed == null)
+        {
+            throw new IllegalArgumentException("removed must not be null");
+        }
+        this.added = Collections.unmodifiableSet(added);
+        this.removed = Collections.unmodifiableSet(removed);
+    }
+
+
+    /**
+     * Return an unmodifiable view of the elements added by this change.
+     *
+     * @return an unmodifiable view of the elements added by this change
+     */
+    public final Set<E> getAdded()
+    {
+        return added;
+    }
+
+    /**
+     * Return an unmodifiable view of the elements removed by this change.
+     *
+     * @return an unmodifiable view of the elements removed by this change
+     */
+    public final Set<E> getRemoved()
+    {
+        return removed;
+    }
+}
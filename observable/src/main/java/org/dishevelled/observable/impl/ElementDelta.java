@@ -0,0 +1,517 @@
+/*
+
+    dsh-observable  Observable decorators for collection and map interfaces.
+    Copyright (c) 2003-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.observable.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the elements added to and removed from an observable collection,
+ * set, or queue, accumulating them across a batch of changes.
+ *
+ * <p>Before each change the observable calls one of the <code>beforeXxx</code>
+ * methods, which captures the elements the change may add or remove, and after the
+ * change it calls {@link #after()}, which compares the size of the collection to
+ * confirm which of those elements were actually added or removed.  Only bulk
+ * removals and <code>clear</code> need to look at the existing elements, and
+ * nothing is captured at all unless there are listeners or a batch of changes
+ * is in progress.</p>
+ *
+ * @param <E> element type
+ */
+abstract class ElementDelta<E>
+{
+    /** Observed collection. */
+    private final Collection<E> collection;
+
+    /** True if the observed collection does not contain duplicate elements. */
+    private final boolean distinct;
+
+    /** Elements added. */
+    private final Collection<E> added;
+
+    /** Elements removed. */
+    private final Collection<E> removed;
+
+    /** Elements the current change may add or remove, if any. */
+    private List<E> pending;
+
+    /** True if the current change may add elements, false if it may remove them. */
+    private boolean adding;
+
+    /** Size of the observed collection before the current change. */
+    private int size;
+
+    /** Element most recently returned by a tracked iterator that is being removed. */
+    private E iteratorElement;
+
+    /** Batch depth. */
+    private int depth;
+
+    /** True if a change has been made since the last event. */
+    private boolean changed;
+
+
+    /**
+     * Create a new element delta for the specified collection.
+     *
+     * @param collection observed collection
+     * @param distinct true if the observed collection does not contain duplicate elements
+     */
+    ElementDelta(final Collection<E> collection, final boolean distinct)
+    {
+        this.collection = collection;
+        this.distinct = distinct;
+        added = distinct ? new LinkedHashSet<E>() : new ArrayList<E>();
+        removed = distinct ? new LinkedHashSet<E>() : new ArrayList<E>();
+    }
+
+
+    /**
+     * Capture the state needed to record an <code>add</code> change.
+     *
+     * @param e element to add
+     */
+    void beforeAdd(final E e)
+    {
+        if (!isRecording())
+        {
+            return;
+        }
+        before(true, Collections.singletonList(e));
+    }
+
+    /**
+     * Capture the state needed to record an <code>addAll</code> change.
+     *
+     * @param coll elements to add
+     */
+    void beforeAddAll(final Collection<? extends E> coll)
+    {
+        if (!isRecording())
+        {
+            return;
+        }
+        if (distinct)
+        {
+            List<E> candidates = new ArrayList<E>(coll.size());
+            for (E e : new LinkedHashSet<E>(coll))
+            {
+                if (!collection.contains(e))
+                {
+                    candidates.add(e);
+                }
+            }
+            before(true, candidates);
+        }
+        else
+        {
+            before(true, new ArrayList<E>(coll));
+        }
+    }
+
+    /**
+     * Capture the state needed to record a <code>remove</code> change.
+     *
+     * @param o element to remove
+     */
+    void beforeRemove(final Object o)
+    {
+        if (!isRecording())
+        {
+            return;
+        }
+        if (collection.contains(o))
+        {
+            // an element equal to o is removed
+            @SuppressWarnings("unchecked")
+            E e = (E) o;
+            before(false, Collections.singletonList(e));
+        }
+        else
+        {
+            before(false, Collections.<E>emptyList());
+        }
+    }
+
+    /**
+     * Capture the state needed to record a <code>removeAll</code> change.
+     *
+     * @param coll elements to remove
+     */
+    void beforeRemoveAll(final Collection<?> coll)
+    {
+        if (!isRecording())
+        {
+            return;
+        }
+        List<E> candidates = new ArrayList<E>();
+        if (distinct && coll.size() < collection.size())
+        {
+            for (Object o : new LinkedHashSet<Object>(coll))
+            {
+                if (collection.contains(o))
+                {
+                    @SuppressWarnings("unchecked")
+                    E e = (E) o;
+                    candidates.add(e);
+                }
+            }
+        }
+        else
+        {
+            for (E e : collection)
+            {
+                if (coll.contains(e))
+                {
+                    candidates.add(e);
+                }
+            }
+        }
+        before(false, candidates);
+    }
+
+    /**
+     * Capture the state needed to record a <code>retainAll</code> change.
+     *
+     * @param coll elements to retain
+     */
+    void beforeRetainAll(final Collection<?> coll)
+    {
+        if (!isRecording())
+        {
+            return;
+        }
+        List<E> candidates = new ArrayList<E>();
+        for (E e : collection)
+        {
+            if (!coll.contains(e))
+            {
+                candidates.add(e);
+            }
+        }
+        before(false, candidates);
+    }
+
+    /**
+     * Capture the state needed to record a <code>clear</code> change.
+     */
+    void beforeClear()
+    {
+        if (!isRecording())
+        {
+            return;
+        }
+        before(false, new ArrayList<E>(collection));
+    }
+
+    /**
+     * Capture the state needed to record the removal of the element
+     * most recently returned by a tracked iterator.
+     */
+    void beforeIteratorRemove()
+    {
+        if (!isRecording())
+        {
+            return;
+        }
+        before(false, Collections.singletonList(iteratorElement));
+    }
+
+    /**
+     * Capture the state needed to record the removal of the specified
+     * element, for example the head of a queue.
+     *
+     * @param e element to remove, may be null if there is no such element
+     */
+    void beforeRemoveElement(final E e)
+    {
+        if (!isRecording())
+        {
+            return;
+        }
+        before(false, (e == null) ? Collections.<E>emptyList() : Collections.singletonList(e));
+    }
+
+    /**
+     * Return true if the elements added and removed by the next change should be
+     * recorded, that is if there are listeners or a batch of changes is in progress.
+     *
+     * @return true if the elements added and removed by the next change should be recorded
+     */
+    private boolean isRecording()
+    {
+        if (depth > 0 || hasListeners())
+        {
+            return true;
+        }
+        pending = null;
+        return false;
+    }
+
+    /**
+     * Return true if the observed collection has change listeners.
+     *
+     * @return true if the observed collection has change listeners
+     */
+    abstract boolean hasListeners();
+
+    /**
+     * Capture the specified elements and the size of the observed collection.
+     *
+     * @param adding true if the change may add the elements, false if it may remove them
+     * @param candidates elements the change may add or remove
+     */
+    private void before(final boolean adding, final List<E> candidates)
+    {
+        this.adding = adding;
+        this.pending = candidates;
+        this.size = collection.size();
+    }
+
+    /**
+     * Record the elements added or removed by the current change, if the state
+     * needed to do so was captured before the change.
+     */
+    void after()
+    {
+        changed = true;
+        if (pending == null)
+        {
+            return;
+        }
+        int delta = collection.size() - size;
+        if (adding)
+        {
+            if (delta == pending.size())
+            {
+                for (E e : pending)
+                {
+                    recordAdd(e);
+                }
+            }
+            else if (delta > 0)
+            {
+                // some of the candidates were rejected
+                for (E e : pending)
+                {
+                    if (collection.contains(e))
+                    {
+                        recordAdd(e);
+                    }
+                }
+            }
+        }
+        else
+        {
+            if (-delta == pending.size())
+            {
+                for (E e : pending)
+                {
+                    recordRemove(e);
+                }
+            }
+            else if (delta < 0)
+            {
+                for (E e : pending)
+                {
+                    if (!collection.contains(e))
+                    {
+                        recordRemove(e);
+                    }
+                }
+            }
+        }
+        pending = null;
+    }
+
+    /**
+     * Record the specified element as added, cancelling out an earlier removal if any.
+     *
+     * @param e element
+     */
+    private void recordAdd(final E e)
+    {
+        if (!removed.remove(e))
+        {
+            added.add(e);
+        }
+    }
+
+    /**
+     * Record the specified element as removed, cancelling out an earlier addition if any.
+     *
+     * @param e element
+     */
+    private void recordRemove(final E e)
+    {
+        if (!added.remove(e))
+        {
+            removed.add(e);
+        }
+    }
+
+    /**
+     * Return a copy of the elements added since the last call to {@link #reset()}.
+     *
+     * @return a copy of the elements added
+     */
+    Collection<E> added()
+    {
+        return new ArrayList<E>(added);
+    }
+
+    /**
+     * Return a copy of the elements removed since the last call to {@link #reset()}.
+     *
+     * @return a copy of the elements removed
+     */
+    Collection<E> removed()
+    {
+        return new ArrayList<E>(removed);
+    }
+
+    /**
+     * Return a copy of the elements added since the last call to {@link #reset()}, as a set.
+     *
+     * @return a copy of the elements added, as a set
+     */
+    Set<E> addedSet()
+    {
+        return new LinkedHashSet<E>(added);
+    }
+
+    /**
+     * Return a copy of the elements removed since the last call to {@link #reset()}, as a set.
+     *
+     * @return a copy of the elements removed, as a set
+     */
+    Set<E> removedSet()
+    {
+        return new LinkedHashSet<E>(removed);
+    }
+
+    /**
+     * Return true if a change has been made since the last call to {@link #reset()}.
+     *
+     * @return true if a change has been made since the last call to {@link #reset()}
+     */
+    boolean isChanged()
+    {
+        return changed;
+    }
+
+    /**
+     * Forget the elements added and removed so far.
+     */
+    void reset()
+    {
+        added.clear();
+        removed.clear();
+        pending = null;
+        changed = false;
+    }
+
+    /**
+     * Start a batch of changes.
+     */
+    void beginBatch()
+    {
+        depth++;
+    }
+
+    /**
+     * End a batch of changes.
+     *
+     * @return true if the outermost batch of changes has ended
+     * @throws IllegalStateException if no batch of changes has been started
+     */
+    boolean endBatch()
+    {
+        if (depth == 0)
+        {
+            throw new IllegalStateException("no batch of changes has been started");
+        }
+        depth--;
+        return depth == 0;
+    }
+
+    /**
+     * Return true if a batch of changes is in progress.
+     *
+     * @return true if a batch of changes is in progress
+     */
+    boolean isBatching()
+    {
+        return depth > 0;
+    }
+
+    /**
+     * Decorate the specified iterator so that the element it most recently
+     * returned is available to {@link #beforeIteratorRemove()}.
+     *
+     * @param iterator iterator to decorate
+     * @return the specified iterator decorated to track the element it most recently returned
+     */
+    Iterator<E> track(final Iterator<E> iterator)
+    {
+        return new Iterator<E>()
+            {
+                /** Element most recently returned. */
+                private E last;
+
+                /** {@inheritDoc} */
+                public boolean hasNext()
+                {
+                    return iterator.hasNext();
+                }
+
+                /** {@inheritDoc} */
+                public E next()
+                {
+                    last = iterator.next();
+                    return last;
+                }
+
+                /** {@inheritDoc} */
+                public void remove()
+                {
+                    iteratorElement = last;
+                    try
+                    {
+                        iterator.remove();
+                    }
+                    finally
+                    {
+                        iteratorElement = null;
+                    }
+                }
+            };
+    }
+}
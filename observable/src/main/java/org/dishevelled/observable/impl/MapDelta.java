@@ -0,0 +1,439 @@
+/*
+
+    dsh-observable  Observable decorators for collection and map interfaces.
+    Copyright (c) 2003-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.observable.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the old and new values of keys changed in an observable map,
+ * accumulating them across a batch of changes.
+ *
+ * <p>Before each change the observable map calls one of the <code>beforeXxx</code>
+ * methods, which captures the current values of the keys the change may affect,
+ * and after the change it calls {@link #after()}.  Changes made through the values
+ * view, and bulk removals through the entry set view, do not identify the keys they
+ * affect, so for those a copy of the map is taken before the change and compared to
+ * the map after the change.  Nothing is captured at all unless there are listeners or
+ * a batch of changes is in progress.</p>
+ *
+ * @param <K> map key type
+ * @param <V> map value type
+ */
+abstract class MapDelta<K, V>
+{
+    /** Marker for a key that was not present. */
+    private static final Object ABSENT = new Object();
+
+    /** Observed map. */
+    private final Map<K, V> map;
+
+    /** Original values of changed keys, or <code>ABSENT</code>. */
+    private final Map<K, Object> original = new LinkedHashMap<K, Object>();
+
+    /** Copy of the observed map before the current change, if any. */
+    private Map<K, V> snapshot;
+
+    /** Key of the entry an iterator is about to remove or update, if any. */
+    private K trackedKey;
+
+    /** True if an iterator is about to remove or update an entry. */
+    private boolean tracked;
+
+    /** Batch depth. */
+    private int depth;
+
+    /** True if a change has been made since the last event. */
+    private boolean changed;
+
+
+    /**
+     * Create a new map delta for the specified map.
+     *
+     * @param map observed map
+     */
+    MapDelta(final Map<K, V> map)
+    {
+        this.map = map;
+    }
+
+
+    /**
+     * Return true if the keys changed by the next change should be recorded,
+     * that is if there are listeners or a batch of changes is in progress.
+     *
+     * @return true if the keys changed by the next change should be recorded
+     */
+    private boolean isRecording()
+    {
+        snapshot = null;
+        return depth > 0 || hasListeners();
+    }
+
+    /**
+     * Return true if the observed map has change listeners.
+     *
+     * @return true if the observed map has change listeners
+     */
+    abstract boolean hasListeners();
+
+    /**
+     * Capture the current value of the specified key, unless it has already been captured.
+     *
+     * @param key key
+     */
+    private void capture(final K key)
+    {
+        if (!original.containsKey(key))
+        {
+            original.put(key, map.containsKey(key) ? map.get(key) : ABSENT);
+        }
+    }
+
+    /**
+     * Capture the current value of the specified key, if it is present.
+     *
+     * @param key key
+     */
+    private void captureIfPresent(final Object key)
+    {
+        if (map.containsKey(key))
+        {
+            // a key equal to key is present
+            @SuppressWarnings("unchecked")
+            K k = (K) key;
+            capture(k);
+        }
+    }
+
+    /**
+     * Capture the state needed to record a <code>put</code> change.
+     *
+     * @param key key to put
+     */
+    void beforePut(final K key)
+    {
+        if (isRecording())
+        {
+            capture(key);
+        }
+    }
+
+    /**
+     * Capture the state needed to record a <code>remove</code> change.
+     *
+     * @param key key to remove
+     */
+    void beforeRemove(final Object key)
+    {
+        if (isRecording())
+        {
+            captureIfPresent(key);
+        }
+    }
+
+    /**
+     * Capture the state needed to record the removal of the specified entry.
+     *
+     * @param o entry to remove
+     */
+    void beforeRemoveEntry(final Object o)
+    {
+        if (isRecording() && (o instanceof Map.Entry))
+        {
+            captureIfPresent(((Map.Entry<?, ?>) o).getKey());
+        }
+    }
+
+    /**
+     * Capture the state needed to record a <code>putAll</code> change.
+     *
+     * @param keys keys to put
+     */
+    void beforePutAll(final Collection<? extends K> keys)
+    {
+        if (isRecording())
+        {
+            for (K key : keys)
+            {
+                capture(key);
+            }
+        }
+    }
+
+    /**
+     * Capture the state needed to record the removal of the specified keys.
+     *
+     * @param keys keys to remove
+     */
+    void beforeRemoveKeys(final Collection<?> keys)
+    {
+        if (isRecording())
+        {
+            if (keys.size() < map.size())
+            {
+                for (Object key : keys)
+                {
+                    captureIfPresent(key);
+                }
+            }
+            else
+            {
+                for (K key : map.keySet())
+                {
+                    if (keys.contains(key))
+                    {
+                        capture(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Capture the state needed to record the removal of all but the specified keys.
+     *
+     * @param keys keys to retain
+     */
+    void beforeRetainKeys(final Collection<?> keys)
+    {
+        if (isRecording())
+        {
+            for (K key : map.keySet())
+            {
+                if (!keys.contains(key))
+                {
+                    capture(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Capture the state needed to record a <code>clear</code> change.
+     */
+    void beforeClear()
+    {
+        if (isRecording())
+        {
+            for (K key : map.keySet())
+            {
+                capture(key);
+            }
+        }
+    }
+
+    /**
+     * Capture the state needed to record a change to the key most recently
+     * tracked by an iterator, or to any key if none was tracked.
+     */
+    void beforeTrackedKey()
+    {
+        if (tracked)
+        {
+            beforePut(trackedKey);
+        }
+        else
+        {
+            beforeSnapshot();
+        }
+    }
+
+    /**
+     * Capture the state needed to record a change to any key.
+     */
+    void beforeSnapshot()
+    {
+        if (isRecording())
+        {
+            snapshot = new HashMap<K, V>(map);
+        }
+    }
+
+    /**
+     * Record the keys changed by the current change, if it was compared to a copy
+     * of the observed map taken before the change.
+     */
+    void after()
+    {
+        changed = true;
+        if (snapshot != null)
+        {
+            for (Map.Entry<K, V> entry : snapshot.entrySet())
+            {
+                K key = entry.getKey();
+                if (!original.containsKey(key) && !(map.containsKey(key) && equals(entry.getValue(), map.get(key))))
+                {
+                    original.put(key, entry.getValue());
+                }
+            }
+            if (map.size() > snapshot.size())
+            {
+                for (K key : map.keySet())
+                {
+                    if (!snapshot.containsKey(key) && !original.containsKey(key))
+                    {
+                        original.put(key, ABSENT);
+                    }
+                }
+            }
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Track the key of the entry an iterator is about to remove or update.
+     *
+     * @param key key
+     */
+    void track(final K key)
+    {
+        trackedKey = key;
+        tracked = true;
+    }
+
+    /**
+     * Stop tracking the key of the entry an iterator was about to remove or update.
+     */
+    void untrack()
+    {
+        trackedKey = null;
+        tracked = false;
+    }
+
+    /**
+     * Return the old values of keys removed or replaced since the last call to {@link #reset()}.
+     *
+     * @return the old values of keys removed or replaced
+     */
+    Map<K, V> oldValues()
+    {
+        Map<K, V> oldValues = new LinkedHashMap<K, V>();
+        for (Map.Entry<K, Object> entry : original.entrySet())
+        {
+            K key = entry.getKey();
+            Object value = entry.getValue();
+            if (value != ABSENT && !(map.containsKey(key) && equals(value, map.get(key))))
+            {
+                // value is not the marker so it is a V
+                @SuppressWarnings("unchecked")
+                V v = (V) value;
+                oldValues.put(key, v);
+            }
+        }
+        return oldValues;
+    }
+
+    /**
+     * Return the new values of keys added or replaced since the last call to {@link #reset()}.
+     *
+     * @return the new values of keys added or replaced
+     */
+    Map<K, V> newValues()
+    {
+        Map<K, V> newValues = new LinkedHashMap<K, V>();
+        for (Map.Entry<K, Object> entry : original.entrySet())
+        {
+            K key = entry.getKey();
+            Object value = entry.getValue();
+            if (map.containsKey(key))
+            {
+                V v = map.get(key);
+                if (value == ABSENT || !equals(value, v))
+                {
+                    newValues.put(key, v);
+                }
+            }
+        }
+        return newValues;
+    }
+
+    /**
+     * Return true if a change has been made since the last call to {@link #reset()}.
+     *
+     * @return true if a change has been made since the last call to {@link #reset()}
+     */
+    boolean isChanged()
+    {
+        return changed;
+    }
+
+    /**
+     * Forget the keys changed so far.
+     */
+    void reset()
+    {
+        original.clear();
+        snapshot = null;
+        changed = false;
+    }
+
+    /**
+     * Start a batch of changes.
+     */
+    void beginBatch()
+    {
+        depth++;
+    }
+
+    /**
+     * End a batch of changes.
+     *
+     * @return true if the outermost batch of changes has ended
+     * @throws IllegalStateException if no batch of changes has been started
+     */
+    boolean endBatch()
+    {
+        if (depth == 0)
+        {
+            throw new IllegalStateException("no batch of changes has been started");
+        }
+        depth--;
+        return depth == 0;
+    }
+
+    /**
+     * Return true if a batch of changes is in progress.
+     *
+     * @return true if a batch of changes is in progress
+     */
+    boolean isBatching()
+    {
+        return depth > 0;
+    }
+
+    /**
+     * Return true if the specified values are equal.
+     *
+     * @param value1 first value
+     * @param value2 second value
+     * @return true if the specified values are equal
+     */
+    private static boolean equals(final Object value1, final Object value2)
+    {
+        return (value1 == null) ? (value2 == null) : value1.equals(value2);
+    }
+}
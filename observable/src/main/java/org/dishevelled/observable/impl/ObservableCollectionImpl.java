@@ -24,11 +24,12 @@
 package org.dishevelled.observable.impl;
 
 import java.util.Collection;
+import java.util.Iterator;
 
 import org.dishevelled.observable.AbstractObservableCollection;
 
-import org.dishevelled.observable.event.CollectionChangeEvent;
 import org.dishevelled.observable.event.CollectionChangeVetoException;
+import org.dishevelled.observable.event.CollectionDeltaEvent;
 import org.dishevelled.observable.event.VetoableCollectionChangeEvent;
 
 /**
@@ -45,8 +46,8 @@ import org.dishevelled.observable.event.VetoableCollectionChangeEvent;
 public class ObservableCollectionImpl<E>
     extends AbstractObservableCollection<E>
 {
-    /** Cached collection change event. */
-    private final CollectionChangeEvent<E> changeEvent;
+    /** Elements added and removed since the last collection delta event. */
+    private final ElementDelta<E> delta;
 
     /** Cached vetoable collection change event. */
     private final VetoableCollectionChangeEvent<E> vetoableChangeEvent;
@@ -61,17 +62,73 @@ public class ObservableCollectionImpl<E>
     public ObservableCollectionImpl(final Collection<E> collection)
     {
         super(collection);
-        changeEvent = new CollectionChangeEvent<E>(this);
+        delta = new ElementDelta<E>(this, false)
+            {
+                /** {@inheritDoc} */
+                boolean hasListeners()
+                {
+                    return getCollectionChangeListenerCount() > 0;
+                }
+            };
         vetoableChangeEvent = new VetoableCollectionChangeEvent<E>(this);
     }
 
 
+    /**
+     * Start a batch of changes.  Changes made to this observable collection until the matching
+     * call to {@link #endBatch()} are coalesced into a single collection delta event, fired when
+     * the outermost batch ends.  Vetoable collection change events are still fired for each change.
+     * Batches may be nested, and should be ended in a <code>finally</code> block.
+     */
+    public void beginBatch()
+    {
+        delta.beginBatch();
+    }
+
+    /**
+     * End a batch of changes, firing a single collection delta event for all of the changes
+     * made during the batch if this ends the outermost batch and any changes were made.
+     *
+     * @throws IllegalStateException if no batch of changes has been started
+     */
+    public void endBatch()
+    {
+        if (delta.endBatch() && delta.isChanged())
+        {
+            fireDelta();
+        }
+    }
+
+    /**
+     * Fire a collection delta event for the changes made since the last event,
+     * unless a batch of changes is in progress.
+     */
+    private void fireDelta()
+    {
+        if (!delta.isBatching())
+        {
+            if (getCollectionChangeListenerCount() > 0)
+            {
+                fireCollectionChanged(new CollectionDeltaEvent<E>(this, delta.added(), delta.removed()));
+            }
+            delta.reset();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Iterator<E> iterator()
+    {
+        return delta.track(super.iterator());
+    }
+
+
     /** {@inheritDoc} */
     protected boolean preAdd(final E e)
     {
         try
         {
             fireCollectionWillChange(vetoableChangeEvent);
+            delta.beforeAdd(e);
             return true;
         }
         catch (CollectionChangeVetoException ex)
@@ -83,7 +140,8 @@ public class ObservableCollectionImpl<E>
     /** {@inheritDoc} */
     protected void postAdd(final E e)
     {
-        fireCollectionChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -92,6 +150,7 @@ public class ObservableCollectionImpl<E>
         try
         {
             fireCollectionWillChange(vetoableChangeEvent);
+            delta.beforeAddAll(coll);
             return true;
         }
         catch (CollectionChangeVetoException e)
@@ -103,7 +162,8 @@ public class ObservableCollectionImpl<E>
     /** {@inheritDoc} */
     protected void postAddAll(final Collection<? extends E> coll)
     {
-        fireCollectionChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -112,6 +172,7 @@ public class ObservableCollectionImpl<E>
         try
         {
             fireCollectionWillChange(vetoableChangeEvent);
+            delta.beforeClear();
             return true;
         }
         catch (CollectionChangeVetoException e)
@@ -123,7 +184,8 @@ public class ObservableCollectionImpl<E>
     /** {@inheritDoc} */
     protected void postClear()
     {
-        fireCollectionChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -132,6 +194,7 @@ public class ObservableCollectionImpl<E>
         try
         {
             fireCollectionWillChange(vetoableChangeEvent);
+            delta.beforeRemove(o);
             return true;
         }
         catch (CollectionChangeVetoException e)
@@ -143,7 +206,8 @@ public class ObservableCollectionImpl<E>
     /** {@inheritDoc} */
     protected void postRemove(final Object o)
     {
-        fireCollectionChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -152,6 +216,7 @@ public class ObservableCollectionImpl<E>
         try
         {
             fireCollectionWillChange(vetoableChangeEvent);
+            delta.beforeRemoveAll(coll);
             return true;
         }
         catch (CollectionChangeVetoException e)
@@ -163,7 +228,8 @@ public class ObservableCollectionImpl<E>
     /** {@inheritDoc} */
     protected void postRemoveAll(final Collection<?> coll)
     {
-        fireCollectionChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -172,6 +238,7 @@ public class ObservableCollectionImpl<E>
         try
         {
             fireCollectionWillChange(vetoableChangeEvent);
+            delta.beforeRetainAll(coll);
             return true;
         }
         catch (CollectionChangeVetoException e)
@@ -183,7 +250,8 @@ public class ObservableCollectionImpl<E>
     /** {@inheritDoc} */
     protected void postRetainAll(final Collection<?> coll)
     {
-        fireCollectionChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -192,6 +260,7 @@ public class ObservableCollectionImpl<E>
         try
         {
             fireCollectionWillChange(vetoableChangeEvent);
+            delta.beforeIteratorRemove();
             return true;
         }
         catch (CollectionChangeVetoException e)
@@ -203,6 +272,7 @@ public class ObservableCollectionImpl<E>
     /** {@inheritDoc} */
     protected void postIteratorRemove()
     {
-        fireCollectionChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 }
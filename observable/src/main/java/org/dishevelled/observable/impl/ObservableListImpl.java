@@ -23,21 +23,28 @@
 */
 package org.dishevelled.observable.impl;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 
 import org.dishevelled.observable.AbstractObservableList;
 
-import org.dishevelled.observable.event.ListChangeEvent;
 import org.dishevelled.observable.event.ListChangeVetoException;
+import org.dishevelled.observable.event.ListDeltaEvent;
 import org.dishevelled.observable.event.VetoableListChangeEvent;
 
 /**
  * Observable list decorator that fires empty
  * vetoable list change events in <code>preXxx</code> methods and
- * empty list change events in <code>postXxx</code> methods.
- * Observable list listeners may query the source of the events to determine
- * what may or may not have changed due to the event.
+ * list delta events in <code>postXxx</code> methods.
+ * Observable list listeners may cast the events they receive to <code>ListDeltaEvent</code>
+ * to determine which elements were inserted or removed and at which indices, including
+ * changes made through iterators and sublists.  Changes made between calls to
+ * {@link #beginBatch()} and {@link #endBatch()} are coalesced into a single event.
  *
  * @param <E> list element type
  * @author  Michael Heuer
@@ -46,12 +53,39 @@ import org.dishevelled.observable.event.VetoableListChangeEvent;
 public class ObservableListImpl<E>
     extends AbstractObservableList<E>
 {
-    /** Cached list change event. */
-    private final ListChangeEvent<E> changeEvent;
-
     /** Cached vetoable list change event. */
     private final VetoableListChangeEvent<E> vetoableChangeEvent;
 
+    /** Changes made since the last list delta event. */
+    private final List<PendingChange<E>> changes = new ArrayList<PendingChange<E>>();
+
+    /** Changes the current mutation is expected to make, if any. */
+    private List<PendingChange<E>> pending;
+
+    /** Size of the decorated list before the current mutation. */
+    private int size;
+
+    /** List the current mutation is made through, the decorated list if null. */
+    private List<E> target;
+
+    /** Offset of the list the current mutation is made through in the decorated list. */
+    private int offset;
+
+    /** Index of the element an iterator is about to remove or replace. */
+    private int iteratorIndex = -1;
+
+    /** Element an iterator is about to remove or replace. */
+    private E iteratorElement;
+
+    /** Element an iterator is about to replace the element with. */
+    private E iteratorValue;
+
+    /** Batch depth. */
+    private int depth;
+
+    /** True if a change has been made since the last list delta event. */
+    private boolean changed;
+
 
     /**
      * Create a new observable decorator for the specified
@@ -62,10 +96,359 @@ public class ObservableListImpl<E>
     public ObservableListImpl(final List<E> list)
     {
         super(list);
-        changeEvent = new ListChangeEvent<E>(this);
         vetoableChangeEvent = new VetoableListChangeEvent<E>(this);
     }
 
+    /**
+     * Start a batch of changes.  Changes made to this observable list until the matching
+     * call to {@link #endBatch()} are coalesced into a single list delta event, fired when
+     * the outermost batch ends.  Vetoable list change events are still fired for each change.
+     * Batches may be nested, and should be ended in a <code>finally</code> block.
+     */
+    public void beginBatch()
+    {
+        depth++;
+    }
+
+    /**
+     * End a batch of changes, firing a single list delta event for all of the changes
+     * made during the batch if this ends the outermost batch and any changes were made.
+     *
+     * @throws IllegalStateException if no batch of changes has been started
+     */
+    public void endBatch()
+    {
+        if (depth == 0)
+        {
+            throw new IllegalStateException("no batch of changes has been started");
+        }
+        depth--;
+        if (depth == 0 && changed)
+        {
+            fireDelta();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Iterator<E> iterator()
+    {
+        return new TrackingIterator(super.iterator(), 0);
+    }
+
+    /** {@inheritDoc} */
+    public ListIterator<E> listIterator()
+    {
+        return new TrackingListIterator(super.listIterator(), 0);
+    }
+
+    /** {@inheritDoc} */
+    public ListIterator<E> listIterator(final int index)
+    {
+        return new TrackingListIterator(super.listIterator(index), 0);
+    }
+
+    /** {@inheritDoc} */
+    public List<E> subList(final int fromIndex, final int toIndex)
+    {
+        return new SubList(super.subList(fromIndex, toIndex), fromIndex);
+    }
+
+    /**
+     * Return true if the changes made by the next mutation should be recorded,
+     * that is if there are listeners or a batch of changes is in progress.
+     *
+     * @return true if the changes made by the next mutation should be recorded
+     */
+    private boolean isRecording()
+    {
+        pending = null;
+        return depth > 0 || getListChangeListenerCount() > 0;
+    }
+
+    /**
+     * Return the list the current mutation is made through.
+     *
+     * @return the list the current mutation is made through
+     */
+    private List<E> target()
+    {
+        return (target == null) ? getList() : target;
+    }
+
+    /**
+     * Expect the current mutation to remove the specified elements at the specified
+     * index and then insert the specified elements at the same index.
+     *
+     * @param index index in the list the current mutation is made through
+     * @param removed elements to remove
+     * @param added elements to insert
+     */
+    private void expect(final int index, final List<E> removed, final List<E> added)
+    {
+        List<PendingChange<E>> expected = new ArrayList<PendingChange<E>>(1);
+        expected.add(new PendingChange<E>(offset + index, removed, added));
+        expect(expected);
+    }
+
+    /**
+     * Expect the current mutation to make the specified changes.
+     *
+     * @param expected changes, with indices in the decorated list
+     */
+    private void expect(final List<PendingChange<E>> expected)
+    {
+        pending = expected;
+        size = getList().size();
+    }
+
+    /**
+     * Expect an <code>add</code> mutation.
+     *
+     * @param e element to add
+     */
+    private void expectAdd(final E e)
+    {
+        if (isRecording())
+        {
+            expect(target().size(), new ArrayList<E>(0), singleton(e));
+        }
+    }
+
+    /**
+     * Expect an <code>add(int, E)</code> mutation.
+     *
+     * @param index index
+     * @param e element to add
+     */
+    private void expectAddAtIndex(final int index, final E e)
+    {
+        if (isRecording() && index >= 0 && index <= target().size())
+        {
+            expect(index, new ArrayList<E>(0), singleton(e));
+        }
+    }
+
+    /**
+     * Expect an <code>addAll</code> mutation.
+     *
+     * @param coll elements to add
+     */
+    private void expectAddAll(final Collection<? extends E> coll)
+    {
+        if (isRecording())
+        {
+            expect(target().size(), new ArrayList<E>(0), new ArrayList<E>(coll));
+        }
+    }
+
+    /**
+     * Expect an <code>addAll(int, Collection)</code> mutation.
+     *
+     * @param index index
+     * @param coll elements to add
+     */
+    private void expectAddAllAtIndex(final int index, final Collection<? extends E> coll)
+    {
+        if (isRecording() && index >= 0 && index <= target().size())
+        {
+            expect(index, new ArrayList<E>(0), new ArrayList<E>(coll));
+        }
+    }
+
+    /**
+     * Expect a <code>set</code> mutation.
+     *
+     * @param index index
+     * @param e element to set
+     */
+    private void expectSet(final int index, final E e)
+    {
+        if (isRecording() && index >= 0 && index < target().size())
+        {
+            expect(index, singleton(target().get(index)), singleton(e));
+        }
+    }
+
+    /**
+     * Expect a <code>clear</code> mutation.
+     */
+    private void expectClear()
+    {
+        if (isRecording())
+        {
+            expect(0, new ArrayList<E>(target()), new ArrayList<E>(0));
+        }
+    }
+
+    /**
+     * Expect a <code>remove(int)</code> mutation.
+     *
+     * @param index index
+     */
+    private void expectRemoveIndex(final int index)
+    {
+        if (isRecording() && index >= 0 && index < target().size())
+        {
+            expect(index, singleton(target().get(index)), new ArrayList<E>(0));
+        }
+    }
+
+    /**
+     * Expect a <code>remove(Object)</code> mutation.
+     *
+     * @param o element to remove
+     */
+    private void expectRemove(final Object o)
+    {
+        if (isRecording())
+        {
+            int index = target().indexOf(o);
+            if (index >= 0)
+            {
+                expect(index, singleton(target().get(index)), new ArrayList<E>(0));
+            }
+        }
+    }
+
+    /**
+     * Expect a <code>removeAll</code> or <code>retainAll</code> mutation, as one
+     * change for each run of adjacent elements removed.
+     *
+     * @param coll elements to remove or retain
+     * @param remove true to remove the elements in <code>coll</code>, false to retain them
+     */
+    private void expectRemoveAll(final Collection<?> coll, final boolean remove)
+    {
+        if (isRecording())
+        {
+            List<PendingChange<E>> expected = new ArrayList<PendingChange<E>>();
+            PendingChange<E> run = null;
+            int index = offset;
+            for (E e : target())
+            {
+                if (coll.contains(e) == remove)
+                {
+                    if (run == null)
+                    {
+                        run = new PendingChange<E>(index, new ArrayList<E>(), new ArrayList<E>(0));
+                        expected.add(run);
+                    }
+                    run.removed.add(e);
+                }
+                else
+                {
+                    run = null;
+                    index++;
+                }
+            }
+            expect(expected);
+        }
+    }
+
+    /**
+     * Expect an iterator to remove or replace the element it most recently returned.
+     *
+     * @param replace true if the element is to be replaced, false if it is to be removed
+     */
+    private void expectIteratorChange(final boolean replace)
+    {
+        if (isRecording() && iteratorIndex >= 0)
+        {
+            List<PendingChange<E>> expected = new ArrayList<PendingChange<E>>(1);
+            expected.add(new PendingChange<E>(iteratorIndex, singleton(iteratorElement),
+                                              replace ? singleton(iteratorValue) : new ArrayList<E>(0)));
+            expect(expected);
+        }
+    }
+
+    /**
+     * Record the changes made by the current mutation, if they were expected, and fire
+     * a list delta event unless a batch of changes is in progress.
+     */
+    private void after()
+    {
+        changed = true;
+        if (pending != null)
+        {
+            int expectedSize = size;
+            for (PendingChange<E> change : pending)
+            {
+                expectedSize += change.added.size() - change.removed.size();
+            }
+            if (getList().size() == expectedSize)
+            {
+                for (PendingChange<E> change : pending)
+                {
+                    record(change);
+                }
+            }
+            pending = null;
+        }
+        if (depth == 0)
+        {
+            fireDelta();
+        }
+    }
+
+    /**
+     * Record the specified change, merging it into the previous change where possible.
+     *
+     * @param change change to record
+     */
+    private void record(final PendingChange<E> change)
+    {
+        if (!changes.isEmpty())
+        {
+            int last = changes.size() - 1;
+            PendingChange<E> previous = changes.get(last);
+            if (previous.merge(change))
+            {
+                if (previous.isEmpty())
+                {
+                    changes.remove(last);
+                }
+                return;
+            }
+        }
+        if (!change.isEmpty())
+        {
+            changes.add(change);
+        }
+    }
+
+    /**
+     * Fire a list delta event for the changes made since the last event.
+     */
+    private void fireDelta()
+    {
+        if (getListChangeListenerCount() > 0)
+        {
+            List<ListDeltaEvent.Change<E>> delta = new ArrayList<ListDeltaEvent.Change<E>>(changes.size());
+            for (PendingChange<E> change : changes)
+            {
+                delta.add(new ListDeltaEvent.Change<E>(change.index, change.removed, change.added));
+            }
+            fireListChanged(new ListDeltaEvent<E>(this, delta));
+        }
+        changes.clear();
+        changed = false;
+    }
+
+    /**
+     * Return a new modifiable list containing only the specified element.
+     *
+     * @param <T> element type
+     * @param e element
+     * @return a new modifiable list containing only the specified element
+     */
+    private static <T> List<T> singleton(final T e)
+    {
+        List<T> list = new ArrayList<T>(1);
+        list.add(e);
+        return list;
+    }
+
+
 
     /** {@inheritDoc} */
     protected boolean preAdd(final E e)
@@ -73,6 +456,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectAdd(e);
             return true;
         }
         catch (ListChangeVetoException ex)
@@ -84,7 +468,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postAdd(final E e)
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -93,6 +477,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectAddAtIndex(index, e);
             return true;
         }
         catch (ListChangeVetoException ex)
@@ -104,7 +489,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postAddAtIndex(final int index, final E e)
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -113,6 +498,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectAddAll(coll);
             return true;
         }
         catch (ListChangeVetoException e)
@@ -124,7 +510,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postAddAll(final Collection<? extends E> coll)
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -133,6 +519,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectAddAllAtIndex(index, coll);
             return true;
         }
         catch (ListChangeVetoException e)
@@ -144,7 +531,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postAddAllAtIndex(final int index, final Collection<? extends E> coll)
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -153,6 +540,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectSet(index, e);
             return true;
         }
         catch (ListChangeVetoException ex)
@@ -164,7 +552,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postSet(final int index, final E e)
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -173,6 +561,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectClear();
             return true;
         }
         catch (ListChangeVetoException e)
@@ -184,7 +573,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postClear()
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -193,6 +582,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectRemoveIndex(index);
             return true;
         }
         catch (ListChangeVetoException e)
@@ -204,7 +594,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postRemoveIndex(final int index)
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -213,6 +603,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectRemove(o);
             return true;
         }
         catch (ListChangeVetoException e)
@@ -224,7 +615,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postRemove(final Object o)
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -233,6 +624,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectRemoveAll(coll, true);
             return true;
         }
         catch (ListChangeVetoException e)
@@ -244,7 +636,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postRemoveAll(final Collection<?> coll)
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -253,6 +645,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectRemoveAll(coll, false);
             return true;
         }
         catch (ListChangeVetoException e)
@@ -264,7 +657,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postRetainAll(final Collection<?> coll)
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -273,6 +666,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectIteratorChange(false);
             return true;
         }
         catch (ListChangeVetoException e)
@@ -284,7 +678,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postIteratorRemove()
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -293,6 +687,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectIteratorChange(false);
             return true;
         }
         catch (ListChangeVetoException e)
@@ -304,7 +699,7 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postListIteratorRemove()
     {
-        fireListChanged(changeEvent);
+        after();
     }
 
     /** {@inheritDoc} */
@@ -313,6 +708,7 @@ public class ObservableListImpl<E>
         try
         {
             fireListWillChange(vetoableChangeEvent);
+            expectIteratorChange(true);
             return true;
         }
         catch (ListChangeVetoException e)
@@ -324,6 +720,561 @@ public class ObservableListImpl<E>
     /** {@inheritDoc} */
     protected void postListIteratorSet()
     {
-        fireListChanged(changeEvent);
+        after();
+    }
+
+
+    /**
+     * Change made to the decorated list, accumulated until the next list delta event.
+     *
+     * @param <E> list element type
+     */
+    private static final class PendingChange<E>
+    {
+        /** Index in the decorated list. */
+        private int index;
+
+        /** Elements removed at the index. */
+        private final List<E> removed;
+
+        /** Elements inserted at the index. */
+        private final List<E> added;
+
+
+        /**
+         * Create a new pending change.
+         *
+         * @param index index in the decorated list
+         * @param removed elements removed at the index
+         * @param added elements inserted at the index
+         */
+        PendingChange(final int index, final List<E> removed, final List<E> added)
+        {
+            this.index = index;
+            this.removed = removed;
+            this.added = added;
+        }
+
+
+        /**
+         * Return true if this change does not remove or insert any elements.
+         *
+         * @return true if this change does not remove or insert any elements
+         */
+        boolean isEmpty()
+        {
+            return removed.isEmpty() && added.isEmpty();
+        }
+
+        /**
+         * Merge the specified change, made after this change, into this change if
+         * it only touches elements inserted by this change or only removes elements
+         * adjacent to the elements removed by this change.
+         *
+         * @param change change made after this change
+         * @return true if the specified change was merged into this change
+         */
+        boolean merge(final PendingChange<E> change)
+        {
+            int end = index + added.size();
+            if (change.index >= index && change.index + change.removed.size() <= end)
+            {
+                // replace the affected elements inserted by this change
+                List<E> affected = added.subList(change.index - index, change.index - index + change.removed.size());
+                affected.clear();
+                affected.addAll(change.added);
+                return true;
+            }
+            if (added.isEmpty() && change.added.isEmpty())
+            {
+                if (change.index == index)
+                {
+                    removed.addAll(change.removed);
+                    return true;
+                }
+                if (change.index + change.removed.size() == index)
+                {
+                    removed.addAll(0, change.removed);
+                    index = change.index;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Iterator that tracks the index of the element it most recently returned.
+     */
+    private class TrackingIterator
+        implements Iterator<E>
+    {
+        /** Iterator to decorate. */
+        private final Iterator<E> iterator;
+
+        /** Offset of the iterated list in the decorated list. */
+        private final int offset;
+
+        /** Index of the next element. */
+        private int cursor;
+
+        /** Index of the element most recently returned, or <code>-1</code> if none. */
+        private int last = -1;
+
+        /** Element most recently returned. */
+        private E element;
+
+
+        /**
+         * Create a new tracking iterator.
+         *
+         * @param iterator iterator to decorate
+         * @param offset offset of the iterated list in the decorated list
+         */
+        TrackingIterator(final Iterator<E> iterator, final int offset)
+        {
+            this.iterator = iterator;
+            this.offset = offset;
+        }
+
+
+        /** {@inheritDoc} */
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        /** {@inheritDoc} */
+        public E next()
+        {
+            element = iterator.next();
+            last = cursor;
+            cursor++;
+            return element;
+        }
+
+        /** {@inheritDoc} */
+        public void remove()
+        {
+            iteratorIndex = (last < 0) ? -1 : offset + last;
+            iteratorElement = element;
+            try
+            {
+                iterator.remove();
+                cursor = last;
+                last = -1;
+            }
+            finally
+            {
+                iteratorIndex = -1;
+                iteratorElement = null;
+            }
+        }
+    }
+
+    /**
+     * List iterator that tracks the index of the element it most recently returned.
+     */
+    private class TrackingListIterator
+        implements ListIterator<E>
+    {
+        /** List iterator to decorate. */
+        private final ListIterator<E> listIterator;
+
+        /** Offset of the iterated list in the decorated list. */
+        private final int offset;
+
+        /** Index of the element most recently returned, or <code>-1</code> if none. */
+        private int last = -1;
+
+        /** Element most recently returned. */
+        private E element;
+
+
+        /**
+         * Create a new tracking list iterator.
+         *
+         * @param listIterator list iterator to decorate
+         * @param offset offset of the iterated list in the decorated list
+         */
+        TrackingListIterator(final ListIterator<E> listIterator, final int offset)
+        {
+            this.listIterator = listIterator;
+            this.offset = offset;
+        }
+
+
+        /** {@inheritDoc} */
+        public boolean hasNext()
+        {
+            return listIterator.hasNext();
+        }
+
+        /** {@inheritDoc} */
+        public E next()
+        {
+            int index = listIterator.nextIndex();
+            element = listIterator.next();
+            last = index;
+            return element;
+        }
+
+        /** {@inheritDoc} */
+        public boolean hasPrevious()
+        {
+            return listIterator.hasPrevious();
+        }
+
+        /** {@inheritDoc} */
+        public E previous()
+        {
+            int index = listIterator.previousIndex();
+            element = listIterator.previous();
+            last = index;
+            return element;
+        }
+
+        /** {@inheritDoc} */
+        public int nextIndex()
+        {
+            return listIterator.nextIndex();
+        }
+
+        /** {@inheritDoc} */
+        public int previousIndex()
+        {
+            return listIterator.previousIndex();
+        }
+
+        /** {@inheritDoc} */
+        public void remove()
+        {
+            iteratorIndex = (last < 0) ? -1 : offset + last;
+            iteratorElement = element;
+            try
+            {
+                listIterator.remove();
+                last = -1;
+            }
+            finally
+            {
+                iteratorIndex = -1;
+                iteratorElement = null;
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void set(final E e)
+        {
+            iteratorIndex = (last < 0) ? -1 : offset + last;
+            iteratorElement = element;
+            iteratorValue = e;
+            try
+            {
+                listIterator.set(e);
+                element = e;
+            }
+            finally
+            {
+                iteratorIndex = -1;
+                iteratorElement = null;
+                iteratorValue = null;
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void add(final E e)
+        {
+            try
+            {
+                fireListWillChange(vetoableChangeEvent);
+            }
+            catch (ListChangeVetoException ex)
+            {
+                return;
+            }
+            if (isRecording())
+            {
+                List<PendingChange<E>> expected = new ArrayList<PendingChange<E>>(1);
+                expected.add(new PendingChange<E>(offset + listIterator.nextIndex(), new ArrayList<E>(0), singleton(e)));
+                expect(expected);
+            }
+            listIterator.add(e);
+            last = -1;
+            after();
+        }
+    }
+
+    /**
+     * Sublist view that makes the offset of each mutation in the decorated list
+     * available to the <code>preXxx</code> methods.
+     */
+    private class SubList
+        extends AbstractList<E>
+    {
+        /** Observable sublist to decorate. */
+        private final List<E> subList;
+
+        /** Offset of the sublist in the decorated list. */
+        private final int subListOffset;
+
+        /** Target before the current mutation. */
+        private List<E> previousTarget;
+
+        /** Offset before the current mutation. */
+        private int previousOffset;
+
+
+        /**
+         * Create a new sublist view.
+         *
+         * @param subList observable sublist to decorate
+         * @param subListOffset offset of the sublist in the decorated list
+         */
+        SubList(final List<E> subList, final int subListOffset)
+        {
+            this.subList = subList;
+            this.subListOffset = subListOffset;
+        }
+
+
+        /**
+         * Make this sublist the target of the current mutation.
+         */
+        private void enter()
+        {
+            previousTarget = target;
+            previousOffset = offset;
+            target = subList;
+            offset = subListOffset;
+        }
+
+        /**
+         * Restore the target from before the current mutation.
+         */
+        private void exit()
+        {
+            target = previousTarget;
+            offset = previousOffset;
+            previousTarget = null;
+        }
+
+        /** {@inheritDoc} */
+        public E get(final int index)
+        {
+            return subList.get(index);
+        }
+
+        /** {@inheritDoc} */
+        public int size()
+        {
+            return subList.size();
+        }
+
+        /** {@inheritDoc} */
+        public boolean isEmpty()
+        {
+            return subList.isEmpty();
+        }
+
+        /** {@inheritDoc} */
+        public boolean contains(final Object o)
+        {
+            return subList.contains(o);
+        }
+
+        /** {@inheritDoc} */
+        public boolean containsAll(final Collection<?> coll)
+        {
+            return subList.containsAll(coll);
+        }
+
+        /** {@inheritDoc} */
+        public int indexOf(final Object o)
+        {
+            return subList.indexOf(o);
+        }
+
+        /** {@inheritDoc} */
+        public int lastIndexOf(final Object o)
+        {
+            return subList.lastIndexOf(o);
+        }
+
+        /** {@inheritDoc} */
+        public Object[] toArray()
+        {
+            return subList.toArray();
+        }
+
+        /** {@inheritDoc} */
+        public <T> T[] toArray(final T[] a)
+        {
+            return subList.toArray(a);
+        }
+
+        /** {@inheritDoc} */
+        public boolean add(final E e)
+        {
+            enter();
+            try
+            {
+                return subList.add(e);
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void add(final int index, final E e)
+        {
+            enter();
+            try
+            {
+                subList.add(index, e);
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public boolean addAll(final Collection<? extends E> coll)
+        {
+            enter();
+            try
+            {
+                return subList.addAll(coll);
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public boolean addAll(final int index, final Collection<? extends E> coll)
+        {
+            enter();
+            try
+            {
+                return subList.addAll(index, coll);
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public E set(final int index, final E e)
+        {
+            enter();
+            try
+            {
+                return subList.set(index, e);
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void clear()
+        {
+            enter();
+            try
+            {
+                subList.clear();
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public E remove(final int index)
+        {
+            enter();
+            try
+            {
+                return subList.remove(index);
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public boolean remove(final Object o)
+        {
+            enter();
+            try
+            {
+                return subList.remove(o);
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public boolean removeAll(final Collection<?> coll)
+        {
+            enter();
+            try
+            {
+                return subList.removeAll(coll);
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public boolean retainAll(final Collection<?> coll)
+        {
+            enter();
+            try
+            {
+                return subList.retainAll(coll);
+            }
+            finally
+            {
+                exit();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public Iterator<E> iterator()
+        {
+            return new TrackingIterator(subList.iterator(), subListOffset);
+        }
+
+        /** {@inheritDoc} */
+        public ListIterator<E> listIterator()
+        {
+            return new TrackingListIterator(subList.listIterator(), subListOffset);
+        }
+
+        /** {@inheritDoc} */
+        public ListIterator<E> listIterator(final int index)
+        {
+            return new TrackingListIterator(subList.listIterator(index), subListOffset);
+        }
+
+        /** {@inheritDoc} */
+        public List<E> subList(final int fromIndex, final int toIndex)
+        {
+            return new SubList(subList.subList(fromIndex, toIndex), subListOffset + fromIndex);
+        }
     }
 }
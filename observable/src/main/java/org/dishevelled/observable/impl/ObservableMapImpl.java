@@ -24,20 +24,23 @@
 package org.dishevelled.observable.impl;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 import org.dishevelled.observable.AbstractObservableMap;
 
-import org.dishevelled.observable.event.MapChangeEvent;
 import org.dishevelled.observable.event.MapChangeVetoException;
+import org.dishevelled.observable.event.MapDeltaEvent;
 import org.dishevelled.observable.event.VetoableMapChangeEvent;
 
 /**
  * Observable map decorator that fires empty
  * vetoable map change events in <code>preXxx</code> methods and
- * empty map change events in <code>postXxx</code> methods.
- * Observable map listeners may query the source of the events to determine
- * what may or may not have changed due to the event.
+ * map delta events in <code>postXxx</code> methods.
+ * Observable map listeners may cast the events they receive to <code>MapDeltaEvent</code>
+ * to determine the old and new values of each key whose mapping was changed.  Changes made
+ * between calls to {@link #beginBatch()} and {@link #endBatch()} are coalesced into a single event.
  *
  * @param <K> map key type
  * @param <V> map value type
@@ -47,8 +50,8 @@ import org.dishevelled.observable.event.VetoableMapChangeEvent;
 public class ObservableMapImpl<K, V>
     extends AbstractObservableMap<K, V>
 {
-    /** Cached map change event. */
-    private final MapChangeEvent<K, V> changeEvent;
+    /** Keys changed since the last map delta event. */
+    private final MapDelta<K, V> delta;
 
     /** Cached vetoable map change event. */
     private final VetoableMapChangeEvent<K, V> vetoableChangeEvent;
@@ -63,17 +66,79 @@ public class ObservableMapImpl<K, V>
     public ObservableMapImpl(final Map<K, V> map)
     {
         super(map);
-        changeEvent = new MapChangeEvent<K, V>(this);
+        delta = new MapDelta<K, V>(this)
+            {
+                /** {@inheritDoc} */
+                boolean hasListeners()
+                {
+                    return getMapChangeListenerCount() > 0;
+                }
+            };
         vetoableChangeEvent = new VetoableMapChangeEvent<K, V>(this);
     }
 
 
+    /**
+     * Start a batch of changes.  Changes made to this observable map until the matching
+     * call to {@link #endBatch()} are coalesced into a single map delta event, fired when
+     * the outermost batch ends.  Vetoable map change events are still fired for each change.
+     * Batches may be nested, and should be ended in a <code>finally</code> block.
+     */
+    public void beginBatch()
+    {
+        delta.beginBatch();
+    }
+
+    /**
+     * End a batch of changes, firing a single map delta event for all of the changes
+     * made during the batch if this ends the outermost batch and any changes were made.
+     *
+     * @throws IllegalStateException if no batch of changes has been started
+     */
+    public void endBatch()
+    {
+        if (delta.endBatch() && delta.isChanged())
+        {
+            fireDelta();
+        }
+    }
+
+    /**
+     * Fire a map delta event for the changes made since the last event,
+     * unless a batch of changes is in progress.
+     */
+    private void fireDelta()
+    {
+        if (!delta.isBatching())
+        {
+            if (getMapChangeListenerCount() > 0)
+            {
+                fireMapChanged(new MapDeltaEvent<K, V>(this, delta.oldValues(), delta.newValues()));
+            }
+            delta.reset();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Set<K> keySet()
+    {
+        return new TrackingKeySet(getMap().keySet());
+    }
+
+    /** {@inheritDoc} */
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new TrackingEntrySet(getMap().entrySet());
+    }
+
+
     /** {@inheritDoc} */
     protected boolean preClear()
     {
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeClear();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -85,7 +150,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postClear()
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -94,6 +160,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforePut(key);
             return true;
         }
         catch (MapChangeVetoException e)
@@ -105,7 +172,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postPut(final K key, final V value)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -114,6 +182,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforePutAll(map.keySet());
             return true;
         }
         catch (MapChangeVetoException e)
@@ -125,7 +194,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postPutAll(final Map<? extends K, ? extends V> map)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -134,6 +204,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeRemove(key);
             return true;
         }
         catch (MapChangeVetoException e)
@@ -145,7 +216,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postRemove(final Object key)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -154,6 +226,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeSnapshot();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -165,7 +238,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postValuesClear()
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -174,6 +248,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeSnapshot();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -185,7 +260,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postValuesRemove(final Object value)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -194,6 +270,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeSnapshot();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -205,7 +282,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postValuesRemoveAll(final Collection<?> values)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -214,6 +292,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeSnapshot();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -225,7 +304,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postValuesRetainAll(final Collection<?> values)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -234,6 +314,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeSnapshot();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -245,7 +326,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postValuesIteratorRemove()
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -254,6 +336,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeClear();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -265,7 +348,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postKeySetClear()
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -274,6 +358,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeRemove(value);
             return true;
         }
         catch (MapChangeVetoException e)
@@ -285,7 +370,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postKeySetRemove(final Object value)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -294,6 +380,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeRemoveKeys(keySet);
             return true;
         }
         catch (MapChangeVetoException e)
@@ -305,7 +392,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postKeySetRemoveAll(final Collection<?> keySet)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -314,6 +402,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeRetainKeys(keySet);
             return true;
         }
         catch (MapChangeVetoException e)
@@ -325,7 +414,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postKeySetRetainAll(final Collection<?> keySet)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -334,6 +424,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeTrackedKey();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -345,7 +436,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postKeySetIteratorRemove()
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -354,6 +446,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeClear();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -365,7 +458,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postEntrySetClear()
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -374,6 +468,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeRemoveEntry(value);
             return true;
         }
         catch (MapChangeVetoException e)
@@ -385,7 +480,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postEntrySetRemove(final Object value)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -394,6 +490,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeSnapshot();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -405,7 +502,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postEntrySetRemoveAll(final Collection<?> entrySet)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -414,6 +512,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeSnapshot();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -425,7 +524,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postEntrySetRetainAll(final Collection<?> entrySet)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -434,6 +534,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeTrackedKey();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -445,7 +546,8 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postEntrySetIteratorRemove()
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -454,6 +556,7 @@ public class ObservableMapImpl<K, V>
         try
         {
             fireMapWillChange(vetoableChangeEvent);
+            delta.beforeTrackedKey();
             return true;
         }
         catch (MapChangeVetoException e)
@@ -465,6 +568,189 @@ public class ObservableMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postMapEntrySetValue(final V value)
     {
-        fireMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
+    }
+
+
+    /**
+     * Observable key set whose iterators track the key they are about to remove.
+     */
+    private class TrackingKeySet
+        extends ObservableKeySet
+    {
+
+        /**
+         * Create a new tracking key set that decorates the specified key set.
+         *
+         * @param keySet key set to decorate
+         */
+        TrackingKeySet(final Set<K> keySet)
+        {
+            super(keySet);
+        }
+
+
+        /** {@inheritDoc} */
+        public Iterator<K> iterator()
+        {
+            final Iterator<K> iterator = super.iterator();
+            return new Iterator<K>()
+                {
+                    /** Key most recently returned. */
+                    private K last;
+
+                    /** {@inheritDoc} */
+                    public boolean hasNext()
+                    {
+                        return iterator.hasNext();
+                    }
+
+                    /** {@inheritDoc} */
+                    public K next()
+                    {
+                        last = iterator.next();
+                        return last;
+                    }
+
+                    /** {@inheritDoc} */
+                    public void remove()
+                    {
+                        delta.track(last);
+                        try
+                        {
+                            iterator.remove();
+                        }
+                        finally
+                        {
+                            delta.untrack();
+                        }
+                    }
+                };
+        }
+    }
+
+    /**
+     * Observable entry set whose iterators and entries track the key they are about
+     * to remove or update.
+     */
+    private class TrackingEntrySet
+        extends ObservableEntrySet
+    {
+
+        /**
+         * Create a new tracking entry set that decorates the specified entry set.
+         *
+         * @param entrySet entry set to decorate
+         */
+        TrackingEntrySet(final Set<Map.Entry<K, V>> entrySet)
+        {
+            super(entrySet);
+        }
+
+
+        /** {@inheritDoc} */
+        public Iterator<Map.Entry<K, V>> iterator()
+        {
+            final Iterator<Map.Entry<K, V>> iterator = super.iterator();
+            return new Iterator<Map.Entry<K, V>>()
+                {
+                    /** Entry most recently returned. */
+                    private Map.Entry<K, V> last;
+
+                    /** {@inheritDoc} */
+                    public boolean hasNext()
+                    {
+                        return iterator.hasNext();
+                    }
+
+                    /** {@inheritDoc} */
+                    public Map.Entry<K, V> next()
+                    {
+                        last = new TrackingEntry(iterator.next());
+                        return last;
+                    }
+
+                    /** {@inheritDoc} */
+                    public void remove()
+                    {
+                        delta.track((last == null) ? null : last.getKey());
+                        try
+                        {
+                            iterator.remove();
+                        }
+                        finally
+                        {
+                            delta.untrack();
+                        }
+                    }
+                };
+        }
+    }
+
+    /**
+     * Map entry that tracks its key while its value is being updated.
+     */
+    private class TrackingEntry
+        implements Map.Entry<K, V>
+    {
+        /** Observable map entry to decorate. */
+        private final Map.Entry<K, V> entry;
+
+
+        /**
+         * Create a new tracking entry that decorates the specified entry.
+         *
+         * @param entry observable map entry to decorate
+         */
+        TrackingEntry(final Map.Entry<K, V> entry)
+        {
+            this.entry = entry;
+        }
+
+
+        /** {@inheritDoc} */
+        public K getKey()
+        {
+            return entry.getKey();
+        }
+
+        /** {@inheritDoc} */
+        public V getValue()
+        {
+            return entry.getValue();
+        }
+
+        /** {@inheritDoc} */
+        public V setValue(final V value)
+        {
+            delta.track(entry.getKey());
+            try
+            {
+                return entry.setValue(value);
+            }
+            finally
+            {
+                delta.untrack();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(final Object o)
+        {
+            return entry.equals(o);
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode()
+        {
+            return entry.hashCode();
+        }
+
+        /** {@inheritDoc} */
+        public String toString()
+        {
+            return entry.toString();
+        }
     }
 }
@@ -24,20 +24,22 @@
 package org.dishevelled.observable.impl;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Queue;
 
 import org.dishevelled.observable.AbstractObservableQueue;
 
-import org.dishevelled.observable.event.QueueChangeEvent;
 import org.dishevelled.observable.event.QueueChangeVetoException;
+import org.dishevelled.observable.event.QueueDeltaEvent;
 import org.dishevelled.observable.event.VetoableQueueChangeEvent;
 
 /**
  * Observable queue decorator that fires empty
  * vetoable queue change events in <code>preXxx</code> methods and
- * empty queue change events in <code>postXxx</code> methods.
- * Observable queue listeners may query the source of the events to determine
- * what may or may not have changed due to the event.
+ * queue delta events in <code>postXxx</code> methods.
+ * Observable queue listeners may cast the events they receive to <code>QueueDeltaEvent</code>
+ * to determine which elements were added or removed.  Changes made between calls to
+ * {@link #beginBatch()} and {@link #endBatch()} are coalesced into a single event.
  *
  * @param <E> queue element type
  * @author  Michael Heuer
@@ -46,8 +48,8 @@ import org.dishevelled.observable.event.VetoableQueueChangeEvent;
 public class ObservableQueueImpl<E>
     extends AbstractObservableQueue<E>
 {
-    /** Cached queue change event. */
-    private final QueueChangeEvent<E> changeEvent;
+    /** Elements added and removed since the last queue delta event. */
+    private final ElementDelta<E> delta;
 
     /** Cached vetoable queue change event. */
     private final VetoableQueueChangeEvent<E> vetoableChangeEvent;
@@ -62,17 +64,73 @@ public class ObservableQueueImpl<E>
     public ObservableQueueImpl(final Queue<E> queue)
     {
         super(queue);
-        changeEvent = new QueueChangeEvent<E>(this);
+        delta = new ElementDelta<E>(this, false)
+            {
+                /** {@inheritDoc} */
+                boolean hasListeners()
+                {
+                    return getQueueChangeListenerCount() > 0;
+                }
+            };
         vetoableChangeEvent = new VetoableQueueChangeEvent<E>(this);
     }
 
 
+    /**
+     * Start a batch of changes.  Changes made to this observable queue until the matching
+     * call to {@link #endBatch()} are coalesced into a single queue delta event, fired when
+     * the outermost batch ends.  Vetoable queue change events are still fired for each change.
+     * Batches may be nested, and should be ended in a <code>finally</code> block.
+     */
+    public void beginBatch()
+    {
+        delta.beginBatch();
+    }
+
+    /**
+     * End a batch of changes, firing a single queue delta event for all of the changes
+     * made during the batch if this ends the outermost batch and any changes were made.
+     *
+     * @throws IllegalStateException if no batch of changes has been started
+     */
+    public void endBatch()
+    {
+        if (delta.endBatch() && delta.isChanged())
+        {
+            fireDelta();
+        }
+    }
+
+    /**
+     * Fire a queue delta event for the changes made since the last event,
+     * unless a batch of changes is in progress.
+     */
+    private void fireDelta()
+    {
+        if (!delta.isBatching())
+        {
+            if (getQueueChangeListenerCount() > 0)
+            {
+                fireQueueChanged(new QueueDeltaEvent<E>(this, delta.added(), delta.removed()));
+            }
+            delta.reset();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Iterator<E> iterator()
+    {
+        return delta.track(super.iterator());
+    }
+
+
     /** {@inheritDoc} */
     protected boolean preAdd(final E e)
     {
         try
         {
             fireQueueWillChange(vetoableChangeEvent);
+            delta.beforeAdd(e);
             return true;
         }
         catch (QueueChangeVetoException ex)
@@ -84,7 +142,8 @@ public class ObservableQueueImpl<E>
     /** {@inheritDoc} */
     protected void postAdd(final E e)
     {
-        fireQueueChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -93,6 +152,7 @@ public class ObservableQueueImpl<E>
         try
         {
             fireQueueWillChange(vetoableChangeEvent);
+            delta.beforeAddAll(coll);
             return true;
         }
         catch (QueueChangeVetoException e)
@@ -104,7 +164,8 @@ public class ObservableQueueImpl<E>
     /** {@inheritDoc} */
     protected void postAddAll(final Collection<? extends E> coll)
     {
-        fireQueueChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -113,6 +174,7 @@ public class ObservableQueueImpl<E>
         try
         {
             fireQueueWillChange(vetoableChangeEvent);
+            delta.beforeClear();
             return true;
         }
         catch (QueueChangeVetoException e)
@@ -124,7 +186,8 @@ public class ObservableQueueImpl<E>
     /** {@inheritDoc} */
     protected void postClear()
     {
-        fireQueueChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -133,6 +196,7 @@ public class ObservableQueueImpl<E>
         try
         {
             fireQueueWillChange(vetoableChangeEvent);
+            delta.beforeRemove(o);
             return true;
         }
         catch (QueueChangeVetoException e)
@@ -144,7 +208,8 @@ public class ObservableQueueImpl<E>
     /** {@inheritDoc} */
     protected void postRemove(final Object o)
     {
-        fireQueueChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -153,6 +218,7 @@ public class ObservableQueueImpl<E>
         try
         {
             fireQueueWillChange(vetoableChangeEvent);
+            delta.beforeRemoveAll(coll);
             return true;
         }
         catch (QueueChangeVetoException e)
@@ -164,7 +230,8 @@ public class ObservableQueueImpl<E>
     /** {@inheritDoc} */
     protected void postRemoveAll(final Collection<?> coll)
     {
-        fireQueueChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -173,6 +240,7 @@ public class ObservableQueueImpl<E>
         try
         {
             fireQueueWillChange(vetoableChangeEvent);
+            delta.beforeRetainAll(coll);
             return true;
         }
         catch (QueueChangeVetoException e)
@@ -184,7 +252,8 @@ public class ObservableQueueImpl<E>
     /** {@inheritDoc} */
     protected void postRetainAll(final Collection<?> coll)
     {
-        fireQueueChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -193,6 +262,7 @@ public class ObservableQueueImpl<E>
         try
         {
             fireQueueWillChange(vetoableChangeEvent);
+            delta.beforeIteratorRemove();
             return true;
         }
         catch (QueueChangeVetoException e)
@@ -204,7 +274,8 @@ public class ObservableQueueImpl<E>
     /** {@inheritDoc} */
     protected void postIteratorRemove()
     {
-        fireQueueChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -213,6 +284,7 @@ public class ObservableQueueImpl<E>
         try
         {
             fireQueueWillChange(vetoableChangeEvent);
+            delta.beforeAdd(e);
             return true;
         }
         catch (QueueChangeVetoException ex)
@@ -224,7 +296,8 @@ public class ObservableQueueImpl<E>
     /** {@inheritDoc} */
     protected void postOffer(final E e)
     {
-        fireQueueChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -233,6 +306,7 @@ public class ObservableQueueImpl<E>
         try
         {
             fireQueueWillChange(vetoableChangeEvent);
+            delta.beforeRemoveElement(peek());
             return true;
         }
         catch (QueueChangeVetoException ex)
@@ -244,6 +318,7 @@ public class ObservableQueueImpl<E>
     /** {@inheritDoc} */
     protected void postPoll()
     {
-        fireQueueChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 }
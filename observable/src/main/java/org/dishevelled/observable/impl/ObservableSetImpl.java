@@ -24,20 +24,22 @@
 package org.dishevelled.observable.impl;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Set;
 
 import org.dishevelled.observable.AbstractObservableSet;
 
-import org.dishevelled.observable.event.SetChangeEvent;
 import org.dishevelled.observable.event.SetChangeVetoException;
+import org.dishevelled.observable.event.SetDeltaEvent;
 import org.dishevelled.observable.event.VetoableSetChangeEvent;
 
 /**
  * Observable set decorator that fires empty
  * vetoable set change events in <code>preXxx</code> methods and
- * empty set change events in <code>postXxx</code> methods.
- * Observable set listeners may query the source of the events to determine
- * what may or may not have changed due to the event.
+ * set delta events in <code>postXxx</code> methods.
+ * Observable set listeners may cast the events they receive to <code>SetDeltaEvent</code>
+ * to determine which elements were added or removed.  Changes made between calls to
+ * {@link #beginBatch()} and {@link #endBatch()} are coalesced into a single event.
  *
  * @param <E> set element type
  * @author  Michael Heuer
@@ -46,8 +48,8 @@ import org.dishevelled.observable.event.VetoableSetChangeEvent;
 public class ObservableSetImpl<E>
     extends AbstractObservableSet<E>
 {
-    /** Cached set change event. */
-    private final SetChangeEvent<E> changeEvent;
+    /** Elements added and removed since the last set delta event. */
+    private final ElementDelta<E> delta;
 
     /** Cached vetoable set change event. */
     private final VetoableSetChangeEvent<E> vetoableChangeEvent;
@@ -62,17 +64,73 @@ public class ObservableSetImpl<E>
     public ObservableSetImpl(final Set<E> set)
     {
         super(set);
-        changeEvent = new SetChangeEvent<E>(this);
+        delta = new ElementDelta<E>(this, true)
+            {
+                /** {@inheritDoc} */
+                boolean hasListeners()
+                {
+                    return getSetChangeListenerCount() > 0;
+                }
+            };
         vetoableChangeEvent = new VetoableSetChangeEvent<E>(this);
     }
 
 
+    /**
+     * Start a batch of changes.  Changes made to this observable set until the matching
+     * call to {@link #endBatch()} are coalesced into a single set delta event, fired when
+     * the outermost batch ends.  Vetoable set change events are still fired for each change.
+     * Batches may be nested, and should be ended in a <code>finally</code> block.
+     */
+    public void beginBatch()
+    {
+        delta.beginBatch();
+    }
+
+    /**
+     * End a batch of changes, firing a single set delta event for all of the changes
+     * made during the batch if this ends the outermost batch and any changes were made.
+     *
+     * @throws IllegalStateException if no batch of changes has been started
+     */
+    public void endBatch()
+    {
+        if (delta.endBatch() && delta.isChanged())
+        {
+            fireDelta();
+        }
+    }
+
+    /**
+     * Fire a set delta event for the changes made since the last event,
+     * unless a batch of changes is in progress.
+     */
+    private void fireDelta()
+    {
+        if (!delta.isBatching())
+        {
+            if (getSetChangeListenerCount() > 0)
+            {
+                fireSetChanged(new SetDeltaEvent<E>(this, delta.addedSet(), delta.removedSet()));
+            }
+            delta.reset();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Iterator<E> iterator()
+    {
+        return delta.track(super.iterator());
+    }
+
+
     /** {@inheritDoc} */
     protected boolean preAdd(final E e)
     {
         try
         {
             fireSetWillChange(vetoableChangeEvent);
+            delta.beforeAdd(e);
             return true;
         }
         catch (SetChangeVetoException ex)
@@ -84,7 +142,8 @@ public class ObservableSetImpl<E>
     /** {@inheritDoc} */
     protected void postAdd(final E e)
     {
-        fireSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -93,6 +152,7 @@ public class ObservableSetImpl<E>
         try
         {
             fireSetWillChange(vetoableChangeEvent);
+            delta.beforeAddAll(coll);
             return true;
         }
         catch (SetChangeVetoException e)
@@ -104,7 +164,8 @@ public class ObservableSetImpl<E>
     /** {@inheritDoc} */
     protected void postAddAll(final Collection<? extends E> coll)
     {
-        fireSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -113,6 +174,7 @@ public class ObservableSetImpl<E>
         try
         {
             fireSetWillChange(vetoableChangeEvent);
+            delta.beforeClear();
             return true;
         }
         catch (SetChangeVetoException e)
@@ -124,7 +186,8 @@ public class ObservableSetImpl<E>
     /** {@inheritDoc} */
     protected void postClear()
     {
-        fireSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -133,6 +196,7 @@ public class ObservableSetImpl<E>
         try
         {
             fireSetWillChange(vetoableChangeEvent);
+            delta.beforeRemove(o);
             return true;
         }
         catch (SetChangeVetoException e)
@@ -144,7 +208,8 @@ public class ObservableSetImpl<E>
     /** {@inheritDoc} */
     protected void postRemove(final Object o)
     {
-        fireSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -153,6 +218,7 @@ public class ObservableSetImpl<E>
         try
         {
             fireSetWillChange(vetoableChangeEvent);
+            delta.beforeRemoveAll(coll);
             return true;
         }
         catch (SetChangeVetoException e)
@@ -164,7 +230,8 @@ public class ObservableSetImpl<E>
     /** {@inheritDoc} */
     protected void postRemoveAll(final Collection<?> coll)
     {
-        fireSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -173,6 +240,7 @@ public class ObservableSetImpl<E>
         try
         {
             fireSetWillChange(vetoableChangeEvent);
+            delta.beforeRetainAll(coll);
             return true;
         }
         catch (SetChangeVetoException e)
@@ -184,7 +252,8 @@ public class ObservableSetImpl<E>
     /** {@inheritDoc} */
     protected void postRetainAll(final Collection<?> coll)
     {
-        fireSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -193,6 +262,7 @@ public class ObservableSetImpl<E>
         try
         {
             fireSetWillChange(vetoableChangeEvent);
+            delta.beforeIteratorRemove();
             return true;
         }
         catch (SetChangeVetoException e)
@@ -204,6 +274,7 @@ public class ObservableSetImpl<E>
     /** {@inheritDoc} */
     protected void postIteratorRemove()
     {
-        fireSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 }
@@ -28,16 +28,17 @@ import java.util.SortedMap;
 
 import org.dishevelled.observable.AbstractObservableSortedMap;
 
-import org.dishevelled.observable.event.SortedMapChangeEvent;
 import org.dishevelled.observable.event.SortedMapChangeVetoException;
+import org.dishevelled.observable.event.SortedMapDeltaEvent;
 import org.dishevelled.observable.event.VetoableSortedMapChangeEvent;
 
 /**
  * Observable sorted map decorator that fires empty
  * vetoable sorted map change events in <code>preXxx</code> methods and
- * empty sorted map change events in <code>postXxx</code> methods.
- * Observable sorted map listeners may query the source of the events to determine
- * what may or may not have changed due to the event.
+ * sorted map delta events in <code>postXxx</code> methods.
+ * Observable sorted map listeners may cast the events they receive to <code>SortedMapDeltaEvent</code>
+ * to determine the old and new values of each key whose mapping was changed.  Changes made
+ * between calls to {@link #beginBatch()} and {@link #endBatch()} are coalesced into a single event.
  *
  * @param <K> sorted map key type
  * @param <V> sorted map value type
@@ -47,8 +48,8 @@ import org.dishevelled.observable.event.VetoableSortedMapChangeEvent;
 public class ObservableSortedMapImpl<K, V>
     extends AbstractObservableSortedMap<K, V>
 {
-    /** Cached sorted map change event. */
-    private final SortedMapChangeEvent<K, V> changeEvent;
+    /** Keys changed since the last sorted map delta event. */
+    private final MapDelta<K, V> delta;
 
     /** Cached vetoable sorted map change event. */
     private final VetoableSortedMapChangeEvent<K, V> vetoableChangeEvent;
@@ -63,17 +64,67 @@ public class ObservableSortedMapImpl<K, V>
     public ObservableSortedMapImpl(final SortedMap<K, V> sortedMap)
     {
         super(sortedMap);
-        changeEvent = new SortedMapChangeEvent<K, V>(this);
+        delta = new MapDelta<K, V>(this)
+            {
+                /** {@inheritDoc} */
+                boolean hasListeners()
+                {
+                    return getSortedMapChangeListenerCount() > 0;
+                }
+            };
         vetoableChangeEvent = new VetoableSortedMapChangeEvent<K, V>(this);
     }
 
 
+    /**
+     * Start a batch of changes.  Changes made to this observable sorted map until the matching
+     * call to {@link #endBatch()} are coalesced into a single sorted map delta event, fired when
+     * the outermost batch ends.  Vetoable sorted map change events are still fired for each change.
+     * Batches may be nested, and should be ended in a <code>finally</code> block.
+     */
+    public void beginBatch()
+    {
+        delta.beginBatch();
+    }
+
+    /**
+     * End a batch of changes, firing a single sorted map delta event for all of the changes
+     * made during the batch if this ends the outermost batch and any changes were made.
+     *
+     * @throws IllegalStateException if no batch of changes has been started
+     */
+    public void endBatch()
+    {
+        if (delta.endBatch() && delta.isChanged())
+        {
+            fireDelta();
+        }
+    }
+
+    /**
+     * Fire a sorted map delta event for the changes made since the last event,
+     * unless a batch of changes is in progress.
+     */
+    private void fireDelta()
+    {
+        if (!delta.isBatching())
+        {
+            if (getSortedMapChangeListenerCount() > 0)
+            {
+                fireSortedMapChanged(new SortedMapDeltaEvent<K, V>(this, delta.oldValues(), delta.newValues()));
+            }
+            delta.reset();
+        }
+    }
+
+
     /** {@inheritDoc} */
     protected boolean preClear()
     {
         try
         {
             fireSortedMapWillChange(vetoableChangeEvent);
+            delta.beforeClear();
             return true;
         }
         catch (SortedMapChangeVetoException e)
@@ -85,7 +136,8 @@ public class ObservableSortedMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postClear()
     {
-        fireSortedMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -94,6 +146,7 @@ public class ObservableSortedMapImpl<K, V>
         try
         {
             fireSortedMapWillChange(vetoableChangeEvent);
+            delta.beforePut(key);
             return true;
         }
         catch (SortedMapChangeVetoException e)
@@ -105,7 +158,8 @@ public class ObservableSortedMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postPut(final K key, final V value)
     {
-        fireSortedMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -114,6 +168,7 @@ public class ObservableSortedMapImpl<K, V>
         try
         {
             fireSortedMapWillChange(vetoableChangeEvent);
+            delta.beforePutAll(map.keySet());
             return true;
         }
         catch (SortedMapChangeVetoException e)
@@ -125,7 +180,8 @@ public class ObservableSortedMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postPutAll(final Map<? extends K, ? extends V> map)
     {
-        fireSortedMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -134,6 +190,7 @@ public class ObservableSortedMapImpl<K, V>
         try
         {
             fireSortedMapWillChange(vetoableChangeEvent);
+            delta.beforeRemove(key);
             return true;
         }
         catch (SortedMapChangeVetoException e)
@@ -145,6 +202,7 @@ public class ObservableSortedMapImpl<K, V>
     /** {@inheritDoc} */
     protected void postRemove(final Object key)
     {
-        fireSortedMapChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 }
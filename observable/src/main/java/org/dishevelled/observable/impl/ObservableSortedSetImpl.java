@@ -24,20 +24,22 @@
 package org.dishevelled.observable.impl;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.SortedSet;
 
 import org.dishevelled.observable.AbstractObservableSortedSet;
 
-import org.dishevelled.observable.event.SortedSetChangeEvent;
 import org.dishevelled.observable.event.SortedSetChangeVetoException;
+import org.dishevelled.observable.event.SortedSetDeltaEvent;
 import org.dishevelled.observable.event.VetoableSortedSetChangeEvent;
 
 /**
  * Observable sorted set decorator that fires empty
  * vetoable sorted set change events in <code>preXxx</code> methods and
- * empty sorted set change events in <code>postXxx</code> methods.
- * Observable sorted set listeners may query the source of the events to determine
- * what may or may not have changed due to the event.
+ * sorted set delta events in <code>postXxx</code> methods.
+ * Observable sorted set listeners may cast the events they receive to <code>SortedSetDeltaEvent</code>
+ * to determine which elements were added or removed.  Changes made between calls to
+ * {@link #beginBatch()} and {@link #endBatch()} are coalesced into a single event.
  *
  * @param <E> sorted set element type
  * @author  Michael Heuer
@@ -46,8 +48,8 @@ import org.dishevelled.observable.event.VetoableSortedSetChangeEvent;
 public class ObservableSortedSetImpl<E>
     extends AbstractObservableSortedSet<E>
 {
-    /** Cached sorted set change event. */
-    private final SortedSetChangeEvent<E> changeEvent;
+    /** Elements added and removed since the last sorted set delta event. */
+    private final ElementDelta<E> delta;
 
     /** Cached vetoable sorted set change event. */
     private final VetoableSortedSetChangeEvent<E> vetoableChangeEvent;
@@ -62,17 +64,73 @@ public class ObservableSortedSetImpl<E>
     public ObservableSortedSetImpl(final SortedSet<E> sortedSet)
     {
         super(sortedSet);
-        changeEvent = new SortedSetChangeEvent<E>(this);
+        delta = new ElementDelta<E>(this, true)
+            {
+                /** {@inheritDoc} */
+                boolean hasListeners()
+                {
+                    return getSortedSetChangeListenerCount() > 0;
+                }
+            };
         vetoableChangeEvent = new VetoableSortedSetChangeEvent<E>(this);
     }
 
 
+    /**
+     * Start a batch of changes.  Changes made to this observable sorted set until the matching
+     * call to {@link #endBatch()} are coalesced into a single sorted set delta event, fired when
+     * the outermost batch ends.  Vetoable sorted set change events are still fired for each change.
+     * Batches may be nested, and should be ended in a <code>finally</code> block.
+     */
+    public void beginBatch()
+    {
+        delta.beginBatch();
+    }
+
+    /**
+     * End a batch of changes, firing a single sorted set delta event for all of the changes
+     * made during the batch if this ends the outermost batch and any changes were made.
+     *
+     * @throws IllegalStateException if no batch of changes has been started
+     */
+    public void endBatch()
+    {
+        if (delta.endBatch() && delta.isChanged())
+        {
+            fireDelta();
+        }
+    }
+
+    /**
+     * Fire a sorted set delta event for the changes made since the last event,
+     * unless a batch of changes is in progress.
+     */
+    private void fireDelta()
+    {
+        if (!delta.isBatching())
+        {
+            if (getSortedSetChangeListenerCount() > 0)
+            {
+                fireSortedSetChanged(new SortedSetDeltaEvent<E>(this, delta.addedSet(), delta.removedSet()));
+            }
+            delta.reset();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public Iterator<E> iterator()
+    {
+        return delta.track(super.iterator());
+    }
+
+
     /** {@inheritDoc} */
     protected boolean preAdd(final E e)
     {
         try
         {
             fireSortedSetWillChange(vetoableChangeEvent);
+            delta.beforeAdd(e);
             return true;
         }
         catch (SortedSetChangeVetoException ex)
@@ -84,7 +142,8 @@ public class ObservableSortedSetImpl<E>
     /** {@inheritDoc} */
     protected void postAdd(final E e)
     {
-        fireSortedSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -93,6 +152,7 @@ public class ObservableSortedSetImpl<E>
         try
         {
             fireSortedSetWillChange(vetoableChangeEvent);
+            delta.beforeAddAll(coll);
             return true;
         }
         catch (SortedSetChangeVetoException e)
@@ -104,7 +164,8 @@ public class ObservableSortedSetImpl<E>
     /** {@inheritDoc} */
     protected void postAddAll(final Collection<? extends E> coll)
     {
-        fireSortedSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -113,6 +174,7 @@ public class ObservableSortedSetImpl<E>
         try
         {
             fireSortedSetWillChange(vetoableChangeEvent);
+            delta.beforeClear();
             return true;
         }
         catch (SortedSetChangeVetoException e)
@@ -124,7 +186,8 @@ public class ObservableSortedSetImpl<E>
     /** {@inheritDoc} */
     protected void postClear()
     {
-        fireSortedSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -133,6 +196,7 @@ public class ObservableSortedSetImpl<E>
         try
         {
             fireSortedSetWillChange(vetoableChangeEvent);
+            delta.beforeRemove(o);
             return true;
         }
         catch (SortedSetChangeVetoException e)
@@ -144,7 +208,8 @@ public class ObservableSortedSetImpl<E>
     /** {@inheritDoc} */
     protected void postRemove(final Object o)
     {
-        fireSortedSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -153,6 +218,7 @@ public class ObservableSortedSetImpl<E>
         try
         {
             fireSortedSetWillChange(vetoableChangeEvent);
+            delta.beforeRemoveAll(coll);
             return true;
         }
         catch (SortedSetChangeVetoException e)
@@ -164,7 +230,8 @@ public class ObservableSortedSetImpl<E>
     /** {@inheritDoc} */
     protected void postRemoveAll(final Collection<?> coll)
     {
-        fireSortedSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -173,6 +240,7 @@ public class ObservableSortedSetImpl<E>
         try
         {
             fireSortedSetWillChange(vetoableChangeEvent);
+            delta.beforeRetainAll(coll);
             return true;
         }
         catch (SortedSetChangeVetoException e)
@@ -184,7 +252,8 @@ public class ObservableSortedSetImpl<E>
     /** {@inheritDoc} */
     protected void postRetainAll(final Collection<?> coll)
     {
-        fireSortedSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 
     /** {@inheritDoc} */
@@ -193,6 +262,7 @@ public class ObservableSortedSetImpl<E>
         try
         {
             fireSortedSetWillChange(vetoableChangeEvent);
+            delta.beforeIteratorRemove();
             return true;
         }
         catch (SortedSetChangeVetoException e)
@@ -204,6 +274,7 @@ public class ObservableSortedSetImpl<E>
     /** {@inheritDoc} */
     protected void postIteratorRemove()
     {
-        fireSortedSetChanged(changeEvent);
+        delta.after();
+        fireDelta();
     }
 }
@@ -29,9 +29,15 @@
  *
  * <p>
  * The decorators in this package fire empty vetoable change events in
- * <code>preXxx</code> methods and empty change events in <code>postXxx</code> methods.
- * Listeners may query the source of the events to determine what may or may
- * not have changed due to the event.
+ * <code>preXxx</code> methods and delta change events in <code>postXxx</code> methods.
+ * Listeners may cast the change events they receive to the corresponding delta event,
+ * for example <code>ListDeltaEvent</code>, to determine which elements or mappings
+ * were changed, without rescanning the source of the event.
+ * </p>
+ *
+ * <p>
+ * Changes made between calls to <code>beginBatch()</code> and <code>endBatch()</code>
+ * are coalesced into a single delta event.
  * </p>
  */
 package org.dishevelled.observable.impl;
\ No newline at end of file
@@ -24,10 +24,16 @@
 package org.dishevelled.observable.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.dishevelled.observable.AbstractObservableCollectionTest;
 import org.dishevelled.observable.ObservableCollection;
 
+import org.dishevelled.observable.event.CollectionChangeEvent;
+import org.dishevelled.observable.event.CollectionChangeListener;
+import org.dishevelled.observable.event.CollectionDeltaEvent;
+
 /**
  * Unit test for ObservableCollectionImpl.
  *
@@ -43,4 +49,35 @@ public class ObservableCollectionImplTest
     {
         return new ObservableCollectionImpl<T>(new ArrayList<T>());
     }
-}
\ No newline at end of file
+
+    public void testDeltaEvents()
+    {
+        ObservableCollectionImpl<String> collection = new ObservableCollectionImpl<String>(new ArrayList<String>());
+        final List<CollectionDeltaEvent<String>> events = new ArrayList<CollectionDeltaEvent<String>>();
+        collection.addCollectionChangeListener(new CollectionChangeListener<String>()
+            {
+                /** {@inheritDoc} */
+                public void collectionChanged(final CollectionChangeEvent<String> event)
+                {
+                    events.add((CollectionDeltaEvent<String>) event);
+                }
+            });
+
+        collection.addAll(Arrays.asList("foo", "bar", "foo"));
+        assertEquals(1, events.size());
+        assertEquals(Arrays.asList("foo", "bar", "foo"), new ArrayList<String>(events.get(0).getAdded()));
+
+        collection.removeAll(Arrays.asList("foo"));
+        assertEquals(Arrays.asList("foo", "foo"), new ArrayList<String>(events.get(1).getRemoved()));
+
+        collection.beginBatch();
+        collection.add("baz");
+        collection.add("baz");
+        collection.remove("baz");
+        collection.remove("bar");
+        collection.endBatch();
+        assertEquals(3, events.size());
+        assertEquals(Arrays.asList("baz"), new ArrayList<String>(events.get(2).getAdded()));
+        assertEquals(Arrays.asList("bar"), new ArrayList<String>(events.get(2).getRemoved()));
+    }
+}
@@ -24,10 +24,18 @@
 package org.dishevelled.observable.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
 
 import org.dishevelled.observable.AbstractObservableListTest;
 import org.dishevelled.observable.ObservableList;
 
+import org.dishevelled.observable.event.ListChangeEvent;
+import org.dishevelled.observable.event.ListChangeListener;
+import org.dishevelled.observable.event.ListDeltaEvent;
+
 /**
  * Unit test for ObservableListImpl.
  *
@@ -43,4 +51,293 @@ public class ObservableListImplTest
     {
         return new ObservableListImpl<T>(new ArrayList<T>());
     }
-}
\ No newline at end of file
+
+    public void testDeltaEvents()
+    {
+        ObservableListImpl<String> list = new ObservableListImpl<String>(new ArrayList<String>());
+        ReplayListener replay = new ReplayListener(list);
+        list.addListChangeListener(replay);
+
+        list.add("foo");
+        assertEquals(1, replay.getEvents());
+        ListDeltaEvent.Change<String> change = replay.getLastEvent().getChanges().get(0);
+        assertEquals(0, change.getIndex());
+        assertTrue(change.getRemoved().isEmpty());
+        assertEquals(Arrays.asList("foo"), change.getAdded());
+
+        list.addAll(Arrays.asList("bar", "baz", "qux", "bar"));
+        list.add(1, "garply");
+        list.addAll(2, Arrays.asList("waldo", "fred"));
+        list.set(0, "plugh");
+        list.remove("baz");
+        list.remove(3);
+        list.removeAll(Arrays.asList("bar", "fred"));
+        list.addAll(Arrays.asList("foo", "bar", "baz"));
+        list.retainAll(Arrays.asList("garply", "bar", "baz", "plugh"));
+
+        change = replay.getLastEvent().getChanges().get(0);
+        assertEquals(2, change.getIndex());
+        assertEquals(Arrays.asList("waldo", "qux", "foo"), change.getRemoved());
+        assertEquals(10, replay.getEvents());
+        assertEquals(list, replay.getReplica());
+
+        list.clear();
+        assertEquals(list, replay.getReplica());
+    }
+
+    public void testIteratorDeltaEvents()
+    {
+        ObservableListImpl<String> list = new ObservableListImpl<String>(new ArrayList<String>());
+        list.addAll(Arrays.asList("foo", "bar", "baz", "qux"));
+        ReplayListener replay = new ReplayListener(list);
+        list.addListChangeListener(replay);
+
+        for (Iterator<String> i = list.iterator(); i.hasNext(); )
+        {
+            if (i.next().startsWith("b"))
+            {
+                i.remove();
+            }
+        }
+        assertEquals(2, replay.getEvents());
+        assertEquals(1, replay.getLastEvent().getChanges().get(0).getIndex());
+        assertEquals(list, replay.getReplica());
+
+        list.addAll(Arrays.asList("bar", "baz"));
+        for (ListIterator<String> i = list.listIterator(list.size()); i.hasPrevious(); )
+        {
+            String s = i.previous();
+            if ("qux".equals(s))
+            {
+                i.remove();
+            }
+            else
+            {
+                i.set(s.toUpperCase());
+            }
+        }
+        assertEquals(list, replay.getReplica());
+        assertEquals(Arrays.asList("FOO", "BAR", "BAZ"), list);
+    }
+
+    public void testListIteratorAddDeltaEvents()
+    {
+        ObservableListImpl<String> list = new ObservableListImpl<String>(new ArrayList<String>());
+        list.addAll(Arrays.asList("1", "3", "4", "3"));
+        ReplayListener replay = new ReplayListener(list);
+        list.addListChangeListener(replay);
+
+        for (ListIterator<String> i = list.listIterator(); i.hasNext(); )
+        {
+            String s = i.next();
+            if ("3".equals(s))
+            {
+                i.set("13");
+            }
+            else if ("4".equals(s))
+            {
+                i.add("7");
+            }
+        }
+        assertEquals(3, replay.getEvents());
+        ListDeltaEvent.Change<String> change = replay.getLastEvent().getChanges().get(0);
+        assertEquals(4, change.getIndex());
+        assertEquals(list, replay.getReplica());
+        assertEquals(Arrays.asList("1", "13", "4", "7", "13"), list);
+
+        for (ListIterator<String> i = list.listIterator(list.size()); i.hasPrevious(); )
+        {
+            String s = i.previous();
+            if ("13".equals(s))
+            {
+                i.remove();
+                i.add("3");
+            }
+            else if ("7".equals(s))
+            {
+                i.set("8");
+                i.add("5");
+            }
+        }
+        assertEquals(list, replay.getReplica());
+
+        List<String> subList = list.subList(1, 4);
+        for (ListIterator<String> i = subList.listIterator(); i.hasNext(); )
+        {
+            if ("4".equals(i.next()))
+            {
+                i.add("6");
+                i.previous();
+                i.set("9");
+            }
+        }
+        assertEquals(list, replay.getReplica());
+
+        list.beginBatch();
+        try
+        {
+            ListIterator<String> i = list.listIterator();
+            i.add("0");
+            i.next();
+            i.remove();
+            i.add("2");
+        }
+        finally
+        {
+            list.endBatch();
+        }
+        assertEquals(list, replay.getReplica());
+    }
+
+    public void testSubListDeltaEvents()
+    {
+        ObservableListImpl<String> list = new ObservableListImpl<String>(new ArrayList<String>());
+        list.addAll(Arrays.asList("foo", "bar", "baz", "qux", "garply", "waldo"));
+        ReplayListener replay = new ReplayListener(list);
+        list.addListChangeListener(replay);
+
+        List<String> subList = list.subList(1, 5);
+        subList.add("fred");
+        subList.remove(0);
+        subList.set(0, "plugh");
+        assertEquals(1, replay.getLastEvent().getChanges().get(0).getIndex());
+        List<String> subSubList = subList.subList(1, 3);
+        subSubList.clear();
+        assertEquals(2, replay.getLastEvent().getChanges().get(0).getIndex());
+        subList.add(0, "xyzzy");
+        for (Iterator<String> i = subList.iterator(); i.hasNext(); )
+        {
+            if ("plugh".equals(i.next()))
+            {
+                i.remove();
+            }
+        }
+        assertEquals(list, replay.getReplica());
+        assertEquals(Arrays.asList("foo", "xyzzy", "fred", "waldo"), list);
+    }
+
+    public void testBatch()
+    {
+        ObservableListImpl<String> list = new ObservableListImpl<String>(new ArrayList<String>());
+        list.addAll(Arrays.asList("foo", "bar"));
+        ReplayListener replay = new ReplayListener(list);
+        list.addListChangeListener(replay);
+
+        list.beginBatch();
+        try
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                list.add("baz" + i);
+            }
+            list.beginBatch();
+            list.remove(0);
+            list.endBatch();
+            list.remove("baz42");
+            list.set(0, "qux");
+        }
+        finally
+        {
+            list.endBatch();
+        }
+        assertEquals(1, replay.getEvents());
+        assertEquals(4, replay.getLastEvent().getChanges().size());
+        assertEquals(100, replay.getLastEvent().getChanges().get(0).getAdded().size());
+        assertEquals(list, replay.getReplica());
+
+        list.beginBatch();
+        list.add("garply");
+        list.remove("garply");
+        list.endBatch();
+        assertEquals(2, replay.getEvents());
+        assertTrue(replay.getLastEvent().getChanges().isEmpty());
+
+        list.beginBatch();
+        list.endBatch();
+        assertEquals(2, replay.getEvents());
+
+        try
+        {
+            list.endBatch();
+            fail("endBatch() without beginBatch() expected IllegalStateException");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+    }
+
+
+    /**
+     * List change listener that applies the changes in list delta events to a replica
+     * of the list.
+     */
+    private static final class ReplayListener
+        implements ListChangeListener<String>
+    {
+        /** Replica. */
+        private final List<String> replica;
+
+        /** Number of events. */
+        private int events;
+
+        /** Last event. */
+        private ListDeltaEvent<String> lastEvent;
+
+
+        /**
+         * Create a new replay listener for the specified list.
+         *
+         * @param list list to replicate
+         */
+        ReplayListener(final List<String> list)
+        {
+            replica = new ArrayList<String>(list);
+        }
+
+
+        /** {@inheritDoc} */
+        public void listChanged(final ListChangeEvent<String> event)
+        {
+            events++;
+            lastEvent = (ListDeltaEvent<String>) event;
+            for (ListDeltaEvent.Change<String> change : lastEvent.getChanges())
+            {
+                List<String> removed = replica.subList(change.getIndex(), change.getIndex() + change.getRemoved().size());
+                assertEquals(change.getRemoved(), removed);
+                removed.clear();
+                replica.addAll(change.getIndex(), change.getAdded());
+            }
+        }
+
+        /**
+         * Return the replica.
+         *
+         * @return the replica
+         */
+        List<String> getReplica()
+        {
+            return replica;
+        }
+
+        /**
+         * Return the number of events.
+         *
+         * @return the number of events
+         */
+        int getEvents()
+        {
+            return events;
+        }
+
+        /**
+         * Return the last event.
+         *
+         * @return the last event
+         */
+        ListDeltaEvent<String> getLastEvent()
+        {
+            return lastEvent;
+        }
+    }
+}
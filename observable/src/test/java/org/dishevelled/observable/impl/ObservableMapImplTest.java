@@ -23,11 +23,18 @@
 */
 package org.dishevelled.observable.impl;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
 import org.dishevelled.observable.AbstractObservableMapTest;
 import org.dishevelled.observable.ObservableMap;
 
+import org.dishevelled.observable.event.MapChangeEvent;
+import org.dishevelled.observable.event.MapChangeListener;
+import org.dishevelled.observable.event.MapDeltaEvent;
+
 /**
  * Unit test for ObservableMapImpl.
  *
@@ -43,4 +50,119 @@ public class ObservableMapImplTest
     {
         return new ObservableMapImpl<K, V>(new HashMap<K, V>());
     }
-}
\ No newline at end of file
+
+    public void testDeltaEvents()
+    {
+        ObservableMapImpl<String, Integer> map = new ObservableMapImpl<String, Integer>(new HashMap<String, Integer>());
+        DeltaListener listener = new DeltaListener();
+        map.addMapChangeListener(listener);
+
+        map.put("foo", 1);
+        assertEquals(Collections.emptyMap(), listener.getLastEvent().getOldValues());
+        assertEquals(Collections.singletonMap("foo", 1), listener.getLastEvent().getNewValues());
+
+        map.put("foo", 2);
+        assertEquals(Collections.singletonMap("foo", 1), listener.getLastEvent().getOldValues());
+        assertEquals(Collections.singletonMap("foo", 2), listener.getLastEvent().getNewValues());
+
+        map.put("foo", 2);
+        assertTrue(listener.getLastEvent().getOldValues().isEmpty());
+        assertTrue(listener.getLastEvent().getNewValues().isEmpty());
+
+        map.put("bar", 3);
+        map.remove("foo");
+        assertEquals(Collections.singletonMap("foo", 2), listener.getLastEvent().getOldValues());
+        assertTrue(listener.getLastEvent().getNewValues().isEmpty());
+
+        for (Map.Entry<String, Integer> entry : map.entrySet())
+        {
+            entry.setValue(entry.getValue() + 1);
+        }
+        assertEquals(Collections.singletonMap("bar", 3), listener.getLastEvent().getOldValues());
+        assertEquals(Collections.singletonMap("bar", 4), listener.getLastEvent().getNewValues());
+
+        map.put("baz", 5);
+        for (Iterator<String> i = map.keySet().iterator(); i.hasNext(); )
+        {
+            if ("baz".equals(i.next()))
+            {
+                i.remove();
+            }
+        }
+        assertEquals(Collections.singletonMap("baz", 5), listener.getLastEvent().getOldValues());
+
+        map.values().remove(4);
+        assertEquals(Collections.singletonMap("bar", 4), listener.getLastEvent().getOldValues());
+        assertTrue(map.isEmpty());
+    }
+
+    public void testBatch()
+    {
+        ObservableMapImpl<String, Integer> map = new ObservableMapImpl<String, Integer>(new HashMap<String, Integer>());
+        map.put("foo", 1);
+        map.put("bar", 2);
+        DeltaListener listener = new DeltaListener();
+        map.addMapChangeListener(listener);
+
+        map.beginBatch();
+        try
+        {
+            map.put("foo", 3);
+            map.put("foo", 1);
+            map.remove("bar");
+            map.put("baz", 4);
+            map.keySet().remove("baz");
+            map.put("qux", 5);
+            map.put("qux", 6);
+        }
+        finally
+        {
+            map.endBatch();
+        }
+        assertEquals(1, listener.getEvents());
+        assertEquals(Collections.singletonMap("bar", 2), listener.getLastEvent().getOldValues());
+        assertEquals(Collections.singletonMap("qux", 6), listener.getLastEvent().getNewValues());
+    }
+
+
+    /**
+     * Map change listener that counts map delta events.
+     */
+    private static final class DeltaListener
+        implements MapChangeListener<String, Integer>
+    {
+        /** Number of events. */
+        private int events;
+
+        /** Last event. */
+        private MapDeltaEvent<String, Integer> lastEvent;
+
+
+        /** {@inheritDoc} */
+        public void mapChanged(final MapChangeEvent<String, Integer> event)
+        {
+            events++;
+            lastEvent = (MapDeltaEvent<String, Integer>) event;
+        }
+
+        /**
+         * Return the number of events.
+         *
+         * @return the number of events
+         */
+        int getEvents()
+        {
+            return events;
+        }
+
+        /**
+         * Return the last event.
+         *
+         * @return the last event
+         */
+        MapDeltaEvent<String, Integer> getLastEvent()
+        {
+            return lastEvent;
+        }
+    }
+}
@@ -23,11 +23,17 @@
 */
 package org.dishevelled.observable.impl;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
 
 import org.dishevelled.observable.AbstractObservableSetTest;
 import org.dishevelled.observable.ObservableSet;
 
+import org.dishevelled.observable.event.SetChangeEvent;
+import org.dishevelled.observable.event.SetChangeListener;
+import org.dishevelled.observable.event.SetDeltaEvent;
+
 /**
  * Unit test for ObservableSetImpl.
  *
@@ -43,4 +49,119 @@ public class ObservableSetImplTest
     {
         return new ObservableSetImpl<T>(new HashSet<T>());
     }
-}
\ No newline at end of file
+
+    public void testDeltaEvents()
+    {
+        ObservableSetImpl<String> set = new ObservableSetImpl<String>(new HashSet<String>());
+        DeltaListener listener = new DeltaListener();
+        set.addSetChangeListener(listener);
+
+        set.add("foo");
+        assertEquals(1, listener.getEvents());
+        assertEquals(new HashSet<String>(Arrays.asList("foo")), listener.getLastEvent().getAdded());
+        assertTrue(listener.getLastEvent().getRemoved().isEmpty());
+
+        set.add("foo");
+        assertEquals(2, listener.getEvents());
+        assertTrue(listener.getLastEvent().getAdded().isEmpty());
+
+        set.addAll(Arrays.asList("foo", "bar", "baz", "bar"));
+        assertEquals(new HashSet<String>(Arrays.asList("bar", "baz")), listener.getLastEvent().getAdded());
+
+        set.removeAll(Arrays.asList("bar", "qux"));
+        assertEquals(new HashSet<String>(Arrays.asList("bar")), listener.getLastEvent().getRemoved());
+
+        set.retainAll(Arrays.asList("baz"));
+        assertEquals(new HashSet<String>(Arrays.asList("foo")), listener.getLastEvent().getRemoved());
+
+        for (Iterator<String> i = set.iterator(); i.hasNext(); )
+        {
+            i.next();
+            i.remove();
+        }
+        assertEquals(new HashSet<String>(Arrays.asList("baz")), listener.getLastEvent().getRemoved());
+        assertTrue(set.isEmpty());
+
+        set.remove("qux");
+        assertTrue(listener.getLastEvent().getRemoved().isEmpty());
+    }
+
+    public void testBatch()
+    {
+        ObservableSetImpl<String> set = new ObservableSetImpl<String>(new HashSet<String>());
+        set.addAll(Arrays.asList("foo", "bar"));
+        DeltaListener listener = new DeltaListener();
+        set.addSetChangeListener(listener);
+
+        set.beginBatch();
+        try
+        {
+            set.add("baz");
+            set.add("qux");
+            set.remove("qux");
+            set.remove("foo");
+            set.add("foo");
+            set.clear();
+            set.add("garply");
+        }
+        finally
+        {
+            set.endBatch();
+        }
+        assertEquals(1, listener.getEvents());
+        assertEquals(new HashSet<String>(Arrays.asList("garply")), listener.getLastEvent().getAdded());
+        assertEquals(new HashSet<String>(Arrays.asList("foo", "bar")), listener.getLastEvent().getRemoved());
+
+        try
+        {
+            set.endBatch();
+            fail("endBatch() without beginBatch() expected IllegalStateException");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+    }
+
+
+    /**
+     * Set change listener that counts set delta events.
+     */
+    private static final class DeltaListener
+        implements SetChangeListener<String>
+    {
+        /** Number of events. */
+        private int events;
+
+        /** Last event. */
+        private SetDeltaEvent<String> lastEvent;
+
+
+        /** {@inheritDoc} */
+        public void setChanged(final SetChangeEvent<String> event)
+        {
+            events++;
+            lastEvent = (SetDeltaEvent<String>) event;
+        }
+
+        /**
+         * Return the number of events.
+         *
+         * @return the number of events
+         */
+        int getEvents()
+        {
+            return events;
+        }
+
+        /**
+         * Return the last event.
+         *
+         * @return the last event
+         */
+        SetDeltaEvent<String> getLastEvent()
+        {
+            return lastEvent;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+
+    dsh-swarm  Framework for particle swarm optimization algorithms.
+    Copyright (c) 2006-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.swarm;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Particle swarm implementation that keeps particle state in flat, row-major
+ * arrays of doubles, one row of <code>dimensions</code> values per particle.
+ *
+ * @author  Michael Heuer
+ */
+final class ArrayParticleSwarm
+    implements ParticleSwarm
+{
+    /** Number of particles for this particle swarm. */
+    private final int particles;
+
+    /** Number of dimensions for this particle swarm. */
+    private final int dimensions;
+
+    /** Particle positions. */
+    final double[] position;
+
+    /** Particle velocities. */
+    final double[] velocity;
+
+    /** Particle cognitive memory. */
+    final double[] cognitiveMemory;
+
+    /** Particle fitness. */
+    final double[] fitness;
+
+    /** Fitness of each particle's cognitive memory. */
+    final double[] cognitiveFitness;
+
+    /** Social memory. */
+    final double[] socialMemory;
+
+    /** Fitness of the social memory. */
+    double socialFitness;
+
+
+    /**
+     * Create a new array particle swarm with the specified
+     * number of particles and number of dimensions.
+     *
+     * @param particles number of particles for this particle swarm,
+     *    must be &gt;= 1
+     * @param dimensions number of dimensions for this particle swarm,
+     *    must be &gt;= 1
+     */
+    ArrayParticleSwarm(final int particles, final int dimensions)
+    {
+        if (particles < 1)
+        {
+            throw new IllegalArgumentException("particles must be at least one");
+        }
+        if (dimensions < 1)
+        {
+            throw new IllegalArgumentException("dimensions must be at least one");
+        }
+        if ((long) particles * dimensions > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("particles * dimensions must be less than Integer.MAX_VALUE");
+        }
+        this.particles = particles;
+        this.dimensions = dimensions;
+        int size = particles * dimensions;
+        position = new double[size];
+        velocity = new double[size];
+        cognitiveMemory = new double[size];
+        fitness = new double[particles];
+        cognitiveFitness = new double[particles];
+        socialMemory = new double[dimensions];
+        socialFitness = -1 * Double.MAX_VALUE;
+    }
+
+
+    /** {@inheritDoc} */
+    public int getParticles()
+    {
+        return particles;
+    }
+
+    /** {@inheritDoc} */
+    public int getDimensions()
+    {
+        return dimensions;
+    }
+
+    /** {@inheritDoc} */
+    public double[] getSocialMemory()
+    {
+        return socialMemory.clone();
+    }
+
+    /**
+     * Return a copy of the row for the specified particle in the specified array.
+     *
+     * @param values array of values
+     * @param particle particle
+     * @return a copy of the row for the specified particle in the specified array
+     */
+    private double[] row(final double[] values, final int particle)
+    {
+        double[] row = new double[dimensions];
+        System.arraycopy(values, particle * dimensions, row, 0, dimensions);
+        return row;
+    }
+
+    /** {@inheritDoc} */
+    public Iterator<Particle> iterator()
+    {
+        return new ParticleIterator();
+    }
+
+    /**
+     * Particle iterator.
+     */
+    private class ParticleIterator
+        implements Iterator<Particle>
+    {
+        /** Index of particle to be returned by subsequent call to next. */
+        private int index = 0;
+
+
+        /** {@inheritDoc} */
+        public boolean hasNext()
+        {
+            return (index < particles);
+        }
+
+        /** {@inheritDoc} */
+        public Particle next()
+        {
+            if (index >= particles)
+            {
+                throw new NoSuchElementException();
+            }
+            Particle particle = new ParticleImpl(index);
+            index++;
+            return particle;
+        }
+
+        /** {@inheritDoc} */
+        public void remove()
+        {
+            throw new UnsupportedOperationException("remove operation not supported by this iterator");
+        }
+    }
+
+    /**
+     * Particle implementation.
+     */
+    private class ParticleImpl
+        implements Particle
+    {
+        /** Index for this particle implementation. */
+        private final int index;
+
+
+        /**
+         * Create a new particle implementation with the specified index.
+         *
+         * @param index index for this particle implementation
+         */
+        ParticleImpl(final int index)
+        {
+            this.index = index;
+        }
+
+
+        /** {@inheritDoc} */
+        public int getDimensions()
+        {
+            return dimensions;
+        }
+
+        /** {@inheritDoc} */
+        public double getFitness()
+        {
+            return fitness[index];
+        }
+
+        /** {@inheritDoc} */
+        public double[] getPosition()
+        {
+            return row(position, index);
+        }
+
+        /** {@inheritDoc} */
+        public double[] getVelocity()
+        {
+            return row(velocity, index);
+        }
+
+        /** {@inheritDoc} */
+        public double[] getCognitiveMemory()
+        {
+            return row(cognitiveMemory, index);
+        }
+    }
+}
@@ -23,8 +23,15 @@
 */
 package org.dishevelled.swarm;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import java.beans.PropertyChangeSupport;
 import java.beans.PropertyChangeListener;
 
@@ -89,6 +96,15 @@ public final class ParticleSwarmOptimizationAlgorithm
     /** Default maximum velocity. */
     public static final double DEFAULT_MAXIMUM_VELOCITY = 0.5d;
 
+    /** Minimum number of particles per task, below which per epoch task overhead outweighs the updates. */
+    private static final int MINIMUM_PARTICLES_PER_TASK = 16;
+
+    /** Golden ratio increment for split mix random number streams. */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** Scale from 53 random bits to a double in <code>[0.0d, 1.0d)</code>. */
+    private static final double DOUBLE_UNIT = 1.0d / (1L << 53);
+
 
     /**
      * Create a new particle swarm optimization algorithm function
@@ -210,6 +226,322 @@ public final class ParticleSwarmOptimizationAlgorithm
         return swarm;
     }
 
+    /**
+     * Optimize a particle swarm of the specified size over the specified
+     * number of dimensions given the specified exit strategy and fitness
+     * functions, updating particles and calculating fitness concurrently
+     * with the specified executor service.
+     *
+     * <p>Particle state is kept in flat arrays of doubles.  Each particle draws from
+     * its own random number stream, split from a seed taken from the source of randomness
+     * for this particle swarm optimization algorithm, so results are reproducible given
+     * the same source of randomness regardless of the number of threads.  Social memory
+     * is updated synchronously, once per epoch, from the best cognitive memory in the
+     * swarm.  Events are fired on the calling thread, in particle order, after each epoch's
+     * updates are complete.</p>
+     *
+     * <p>The fitness function must be safe for concurrent use.  The executor service
+     * is not shut down by this method.</p>
+     *
+     * @param particles number of particles, must be <code>&gt;= 1</code>
+     * @param dimensions number of dimensions, must be <code>&gt;= 1</code>
+     * @param exitStrategy exit strategy function, must not be null
+     * @param fitness fitness function, must not be null
+     * @param executorService executor service, must not be null
+     * @return 2D matrix of particle positions with <code>particles</code>
+     *    rows and <code>dimensions</code> columns
+     */
+    public ParticleSwarm optimize(final int particles,
+                                  final int dimensions,
+                                  final ExitStrategy exitStrategy,
+                                  final Fitness fitness,
+                                  final ExecutorService executorService)
+    {
+        if (exitStrategy == null)
+        {
+            throw new IllegalArgumentException("exitStrategy must not be null");
+        }
+        if (fitness == null)
+        {
+            throw new IllegalArgumentException("fitness must not be null");
+        }
+        if (executorService == null)
+        {
+            throw new IllegalArgumentException("executorService must not be null");
+        }
+        final ArrayParticleSwarm swarm = new ArrayParticleSwarm(particles, dimensions);
+        final long[] streams = new long[particles];
+        long seed = random.nextLong();
+        for (int particle = 0; particle < particles; particle++)
+        {
+            streams[particle] = mix64(seed + GOLDEN_GAMMA * (particle + 1L));
+        }
+
+        // initialize positions, cognitive memory, and fitness
+        invokeAll(executorService, tasks(particles, new ParticleRange()
+            {
+                /** {@inheritDoc} */
+                public void run(final int start, final int end)
+                {
+                    initialize(swarm, streams, fitness, start, end);
+                }
+            }));
+        updateSocialMemory(swarm);
+
+        // every epoch updates the same ranges of particles, so create the update tasks once
+        List<Callable<Object>> updates = tasks(particles, new ParticleRange()
+            {
+                /** {@inheritDoc} */
+                public void run(final int start, final int end)
+                {
+                    update(swarm, streams, fitness, start, end);
+                }
+            });
+        int epoch = 0;
+        while (!exitStrategy.evaluate(swarm, epoch))
+        {
+            fireExitFailed(swarm, epoch);
+            invokeAll(executorService, updates);
+            updateSocialMemory(swarm);
+
+            if (getParticleSwarmOptimizationAlgorithmListenerCount() > 0)
+            {
+                for (int particle = 0; particle < particles; particle++)
+                {
+                    for (int dimension = 0, i = particle * dimensions; dimension < dimensions; dimension++, i++)
+                    {
+                        fireVelocityCalculated(particle, dimension, swarm.velocity[i]);
+                        firePositionUpdated(particle, dimension, swarm.position[i]);
+                    }
+                    fireFitnessCalculated(particle, swarm.fitness[particle]);
+                }
+            }
+            epoch++;
+        }
+        fireExitSucceeded(swarm, epoch);
+        return swarm;
+    }
+
+    /**
+     * Initialize particles in the specified range with random positions.
+     *
+     * @param swarm particle swarm
+     * @param streams random number stream states by particle
+     * @param fitness fitness function
+     * @param start first particle, inclusive
+     * @param end last particle, exclusive
+     */
+    private void initialize(final ArrayParticleSwarm swarm,
+                            final long[] streams,
+                            final Fitness fitness,
+                            final int start,
+                            final int end)
+    {
+        int dimensions = swarm.getDimensions();
+        double range = Math.abs(maximumPosition - minimumPosition);
+        double[] row = new double[dimensions];
+        for (int particle = start; particle < end; particle++)
+        {
+            long stream = streams[particle];
+            int offset = particle * dimensions;
+            for (int dimension = 0; dimension < dimensions; dimension++)
+            {
+                stream += GOLDEN_GAMMA;
+                row[dimension] = (nextDouble(stream) * range) + minimumPosition;
+            }
+            streams[particle] = stream;
+            System.arraycopy(row, 0, swarm.position, offset, dimensions);
+            System.arraycopy(row, 0, swarm.cognitiveMemory, offset, dimensions);
+
+            double fx = fitness.score(row);
+            swarm.fitness[particle] = fx;
+            swarm.cognitiveFitness[particle] = fx;
+        }
+    }
+
+    /**
+     * Update velocities, positions, fitness, and cognitive memory for
+     * particles in the specified range.
+     *
+     * @param swarm particle swarm
+     * @param streams random number stream states by particle
+     * @param fitness fitness function
+     * @param start first particle, inclusive
+     * @param end last particle, exclusive
+     */
+    private void update(final ArrayParticleSwarm swarm,
+                        final long[] streams,
+                        final Fitness fitness,
+                        final int start,
+                        final int end)
+    {
+        int dimensions = swarm.getDimensions();
+        double[] position = swarm.position;
+        double[] velocity = swarm.velocity;
+        double[] cognitiveMemory = swarm.cognitiveMemory;
+        double[] socialMemory = swarm.socialMemory;
+        double[] row = new double[dimensions];
+        for (int particle = start; particle < end; particle++)
+        {
+            long stream = streams[particle];
+            int offset = particle * dimensions;
+            for (int dimension = 0, i = offset; dimension < dimensions; dimension++, i++)
+            {
+                // eq. 1 and eq. 2, see optimize(int, int, ExitStrategy, Fitness)
+                stream += GOLDEN_GAMMA;
+                double r1 = nextDouble(stream);
+                stream += GOLDEN_GAMMA;
+                double r2 = nextDouble(stream);
+                double x = position[i];
+                double v = inertiaWeight * velocity[i] + cognitiveWeight * r1 * (cognitiveMemory[i] - x)
+                    + socialWeight * r2 * (socialMemory[dimension] - x);
+                v = Math.min(Math.max(v, minimumVelocity), maximumVelocity);
+                velocity[i] = v;
+                x = Math.min(Math.max(x + v, minimumPosition), maximumPosition);
+                position[i] = x;
+                row[dimension] = x;
+            }
+            streams[particle] = stream;
+
+            double fx = fitness.score(row);
+            swarm.fitness[particle] = fx;
+            if (fx > swarm.cognitiveFitness[particle])
+            {
+                swarm.cognitiveFitness[particle] = fx;
+                System.arraycopy(position, offset, cognitiveMemory, offset, dimensions);
+            }
+        }
+    }
+
+    /**
+     * Update the social memory for the specified particle swarm from the best
+     * cognitive memory, ties going to the lowest particle index.
+     *
+     * @param swarm particle swarm
+     */
+    private static void updateSocialMemory(final ArrayParticleSwarm swarm)
+    {
+        int best = -1;
+        double bestFitness = swarm.socialFitness;
+        for (int particle = 0, particles = swarm.getParticles(); particle < particles; particle++)
+        {
+            if (swarm.cognitiveFitness[particle] > bestFitness)
+            {
+                best = particle;
+                bestFitness = swarm.cognitiveFitness[particle];
+            }
+        }
+        if (best >= 0)
+        {
+            int dimensions = swarm.getDimensions();
+            System.arraycopy(swarm.cognitiveMemory, best * dimensions, swarm.socialMemory, 0, dimensions);
+            swarm.socialFitness = bestFitness;
+        }
+    }
+
+    /**
+     * Split the specified number of particles into one contiguous range per available processor,
+     * each of at least <code>MINIMUM_PARTICLES_PER_TASK</code> particles, and return a task for each
+     * range.  Every particle costs the same to update, so there is no need for more ranges than
+     * processors.
+     *
+     * @param particles number of particles
+     * @param range particle range task
+     * @return a task for each range of particles
+     */
+    private static List<Callable<Object>> tasks(final int particles, final ParticleRange range)
+    {
+        int count = Math.min(Runtime.getRuntime().availableProcessors(),
+                             Math.max(1, particles / MINIMUM_PARTICLES_PER_TASK));
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(count);
+        for (int i = 0; i < count; i++)
+        {
+            final int start = (int) ((long) particles * i / count);
+            final int end = (int) ((long) particles * (i + 1) / count);
+            tasks.add(new Callable<Object>()
+                {
+                    /** {@inheritDoc} */
+                    public Object call()
+                    {
+                        range.run(start, end);
+                        return null;
+                    }
+                });
+        }
+        return tasks;
+    }
+
+    /**
+     * Run the specified tasks with the specified executor service, waiting for all of them
+     * to complete.  Runtime exceptions thrown by the fitness function are rethrown as is.
+     *
+     * @param executorService executor service
+     * @param tasks tasks to run
+     */
+    private static void invokeAll(final ExecutorService executorService, final List<Callable<Object>> tasks)
+    {
+        try
+        {
+            for (Future<Object> future : executorService.invokeAll(tasks))
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while updating particles", e);
+        }
+        catch (ExecutionException e)
+        {
+            // particle range tasks throw only what the fitness function throws, which is unchecked
+            if (e.getCause() instanceof Error)
+            {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Split mix 64-bit finalizer.
+     *
+     * @param z value to mix
+     * @return mixed value
+     */
+    private static long mix64(final long z)
+    {
+        long x = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Return a double in <code>[0.0d, 1.0d)</code> for the specified split mix stream state.
+     *
+     * @param state stream state, already advanced
+     * @return a double in <code>[0.0d, 1.0d)</code>
+     */
+    private static double nextDouble(final long state)
+    {
+        return (mix64(state) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Task over a contiguous range of particles.
+     */
+    private interface ParticleRange
+    {
+
+        /**
+         * Run this task over the specified range of particles.
+         *
+         * @param start first particle, inclusive
+         * @param end last particle, exclusive
+         */
+        void run(int start, int end);
+    }
+
     /**
      * Return the source of randomness for this particle swarm optimization algorithm.
      * The source of randomness will not be null.
@@ -26,9 +26,14 @@ package org.dishevelled.swarm;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import java.util.Arrays;
 import java.util.EventListenerProxy;
+import java.util.Iterator;
 import java.util.Random;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import junit.framework.TestCase;
 
 // todo:  circular package dependency!
@@ -295,4 +300,118 @@ public final class ParticleSwarmOptimizationAlgorithmTest
             // expected
         }
     }
+
+    public void testOptimizeExecutorService()
+    {
+        ParticleSwarmOptimizationAlgorithm algorithm = new ParticleSwarmOptimizationAlgorithm();
+        ExitStrategy exitStrategy = new EpochLimitExitStrategy(10);
+        Fitness fitness = new RandomFitness();
+        ParticleSwarmOptimizationAlgorithmListener listener = new ParticleSwarmOptimizationAlgorithmAdapter();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try
+        {
+            algorithm.addParticleSwarmOptimizationAlgorithmListener(listener);
+            ParticleSwarm swarm = algorithm.optimize(100, 10, exitStrategy, fitness, executorService);
+            assertNotNull(swarm);
+            assertEquals(100, swarm.getParticles());
+            assertEquals(10, swarm.getDimensions());
+            assertEquals(10, swarm.getSocialMemory().length);
+            for (Particle particle : swarm)
+            {
+                assertEquals(10, particle.getPosition().length);
+                for (double x : particle.getPosition())
+                {
+                    assertTrue(x >= algorithm.getMinimumPosition());
+                    assertTrue(x <= algorithm.getMaximumPosition());
+                }
+            }
+            algorithm.removeParticleSwarmOptimizationAlgorithmListener(listener);
+
+            try
+            {
+                algorithm.optimize(0, 10, exitStrategy, fitness, executorService);
+                fail("particles < 1 expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            try
+            {
+                algorithm.optimize(10, 10, null, fitness, executorService);
+                fail("optimize(,,null,,) expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            try
+            {
+                algorithm.optimize(10, 10, exitStrategy, null, executorService);
+                fail("optimize(,,,null,) expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            try
+            {
+                algorithm.optimize(10, 10, exitStrategy, fitness, null);
+                fail("optimize(,,,,null) expected IllegalArgumentException");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    public void testOptimizeExecutorServiceReproducible()
+    {
+        Fitness sphere = new Fitness()
+            {
+                /** {@inheritDoc} */
+                public double score(final double[] position)
+                {
+                    double sum = 0.0d;
+                    for (double x : position)
+                    {
+                        sum += (x - 0.25d) * (x - 0.25d);
+                    }
+                    return -sum;
+                }
+            };
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try
+        {
+            ParticleSwarmOptimizationAlgorithm algorithm = new ParticleSwarmOptimizationAlgorithm();
+            algorithm.setRandom(new Random(42L));
+            ParticleSwarm swarm0 = algorithm.optimize(500, 20, new EpochLimitExitStrategy(50), sphere, single);
+            algorithm.setRandom(new Random(42L));
+            ParticleSwarm swarm1 = algorithm.optimize(500, 20, new EpochLimitExitStrategy(50), sphere, pool);
+
+            assertTrue(Arrays.equals(swarm0.getSocialMemory(), swarm1.getSocialMemory()));
+            Iterator<Particle> particles1 = swarm1.iterator();
+            for (Particle particle0 : swarm0)
+            {
+                Particle particle1 = particles1.next();
+                assertEquals(particle0.getFitness(), particle1.getFitness());
+                assertTrue(Arrays.equals(particle0.getPosition(), particle1.getPosition()));
+            }
+
+            algorithm.setRandom(new Random(42L));
+            ParticleSwarm initial = algorithm.optimize(500, 20, new EpochLimitExitStrategy(0), sphere, pool);
+            assertTrue(sphere.score(swarm0.getSocialMemory()) > sphere.score(initial.getSocialMemory()));
+        }
+        finally
+        {
+            single.shutdownNow();
+            pool.shutdownNow();
+        }
+    }
 }
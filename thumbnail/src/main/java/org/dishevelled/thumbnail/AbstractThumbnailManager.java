@@ -27,6 +27,7 @@ import java.awt.image.BufferedImage;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 import java.net.URI;
 import java.net.URL;
@@ -36,11 +37,16 @@ import java.nio.file.Files;
 import java.nio.file.attribute.PosixFilePermission;
 
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.Set;
 
 import java.util.concurrent.TimeUnit;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+
+import javax.imageio.stream.ImageInputStream;
 
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -53,6 +59,11 @@ import org.imgscalr.Scalr;
 /**
  * Abstract thumbnail manager.
  *
+ * <p>Original images are decoded at reduced resolution, using an embedded thumbnail image
+ * if the image format provides one at least as large as the thumbnail size, or otherwise
+ * subsampling the original image to no less than twice the thumbnail size, before being
+ * resized to the thumbnail size.</p>
+ *
  * @author  Michael Heuer
  */
 public abstract class AbstractThumbnailManager implements ThumbnailManager
@@ -94,6 +105,9 @@ public abstract class AbstractThumbnailManager implements ThumbnailManager
     /** Large (256x256 pixel) size. */
     private static final int LARGE_SIZE = 256;
 
+    /** Factor of the thumbnail size below which original images are not subsampled. */
+    private static final int SUBSAMPLING_HEADROOM = 2;
+
     /** Directory permissions. */
     private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = EnumSet.of(PosixFilePermission.OWNER_READ,
                                                                                      PosixFilePermission.OWNER_WRITE,
@@ -184,35 +198,50 @@ public abstract class AbstractThumbnailManager implements ThumbnailManager
     }
 
     /**
-     * Create and return a thumbnail image for the specified URI.
+     * Return the fail file for the specified URI, throwing an exception if it exists.
      *
      * @param uri URI for the original image, must not be null
-     * @param modificationTime modification time for the original image
-     * @param thumbnailDirectory thumbnail directory
-     * @param size size
-     * @return a thumbnail image for the specified URI
-     * @throws IOException if an I/O error occurs
+     * @return the fail file for the specified URI
+     * @throws IOException if the fail file for the specified URI exists
      */
-    private BufferedImage createThumbnail(final URI uri,
-                                          final long modificationTime,
-                                          final File thumbnailDirectory,
-                                          final int size) throws IOException
+    private File checkFailFile(final URI uri) throws IOException
     {
         if (uri == null)
         {
             throw new IllegalArgumentException("uri must not be null");
         }
-        String fileName = DigestUtils.md5Hex(uri.toString()) + ".png";
-
-        // fail fast if fail file exists
-        File failFile = new File(failDirectory, fileName);
+        File failFile = new File(failDirectory, fileName(uri));
         if (failFile.exists())
         {
             throw new IOException("cannot create a thumbnail image for " + uri);
         }
+        return failFile;
+    }
 
-        // check if thumbnail exists
-        File thumbnailFile = new File(thumbnailDirectory, fileName);
+    /**
+     * Return the thumbnail file name for the specified URI.
+     *
+     * @param uri URI for the original image
+     * @return the thumbnail file name for the specified URI
+     */
+    private static String fileName(final URI uri)
+    {
+        return DigestUtils.md5Hex(uri.toString()) + ".png";
+    }
+
+    /**
+     * Return the existing thumbnail image for the specified URI in the specified thumbnail
+     * directory, if any and if it is up to date.
+     *
+     * @param uri URI for the original image
+     * @param modificationTime modification time for the original image
+     * @param thumbnailDirectory thumbnail directory
+     * @return the existing thumbnail image for the specified URI, or <code>null</code>
+     *    if none exists or if it is out of date
+     */
+    private BufferedImage existingThumbnail(final URI uri, final long modificationTime, final File thumbnailDirectory)
+    {
+        File thumbnailFile = new File(thumbnailDirectory, fileName(uri));
         if (thumbnailFile.exists())
         {
             Thumbnail thumbnail = cache.getUnchecked(thumbnailFile);
@@ -221,35 +250,177 @@ public abstract class AbstractThumbnailManager implements ThumbnailManager
                 return thumbnail.getImage();
             }
         }
+        return null;
+    }
 
-        // load the image and create new thumbnail
+    /**
+     * Decode and return the original image for the specified URI at reduced resolution, no
+     * smaller than the specified size, creating the specified fail file if it cannot be decoded.
+     *
+     * @param uri URI for the original image
+     * @param size size
+     * @param failFile fail file
+     * @return the original image for the specified URI at reduced resolution
+     * @throws IOException if an I/O error occurs
+     */
+    private Decoded decode(final URI uri, final int size, final File failFile) throws IOException
+    {
         URL url = uri.toURL();
-        BufferedImage image = null;
+        Decoded decoded = null;
         try
         {
-            image = ImageIO.read(url);
+            decoded = decode(url, size);
         }
         catch (IOException e)
         {
             createFailFile(failFile);
             throw new IOException("cannot create a thumbnail image for " + uri, e);
         }
-        if (image == null)
+        if (decoded == null)
         {
             createFailFile(failFile);
             throw new IOException("cannot create a thumbnail image for " + uri);
         }
-        Thumbnail thumbnail = new Thumbnail(uri, modificationTime, image.getWidth(), image.getHeight(),
-                                            Scalr.resize(image, size));
+        return decoded;
+    }
 
+    /**
+     * Decode and return the original image from the specified URL at reduced resolution,
+     * no smaller than the specified size.
+     *
+     * @param url URL for the original image
+     * @param size size
+     * @return the original image from the specified URL at reduced resolution, or <code>null</code>
+     *    if no image reader is able to decode it
+     * @throws IOException if an I/O error occurs
+     */
+    static Decoded decode(final URL url, final int size) throws IOException
+    {
+        InputStream inputStream = url.openStream();
+        try
+        {
+            ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream);
+            if (imageInputStream == null)
+            {
+                return null;
+            }
+            try
+            {
+                Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
+                if (!imageReaders.hasNext())
+                {
+                    return null;
+                }
+                ImageReader imageReader = imageReaders.next();
+                try
+                {
+                    imageReader.setInput(imageInputStream, true, false);
+                    int width = imageReader.getWidth(0);
+                    int height = imageReader.getHeight(0);
+
+                    // prefer the smallest embedded thumbnail image at least as large as size
+                    if (imageReader.readerSupportsThumbnails())
+                    {
+                        int thumbnailIndex = -1;
+                        int thumbnailLength = Integer.MAX_VALUE;
+                        for (int i = 0, thumbnails = imageReader.getNumThumbnails(0); i < thumbnails; i++)
+                        {
+                            int length = Math.max(imageReader.getThumbnailWidth(0, i), imageReader.getThumbnailHeight(0, i));
+                            if (length >= size && length < thumbnailLength)
+                            {
+                                thumbnailIndex = i;
+                                thumbnailLength = length;
+                            }
+                        }
+                        if (thumbnailIndex >= 0)
+                        {
+                            return new Decoded(width, height, imageReader.readThumbnail(0, thumbnailIndex));
+                        }
+                    }
+
+                    // otherwise subsample rows and columns evenly, keeping headroom for resizing
+                    int subsampling = Math.max(1, Math.max(width, height) / (SUBSAMPLING_HEADROOM * size));
+                    ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+                    imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                    return new Decoded(width, height, imageReader.read(0, imageReadParam));
+                }
+                finally
+                {
+                    imageReader.dispose();
+                }
+            }
+            finally
+            {
+                imageInputStream.close();
+            }
+        }
+        finally
+        {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Resize the specified decoded image, write it as a thumbnail image for the specified URI
+     * in the specified thumbnail directory, and return it.
+     *
+     * @param uri URI for the original image
+     * @param modificationTime modification time for the original image
+     * @param decoded decoded image
+     * @param thumbnailDirectory thumbnail directory
+     * @param size size
+     * @return the thumbnail image
+     * @throws IOException if an I/O error occurs
+     */
+    private BufferedImage writeThumbnail(final URI uri,
+                                         final long modificationTime,
+                                         final Decoded decoded,
+                                         final File thumbnailDirectory,
+                                         final int size) throws IOException
+    {
+        Thumbnail thumbnail = new Thumbnail(uri, modificationTime, decoded.getWidth(), decoded.getHeight(),
+                                            Scalr.resize(decoded.getImage(), size));
+
+        File thumbnailFile = new File(thumbnailDirectory, fileName(uri));
         File tmp = File.createTempFile("tmp", ".png", thumbnailDirectory);
         fixPermissions(tmp);
         thumbnail.write(tmp);
         com.google.common.io.Files.move(tmp, thumbnailFile);
+        cache.put(thumbnailFile, thumbnail);
 
         return thumbnail.getImage();
     }
 
+    /**
+     * Create and return a thumbnail image for the specified URI.
+     *
+     * @param uri URI for the original image, must not be null
+     * @param modificationTime modification time for the original image
+     * @param thumbnailDirectory thumbnail directory
+     * @param size size
+     * @return a thumbnail image for the specified URI
+     * @throws IOException if an I/O error occurs
+     */
+    private BufferedImage createThumbnail(final URI uri,
+                                          final long modificationTime,
+                                          final File thumbnailDirectory,
+                                          final int size) throws IOException
+    {
+        // fail fast if fail file exists
+        File failFile = checkFailFile(uri);
+
+        // check if thumbnail exists
+        BufferedImage thumbnailImage = existingThumbnail(uri, modificationTime, thumbnailDirectory);
+        if (thumbnailImage != null)
+        {
+            return thumbnailImage;
+        }
+
+        // decode the image at reduced resolution and create new thumbnail
+        Decoded decoded = decode(uri, size, failFile);
+        return writeThumbnail(uri, modificationTime, decoded, thumbnailDirectory, size);
+    }
+
     @Override
     public final BufferedImage createThumbnail(final URI uri, final long modificationTime) throws IOException
     {
@@ -261,4 +432,96 @@ public abstract class AbstractThumbnailManager implements ThumbnailManager
     {
         return createThumbnail(uri, modificationTime, largeDirectory, LARGE_SIZE);
     }
+
+    /**
+     * Create both normal size (128x128 pixel) and large size (256x256 pixel) thumbnail images
+     * for the specified URI, if they do not already exist or are out of date, decoding the
+     * original image only once.  The thumbnail images may then be retrieved by calling
+     * {@link #createThumbnail(URI, long)} and {@link #createLargeThumbnail(URI, long)}.
+     *
+     * @param uri URI for the original image, must not be null
+     * @param modificationTime modification time for the original image
+     * @throws IOException if an I/O error occurs
+     */
+    public final void createThumbnails(final URI uri, final long modificationTime) throws IOException
+    {
+        File failFile = checkFailFile(uri);
+        boolean normal = existingThumbnail(uri, modificationTime, normalDirectory) == null;
+        boolean large = existingThumbnail(uri, modificationTime, largeDirectory) == null;
+        if (!normal && !large)
+        {
+            return;
+        }
+        Decoded decoded = decode(uri, large ? LARGE_SIZE : NORMAL_SIZE, failFile);
+        if (large)
+        {
+            writeThumbnail(uri, modificationTime, decoded, largeDirectory, LARGE_SIZE);
+        }
+        if (normal)
+        {
+            writeThumbnail(uri, modificationTime, decoded, normalDirectory, NORMAL_SIZE);
+        }
+    }
+
+
+    /**
+     * Original image decoded at reduced resolution.
+     */
+    static final class Decoded
+    {
+        /** Width of the original image. */
+        private final int width;
+
+        /** Height of the original image. */
+        private final int height;
+
+        /** Image decoded at reduced resolution. */
+        private final BufferedImage image;
+
+
+        /**
+         * Create a new decoded image.
+         *
+         * @param width width of the original image
+         * @param height height of the original image
+         * @param image image decoded at reduced resolution
+         */
+        Decoded(final int width, final int height, final BufferedImage image)
+        {
+            this.width = width;
+            this.height = height;
+            this.image = image;
+        }
+
+
+        /**
+         * Return the width of the original image.
+         *
+         * @return the width of the original image
+         */
+        int getWidth()
+        {
+            return width;
+        }
+
+        /**
+         * Return the height of the original image.
+         *
+         * @return the height of the original image
+         */
+        int getHeight()
+        {
+            return height;
+        }
+
+        /**
+         * Return the image decoded at reduced resolution.
+         *
+         * @return the image decoded at reduced resolution
+         */
+        BufferedImage getImage()
+        {
+            return image;
+        }
+    }
 }
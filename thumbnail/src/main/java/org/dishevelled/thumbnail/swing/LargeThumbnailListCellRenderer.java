@@ -76,7 +76,7 @@ public final class LargeThumbnailListCellRenderer extends StripeListCellRenderer
         if (value instanceof URI)
         {
             URI uri = (URI) value;
-            Image thumbnail = thumbnailCache.getLargeThumbnail(uri);
+            Image thumbnail = thumbnailCache.getLargeThumbnail(uri, list, index);
             if (imageIcon == null)
             {
                 imageIcon = new ImageIcon(thumbnail);
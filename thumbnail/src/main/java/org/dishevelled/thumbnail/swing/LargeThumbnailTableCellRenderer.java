@@ -77,7 +77,7 @@ public final class LargeThumbnailTableCellRenderer extends StripeTableCellRender
         if (value instanceof URI)
         {
             URI uri = (URI) value;
-            Image thumbnail = thumbnailCache.getLargeThumbnail(uri);
+            Image thumbnail = thumbnailCache.getLargeThumbnail(uri, table, table.getCellRect(row, column, false));
             if (imageIcon == null)
             {
                 imageIcon = new ImageIcon(thumbnail);
@@ -24,36 +24,54 @@
 package org.dishevelled.thumbnail.swing;
 
 import java.awt.Component;
+import java.awt.Rectangle;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 
 import java.io.IOException;
 
 import java.net.URI;
 
 import java.util.List;
+import java.util.Set;
 
-import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.JComponent;
+import javax.swing.JList;
 import javax.swing.SwingUtilities;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
 
-import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListenableFutureTask;
-import com.google.common.util.concurrent.Futures;
+import com.google.common.collect.Maps;
 
 import org.dishevelled.thumbnail.ThumbnailManager;
 
 /**
  * Thumbnail cache.
  *
+ * <p>Thumbnail images are cached up to a maximum number of bytes of pixel data, and are
+ * created asynchronously by a bounded pool of worker threads.  Pending requests are
+ * queued once and prioritized most recently created first, so that the cells currently
+ * being painted are loaded before those painted earlier.  Requests made with a component
+ * and cell are cancelled if the cell is no longer visible before a worker thread starts
+ * on them, and on load repaint only that cell; other requests repaint every component
+ * added to this thumbnail cache.  Thumbnail images that could not be created are not
+ * requested again until a failure expiry time has passed.</p>
+ *
  * @author  Michael Heuer
  */
 public final class ThumbnailCache
@@ -70,116 +88,125 @@ public final class ThumbnailCache
     /** List of components to repaint. */
     private final List<Component> repaint;
 
-    /** Executor service. */
-    private final ExecutorService executorService;
+    /** Executor service for worker threads. */
+    private final ThreadPoolExecutor executorService;
 
     /** Last modified cache. */
     private final LastModifiedCache lastModifiedCache;
 
-    /** Maximum cache size. */
-    private static final int MAXIMUM_SIZE = 100000;
-
-    /** Cache refresh after write, in ms. */
-    private static final int REFRESH = 10;
-
-    /** Cache of thumbnails keyed by URI, allowing for asynchronous refresh. */
-    private final LoadingCache<URI, BufferedImage> cache = CacheBuilder.newBuilder()
-        .maximumSize(MAXIMUM_SIZE)
-        .refreshAfterWrite(REFRESH, TimeUnit.MILLISECONDS)
-        .build(new CacheLoader<URI, BufferedImage>()
-               {
-                   @Override
-                   public BufferedImage load(final URI uri)
-                   {
-                       return EMPTY_IMAGE;
-                   }
-
-                   @Override
-                   public ListenableFuture<BufferedImage> reload(final URI uri, final BufferedImage image)
-                   {
-                       if (image.equals(EMPTY_IMAGE))
-                       {
-                           ListenableFutureTask<BufferedImage> task = ListenableFutureTask.create(new Callable<BufferedImage>()
-                               {
-                                   @Override
-                                   public BufferedImage call() throws IOException
-                                   {
-                                       return thumbnailManager.createThumbnail(uri, lastModifiedCache.get(uri));
-                                   }
-                               });
-                           task.addListener(new Runnable()
-                               {
-                                   @Override
-                                   public void run()
-                                   {
-                                       SwingUtilities.invokeLater(new Runnable()
-                                           {
-                                               @Override
-                                               public void run()
-                                               {
-                                                   for (Component component : repaint)
-                                                   {
-                                                       component.repaint();
-                                                   }
-                                               }
-                                           });
-                                   }
-                               }, executorService);
-                           executorService.execute(task);
-                           return task;
-                       }
-                       return Futures.immediateFuture(image);
-                   }
-               });
-
-    /** Cache of large thumbnails keyed by URI, allowing for asynchronous refresh. */
-    private final LoadingCache<URI, BufferedImage> largeCache = CacheBuilder.newBuilder()
-        .maximumSize(MAXIMUM_SIZE)
-        .refreshAfterWrite(REFRESH, TimeUnit.MILLISECONDS)
-        .build(new CacheLoader<URI, BufferedImage>()
-               {
-                   @Override
-                   public BufferedImage load(final URI uri)
-                   {
-                       return EMPTY_IMAGE;
-                   }
-
-                   @Override
-                   public ListenableFuture<BufferedImage> reload(final URI uri, final BufferedImage image)
-                   {
-                       if (image.equals(EMPTY_IMAGE))
-                       {
-                           ListenableFutureTask<BufferedImage> task = ListenableFutureTask.create(new Callable<BufferedImage>()
-                               {
-                                   @Override
-                                   public BufferedImage call() throws IOException
-                                   {
-                                       return thumbnailManager.createLargeThumbnail(uri, lastModifiedCache.get(uri));
-                                   }
-                               });
-                           executorService.execute(task);
-                           return task;
-                       }
-                       return Futures.immediateFuture(image);
-                   }
-               });
-
-    /**
-     * Create a new thumbnail cache with the specified thumbnail manager.
+    /** Cache of thumbnail images keyed by URI and size, weighed by pixel bytes. */
+    private final Cache<Key, BufferedImage> cache;
+
+    /** Failed requests keyed by URI and size, expired after the failure expiry time. */
+    private final Cache<Key, Boolean> failures;
+
+    /** Pending requests keyed by URI and size. */
+    private final ConcurrentMap<Key, Request> pending = Maps.newConcurrentMap();
+
+    /** Request sequence, later requests have higher priority. */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** True if pruning pending requests has been scheduled on the event dispatch thread. */
+    private final AtomicBoolean pruneScheduled = new AtomicBoolean();
+
+    /** Default maximum number of bytes of thumbnail image pixel data to cache, <code>128 MB</code>. */
+    public static final long DEFAULT_MAXIMUM_BYTES = 128L * 1024L * 1024L;
+
+    /** Default maximum number of worker threads, <code>4</code>. */
+    public static final int DEFAULT_MAXIMUM_THREADS = 4;
+
+    /** Default failure expiry time, in milliseconds, <code>60000</code>. */
+    static final long DEFAULT_FAILURE_EXPIRY = 60L * 1000L;
+
+    /** Worker thread keep alive time, in seconds. */
+    private static final long KEEP_ALIVE = 10L;
+
+    /** Request queued state. */
+    private static final int QUEUED = 0;
+
+    /** Request running state. */
+    private static final int RUNNING = 1;
+
+    /** Request cancelled state. */
+    private static final int CANCELLED = 2;
+
+
+    /**
+     * Create a new thumbnail cache with the specified thumbnail manager, the default maximum
+     * number of bytes, and one worker thread per available processor up to the default
+     * maximum number of worker threads.
      *
      * @param thumbnailManager thumbnail manager, must not be null
      */
     public ThumbnailCache(final ThumbnailManager thumbnailManager)
+    {
+        this(thumbnailManager, DEFAULT_MAXIMUM_BYTES,
+             Math.min(DEFAULT_MAXIMUM_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Create a new thumbnail cache with the specified thumbnail manager, maximum number of bytes,
+     * and number of worker threads.
+     *
+     * @param thumbnailManager thumbnail manager, must not be null
+     * @param maximumBytes maximum number of bytes of thumbnail image pixel data to cache, must be
+     *    at least <code>0</code>
+     * @param threads number of worker threads, must be at least <code>1</code>
+     */
+    public ThumbnailCache(final ThumbnailManager thumbnailManager, final long maximumBytes, final int threads)
+    {
+        this(thumbnailManager, maximumBytes, threads, DEFAULT_FAILURE_EXPIRY);
+    }
+
+    /**
+     * Create a new thumbnail cache with the specified thumbnail manager, maximum number of bytes,
+     * number of worker threads, and failure expiry time.
+     *
+     * @param thumbnailManager thumbnail manager, must not be null
+     * @param maximumBytes maximum number of bytes of thumbnail image pixel data to cache, must be
+     *    at least <code>0</code>
+     * @param threads number of worker threads, must be at least <code>1</code>
+     * @param failureExpiry time in milliseconds before a thumbnail image that could not be created
+     *    is requested again, must be at least <code>0</code>
+     */
+    ThumbnailCache(final ThumbnailManager thumbnailManager, final long maximumBytes, final int threads, final long failureExpiry)
     {
         if (thumbnailManager == null)
         {
             throw new IllegalArgumentException("thumbnailManager must not be null");
         }
+        if (maximumBytes < 0L)
+        {
+            throw new IllegalArgumentException("maximumBytes must be at least zero, was " + maximumBytes);
+        }
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("threads must be at least one, was " + threads);
+        }
+        if (failureExpiry < 0L)
+        {
+            throw new IllegalArgumentException("failureExpiry must be at least zero, was " + failureExpiry);
+        }
         this.thumbnailManager = thumbnailManager;
 
         repaint = new CopyOnWriteArrayList<Component>();
-        executorService = Executors.newCachedThreadPool();
-        lastModifiedCache = new LastModifiedCache(executorService);
+        cache = CacheBuilder.newBuilder()
+            .maximumWeight(maximumBytes)
+            .weigher(new Weigher<Key, BufferedImage>()
+                     {
+                         @Override
+                         public int weigh(final Key key, final BufferedImage image)
+                         {
+                             return bytes(image);
+                         }
+                     })
+            .build();
+        failures = CacheBuilder.newBuilder()
+            .expireAfterWrite(failureExpiry, TimeUnit.MILLISECONDS)
+            .build();
+        executorService = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>());
+        executorService.allowCoreThreadTimeOut(true);
+        lastModifiedCache = new LastModifiedCache(Executors.newSingleThreadExecutor());
     }
 
 
@@ -216,7 +243,52 @@ public final class ThumbnailCache
      */
     public BufferedImage getThumbnail(final URI uri)
     {
-        return cache.getUnchecked(uri);
+        return get(uri, false, null);
+    }
+
+    /**
+     * Return a normal size (128x128 pixel) thumbnail image for the specified URI, displayed in
+     * the specified cell of the specified component.  The thumbnail image will not be null but
+     * may be an empty image; if so, only the specified cell will be repainted once the thumbnail
+     * image has been created.
+     *
+     * @param uri URI for the original image, must not be null
+     * @param component component displaying the thumbnail image, must not be null
+     * @param cell cell rectangle in the coordinate space of the component, if null every component
+     *    added to this thumbnail cache will be repainted instead
+     * @return a normal size (128x128 pixel) thumbnail image for the specified URI
+     */
+    public BufferedImage getThumbnail(final URI uri, final Component component, final Rectangle cell)
+    {
+        if (component == null)
+        {
+            throw new IllegalArgumentException("component must not be null");
+        }
+        return get(uri, false, (cell == null) ? null : new Target(component, cell));
+    }
+
+    /**
+     * Return a normal size (128x128 pixel) thumbnail image for the specified URI, displayed in
+     * the cell at the specified index of the specified list.  The thumbnail image will not be
+     * null but may be an empty image; if so, only the specified cell will be repainted once the
+     * thumbnail image has been created.
+     *
+     * <p>The cell bounds are not resolved until later on the event dispatch thread, so this method
+     * is safe to call from a list cell renderer.</p>
+     *
+     * @param uri URI for the original image, must not be null
+     * @param list list displaying the thumbnail image, must not be null
+     * @param index index of the cell in the list, if less than zero every component added to this
+     *    thumbnail cache will be repainted instead
+     * @return a normal size (128x128 pixel) thumbnail image for the specified URI
+     */
+    public BufferedImage getThumbnail(final URI uri, final JList<?> list, final int index)
+    {
+        if (list == null)
+        {
+            throw new IllegalArgumentException("list must not be null");
+        }
+        return get(uri, false, (index < 0) ? null : new Target(list, index));
     }
 
     /**
@@ -228,6 +300,488 @@ public final class ThumbnailCache
      */
     public BufferedImage getLargeThumbnail(final URI uri)
     {
-        return largeCache.getUnchecked(uri);
+        return get(uri, true, null);
+    }
+
+    /**
+     * Return a large size (256x256 pixel) thumbnail image for the specified URI, displayed in
+     * the specified cell of the specified component.  The thumbnail image will not be null but
+     * may be an empty image; if so, only the specified cell will be repainted once the thumbnail
+     * image has been created.
+     *
+     * @param uri URI for the original image, must not be null
+     * @param component component displaying the thumbnail image, must not be null
+     * @param cell cell rectangle in the coordinate space of the component, if null every component
+     *    added to this thumbnail cache will be repainted instead
+     * @return a large size (256x256 pixel) thumbnail image for the specified URI
+     */
+    public BufferedImage getLargeThumbnail(final URI uri, final Component component, final Rectangle cell)
+    {
+        if (component == null)
+        {
+            throw new IllegalArgumentException("component must not be null");
+        }
+        return get(uri, true, (cell == null) ? null : new Target(component, cell));
+    }
+
+    /**
+     * Return a large size (256x256 pixel) thumbnail image for the specified URI, displayed in
+     * the cell at the specified index of the specified list.  The thumbnail image will not be
+     * null but may be an empty image; if so, only the specified cell will be repainted once the
+     * thumbnail image has been created.
+     *
+     * <p>The cell bounds are not resolved until later on the event dispatch thread, so this method
+     * is safe to call from a list cell renderer.</p>
+     *
+     * @param uri URI for the original image, must not be null
+     * @param list list displaying the thumbnail image, must not be null
+     * @param index index of the cell in the list, if less than zero every component added to this
+     *    thumbnail cache will be repainted instead
+     * @return a large size (256x256 pixel) thumbnail image for the specified URI
+     */
+    public BufferedImage getLargeThumbnail(final URI uri, final JList<?> list, final int index)
+    {
+        if (list == null)
+        {
+            throw new IllegalArgumentException("list must not be null");
+        }
+        return get(uri, true, (index < 0) ? null : new Target(list, index));
+    }
+
+    /**
+     * Return the cached thumbnail image for the specified URI and size, or an empty image after
+     * requesting the thumbnail image be created asynchronously.
+     *
+     * @param uri URI for the original image, must not be null
+     * @param large true for a large size thumbnail image
+     * @param target cell of a component displaying the thumbnail image, if any
+     * @return the cached thumbnail image for the specified URI and size, or an empty image
+     */
+    private BufferedImage get(final URI uri, final boolean large, final Target target)
+    {
+        if (uri == null)
+        {
+            throw new NullPointerException("uri must not be null");
+        }
+        Key key = new Key(uri, large);
+        BufferedImage image = cache.getIfPresent(key);
+        if (image != null)
+        {
+            return image;
+        }
+        if (failures.getIfPresent(key) != null)
+        {
+            return large ? EMPTY_LARGE_IMAGE : EMPTY_IMAGE;
+        }
+        boolean created = false;
+        Request request = pending.get(key);
+        if (request == null)
+        {
+            Request newRequest = new Request(key);
+            request = pending.putIfAbsent(key, newRequest);
+            if (request == null)
+            {
+                request = newRequest;
+                created = true;
+                // a worker thread may have completed a previous request in the meantime
+                image = cache.getIfPresent(key);
+                if (image != null || failures.getIfPresent(key) != null)
+                {
+                    pending.remove(key, request);
+                    return (image != null) ? image : (large ? EMPTY_LARGE_IMAGE : EMPTY_IMAGE);
+                }
+            }
+        }
+        if (target != null)
+        {
+            request.targets.add(target);
+        }
+        if (created)
+        {
+            // queue each request only once, later calls for a pending request only add targets
+            request.entry = new Entry(request, sequence.incrementAndGet());
+            executorService.execute(request.entry);
+        }
+        if (target != null && pruneScheduled.compareAndSet(false, true))
+        {
+            SwingUtilities.invokeLater(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        pruneScheduled.set(false);
+                        prune();
+                    }
+                });
+        }
+        return large ? EMPTY_LARGE_IMAGE : EMPTY_IMAGE;
+    }
+
+    /**
+     * Cancel queued requests whose cells are no longer visible.  Called on the event dispatch thread.
+     */
+    private void prune()
+    {
+        for (Request request : pending.values())
+        {
+            if (!request.targets.isEmpty() && !request.isVisible() && request.state.compareAndSet(QUEUED, CANCELLED))
+            {
+                pending.remove(request.key, request);
+                Entry entry = request.entry;
+                if (entry != null)
+                {
+                    executorService.remove(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the thumbnail image for the specified request, then repaint its targets.
+     * Called on a worker thread.
+     *
+     * @param request request
+     */
+    private void load(final Request request)
+    {
+        Key key = request.key;
+        BufferedImage image = null;
+        try
+        {
+            long modificationTime = lastModifiedCache.get(key.uri);
+            image = key.large ? thumbnailManager.createLargeThumbnail(key.uri, modificationTime)
+                : thumbnailManager.createThumbnail(key.uri, modificationTime);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            image = null;
+        }
+        finally
+        {
+            if (image == null)
+            {
+                // do not request this thumbnail image again until the failure expires
+                failures.put(key, Boolean.TRUE);
+            }
+            else
+            {
+                cache.put(key, image);
+            }
+            pending.remove(key, request);
+        }
+
+        if (image != null)
+        {
+            SwingUtilities.invokeLater(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        if (request.targets.isEmpty())
+                        {
+                            for (Component component : repaint)
+                            {
+                                component.repaint();
+                            }
+                        }
+                        else
+                        {
+                            for (Target target : request.targets)
+                            {
+                                target.repaint();
+                            }
+                        }
+                    }
+                });
+        }
+    }
+
+    /**
+     * Return the number of requests queued for a worker thread.
+     *
+     * @return the number of requests queued for a worker thread
+     */
+    int queued()
+    {
+        return executorService.getQueue().size();
+    }
+
+    /**
+     * Return the number of bytes of pixel data in the specified image.  Empty images
+     * shared by all requests weigh nothing.
+     *
+     * @param image image
+     * @return the number of bytes of pixel data in the specified image
+     */
+    static int bytes(final BufferedImage image)
+    {
+        if (image == EMPTY_IMAGE || image == EMPTY_LARGE_IMAGE)
+        {
+            return 0;
+        }
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        long bytes = ((long) dataBuffer.getSize() * dataBuffer.getNumBanks() * DataBuffer.getDataTypeSize(dataBuffer.getDataType())) / 8L;
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+
+    /**
+     * Cache key.
+     */
+    private static final class Key
+    {
+        /** URI for the original image. */
+        private final URI uri;
+
+        /** True for a large size thumbnail image. */
+        private final boolean large;
+
+
+        /**
+         * Create a new cache key.
+         *
+         * @param uri URI for the original image
+         * @param large true for a large size thumbnail image
+         */
+        Key(final URI uri, final boolean large)
+        {
+            this.uri = uri;
+            this.large = large;
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * uri.hashCode() + (large ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (o == this)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key) o;
+            return large == key.large && uri.equals(key.uri);
+        }
+    }
+
+    /**
+     * Cell of a component displaying a thumbnail image.  The cell is specified either as a cell
+     * rectangle or as an index into a list, in which case the cell bounds are resolved on the
+     * event dispatch thread when needed.
+     */
+    private static final class Target
+    {
+        /** Component. */
+        private final Component component;
+
+        /** Cell rectangle in the coordinate space of the component, if any. */
+        private final Rectangle cell;
+
+        /** Index of the cell in the list, if no cell rectangle. */
+        private final int index;
+
+
+        /**
+         * Create a new target.
+         *
+         * @param component component
+         * @param cell cell rectangle in the coordinate space of the component
+         */
+        Target(final Component component, final Rectangle cell)
+        {
+            this.component = component;
+            this.cell = new Rectangle(cell);
+            this.index = -1;
+        }
+
+        /**
+         * Create a new target.
+         *
+         * @param list list
+         * @param index index of the cell in the list
+         */
+        Target(final JList<?> list, final int index)
+        {
+            this.component = list;
+            this.cell = null;
+            this.index = index;
+        }
+
+
+        /**
+         * Return the cell bounds for this target, or null if the cell is not in the list.
+         * Called on the event dispatch thread.
+         *
+         * @return the cell bounds for this target, or null if the cell is not in the list
+         */
+        Rectangle getBounds()
+        {
+            if (cell == null)
+            {
+                return ((JList<?>) component).getCellBounds(index, index);
+            }
+            return cell;
+        }
+
+        /**
+         * Return true if this target is visible.  Called on the event dispatch thread.
+         *
+         * @return true if this target is visible
+         */
+        boolean isVisible()
+        {
+            if (!component.isShowing())
+            {
+                return false;
+            }
+            Rectangle bounds = getBounds();
+            if (bounds == null)
+            {
+                return false;
+            }
+            if (component instanceof JComponent)
+            {
+                return ((JComponent) component).getVisibleRect().intersects(bounds);
+            }
+            return true;
+        }
+
+        /**
+         * Repaint this target, or the whole component if the cell is not in the list.
+         * Called on the event dispatch thread.
+         */
+        void repaint()
+        {
+            Rectangle bounds = getBounds();
+            if (bounds == null)
+            {
+                component.repaint();
+            }
+            else
+            {
+                component.repaint(bounds.x, bounds.y, bounds.width, bounds.height);
+            }
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * System.identityHashCode(component) + ((cell == null) ? index : cell.hashCode());
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (o == this)
+            {
+                return true;
+            }
+            if (!(o instanceof Target))
+            {
+                return false;
+            }
+            Target target = (Target) o;
+            return component == target.component && index == target.index
+                && ((cell == null) ? target.cell == null : cell.equals(target.cell));
+        }
+    }
+
+    /**
+     * Request for a thumbnail image.
+     */
+    private static final class Request
+    {
+        /** Cache key. */
+        private final Key key;
+
+        /** Cells displaying the thumbnail image. */
+        private final Set<Target> targets = new CopyOnWriteArraySet<Target>();
+
+        /** State. */
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        /** Priority queue entry for this request, once queued. */
+        private volatile Entry entry;
+
+
+        /**
+         * Create a new request.
+         *
+         * @param key cache key
+         */
+        Request(final Key key)
+        {
+            this.key = key;
+        }
+
+
+        /**
+         * Return true if any of the targets of this request are visible.  Called on the event dispatch thread.
+         *
+         * @return true if any of the targets of this request are visible
+         */
+        boolean isVisible()
+        {
+            for (Target target : targets)
+            {
+                if (target.isVisible())
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Priority queue entry for a request.  Each request is queued once, when created;
+     * later requests have higher priority.
+     */
+    private final class Entry
+        implements Runnable, Comparable<Entry>
+    {
+        /** Request. */
+        private final Request request;
+
+        /** Priority. */
+        private final long priority;
+
+
+        /**
+         * Create a new entry.
+         *
+         * @param request request
+         * @param priority priority
+         */
+        Entry(final Request request, final long priority)
+        {
+            this.request = request;
+            this.priority = priority;
+        }
+
+
+        @Override
+        public int compareTo(final Entry entry)
+        {
+            // higher priority first
+            return Long.compare(entry.priority, priority);
+        }
+
+        @Override
+        public void run()
+        {
+            if (request.state.compareAndSet(QUEUED, RUNNING))
+            {
+                load(request);
+            }
+        }
     }
 }
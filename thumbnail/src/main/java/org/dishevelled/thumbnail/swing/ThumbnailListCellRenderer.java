@@ -76,7 +76,7 @@ public final class ThumbnailListCellRenderer extends StripeListCellRenderer
         if (value instanceof URI)
         {
             URI uri = (URI) value;
-            Image thumbnail = thumbnailCache.getThumbnail(uri);
+            Image thumbnail = thumbnailCache.getThumbnail(uri, list, index);
             if (imageIcon == null)
             {
                 imageIcon = new ImageIcon(thumbnail);
@@ -77,7 +77,7 @@ public final class ThumbnailTableCellRenderer extends StripeTableCellRenderer
         if (value instanceof URI)
         {
             URI uri = (URI) value;
-            Image thumbnail = thumbnailCache.getThumbnail(uri);
+            Image thumbnail = thumbnailCache.getThumbnail(uri, table, table.getCellRect(row, column, false));
             if (imageIcon == null)
             {
                 imageIcon = new ImageIcon(thumbnail);
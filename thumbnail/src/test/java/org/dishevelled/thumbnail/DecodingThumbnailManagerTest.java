@@ -0,0 +1,202 @@
+/*
+
+    dsh-thumbnail  Implementation of the freedesktop.org thumbnail specification.
+    Copyright (c) 2013-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.thumbnail;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.net.URI;
+
+import javax.imageio.ImageIO;
+
+import com.google.common.io.Files;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit test for decoding original images at reduced resolution in AbstractThumbnailManager.
+ *
+ * @author  Michael Heuer
+ */
+public final class DecodingThumbnailManagerTest extends AbstractThumbnailManagerTest
+{
+    private File directory;
+    private File original;
+
+    @Override
+    protected ThumbnailManager createThumbnailManager()
+    {
+        directory = Files.createTempDir();
+        return new AbstractThumbnailManager(directory)
+            {
+                // empty
+            };
+    }
+
+    @After
+    public void tearDown()
+    {
+        if (original != null)
+        {
+            original.delete();
+        }
+        delete(directory);
+    }
+
+    private static void delete(final File file)
+    {
+        File[] files = file.listFiles();
+        if (files != null)
+        {
+            for (File f : files)
+            {
+                delete(f);
+            }
+        }
+        file.delete();
+    }
+
+    private URI createOriginal(final int width, final int height) throws IOException
+    {
+        original = File.createTempFile("decodingThumbnailManagerTest", ".png");
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", original);
+        return original.toURI();
+    }
+
+    private Thumbnail readThumbnail(final String size, final URI uri) throws IOException
+    {
+        return Thumbnail.read(new File(new File(directory, size), DigestUtils.md5Hex(uri.toString()) + ".png"));
+    }
+
+    @Test
+    public void testDecode() throws IOException
+    {
+        URI uri = createOriginal(2048, 1024);
+        AbstractThumbnailManager.Decoded decoded = AbstractThumbnailManager.decode(uri.toURL(), 128);
+        assertEquals(2048, decoded.getWidth());
+        assertEquals(1024, decoded.getHeight());
+        assertEquals(256, decoded.getImage().getWidth());
+        assertEquals(128, decoded.getImage().getHeight());
+    }
+
+    @Test
+    public void testDecodeSmall() throws IOException
+    {
+        URI uri = createOriginal(64, 32);
+        AbstractThumbnailManager.Decoded decoded = AbstractThumbnailManager.decode(uri.toURL(), 128);
+        assertEquals(64, decoded.getImage().getWidth());
+        assertEquals(32, decoded.getImage().getHeight());
+    }
+
+    @Test
+    public void testDecodeLena() throws IOException
+    {
+        AbstractThumbnailManager.Decoded decoded = AbstractThumbnailManager.decode(getClass().getResource("lena512color.png"), 128);
+        assertEquals(512, decoded.getWidth());
+        assertEquals(512, decoded.getHeight());
+        assertEquals(256, decoded.getImage().getWidth());
+    }
+
+    @Test
+    public void testDecodeNotAnImage() throws IOException
+    {
+        original = File.createTempFile("decodingThumbnailManagerTest", ".txt");
+        Files.write(new byte[] { 1, 2, 3, 4 }, original);
+        assertNull(AbstractThumbnailManager.decode(original.toURI().toURL(), 128));
+    }
+
+    @Test
+    public void testCreateThumbnail() throws IOException
+    {
+        URI uri = createOriginal(2048, 1024);
+        BufferedImage thumbnailImage = thumbnailManager.createThumbnail(uri, 42L);
+        assertEquals(128, Math.max(thumbnailImage.getWidth(), thumbnailImage.getHeight()));
+
+        Thumbnail thumbnail = readThumbnail("normal", uri);
+        assertEquals(2048, thumbnail.getWidth());
+        assertEquals(1024, thumbnail.getHeight());
+        assertEquals(42L, thumbnail.getModificationTime());
+    }
+
+    @Test
+    public void testCreateLargeThumbnail() throws IOException
+    {
+        URI uri = createOriginal(1024, 2048);
+        BufferedImage thumbnailImage = thumbnailManager.createLargeThumbnail(uri, 42L);
+        assertEquals(256, Math.max(thumbnailImage.getWidth(), thumbnailImage.getHeight()));
+
+        Thumbnail thumbnail = readThumbnail("large", uri);
+        assertEquals(1024, thumbnail.getWidth());
+        assertEquals(2048, thumbnail.getHeight());
+    }
+
+    @Test
+    public void testCreateThumbnails() throws IOException
+    {
+        URI uri = createOriginal(2048, 1024);
+        ((AbstractThumbnailManager) thumbnailManager).createThumbnails(uri, 42L);
+        assertEquals(2048, readThumbnail("normal", uri).getWidth());
+        assertEquals(2048, readThumbnail("large", uri).getWidth());
+
+        // thumbnails are up to date, so the original image is not read again
+        assertTrue(original.delete());
+        assertEquals(128, thumbnailManager.createThumbnail(uri, 42L).getWidth());
+        assertEquals(256, thumbnailManager.createLargeThumbnail(uri, 42L).getWidth());
+        ((AbstractThumbnailManager) thumbnailManager).createThumbnails(uri, 42L);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCreateThumbnailsNullUri() throws IOException
+    {
+        ((AbstractThumbnailManager) thumbnailManager).createThumbnails(null, 0L);
+    }
+
+    @Test
+    public void testCreateThumbnailNotAnImage() throws IOException
+    {
+        original = File.createTempFile("decodingThumbnailManagerTest", ".txt");
+        Files.write(new byte[] { 1, 2, 3, 4 }, original);
+        URI uri = original.toURI();
+        try
+        {
+            thumbnailManager.createThumbnail(uri, 42L);
+            fail("expected IOException");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        assertTrue(new File(new File(directory, "fail"), DigestUtils.md5Hex(uri.toString()) + ".png").exists());
+    }
+}
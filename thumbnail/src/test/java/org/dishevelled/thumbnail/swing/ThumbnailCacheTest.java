@@ -0,0 +1,286 @@
+/*
+
+    dsh-thumbnail  Implementation of the freedesktop.org thumbnail specification.
+    Copyright (c) 2013-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.thumbnail.swing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.BufferedImage;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.net.URI;
+
+import java.util.concurrent.CountDownLatch;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JLabel;
+import javax.swing.JList;
+
+import org.dishevelled.thumbnail.ThumbnailManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for ThumbnailCache.
+ *
+ * @author  Michael Heuer
+ */
+public final class ThumbnailCacheTest
+{
+    private File file;
+    private URI uri;
+    private BufferedImage image;
+    private BufferedImage largeImage;
+    private AtomicInteger calls;
+    private ThumbnailManager thumbnailManager;
+    private ThumbnailManager failingThumbnailManager;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        file = File.createTempFile("thumbnailCacheTest", ".png");
+        uri = file.toURI();
+        image = new BufferedImage(128, 64, BufferedImage.TYPE_INT_ARGB);
+        largeImage = new BufferedImage(256, 128, BufferedImage.TYPE_INT_ARGB);
+        calls = new AtomicInteger();
+        thumbnailManager = new ThumbnailManager()
+            {
+                @Override
+                public BufferedImage createThumbnail(final URI uri, final long modificationTime)
+                {
+                    calls.incrementAndGet();
+                    return image;
+                }
+
+                @Override
+                public BufferedImage createLargeThumbnail(final URI uri, final long modificationTime)
+                {
+                    calls.incrementAndGet();
+                    return largeImage;
+                }
+            };
+        failingThumbnailManager = new ThumbnailManager()
+            {
+                @Override
+                public BufferedImage createThumbnail(final URI uri, final long modificationTime) throws IOException
+                {
+                    calls.incrementAndGet();
+                    throw new IOException("expected");
+                }
+
+                @Override
+                public BufferedImage createLargeThumbnail(final URI uri, final long modificationTime) throws IOException
+                {
+                    calls.incrementAndGet();
+                    throw new IOException("expected");
+                }
+            };
+    }
+
+    @After
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNullThumbnailManager()
+    {
+        new ThumbnailCache(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNegativeMaximumBytes()
+    {
+        new ThumbnailCache(thumbnailManager, -1L, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorZeroThreads()
+    {
+        new ThumbnailCache(thumbnailManager, ThumbnailCache.DEFAULT_MAXIMUM_BYTES, 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testGetThumbnailNullComponent()
+    {
+        new ThumbnailCache(thumbnailManager).getThumbnail(uri, null, null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNegativeFailureExpiry()
+    {
+        new ThumbnailCache(thumbnailManager, ThumbnailCache.DEFAULT_MAXIMUM_BYTES, 1, -1L);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testGetThumbnailNullList()
+    {
+        new ThumbnailCache(thumbnailManager).getThumbnail(uri, null, 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testGetLargeThumbnailNullList()
+    {
+        new ThumbnailCache(thumbnailManager).getLargeThumbnail(uri, null, 0);
+    }
+
+    @Test
+    public void testBytes()
+    {
+        assertEquals(128 * 64 * 4, ThumbnailCache.bytes(image));
+        assertEquals(256 * 128 * 4, ThumbnailCache.bytes(largeImage));
+        assertEquals(16 * 16, ThumbnailCache.bytes(new BufferedImage(16, 16, BufferedImage.TYPE_BYTE_GRAY)));
+    }
+
+    @Test
+    public void testGetThumbnail() throws Exception
+    {
+        ThumbnailCache thumbnailCache = new ThumbnailCache(thumbnailManager);
+        assertSame(image, await(thumbnailCache, false));
+        assertSame(image, thumbnailCache.getThumbnail(uri));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testGetLargeThumbnail() throws Exception
+    {
+        ThumbnailCache thumbnailCache = new ThumbnailCache(thumbnailManager);
+        assertSame(largeImage, await(thumbnailCache, true));
+        assertSame(largeImage, thumbnailCache.getLargeThumbnail(uri));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testGetThumbnailCell() throws Exception
+    {
+        ThumbnailCache thumbnailCache = new ThumbnailCache(thumbnailManager);
+        assertNotNull(thumbnailCache.getThumbnail(uri, new JLabel(), null));
+    }
+
+    @Test
+    public void testGetThumbnailList() throws Exception
+    {
+        ThumbnailCache thumbnailCache = new ThumbnailCache(thumbnailManager);
+        JList<URI> list = new JList<URI>(new URI[] { uri });
+        assertNotNull(thumbnailCache.getThumbnail(uri, list, 0));
+        assertNotNull(thumbnailCache.getThumbnail(uri, list, -1));
+        assertNotNull(thumbnailCache.getLargeThumbnail(uri, list, 0));
+        assertNotNull(thumbnailCache.getLargeThumbnail(uri, list, -1));
+    }
+
+    @Test
+    public void testGetThumbnailQueuedOnce() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        ThumbnailManager blockingThumbnailManager = new ThumbnailManager()
+            {
+                @Override
+                public BufferedImage createThumbnail(final URI uri, final long modificationTime) throws IOException
+                {
+                    started.countDown();
+                    try
+                    {
+                        latch.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        throw new IOException("interrupted");
+                    }
+                    calls.incrementAndGet();
+                    return image;
+                }
+
+                @Override
+                public BufferedImage createLargeThumbnail(final URI uri, final long modificationTime)
+                {
+                    calls.incrementAndGet();
+                    return largeImage;
+                }
+            };
+        ThumbnailCache thumbnailCache = new ThumbnailCache(blockingThumbnailManager, ThumbnailCache.DEFAULT_MAXIMUM_BYTES, 1);
+        thumbnailCache.getThumbnail(uri);
+        started.await();
+        for (int i = 0; i < 100; i++)
+        {
+            thumbnailCache.getLargeThumbnail(uri);
+        }
+        assertEquals(1, thumbnailCache.queued());
+        latch.countDown();
+        assertSame(largeImage, await(thumbnailCache, true));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testGetThumbnailFailure() throws Exception
+    {
+        ThumbnailCache thumbnailCache = new ThumbnailCache(failingThumbnailManager);
+        BufferedImage empty = thumbnailCache.getThumbnail(uri);
+        for (int i = 0; i < 100 && calls.get() == 0; i++)
+        {
+            Thread.sleep(10L);
+        }
+        Thread.sleep(50L);
+        assertSame(empty, thumbnailCache.getThumbnail(uri));
+        Thread.sleep(50L);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testGetThumbnailFailureExpires() throws Exception
+    {
+        ThumbnailCache thumbnailCache = new ThumbnailCache(failingThumbnailManager, ThumbnailCache.DEFAULT_MAXIMUM_BYTES, 1, 100L);
+        thumbnailCache.getThumbnail(uri);
+        for (int i = 0; i < 100 && calls.get() == 0; i++)
+        {
+            Thread.sleep(10L);
+        }
+        Thread.sleep(200L);
+        thumbnailCache.getThumbnail(uri);
+        for (int i = 0; i < 100 && calls.get() == 1; i++)
+        {
+            Thread.sleep(10L);
+        }
+        assertEquals(2, calls.get());
+    }
+
+    private BufferedImage await(final ThumbnailCache thumbnailCache, final boolean large) throws InterruptedException
+    {
+        BufferedImage empty = large ? thumbnailCache.getLargeThumbnail(uri) : thumbnailCache.getThumbnail(uri);
+        BufferedImage thumbnail = empty;
+        for (int i = 0; i < 500 && thumbnail == empty; i++)
+        {
+            Thread.sleep(10L);
+            thumbnail = large ? thumbnailCache.getLargeThumbnail(uri) : thumbnailCache.getThumbnail(uri);
+        }
+        return thumbnail;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+
+    dsh-thumbnail  Implementation of the freedesktop.org thumbnail specification.
+    Copyright (c) 2013-2015 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.thumbnail.swing;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+
+import java.awt.image.BufferedImage;
+
+import java.net.URI;
+
+import javax.swing.JList;
+
+import org.dishevelled.thumbnail.ThumbnailManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for ThumbnailListCellRenderer.
+ *
+ * @author  Michael Heuer
+ */
+public final class ThumbnailListCellRendererTest
+{
+    private ThumbnailCache thumbnailCache;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        final BufferedImage image = new BufferedImage(128, 64, BufferedImage.TYPE_INT_ARGB);
+        final BufferedImage largeImage = new BufferedImage(256, 128, BufferedImage.TYPE_INT_ARGB);
+        thumbnailCache = new ThumbnailCache(new ThumbnailManager()
+            {
+                @Override
+                public BufferedImage createThumbnail(final URI uri, final long modificationTime)
+                {
+                    return image;
+                }
+
+                @Override
+                public BufferedImage createLargeThumbnail(final URI uri, final long modificationTime)
+                {
+                    return largeImage;
+                }
+            });
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNullThumbnailCache()
+    {
+        new ThumbnailListCellRenderer(null);
+    }
+
+    @Test
+    public void testConstructor()
+    {
+        assertNotNull(new ThumbnailListCellRenderer(thumbnailCache));
+    }
+
+    @Test
+    public void testLayoutWithoutFixedCellSize() throws Exception
+    {
+        JList<URI> list = new JList<URI>(new URI[] { new URI("file:///thumbnail0.png"), new URI("file:///thumbnail1.png") });
+        list.setCellRenderer(new ThumbnailListCellRenderer(thumbnailCache));
+        assertTrue(list.getFixedCellWidth() < 0);
+        assertTrue(list.getFixedCellHeight() < 0);
+
+        assertNotNull(list.getPreferredSize());
+        Rectangle cellBounds = list.getCellBounds(1, 1);
+        assertNotNull(cellBounds);
+        assertTrue(cellBounds.height > 0);
+    }
+}
@@ -42,13 +42,40 @@ public class VennAnalytic {
 	private double maxArea;
 	private int totalCount;
 	private boolean isEqualArea;
+	private final int maxIterations;
+	private final int gridSize;
+
+	/** Default maximum number of global and local minimization iterations, <code>50</code>. */
+	public static final int DEFAULT_MAX_ITERATIONS = 50;
+
+	/** Default size of the grid used to estimate areas, <code>200</code>. */
+	public static final int DEFAULT_GRID_SIZE = 200;
 
 //	private static final CyLogger logger = CyLogger.getLogger(VennAnalytic.class);
 
 	public VennAnalytic() {
+		this(DEFAULT_MAX_ITERATIONS, DEFAULT_GRID_SIZE);
+	}
+
+	/**
+	 * Create a new VennAnalytic with the specified maximum number of global and local
+	 * minimization iterations and area estimation grid size.  Fewer iterations and a
+	 * coarser grid trade layout stress for speed.
+	 *
+	 * @param maxIterations maximum number of global and local minimization iterations,
+	 *    must be at least <code>12</code>
+	 * @param gridSize size of the grid used to estimate areas, must be at least <code>1</code>
+	 */
+	public VennAnalytic(int maxIterations, int gridSize) {
+		if (maxIterations < 12)
+			throw new IllegalArgumentException("maxIterations must be at least 12, was " + maxIterations);
+		if (gridSize < 1)
+			throw new IllegalArgumentException("gridSize must be at least 1, was " + gridSize);
 		stepsize = .01;
 		minStress = .000001;
 		isEqualArea = false;
+		this.maxIterations = maxIterations;
+		this.gridSize = gridSize;
 	}
 
 	public VennDiagram compute(VennData vd) {
@@ -61,6 +88,27 @@ public class VennAnalytic {
 		else
 			processElementData(data);
 
+		return solve();
+	}
+
+	/**
+	 * Compute a diagram directly from precomputed polygon counts, without the per-element
+	 * string rows of {@link #compute(VennData)}.  The count of elements belonging to exactly
+	 * the circles <code>j</code> for which bit <code>(labels.length - 1 - j)</code> of
+	 * <code>i</code> is set is <code>counts[i]</code>, the same polygon indexing as the
+	 * <code>areas</code>, <code>residuals</code>, and <code>luneCenters</code> of the
+	 * returned diagram.  <code>counts[0]</code> is ignored.
+	 *
+	 * @param labels circle labels, must contain at least one label
+	 * @param counts polygon counts, must be of length <code>2^labels.length</code>
+	 * @return the diagram
+	 */
+	public VennDiagram compute(String[] labels, double[] counts) {
+		processCountData(labels, counts);
+		return solve();
+	}
+
+	private VennDiagram solve() {
 		computeInitialConfiguration();
 		scaleDiameters();
 		scaleConfiguration();
@@ -127,6 +175,46 @@ public class VennAnalytic {
 		                       colors, intersectionCounts, warnings, luneCenters, luneIds, stress, stress01, stress05);
 	}
 
+	private void processCountData(String[] labels, double[] counts) {
+		if (labels.length < 1)
+			throw new IllegalArgumentException("labels must contain at least one label");
+		if (labels.length > 30)
+			throw new IllegalArgumentException("labels must contain at most 30 labels, was " + labels.length);
+		if (counts.length != (1 << labels.length))
+			throw new IllegalArgumentException("counts must be of length " + (1 << labels.length) + ", was " + counts.length);
+		circleLabels = labels.clone();
+		nCircles = labels.length;
+		nPolygons = 1 << nCircles;
+		nRows = 0;
+		nTot = 0;
+		intersectionCounts = new double[nPolygons];
+		polyData = new double[nPolygons];
+		polyAreas = new double[nPolygons];
+		polyHats = new double[nPolygons];
+		circleData = new double[nCircles];
+		centers = new double[nCircles][2];
+
+		double total = 0.0;
+		for (int i = 1; i < nPolygons; i++) {
+			polyData[i] = counts[i];
+			total += counts[i];
+			for (int j = 0; j < nCircles; j++) {
+				if ((i & bit(j)) != 0)
+					circleData[j] += counts[i];
+			}
+		}
+		nTot = (int) Math.min(Integer.MAX_VALUE, total);
+		for (int i = 0; i < polyData.length; i++) {
+			intersectionCounts[i] = polyData[i];
+			polyData[i] = polyData[i] / total;
+		}
+		for (int j = 0; j < nCircles; j++) {
+			circleData[j] = circleData[j] / total;
+			if (isEqualArea)
+				circleData[j] = 1;
+		}
+	}
+
 	private void processAreaData(String[][] data, double[] areas) {
 		HashMap<String, Double> sets = new HashMap<String, Double>();
 		for (int i = 0; i < data.length; i++) {
@@ -269,20 +357,23 @@ public class VennAnalytic {
 	}
 
 	private int decode(int[] subsets) {
-		String b = "";
+		int index = 0;
 		for (int j = 0; j < subsets.length; j++) {
+			index <<= 1;
 			if (subsets[j] > 0)
-				b += '1';
-			else
-				b += '0';
+				index |= 1;
 		}
-		return Integer.parseInt(b, 2);
+		return index;
+	}
+
+	/** Return the polygon index bit for circle j, the first circle being the most significant bit. */
+	private int bit(int j) {
+		return 1 << (nCircles - 1 - j);
 	}
 
 	private void calculateAreas() {
 		totalCount = 0;
-		int size = 200;
-		byte[][][] bis = new byte[nCircles][size][size];
+		int size = gridSize;
 		double mins = Double.POSITIVE_INFINITY;
 		double maxs = Double.NEGATIVE_INFINITY;
 		for (int i = 0; i < nCircles; i++) {
@@ -292,6 +383,8 @@ public class VennAnalytic {
 			maxs = Math.max(centers[i][0] + radius, maxs);
 			maxs = Math.max(centers[i][1] + radius, maxs);
 		}
+		// polygon index of each pixel, set circle by circle over each circle's bounding box only
+		int[] pixels = new int[size * size];
 		for (int i = 0; i < nCircles; i++) {
 			double xi = (centers[i][0] - mins) / (maxs - mins);
 			double yi = (centers[i][1] - mins) / (maxs - mins);
@@ -300,25 +393,25 @@ public class VennAnalytic {
 			int r2 = r * r;
 			int cx = (int) (xi * size);
 			int cy = (int) (size - yi * size);
-			for (int x = 0; x < size; x++) {
-				for (int y = 0; y < size; y++) {
-					if ((x - cx) * (x - cx) + (y - cy) * (y - cy) < r2)
-						bis[i][x][y] = 1;
+			int b = bit(i);
+			int x0 = Math.max(0, cx - r);
+			int x1 = Math.min(size - 1, cx + r);
+			int y0 = Math.max(0, cy - r);
+			int y1 = Math.min(size - 1, cy + r);
+			for (int x = x0; x <= x1; x++) {
+				int dx2 = (x - cx) * (x - cx);
+				int row = x * size;
+				for (int y = y0; y <= y1; y++) {
+					if (dx2 + (y - cy) * (y - cy) < r2)
+						pixels[row + y] |= b;
 				}
 			}
 		}
-		for (int x = 0; x < size; x++) {
-			for (int y = 0; y < size; y++) {
-				int[] counts = new int[nCircles];
-				int count = 0;
-				for (int j = 0; j < nCircles; j++) {
-					if (bis[j][x][y] == 1) {
-						counts[j]++;
-						count++;
-					}
-				}
-				if (count > 0)
-					updatePixels(counts);
+		for (int p = 0; p < pixels.length; p++) {
+			int index = pixels[p];
+			if (index != 0) {
+				polyAreas[index]++;
+				totalCount++;
 			}
 		}
 		if (totalCount == 0)
@@ -327,12 +420,6 @@ public class VennAnalytic {
 			polyAreas[i] = 100 * polyAreas[i] / totalCount;
 	}
 
-	private void updatePixels(int[] counts) {
-		int index = decode(counts);
-		polyAreas[index]++;
-		totalCount++;
-	}
-
 	public void computeInitialConfiguration() {
 		double[][] s = computeDistanceMatrix();
 		if (s == null) {
@@ -506,7 +593,7 @@ public class VennAnalytic {
 		copyCircles(centers, previousCenters);
 
 		double lastStress = 1;
-		for (int iter = 0; iter < 50; iter++) {
+		for (int iter = 0; iter < maxIterations; iter++) {
 			rescaleDiameters(initialDiameters, iter);
 			recenter();
 			stress = computeStress();
@@ -534,7 +621,7 @@ public class VennAnalytic {
 		copyCircles(centers, previousCenters);
 		double previousStress = stress;
 		double lastStress = 1;
-		for (int iter = 0; iter < 50; iter++) {
+		for (int iter = 0; iter < maxIterations; iter++) {
 			rescaleDiameters(initialDiameters, iter);
 			recenter();
 			stress = computeStress();
@@ -558,17 +645,12 @@ public class VennAnalytic {
 	private void moveGlobal() {
 		double[][] gradients = new double[nCircles][2];
 		for (int i = 0; i < nPolygons; i++) {
-			String s = Integer.toBinaryString(i);
-			char[] c = s.toCharArray();
-			int offset = nCircles - c.length;
-			for (int j = 0; j < c.length; j++) {
-				if (c[j] == '0')
+			for (int jo = 0; jo < nCircles; jo++) {
+				if ((i & bit(jo)) == 0)
 					continue;
-				int jo = j + offset;
-				for (int k = j + 1; k < c.length; k++) {
-					if (c[k] == '0')
+				for (int ko = jo + 1; ko < nCircles; ko++) {
+					if ((i & bit(ko)) == 0)
 						continue;
-					int ko = k + offset;
 					double resid = polyAreas[i] - polyHats[i];
 					double dx = resid * stepsize * (centers[jo][0] - centers[ko][0]);
 					double dy = resid * stepsize * (centers[jo][1] - centers[ko][1]);
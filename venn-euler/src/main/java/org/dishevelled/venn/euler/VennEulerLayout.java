@@ -45,7 +45,6 @@ public final class VennEulerLayout implements VennLayout
     private final List<Point2D> luneCenters;
     private final int size;
     private Rectangle2D boundingBox;
-    private final String decodeBase;
 
     public VennEulerLayout(final VennDiagram vd, final Rectangle2D boundingBox)
     {
@@ -54,7 +53,6 @@ public final class VennEulerLayout implements VennLayout
         this.size = vd.centers.length;
         this.circles = new ArrayList<Shape>(size);
         this.luneCenters = new ArrayList<Point2D>(vd.luneCenters.length);
-        decodeBase = calcDecodeBase(vd.centers.length);
         createCircles();
     }
 
@@ -83,7 +81,12 @@ public final class VennEulerLayout implements VennLayout
             double x = (xi * size);
             double y = (size - yi * size);
 
-            circles.add(new Ellipse2D.Double(x - pointSize / 2, y - pointSize / 2, pointSize, pointSize));
+            double left = Math.max(0.0d, x - pointSize / 2);
+            double top = Math.max(0.0d, y - pointSize / 2);
+            // rounding may place circles touching the bounds a fraction outside of them
+            double width = Math.min(pointSize, size - left);
+            double height = Math.min(pointSize, size - top);
+            circles.add(new Ellipse2D.Double(left, top, width, height));
         }
 
         // this is a dummy point to offset the array indices
@@ -138,23 +141,15 @@ public final class VennEulerLayout implements VennLayout
     // as an index into luneCenters.
     private int decodeLuneCenter(final int[] indices)
     {
-        StringBuilder binary = new StringBuilder(decodeBase);
+        int x = 0;
         for (int index : indices)
         {
-            binary.setCharAt(index,'1');
+            if (index < 0 || index >= size)
+            {
+                throw new IndexOutOfBoundsException("index " + index + " out of bounds");
+            }
+            x |= 1 << (size - 1 - index);
         }
-        String b = binary.toString();
-        int x = Integer.parseInt(b, 2);
-        return  x;
-    }
-
-    private String calcDecodeBase(final int num)
-    {
-        StringBuilder binary = new StringBuilder();
-        for (int i = 0; i < num; i++)
-        {
-            binary.append("0");
-        }
-        return binary.toString();
+        return x;
     }
 }
@@ -27,24 +27,32 @@ import org.dishevelled.venn.VennModel;
 import org.dishevelled.venn.VennLayout;
 import org.dishevelled.venn.VennLayouter;
 
-import edu.uic.ncdm.venn.VennData; 
 import edu.uic.ncdm.venn.VennDiagram; 
 import edu.uic.ncdm.venn.VennAnalytic; 
 
-import java.util.List;
-import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 import java.awt.geom.Rectangle2D;
-import java.awt.geom.Point2D;
-import java.awt.Shape;
 
 /**
  * VennEuler layouter.
+ *
+ * <p>Region counts are computed in a single pass over the sets in the venn model, assigning
+ * each element a bitmask of the sets it belongs to, and are passed directly to the solver.
+ * When the performance hint is <code>OPTIMIZE_FOR_SPEED</code>, the solver runs fewer
+ * iterations over a coarser area estimation grid.</p>
  */
 public final class VennEulerLayouter<T> implements VennLayouter<T>
-{	
-    private final Map<Integer,List<T>> data = new HashMap<Integer,List<T>>();
+{
+    /** Maximum number of solver iterations when optimizing for speed. */
+    static final int SPEED_MAX_ITERATIONS = 20;
+
+    /** Solver area estimation grid size when optimizing for speed. */
+    static final int SPEED_GRID_SIZE = 100;
+
+    /** Maximum number of sets, region counts are indexed by bitmask so there are at most <code>2<sup>16</sup></code> regions. */
+    static final int MAX_SETS = 16;
+
 
     public VennLayout layout(final VennModel<T> model,
                              final Rectangle2D boundingBox,
@@ -62,62 +70,53 @@ public final class VennEulerLayouter<T> implements VennLayouter<T>
         {
             throw new IllegalArgumentException("model size can't be 0!");
         }
-        data.clear();
-
-        // populate data
-        for (int i = 0; i < model.size(); i++)
+        if (model.size() > MAX_SETS)
         {
-            for (T t : model.get(i))
-            {
-                addElement(i,t);
-            }
+            throw new IllegalArgumentException("model size can't be greater than " + MAX_SETS);
         }
-
-        return create(boundingBox);
-    }
-
-    private void addElement(final int setKey, final T setValue)
-    {
-        if (setValue == null)
+        int n = model.size();
+        String[] labels = new String[n];
+        for (int i = 0; i < n; i++)
         {
-            throw new NullPointerException("set value cannot be null");
+            labels[i] = String.valueOf(i);
         }
+        VennAnalytic vennAnalytic = (performanceHint == PerformanceHint.OPTIMIZE_FOR_SPEED)
+            ? new VennAnalytic(SPEED_MAX_ITERATIONS, SPEED_GRID_SIZE) : new VennAnalytic();
 
-        List<T> values = data.get(setKey);
-        if (values == null)
-        {
-            values = new ArrayList<T>();
-            data.put(setKey,values);
-        }
-        values.add(setValue);
+        VennDiagram vennDiagram = vennAnalytic.compute(labels, counts(model));
+        return new VennEulerLayout(vennDiagram, boundingBox);
     }
 
-    private VennLayout create(final Rectangle2D boundingBox)
+    /**
+     * Count the elements in each region of the specified venn model.  The solver indexes
+     * regions with the first set as the most significant bit, so set <code>i</code> of
+     * <code>n</code> is bit <code>(n - 1 - i)</code>.
+     *
+     * @param model venn model
+     * @return the count of elements in each region, indexed by bitmask
+     */
+    static <T> double[] counts(final VennModel<T> model)
     {
-        // convert map into VennData
-        int numRows = 0;
-        for (Integer key : data.keySet())
-        {
-            numRows += data.get(key).size();
-        }
-
-        String[][] stringData = new String[numRows][2];
-        int i = 0;
-        for (Integer key : data.keySet())
+        int n = model.size();
+        Map<T, Integer> masks = new HashMap<T, Integer>();
+        for (int i = 0; i < n; i++)
         {
-            String keyString = key.toString();
-            for (T value : data.get(key))
+            int bit = 1 << (n - 1 - i);
+            for (T t : model.get(i))
             {
-                stringData[i][0] = value.toString();
-                stringData[i][1] = keyString;
-                i++;
+                if (t == null)
+                {
+                    throw new NullPointerException("set value cannot be null");
+                }
+                Integer mask = masks.get(t);
+                masks.put(t, Integer.valueOf((mask == null) ? bit : (mask.intValue() | bit)));
             }
         }
-        VennData vennData = new VennData(stringData, new double[0], false);
-
-        // now create the diagram
-        VennDiagram vennDiagram = new VennAnalytic().compute(vennData);
-
-        return new VennEulerLayout(vennDiagram,boundingBox);
+        double[] counts = new double[1 << n];
+        for (Integer mask : masks.values())
+        {
+            counts[mask.intValue()]++;
+        }
+        return counts;
     }
 }
@@ -32,6 +32,10 @@ import java.awt.Rectangle;
 import org.dishevelled.venn.VennModel;
 import org.dishevelled.venn.VennLayout;
 
+import edu.uic.ncdm.venn.VennAnalytic;
+import edu.uic.ncdm.venn.VennData;
+import edu.uic.ncdm.venn.VennDiagram;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -64,7 +68,7 @@ public class VennEulerLayouterTest
     @Test
     public void testLayoutNullPerfHint()
     {
-        // we don't use performance hints, so null should be OK
+        // null performance hint should be OK
         VennLayout vl = layouter.layout(new FakeVennModel(new int[] { 1, 2 }, new int[] { 2, 3 }),
                                         new Rectangle(100, 200), null);
         assertNotNull(vl);
@@ -84,4 +88,91 @@ public class VennEulerLayouterTest
         VennLayout vl = layouter.layout(new FakeVennModel(),
                                         new Rectangle(100, 200), OPTIMIZE_FOR_SPEED);
     }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testLayoutModelTooLarge()
+    {
+        int[][] sets = new int[VennEulerLayouter.MAX_SETS + 1][];
+        for (int i = 0; i < sets.length; i++)
+        {
+            sets[i] = new int[] { i, i + 1 };
+        }
+        VennLayout vl = layouter.layout(new FakeVennModel(sets),
+                                        new Rectangle(100, 200), OPTIMIZE_FOR_SPEED);
+    }
+
+    @Test
+    public void testLayoutOptimizeForCorrectness()
+    {
+        VennLayout vl = layouter.layout(new FakeVennModel(new int[] { 1, 2 }, new int[] { 2, 3 }, new int[] { 3, 4, 5 }),
+                                        new Rectangle(100, 200), OPTIMIZE_FOR_CORRECTNESS);
+        assertNotNull(vl);
+        assertEquals(3, vl.size());
+    }
+
+    @Test
+    public void testLayoutEmptySet()
+    {
+        VennLayout vl = layouter.layout(new FakeVennModel(new int[] { 1, 2 }, new int[0], new int[] { 2, 3 }),
+                                        new Rectangle(100, 200), OPTIMIZE_FOR_SPEED);
+        assertNotNull(vl);
+        assertEquals(3, vl.size());
+    }
+
+    @Test
+    public void testCounts()
+    {
+        double[] counts = VennEulerLayouter.counts(new FakeVennModel(new int[] { 1, 2, 4 }, new int[] { 2, 3, 4 }));
+        assertEquals(4, counts.length);
+        assertEquals(0.0d, counts[0], 0.0d);
+        assertEquals(1.0d, counts[1], 0.0d); // { 3 }, second only
+        assertEquals(1.0d, counts[2], 0.0d); // { 1 }, first only
+        assertEquals(2.0d, counts[3], 0.0d); // { 2, 4 }, first and second
+    }
+
+    @Test
+    public void testCountsMatchElementData()
+    {
+        int[][] sets = new int[][] { { 1, 2, 3, 4 }, { 3, 4, 5 }, { 1, 4, 5, 6, 7 }, { 7, 8 } };
+        VennModel<Integer> model = new FakeVennModel(sets);
+
+        int rows = 0;
+        for (int[] set : sets)
+        {
+            rows += set.length;
+        }
+        String[][] data = new String[rows][2];
+        int row = 0;
+        for (int i = 0; i < sets.length; i++)
+        {
+            for (int value : sets[i])
+            {
+                data[row][0] = String.valueOf(value);
+                data[row][1] = String.valueOf(i);
+                row++;
+            }
+        }
+        VennDiagram expected = new VennAnalytic().compute(new VennData(data, new double[0], false));
+        VennDiagram actual = new VennAnalytic().compute(new String[] { "0", "1", "2", "3" }, VennEulerLayouter.counts(model));
+
+        assertArrayEquals(expected.diameters, actual.diameters, 0.0d);
+        for (int i = 0; i < sets.length; i++)
+        {
+            assertArrayEquals(expected.centers[i], actual.centers[i], 0.0d);
+        }
+        assertArrayEquals(expected.areas, actual.areas, 0.0d);
+        assertEquals(expected.stress, actual.stress, 0.0d);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testVennAnalyticTooFewIterations()
+    {
+        new VennAnalytic(1, VennAnalytic.DEFAULT_GRID_SIZE);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testVennAnalyticCountsWrongLength()
+    {
+        new VennAnalytic().compute(new String[] { "0", "1" }, new double[3]);
+    }
 }
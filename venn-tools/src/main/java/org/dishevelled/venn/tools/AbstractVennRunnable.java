@@ -26,17 +26,19 @@ package org.dishevelled.venn.tools;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.dishevelled.commandline.Argument;
 
+import org.dishevelled.compress.Readers;
+
 /**
  * Abstract venn runnable.
  *
@@ -51,6 +53,15 @@ abstract class AbstractVennRunnable
     /** True to output header(s). */
     private final boolean header;
 
+    /** True to stream input files and spill to disk. */
+    private final boolean spill;
+
+    /** Spill directory, if any. */
+    private final File spillDirectory;
+
+    /** Number of spill partitions, or <code>0</code> for the default. */
+    private final int partitions;
+
     /** Marker file, write to stdout. */
     protected static final File STDOUT = new File(".");
 
@@ -63,8 +74,34 @@ abstract class AbstractVennRunnable
      */
     protected AbstractVennRunnable(final boolean count, final boolean header)
     {
+        this(count, header, false, null, 0);
+    }
+
+    /**
+     * Create a new abstract venn runnable with the specified arguments.
+     *
+     * @param count true to output count(s) only
+     * @param header true to ouput header(s)
+     * @param spill true to stream input files and spill to disk
+     * @param spillDirectory spill directory, or <code>null</code> to use the default temporary-file directory
+     * @param partitions number of spill partitions, or <code>0</code> to choose a number of partitions
+     *    from the total size of the input files
+     */
+    protected AbstractVennRunnable(final boolean count,
+                                   final boolean header,
+                                   final boolean spill,
+                                   final File spillDirectory,
+                                   final int partitions)
+    {
+        if (partitions < 0)
+        {
+            throw new IllegalArgumentException("partitions must be at least zero, was " + partitions);
+        }
         this.count = count;
         this.header = header;
+        this.spill = spill;
+        this.spillDirectory = spillDirectory;
+        this.partitions = partitions;
     }
 
 
@@ -88,6 +125,16 @@ abstract class AbstractVennRunnable
         return header;
     }
 
+    /**
+     * Return true to stream input files and spill to disk.
+     *
+     * @return true to stream input files and spill to disk
+     */
+    protected final boolean spill()
+    {
+        return spill;
+    }
+
     /**
      * Write the specified label text to stdout.
      *
@@ -140,7 +187,7 @@ abstract class AbstractVennRunnable
     }
 
     /**
-     * Read a set of strings from the specified input file.
+     * Read a set of strings from the specified input file, optionally compressed.
      *
      * @param input input file
      * @return a set of strings
@@ -151,10 +198,11 @@ abstract class AbstractVennRunnable
         Set<String> result = new HashSet<String>(Math.max(16, (int) input.length() / 64));
         try
         {
-            reader = new BufferedReader(new FileReader(input));
-            while (reader.ready())
+            reader = Readers.compressedFileReader(input);
+            String line = null;
+            while ((line = reader.readLine()) != null)
             {
-                result.add(reader.readLine().trim());
+                result.add(line.trim());
             }
         }
         catch (IOException e)
@@ -176,6 +224,26 @@ abstract class AbstractVennRunnable
         return result;
     }
 
+    /**
+     * Stream the specified input files, spilling to disk, and return a venn model of
+     * region counts and, unless outputting count(s) only, region members.  The returned
+     * venn model must be closed to delete its spill files.
+     *
+     * @param inputFiles list of input files
+     * @return a venn model for the specified input files
+     */
+    protected final SpillingVennModel spill(final List<File> inputFiles)
+    {
+        try
+        {
+            return new SpillingVennModel(inputFiles, !count, spillDirectory, partitions, Runtime.getRuntime().availableProcessors());
+        }
+        catch (IOException e)
+        {
+            throw new IllegalArgumentException("could not spill input files, " + e.getMessage());
+        }
+    }
+
     /**
      * Write the specified set view to the specified file if valid.
      *
@@ -0,0 +1,895 @@
+/*
+
+    dsh-venn-tools  Command line tools for venn diagrams.
+    Copyright (c) 2010-2019 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.venn.tools;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.Charset;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.dishevelled.compress.Readers;
+
+import org.dishevelled.venn.VennModel;
+
+/**
+ * Venn model for input files too large to hold in memory, computed by hash-partitioning
+ * the input files to disk and counting each partition independently.
+ *
+ * <p>Lines are read from each input file, optionally compressed with any of the
+ * compression types autodetected by <code>Readers.compressedFileReader</code>, trimmed,
+ * and written to one of a number of partition files in a spill directory by hash.
+ * Every copy of a value lands in the same partition, so each partition can be read into
+ * memory in turn to compute the membership bitmask of its values, with one partition per
+ * thread.  Region counts are accumulated as each partition is counted, and if members are
+ * requested, the values in each exclusive region are appended to one file per region.</p>
+ *
+ * <p>The sets returned by this venn model are read-only views backed by the region files.
+ * Their sizes are available in constant time, iterating over them reads the region files,
+ * and <code>contains</code> is <code>O(n)</code>.  If members were not requested, iterating
+ * over the sets throws <code>UnsupportedOperationException</code>.  Call {@link #close()}
+ * to delete the spill directory.</p>
+ *
+ * @author  Michael Heuer
+ */
+final class SpillingVennModel
+    implements VennModel<String>, Closeable
+{
+    /** Number of input files. */
+    private final int size;
+
+    /** True if members were requested. */
+    private final boolean members;
+
+    /** Spill directory. */
+    private final File directory;
+
+    /** Map of region counts keyed by membership bitmask, for non-empty regions only. */
+    private final SortedMap<Integer, Long> counts;
+
+    /** Map of region writers keyed by membership bitmask. */
+    private final Map<Integer, Writer> writers;
+
+    /** Open region readers. */
+    private final List<BufferedReader> readers;
+
+    /** Union view. */
+    private final Set<String> union;
+
+    /** Target number of input bytes per partition, <code>32 MB</code>. */
+    static final long PARTITION_BYTES = 32L * 1024L * 1024L;
+
+    /** Maximum number of partitions, <code>512</code>. */
+    static final int MAX_PARTITIONS = 512;
+
+    /** Number of characters buffered per partition before writing, <code>16384</code>. */
+    private static final int BUFFER_SIZE = 16384;
+
+    /** Character set for partition and region files, <code>UTF-8</code>. */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+
+    /**
+     * Create a new spilling venn model for the specified input files.
+     *
+     * @param inputFiles list of input files, must not be null, must contain at least
+     *    one input file, and must not contain more than 29 input files
+     * @param members true to write the members of each exclusive region to disk, false to
+     *    compute region counts only
+     * @param spillDirectory directory in which to create the spill directory, or <code>null</code>
+     *    to use the default temporary-file directory
+     * @param partitions number of partitions, or <code>0</code> to choose a number of partitions
+     *    from the total size of the input files
+     * @param threads number of threads, must be at least <code>1</code>
+     * @throws IOException if an I/O error occurs
+     */
+    SpillingVennModel(final List<File> inputFiles,
+                      final boolean members,
+                      final File spillDirectory,
+                      final int partitions,
+                      final int threads)
+        throws IOException
+    {
+        if (inputFiles == null)
+        {
+            throw new IllegalArgumentException("inputFiles must not be null");
+        }
+        if (inputFiles.isEmpty())
+        {
+            throw new IllegalArgumentException("inputFiles must contain at least one input file");
+        }
+        if (inputFiles.size() > 29)
+        {
+            throw new IllegalArgumentException("inputFiles must contain less than 30 input files");
+        }
+        if (partitions < 0)
+        {
+            throw new IllegalArgumentException("partitions must be at least zero, was " + partitions);
+        }
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("threads must be at least one, was " + threads);
+        }
+        this.size = inputFiles.size();
+        this.members = members;
+
+        directory = File.createTempFile("venn", ".spill", spillDirectory);
+        if (!directory.delete() || !directory.mkdir())
+        {
+            throw new IOException("could not create spill directory " + directory);
+        }
+        counts = new TreeMap<Integer, Long>();
+        writers = new HashMap<Integer, Writer>();
+        readers = new ArrayList<BufferedReader>();
+
+        int p = (partitions == 0) ? defaultPartitions(inputFiles) : partitions;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try
+        {
+            File[] partitionFiles = partition(inputFiles, p, executorService);
+            count(partitionFiles, executorService);
+            closeWriters();
+        }
+        catch (IOException e)
+        {
+            close();
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            close();
+            throw e;
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+
+        List<Integer> masks = new ArrayList<Integer>(counts.keySet());
+        union = new RegionView(masks, sum(masks));
+    }
+
+
+    /**
+     * Return the default number of partitions for the specified input files.
+     *
+     * @param inputFiles input files
+     * @return the default number of partitions for the specified input files
+     */
+    static int defaultPartitions(final List<File> inputFiles)
+    {
+        long bytes = 0L;
+        for (File inputFile : inputFiles)
+        {
+            bytes += inputFile.length();
+        }
+        return (int) Math.max(1L, Math.min((long) MAX_PARTITIONS, (bytes + PARTITION_BYTES - 1L) / PARTITION_BYTES));
+    }
+
+    /**
+     * Return the partition for the specified value.  The partition is taken from the high bits
+     * of a murmur3-mixed hash, so that the values in a partition do not share the low hash bits
+     * the <code>HashMap</code> used to count the partition picks its buckets from.
+     *
+     * @param value value
+     * @param partitions number of partitions
+     * @return the partition for the specified value
+     */
+    static int partition(final String value, final int partitions)
+    {
+        long h = value.hashCode();
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        h *= 0xc4ceb53fe85ec6f1L;
+        h ^= (h >>> 33);
+        return (int) (((h >>> 32) * partitions) >>> 32);
+    }
+
+    /**
+     * Hash-partition the lines of the specified input files to disk, one input file per thread.
+     * Each line is written as the index of its input file, a tab, and the trimmed line.
+     *
+     * @param inputFiles input files
+     * @param partitions number of partitions
+     * @param executorService executor service
+     * @return the partition files
+     * @throws IOException if an I/O error occurs
+     */
+    private File[] partition(final List<File> inputFiles, final int partitions, final ExecutorService executorService)
+        throws IOException
+    {
+        final File[] partitionFiles = new File[partitions];
+        final Writer[] partitionWriters = new Writer[partitions];
+        boolean closed = false;
+        try
+        {
+            for (int i = 0; i < partitions; i++)
+            {
+                partitionFiles[i] = new File(directory, "partition-" + i);
+                partitionWriters[i] = openWriter(partitionFiles[i]);
+            }
+            List<Callable<Object>> callables = new ArrayList<Callable<Object>>(inputFiles.size());
+            for (int i = 0, size = inputFiles.size(); i < size; i++)
+            {
+                final int index = i;
+                final File inputFile = inputFiles.get(i);
+                callables.add(new Callable<Object>()
+                    {
+                        /** {@inheritDoc} */
+                        public Object call() throws IOException
+                        {
+                            partition(index, inputFile, partitionWriters);
+                            return null;
+                        }
+                    });
+            }
+            invokeAll(callables, executorService);
+            for (Writer writer : partitionWriters)
+            {
+                writer.close();
+            }
+            closed = true;
+        }
+        finally
+        {
+            if (!closed)
+            {
+                for (Writer writer : partitionWriters)
+                {
+                    closeQuietly(writer);
+                }
+            }
+        }
+        return partitionFiles;
+    }
+
+    /**
+     * Hash-partition the lines of the specified input file to the specified partition writers.
+     * Lines are buffered per partition and written in blocks while holding the lock on the
+     * partition writer.
+     *
+     * @param index index of the input file
+     * @param inputFile input file
+     * @param partitionWriters partition writers
+     * @throws IOException if an I/O error occurs
+     */
+    private static void partition(final int index, final File inputFile, final Writer[] partitionWriters)
+        throws IOException
+    {
+        int partitions = partitionWriters.length;
+        StringBuilder[] buffers = new StringBuilder[partitions];
+        String prefix = index + "\t";
+        BufferedReader reader = null;
+        try
+        {
+            reader = Readers.compressedFileReader(inputFile);
+            String line = null;
+            while ((line = reader.readLine()) != null)
+            {
+                String value = line.trim();
+                int p = partition(value, partitions);
+                if (buffers[p] == null)
+                {
+                    buffers[p] = new StringBuilder(BUFFER_SIZE + 256);
+                }
+                StringBuilder buffer = buffers[p];
+                buffer.append(prefix).append(value).append('\n');
+                if (buffer.length() >= BUFFER_SIZE)
+                {
+                    flush(buffer, partitionWriters[p]);
+                }
+            }
+            for (int p = 0; p < partitions; p++)
+            {
+                if (buffers[p] != null && buffers[p].length() > 0)
+                {
+                    flush(buffers[p], partitionWriters[p]);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            IOException ioe = new IOException("could not read input file " + inputFile + ", " + e.getMessage());
+            ioe.initCause(e);
+            throw ioe;
+        }
+        finally
+        {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Write and clear the specified buffer while holding the lock on the specified writer.
+     *
+     * @param buffer buffer
+     * @param writer writer
+     * @throws IOException if an I/O error occurs
+     */
+    private static void flush(final StringBuilder buffer, final Writer writer)
+        throws IOException
+    {
+        synchronized (writer)
+        {
+            writer.append(buffer);
+        }
+        buffer.setLength(0);
+    }
+
+    /**
+     * Count the specified partition files, one partition per thread.
+     *
+     * @param partitionFiles partition files
+     * @param executorService executor service
+     * @throws IOException if an I/O error occurs
+     */
+    private void count(final File[] partitionFiles, final ExecutorService executorService)
+        throws IOException
+    {
+        List<Callable<Object>> callables = new ArrayList<Callable<Object>>(partitionFiles.length);
+        for (final File partitionFile : partitionFiles)
+        {
+            callables.add(new Callable<Object>()
+                {
+                    /** {@inheritDoc} */
+                    public Object call() throws IOException
+                    {
+                        count(partitionFile);
+                        return null;
+                    }
+                });
+        }
+        invokeAll(callables, executorService);
+    }
+
+    /**
+     * Read the specified partition file into memory, compute the membership bitmask of
+     * each of its values, and accumulate region counts and, if requested, region members.
+     * The partition file is deleted when done.
+     *
+     * @param partitionFile partition file
+     * @throws IOException if an I/O error occurs
+     */
+    private void count(final File partitionFile)
+        throws IOException
+    {
+        Map<String, Integer> masks = new HashMap<String, Integer>();
+        BufferedReader reader = null;
+        try
+        {
+            reader = openReader(partitionFile);
+            String line = null;
+            while ((line = reader.readLine()) != null)
+            {
+                int tab = line.indexOf('\t');
+                int bit = 1 << Integer.parseInt(line.substring(0, tab));
+                String value = line.substring(tab + 1);
+                Integer mask = masks.get(value);
+                masks.put(value, Integer.valueOf((mask == null) ? bit : (mask.intValue() | bit)));
+            }
+        }
+        finally
+        {
+            closeQuietly(reader);
+        }
+        partitionFile.delete();
+
+        Map<Integer, List<String>> regions = new HashMap<Integer, List<String>>();
+        for (Map.Entry<String, Integer> entry : masks.entrySet())
+        {
+            List<String> region = regions.get(entry.getValue());
+            if (region == null)
+            {
+                region = new ArrayList<String>();
+                regions.put(entry.getValue(), region);
+            }
+            region.add(entry.getKey());
+        }
+        masks = null;
+
+        for (Map.Entry<Integer, List<String>> entry : regions.entrySet())
+        {
+            Integer mask = entry.getKey();
+            List<String> region = entry.getValue();
+            synchronized (counts)
+            {
+                Long count = counts.get(mask);
+                counts.put(mask, Long.valueOf(((count == null) ? 0L : count.longValue()) + region.size()));
+            }
+            if (members)
+            {
+                Writer writer = writer(mask);
+                synchronized (writer)
+                {
+                    for (String value : region)
+                    {
+                        writer.write(value);
+                        writer.write('\n');
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the region writer for the specified membership bitmask, creating it if necessary.
+     *
+     * @param mask membership bitmask
+     * @return the region writer for the specified membership bitmask
+     * @throws IOException if an I/O error occurs
+     */
+    private Writer writer(final Integer mask)
+        throws IOException
+    {
+        synchronized (writers)
+        {
+            Writer writer = writers.get(mask);
+            if (writer == null)
+            {
+                writer = openWriter(regionFile(mask.intValue()));
+                writers.put(mask, writer);
+            }
+            return writer;
+        }
+    }
+
+    /**
+     * Return the region file for the specified membership bitmask.
+     *
+     * @param mask membership bitmask
+     * @return the region file for the specified membership bitmask
+     */
+    private File regionFile(final int mask)
+    {
+        return new File(directory, "region-" + mask);
+    }
+
+    /**
+     * Invoke the specified callables and wait for them to complete.
+     *
+     * @param callables callables to invoke
+     * @param executorService executor service
+     * @throws IOException if an I/O error occurs
+     */
+    private static void invokeAll(final List<Callable<Object>> callables, final ExecutorService executorService)
+        throws IOException
+    {
+        try
+        {
+            for (Future<Object> future : executorService.invokeAll(callables))
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("could not spill input files, " + cause);
+        }
+    }
+
+    /**
+     * Close the region writers.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void closeWriters()
+        throws IOException
+    {
+        synchronized (writers)
+        {
+            for (Writer writer : writers.values())
+            {
+                writer.close();
+            }
+            writers.clear();
+        }
+    }
+
+    /**
+     * Close the region writers, ignoring any exceptions.
+     */
+    private void closeWritersQuietly()
+    {
+        synchronized (writers)
+        {
+            for (Writer writer : writers.values())
+            {
+                closeQuietly(writer);
+            }
+            writers.clear();
+        }
+    }
+
+    /**
+     * Open a buffered UTF-8 writer to the specified partition or region file.
+     *
+     * @param file partition or region file
+     * @return a buffered UTF-8 writer to the specified file
+     * @throws IOException if an I/O error occurs
+     */
+    private static BufferedWriter openWriter(final File file) throws IOException
+    {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF_8));
+    }
+
+    /**
+     * Open a buffered UTF-8 reader from the specified partition or region file.
+     *
+     * @param file partition or region file
+     * @return a buffered UTF-8 reader from the specified file
+     * @throws IOException if an I/O error occurs
+     */
+    private static BufferedReader openReader(final File file) throws IOException
+    {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+    }
+
+    /**
+     * Close the specified closeable, ignoring any exceptions.
+     *
+     * @param closeable closeable to close, may be null
+     */
+    private static void closeQuietly(final Closeable closeable)
+    {
+        try
+        {
+            if (closeable != null)
+            {
+                closeable.close();
+            }
+        }
+        catch (IOException e)
+        {
+            // ignore
+        }
+    }
+
+    /**
+     * Return the sum of the region counts for the specified membership bitmasks.
+     *
+     * @param masks membership bitmasks
+     * @return the sum of the region counts for the specified membership bitmasks
+     */
+    private long sum(final List<Integer> masks)
+    {
+        long sum = 0L;
+        for (Integer mask : masks)
+        {
+            sum += counts.get(mask).longValue();
+        }
+        return sum;
+    }
+
+    /**
+     * Return the number of values exclusive to the input files identified by the bits set in the
+     * specified membership bitmask.
+     *
+     * @param mask membership bitmask
+     * @return the number of values exclusive to the input files identified by the bits set in the
+     *    specified membership bitmask
+     */
+    long count(final int mask)
+    {
+        Long count = counts.get(Integer.valueOf(mask));
+        return (count == null) ? 0L : count.longValue();
+    }
+
+    /**
+     * Return a view of the values exclusive to the input files identified by the bits set in
+     * the specified membership bitmask.
+     *
+     * @param mask membership bitmask
+     * @return a view of the values exclusive to the input files identified by the bits set in
+     *    the specified membership bitmask
+     */
+    private Set<String> region(final int mask)
+    {
+        Integer key = Integer.valueOf(mask);
+        if (!counts.containsKey(key))
+        {
+            return Collections.<String>emptySet();
+        }
+        return new RegionView(Collections.singletonList(key), counts.get(key).longValue());
+    }
+
+
+    /** {@inheritDoc} */
+    public int size()
+    {
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    public Set<String> get(final int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("index out of bounds");
+        }
+        List<Integer> masks = new ArrayList<Integer>();
+        for (Integer mask : counts.keySet())
+        {
+            if ((mask.intValue() & (1 << index)) != 0)
+            {
+                masks.add(mask);
+            }
+        }
+        return new RegionView(masks, sum(masks));
+    }
+
+    /** {@inheritDoc} */
+    public Set<String> union()
+    {
+        return union;
+    }
+
+    /** {@inheritDoc} */
+    public Set<String> intersection()
+    {
+        return region((1 << size) - 1);
+    }
+
+    /** {@inheritDoc} */
+    public Set<String> exclusiveTo(final int index, final int... additional)
+    {
+        int maxIndex = size() - 1;
+        if (index < 0 || index > maxIndex)
+        {
+            throw new IndexOutOfBoundsException("index out of bounds");
+        }
+        int mask = 1 << index;
+        if (additional != null && additional.length > 0)
+        {
+            if (additional.length > maxIndex)
+            {
+                throw new IndexOutOfBoundsException("too many indices provided");
+            }
+            for (int i = 0, size = additional.length; i < size; i++)
+            {
+                if (additional[i] < 0 || additional[i] > maxIndex)
+                {
+                    throw new IndexOutOfBoundsException("additional index [" + i + "] out of bounds");
+                }
+                mask |= 1 << additional[i];
+            }
+        }
+        return region(mask);
+    }
+
+    /**
+     * Close any open region writers and readers and delete the spill directory.
+     */
+    public void close()
+    {
+        closeWritersQuietly();
+        synchronized (readers)
+        {
+            for (BufferedReader reader : readers)
+            {
+                closeQuietly(reader);
+            }
+            readers.clear();
+        }
+        File[] files = directory.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+
+    /**
+     * Read-only view of the values in one or more regions, backed by the region files.
+     */
+    private final class RegionView
+        extends AbstractSet<String>
+    {
+        /** Membership bitmasks of the regions in this view. */
+        private final List<Integer> masks;
+
+        /** Number of values in this view. */
+        private final long count;
+
+
+        /**
+         * Create a new region view.
+         *
+         * @param masks membership bitmasks of the regions in this view
+         * @param count number of values in this view
+         */
+        RegionView(final List<Integer> masks, final long count)
+        {
+            this.masks = masks;
+            this.count = count;
+        }
+
+
+        /** {@inheritDoc} */
+        public int size()
+        {
+            return (int) Math.min((long) Integer.MAX_VALUE, count);
+        }
+
+        /** {@inheritDoc} */
+        public boolean isEmpty()
+        {
+            return count == 0L;
+        }
+
+        /** {@inheritDoc} */
+        public Iterator<String> iterator()
+        {
+            if (count == 0L)
+            {
+                return Collections.<String>emptySet().iterator();
+            }
+            if (!members)
+            {
+                throw new UnsupportedOperationException("members were not written to disk, region counts only");
+            }
+            return new RegionIterator(masks);
+        }
+    }
+
+    /**
+     * Iterator over the values in one or more region files, reading one line at a time.
+     */
+    private final class RegionIterator
+        implements Iterator<String>
+    {
+        /** Membership bitmasks of the regions remaining. */
+        private final Iterator<Integer> masks;
+
+        /** Current region reader, if any. */
+        private BufferedReader reader;
+
+        /** Next value, if any. */
+        private String next;
+
+
+        /**
+         * Create a new region iterator.
+         *
+         * @param masks membership bitmasks of the regions to iterate over
+         */
+        RegionIterator(final List<Integer> masks)
+        {
+            this.masks = masks.iterator();
+            advance();
+        }
+
+
+        /**
+         * Advance to the next value, opening region files as necessary.
+         */
+        private void advance()
+        {
+            try
+            {
+                next = null;
+                while (next == null)
+                {
+                    if (reader == null)
+                    {
+                        if (!masks.hasNext())
+                        {
+                            return;
+                        }
+                        reader = openReader(regionFile(masks.next().intValue()));
+                        synchronized (readers)
+                        {
+                            readers.add(reader);
+                        }
+                    }
+                    next = reader.readLine();
+                    if (next == null)
+                    {
+                        closeQuietly(reader);
+                        synchronized (readers)
+                        {
+                            readers.remove(reader);
+                        }
+                        reader = null;
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException("could not read region file, " + e.getMessage());
+            }
+        }
+
+        /** {@inheritDoc} */
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+
+        /** {@inheritDoc} */
+        public String next()
+        {
+            if (next == null)
+            {
+                throw new NoSuchElementException();
+            }
+            String result = next;
+            advance();
+            return result;
+        }
+
+        /** {@inheritDoc} */
+        public void remove()
+        {
+            throw new UnsupportedOperationException("remove not supported");
+        }
+    }
+}
@@ -51,6 +51,7 @@ import org.dishevelled.commandline.Switch;
 import org.dishevelled.commandline.Usage;
 
 import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
 
 import org.dishevelled.venn.VennModel;
 
@@ -76,12 +77,20 @@ public final class Venn
      *
      * @param count true to output count(s) only
      * @param header true to ouput header(s)
+     * @param spill true to stream input files and spill to disk
+     * @param spillDirectory spill directory, if any
+     * @param partitions number of spill partitions, or <code>0</code> for the default
      * @param inputFiles list of input files, must not be null, must contain at least
      *    two input files, and must not contain more than 29 input files
      */
-    private Venn(final boolean count, final boolean header, final List<File> inputFiles)
+    private Venn(final boolean count,
+                 final boolean header,
+                 final boolean spill,
+                 final File spillDirectory,
+                 final int partitions,
+                 final List<File> inputFiles)
     {
-        super(count, header);
+        super(count, header, spill, spillDirectory, partitions);
 
         if (inputFiles == null)
         {
@@ -104,80 +113,103 @@ public final class Venn
     {
         int n = inputFiles.size();
         List<String> labels = new ArrayList<String>(n);
-        List<Set<String>> sets = new ArrayList<Set<String>>(n);
         for (File inputFile : inputFiles)
         {
             labels.add(inputFile.getName());
-            sets.add(read(inputFile));
         }
-        VennModel<String> model = VennModels.createVennModel(sets);
-
-        ImmutableMap.Builder<ImmutableBitSet, Set<String>> builder = ImmutableMap.builder();
-        Set<Set<Integer>> powerSet = Sets.powerSet(range(n));
-        for (Set<Integer> set : powerSet)
+        VennModel<String> model = null;
+        SpillingVennModel spillingModel = null;
+        try
         {
-            if (!set.isEmpty())
+            if (spill())
             {
-                ImmutableBitSet key = toImmutableBitSet(set);
-                builder.put(key, model.exclusiveTo(first(key), additional(key)));
+                spillingModel = spill(inputFiles);
+                model = spillingModel;
             }
-        }
-        Map<ImmutableBitSet, Set<String>> views = builder.build();
-
-        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
-        if (header())
-        {
-            for (Map.Entry<ImmutableBitSet, Set<String>> entry : views.entrySet())
+            else
             {
-                write(true, buildLabel(labels, entry.getKey()), writer);
+                List<Set<String>> sets = new ArrayList<Set<String>>(n);
+                for (File inputFile : inputFiles)
+                {
+                    sets.add(read(inputFile));
+                }
+                model = VennModels.createVennModel(sets);
             }
-            // todo trim extra \t
-            writer.print("\n");
-        }
 
-        if (count())
-        {
-            for (Map.Entry<ImmutableBitSet, Set<String>> entry : views.entrySet())
+            ImmutableMap.Builder<ImmutableBitSet, Set<String>> builder = ImmutableMap.builder();
+            Set<Set<Integer>> powerSet = Sets.powerSet(range(n));
+            for (Set<Integer> set : powerSet)
             {
-                write(true, entry.getValue().size(), writer);
+                if (!set.isEmpty())
+                {
+                    ImmutableBitSet key = toImmutableBitSet(set);
+                    builder.put(key, model.exclusiveTo(first(key), additional(key)));
+                }
             }
-            // todo trim extra \t
-            writer.print("\n");
-        }
-        else
-        {
-            List<Iterator<String>> iterators = new ArrayList<Iterator<String>>();
+            Map<ImmutableBitSet, Set<String>> views = builder.build();
 
-            for (Map.Entry<ImmutableBitSet, Set<String>> entry : views.entrySet())
+            PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+            if (header())
             {
-                iterators.add(entry.getValue().iterator());
+                for (Map.Entry<ImmutableBitSet, Set<String>> entry : views.entrySet())
+                {
+                    write(true, buildLabel(labels, entry.getKey()), writer);
+                }
+                // todo trim extra \t
+                writer.print("\n");
             }
 
-            boolean done = false;
-            while (!done)
+            if (count())
             {
-                boolean left = false;
-                for (Iterator<String> iterator : iterators)
+                for (Map.Entry<ImmutableBitSet, Set<String>> entry : views.entrySet())
                 {
-                    if (iterator.hasNext())
-                    {
-                        writer.write(iterator.next());
-                        left = true;
-                    }
-                    writer.write("\t");
+                    write(true, entry.getValue().size(), writer);
                 }
                 // todo trim extra \t
                 writer.print("\n");
-                done = !left;
+            }
+            else
+            {
+                List<Iterator<String>> iterators = new ArrayList<Iterator<String>>();
+
+                for (Map.Entry<ImmutableBitSet, Set<String>> entry : views.entrySet())
+                {
+                    iterators.add(entry.getValue().iterator());
+                }
+
+                boolean done = false;
+                while (!done)
+                {
+                    boolean left = false;
+                    for (Iterator<String> iterator : iterators)
+                    {
+                        if (iterator.hasNext())
+                        {
+                            writer.write(iterator.next());
+                            left = true;
+                        }
+                        writer.write("\t");
+                    }
+                    // todo trim extra \t
+                    writer.print("\n");
+                    done = !left;
+                }
+            }
+            try
+            {
+                writer.close();
+            }
+            catch (Exception e)
+            {
+                // ignore
             }
         }
-        try
-        {
-            writer.close();
-        }
-        catch (Exception e)
+        finally
         {
-            // ignore
+            if (spillingModel != null)
+            {
+                spillingModel.close();
+            }
         }
     }
 
@@ -273,6 +305,17 @@ public final class Venn
         return mutableBitSet.immutableCopy();
     }
 
+    /**
+     * Return true if the specified command line argument takes a value.
+     *
+     * @param arg command line argument
+     * @return true if the specified command line argument takes a value
+     */
+    static boolean takesValue(final String arg)
+    {
+        return "-d".equals(arg) || "--spill-directory".equals(arg) || "-a".equals(arg) || "--partitions".equals(arg);
+    }
+
     /**
      * Main.
      *
@@ -287,8 +330,11 @@ public final class Venn
             Switch help = new Switch("h", "help", "display help message");
             Switch count = new Switch("c", "count", "output count(s) only");
             Switch header = new Switch("e", "header", "output header(s)");
+            Switch spill = new Switch("x", "spill", "stream input files, spilling to disk, for large inputs");
+            FileArgument spillDirectory = new FileArgument("d", "spill-directory", "spill directory, default java.io.tmpdir", false);
+            IntegerArgument partitions = new IntegerArgument("a", "partitions", "number of spill partitions, default from input file sizes", false);
 
-            arguments = new ArgumentList(help, count, header);
+            arguments = new ArgumentList(help, count, header, spill, spillDirectory, partitions);
             commandLine = new CommandLine(args);
             CommandLineParser.parse(commandLine, arguments);
 
@@ -302,12 +348,20 @@ public final class Venn
                 for (int i = 0; i < args.length; i++)
                 {
                     // ick.
-                    if (!args[i].startsWith("-"))
+                    if (args[i].startsWith("-"))
+                    {
+                        // skip argument values
+                        if (takesValue(args[i]))
+                        {
+                            i++;
+                        }
+                    }
+                    else
                     {
                         inputFiles.add(new File(args[i]));
                     }
                 }
-                new Venn(count.wasFound(), header.wasFound(), inputFiles).run();
+                new Venn(count.wasFound(), header.wasFound(), spill.wasFound(), spillDirectory.getValue(), partitions.wasFound() ? partitions.getValue() : 0, inputFiles).run();
             }
         }
         catch (CommandLineParseException e)
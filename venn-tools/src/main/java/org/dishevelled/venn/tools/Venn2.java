@@ -28,7 +28,10 @@ import java.io.File;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Set;
 
 import org.dishevelled.commandline.ArgumentList;
 import org.dishevelled.commandline.CommandLine;
@@ -38,8 +41,9 @@ import org.dishevelled.commandline.Switch;
 import org.dishevelled.commandline.Usage;
 
 import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
 
-import org.dishevelled.venn.BinaryVennModel;
+import org.dishevelled.venn.VennModel;
 
 import org.dishevelled.venn.swing.BinaryVennLabel;
 
@@ -78,6 +82,9 @@ public final class Venn2
      *
      * @param count true to output count(s) only
      * @param header true to ouput header(s)
+     * @param spill true to stream input files and spill to disk
+     * @param spillDirectory spill directory, if any
+     * @param partitions number of spill partitions, or <code>0</code> for the default
      * @param first first input file
      * @param second second input file
      * @param firstOnly first only output file
@@ -87,6 +94,9 @@ public final class Venn2
      */
     private Venn2(final boolean count,
                   final boolean header,
+                  final boolean spill,
+                  final File spillDirectory,
+                  final int partitions,
                   final File first,
                   final File second,
                   final File firstOnly,
@@ -94,7 +104,7 @@ public final class Venn2
                   final File intersection,
                   final File union)
     {
-        super(count, header);
+        super(count, header, spill, spillDirectory, partitions);
         this.first = first;
         this.second = second;
 
@@ -122,71 +132,95 @@ public final class Venn2
     /** {@inheritDoc} */
     public void run()
     {
-        BinaryVennLabel<String> label = new BinaryVennLabel<String>(first.getName(), read(first), second.getName(), read(second));
-        BinaryVennModel<String> model = label.getModel();
-
-        // write individually to output files first
-        write(label.getFirstOnlyLabelText(), model.firstOnly(), firstOnly);
-        write(label.getSecondOnlyLabelText(), model.secondOnly(), secondOnly);
-        write(label.getIntersectionLabelText(), model.intersection(), intersection);
-        write(label.getUnionLabelText(), model.union(), union);
-
-        // write collectively to stdout next
-        boolean fo = STDOUT.equals(firstOnly);
-        boolean so = STDOUT.equals(secondOnly);
-        boolean i = STDOUT.equals(intersection);
-        boolean u = STDOUT.equals(union);
-
-        PrintWriter stdout = null;
-        stdout = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
-        if (header())
+        BinaryVennLabel<String> label = null;
+        VennModel<String> model = null;
+        SpillingVennModel spillingModel = null;
+        try
         {
-            write(fo, label.getFirstOnlyLabelText(), stdout);
-            write(so, label.getSecondOnlyLabelText(), stdout);
-            write(i, label.getIntersectionLabelText(), stdout);
-            write(u, label.getUnionLabelText(), stdout);
-            // todo trim extra \t
-            stdout.print("\n");
-        }
+            if (spill())
+            {
+                // label text only
+                Set<String> empty = Collections.emptySet();
+                label = new BinaryVennLabel<String>(first.getName(), empty, second.getName(), empty);
+                spillingModel = spill(Arrays.asList(first, second));
+                model = spillingModel;
+            }
+            else
+            {
+                label = new BinaryVennLabel<String>(first.getName(), read(first), second.getName(), read(second));
+                model = label.getModel();
+            }
 
-        if (count())
-        {
-            write(fo, model.firstOnly().size(), stdout);
-            write(so, model.secondOnly().size(), stdout);
-            write(i, model.intersection().size(), stdout);
-            write(u, model.union().size(), stdout);
-            // todo trim extra \t
-            stdout.print("\n");
-        }
-        else
-        {
-            boolean remaining = fo || so || i || u;
-            Iterator<String> foit = model.firstOnly().iterator();
-            Iterator<String> soit = model.secondOnly().iterator();
-            Iterator<String> iit = model.intersection().iterator();
-            Iterator<String> uit = model.union().iterator();
-            while (remaining)
+            // write individually to output files first
+            write(label.getFirstOnlyLabelText(), model.exclusiveTo(0), firstOnly);
+            write(label.getSecondOnlyLabelText(), model.exclusiveTo(1), secondOnly);
+            write(label.getIntersectionLabelText(), model.intersection(), intersection);
+            write(label.getUnionLabelText(), model.union(), union);
+
+            // write collectively to stdout next
+            boolean fo = STDOUT.equals(firstOnly);
+            boolean so = STDOUT.equals(secondOnly);
+            boolean i = STDOUT.equals(intersection);
+            boolean u = STDOUT.equals(union);
+
+            PrintWriter stdout = null;
+            stdout = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+            if (header())
             {
-                write(fo, foit, stdout);
-                write(so, soit, stdout);
-                write(i, iit, stdout);
-                write(u, uit, stdout);
-                remaining = (fo && foit.hasNext())
-                    || (so && soit.hasNext())
-                    || (i && iit.hasNext())
-                    || (u && uit.hasNext());
+                write(fo, label.getFirstOnlyLabelText(), stdout);
+                write(so, label.getSecondOnlyLabelText(), stdout);
+                write(i, label.getIntersectionLabelText(), stdout);
+                write(u, label.getUnionLabelText(), stdout);
+                // todo trim extra \t
+                stdout.print("\n");
+            }
 
+            if (count())
+            {
+                write(fo, model.exclusiveTo(0).size(), stdout);
+                write(so, model.exclusiveTo(1).size(), stdout);
+                write(i, model.intersection().size(), stdout);
+                write(u, model.union().size(), stdout);
                 // todo trim extra \t
                 stdout.print("\n");
             }
+            else
+            {
+                boolean remaining = fo || so || i || u;
+                Iterator<String> foit = model.exclusiveTo(0).iterator();
+                Iterator<String> soit = model.exclusiveTo(1).iterator();
+                Iterator<String> iit = model.intersection().iterator();
+                Iterator<String> uit = model.union().iterator();
+                while (remaining)
+                {
+                    write(fo, foit, stdout);
+                    write(so, soit, stdout);
+                    write(i, iit, stdout);
+                    write(u, uit, stdout);
+                    remaining = (fo && foit.hasNext())
+                        || (so && soit.hasNext())
+                        || (i && iit.hasNext())
+                        || (u && uit.hasNext());
+
+                    // todo trim extra \t
+                    stdout.print("\n");
+                }
+            }
+            try
+            {
+                stdout.close();
+            }
+            catch (Exception e)
+            {
+                // ignore
+            }
         }
-        try
-        {
-            stdout.close();
-        }
-        catch (Exception e)
+        finally
         {
-            // ignore
+            if (spillingModel != null)
+            {
+                spillingModel.close();
+            }
         }
     }
 
@@ -205,12 +239,15 @@ public final class Venn2
             Switch help = new Switch("h", "help", "display help message");
             Switch count = new Switch("c", "count", "output count(s) only");
             Switch header = new Switch("e", "header", "output header(s)");
+            Switch spill = new Switch("x", "spill", "stream input files, spilling to disk, for large inputs");
+            FileArgument spillDirectory = new FileArgument("d", "spill-directory", "spill directory, default java.io.tmpdir", false);
+            IntegerArgument partitions = new IntegerArgument("a", "partitions", "number of spill partitions, default from input file sizes", false);
             FileArgument firstOnly = new FileArgument("f", "first-only", "first only output file", false);
             FileArgument secondOnly = new FileArgument("s", "second-only", "second only output file", false);
             FileArgument intersection = new FileArgument("i", "intersection", "intersection output file", false);
             FileArgument union = new FileArgument("u", "union", "union output file", false);
 
-            arguments = new ArgumentList(help, count, header, firstOnly, secondOnly, intersection, union);
+            arguments = new ArgumentList(help, count, header, spill, spillDirectory, partitions, firstOnly, secondOnly, intersection, union);
             commandLine = new CommandLine(args);
             CommandLineParser.parse(commandLine, arguments);
 
@@ -234,7 +271,7 @@ public final class Venn2
                 File s = defaultIfFound(secondOnly, first, second, STDOUT);
                 File i = defaultIfFound(intersection, first, second, STDOUT);
                 File u = defaultIfFound(union, first, second, STDOUT);
-                new Venn2(count.wasFound(), header.wasFound(), first, second, f, s, i, u).run();
+                new Venn2(count.wasFound(), header.wasFound(), spill.wasFound(), spillDirectory.getValue(), partitions.wasFound() ? partitions.getValue() : 0, first, second, f, s, i, u).run();
             }
         }
         catch (CommandLineParseException e)
@@ -28,7 +28,10 @@ import java.io.File;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Set;
 
 import org.dishevelled.commandline.ArgumentList;
 import org.dishevelled.commandline.CommandLine;
@@ -38,8 +41,9 @@ import org.dishevelled.commandline.Switch;
 import org.dishevelled.commandline.Usage;
 
 import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
 
-import org.dishevelled.venn.QuaternaryVennModel;
+import org.dishevelled.venn.VennModel;
 
 import org.dishevelled.venn.swing.QuaternaryVennLabel;
 
@@ -120,6 +124,9 @@ public final class Venn4
      *
      * @param count true to output count(s) only
      * @param header true to ouput header(s)
+     * @param spill true to stream input files and spill to disk
+     * @param spillDirectory spill directory, if any
+     * @param partitions number of spill partitions, or <code>0</code> for the default
      * @param first first input file
      * @param second second input file
      * @param third third input file
@@ -143,6 +150,9 @@ public final class Venn4
      */
     private Venn4(final boolean count,
                   final boolean header,
+                  final boolean spill,
+                  final File spillDirectory,
+                  final int partitions,
                   final File first,
                   final File second,
                   final File third,
@@ -164,7 +174,7 @@ public final class Venn4
                   final File intersection,
                   final File union)
     {
-        super(count, header);
+        super(count, header, spill, spillDirectory, partitions);
         this.first = first;
         this.second = second;
         this.third = third;
@@ -230,155 +240,179 @@ public final class Venn4
     /** {@inheritDoc} */
     public void run()
     {
-        QuaternaryVennLabel<String> label = new QuaternaryVennLabel<String>(first.getName(), read(first), second.getName(), read(second), third.getName(), read(third), fourth.getName(), read(fourth));
-        QuaternaryVennModel<String> model = label.getModel();
-
-        // write individually to output files first
-        write(label.getFirstOnlyLabelText(), model.firstOnly(), firstOnly);
-        write(label.getSecondOnlyLabelText(), model.secondOnly(), secondOnly);
-        write(label.getThirdOnlyLabelText(), model.thirdOnly(), thirdOnly);
-        write(label.getFourthOnlyLabelText(), model.fourthOnly(), fourthOnly);
-        write(label.getFirstSecondLabelText(), model.firstSecond(), firstSecond);
-        write(label.getFirstThirdLabelText(), model.firstThird(), firstThird);
-        write(label.getFirstFourthLabelText(), model.firstFourth(), firstFourth);
-        write(label.getSecondThirdLabelText(), model.secondThird(), secondThird);
-        write(label.getSecondFourthLabelText(), model.secondFourth(), secondFourth);
-        write(label.getThirdFourthLabelText(), model.thirdFourth(), thirdFourth);
-        write(label.getFirstSecondThirdLabelText(), model.firstSecondThird(), firstSecondThird);
-        write(label.getFirstSecondFourthLabelText(), model.firstSecondFourth(), firstSecondFourth);
-        write(label.getFirstThirdFourthLabelText(), model.firstThirdFourth(), firstThirdFourth);
-        write(label.getSecondThirdFourthLabelText(), model.secondThirdFourth(), secondThirdFourth);
-        write(label.getIntersectionLabelText(), model.intersection(), intersection);
-        write(label.getUnionLabelText(), model.union(), union);
-
-        // write collectively to stdout next
-        boolean fo = STDOUT.equals(firstOnly);
-        boolean so = STDOUT.equals(secondOnly);
-        boolean to = STDOUT.equals(thirdOnly);
-        boolean ro = STDOUT.equals(fourthOnly);
-        boolean fs = STDOUT.equals(firstSecond);
-        boolean ft = STDOUT.equals(firstThird);
-        boolean fr = STDOUT.equals(firstFourth);
-        boolean st = STDOUT.equals(secondThird);
-        boolean sr = STDOUT.equals(secondFourth);
-        boolean tr = STDOUT.equals(thirdFourth);
-        boolean fst = STDOUT.equals(firstSecondThird);
-        boolean fsr = STDOUT.equals(firstSecondFourth);
-        boolean ftr = STDOUT.equals(firstThirdFourth);
-        boolean str = STDOUT.equals(secondThirdFourth);
-        boolean i = STDOUT.equals(intersection);
-        boolean u = STDOUT.equals(union);
-
-        PrintWriter stdout = null;
-        stdout = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
-        if (header())
+        QuaternaryVennLabel<String> label = null;
+        VennModel<String> model = null;
+        SpillingVennModel spillingModel = null;
+        try
         {
-            write(fo, label.getFirstOnlyLabelText(), stdout);
-            write(so, label.getSecondOnlyLabelText(), stdout);
-            write(to, label.getThirdOnlyLabelText(), stdout);
-            write(ro, label.getFourthOnlyLabelText(), stdout);
-            write(fs, label.getFirstSecondLabelText(), stdout);
-            write(ft, label.getFirstThirdLabelText(), stdout);
-            write(fr, label.getFirstFourthLabelText(), stdout);
-            write(st, label.getSecondThirdLabelText(), stdout);
-            write(sr, label.getSecondFourthLabelText(), stdout);
-            write(tr, label.getThirdFourthLabelText(), stdout);
-            write(fst, label.getFirstSecondThirdLabelText(), stdout);
-            write(fsr, label.getFirstSecondFourthLabelText(), stdout);
-            write(ftr, label.getFirstThirdFourthLabelText(), stdout);
-            write(str, label.getSecondThirdFourthLabelText(), stdout);
-            write(i, label.getIntersectionLabelText(), stdout);
-            write(u, label.getUnionLabelText(), stdout);
-            // todo trim extra \t
-            stdout.print("\n");
-        }
+            if (spill())
+            {
+                // label text only
+                Set<String> empty = Collections.emptySet();
+                label = new QuaternaryVennLabel<String>(first.getName(), empty, second.getName(), empty, third.getName(), empty, fourth.getName(), empty);
+                spillingModel = spill(Arrays.asList(first, second, third, fourth));
+                model = spillingModel;
+            }
+            else
+            {
+                label = new QuaternaryVennLabel<String>(first.getName(), read(first), second.getName(), read(second), third.getName(), read(third), fourth.getName(), read(fourth));
+                model = label.getModel();
+            }
 
-        if (count())
-        {
-            write(fo, model.firstOnly().size(), stdout);
-            write(so, model.secondOnly().size(), stdout);
-            write(to, model.thirdOnly().size(), stdout);
-            write(ro, model.fourthOnly().size(), stdout);
-            write(fs, model.firstSecond().size(), stdout);
-            write(ft, model.firstThird().size(), stdout);
-            write(fr, model.firstFourth().size(), stdout);
-            write(st, model.secondThird().size(), stdout);
-            write(sr, model.secondFourth().size(), stdout);
-            write(tr, model.thirdFourth().size(), stdout);
-            write(fst, model.firstSecondThird().size(), stdout);
-            write(fsr, model.firstSecondFourth().size(), stdout);
-            write(ftr, model.firstThirdFourth().size(), stdout);
-            write(str, model.secondThirdFourth().size(), stdout);
-            write(i, model.intersection().size(), stdout);
-            write(u, model.union().size(), stdout);
-            // todo trim extra \t
-            stdout.print("\n");
-        }
-        else
-        {
-            boolean remaining = fo || so || to || ro || fs || ft || fr || st || sr || tr || fst || fsr || ftr || str || i || u;
-            Iterator<String> foit = model.firstOnly().iterator();
-            Iterator<String> soit = model.secondOnly().iterator();
-            Iterator<String> toit = model.thirdOnly().iterator();
-            Iterator<String> roit = model.fourthOnly().iterator();
-            Iterator<String> fsit = model.firstSecond().iterator();
-            Iterator<String> ftit = model.firstThird().iterator();
-            Iterator<String> frit = model.firstFourth().iterator();
-            Iterator<String> stit = model.secondThird().iterator();
-            Iterator<String> srit = model.secondFourth().iterator();
-            Iterator<String> trit = model.thirdFourth().iterator();
-            Iterator<String> fstit = model.firstSecondThird().iterator();
-            Iterator<String> fsrit = model.firstSecondFourth().iterator();
-            Iterator<String> ftrit = model.firstThirdFourth().iterator();
-            Iterator<String> strit = model.secondThirdFourth().iterator();
-            Iterator<String> iit = model.intersection().iterator();
-            Iterator<String> uit = model.union().iterator();
-            while (remaining)
+            // write individually to output files first
+            write(label.getFirstOnlyLabelText(), model.exclusiveTo(0), firstOnly);
+            write(label.getSecondOnlyLabelText(), model.exclusiveTo(1), secondOnly);
+            write(label.getThirdOnlyLabelText(), model.exclusiveTo(2), thirdOnly);
+            write(label.getFourthOnlyLabelText(), model.exclusiveTo(3), fourthOnly);
+            write(label.getFirstSecondLabelText(), model.exclusiveTo(0, 1), firstSecond);
+            write(label.getFirstThirdLabelText(), model.exclusiveTo(0, 2), firstThird);
+            write(label.getFirstFourthLabelText(), model.exclusiveTo(0, 3), firstFourth);
+            write(label.getSecondThirdLabelText(), model.exclusiveTo(1, 2), secondThird);
+            write(label.getSecondFourthLabelText(), model.exclusiveTo(1, 3), secondFourth);
+            write(label.getThirdFourthLabelText(), model.exclusiveTo(2, 3), thirdFourth);
+            write(label.getFirstSecondThirdLabelText(), model.exclusiveTo(0, 1, 2), firstSecondThird);
+            write(label.getFirstSecondFourthLabelText(), model.exclusiveTo(0, 1, 3), firstSecondFourth);
+            write(label.getFirstThirdFourthLabelText(), model.exclusiveTo(0, 2, 3), firstThirdFourth);
+            write(label.getSecondThirdFourthLabelText(), model.exclusiveTo(1, 2, 3), secondThirdFourth);
+            write(label.getIntersectionLabelText(), model.intersection(), intersection);
+            write(label.getUnionLabelText(), model.union(), union);
+
+            // write collectively to stdout next
+            boolean fo = STDOUT.equals(firstOnly);
+            boolean so = STDOUT.equals(secondOnly);
+            boolean to = STDOUT.equals(thirdOnly);
+            boolean ro = STDOUT.equals(fourthOnly);
+            boolean fs = STDOUT.equals(firstSecond);
+            boolean ft = STDOUT.equals(firstThird);
+            boolean fr = STDOUT.equals(firstFourth);
+            boolean st = STDOUT.equals(secondThird);
+            boolean sr = STDOUT.equals(secondFourth);
+            boolean tr = STDOUT.equals(thirdFourth);
+            boolean fst = STDOUT.equals(firstSecondThird);
+            boolean fsr = STDOUT.equals(firstSecondFourth);
+            boolean ftr = STDOUT.equals(firstThirdFourth);
+            boolean str = STDOUT.equals(secondThirdFourth);
+            boolean i = STDOUT.equals(intersection);
+            boolean u = STDOUT.equals(union);
+
+            PrintWriter stdout = null;
+            stdout = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+            if (header())
             {
-                write(fo, foit, stdout);
-                write(so, soit, stdout);
-                write(to, toit, stdout);
-                write(ro, foit, stdout);
-                write(fs, fsit, stdout);
-                write(ft, ftit, stdout);
-                write(fr, frit, stdout);
-                write(st, stit, stdout);
-                write(sr, srit, stdout);
-                write(tr, trit, stdout);
-                write(fst, fstit, stdout);
-                write(fsr, fsrit, stdout);
-                write(ftr, ftrit, stdout);
-                write(str, strit, stdout);
-                write(i, iit, stdout);
-                write(u, uit, stdout);
-                remaining = (fo && foit.hasNext())
-                    || (so && soit.hasNext())
-                    || (to && toit.hasNext())
-                    || (ro && roit.hasNext())
-                    || (fs && fsit.hasNext())
-                    || (ft && ftit.hasNext())
-                    || (fr && frit.hasNext())
-                    || (st && stit.hasNext())
-                    || (sr && srit.hasNext())
-                    || (tr && trit.hasNext())
-                    || (fst && fstit.hasNext())
-                    || (fsr && fsrit.hasNext())
-                    || (ftr && ftrit.hasNext())
-                    || (str && strit.hasNext())
-                    || (i && iit.hasNext())
-                    || (u && uit.hasNext());
+                write(fo, label.getFirstOnlyLabelText(), stdout);
+                write(so, label.getSecondOnlyLabelText(), stdout);
+                write(to, label.getThirdOnlyLabelText(), stdout);
+                write(ro, label.getFourthOnlyLabelText(), stdout);
+                write(fs, label.getFirstSecondLabelText(), stdout);
+                write(ft, label.getFirstThirdLabelText(), stdout);
+                write(fr, label.getFirstFourthLabelText(), stdout);
+                write(st, label.getSecondThirdLabelText(), stdout);
+                write(sr, label.getSecondFourthLabelText(), stdout);
+                write(tr, label.getThirdFourthLabelText(), stdout);
+                write(fst, label.getFirstSecondThirdLabelText(), stdout);
+                write(fsr, label.getFirstSecondFourthLabelText(), stdout);
+                write(ftr, label.getFirstThirdFourthLabelText(), stdout);
+                write(str, label.getSecondThirdFourthLabelText(), stdout);
+                write(i, label.getIntersectionLabelText(), stdout);
+                write(u, label.getUnionLabelText(), stdout);
+                // todo trim extra \t
+                stdout.print("\n");
+            }
 
+            if (count())
+            {
+                write(fo, model.exclusiveTo(0).size(), stdout);
+                write(so, model.exclusiveTo(1).size(), stdout);
+                write(to, model.exclusiveTo(2).size(), stdout);
+                write(ro, model.exclusiveTo(3).size(), stdout);
+                write(fs, model.exclusiveTo(0, 1).size(), stdout);
+                write(ft, model.exclusiveTo(0, 2).size(), stdout);
+                write(fr, model.exclusiveTo(0, 3).size(), stdout);
+                write(st, model.exclusiveTo(1, 2).size(), stdout);
+                write(sr, model.exclusiveTo(1, 3).size(), stdout);
+                write(tr, model.exclusiveTo(2, 3).size(), stdout);
+                write(fst, model.exclusiveTo(0, 1, 2).size(), stdout);
+                write(fsr, model.exclusiveTo(0, 1, 3).size(), stdout);
+                write(ftr, model.exclusiveTo(0, 2, 3).size(), stdout);
+                write(str, model.exclusiveTo(1, 2, 3).size(), stdout);
+                write(i, model.intersection().size(), stdout);
+                write(u, model.union().size(), stdout);
                 // todo trim extra \t
                 stdout.print("\n");
             }
+            else
+            {
+                boolean remaining = fo || so || to || ro || fs || ft || fr || st || sr || tr || fst || fsr || ftr || str || i || u;
+                Iterator<String> foit = model.exclusiveTo(0).iterator();
+                Iterator<String> soit = model.exclusiveTo(1).iterator();
+                Iterator<String> toit = model.exclusiveTo(2).iterator();
+                Iterator<String> roit = model.exclusiveTo(3).iterator();
+                Iterator<String> fsit = model.exclusiveTo(0, 1).iterator();
+                Iterator<String> ftit = model.exclusiveTo(0, 2).iterator();
+                Iterator<String> frit = model.exclusiveTo(0, 3).iterator();
+                Iterator<String> stit = model.exclusiveTo(1, 2).iterator();
+                Iterator<String> srit = model.exclusiveTo(1, 3).iterator();
+                Iterator<String> trit = model.exclusiveTo(2, 3).iterator();
+                Iterator<String> fstit = model.exclusiveTo(0, 1, 2).iterator();
+                Iterator<String> fsrit = model.exclusiveTo(0, 1, 3).iterator();
+                Iterator<String> ftrit = model.exclusiveTo(0, 2, 3).iterator();
+                Iterator<String> strit = model.exclusiveTo(1, 2, 3).iterator();
+                Iterator<String> iit = model.intersection().iterator();
+                Iterator<String> uit = model.union().iterator();
+                while (remaining)
+                {
+                    write(fo, foit, stdout);
+                    write(so, soit, stdout);
+                    write(to, toit, stdout);
+                    write(ro, roit, stdout);
+                    write(fs, fsit, stdout);
+                    write(ft, ftit, stdout);
+                    write(fr, frit, stdout);
+                    write(st, stit, stdout);
+                    write(sr, srit, stdout);
+                    write(tr, trit, stdout);
+                    write(fst, fstit, stdout);
+                    write(fsr, fsrit, stdout);
+                    write(ftr, ftrit, stdout);
+                    write(str, strit, stdout);
+                    write(i, iit, stdout);
+                    write(u, uit, stdout);
+                    remaining = (fo && foit.hasNext())
+                        || (so && soit.hasNext())
+                        || (to && toit.hasNext())
+                        || (ro && roit.hasNext())
+                        || (fs && fsit.hasNext())
+                        || (ft && ftit.hasNext())
+                        || (fr && frit.hasNext())
+                        || (st && stit.hasNext())
+                        || (sr && srit.hasNext())
+                        || (tr && trit.hasNext())
+                        || (fst && fstit.hasNext())
+                        || (fsr && fsrit.hasNext())
+                        || (ftr && ftrit.hasNext())
+                        || (str && strit.hasNext())
+                        || (i && iit.hasNext())
+                        || (u && uit.hasNext());
+
+                    // todo trim extra \t
+                    stdout.print("\n");
+                }
+            }
+            try
+            {
+                stdout.close();
+            }
+            catch (Exception e)
+            {
+                // ignore
+            }
         }
-        try
-        {
-            stdout.close();
-        }
-        catch (Exception e)
+        finally
         {
-            // ignore
+            if (spillingModel != null)
+            {
+                spillingModel.close();
+            }
         }
     }
 
@@ -397,6 +431,9 @@ public final class Venn4
             Switch help = new Switch("h", "help", "display help message");
             Switch count = new Switch("c", "count", "output count(s) only");
             Switch header = new Switch("e", "header", "output header(s)");
+            Switch spill = new Switch("x", "spill", "stream input files, spilling to disk, for large inputs");
+            FileArgument spillDirectory = new FileArgument("d", "spill-directory", "spill directory, default java.io.tmpdir", false);
+            IntegerArgument partitions = new IntegerArgument("a", "partitions", "number of spill partitions, default from input file sizes", false);
             FileArgument firstOnly = new FileArgument("f", "first-only", "first only output file", false);
             FileArgument secondOnly = new FileArgument("s", "second-only", "second only output file", false);
             FileArgument thirdOnly = new FileArgument("t", "third-only", "third only output file", false);
@@ -414,7 +451,7 @@ public final class Venn4
             FileArgument intersection = new FileArgument("i", "intersection", "intersection output file", false);
             FileArgument union = new FileArgument("u", "union", "union output file", false);
 
-            arguments = new ArgumentList(help, count, header, firstOnly, secondOnly, thirdOnly, fourthOnly,
+            arguments = new ArgumentList(help, count, header, spill, spillDirectory, partitions, firstOnly, secondOnly, thirdOnly, fourthOnly,
                                          firstSecond, firstThird, firstFourth, secondThird, secondFourth, thirdFourth,
                                          firstSecondThird, firstSecondFourth, firstThirdFourth, secondThirdFourth, intersection, union);
             commandLine = new CommandLine(args);
@@ -454,7 +491,7 @@ public final class Venn4
                 File w = defaultIfFound(secondThirdFourth, first, second, third, fourth, STDOUT);
                 File i = defaultIfFound(intersection, first, second, third,  fourth, STDOUT);
                 File u = defaultIfFound(union, first, second, third, fourth, STDOUT);
-                new Venn4(count.wasFound(), header.wasFound(), first, second, third, fourth, f, s, t, r, j, k, l, m, n, o, p, q, v, w, i, u).run();
+                new Venn4(count.wasFound(), header.wasFound(), spill.wasFound(), spillDirectory.getValue(), partitions.wasFound() ? partitions.getValue() : 0, first, second, third, fourth, f, s, t, r, j, k, l, m, n, o, p, q, v, w, i, u).run();
             }
         }
         catch (CommandLineParseException e)
@@ -0,0 +1,388 @@
+/*
+
+    dsh-venn-tools  Command line tools for venn diagrams.
+    Copyright (c) 2010-2019 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.venn.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import java.util.zip.GZIPOutputStream;
+
+import org.dishevelled.venn.VennModel;
+
+import org.dishevelled.venn.model.VennModels;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for SpillingVennModel.
+ *
+ * @author  Michael Heuer
+ */
+public final class SpillingVennModelTest
+{
+    /** Spill directory. */
+    private File spillDirectory;
+
+    /** Input files. */
+    private List<File> inputFiles;
+
+    /** Sets of values in the input files. */
+    private List<Set<String>> sets;
+
+
+    @Before
+    public void setUp() throws IOException
+    {
+        spillDirectory = File.createTempFile("spillingVennModelTest", ".tmp");
+        spillDirectory.delete();
+        spillDirectory.mkdir();
+        inputFiles = new ArrayList<File>();
+        sets = new ArrayList<Set<String>>();
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (File inputFile : inputFiles)
+        {
+            inputFile.delete();
+        }
+        File[] files = spillDirectory.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+        spillDirectory.delete();
+    }
+
+    /**
+     * Add an input file containing the specified lines, optionally gzip compressed.
+     *
+     * @param compressed true to gzip compress the input file
+     * @param lines lines
+     * @throws IOException if an I/O error occurs
+     */
+    private void addInputFile(final boolean compressed, final String... lines) throws IOException
+    {
+        File inputFile = File.createTempFile("spillingVennModelTest", compressed ? ".txt.gz" : ".txt");
+        inputFiles.add(inputFile);
+        OutputStream outputStream = new FileOutputStream(inputFile);
+        if (compressed)
+        {
+            outputStream = new GZIPOutputStream(outputStream);
+        }
+        try (Writer writer = new OutputStreamWriter(outputStream, "UTF-8"))
+        {
+            for (String line : lines)
+            {
+                writer.write(line);
+                writer.write("\n");
+            }
+        }
+        Set<String> set = new HashSet<String>();
+        for (String line : lines)
+        {
+            set.add(line.trim());
+        }
+        sets.add(set);
+    }
+
+    /**
+     * Add an uncompressed input file containing the specified lines.
+     *
+     * @param lines lines
+     * @throws IOException if an I/O error occurs
+     */
+    private void addInputFile(final String... lines) throws IOException
+    {
+        addInputFile(false, lines);
+    }
+
+    /**
+     * Add an input file containing the specified number of values, taking every
+     * <code>step</code>th value starting from <code>start</code>.
+     *
+     * @param start start
+     * @param step step
+     * @param count number of values
+     * @throws IOException if an I/O error occurs
+     */
+    private void addInputFile(final int start, final int step, final int count) throws IOException
+    {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++)
+        {
+            lines[i] = "value" + (start + i * step);
+        }
+        addInputFile(false, lines);
+    }
+
+    /**
+     * Assert the specified spilling venn model has the same counts, and if members is true,
+     * the same members, as a venn model computed in memory from the same input.
+     *
+     * @param model spilling venn model
+     * @param members true if members were written to disk
+     */
+    private void assertSameAsInMemory(final SpillingVennModel model, final boolean members)
+    {
+        VennModel<String> expected = VennModels.createVennModel(sets);
+        assertEquals(expected.size(), model.size());
+        assertSameValues(expected.union(), model.union(), members);
+        assertSameValues(expected.intersection(), model.intersection(), members);
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertSameValues(expected.get(i), model.get(i), members);
+        }
+        for (int mask = 1, masks = 1 << expected.size(); mask < masks; mask++)
+        {
+            int index = Integer.numberOfTrailingZeros(mask);
+            int[] additional = new int[Integer.bitCount(mask) - 1];
+            for (int i = index + 1, j = 0; i < expected.size(); i++)
+            {
+                if ((mask & (1 << i)) != 0)
+                {
+                    additional[j++] = i;
+                }
+            }
+            assertEquals(expected.exclusiveTo(index, additional).size(), model.count(mask));
+            assertSameValues(expected.exclusiveTo(index, additional), model.exclusiveTo(index, additional), members);
+        }
+    }
+
+    /**
+     * Assert the specified sets have the same size, and if members is true, the same members.
+     *
+     * @param expected expected set
+     * @param actual actual set
+     * @param members true if members were written to disk
+     */
+    private static void assertSameValues(final Set<String> expected, final Set<String> actual, final boolean members)
+    {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        if (members)
+        {
+            List<String> values = new ArrayList<String>();
+            for (String value : actual)
+            {
+                values.add(value);
+            }
+            assertEquals(expected.size(), values.size());
+            assertEquals(expected, new HashSet<String>(values));
+        }
+    }
+
+    @Test
+    public void testTwoSets() throws IOException
+    {
+        addInputFile("foo", "bar", "baz", "foo");
+        addInputFile("bar", "qux", " garply ");
+        try (SpillingVennModel model = new SpillingVennModel(inputFiles, true, spillDirectory, 0, 1))
+        {
+            assertSameAsInMemory(model, true);
+            assertEquals(new HashSet<String>(Arrays.asList("foo", "baz")), model.exclusiveTo(0));
+            assertEquals(Collections.singleton("bar"), model.intersection());
+            assertTrue(model.union().contains("garply"));
+        }
+    }
+
+    @Test
+    public void testNonAsciiValues() throws IOException
+    {
+        addInputFile("caf\u00e9", "na\u00efve", "\u65e5\u672c");
+        addInputFile("na\u00efve", "\u00fcber");
+        try (SpillingVennModel model = new SpillingVennModel(inputFiles, true, spillDirectory, 0, 1))
+        {
+            assertSameAsInMemory(model, true);
+            assertEquals(new HashSet<String>(Arrays.asList("caf\u00e9", "\u65e5\u672c")), model.exclusiveTo(0));
+            assertEquals(Collections.singleton("na\u00efve"), model.intersection());
+        }
+    }
+
+    @Test
+    public void testThreeSets() throws IOException
+    {
+        addInputFile(0, 2, 500);
+        addInputFile(0, 3, 400);
+        addInputFile(0, 5, 300);
+        try (SpillingVennModel model = new SpillingVennModel(inputFiles, true, spillDirectory, 7, 3))
+        {
+            assertSameAsInMemory(model, true);
+        }
+    }
+
+    @Test
+    public void testFourSets() throws IOException
+    {
+        addInputFile(0, 2, 500);
+        addInputFile(0, 3, 400);
+        addInputFile(0, 5, 300);
+        addInputFile(1, 7, 200);
+        try (SpillingVennModel model = new SpillingVennModel(inputFiles, true, spillDirectory, 16, 4))
+        {
+            assertSameAsInMemory(model, true);
+        }
+    }
+
+    @Test
+    public void testEmptyInputFile() throws IOException
+    {
+        addInputFile("foo", "bar");
+        addInputFile();
+        try (SpillingVennModel model = new SpillingVennModel(inputFiles, true, spillDirectory, 0, 2))
+        {
+            assertSameAsInMemory(model, true);
+            assertTrue(model.intersection().isEmpty());
+        }
+    }
+
+    @Test
+    public void testCountOnly() throws IOException
+    {
+        addInputFile(0, 2, 500);
+        addInputFile(0, 3, 400);
+        addInputFile(0, 5, 300);
+        addInputFile(1, 7, 200);
+        try (SpillingVennModel model = new SpillingVennModel(inputFiles, false, spillDirectory, 5, 2))
+        {
+            assertSameAsInMemory(model, false);
+            try
+            {
+                model.union().iterator();
+                fail("union().iterator() expected UnsupportedOperationException");
+            }
+            catch (UnsupportedOperationException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testCompressedInput() throws IOException
+    {
+        addInputFile(true, "foo", "bar", "baz");
+        addInputFile(false, "bar", "baz", "qux");
+        addInputFile(true, "baz", "qux", "garply");
+        try (SpillingVennModel model = new SpillingVennModel(inputFiles, true, spillDirectory, 3, 2))
+        {
+            assertSameAsInMemory(model, true);
+            assertEquals(Collections.singleton("baz"), model.intersection());
+        }
+    }
+
+    @Test
+    public void testCloseDeletesSpillDirectory() throws IOException
+    {
+        addInputFile("foo", "bar");
+        addInputFile("bar", "baz");
+        SpillingVennModel model = new SpillingVennModel(inputFiles, true, spillDirectory, 0, 1);
+        assertEquals(1, spillDirectory.listFiles().length);
+        model.close();
+        assertEquals(0, spillDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testMissingInputFile() throws IOException
+    {
+        addInputFile("foo", "bar");
+        File missing = new File(spillDirectory, "missing.txt");
+        try
+        {
+            new SpillingVennModel(Arrays.asList(inputFiles.get(0), missing), true, spillDirectory, 0, 1);
+            fail("missing input file expected IOException");
+        }
+        catch (IOException e)
+        {
+            assertNotNull(e.getCause());
+        }
+        assertEquals(0, spillDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testDefaultPartitions()
+    {
+        assertEquals(1, SpillingVennModel.defaultPartitions(Collections.<File>emptyList()));
+    }
+
+    @Test
+    public void testPartition()
+    {
+        for (int partitions = 1; partitions < 10; partitions++)
+        {
+            int p = SpillingVennModel.partition("foo", partitions);
+            assertTrue(p >= 0 && p < partitions);
+            assertEquals(p, SpillingVennModel.partition("foo", partitions));
+        }
+        assertEquals(0, SpillingVennModel.partition("foo", 1));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNullInputFiles() throws IOException
+    {
+        new SpillingVennModel(null, true, spillDirectory, 0, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorEmptyInputFiles() throws IOException
+    {
+        new SpillingVennModel(Collections.<File>emptyList(), true, spillDirectory, 0, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorNegativePartitions() throws IOException
+    {
+        addInputFile("foo");
+        new SpillingVennModel(inputFiles, true, spillDirectory, -1, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorZeroThreads() throws IOException
+    {
+        addInputFile("foo");
+        new SpillingVennModel(inputFiles, true, spillDirectory, 0, 0);
+    }
+}
@@ -44,6 +44,11 @@ import static org.dishevelled.venn.model.VennModelUtils.toImmutableBitSet;
 /**
  * Immutable implementation of BinaryVennModel.
  *
+ * <p>If the sets provided to the constructor are all observable, the exclusive regions, intersection,
+ * and union of this venn model are maintained incrementally in response to their set change events,
+ * so their sizes are available in constant time.  Otherwise they are views computed from the sets
+ * on demand.</p>
+ *
  * @param <E> value type
  * @author  Michael Heuer
  */
@@ -80,7 +85,8 @@ public final class BinaryVennModelImpl<E>
      */
     public BinaryVennModelImpl()
     {
-        this(new HashSet<E>(), new HashSet<E>());
+        this(new ObservableSetImpl<E>(new HashSet<E>()),
+             new ObservableSetImpl<E>(new HashSet<E>()));
     }
 
     /**
@@ -89,6 +95,7 @@ public final class BinaryVennModelImpl<E>
      * @param first first set, must not be null
      * @param second second set, must not be null
      */
+    @SuppressWarnings("unchecked")
     public BinaryVennModelImpl(final Set<? extends E> first, final Set<? extends E> second)
     {
         if (first == null)
@@ -103,10 +110,25 @@ public final class BinaryVennModelImpl<E>
         // todo  defensive copy?
         this.first = new ObservableSetImpl(first);
         this.second = new ObservableSetImpl(second);
-        firstOnly = Sets.difference(this.first, this.second);
-        secondOnly = Sets.difference(this.second, this.first);
-        intersection = Sets.intersection(this.first, this.second);
-        union = Sets.union(this.first, this.second);
+
+        if (RegionIndex.isObservable(first, second))
+        {
+            RegionIndex<E> regions = new RegionIndex<E>(2);
+            regions.observe((ObservableSet<E>) first, 0);
+            regions.observe((ObservableSet<E>) second, 1);
+
+            firstOnly = regions.exclusiveTo(1); // f - s
+            secondOnly = regions.exclusiveTo(2); // s - f
+            intersection = regions.exclusiveTo(3); // f n s
+            union = regions.union(); // f u s
+        }
+        else
+        {
+            firstOnly = Sets.difference(this.first, this.second);
+            secondOnly = Sets.difference(this.second, this.first);
+            intersection = Sets.intersection(this.first, this.second);
+            union = Sets.union(this.first, this.second);
+        }
         selection = new SelectionView<E>(union, this.first, this.second);
 
         exclusives = new HashMap<ImmutableBitSet, Set<E>>(3);
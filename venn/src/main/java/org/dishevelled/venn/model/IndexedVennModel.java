@@ -0,0 +1,337 @@
+/*
+
+    dsh-venn  Lightweight components for venn diagrams.
+    Copyright (c) 2009-2019 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.venn.model;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import org.dishevelled.venn.VennModel;
+
+/**
+ * Materialized, indexed implementation of a venn diagram model for an arbitrary number of sets.
+ *
+ * <p>Each distinct element in the sets is assigned an <code>int</code> id once, and its membership in
+ * the sets is stored as one bitmask per element, with bit <code>i</code> set if the element is a member
+ * of the set at index <code>i</code>.  The members of every non-empty region are then grouped by bitmask
+ * in a single pass, so the sizes of the union, the intersection, and every exclusive region are available
+ * in constant time, and iteration over a region visits only its members.</p>
+ *
+ * <p>Unlike {@link VennModelImpl}, whose union, intersection, and exclusive sets are views over the
+ * sets, the regions of an indexed venn model are computed when the model is created and do not reflect
+ * later changes to the sets.</p>
+ *
+ * @param <E> value type
+ * @author  Michael Heuer
+ */
+public final class IndexedVennModel<E> implements VennModel<E>
+{
+    /** List of sets. */
+    private final List<Set<E>> sets;
+
+    /** Distinct elements, indexed by id. */
+    private final List<E> elements;
+
+    /** Map of ids keyed by element. */
+    private final Map<E, Integer> ids;
+
+    /** Membership bitmasks, indexed by id. */
+    private final int[] masks;
+
+    /** Ids, grouped by membership bitmask. */
+    private final int[] members;
+
+    /** Map of exclusive regions keyed by membership bitmask, for non-empty regions only. */
+    private final Map<Integer, Region> regions;
+
+    /** Union view. */
+    private final Set<E> union;
+
+    /** Intersection. */
+    private final Set<E> intersection;
+
+    /** Maximum number of sets, <code>30</code>. */
+    public static final int MAX_SETS = 30;
+
+
+    /**
+     * Create a new indexed venn model for the specified list of sets.
+     *
+     * @param sets list of sets, must not be null and must contain at most <code>30</code> sets
+     */
+    public IndexedVennModel(final List<Set<E>> sets)
+    {
+        if (sets == null)
+        {
+            throw new IllegalArgumentException("sets must not be null");
+        }
+        if (sets.size() > MAX_SETS)
+        {
+            throw new IllegalArgumentException("sets must contain at most " + MAX_SETS + " sets, was " + sets.size());
+        }
+        this.sets = ImmutableList.copyOf(sets);
+
+        // assign each distinct element an id and accumulate its membership bitmask
+        elements = new ArrayList<E>();
+        ids = Maps.newHashMap();
+        int[] m = new int[16];
+        for (int i = 0, size = this.sets.size(); i < size; i++)
+        {
+            int bit = 1 << i;
+            for (E e : this.sets.get(i))
+            {
+                Integer id = ids.get(e);
+                if (id == null)
+                {
+                    id = Integer.valueOf(elements.size());
+                    ids.put(e, id);
+                    elements.add(e);
+                    if (id.intValue() == m.length)
+                    {
+                        int[] grown = new int[m.length * 2];
+                        System.arraycopy(m, 0, grown, 0, m.length);
+                        m = grown;
+                    }
+                }
+                m[id.intValue()] |= bit;
+            }
+        }
+        masks = m;
+
+        // count the members of each region, then group ids by region
+        int n = elements.size();
+        Map<Integer, Region> r = Maps.newHashMap();
+        for (int id = 0; id < n; id++)
+        {
+            Integer mask = Integer.valueOf(masks[id]);
+            Region region = r.get(mask);
+            if (region == null)
+            {
+                region = new Region(masks[id]);
+                r.put(mask, region);
+            }
+            region.length++;
+        }
+        int offset = 0;
+        for (Region region : r.values())
+        {
+            region.offset = offset;
+            offset += region.length;
+        }
+        members = new int[n];
+        int[] next = new int[n];
+        for (Region region : r.values())
+        {
+            next[region.offset] = region.offset;
+        }
+        for (int id = 0; id < n; id++)
+        {
+            Region region = r.get(Integer.valueOf(masks[id]));
+            members[next[region.offset]++] = id;
+        }
+        regions = r;
+
+        union = new Union();
+        Region all = sets.isEmpty() ? null : regions.get(Integer.valueOf((int) ((1L << this.sets.size()) - 1L)));
+        intersection = (all == null) ? ImmutableSet.<E>of() : all;
+    }
+
+
+    /** {@inheritDoc} */
+    public int size()
+    {
+        return sets.size();
+    }
+
+    /** {@inheritDoc} */
+    public Set<E> get(final int index)
+    {
+        return sets.get(index);
+    }
+
+    /** {@inheritDoc} */
+    public Set<E> union()
+    {
+        return union;
+    }
+
+    /** {@inheritDoc} */
+    public Set<E> intersection()
+    {
+        return intersection;
+    }
+
+    /** {@inheritDoc} */
+    public Set<E> exclusiveTo(final int index, final int... additional)
+    {
+        int maxIndex = size() - 1;
+        if (index < 0 || index > maxIndex)
+        {
+            throw new IndexOutOfBoundsException("index out of bounds");
+        }
+        int mask = 1 << index;
+        if (additional != null && additional.length > 0)
+        {
+            if (additional.length > maxIndex)
+            {
+                throw new IndexOutOfBoundsException("too many indices provided");
+            }
+            for (int i = 0, size = additional.length; i < size; i++)
+            {
+                if (additional[i] < 0 || additional[i] > maxIndex)
+                {
+                    throw new IndexOutOfBoundsException("additional index [" + i + "] out of bounds");
+                }
+                mask |= 1 << additional[i];
+            }
+        }
+        Region region = regions.get(Integer.valueOf(mask));
+        return (region == null) ? ImmutableSet.<E>of() : region;
+    }
+
+    /**
+     * Return the number of elements exclusive to the sets in this venn model identified by the
+     * bits set in the specified membership bitmask, in constant time.  For example, for
+     * <code>mask = 5</code> (binary <code>101</code>) this returns the size of <code>exclusiveTo(0, 2)</code>.
+     *
+     * @param mask membership bitmask
+     * @return the number of elements exclusive to the sets in this venn model identified by the
+     *    bits set in the specified membership bitmask
+     */
+    public int count(final int mask)
+    {
+        Region region = regions.get(Integer.valueOf(mask));
+        return (region == null) ? 0 : region.length;
+    }
+
+
+    /**
+     * Union view.
+     */
+    private final class Union
+        extends AbstractSet<E>
+    {
+
+        /** {@inheritDoc} */
+        public int size()
+        {
+            return elements.size();
+        }
+
+        /** {@inheritDoc} */
+        public boolean contains(final Object o)
+        {
+            return ids.containsKey(o);
+        }
+
+        /** {@inheritDoc} */
+        public Iterator<E> iterator()
+        {
+            return Collections.unmodifiableList(elements).iterator();
+        }
+    }
+
+    /**
+     * Exclusive region.
+     */
+    private final class Region
+        extends AbstractSet<E>
+    {
+        /** Membership bitmask. */
+        private final int mask;
+
+        /** Offset into members. */
+        private int offset;
+
+        /** Number of members. */
+        private int length;
+
+
+        /**
+         * Create a new exclusive region with the specified membership bitmask.
+         *
+         * @param mask membership bitmask
+         */
+        Region(final int mask)
+        {
+            this.mask = mask;
+        }
+
+
+        /** {@inheritDoc} */
+        public int size()
+        {
+            return length;
+        }
+
+        /** {@inheritDoc} */
+        public boolean contains(final Object o)
+        {
+            Integer id = ids.get(o);
+            return (id != null) && (masks[id.intValue()] == mask);
+        }
+
+        /** {@inheritDoc} */
+        public Iterator<E> iterator()
+        {
+            return new Iterator<E>()
+                {
+                    /** Index into members. */
+                    private int index = offset;
+
+
+                    /** {@inheritDoc} */
+                    public boolean hasNext()
+                    {
+                        return index < offset + length;
+                    }
+
+                    /** {@inheritDoc} */
+                    public E next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        return elements.get(members[index++]);
+                    }
+
+                    /** {@inheritDoc} */
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException("remove not supported");
+                    }
+                };
+        }
+    }
+}
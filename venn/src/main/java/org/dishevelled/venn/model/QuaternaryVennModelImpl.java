@@ -44,6 +44,11 @@ import static org.dishevelled.venn.model.VennModelUtils.toImmutableBitSet;
 /**
  * Immutable implementation of QuaternaryVennModel.
  *
+ * <p>If the sets provided to the constructor are all observable, the exclusive regions, intersection,
+ * and union of this venn model are maintained incrementally in response to their set change events,
+ * so their sizes are available in constant time.  Otherwise they are views computed from the sets
+ * on demand.</p>
+ *
  * @param <E> value type
  * @author  Michael Heuer
  */
@@ -122,7 +127,10 @@ public final class QuaternaryVennModelImpl<E>
      */
     public QuaternaryVennModelImpl()
     {
-        this(new HashSet<E>(), new HashSet<E>(), new HashSet<E>(), new HashSet<E>());
+        this(new ObservableSetImpl<E>(new HashSet<E>()),
+             new ObservableSetImpl<E>(new HashSet<E>()),
+             new ObservableSetImpl<E>(new HashSet<E>()),
+             new ObservableSetImpl<E>(new HashSet<E>()));
     }
 
     /**
@@ -133,6 +141,7 @@ public final class QuaternaryVennModelImpl<E>
      * @param third third set, must not be null
      * @param fourth fourth set, must not be null
      */
+    @SuppressWarnings("unchecked")
     public QuaternaryVennModelImpl(final Set<? extends E> first,
                                     final Set<? extends E> second,
                                     final Set<? extends E> third,
@@ -166,22 +175,51 @@ public final class QuaternaryVennModelImpl<E>
         ObservableSet<E> s = this.second;
         ObservableSet<E> t = this.third;
         ObservableSet<E> r = this.fourth;
-        firstOnly = Sets.difference(Sets.difference(Sets.difference(f, s), t), r); // f - s - t - r
-        secondOnly = Sets.difference(Sets.difference(Sets.difference(s, f), t), r); // s - f - t - r
-        thirdOnly = Sets.difference(Sets.difference(Sets.difference(t, f), s), r); // t - f - s - r
-        fourthOnly = Sets.difference(Sets.difference(Sets.difference(r, f), s), t); // r - f - s - t
-        firstSecond = Sets.difference(Sets.difference(Sets.intersection(f, s), t), r); // f n s - t - r
-        firstThird = Sets.difference(Sets.difference(Sets.intersection(f, t), s), r); // f n t - s - r
-        firstFourth = Sets.difference(Sets.difference(Sets.intersection(f, r), s), t); // f n r - s - t
-        secondThird = Sets.difference(Sets.difference(Sets.intersection(s, t), f), r); // s n t - f - r
-        secondFourth = Sets.difference(Sets.difference(Sets.intersection(s, r), f), t); // s n r - f - t
-        thirdFourth = Sets.difference(Sets.difference(Sets.intersection(t, r), f), s); // t n r - f - s
-        firstSecondThird = Sets.difference(Sets.intersection(f, Sets.intersection(s, t)), r); // f n s n t - r
-        firstSecondFourth = Sets.difference(Sets.intersection(f, Sets.intersection(s, r)), t); // f n s n r - t
-        firstThirdFourth = Sets.difference(Sets.intersection(f, Sets.intersection(t, r)), s); // f n t n r - s
-        secondThirdFourth = Sets.difference(Sets.intersection(s, Sets.intersection(t, r)), f); // s n t n r - f
-        intersection = Sets.intersection(f, Sets.intersection(s, Sets.intersection(t, r))); // f n s n t n r
-        union = Sets.union(f, Sets.union(s, Sets.union(t, r))); // f u s u t u r
+
+        if (RegionIndex.isObservable(first, second, third, fourth))
+        {
+            RegionIndex<E> regions = new RegionIndex<E>(4);
+            regions.observe((ObservableSet<E>) first, 0);
+            regions.observe((ObservableSet<E>) second, 1);
+            regions.observe((ObservableSet<E>) third, 2);
+            regions.observe((ObservableSet<E>) fourth, 3);
+
+            firstOnly = regions.exclusiveTo(1); // f - s - t - r
+            secondOnly = regions.exclusiveTo(2); // s - f - t - r
+            thirdOnly = regions.exclusiveTo(4); // t - f - s - r
+            fourthOnly = regions.exclusiveTo(8); // r - f - s - t
+            firstSecond = regions.exclusiveTo(3); // f n s - t - r
+            firstThird = regions.exclusiveTo(5); // f n t - s - r
+            firstFourth = regions.exclusiveTo(9); // f n r - s - t
+            secondThird = regions.exclusiveTo(6); // s n t - f - r
+            secondFourth = regions.exclusiveTo(10); // s n r - f - t
+            thirdFourth = regions.exclusiveTo(12); // t n r - f - s
+            firstSecondThird = regions.exclusiveTo(7); // f n s n t - r
+            firstSecondFourth = regions.exclusiveTo(11); // f n s n r - t
+            firstThirdFourth = regions.exclusiveTo(13); // f n t n r - s
+            secondThirdFourth = regions.exclusiveTo(14); // s n t n r - f
+            intersection = regions.exclusiveTo(15); // f n s n t n r
+            union = regions.union(); // f u s u t u r
+        }
+        else
+        {
+            firstOnly = Sets.difference(Sets.difference(Sets.difference(f, s), t), r); // f - s - t - r
+            secondOnly = Sets.difference(Sets.difference(Sets.difference(s, f), t), r); // s - f - t - r
+            thirdOnly = Sets.difference(Sets.difference(Sets.difference(t, f), s), r); // t - f - s - r
+            fourthOnly = Sets.difference(Sets.difference(Sets.difference(r, f), s), t); // r - f - s - t
+            firstSecond = Sets.difference(Sets.difference(Sets.intersection(f, s), t), r); // f n s - t - r
+            firstThird = Sets.difference(Sets.difference(Sets.intersection(f, t), s), r); // f n t - s - r
+            firstFourth = Sets.difference(Sets.difference(Sets.intersection(f, r), s), t); // f n r - s - t
+            secondThird = Sets.difference(Sets.difference(Sets.intersection(s, t), f), r); // s n t - f - r
+            secondFourth = Sets.difference(Sets.difference(Sets.intersection(s, r), f), t); // s n r - f - t
+            thirdFourth = Sets.difference(Sets.difference(Sets.intersection(t, r), f), s); // t n r - f - s
+            firstSecondThird = Sets.difference(Sets.intersection(f, Sets.intersection(s, t)), r); // f n s n t - r
+            firstSecondFourth = Sets.difference(Sets.intersection(f, Sets.intersection(s, r)), t); // f n s n r - t
+            firstThirdFourth = Sets.difference(Sets.intersection(f, Sets.intersection(t, r)), s); // f n t n r - s
+            secondThirdFourth = Sets.difference(Sets.intersection(s, Sets.intersection(t, r)), f); // s n t n r - f
+            intersection = Sets.intersection(f, Sets.intersection(s, Sets.intersection(t, r))); // f n s n t n r
+            union = Sets.union(f, Sets.union(s, Sets.union(t, r))); // f u s u t u r
+        }
         selection = new SelectionView<E>(union, f, s, t, r);
 
         exclusives = new HashMap<ImmutableBitSet, Set<E>>(15);
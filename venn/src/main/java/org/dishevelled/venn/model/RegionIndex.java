@@ -0,0 +1,305 @@
+/*
+
+    dsh-venn  Lightweight components for venn diagrams.
+    Copyright (c) 2009-2019 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.venn.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dishevelled.observable.ObservableSet;
+
+import org.dishevelled.observable.event.SetChangeEvent;
+import org.dishevelled.observable.event.SetChangeListener;
+import org.dishevelled.observable.event.SetDeltaEvent;
+
+/**
+ * Incrementally maintained index of the exclusive regions of a small number of observable sets.
+ *
+ * <p>The membership of each element in the union of the sets is stored as a bitmask, with bit
+ * <code>i</code> set if the element is a member of the set at index <code>i</code>, and each exclusive
+ * region is stored as a hash set keyed by bitmask.  The index listens to set change events fired by
+ * each observable set added by {@link #observe(ObservableSet, int)}, so changes made to the sets
+ * by any means are reflected in the index.  Set delta events cost <code>O(1)</code> per element added
+ * or removed, and the sizes of the union and of every exclusive region are available in constant time.
+ * Set change events that do not carry a delta cost <code>O(n)</code> in the size of the union.</p>
+ *
+ * <p>The index is keyed by observable set, so the same set observed at more than one index updates
+ * all of those indices together.  Set change listeners registered on an observed set after the index
+ * may be notified before the index is updated.</p>
+ *
+ * @param <E> value type
+ * @author  Michael Heuer
+ */
+final class RegionIndex<E>
+{
+    /** Map of membership bitmasks keyed by element. */
+    private final Map<E, Integer> masks;
+
+    /** Exclusive regions, indexed by membership bitmask. */
+    private final List<Set<E>> regions;
+
+    /** Unmodifiable exclusive region views, indexed by membership bitmask. */
+    private final List<Set<E>> views;
+
+    /** Unmodifiable union view. */
+    private final Set<E> union;
+
+    /** Map of index bitmasks keyed by observed set. */
+    private final Map<ObservableSet<E>, Integer> observed;
+
+    /** Listener that updates this region index. */
+    private final SetChangeListener<E> listener = new SetChangeListener<E>()
+        {
+            /** {@inheritDoc} */
+            public void setChanged(final SetChangeEvent<E> event)
+            {
+                update(event);
+            }
+        };
+
+    /** Maximum number of sets, enough for the binary, ternary, and quaternary venn models. */
+    static final int MAX_SIZE = 4;
+
+
+    /**
+     * Create a new region index for the specified number of sets.
+     *
+     * @param size number of sets, must be between <code>1</code> and <code>MAX_SIZE</code>
+     */
+    RegionIndex(final int size)
+    {
+        if (size < 1 || size > MAX_SIZE)
+        {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SIZE + ", was " + size);
+        }
+        int count = 1 << size;
+        masks = new HashMap<E, Integer>();
+        regions = new ArrayList<Set<E>>(count);
+        views = new ArrayList<Set<E>>(count);
+        for (int i = 0; i < count; i++)
+        {
+            Set<E> region = new HashSet<E>();
+            regions.add(region);
+            views.add(Collections.unmodifiableSet(region));
+        }
+        union = Collections.unmodifiableSet(masks.keySet());
+        observed = new IdentityHashMap<ObservableSet<E>, Integer>(size);
+    }
+
+
+    /**
+     * Return true if all of the specified sets are observable, and so may be
+     * indexed by a region index.
+     *
+     * @param sets variable number of sets
+     * @return true if all of the specified sets are observable
+     */
+    static boolean isObservable(final Set<?>... sets)
+    {
+        for (Set<?> set : sets)
+        {
+            if (!(set instanceof ObservableSet))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Observe the specified observable set as the set at the specified index in this region index.
+     * The elements already in the set are added to this region index.
+     *
+     * @param set observable set to observe
+     * @param index index
+     */
+    void observe(final ObservableSet<E> set, final int index)
+    {
+        int bit = 1 << index;
+        Integer bits = observed.get(set);
+        if (bits == null)
+        {
+            set.addSetChangeListener(listener);
+            observed.put(set, Integer.valueOf(bit));
+        }
+        else
+        {
+            observed.put(set, Integer.valueOf(bits.intValue() | bit));
+        }
+        for (E e : set)
+        {
+            addMember(e, bit);
+        }
+    }
+
+    /**
+     * Return an unmodifiable view of the union of the sets in this region index.
+     *
+     * @return an unmodifiable view of the union of the sets in this region index
+     */
+    Set<E> union()
+    {
+        return union;
+    }
+
+    /**
+     * Return an unmodifiable view of the elements exclusive to the sets identified by the
+     * bits set in the specified membership bitmask.
+     *
+     * @param mask membership bitmask
+     * @return an unmodifiable view of the elements exclusive to the sets identified by the
+     *    bits set in the specified membership bitmask
+     */
+    Set<E> exclusiveTo(final int mask)
+    {
+        return views.get(mask);
+    }
+
+    /**
+     * Update this region index in response to the specified set change event.
+     *
+     * @param event set change event
+     */
+    private void update(final SetChangeEvent<E> event)
+    {
+        ObservableSet<E> set = event.getObservableSet();
+        Integer bits = observed.get(set);
+        if (bits == null)
+        {
+            return;
+        }
+        if (event instanceof SetDeltaEvent)
+        {
+            SetDeltaEvent<E> delta = (SetDeltaEvent<E>) event;
+            for (E e : delta.getRemoved())
+            {
+                removeMember(e, bits.intValue());
+            }
+            for (E e : delta.getAdded())
+            {
+                addMember(e, bits.intValue());
+            }
+        }
+        else
+        {
+            retainMembers(set, bits.intValue());
+            for (E e : set)
+            {
+                addMember(e, bits.intValue());
+            }
+        }
+    }
+
+    /**
+     * Move the specified element from the region for its old membership bitmask to the
+     * region for its new membership bitmask.
+     *
+     * @param e element
+     * @param oldMask old membership bitmask
+     * @param newMask new membership bitmask
+     */
+    private void move(final E e, final int oldMask, final int newMask)
+    {
+        if (oldMask != 0)
+        {
+            regions.get(oldMask).remove(e);
+        }
+        if (newMask == 0)
+        {
+            masks.remove(e);
+        }
+        else
+        {
+            regions.get(newMask).add(e);
+            masks.put(e, Integer.valueOf(newMask));
+        }
+    }
+
+    /**
+     * Record that the specified element is a member of the sets identified by the
+     * specified index bitmask.
+     *
+     * @param e element
+     * @param bits index bitmask
+     */
+    private void addMember(final E e, final int bits)
+    {
+        Integer mask = masks.get(e);
+        int oldMask = (mask == null) ? 0 : mask.intValue();
+        int newMask = oldMask | bits;
+        if (newMask != oldMask)
+        {
+            move(e, oldMask, newMask);
+        }
+    }
+
+    /**
+     * Record that the specified element is not a member of the sets identified by the
+     * specified index bitmask.
+     *
+     * @param e element
+     * @param bits index bitmask
+     */
+    private void removeMember(final E e, final int bits)
+    {
+        Integer mask = masks.get(e);
+        if (mask != null)
+        {
+            int oldMask = mask.intValue();
+            int newMask = oldMask & ~bits;
+            if (newMask != oldMask)
+            {
+                move(e, oldMask, newMask);
+            }
+        }
+    }
+
+    /**
+     * Record that only the elements of the specified set are members of the sets identified
+     * by the specified index bitmask.
+     *
+     * @param set set
+     * @param bits index bitmask
+     */
+    private void retainMembers(final Set<E> set, final int bits)
+    {
+        List<E> toRemove = new ArrayList<E>();
+        for (Map.Entry<E, Integer> entry : masks.entrySet())
+        {
+            if ((entry.getValue().intValue() & bits) != 0 && !set.contains(entry.getKey()))
+            {
+                toRemove.add(entry.getKey());
+            }
+        }
+        for (E e : toRemove)
+        {
+            removeMember(e, bits);
+        }
+    }
+}
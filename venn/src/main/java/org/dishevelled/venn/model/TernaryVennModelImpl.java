@@ -44,6 +44,11 @@ import static org.dishevelled.venn.model.VennModelUtils.toImmutableBitSet;
 /**
  * Immutable implementation of TernaryVennModel.
  *
+ * <p>If the sets provided to the constructor are all observable, the exclusive regions, intersection,
+ * and union of this venn model are maintained incrementally in response to their set change events,
+ * so their sizes are available in constant time.  Otherwise they are views computed from the sets
+ * on demand.</p>
+ *
  * @param <E> value type
  * @author  Michael Heuer
  */
@@ -95,7 +100,9 @@ public final class TernaryVennModelImpl<E>
      */
     public TernaryVennModelImpl()
     {
-        this(new HashSet<E>(), new HashSet<E>(), new HashSet<E>());
+        this(new ObservableSetImpl<E>(new HashSet<E>()),
+             new ObservableSetImpl<E>(new HashSet<E>()),
+             new ObservableSetImpl<E>(new HashSet<E>()));
     }
 
     /**
@@ -105,6 +112,7 @@ public final class TernaryVennModelImpl<E>
      * @param second second set, must not be null
      * @param third third set, must not be null
      */
+    @SuppressWarnings("unchecked")
     public TernaryVennModelImpl(final Set<? extends E> first,
                                 final Set<? extends E> second,
                                 final Set<? extends E> third)
@@ -131,14 +139,34 @@ public final class TernaryVennModelImpl<E>
         ObservableSet<E> f = this.first;
         ObservableSet<E> s = this.second;
         ObservableSet<E> t = this.third;
-        firstOnly = Sets.difference(Sets.difference(f, s), t); // f - s - t
-        secondOnly = Sets.difference(Sets.difference(s, f), t); // s - f - t
-        thirdOnly = Sets.difference(Sets.difference(t, f), s); // t - f - s
-        firstSecond = Sets.difference(Sets.intersection(f, s), t); // f n s - t
-        firstThird = Sets.difference(Sets.intersection(f, t), s); // f n t - s
-        secondThird = Sets.difference(Sets.intersection(s, t), f); // s n t - f
-        intersection = Sets.intersection(f, Sets.intersection(s, t)); // f n s n t
-        union = Sets.union(f, Sets.union(s, t)); // f u s u t
+
+        if (RegionIndex.isObservable(first, second, third))
+        {
+            RegionIndex<E> regions = new RegionIndex<E>(3);
+            regions.observe((ObservableSet<E>) first, 0);
+            regions.observe((ObservableSet<E>) second, 1);
+            regions.observe((ObservableSet<E>) third, 2);
+
+            firstOnly = regions.exclusiveTo(1); // f - s - t
+            secondOnly = regions.exclusiveTo(2); // s - f - t
+            thirdOnly = regions.exclusiveTo(4); // t - f - s
+            firstSecond = regions.exclusiveTo(3); // f n s - t
+            firstThird = regions.exclusiveTo(5); // f n t - s
+            secondThird = regions.exclusiveTo(6); // s n t - f
+            intersection = regions.exclusiveTo(7); // f n s n t
+            union = regions.union(); // f u s u t
+        }
+        else
+        {
+            firstOnly = Sets.difference(Sets.difference(f, s), t); // f - s - t
+            secondOnly = Sets.difference(Sets.difference(s, f), t); // s - f - t
+            thirdOnly = Sets.difference(Sets.difference(t, f), s); // t - f - s
+            firstSecond = Sets.difference(Sets.intersection(f, s), t); // f n s - t
+            firstThird = Sets.difference(Sets.intersection(f, t), s); // f n t - s
+            secondThird = Sets.difference(Sets.intersection(s, t), f); // s n t - f
+            intersection = Sets.intersection(f, Sets.intersection(s, t)); // f n s n t
+            union = Sets.union(f, Sets.union(s, t)); // f u s u t
+        }
         selection = new SelectionView<E>(union, f, s, t);
 
         exclusives = new HashMap<ImmutableBitSet, Set<E>>(7);
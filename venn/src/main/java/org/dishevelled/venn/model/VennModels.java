@@ -78,6 +78,21 @@ public final class VennModels
         return new VennModelImpl<E>(sets);
     }
 
+    /**
+     * Create and return a new indexed venn model with the specified sets.  The regions of
+     * an indexed venn model are computed once in a single pass over the sets, and do not
+     * reflect later changes to the sets.
+     *
+     * @see IndexedVennModel
+     * @param <E> value type
+     * @param sets list of sets, must not be null and must contain at most <code>30</code> sets
+     * @return a new indexed venn model with the specified sets
+     */
+    public static <E> VennModel<E> createIndexedVennModel(final List<Set<E>> sets)
+    {
+        return new IndexedVennModel<E>(sets);
+    }
+
     /**
      * Create and return a new binary venn model with the specified sets.
      *
@@ -23,11 +23,16 @@
 */
 package org.dishevelled.venn.model;
 
+import java.util.HashSet;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableSet;
+
 import org.dishevelled.venn.AbstractBinaryVennModelTest;
 import org.dishevelled.venn.BinaryVennModel;
 
+import org.dishevelled.observable.impl.ObservableSetImpl;
+
 import org.dishevelled.venn.model.BinaryVennModelImpl;
 
 /**
@@ -78,4 +83,49 @@ public final class BinaryVennModelImplTest
             // expected
         }
     }
+
+    public void testAliasedSets()
+    {
+        assertAliasedSets(new HashSet<String>(ImmutableSet.of("a")));
+        assertAliasedSets(new ObservableSetImpl<String>(new HashSet<String>(ImmutableSet.of("a"))));
+    }
+
+    private void assertAliasedSets(final Set<String> set)
+    {
+        BinaryVennModel<String> model = new BinaryVennModelImpl<String>(set, set);
+        model.first().add("x");
+        assertEquals(ImmutableSet.of("a", "x"), model.intersection());
+        assertTrue(model.firstOnly().isEmpty());
+        assertTrue(model.secondOnly().isEmpty());
+        assertEquals(ImmutableSet.of("a", "x"), model.union());
+
+        model.second().remove("a");
+        assertEquals(ImmutableSet.of("x"), model.intersection());
+        assertEquals(ImmutableSet.of("x"), model.union());
+    }
+
+    public void testChangesToInputSets()
+    {
+        assertChangesToInputSets(new HashSet<String>(FIRST), new HashSet<String>(SECOND));
+        assertChangesToInputSets(new ObservableSetImpl<String>(new HashSet<String>(FIRST)),
+                                 new ObservableSetImpl<String>(new HashSet<String>(SECOND)));
+    }
+
+    private void assertChangesToInputSets(final Set<String> first, final Set<String> second)
+    {
+        BinaryVennModel<String> model = new BinaryVennModelImpl<String>(first, second);
+        first.add("garply");
+        assertTrue(model.first().contains("garply"));
+        assertTrue(model.firstOnly().contains("garply"));
+        assertTrue(model.union().contains("garply"));
+
+        second.add("garply");
+        assertFalse(model.firstOnly().contains("garply"));
+        assertTrue(model.intersection().contains("garply"));
+
+        first.remove("garply");
+        second.remove("garply");
+        assertFalse(model.intersection().contains("garply"));
+        assertFalse(model.union().contains("garply"));
+    }
 }
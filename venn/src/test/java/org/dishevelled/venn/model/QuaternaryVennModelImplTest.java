@@ -23,11 +23,16 @@
 */
 package org.dishevelled.venn.model;
 
+import java.util.HashSet;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableSet;
+
 import org.dishevelled.venn.AbstractQuaternaryVennModelTest;
 import org.dishevelled.venn.QuaternaryVennModel;
 
+import org.dishevelled.observable.impl.ObservableSetImpl;
+
 import org.dishevelled.venn.model.QuaternaryVennModelImpl;
 
 /**
@@ -99,4 +104,57 @@ public final class QuaternaryVennModelImplTest
             // expected
         }
     }
+
+    public void testAliasedSets()
+    {
+        assertAliasedSets(new HashSet<String>(ImmutableSet.of("a")));
+        assertAliasedSets(new ObservableSetImpl<String>(new HashSet<String>(ImmutableSet.of("a"))));
+    }
+
+    private void assertAliasedSets(final Set<String> set)
+    {
+        QuaternaryVennModel<String> model = new QuaternaryVennModelImpl<String>(set, set, new HashSet<String>(), set);
+        model.fourth().add("x");
+        assertEquals(ImmutableSet.of("a", "x"), model.firstSecondFourth());
+        assertTrue(model.firstOnly().isEmpty());
+        assertTrue(model.secondOnly().isEmpty());
+        assertTrue(model.fourthOnly().isEmpty());
+        assertTrue(model.firstSecond().isEmpty());
+        assertEquals(ImmutableSet.of("a", "x"), model.union());
+
+        model.third().add("x");
+        assertEquals(ImmutableSet.of("a"), model.firstSecondFourth());
+        assertEquals(ImmutableSet.of("x"), model.intersection());
+    }
+
+    public void testChangesToInputSets()
+    {
+        assertChangesToInputSets(new HashSet<String>(FIRST), new HashSet<String>(SECOND),
+                                 new HashSet<String>(THIRD), new HashSet<String>(FOURTH));
+        assertChangesToInputSets(new ObservableSetImpl<String>(new HashSet<String>(FIRST)),
+                                 new ObservableSetImpl<String>(new HashSet<String>(SECOND)),
+                                 new ObservableSetImpl<String>(new HashSet<String>(THIRD)),
+                                 new ObservableSetImpl<String>(new HashSet<String>(FOURTH)));
+    }
+
+    private void assertChangesToInputSets(final Set<String> first,
+                                          final Set<String> second,
+                                          final Set<String> third,
+                                          final Set<String> fourth)
+    {
+        QuaternaryVennModel<String> model = new QuaternaryVennModelImpl<String>(first, second, third, fourth);
+        fourth.add("garply");
+        assertTrue(model.fourth().contains("garply"));
+        assertTrue(model.fourthOnly().contains("garply"));
+        assertTrue(model.union().contains("garply"));
+
+        first.add("garply");
+        assertFalse(model.fourthOnly().contains("garply"));
+        assertTrue(model.firstFourth().contains("garply"));
+
+        first.remove("garply");
+        fourth.remove("garply");
+        assertFalse(model.firstFourth().contains("garply"));
+        assertFalse(model.union().contains("garply"));
+    }
 }
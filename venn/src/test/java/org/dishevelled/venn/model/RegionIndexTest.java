@@ -0,0 +1,260 @@
+/*
+
+    dsh-venn  Lightweight components for venn diagrams.
+    Copyright (c) 2009-2019 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.venn.model;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import junit.framework.TestCase;
+
+import org.dishevelled.observable.ObservableSet;
+
+import org.dishevelled.observable.event.SetChangeEvent;
+import org.dishevelled.observable.event.SetChangeListener;
+
+import org.dishevelled.observable.impl.ObservableSetImpl;
+
+/**
+ * Unit test for RegionIndex.
+ *
+ * @author  Michael Heuer
+ */
+public final class RegionIndexTest
+    extends TestCase
+{
+    /** Region index. */
+    private RegionIndex<String> regions;
+
+    /** First set. */
+    private ObservableSet<String> first;
+
+    /** Second set. */
+    private ObservableSetImpl<String> second;
+
+    /** Set backing the second set. */
+    private Set<String> backing;
+
+
+    /** {@inheritDoc} */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        regions = new RegionIndex<String>(2);
+        first = new ObservableSetImpl<String>(new HashSet<String>(Arrays.asList(new String[] { "foo", "bar" })));
+        backing = new HashSet<String>(Arrays.asList(new String[] { "bar", "baz" }));
+        second = new ObservableSetImpl<String>(backing);
+        regions.observe(first, 0);
+        regions.observe(second, 1);
+    }
+
+    /**
+     * Assert the regions match those computed from the first and second sets.
+     */
+    private void assertRegions()
+    {
+        assertEquals(Sets.difference(first, second), regions.exclusiveTo(1));
+        assertEquals(Sets.difference(second, first), regions.exclusiveTo(2));
+        assertEquals(Sets.intersection(first, second), regions.exclusiveTo(3));
+        assertEquals(Sets.union(first, second), regions.union());
+    }
+
+    public void testConstructor()
+    {
+        assertNotNull(new RegionIndex<String>(1));
+        assertNotNull(new RegionIndex<String>(RegionIndex.MAX_SIZE));
+        try
+        {
+            new RegionIndex<String>(0);
+            fail("ctr(0) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            new RegionIndex<String>(RegionIndex.MAX_SIZE + 1);
+            fail("ctr(MAX_SIZE + 1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testObserve()
+    {
+        assertEquals(ImmutableSet.of("foo"), regions.exclusiveTo(1));
+        assertEquals(ImmutableSet.of("baz"), regions.exclusiveTo(2));
+        assertEquals(ImmutableSet.of("bar"), regions.exclusiveTo(3));
+        assertEquals(ImmutableSet.of("foo", "bar", "baz"), regions.union());
+    }
+
+    public void testAddRemove()
+    {
+        first.add("baz");
+        assertRegions();
+        first.add("baz");
+        assertRegions();
+        second.add("qux");
+        assertRegions();
+        first.remove("bar");
+        assertRegions();
+        first.remove("not present");
+        assertRegions();
+        second.remove("qux");
+        assertRegions();
+        assertFalse(regions.union().contains("qux"));
+    }
+
+    public void testAddAllRemoveAll()
+    {
+        first.addAll(ImmutableSet.of("baz", "qux"));
+        assertRegions();
+        second.removeAll(ImmutableSet.of("bar", "baz", "not present"));
+        assertRegions();
+    }
+
+    public void testRetainAll()
+    {
+        first.retainAll(ImmutableSet.of("bar"));
+        assertRegions();
+        assertFalse(regions.union().contains("foo"));
+    }
+
+    public void testClear()
+    {
+        first.clear();
+        assertRegions();
+        second.clear();
+        assertRegions();
+        assertTrue(regions.union().isEmpty());
+    }
+
+    public void testIteratorRemove()
+    {
+        for (Iterator<String> i = second.iterator(); i.hasNext(); )
+        {
+            if ("bar".equals(i.next()))
+            {
+                i.remove();
+            }
+        }
+        assertRegions();
+    }
+
+    public void testBatch()
+    {
+        second.beginBatch();
+        try
+        {
+            second.add("qux");
+            second.remove("bar");
+            second.add("garply");
+            second.remove("garply");
+        }
+        finally
+        {
+            second.endBatch();
+        }
+        assertRegions();
+        assertFalse(regions.union().contains("garply"));
+    }
+
+    public void testSetChangeEventWithoutDelta()
+    {
+        backing.remove("bar");
+        backing.add("qux");
+        second.fireSetChanged();
+        assertRegions();
+    }
+
+    public void testObserveAliased()
+    {
+        RegionIndex<String> aliased = new RegionIndex<String>(2);
+        ObservableSet<String> set = new ObservableSetImpl<String>(new HashSet<String>(ImmutableSet.of("foo")));
+        aliased.observe(set, 0);
+        aliased.observe(set, 1);
+        assertEquals(ImmutableSet.of("foo"), aliased.exclusiveTo(3));
+
+        set.add("bar");
+        assertTrue(aliased.exclusiveTo(1).isEmpty());
+        assertTrue(aliased.exclusiveTo(2).isEmpty());
+        assertEquals(ImmutableSet.of("foo", "bar"), aliased.exclusiveTo(3));
+
+        set.remove("foo");
+        assertEquals(ImmutableSet.of("bar"), aliased.exclusiveTo(3));
+        assertEquals(ImmutableSet.of("bar"), aliased.union());
+    }
+
+    public void testIsObservable()
+    {
+        assertTrue(RegionIndex.isObservable());
+        assertTrue(RegionIndex.isObservable(first, second));
+        assertFalse(RegionIndex.isObservable(first, backing));
+    }
+
+    public void testRegionsUpdatedBeforeWrapperListenersNotified()
+    {
+        final Set<Boolean> heard = new HashSet<Boolean>();
+        ObservableSet<String> wrapper = new ObservableSetImpl<String>(first);
+        wrapper.addSetChangeListener(new SetChangeListener<String>()
+            {
+                /** {@inheritDoc} */
+                public void setChanged(final SetChangeEvent<String> event)
+                {
+                    heard.add(Boolean.valueOf(regions.exclusiveTo(1).contains("garply")));
+                }
+            });
+        wrapper.add("garply");
+        assertEquals(ImmutableSet.of(Boolean.TRUE), heard);
+    }
+
+    public void testViewsAreUnmodifiable()
+    {
+        try
+        {
+            regions.exclusiveTo(1).add("garply");
+            fail("exclusiveTo(1).add expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+        try
+        {
+            regions.union().remove("foo");
+            fail("union().remove expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+}
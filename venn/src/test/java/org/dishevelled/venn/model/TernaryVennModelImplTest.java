@@ -23,11 +23,16 @@
 */
 package org.dishevelled.venn.model;
 
+import java.util.HashSet;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableSet;
+
 import org.dishevelled.venn.AbstractTernaryVennModelTest;
 import org.dishevelled.venn.TernaryVennModel;
 
+import org.dishevelled.observable.impl.ObservableSetImpl;
+
 import org.dishevelled.venn.model.TernaryVennModelImpl;
 
 /**
@@ -89,4 +94,55 @@ public final class TernaryVennModelImplTest
             // expected
         }
     }
+
+    public void testAliasedSets()
+    {
+        assertAliasedSets(new HashSet<String>(ImmutableSet.of("a")));
+        assertAliasedSets(new ObservableSetImpl<String>(new HashSet<String>(ImmutableSet.of("a"))));
+    }
+
+    private void assertAliasedSets(final Set<String> set)
+    {
+        TernaryVennModel<String> model = new TernaryVennModelImpl<String>(set, new HashSet<String>(), set);
+        model.first().add("x");
+        assertEquals(ImmutableSet.of("a", "x"), model.firstThird());
+        assertTrue(model.firstOnly().isEmpty());
+        assertTrue(model.thirdOnly().isEmpty());
+        assertTrue(model.intersection().isEmpty());
+        assertEquals(ImmutableSet.of("a", "x"), model.union());
+
+        model.second().add("x");
+        assertEquals(ImmutableSet.of("a"), model.firstThird());
+        assertEquals(ImmutableSet.of("x"), model.intersection());
+    }
+
+    public void testChangesToInputSets()
+    {
+        assertChangesToInputSets(new HashSet<String>(FIRST), new HashSet<String>(SECOND), new HashSet<String>(THIRD));
+        assertChangesToInputSets(new ObservableSetImpl<String>(new HashSet<String>(FIRST)),
+                                 new ObservableSetImpl<String>(new HashSet<String>(SECOND)),
+                                 new ObservableSetImpl<String>(new HashSet<String>(THIRD)));
+    }
+
+    private void assertChangesToInputSets(final Set<String> first, final Set<String> second, final Set<String> third)
+    {
+        TernaryVennModel<String> model = new TernaryVennModelImpl<String>(first, second, third);
+        third.add("garply");
+        assertTrue(model.third().contains("garply"));
+        assertTrue(model.thirdOnly().contains("garply"));
+        assertTrue(model.union().contains("garply"));
+
+        first.add("garply");
+        second.add("garply");
+        assertFalse(model.thirdOnly().contains("garply"));
+        assertTrue(model.intersection().contains("garply"));
+
+        first.remove("garply");
+        assertFalse(model.intersection().contains("garply"));
+        assertTrue(model.secondThird().contains("garply"));
+
+        second.remove("garply");
+        third.remove("garply");
+        assertFalse(model.union().contains("garply"));
+    }
 }
@@ -113,6 +113,26 @@ public final class VennModelsTest extends TestCase
         }
     }
 
+    public void testCreateIndexedVennModel()
+    {
+        Set<String> set = Sets.newHashSet();
+        set.add("foo");
+        List<Set<String>> sets = Lists.newArrayList();
+
+        for (int i = 2; i < 6; i++)
+        {
+            sets.clear();
+            for (int j = 0; j < i; j++)
+            {
+                sets.add(set);
+            }
+            VennModel<String> vennModel = VennModels.createIndexedVennModel(sets);
+            assertNotNull(vennModel);
+            assertEquals(i, vennModel.size());
+            assertEquals(set, vennModel.intersection());
+        }
+    }
+
     public void testCreateVennModels()
     {
         CreateBinaryVennModelTest createBinaryVennModelTest = new CreateBinaryVennModelTest();
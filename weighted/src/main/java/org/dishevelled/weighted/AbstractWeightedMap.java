@@ -0,0 +1,81 @@
+/*
+
+    dsh-weighted  Weighted map interface and implementation.
+    Copyright (c) 2005-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.weighted;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Abstract implementation of WeightedMap.
+ *
+ * <p>Implementations written against version 1.0 of the WeightedMap interface,
+ * which did not include {@link WeightedMap#sample(int)}, may extend this class
+ * to inherit an implementation of <code>sample(int)</code> that calls
+ * {@link WeightedMap#sample()} <code>n</code> times.  Subclasses are encouraged
+ * to override <code>sample(int)</code> with a more efficient implementation.</p>
+ *
+ * @param <E> the type of elements maintained by this weighted map
+ * @author  Michael Heuer
+ * @version $Revision$ $Date$
+ */
+public abstract class AbstractWeightedMap<E>
+    extends AbstractMap<E, Double>
+    implements WeightedMap<E>
+{
+
+    /**
+     * Create a new abstract weighted map.
+     */
+    protected AbstractWeightedMap()
+    {
+        super();
+    }
+
+
+    /** {@inheritDoc} */
+    public List<E> sample(final int n)
+    {
+        if (n < 0)
+        {
+            throw new IllegalArgumentException("n must be at least zero");
+        }
+        if (isEmpty() || n == 0)
+        {
+            return Collections.emptyList();
+        }
+        List<E> samples = new ArrayList<E>(n);
+        for (int i = 0; i < n; i++)
+        {
+            E e = sample();
+            if (e == null)
+            {
+                return Collections.emptyList();
+            }
+            samples.add(e);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,737 @@
+/*
+
+    dsh-weighted  Weighted map interface and implementation.
+    Copyright (c) 2005-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.weighted;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.Random;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.AbstractSet;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of WeightedMap backed by a Fenwick tree (binary indexed tree)
+ * of weights.
+ *
+ * <p>Elements are kept in a dense array of slots, with a hash map from element
+ * to slot.  Adding, updating, or removing an element and sampling a single element
+ * all run in <code>O(log n)</code> time.  For bulk sampling via {@link #sample(int)}
+ * a Walker alias table is built in <code>O(n)</code> time and then reused, for
+ * constant time sampling, until the next modification of this weighted map.</p>
+ *
+ * <p>Iteration order is slot order, which changes when elements are removed.</p>
+ *
+ * @param <E> the type of elements maintained by this weighted map
+ * @author  Michael Heuer
+ */
+public final class FenwickWeightedMap<E>
+    extends AbstractWeightedMap<E>
+{
+    /** Map of elements to slots. */
+    private final Map<E, Integer> slots;
+
+    /** Elements by slot. */
+    private Object[] elements;
+
+    /** Weights by slot. */
+    private double[] weights;
+
+    /** Fenwick tree of weights, one-based. */
+    private double[] tree;
+
+    /** Number of elements. */
+    private int size;
+
+    /** Total weight. */
+    private double totalWeight;
+
+    /** Source of randomness. */
+    private Random random = new Random();
+
+    /** Ranks by slot. */
+    private transient int[] rank;
+
+    /** Maximum rank. */
+    private transient int maximumRank;
+
+    /** Dirty flag for calculating rank. */
+    private transient boolean dirty = true;
+
+    /** Alias table probabilities by slot, or <code>null</code> if not valid. */
+    private transient double[] aliasProbability;
+
+    /** Alias table aliases by slot. */
+    private transient int[] alias;
+
+    /** Entry set view. */
+    private transient EntrySet entrySet;
+
+    /** Default initial capacity, <code>16</code>. */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+
+    /**
+     * Create a new weighted map with the default initial capacity.
+     */
+    public FenwickWeightedMap()
+    {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Create a new weighted map with the specified initial capacity.
+     *
+     * @param initialCapacity initial capacity, must be at least zero
+     */
+    public FenwickWeightedMap(final int initialCapacity)
+    {
+        if (initialCapacity < 0)
+        {
+            throw new IllegalArgumentException("initialCapacity must be at least zero");
+        }
+        int capacity = Math.max(1, initialCapacity);
+        slots = new HashMap<E, Integer>(Math.max(DEFAULT_INITIAL_CAPACITY, (int) (capacity / 0.75f) + 1));
+        elements = new Object[capacity];
+        weights = new double[capacity];
+        tree = new double[capacity + 1];
+    }
+
+    /**
+     * Create a new weighted map with the elements and weights
+     * in the specified weighted map (copy constructor).
+     *
+     * @param weightedMap weighted map to copy, must not be null
+     */
+    public FenwickWeightedMap(final WeightedMap<? extends E> weightedMap)
+    {
+        this(weightedMap.size());
+        putAll(weightedMap);
+    }
+
+
+    /**
+     * Set the source of randomness for this weighted map to
+     * <code>random</code>.
+     *
+     * @param random source of randomness, must not be null
+     */
+    public void setRandom(final Random random)
+    {
+        if (random == null)
+        {
+            throw new IllegalArgumentException("random must not be null");
+        }
+        this.random = random;
+    }
+
+    /** {@inheritDoc} */
+    public void clear()
+    {
+        slots.clear();
+        Arrays.fill(elements, 0, size, null);
+        Arrays.fill(weights, 0, size, 0.0d);
+        Arrays.fill(tree, 0.0d);
+        size = 0;
+        totalWeight = 0.0d;
+        modified();
+    }
+
+    /** {@inheritDoc} */
+    public int size()
+    {
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /** {@inheritDoc} */
+    public boolean containsKey(final Object o)
+    {
+        return slots.containsKey(o);
+    }
+
+    /** {@inheritDoc} */
+    public Double get(final Object o)
+    {
+        Integer slot = slots.get(o);
+        return (slot == null) ? null : Double.valueOf(weights[slot.intValue()]);
+    }
+
+    /** {@inheritDoc} */
+    public Double put(final E e, final Double w)
+    {
+        if (w < 0.0d)
+        {
+            throw new IllegalArgumentException("w must be >= 0.0d");
+        }
+        Integer slot = slots.get(e);
+        if (slot == null)
+        {
+            ensureCapacity(size + 1);
+            slots.put(e, Integer.valueOf(size));
+            elements[size] = e;
+            weights[size] = w;
+            add(size, w);
+            size++;
+            totalWeight += w;
+            modified();
+            return null;
+        }
+        return setWeight(slot.intValue(), w);
+    }
+
+    /** {@inheritDoc} */
+    public Double remove(final Object o)
+    {
+        Integer slot = slots.remove(o);
+        if (slot == null)
+        {
+            return null;
+        }
+        return Double.valueOf(removeSlot(slot.intValue()));
+    }
+
+    /** {@inheritDoc} */
+    public E sample()
+    {
+        if (size == 0 || totalWeight == 0.0d)
+        {
+            return null;
+        }
+        if (aliasProbability != null)
+        {
+            return sampleAlias();
+        }
+        return sampleTree();
+    }
+
+    /** {@inheritDoc} */
+    public List<E> sample(final int n)
+    {
+        if (n < 0)
+        {
+            throw new IllegalArgumentException("n must be at least zero");
+        }
+        if (size == 0 || totalWeight == 0.0d || n == 0)
+        {
+            return Collections.emptyList();
+        }
+        if (aliasProbability == null)
+        {
+            buildAliasTable();
+        }
+        List<E> samples = new ArrayList<E>(n);
+        for (int i = 0; i < n; i++)
+        {
+            samples.add(sampleAlias());
+        }
+        return samples;
+    }
+
+    /** {@inheritDoc} */
+    public Double weight(final E e)
+    {
+        return get(e);
+    }
+
+    /** {@inheritDoc} */
+    public Double normalizedWeight(final E e)
+    {
+        if (isEmpty())
+        {
+            return null;
+        }
+        if (totalWeight == 0.0d)
+        {
+            return 0.0d;
+        }
+        Double w = weight(e);
+        if (w == null)
+        {
+            return null;
+        }
+        return (w / totalWeight);
+    }
+
+    /** {@inheritDoc} */
+    public Double totalWeight()
+    {
+        return totalWeight;
+    }
+
+    /** {@inheritDoc} */
+    public int rank(final E e)
+    {
+        Integer slot = slots.get(e);
+        if (slot == null)
+        {
+            return -1;
+        }
+        if (dirty)
+        {
+            calculateRank();
+            dirty = false;
+        }
+        return rank[slot.intValue()];
+    }
+
+    /** {@inheritDoc} */
+    public int maximumRank()
+    {
+        if (isEmpty())
+        {
+            return -1;
+        }
+        if (dirty)
+        {
+            calculateRank();
+            dirty = false;
+        }
+        return maximumRank;
+    }
+
+    /** {@inheritDoc} */
+    public Set<Map.Entry<E, Double>> entrySet()
+    {
+        if (entrySet == null)
+        {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Return the element at the specified slot.
+     *
+     * @param slot slot
+     * @return the element at the specified slot
+     */
+    @SuppressWarnings("unchecked")
+    private E element(final int slot)
+    {
+        return (E) elements[slot];
+    }
+
+    /**
+     * Invalidate rank and the alias table after a modification.
+     */
+    private void modified()
+    {
+        dirty = true;
+        aliasProbability = null;
+        alias = null;
+    }
+
+    /**
+     * Set the weight at the specified slot.
+     *
+     * @param slot slot
+     * @param w weight
+     * @return the previous weight at the specified slot
+     */
+    private Double setWeight(final int slot, final double w)
+    {
+        double oldWeight = weights[slot];
+        weights[slot] = w;
+        add(slot, w - oldWeight);
+        totalWeight += w - oldWeight;
+        modified();
+        return Double.valueOf(oldWeight);
+    }
+
+    /**
+     * Remove the element at the specified slot, moving the element at the last
+     * slot into its place.  The element must already have been removed from the
+     * slot map.
+     *
+     * @param slot slot
+     * @return the weight of the removed element
+     */
+    private double removeSlot(final int slot)
+    {
+        double w = weights[slot];
+        int last = size - 1;
+        add(slot, -w);
+        if (slot != last)
+        {
+            double lastWeight = weights[last];
+            add(last, -lastWeight);
+            add(slot, lastWeight);
+            elements[slot] = elements[last];
+            weights[slot] = lastWeight;
+            slots.put(element(slot), Integer.valueOf(slot));
+        }
+        elements[last] = null;
+        weights[last] = 0.0d;
+        size--;
+        totalWeight -= w;
+        if (size == 0)
+        {
+            // discard accumulated rounding error
+            Arrays.fill(tree, 0.0d);
+            totalWeight = 0.0d;
+        }
+        modified();
+        return w;
+    }
+
+    /**
+     * Add the specified delta to the weight at the specified slot in the Fenwick tree.
+     *
+     * @param slot slot
+     * @param delta delta
+     */
+    private void add(final int slot, final double delta)
+    {
+        for (int i = slot + 1; i < tree.length; i += i & (-i))
+        {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Ensure the slot arrays can hold at least the specified number of elements,
+     * rebuilding the Fenwick tree in <code>O(n)</code> time if they grow.
+     *
+     * @param minimumCapacity minimum capacity
+     */
+    private void ensureCapacity(final int minimumCapacity)
+    {
+        if (minimumCapacity <= elements.length)
+        {
+            return;
+        }
+        int capacity = Math.max(minimumCapacity, 2 * elements.length);
+        Object[] e = new Object[capacity];
+        System.arraycopy(elements, 0, e, 0, size);
+        double[] w = new double[capacity];
+        System.arraycopy(weights, 0, w, 0, size);
+        double[] t = new double[capacity + 1];
+        for (int i = 1; i <= capacity; i++)
+        {
+            t[i] += w[i - 1];
+            int parent = i + (i & (-i));
+            if (parent <= capacity)
+            {
+                t[parent] += t[i];
+            }
+        }
+        elements = e;
+        weights = w;
+        tree = t;
+    }
+
+    /**
+     * Sample a slot by descending the Fenwick tree.
+     *
+     * @return a random element according to its normalized weight
+     */
+    private E sampleTree()
+    {
+        double r = random.nextDouble() * totalWeight;
+        int n = tree.length - 1;
+        int position = 0;
+        for (int step = Integer.highestOneBit(n); step > 0; step >>= 1)
+        {
+            int next = position + step;
+            if (next <= n && tree[next] <= r)
+            {
+                position = next;
+                r -= tree[next];
+            }
+        }
+        // guard against rounding error landing past the last weighted slot
+        int slot = Math.min(position, size - 1);
+        while (slot > 0 && weights[slot] == 0.0d)
+        {
+            slot--;
+        }
+        return element(slot);
+    }
+
+    /**
+     * Sample a slot from the alias table.
+     *
+     * @return a random element according to its normalized weight
+     */
+    private E sampleAlias()
+    {
+        int slot = random.nextInt(size);
+        return element((random.nextDouble() < aliasProbability[slot]) ? slot : alias[slot]);
+    }
+
+    /**
+     * Build a Walker alias table over the current slots, using Vose's method.
+     */
+    private void buildAliasTable()
+    {
+        double[] probability = new double[size];
+        int[] aliases = new int[size];
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        int anyWeighted = -1;
+        for (int i = 0; i < size; i++)
+        {
+            scaled[i] = weights[i] * size / totalWeight;
+            if (scaled[i] < 1.0d)
+            {
+                small[smallCount++] = i;
+            }
+            else
+            {
+                large[largeCount++] = i;
+            }
+            if (weights[i] > 0.0d)
+            {
+                anyWeighted = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0)
+        {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            probability[s] = scaled[s];
+            aliases[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0d;
+            if (scaled[l] < 1.0d)
+            {
+                small[smallCount++] = l;
+            }
+            else
+            {
+                large[largeCount++] = l;
+            }
+        }
+        while (largeCount > 0)
+        {
+            int l = large[--largeCount];
+            probability[l] = 1.0d;
+            aliases[l] = l;
+        }
+        while (smallCount > 0)
+        {
+            // left over only through rounding error; never let a zero weight slot be sampled
+            int s = small[--smallCount];
+            probability[s] = (weights[s] > 0.0d) ? 1.0d : 0.0d;
+            aliases[s] = (weights[s] > 0.0d) ? s : anyWeighted;
+        }
+        aliasProbability = probability;
+        alias = aliases;
+    }
+
+    /**
+     * Sort the slots in descending order according
+     * to their weights and calculate rank.
+     */
+    private void calculateRank()
+    {
+        rank = new int[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++)
+        {
+            order[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(order, byWeightDescending);
+
+        int r = 0;
+        double lastWeight = Double.NaN;
+        for (Integer slot : order)
+        {
+            double w = weights[slot.intValue()];
+            if (Double.compare(lastWeight, w) != 0)
+            {
+                r++;
+            }
+            rank[slot.intValue()] = r;
+            lastWeight = w;
+        }
+        maximumRank = r;
+    }
+
+    /**
+     * Sort slots in descending order according to their weights.
+     */
+    private transient final Comparator<Integer> byWeightDescending = new Comparator<Integer>()
+        {
+            /** {@inheritDoc} */
+            public int compare(final Integer slot1, final Integer slot2)
+            {
+                return Double.compare(weights[slot2.intValue()], weights[slot1.intValue()]);
+            }
+        };
+
+    /**
+     * Entry set view.
+     */
+    private class EntrySet
+        extends AbstractSet<Map.Entry<E, Double>>
+    {
+
+        /** {@inheritDoc} */
+        public int size()
+        {
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        public void clear()
+        {
+            FenwickWeightedMap.this.clear();
+        }
+
+        /** {@inheritDoc} */
+        public Iterator<Map.Entry<E, Double>> iterator()
+        {
+            return new EntrySetIterator();
+        }
+    }
+
+    /**
+     * Entry set iterator, in slot order.
+     */
+    private class EntrySetIterator
+        implements Iterator<Map.Entry<E, Double>>
+    {
+        /** Next slot. */
+        private int next = 0;
+
+        /** Last slot returned, or <code>-1</code> if none. */
+        private int last = -1;
+
+
+        /** {@inheritDoc} */
+        public boolean hasNext()
+        {
+            return next < size;
+        }
+
+        /** {@inheritDoc} */
+        public Map.Entry<E, Double> next()
+        {
+            if (next >= size)
+            {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next++;
+            return new SlotEntry(element(last));
+        }
+
+        /** {@inheritDoc} */
+        public void remove()
+        {
+            if (last < 0)
+            {
+                throw new IllegalStateException();
+            }
+            slots.remove(elements[last]);
+            removeSlot(last);
+            // the element formerly in the last slot now occupies this slot
+            next = last;
+            last = -1;
+        }
+    }
+
+    /**
+     * Map entry for an element, reading and writing its current slot.
+     */
+    private class SlotEntry
+        implements Map.Entry<E, Double>
+    {
+        /** Element. */
+        private final E e;
+
+
+        /**
+         * Create a new map entry for the specified element.
+         *
+         * @param e element
+         */
+        SlotEntry(final E e)
+        {
+            this.e = e;
+        }
+
+
+        /** {@inheritDoc} */
+        public E getKey()
+        {
+            return e;
+        }
+
+        /** {@inheritDoc} */
+        public Double getValue()
+        {
+            return get(e);
+        }
+
+        /** {@inheritDoc} */
+        public Double setValue(final Double w)
+        {
+            if (w < 0.0d)
+            {
+                throw new IllegalArgumentException("w must be >= 0.0d");
+            }
+            Integer slot = slots.get(e);
+            if (slot == null)
+            {
+                throw new IllegalStateException("entry no longer in map");
+            }
+            return setWeight(slot.intValue(), w);
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(final Object o)
+        {
+            if (!(o instanceof Map.Entry))
+            {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Double w = getValue();
+            return (e == null ? entry.getKey() == null : e.equals(entry.getKey()))
+                && (w == null ? entry.getValue() == null : w.equals(entry.getValue()));
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode()
+        {
+            Double w = getValue();
+            return (e == null ? 0 : e.hashCode()) ^ (w == null ? 0 : w.hashCode());
+        }
+    }
+}
@@ -235,6 +235,53 @@ public final class HashWeightedMap<E>
         return null;
     }
 
+    /** {@inheritDoc} */
+    public List<E> sample(final int n)
+    {
+        if (n < 0)
+        {
+            throw new IllegalArgumentException("n must be at least zero");
+        }
+        if (isEmpty() || totalWeight == 0.0d || n == 0)
+        {
+            return Collections.emptyList();
+        }
+
+        // cumulative weights, computed once for all n samples
+        int size = size();
+        List<E> elements = new ArrayList<E>(size);
+        double[] cumulative = new double[size];
+        double sum = 0.0d;
+        for (Map.Entry<E, Double> e : map.entrySet())
+        {
+            sum += e.getValue();
+            cumulative[elements.size()] = sum;
+            elements.add(e.getKey());
+        }
+
+        List<E> samples = new ArrayList<E>(n);
+        for (int i = 0; i < n; i++)
+        {
+            double r = random.nextDouble() * sum;
+            int low = 0;
+            int high = size - 1;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] > r)
+                {
+                    high = mid;
+                }
+                else
+                {
+                    low = mid + 1;
+                }
+            }
+            samples.add(elements.get(low));
+        }
+        return samples;
+    }
+
     /** {@inheritDoc} */
     public Double weight(final E e)
     {
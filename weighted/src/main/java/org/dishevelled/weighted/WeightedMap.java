@@ -23,6 +23,7 @@
 */
 package org.dishevelled.weighted;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -72,6 +73,23 @@ public interface WeightedMap<E>
      */
     E sample();
 
+    /**
+     * Randomly sample <code>n</code> elements, with replacement, from this
+     * weighted map according to their normalized weights.
+     *
+     * <p>This method was added in version 1.1 of this interface, and is an
+     * incompatible change for implementations written against version 1.0.
+     * Such implementations may extend {@link AbstractWeightedMap}, which
+     * implements this method in terms of {@link #sample()}.</p>
+     *
+     * @see #sample()
+     * @param n number of elements to sample, must be at least zero
+     * @return a list of <code>n</code> random elements from this weighted map
+     *    according to their normalized weights, or an empty list if this weighted
+     *    map is empty or if the total weight is zero
+     */
+    List<E> sample(int n);
+
     /**
      * Return the weight for the specified element in
      * this weighted map.  Returns the same value as <code>get(E e)</code>.
@@ -98,5 +98,46 @@ public final class WeightedMaps
         return new HashWeightedMap<E>(weightedMap);
     }
 
+    /**
+     * Create and return a new weighted map optimized for sampling with the
+     * default initial capacity.
+     *
+     * @param <E> element type
+     * @return a new weighted map optimized for sampling with the default
+     *    initial capacity
+     */
+    public static <E> WeightedMap<E> createFenwickWeightedMap()
+    {
+        return new FenwickWeightedMap<E>();
+    }
+
+    /**
+     * Create and return a new weighted map optimized for sampling with the
+     * specified initial capacity.
+     *
+     * @param <E> element type
+     * @param initialCapacity initial capacity, must be at least zero
+     * @return a new weighted map optimized for sampling with the specified
+     *    initial capacity
+     */
+    public static <E> WeightedMap<E> createFenwickWeightedMap(final int initialCapacity)
+    {
+        return new FenwickWeightedMap<E>(initialCapacity);
+    }
+
+    /**
+     * Create and return a new weighted map optimized for sampling with the
+     * elements and weights in the specified weighted map.
+     *
+     * @param <E> element type
+     * @param weightedMap weighted map to copy, must not be null
+     * @return a new weighted map optimized for sampling with the elements
+     *    and weights in the specified weighted map
+     */
+    public static <E> WeightedMap<E> createFenwickWeightedMap(final WeightedMap<? extends E> weightedMap)
+    {
+        return new FenwickWeightedMap<E>(weightedMap);
+    }
+
     // todo:  unmodifiableWeightedMap
 }
\ No newline at end of file
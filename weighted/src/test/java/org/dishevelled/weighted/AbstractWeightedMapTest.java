@@ -24,6 +24,7 @@
 package org.dishevelled.weighted;
 
 import java.util.Map;
+import java.util.List;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Collections;
@@ -325,6 +326,37 @@ public abstract class AbstractWeightedMapTest
         assertEquals("baz sampled 5000 times +/- 1000 from 10000", 5000, sampledBaz, 1000);
     }
 
+    public void testSampleN()
+    {
+        WeightedMap<String> m = createWeightedMap();
+
+        assertTrue("m sample(10) is empty", m.sample(10).isEmpty());
+
+        m.put("foo", 1.0d);
+        m.put("bar", 1.0d);
+        m.put("baz", 2.0d);
+        m.put("qux", 0.0d);
+
+        assertTrue("m sample(0) is empty", m.sample(0).isEmpty());
+
+        List<String> samples = m.sample(10000);
+        assertEquals("samples size == 10000", 10000, samples.size());
+        assertEquals("foo sampled 2500 times +/- 500 from 10000", 2500, Collections.frequency(samples, "foo"), 500);
+        assertEquals("bar sampled 2500 times +/- 500 from 10000", 2500, Collections.frequency(samples, "bar"), 500);
+        assertEquals("baz sampled 5000 times +/- 1000 from 10000", 5000, Collections.frequency(samples, "baz"), 1000);
+        assertEquals("qux never sampled", 0, Collections.frequency(samples, "qux"));
+
+        try
+        {
+            m.sample(-1);
+            fail("sample(-1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
     public void testKeySet()
     {
         WeightedMap<String> m = createWeightedMap();
@@ -0,0 +1,171 @@
+/*
+
+    dsh-weighted  Weighted map interface and implementation.
+    Copyright (c) 2005-2013 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.weighted;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit test for FenwickWeightedMap.
+ *
+ * @author  Michael Heuer
+ */
+public class FenwickWeightedMapTest
+    extends AbstractWeightedMapTest
+{
+
+    /** @see WeightedMapTest */
+    protected <E> WeightedMap<E> createWeightedMap()
+    {
+        return new FenwickWeightedMap<E>();
+    }
+
+    public void testConstructor()
+    {
+        WeightedMap<String> m0 = new FenwickWeightedMap<String>();
+        assertNotNull("m0 not null", m0);
+
+        WeightedMap<String> m1 = new FenwickWeightedMap<String>(0);
+        assertNotNull("m1 not null", m1);
+
+        WeightedMap<String> m2 = new FenwickWeightedMap<String>(m0);
+        assertNotNull("m2 not null", m2);
+
+        try
+        {
+            WeightedMap<String> m = new FenwickWeightedMap<String>(-1);
+            fail("ctr(-1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            WeightedMap<String> m = new FenwickWeightedMap<String>(null);
+            fail("ctr(null) expected NullPointerException");
+        }
+        catch (NullPointerException e)
+        {
+            // expected
+        }
+    }
+
+    public void testSetRandom()
+    {
+        FenwickWeightedMap<String> m = new FenwickWeightedMap<String>();
+
+        Random random = new Random();
+        m.setRandom(random);
+
+        try
+        {
+            m.setRandom(null);
+            fail("setRandom(null) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testConsistentWithHashWeightedMap()
+    {
+        Random random = new Random(42L);
+        WeightedMap<Integer> expected = new HashWeightedMap<Integer>();
+        WeightedMap<Integer> observed = new FenwickWeightedMap<Integer>(0);
+        for (int i = 0; i < 10000; i++)
+        {
+            Integer key = Integer.valueOf(random.nextInt(200));
+            if (random.nextInt(4) == 0)
+            {
+                assertEquals(expected.remove(key), observed.remove(key));
+            }
+            else
+            {
+                Double w = Double.valueOf(random.nextInt(10));
+                assertEquals(expected.put(key, w), observed.put(key, w));
+            }
+        }
+        assertEquals(observed, new HashMap<Integer, Double>(expected));
+        assertEquals(expected.size(), observed.size());
+        assertEquals(expected.totalWeight(), observed.totalWeight(), 1.0e-9);
+        assertEquals(expected.maximumRank(), observed.maximumRank());
+        for (Integer key : expected.keySet())
+        {
+            assertEquals(expected.rank(key), observed.rank(key));
+            assertEquals(expected.normalizedWeight(key), observed.normalizedWeight(key), 1.0e-9);
+        }
+    }
+
+    public void testSampleAfterRemove()
+    {
+        FenwickWeightedMap<String> m = new FenwickWeightedMap<String>(2);
+        m.put("foo", 1.0d);
+        m.put("bar", 1.0d);
+        m.put("baz", 1.0d);
+        m.sample(100);
+        m.remove("foo");
+        m.put("bar", 0.0d);
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals("baz", m.sample());
+        }
+        List<String> samples = m.sample(100);
+        for (String sample : samples)
+        {
+            assertEquals("baz", sample);
+        }
+    }
+
+    public void testIteratorRemove()
+    {
+        WeightedMap<Integer> m = new FenwickWeightedMap<Integer>();
+        for (int i = 0; i < 100; i++)
+        {
+            m.put(Integer.valueOf(i), Double.valueOf(i));
+        }
+        int visited = 0;
+        for (Iterator<Integer> keys = m.keySet().iterator(); keys.hasNext(); )
+        {
+            Integer key = keys.next();
+            visited++;
+            if (key.intValue() % 2 == 0)
+            {
+                keys.remove();
+            }
+        }
+        assertEquals(100, visited);
+        assertEquals(50, m.size());
+        assertEquals(2500.0d, m.totalWeight(), 1.0e-9);
+        for (Integer key : m.keySet())
+        {
+            assertTrue(key.intValue() % 2 == 1);
+        }
+    }
+}
@@ -65,4 +65,44 @@ public final class WeightedMapsTest
             // expected
         }
     }
+
+    public void testCreateFenwickWeightedMap()
+    {
+        WeightedMap<String> weightedMap0 = createFenwickWeightedMap();
+        assertNotNull(weightedMap0);
+        assertTrue(weightedMap0 instanceof FenwickWeightedMap);
+
+        WeightedMap<String> weightedMap1 = createFenwickWeightedMap(15);
+        assertNotNull(weightedMap1);
+        assertTrue(weightedMap1 instanceof FenwickWeightedMap);
+
+        WeightedMap<String> toCopy = createWeightedMap();
+        toCopy.put("foo", 1.0d);
+        toCopy.put("bar", 2.0d);
+
+        WeightedMap<String> weightedMap2 = createFenwickWeightedMap(toCopy);
+        assertNotNull(weightedMap2);
+        assertEquals(2, weightedMap2.size());
+        assertEquals(Double.valueOf(1.0d), weightedMap2.get("foo"));
+        assertEquals(Double.valueOf(2.0d), weightedMap2.get("bar"));
+
+        try
+        {
+            WeightedMap<String> ignore = createFenwickWeightedMap(-1);
+            fail("createFenwickWeightedMap(-1) expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+        try
+        {
+            WeightedMap<String> ignore = createFenwickWeightedMap(null);
+            fail("createFenwickWeightedMap(null) expected NullPointerException");
+        }
+        catch (NullPointerException e)
+        {
+            // expected
+        }
+    }
 }
\ No newline at end of file